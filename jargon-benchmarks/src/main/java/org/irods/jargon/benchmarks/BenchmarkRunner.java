@@ -0,0 +1,75 @@
+package org.irods.jargon.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Main class of the benchmark jar. Runs the benchmarks and writes the results
+ * as JSON, so that they may be compared between builds to track regressions.
+ * <p/>
+ * Arguments are optional regular expressions selecting the benchmarks to run,
+ * by default all benchmarks in this package are run. The result file defaults
+ * to <code>jmh-result.json</code>, and may be set with the system property
+ * <code>jargon.benchmark.result</code>.
+ * <p/>
+ * The {@link TransferBenchmark} runs against the iRODS grid given by
+ * <code>jargon.benchmark.host</code>, or against an embedded stand-in server
+ * when no host is set. The <code>jargon.benchmark.*</code> properties are
+ * passed on to the forked benchmark JVMs.
+ * <p/>
+ * For the full set of JMH options, run the jar with
+ * <code>org.openjdk.jmh.Main</code> instead.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class BenchmarkRunner {
+
+	public static final String RESULT_FILE_PROPERTY = TransferBenchmark.PROPERTY_PREFIX
+			+ "result";
+	public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+	private BenchmarkRunner() {
+	}
+
+	public static void main(final String[] args) throws RunnerException {
+
+		ChainedOptionsBuilder options = new OptionsBuilder().resultFormat(
+				ResultFormatType.JSON).result(
+				System.getProperty(RESULT_FILE_PROPERTY, DEFAULT_RESULT_FILE));
+
+		if (args.length == 0) {
+			options.include(BenchmarkRunner.class.getPackage().getName()
+					+ ".*");
+		} else {
+			for (String include : args) {
+				options.include(include);
+			}
+		}
+
+		String host = System.getProperty(TransferBenchmark.HOST_PROPERTY);
+		if (host == null || host.isEmpty()) {
+			System.out.println("no " + TransferBenchmark.HOST_PROPERTY
+					+ " given, transfer benchmarks use an embedded server");
+		}
+
+		List<String> benchmarkProperties = new ArrayList<String>();
+		for (String name : System.getProperties().stringPropertyNames()) {
+			if (name.startsWith(TransferBenchmark.PROPERTY_PREFIX)) {
+				benchmarkProperties.add("-D" + name + "="
+						+ System.getProperty(name));
+			}
+		}
+		options.jvmArgsAppend(benchmarkProperties
+				.toArray(new String[benchmarkProperties.size()]));
+
+		new Runner(options.build()).run();
+	}
+
+}
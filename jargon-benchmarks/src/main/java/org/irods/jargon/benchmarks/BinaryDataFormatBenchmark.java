@@ -0,0 +1,91 @@
+package org.irods.jargon.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.core.utils.BinaryDataFormat;
+import org.irods.jargon.core.utils.Host;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the encoding and decoding of the binary integers that frame each
+ * message (the header length) and that describe parallel transfer
+ * operations. The network format is most significant byte first, so on most
+ * hosts the byte swapping path is exercised.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryDataFormatBenchmark {
+
+	private BinaryDataFormat networkFormat;
+	private final byte[] intBytes = new byte[4];
+	private final byte[] longBytes = new byte[8];
+	private int intValue = 0x00010203;
+	private long longValue = 0x0001020304050607L;
+
+	@Setup
+	public void setUp() {
+		networkFormat = new BinaryDataFormat();
+		networkFormat.setMBFByteOrder();
+		networkFormat.encodeInt(intValue, intBytes);
+		networkFormat.encodeLong(longValue, longBytes);
+	}
+
+	@Benchmark
+	public byte[] hostCopyInt() {
+		Host.copyInt(intValue++, intBytes);
+		return intBytes;
+	}
+
+	@Benchmark
+	public int hostCastToInt() {
+		return Host.castToInt(intBytes);
+	}
+
+	@Benchmark
+	public byte[] hostCopyLong() {
+		Host.copyLong(longValue++, longBytes);
+		return longBytes;
+	}
+
+	@Benchmark
+	public long hostCastToLong() {
+		return Host.castToLong(longBytes);
+	}
+
+	@Benchmark
+	public int encodeInt() {
+		return networkFormat.encodeInt(intValue++, intBytes);
+	}
+
+	@Benchmark
+	public int decodeInt() {
+		return networkFormat.intValue(intBytes);
+	}
+
+	@Benchmark
+	public int encodeLong() {
+		return networkFormat.encodeLong(longValue++, longBytes);
+	}
+
+	@Benchmark
+	public long decodeLong() {
+		return networkFormat.longValue(longBytes);
+	}
+
+}
@@ -0,0 +1,85 @@
+package org.irods.jargon.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.core.connection.IRODSServerProperties;
+import org.irods.jargon.core.connection.IRODSServerProperties.IcatEnabled;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.query.BoundIRODSGenQuery;
+import org.irods.jargon.core.query.IRODSGenQuery;
+import org.irods.jargon.core.query.IRODSGenQueryTranslator;
+import org.irods.jargon.core.query.JargonQueryException;
+import org.irods.jargon.core.query.PreparedIRODSGenQuery;
+import org.irods.jargon.core.query.TranslatedIRODSGenQuery;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the translation of iquest-style query strings. Translation of a
+ * query string not seen before is compared with a repeated query string, which
+ * is translated again each time, and with binding values to a prepared
+ * template, whose translation is cached.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenQueryTranslatorBenchmark {
+
+	private static final String QUERY_PREFIX = "select COLL_NAME, DATA_NAME, DATA_SIZE, DATA_MODIFY_TIME where COLL_NAME = '/zone1/home/test1/benchmark' and DATA_NAME like '";
+	private static final String CONSTANT_QUERY = QUERY_PREFIX + "%.txt'";
+	private static final String QUERY_TEMPLATE = "select COLL_NAME, DATA_NAME, DATA_SIZE, DATA_MODIFY_TIME where COLL_NAME = ? and DATA_NAME like ?";
+
+	private IRODSGenQueryTranslator translator;
+	private PreparedIRODSGenQuery preparedQuery;
+	private long uniqueCounter = 0;
+
+	@Setup
+	public void setUp() throws JargonException, JargonQueryException {
+		IRODSServerProperties irodsServerProperties = IRODSServerProperties
+				.instance(IcatEnabled.ICAT_ENABLED, 100, "rods3.3", "d",
+						"zone1");
+		translator = new IRODSGenQueryTranslator(irodsServerProperties);
+		preparedQuery = translator.getPreparedQuery(QUERY_TEMPLATE);
+	}
+
+	@Benchmark
+	public TranslatedIRODSGenQuery translateNewQuery()
+			throws JargonException, JargonQueryException {
+		/*
+		 * a different literal each time, to compare with the repeated query
+		 */
+		return translator.getTranslatedQuery(IRODSGenQuery.instance(
+				QUERY_PREFIX + "file" + (uniqueCounter++) + "%'", 500));
+	}
+
+	@Benchmark
+	public TranslatedIRODSGenQuery translateRepeatedQuery()
+			throws JargonException, JargonQueryException {
+		return translator.getTranslatedQuery(IRODSGenQuery.instance(
+				CONSTANT_QUERY, 500));
+	}
+
+	@Benchmark
+	public TranslatedIRODSGenQuery translateBoundPreparedQuery()
+			throws JargonException, JargonQueryException {
+		BoundIRODSGenQuery boundQuery = preparedQuery.bind(500,
+				"/zone1/home/test1/benchmark", "file" + (uniqueCounter++)
+						+ "%");
+		return boundQuery.convertToTranslatedIRODSGenQuery();
+	}
+
+}
@@ -0,0 +1,117 @@
+package org.irods.jargon.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.GenQueryOut;
+import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.query.IRODSQueryResultRow;
+import org.irods.jargon.core.query.QueryResultProcessingUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the translation of a <code>GenQueryOut_PI</code> reply into
+ * result rows, for pages of various sizes. The reply has the shape of a data
+ * object listing, with the same columns that the collection listing uses.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryResultProcessingBenchmark {
+
+	private static final String[] COLUMN_NAMES = { "COLL_NAME", "DATA_NAME",
+			"DATA_SIZE", "DATA_MODIFY_TIME", "DATA_OWNER_NAME", "DATA_ID" };
+	private static final int[] COLUMN_INDEXES = { 501, 403, 407, 420, 411,
+			401 };
+
+	@Param({ "50", "500", "5000" })
+	public int rows;
+
+	private Tag queryResponse;
+	private List<String> columnNames;
+
+	@Setup
+	public void setUp() {
+		columnNames = new ArrayList<String>();
+		for (String columnName : COLUMN_NAMES) {
+			columnNames.add(columnName);
+		}
+		queryResponse = buildQueryResponse(rows);
+	}
+
+	@Benchmark
+	public List<IRODSQueryResultRow> translateResponseIntoResultSet()
+			throws JargonException {
+		return QueryResultProcessingUtils.translateResponseIntoResultSet(
+				queryResponse, columnNames, 1, 0);
+	}
+
+	@Benchmark
+	public List<IRODSQueryResultRow> translateLastPageIntoResultSet()
+			throws JargonException {
+		return QueryResultProcessingUtils.translateResponseIntoResultSet(
+				queryResponse, columnNames, 0, rows);
+	}
+
+	/**
+	 * Build a reply in the form given by the agent, one
+	 * <code>SqlResult_PI</code> per column, each holding a value for every
+	 * row
+	 */
+	static Tag buildQueryResponse(final int rowCount) {
+
+		Tag response = new Tag(GenQueryOut.PI_NAME);
+		response.addTag(new Tag(GenQueryOut.ROW_CNT, rowCount));
+		response.addTag(new Tag(GenQueryOut.ATTRIB_CNT, COLUMN_NAMES.length));
+		response.addTag(new Tag(GenQueryOut.CONTINUE_INX, 1));
+		response.addTag(new Tag("totalRowCount", 0));
+
+		for (int column = 0; column < COLUMN_NAMES.length; column++) {
+			Tag sqlResult = new Tag("SqlResult_PI");
+			sqlResult.addTag(new Tag("attriInx", COLUMN_INDEXES[column]));
+			sqlResult.addTag(new Tag("reslen", 64));
+			for (int row = 0; row < rowCount; row++) {
+				sqlResult.addTag(new Tag("value", valueFor(column, row)));
+			}
+			response.addTag(sqlResult);
+		}
+
+		return response;
+	}
+
+	private static String valueFor(final int column, final int row) {
+		switch (column) {
+		case 0:
+			return "/zone1/home/test1/benchmark/coll" + (row / 100);
+		case 1:
+			return "dataObject" + row + ".txt";
+		case 2:
+			return String.valueOf(1024L * row);
+		case 3:
+			return String.format("%011d", 1375800290L + row);
+		case 4:
+			return "test1";
+		default:
+			return String.valueOf(10000 + row);
+		}
+	}
+
+}
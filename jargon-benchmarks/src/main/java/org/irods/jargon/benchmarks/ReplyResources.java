@@ -0,0 +1,52 @@
+package org.irods.jargon.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Loads the recorded iRODS protocol replies that are packaged with the
+ * benchmarks under <code>/replies</code>
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+final class ReplyResources {
+
+	static final String OBJ_STAT_REPLY = "obj-stat-reply.xml";
+	static final String MISC_SERVER_INFO_REPLY = "misc-server-info-reply.xml";
+	static final String GEN_QUERY_OUT_REPLY = "gen-query-out-reply.xml";
+
+	private ReplyResources() {
+	}
+
+	/**
+	 * Read a recorded reply as it would arrive as the body of a message
+	 *
+	 * @param replyName
+	 *            <code>String</code> with the name of the reply resource
+	 * @return <code>byte[]</code> with the reply
+	 * @throws IOException
+	 */
+	static byte[] readReply(final String replyName) throws IOException {
+
+		InputStream in = ReplyResources.class.getResourceAsStream("/replies/"
+				+ replyName);
+		if (in == null) {
+			throw new IOException("no recorded reply named:" + replyName);
+		}
+
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+package org.irods.jargon.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.core.packinstr.Tag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the parsing of recorded iRODS replies into {@link Tag} trees, as
+ * done for each message body read from the agent, and the rendering of a tag
+ * tree back into the XML protocol
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TagParsingBenchmark {
+
+	private static final String ENCODING = "utf-8";
+
+	@Param({ ReplyResources.OBJ_STAT_REPLY,
+			ReplyResources.MISC_SERVER_INFO_REPLY,
+			ReplyResources.GEN_QUERY_OUT_REPLY })
+	public String reply;
+
+	private byte[] replyBytes;
+	private Tag replyTag;
+
+	@Setup
+	public void setUp() throws IOException {
+		replyBytes = ReplyResources.readReply(reply);
+		replyTag = Tag.readNextTag(replyBytes, ENCODING);
+	}
+
+	@Benchmark
+	public Tag readNextTag() throws IOException {
+		return Tag.readNextTag(replyBytes, ENCODING);
+	}
+
+	@Benchmark
+	public Tag readNextTagWithoutDecode() throws IOException {
+		return Tag.readNextTag(replyBytes, false, ENCODING);
+	}
+
+	@Benchmark
+	public String parseTag() {
+		return replyTag.parseTag();
+	}
+
+}
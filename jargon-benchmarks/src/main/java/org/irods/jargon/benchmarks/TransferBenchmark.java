@@ -0,0 +1,208 @@
+package org.irods.jargon.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.TransferOptions.ForceOption;
+import org.irods.jargon.core.pub.DataTransferOperations;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.transfer.TransferControlBlock;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServer;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end benchmark of a put and a get of a data object through
+ * {@link DataTransferOperations}. The file sizes fall below and above the
+ * default parallel transfer threshold, so both the single-buffer and the
+ * parallel transfer paths are measured.
+ * <p/>
+ * The iRODS grid to run against is given by system properties, which are
+ * passed on to the forked benchmark JVM by the {@link BenchmarkRunner}:
+ * <ul>
+ * <li>jargon.benchmark.host</li>
+ * <li>jargon.benchmark.port (default 1247)</li>
+ * <li>jargon.benchmark.user (required with a host)</li>
+ * <li>jargon.benchmark.password (required with a host)</li>
+ * <li>jargon.benchmark.zone (required with a host)</li>
+ * <li>jargon.benchmark.resource (default is the server default)</li>
+ * <li>jargon.benchmark.collection (default is the user home collection)</li>
+ * </ul>
+ * When no host is given, the benchmark runs against an
+ * {@link EmbeddedIRODSServer} in the benchmark JVM, with the round trip
+ * latency in milliseconds and the per-socket bandwidth cap in bytes per second
+ * taken from <code>jargon.benchmark.embedded.latency</code> and
+ * <code>jargon.benchmark.embedded.bandwidth</code> (both default to 0, no
+ * limit). This measures the client against a known network profile, rather
+ * than a grid whose load varies between runs.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TransferBenchmark {
+
+	static final String PROPERTY_PREFIX = "jargon.benchmark.";
+	static final String HOST_PROPERTY = PROPERTY_PREFIX + "host";
+	static final String EMBEDDED_LATENCY_PROPERTY = PROPERTY_PREFIX
+			+ "embedded.latency";
+	static final String EMBEDDED_BANDWIDTH_PROPERTY = PROPERTY_PREFIX
+			+ "embedded.bandwidth";
+	private static final String EMBEDDED_USER = "benchmark";
+	private static final String EMBEDDED_PASSWORD = "benchmark";
+
+	@Param({ "1048576", "67108864" })
+	public long fileSize;
+
+	private EmbeddedIRODSServer embeddedServer;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSAccount irodsAccount;
+	private DataTransferOperations dataTransferOperations;
+	private File localSourceFile;
+	private File localTargetFile;
+	private IRODSFile irodsFile;
+
+	@Setup
+	public void setUp() throws JargonException, IOException {
+
+		String host = System.getProperty(HOST_PROPERTY);
+		if (host == null || host.isEmpty()) {
+			irodsAccount = startEmbeddedServer();
+		} else {
+			int port = Integer.parseInt(System.getProperty(PROPERTY_PREFIX
+					+ "port", "1247"));
+			String user = requiredProperty("user");
+			String zone = requiredProperty("zone");
+			irodsAccount = IRODSAccount.instance(host, port, user,
+					requiredProperty("password"), "/" + zone + "/home/" + user,
+					zone, System.getProperty(PROPERTY_PREFIX + "resource", ""));
+		}
+
+		irodsFileSystem = IRODSFileSystem.instance();
+		IRODSAccessObjectFactory accessObjectFactory = irodsFileSystem
+				.getIRODSAccessObjectFactory();
+		dataTransferOperations = accessObjectFactory
+				.getDataTransferOperations(irodsAccount);
+
+		localSourceFile = File.createTempFile("jargon-benchmark-put", ".dat");
+		localTargetFile = File.createTempFile("jargon-benchmark-get", ".dat");
+		writeRandomFile(localSourceFile, fileSize);
+
+		String collection = System.getProperty(PROPERTY_PREFIX
+				+ "collection", irodsAccount.getHomeDirectory());
+		irodsFile = accessObjectFactory.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFile(collection,
+						"jargon-benchmark-" + fileSize + ".dat");
+
+		// make sure there is something to get before the first get
+		dataTransferOperations.putOperation(localSourceFile, irodsFile, null,
+				buildTransferControlBlock());
+	}
+
+	@TearDown
+	public void tearDown() {
+		try {
+			if (irodsFile != null) {
+				irodsFile.deleteWithForceOption();
+			}
+		} finally {
+			irodsFileSystem.closeAndEatExceptions();
+			if (localSourceFile != null) {
+				localSourceFile.delete();
+			}
+			if (localTargetFile != null) {
+				localTargetFile.delete();
+			}
+			if (embeddedServer != null) {
+				embeddedServer.stop();
+			}
+		}
+	}
+
+	@Benchmark
+	public void put() throws JargonException {
+		dataTransferOperations.putOperation(localSourceFile, irodsFile, null,
+				buildTransferControlBlock());
+	}
+
+	@Benchmark
+	public void get() throws JargonException {
+		dataTransferOperations.getOperation(irodsFile, localTargetFile, null,
+				buildTransferControlBlock());
+	}
+
+	private TransferControlBlock buildTransferControlBlock()
+			throws JargonException {
+		TransferControlBlock transferControlBlock = irodsFileSystem
+				.getIRODSAccessObjectFactory()
+				.buildDefaultTransferControlBlockBasedOnJargonProperties();
+		transferControlBlock.getTransferOptions().setForceOption(
+				ForceOption.USE_FORCE);
+		return transferControlBlock;
+	}
+
+	private IRODSAccount startEmbeddedServer() throws JargonException,
+			IOException {
+		EmbeddedIRODSServerConfiguration configuration = new EmbeddedIRODSServerConfiguration();
+		configuration.addUser(EMBEDDED_USER, EMBEDDED_PASSWORD);
+		configuration.setLatencyMillis(Long.parseLong(System.getProperty(
+				EMBEDDED_LATENCY_PROPERTY, "0")));
+		configuration.setBandwidthBytesPerSecond(Long.parseLong(System
+				.getProperty(EMBEDDED_BANDWIDTH_PROPERTY, "0")));
+		embeddedServer = new EmbeddedIRODSServer(configuration);
+		embeddedServer.start();
+		return embeddedServer.createIRODSAccount(EMBEDDED_USER);
+	}
+
+	private static String requiredProperty(final String name) {
+		String value = System.getProperty(PROPERTY_PREFIX + name);
+		if (value == null || value.isEmpty()) {
+			throw new IllegalStateException("system property "
+					+ PROPERTY_PREFIX + name
+					+ " must be set to run the transfer benchmark");
+		}
+		return value;
+	}
+
+	private static void writeRandomFile(final File file, final long length)
+			throws IOException {
+		Random random = new Random(length);
+		byte[] buffer = new byte[64 * 1024];
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			long remaining = length;
+			while (remaining > 0) {
+				random.nextBytes(buffer);
+				int toWrite = (int) Math.min(buffer.length, remaining);
+				out.write(buffer, 0, toWrite);
+				remaining -= toWrite;
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+}
@@ -0,0 +1,263 @@
+package org.irods.jargon.core.checksum;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Computes the digest of a local file, reading through a
+ * <code>FileChannel</code> in large blocks. For files larger than one block,
+ * the reads are done on a separate reader thread that fills the next buffers
+ * while the calling thread digests the current one, so that disk and digest
+ * work overlap.
+ * <p/>
+ * The buffers are heap buffers. Direct buffers would be allocated for every
+ * file, and their native memory is only given back when a later garbage
+ * collection finds them, so digesting many files could run the process out of
+ * direct memory.
+ * <p/>
+ * This class is thread safe, and one instance may be shared by many threads.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class FileChannelDigester {
+
+	public static final Logger log = LoggerFactory
+			.getLogger(FileChannelDigester.class);
+
+	/**
+	 * Default size of each read, and of each buffer
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+	/**
+	 * Number of buffers in flight for one file, one being digested while the
+	 * others are filled
+	 */
+	static final int BUFFERS_PER_FILE = 3;
+
+	/**
+	 * Empty buffer marking the end of the file in the queue of full buffers
+	 */
+	private static final ByteBuffer END_OF_FILE = ByteBuffer.allocate(0);
+
+	private static final ExecutorService READERS = Executors
+			.newCachedThreadPool(new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger(0);
+
+				@Override
+				public Thread newThread(final Runnable runnable) {
+					Thread thread = new Thread(runnable,
+							"jargon-checksum-reader-"
+									+ count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	private final int blockSize;
+
+	/**
+	 * Create a digester that reads with the default block size
+	 */
+	public FileChannelDigester() {
+		this(DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * Create a digester that reads in blocks of the given size
+	 *
+	 * @param blockSize
+	 *            <code>int</code> with the size in bytes of each read
+	 */
+	public FileChannelDigester(final int blockSize) {
+		if (blockSize <= 0) {
+			throw new IllegalArgumentException(
+					"blockSize must be greater than zero");
+		}
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * Compute the digest of a local file
+	 *
+	 * @param absolutePathToLocalFile
+	 *            <code>String</code> with the absolute path to the file
+	 * @param algorithm
+	 *            <code>String</code> with the <code>MessageDigest</code>
+	 *            algorithm name, such as <code>MD5</code> or
+	 *            <code>SHA-256</code>
+	 * @return <code>byte[]</code> with the digest
+	 * @throws JargonException
+	 *             if the file cannot be read
+	 */
+	public byte[] digest(final String absolutePathToLocalFile,
+			final String algorithm) throws JargonException {
+
+		if (absolutePathToLocalFile == null
+				|| absolutePathToLocalFile.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty absolutePathToLocalFile");
+		}
+
+		if (algorithm == null || algorithm.isEmpty()) {
+			throw new IllegalArgumentException("null or empty algorithm");
+		}
+
+		log.debug("digesting {} with {}", absolutePathToLocalFile, algorithm);
+
+		MessageDigest messageDigest;
+		try {
+			messageDigest = MessageDigest.getInstance(algorithm);
+		} catch (NoSuchAlgorithmException e) {
+			throw new JargonException("no such algorithm exception for "
+					+ algorithm);
+		}
+
+		FileInputStream file;
+		try {
+			file = new FileInputStream(absolutePathToLocalFile);
+		} catch (java.io.FileNotFoundException e) {
+			throw new JargonException(
+					"error computing checksum, file not found:"
+							+ absolutePathToLocalFile, e);
+		}
+
+		FileChannel channel = file.getChannel();
+		try {
+			if (channel.size() <= blockSize) {
+				digestOnCallingThread(channel, messageDigest);
+			} else {
+				digestWithReader(channel, messageDigest);
+			}
+			return messageDigest.digest();
+		} catch (IOException e) {
+			throw new JargonException("Error computing " + algorithm
+					+ " checksum", e);
+		} finally {
+			try {
+				file.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	public int getBlockSize() {
+		return blockSize;
+	}
+
+	/**
+	 * Read and digest a file of no more than one block, where a reader thread
+	 * would cost more than it saves
+	 */
+	private void digestOnCallingThread(final FileChannel channel,
+			final MessageDigest messageDigest) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(1L,
+				Math.min(channel.size(), blockSize)));
+		while (channel.read(buffer) != -1) {
+			buffer.flip();
+			messageDigest.update(buffer);
+			buffer.clear();
+		}
+	}
+
+	/**
+	 * Digest on the calling thread while a reader thread fills the buffers
+	 */
+	private void digestWithReader(final FileChannel channel,
+			final MessageDigest messageDigest) throws IOException {
+
+		final BlockingQueue<ByteBuffer> empty = new ArrayBlockingQueue<ByteBuffer>(
+				BUFFERS_PER_FILE);
+		final BlockingQueue<ByteBuffer> full = new ArrayBlockingQueue<ByteBuffer>(
+				BUFFERS_PER_FILE + 1);
+		for (int i = 0; i < BUFFERS_PER_FILE; i++) {
+			empty.add(ByteBuffer.allocate(blockSize));
+		}
+
+		final Throwable[] readFailure = new Throwable[1];
+		Future<?> reader = READERS.submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					while (true) {
+						ByteBuffer buffer = empty.take();
+						buffer.clear();
+						int read = 0;
+						while (buffer.hasRemaining()
+								&& (read = channel.read(buffer)) != -1) {
+							// fill the block
+						}
+						buffer.flip();
+						if (buffer.hasRemaining()) {
+							full.put(buffer);
+						}
+						if (read == -1) {
+							break;
+						}
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					readFailure[0] = e;
+				} catch (Throwable e) {
+					readFailure[0] = e;
+				} finally {
+					/*
+					 * always mark the end, so the digesting thread never waits
+					 * on a reader that has stopped, the queue has room for it
+					 */
+					full.offer(END_OF_FILE);
+				}
+			}
+		});
+
+		try {
+			while (true) {
+				ByteBuffer buffer = full.take();
+				if (buffer == END_OF_FILE) {
+					break;
+				}
+				messageDigest.update(buffer);
+				empty.put(buffer);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted computing checksum");
+		} finally {
+			reader.cancel(true);
+		}
+
+		/*
+		 * the failure was set before the end of file marker was queued, and
+		 * the queue publishes it to this thread
+		 */
+		if (readFailure[0] instanceof IOException) {
+			throw (IOException) readFailure[0];
+		} else if (readFailure[0] != null) {
+			throw new IOException("error reading file for checksum",
+					readFailure[0]);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "FileChannelDigester [blockSize=" + blockSize + "]";
+	}
+
+}
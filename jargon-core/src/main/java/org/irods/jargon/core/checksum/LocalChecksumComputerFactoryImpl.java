@@ -15,6 +15,39 @@ import org.irods.jargon.core.protovalues.ChecksumEncodingEnum;
 public class LocalChecksumComputerFactoryImpl implements
 		LocalChecksumComputerFactory {
 
+	/**
+	 * Digester for the <code>FileChannel</code> based strategies, or
+	 * <code>null</code> if the stream based strategies are used
+	 */
+	private final FileChannelDigester fileChannelDigester;
+
+	/**
+	 * Create a factory returning the stream based strategies
+	 */
+	public LocalChecksumComputerFactoryImpl() {
+		this(0);
+	}
+
+	/**
+	 * Create a factory returning strategies that read through a
+	 * <code>FileChannel</code> with the given block size
+	 * 
+	 * @param blockSize
+	 *            <code>int</code> with the size of each read, or 0 to return
+	 *            the stream based strategies
+	 */
+	public LocalChecksumComputerFactoryImpl(final int blockSize) {
+		if (blockSize < 0) {
+			throw new IllegalArgumentException("negative blockSize");
+		}
+
+		if (blockSize == 0) {
+			fileChannelDigester = null;
+		} else {
+			fileChannelDigester = new FileChannelDigester(blockSize);
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -32,9 +65,16 @@ public class LocalChecksumComputerFactoryImpl implements
 		}
 
 		if (checksumEncodingEnum == ChecksumEncodingEnum.MD5) {
-			return new MD5LocalChecksumComputerStrategy();
+			if (fileChannelDigester == null) {
+				return new MD5LocalChecksumComputerStrategy();
+			}
+			return new NIOMD5LocalChecksumComputerStrategy(fileChannelDigester);
 		} else if (checksumEncodingEnum == ChecksumEncodingEnum.SHA256) {
-			return new SHA256LocalChecksumComputerStrategy();
+			if (fileChannelDigester == null) {
+				return new SHA256LocalChecksumComputerStrategy();
+			}
+			return new NIOSHA256LocalChecksumComputerStrategy(
+					fileChannelDigester);
 		} else {
 			throw new ChecksumMethodUnavailableException(
 					"unable to find a checksum encoding method for:"
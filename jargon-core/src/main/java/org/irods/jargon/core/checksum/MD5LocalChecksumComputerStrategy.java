@@ -40,15 +40,24 @@ public class MD5LocalChecksumComputerStrategy extends
 					"null or empty localFileAbsolutePath");
 		}
 
-		byte[] digest = LocalFileUtils
-				.computeMD5FileCheckSumViaAbsolutePath(localFileAbsolutePath);
-		ChecksumValue value = new ChecksumValue();
-		value.setChecksumEncoding(ChecksumEncodingEnum.MD5);
-		value.setChecksumStringValue(LocalFileUtils
-				.digestByteArrayToString(digest));
-		value.setChecksumTransmissionFormat(value.getChecksumStringValue());
-		return value;
+		return StreamingChecksumDigester.checksumValueFromDigest(
+				ChecksumEncodingEnum.MD5, computeDigest(localFileAbsolutePath));
+
+	}
 
+	/**
+	 * Compute the raw MD5 digest of the file, subclasses may override to read
+	 * the file a different way
+	 * 
+	 * @param localFileAbsolutePath
+	 *            <code>String</code> with the absolute path to a local file
+	 * @return <code>byte[]</code> with the digest
+	 * @throws JargonException
+	 */
+	protected byte[] computeDigest(final String localFileAbsolutePath)
+			throws JargonException {
+		return LocalFileUtils
+				.computeMD5FileCheckSumViaAbsolutePath(localFileAbsolutePath);
 	}
 
 }
@@ -0,0 +1,51 @@
+package org.irods.jargon.core.checksum;
+
+import org.irods.jargon.core.exception.JargonException;
+
+/**
+ * Compute an MD5 checksum on a local file, reading through a
+ * <code>FileChannel</code> with large buffers and a read-ahead thread. See
+ * {@link FileChannelDigester}.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class NIOMD5LocalChecksumComputerStrategy extends
+		MD5LocalChecksumComputerStrategy {
+
+	private final FileChannelDigester fileChannelDigester;
+
+	/**
+	 * Create a strategy that reads with the default block size
+	 */
+	public NIOMD5LocalChecksumComputerStrategy() {
+		this(new FileChannelDigester());
+	}
+
+	/**
+	 * Create a strategy that reads with the given digester
+	 *
+	 * @param fileChannelDigester
+	 *            {@link FileChannelDigester} that sets the block size
+	 */
+	public NIOMD5LocalChecksumComputerStrategy(
+			final FileChannelDigester fileChannelDigester) {
+		if (fileChannelDigester == null) {
+			throw new IllegalArgumentException("null fileChannelDigester");
+		}
+		this.fileChannelDigester = fileChannelDigester;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.checksum.MD5LocalChecksumComputerStrategy#
+	 * computeDigest(java.lang.String)
+	 */
+	@Override
+	protected byte[] computeDigest(final String localFileAbsolutePath)
+			throws JargonException {
+		return fileChannelDigester.digest(localFileAbsolutePath, "MD5");
+	}
+
+}
@@ -0,0 +1,302 @@
+package org.irods.jargon.core.checksum;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.protovalues.ChecksumEncodingEnum;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Computes the checksums of many local files concurrently, such as every file
+ * under a directory that is to be verified against iRODS. The files are split
+ * among the workers of a <code>ForkJoinPool</code>, and directories are walked
+ * in parallel as well. Each file is checksummed with a strategy from the
+ * given {@link LocalChecksumComputerFactory}.
+ * <p/>
+ * Symbolic links to directories are not followed when walking a directory,
+ * so a link back up the tree cannot make the walk loop.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class ParallelLocalChecksumComputer {
+
+	public static final Logger log = LoggerFactory
+			.getLogger(ParallelLocalChecksumComputer.class);
+
+	private final LocalChecksumComputerFactory localChecksumComputerFactory;
+	private final int parallelism;
+
+	/**
+	 * Create a computer using one worker per available processor
+	 *
+	 * @param localChecksumComputerFactory
+	 *            {@link LocalChecksumComputerFactory} that supplies the
+	 *            checksum strategies
+	 */
+	public ParallelLocalChecksumComputer(
+			final LocalChecksumComputerFactory localChecksumComputerFactory) {
+		this(localChecksumComputerFactory, Runtime.getRuntime()
+				.availableProcessors());
+	}
+
+	/**
+	 * Create a computer with the given number of workers
+	 *
+	 * @param localChecksumComputerFactory
+	 *            {@link LocalChecksumComputerFactory} that supplies the
+	 *            checksum strategies
+	 * @param parallelism
+	 *            <code>int</code> with the number of files checksummed at
+	 *            once
+	 */
+	public ParallelLocalChecksumComputer(
+			final LocalChecksumComputerFactory localChecksumComputerFactory,
+			final int parallelism) {
+		if (localChecksumComputerFactory == null) {
+			throw new IllegalArgumentException(
+					"null localChecksumComputerFactory");
+		}
+
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException(
+					"parallelism must be greater than zero");
+		}
+
+		this.localChecksumComputerFactory = localChecksumComputerFactory;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Compute the checksum of each of the given files
+	 *
+	 * @param localFileAbsolutePaths
+	 *            <code>List</code> of <code>String</code> with the absolute
+	 *            paths of local files
+	 * @param checksumEncodingEnum
+	 *            {@link ChecksumEncodingEnum} with the checksum type
+	 * @return <code>Map</code> of absolute path to {@link ChecksumValue}, in
+	 *         path order
+	 * @throws ChecksumMethodUnavailableException
+	 *             if the checksum type is not supported
+	 * @throws JargonException
+	 *             if a file cannot be read, in which case no checksums are
+	 *             returned
+	 */
+	public Map<String, ChecksumValue> computeChecksums(
+			final List<String> localFileAbsolutePaths,
+			final ChecksumEncodingEnum checksumEncodingEnum)
+			throws JargonException {
+
+		if (localFileAbsolutePaths == null) {
+			throw new IllegalArgumentException("null localFileAbsolutePaths");
+		}
+
+		log.info("computeChecksums() for {} files",
+				localFileAbsolutePaths.size());
+
+		return invoke(new FileListTask(
+				new ArrayList<String>(localFileAbsolutePaths),
+				strategyFor(checksumEncodingEnum)));
+	}
+
+	/**
+	 * Compute the checksum of every file under a local directory, at any depth
+	 *
+	 * @param localDirectoryAbsolutePath
+	 *            <code>String</code> with the absolute path of a local
+	 *            directory
+	 * @param checksumEncodingEnum
+	 *            {@link ChecksumEncodingEnum} with the checksum type
+	 * @return <code>Map</code> of absolute path to {@link ChecksumValue}, in
+	 *         path order
+	 * @throws ChecksumMethodUnavailableException
+	 *             if the checksum type is not supported
+	 * @throws JargonException
+	 *             if the directory does not exist or a file cannot be read
+	 */
+	public Map<String, ChecksumValue> computeChecksumsUnderDirectory(
+			final String localDirectoryAbsolutePath,
+			final ChecksumEncodingEnum checksumEncodingEnum)
+			throws JargonException {
+
+		if (localDirectoryAbsolutePath == null
+				|| localDirectoryAbsolutePath.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty localDirectoryAbsolutePath");
+		}
+
+		log.info("computeChecksumsUnderDirectory():{}",
+				localDirectoryAbsolutePath);
+
+		File directory = new File(localDirectoryAbsolutePath);
+		if (!directory.isDirectory()) {
+			throw new JargonException("not a local directory:"
+					+ localDirectoryAbsolutePath);
+		}
+
+		return invoke(new DirectoryTask(directory,
+				strategyFor(checksumEncodingEnum)));
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	private AbstractChecksumComputeStrategy strategyFor(
+			final ChecksumEncodingEnum checksumEncodingEnum)
+			throws ChecksumMethodUnavailableException {
+		if (checksumEncodingEnum == null) {
+			throw new IllegalArgumentException("null checksumEncodingEnum");
+		}
+		return localChecksumComputerFactory.instance(checksumEncodingEnum);
+	}
+
+	private Map<String, ChecksumValue> invoke(
+			final RecursiveTask<Map<String, ChecksumValue>> task)
+			throws JargonException {
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			return pool.invoke(task);
+		} catch (RuntimeException e) {
+			/*
+			 * the pool may rethrow a copy of the failure from another worker,
+			 * with the original as its cause
+			 */
+			Throwable cause = e;
+			while (cause != null) {
+				if (cause instanceof JargonException) {
+					throw (JargonException) cause;
+				}
+				cause = cause.getCause();
+			}
+			throw e;
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static ChecksumValue checksum(
+			final AbstractChecksumComputeStrategy strategy, final String path) {
+		try {
+			return strategy.instanceChecksumForPackingInstruction(path);
+		} catch (java.io.FileNotFoundException e) {
+			throw new ChecksumFailure(new JargonException(
+					"file not found computing checksum:" + path, e));
+		} catch (JargonException e) {
+			throw new ChecksumFailure(e);
+		}
+	}
+
+	/**
+	 * Carries a checked exception out of a fork-join task
+	 */
+	private static class ChecksumFailure extends RuntimeException {
+
+		private static final long serialVersionUID = -1837520411366102334L;
+
+		ChecksumFailure(final JargonException cause) {
+			super(cause);
+		}
+	}
+
+	/**
+	 * Checksums a list of files, splitting it in half until one file is left
+	 */
+	private static class FileListTask extends
+			RecursiveTask<Map<String, ChecksumValue>> {
+
+		private static final long serialVersionUID = 2963101476427391052L;
+
+		private final List<String> paths;
+		private final AbstractChecksumComputeStrategy strategy;
+
+		FileListTask(final List<String> paths,
+				final AbstractChecksumComputeStrategy strategy) {
+			this.paths = paths;
+			this.strategy = strategy;
+		}
+
+		@Override
+		protected Map<String, ChecksumValue> compute() {
+			Map<String, ChecksumValue> checksums = new TreeMap<String, ChecksumValue>();
+			if (paths.size() <= 1) {
+				for (String path : paths) {
+					checksums.put(path, checksum(strategy, path));
+				}
+				return checksums;
+			}
+
+			int middle = paths.size() / 2;
+			FileListTask first = new FileListTask(paths.subList(0, middle),
+					strategy);
+			FileListTask second = new FileListTask(paths.subList(middle,
+					paths.size()), strategy);
+			first.fork();
+			checksums.putAll(second.compute());
+			checksums.putAll(first.join());
+			return checksums;
+		}
+	}
+
+	/**
+	 * Checksums the files of a directory, and forks a task for each
+	 * subdirectory
+	 */
+	private static class DirectoryTask extends
+			RecursiveTask<Map<String, ChecksumValue>> {
+
+		private static final long serialVersionUID = -4305185307591412675L;
+
+		private final File directory;
+		private final AbstractChecksumComputeStrategy strategy;
+
+		DirectoryTask(final File directory,
+				final AbstractChecksumComputeStrategy strategy) {
+			this.directory = directory;
+			this.strategy = strategy;
+		}
+
+		@Override
+		protected Map<String, ChecksumValue> compute() {
+			File[] children = directory.listFiles();
+			if (children == null) {
+				throw new ChecksumFailure(new JargonException(
+						"unable to list local directory:"
+								+ directory.getAbsolutePath()));
+			}
+
+			List<RecursiveTask<Map<String, ChecksumValue>>> tasks = new ArrayList<RecursiveTask<Map<String, ChecksumValue>>>();
+			List<String> files = new ArrayList<String>();
+			for (File child : children) {
+				if (Files.isSymbolicLink(child.toPath())
+						&& child.isDirectory()) {
+					log.info("not following symbolic link to directory:{}",
+							child.getAbsolutePath());
+				} else if (child.isDirectory()) {
+					tasks.add(new DirectoryTask(child, strategy));
+				} else if (child.isFile()) {
+					files.add(child.getAbsolutePath());
+				}
+			}
+			if (!files.isEmpty()) {
+				tasks.add(new FileListTask(files, strategy));
+			}
+
+			Map<String, ChecksumValue> checksums = new TreeMap<String, ChecksumValue>();
+			for (RecursiveTask<Map<String, ChecksumValue>> task : invokeAll(tasks)) {
+				checksums.putAll(task.join());
+			}
+			return checksums;
+		}
+	}
+
+}
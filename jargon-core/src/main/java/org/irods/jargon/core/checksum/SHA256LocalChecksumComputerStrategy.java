@@ -5,7 +5,6 @@ package org.irods.jargon.core.checksum;
 
 import java.io.FileNotFoundException;
 
-import org.apache.commons.codec.binary.Base64;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.protovalues.ChecksumEncodingEnum;
 import org.irods.jargon.core.utils.LocalFileUtils;
@@ -41,18 +40,25 @@ public class SHA256LocalChecksumComputerStrategy extends
 					"null or empty localFileAbsolutePath");
 		}
 
-		byte[] digest = LocalFileUtils
-				.computeSHA256FileCheckSumViaAbsolutePath(localFileAbsolutePath);
+		return StreamingChecksumDigester.checksumValueFromDigest(
+				ChecksumEncodingEnum.SHA256,
+				computeDigest(localFileAbsolutePath));
 
-		ChecksumValue value = new ChecksumValue();
-		value.setChecksumEncoding(ChecksumEncodingEnum.SHA256);
-		value.setChecksumStringValue(Base64.encodeBase64String(digest).trim());
-		StringBuilder sb = new StringBuilder();
-		sb.append("sha2:");
-		sb.append(value.getChecksumStringValue());
-		value.setChecksumTransmissionFormat(sb.toString().trim());
-		return value;
+	}
 
+	/**
+	 * Compute the raw SHA256 digest of the file, subclasses may override to
+	 * read the file a different way
+	 * 
+	 * @param localFileAbsolutePath
+	 *            <code>String</code> with the absolute path to a local file
+	 * @return <code>byte[]</code> with the digest
+	 * @throws JargonException
+	 */
+	protected byte[] computeDigest(final String localFileAbsolutePath)
+			throws JargonException {
+		return LocalFileUtils
+				.computeSHA256FileCheckSumViaAbsolutePath(localFileAbsolutePath);
 	}
 
 }
@@ -0,0 +1,201 @@
+package org.irods.jargon.core.checksum;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.commons.codec.binary.Base64;
+import org.irods.jargon.core.protovalues.ChecksumEncodingEnum;
+import org.irods.jargon.core.utils.LocalFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Computes a checksum from bytes as they pass through a transfer, so that the
+ * data is verified without reading the local file a second time. The streams
+ * given to a put or get are wrapped, and when the transfer is done the
+ * {@link ChecksumValue} is in the same form as the one produced by the local
+ * checksum strategies, and can be compared with the checksum iRODS computes.
+ * <p/>
+ * The bytes must be digested in file order, so this is only useful for
+ * transfers that move the file as a single stream. An instance is not thread
+ * safe, and is used for one transfer.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class StreamingChecksumDigester {
+
+	public static final Logger log = LoggerFactory
+			.getLogger(StreamingChecksumDigester.class);
+
+	private final ChecksumEncodingEnum checksumEncoding;
+	private final MessageDigest messageDigest;
+	private long bytesDigested = 0L;
+	private ChecksumValue checksumValue = null;
+
+	/**
+	 * Create a digester for the given checksum type
+	 *
+	 * @param checksumEncoding
+	 *            {@link ChecksumEncodingEnum} that must be <code>MD5</code> or
+	 *            <code>SHA256</code>
+	 * @return {@link StreamingChecksumDigester}
+	 * @throws ChecksumMethodUnavailableException
+	 *             if the checksum type cannot be computed locally
+	 */
+	public static StreamingChecksumDigester instance(
+			final ChecksumEncodingEnum checksumEncoding)
+			throws ChecksumMethodUnavailableException {
+
+		if (checksumEncoding == null) {
+			throw new IllegalArgumentException("null checksumEncoding");
+		}
+
+		String algorithm;
+		if (checksumEncoding == ChecksumEncodingEnum.MD5) {
+			algorithm = "MD5";
+		} else if (checksumEncoding == ChecksumEncodingEnum.SHA256) {
+			algorithm = "SHA-256";
+		} else {
+			throw new ChecksumMethodUnavailableException(
+					"no streaming checksum for encoding:" + checksumEncoding);
+		}
+
+		try {
+			return new StreamingChecksumDigester(checksumEncoding,
+					MessageDigest.getInstance(algorithm));
+		} catch (NoSuchAlgorithmException e) {
+			throw new ChecksumMethodUnavailableException(
+					"no such algorithm exception for " + algorithm, e);
+		}
+	}
+
+	private StreamingChecksumDigester(
+			final ChecksumEncodingEnum checksumEncoding,
+			final MessageDigest messageDigest) {
+		this.checksumEncoding = checksumEncoding;
+		this.messageDigest = messageDigest;
+	}
+
+	/**
+	 * Wrap a stream so that every byte read from it is digested
+	 *
+	 * @param inputStream
+	 *            <code>InputStream</code> with the data being sent
+	 * @return <code>InputStream</code> to read from in place of the original
+	 */
+	public InputStream wrapInputStream(final InputStream inputStream) {
+		if (inputStream == null) {
+			throw new IllegalArgumentException("null inputStream");
+		}
+		return new DigestInputStream(inputStream, messageDigest) {
+			@Override
+			public int read() throws java.io.IOException {
+				int b = super.read();
+				if (b != -1) {
+					bytesDigested++;
+				}
+				return b;
+			}
+
+			@Override
+			public int read(final byte[] b, final int off, final int len)
+					throws java.io.IOException {
+				int read = super.read(b, off, len);
+				if (read > 0) {
+					bytesDigested += read;
+				}
+				return read;
+			}
+		};
+	}
+
+	/**
+	 * Wrap a stream so that every byte written to it is digested
+	 *
+	 * @param outputStream
+	 *            <code>OutputStream</code> that receives the data
+	 * @return <code>OutputStream</code> to write to in place of the original
+	 */
+	public OutputStream wrapOutputStream(final OutputStream outputStream) {
+		if (outputStream == null) {
+			throw new IllegalArgumentException("null outputStream");
+		}
+		return new DigestOutputStream(outputStream, messageDigest) {
+			@Override
+			public void write(final int b) throws java.io.IOException {
+				super.write(b);
+				bytesDigested++;
+			}
+
+			@Override
+			public void write(final byte[] b, final int off, final int len)
+					throws java.io.IOException {
+				super.write(b, off, len);
+				bytesDigested += len;
+			}
+		};
+	}
+
+	/**
+	 * Finish the digest and return the checksum of every byte that passed
+	 * through the wrapped streams. The digest is finished on the first call,
+	 * and later calls return the same value.
+	 *
+	 * @return {@link ChecksumValue}
+	 */
+	public ChecksumValue getChecksumValue() {
+		if (checksumValue == null) {
+			checksumValue = checksumValueFromDigest(checksumEncoding,
+					messageDigest.digest());
+			log.debug("streaming checksum of {} bytes:{}", bytesDigested,
+					checksumValue);
+		}
+		return checksumValue;
+	}
+
+	/**
+	 * @return {@link ChecksumEncodingEnum} computed by this digester
+	 */
+	public ChecksumEncodingEnum getChecksumEncoding() {
+		return checksumEncoding;
+	}
+
+	/**
+	 * @return <code>long</code> with the number of bytes digested so far
+	 */
+	public long getBytesDigested() {
+		return bytesDigested;
+	}
+
+	/**
+	 * Build the checksum value iRODS expects from a raw digest
+	 *
+	 * @param checksumEncoding
+	 *            {@link ChecksumEncodingEnum} of the digest
+	 * @param digest
+	 *            <code>byte[]</code> with the raw digest
+	 * @return {@link ChecksumValue}
+	 */
+	static ChecksumValue checksumValueFromDigest(
+			final ChecksumEncodingEnum checksumEncoding, final byte[] digest) {
+		ChecksumValue value = new ChecksumValue();
+		value.setChecksumEncoding(checksumEncoding);
+		if (checksumEncoding == ChecksumEncodingEnum.SHA256) {
+			value.setChecksumStringValue(Base64.encodeBase64String(digest)
+					.trim());
+			value.setChecksumTransmissionFormat("sha2:"
+					+ value.getChecksumStringValue());
+		} else {
+			value.setChecksumStringValue(LocalFileUtils
+					.digestByteArrayToString(digest));
+			value.setChecksumTransmissionFormat(value.getChecksumStringValue());
+		}
+		return value;
+	}
+
+}
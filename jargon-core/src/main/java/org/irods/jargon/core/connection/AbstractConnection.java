@@ -11,6 +11,8 @@ import java.net.Socket;
 import java.nio.channels.ClosedChannelException;
 
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.metrics.JargonMetrics;
+import org.irods.jargon.core.metrics.NoOpJargonMetrics;
 import org.irods.jargon.core.utils.Host;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,6 +50,12 @@ public abstract class AbstractConnection {
 	}
 
 	private EncryptionType encryptionType = EncryptionType.NONE;
+
+	/**
+	 * Receives the counts of bytes sent and received, set by the protocol
+	 * layer once the connection is created
+	 */
+	private volatile JargonMetrics jargonMetrics = NoOpJargonMetrics.INSTANCE;
 	/**
 	 * 4 bytes at the front of the header, outside XML
 	 */
@@ -200,6 +208,10 @@ public abstract class AbstractConnection {
 				return;
 			}
 
+			if (jargonMetrics.isEnabled()) {
+				jargonMetrics.recordBytesSent(value.length);
+			}
+
 			if (pipelineConfiguration.getInternalCacheBufferSize() <= 0) {
 				irodsOutputStream.write(value);
 			} else if ((value.length + outputOffset) >= pipelineConfiguration
@@ -577,6 +589,9 @@ public abstract class AbstractConnection {
 				bytesRead += read;
 			}
 			result = bytesRead;
+			if (jargonMetrics.isEnabled()) {
+				jargonMetrics.recordBytesReceived(bytesRead);
+			}
 
 			return result;
 		} catch (ClosedChannelException e) {
@@ -608,6 +623,15 @@ public abstract class AbstractConnection {
 		this.irodsSession = irodsSession;
 	}
 
+	/**
+	 * @param jargonMetrics
+	 *            {@link JargonMetrics} that will receive the counts of bytes
+	 *            sent and received
+	 */
+	void setJargonMetrics(final JargonMetrics jargonMetrics) {
+		this.jargonMetrics = jargonMetrics;
+	}
+
 	/**
 	 * @return the irodsAccount associated with this connection
 	 */
@@ -6,9 +6,13 @@ import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.irods.jargon.core.connection.auth.AuthResponse;
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.metrics.JargonMetrics;
+import org.irods.jargon.core.metrics.NoOpJargonMetrics;
 import org.irods.jargon.core.packinstr.AbstractIRODSPackingInstruction;
 import org.irods.jargon.core.packinstr.IRodsPI;
 import org.irods.jargon.core.packinstr.RErrMsg;
@@ -58,6 +62,14 @@ public abstract class AbstractIRODSMidLevelProtocol {
 	 */
 	private IRODSAccount irodsAccount;
 
+	/**
+	 * Receives the timings of API calls and message handling. This is the
+	 * no-op implementation unless instrumentation is configured in the
+	 * <code>IRODSSession</code>, and is set once when the connection is
+	 * created.
+	 */
+	private JargonMetrics jargonMetrics = NoOpJargonMetrics.INSTANCE;
+
 	/**
 	 * Create a base instance of the mid level protocol, which may be processed
 	 * through multiple phases before being ready for use.
@@ -264,39 +276,45 @@ public abstract class AbstractIRODSMidLevelProtocol {
 		log.debug("api number is:{}", irodsPI.getApiNumber());
 
 		long dataSent = 0;
+		long startTime = metricsStartTime();
+		boolean success = false;
 
 		try {
-			int length = 0;
-			String message = irodsPI.getParsedTags();
-			if (message != null) {
-				length = message.getBytes(irodsConnection
-						.getPipelineConfiguration().getDefaultEncoding()).length;
-			}
-			irodsConnection.send(createHeader(IRODSConstants.RODS_API_REQ,
-					length, 0, byteStreamLength, irodsPI.getApiNumber()));
-			irodsConnection.send(message);
+			try {
+				int length = 0;
+				String message = serialize(irodsPI);
+				if (message != null) {
+					length = message.getBytes(irodsConnection
+							.getPipelineConfiguration().getDefaultEncoding()).length;
+				}
+				irodsConnection.send(createHeader(IRODSConstants.RODS_API_REQ,
+						length, 0, byteStreamLength, irodsPI.getApiNumber()));
+				irodsConnection.send(message);
+
+				if (byteStreamLength > 0) {
+					dataSent += irodsConnection.send(byteStream,
+							byteStreamLength, connectionProgressStatusListener);
+					// do not close stream, it may be sent again in a
+					// subsequent call, and will maintain its internal pointer
+				}
 
-			if (byteStreamLength > 0) {
-				dataSent += irodsConnection.send(byteStream, byteStreamLength,
-						connectionProgressStatusListener);
-				// do not close stream, it may be sent again in a subsequent
-				// call, and will maintain its internal pointer
+			} catch (UnsupportedEncodingException e) {
+				log.error("unsupported encoding", e);
+				throw new JargonException(e);
+			} catch (IOException e) {
+				log.error("ioexception", e);
+				disconnectWithForce();
+				throw new JargonException(e);
 			}
 
-		} catch (UnsupportedEncodingException e) {
-			log.error("unsupported encoding", e);
-			throw new JargonException(e);
-		} catch (IOException e) {
-			log.error("ioexception", e);
-			disconnectWithForce();
-			throw new JargonException(e);
+			log.debug("reading message from frame send...");
+			readMessage();
+			log.debug("message read");
+			success = true;
+			return dataSent;
+		} finally {
+			recordApiCall(irodsPI.getApiNumber(), startTime, success);
 		}
-
-		log.debug("reading message from frame send...");
-		log.debug("read commented out");
-		readMessage();
-		log.debug("message read");
-		return dataSent;
 	}
 
 	/**
@@ -362,40 +380,49 @@ public abstract class AbstractIRODSMidLevelProtocol {
 		log.debug("calling irods function with:{}", irodsPI);
 		log.debug("api number is:{}", irodsPI.getApiNumber());
 
+		long startTime = metricsStartTime();
+		boolean success = false;
+
 		try {
-			int length = 0;
-			String message = irodsPI.getParsedTags();
-			if (message != null) {
-				length = message.getBytes(getEncoding()).length;
-			}
+			try {
+				int length = 0;
+				String message = serialize(irodsPI);
+				if (message != null) {
+					length = message.getBytes(getEncoding()).length;
+				}
 
-			log.debug("message:{}", message);
+				log.debug("message:{}", message);
 
-			irodsConnection.send(createHeader(IRODSConstants.RODS_API_REQ,
-					length, 0, byteStreamLength, irodsPI.getApiNumber()));
-			irodsConnection.send(message);
+				irodsConnection.send(createHeader(IRODSConstants.RODS_API_REQ,
+						length, 0, byteStreamLength, irodsPI.getApiNumber()));
+				irodsConnection.send(message);
 
-			if (byteStreamLength > 0) {
-				irodsConnection.send(byteStream, byteStreamLength,
-						connectionProgressStatusListener);
-				byteStream.close();
-			} else {
-				log.debug("no byte stream data, so flush output");
-				irodsConnection.flush();
-			}
+				if (byteStreamLength > 0) {
+					irodsConnection.send(byteStream, byteStreamLength,
+							connectionProgressStatusListener);
+					byteStream.close();
+				} else {
+					log.debug("no byte stream data, so flush output");
+					irodsConnection.flush();
+				}
 
-		} catch (UnsupportedEncodingException e) {
-			log.error("unsupported encoding", e);
-			throw new JargonException(e);
-		} catch (IOException e) {
-			log.error("ioexception", e);
-			disconnectWithForce();
+			} catch (UnsupportedEncodingException e) {
+				log.error("unsupported encoding", e);
+				throw new JargonException(e);
+			} catch (IOException e) {
+				log.error("ioexception", e);
+				disconnectWithForce();
 
-			throw new JargonException(e);
-		}
+				throw new JargonException(e);
+			}
 
-		log.debug("data sent, getting response");
-		return readMessage();
+			log.debug("data sent, getting response");
+			Tag response = readMessage();
+			success = true;
+			return response;
+		} finally {
+			recordApiCall(irodsPI.getApiNumber(), startTime, success);
+		}
 	}
 
 	/**
@@ -413,7 +440,8 @@ public abstract class AbstractIRODSMidLevelProtocol {
 			throw new IllegalArgumentException(err);
 		}
 
-		String out = irodsPI.getParsedTags();
+		long startTime = metricsStartTime();
+		String out = serialize(irodsPI);
 
 		if (out == null || out.length() == 0) {
 			String err = "null or missing message returned from parse";
@@ -425,6 +453,8 @@ public abstract class AbstractIRODSMidLevelProtocol {
 			log.debug(out);
 		}
 
+		boolean success = false;
+
 		try {
 			irodsConnection.send(createHeader(IRODSConstants.RODS_API_REQ,
 					out.getBytes(getEncoding()).length, errorLength,
@@ -436,7 +466,9 @@ public abstract class AbstractIRODSMidLevelProtocol {
 			}
 
 			irodsConnection.flush();
-			return readMessage();
+			Tag response = readMessage();
+			success = true;
+			return response;
 
 		} catch (UnsupportedEncodingException e) {
 			log.error("unsupported encoding", e);
@@ -446,6 +478,8 @@ public abstract class AbstractIRODSMidLevelProtocol {
 			disconnectWithForce();
 
 			throw new JargonException(e);
+		} finally {
+			recordApiCall(irodsPI.getApiNumber(), startTime, success);
 		}
 
 	}
@@ -568,8 +602,166 @@ public abstract class AbstractIRODSMidLevelProtocol {
 			throw new IllegalArgumentException(err);
 		}
 
-		return irodsFunction(IRODSConstants.RODS_API_REQ,
-				irodsPI.getParsedTags(), irodsPI.getApiNumber());
+		return irodsFunction(IRODSConstants.RODS_API_REQ, serialize(irodsPI),
+				irodsPI.getApiNumber());
+	}
+
+	/**
+	 * Send a series of requests that carry no binary data, writing up to
+	 * <code>depth</code> requests ahead of the responses, rather than waiting
+	 * for each response before sending the next request. The agent serves the
+	 * requests in order, so the responses are read back in the order sent.
+	 * This saves a network round trip per request for batches of small,
+	 * independent operations, such as adding AVUs.
+	 * <p/>
+	 * An error returned by iRODS for one request does not stop the others, and
+	 * is returned in the list at the position of the request that caused it.
+	 * The depth bounds the unread responses, so that neither side blocks on a
+	 * full socket buffer.
+	 * 
+	 * @param irodsPIs
+	 *            <code>List</code> of {@link IRodsPI} to send, in order
+	 * @param depth
+	 *            <code>int</code> with the most requests sent and not yet
+	 *            answered, a depth of 1 sends each request after the response
+	 *            to the one before
+	 * @return <code>List</code> of <code>JargonException</code>, with one
+	 *         entry per request, which is <code>null</code> if the request
+	 *         succeeded
+	 * @throws JargonException
+	 *             if the connection fails, in which case the outcome of any
+	 *             unanswered requests is unknown
+	 */
+	public synchronized List<JargonException> irodsFunctionPipelined(
+			final List<? extends IRodsPI> irodsPIs, final int depth)
+			throws JargonException {
+		return irodsFunctionPipelined(irodsPIs, depth, null);
+	}
+
+	/**
+	 * Send a series of requests that carry no binary data, pipelined as in
+	 * {@link #irodsFunctionPipelined(List, int)}, keeping the response to each
+	 * request
+	 * 
+	 * @param irodsPIs
+	 *            <code>List</code> of {@link IRodsPI} to send, in order
+	 * @param depth
+	 *            <code>int</code> with the most requests sent and not yet
+	 *            answered
+	 * @param responses
+	 *            <code>List</code> of {@link Tag} to which the response to
+	 *            each request is added in order, <code>null</code> for a
+	 *            request that failed or had no response body, or
+	 *            <code>null</code> if the responses are not wanted
+	 * @return <code>List</code> of <code>JargonException</code>, with one
+	 *         entry per request, which is <code>null</code> if the request
+	 *         succeeded
+	 * @throws JargonException
+	 *             if the connection fails, in which case the outcome of any
+	 *             unanswered requests is unknown
+	 */
+	public synchronized List<JargonException> irodsFunctionPipelined(
+			final List<? extends IRodsPI> irodsPIs, final int depth,
+			final List<Tag> responses) throws JargonException {
+
+		if (irodsPIs == null) {
+			throw new IllegalArgumentException("null irodsPIs");
+		}
+
+		if (depth < 1) {
+			throw new IllegalArgumentException("depth must be at least 1");
+		}
+
+		for (IRodsPI irodsPI : irodsPIs) {
+			if (irodsPI == null) {
+				throw new IllegalArgumentException("null irodsPI");
+			}
+		}
+
+		log.debug("pipelining {} requests with depth:{}", irodsPIs.size(),
+				depth);
+
+		/*
+		 * serialize every request before sending any, so that a request that
+		 * cannot be serialized fails the batch with nothing sent
+		 */
+		byte[][] messages = new byte[irodsPIs.size()][];
+		try {
+			for (int i = 0; i < irodsPIs.size(); i++) {
+				messages[i] = serialize(irodsPIs.get(i)).getBytes(
+						getEncoding());
+			}
+		} catch (UnsupportedEncodingException e) {
+			log.error("unsupported encoding", e);
+			throw new JargonException(e);
+		}
+
+		List<JargonException> errors = new ArrayList<JargonException>(
+				irodsPIs.size());
+		long[] startTimes = new long[irodsPIs.size()];
+		int sent = 0;
+		boolean ioFailure = false;
+
+		try {
+			while (errors.size() < irodsPIs.size()) {
+				boolean sending = false;
+				while (sent < irodsPIs.size()
+						&& sent - errors.size() < depth) {
+					startTimes[sent] = metricsStartTime();
+					irodsConnection.send(createHeader(
+							IRODSConstants.RODS_API_REQ,
+							messages[sent].length, 0, 0,
+							irodsPIs.get(sent).getApiNumber()));
+					irodsConnection.send(messages[sent]);
+					sent++;
+					sending = true;
+				}
+				if (sending) {
+					irodsConnection.flush();
+				}
+
+				int index = errors.size();
+				JargonException error = null;
+				Tag response = null;
+				try {
+					response = readMessage();
+				} catch (JargonException je) {
+					if (!irodsConnection.isConnected()) {
+						throw je;
+					}
+					log.debug("error for pipelined request {}:{}", index,
+							je.getMessage());
+					error = je;
+				}
+				recordApiCall(irodsPIs.get(index).getApiNumber(),
+						startTimes[index], error == null);
+				errors.add(error);
+				if (responses != null) {
+					responses.add(response);
+				}
+			}
+		} catch (IOException e) {
+			log.error("io exception sending pipelined irods commands", e);
+			ioFailure = true;
+			throw new JargonException(e);
+		} finally {
+			/*
+			 * responses still unread would be taken as the responses to the
+			 * next requests on this connection, so it cannot be reused
+			 */
+			if (ioFailure || sent > errors.size()) {
+				log.warn(
+						"pipeline ended with {} unanswered requests, disconnecting",
+						sent - errors.size());
+				try {
+					disconnectWithForce();
+				} catch (JargonException e) {
+					log.warn("error disconnecting after pipeline, ignored", e);
+				}
+			}
+		}
+
+		return errors;
 	}
 
 	/**
@@ -1015,12 +1207,15 @@ public abstract class AbstractIRODSMidLevelProtocol {
 			throw new JargonException(e);
 		}
 
+		long startTime = metricsStartTime();
 		try {
 			return Tag.readNextTag(header, getEncoding());
 		} catch (UnsupportedEncodingException e) {
 			log.error("Unsupported encoding for:{}", getEncoding());
 			throw new JargonException("Unsupported encoding for:"
 					+ getEncoding());
+		} finally {
+			recordParse(startTime);
 		}
 	}
 
@@ -1062,12 +1257,15 @@ public abstract class AbstractIRODSMidLevelProtocol {
 			disconnectWithForce();
 			throw new JargonException(e);
 		}
+		long startTime = metricsStartTime();
 		try {
 			return Tag.readNextTag(body, decode, getEncoding());
 		} catch (UnsupportedEncodingException e) {
 			log.error("Unsupported encoding for:{}", getEncoding());
 			throw new JargonException("Unsupported encoding for:"
 					+ getEncoding());
+		} finally {
+			recordParse(startTime);
 		}
 	}
 
@@ -1227,6 +1425,80 @@ public abstract class AbstractIRODSMidLevelProtocol {
 
 	}
 
+	/**
+	 * Get the {@link JargonMetrics} that receives the timings of this
+	 * connection
+	 * 
+	 * @return {@link JargonMetrics}, never <code>null</code>
+	 */
+	public synchronized JargonMetrics getJargonMetrics() {
+		return jargonMetrics;
+	}
+
+	/**
+	 * Set the {@link JargonMetrics} for this connection and the underlying
+	 * networking connection. This is done as the connection is created.
+	 * 
+	 * @param jargonMetrics
+	 *            {@link JargonMetrics}
+	 */
+	synchronized void setJargonMetrics(final JargonMetrics jargonMetrics) {
+		if (jargonMetrics == null) {
+			throw new IllegalArgumentException("null jargonMetrics");
+		}
+		this.jargonMetrics = jargonMetrics;
+		irodsConnection.setJargonMetrics(jargonMetrics);
+	}
+
+	/**
+	 * Start a measurement for the {@link JargonMetrics}. The clock is only
+	 * read if metrics are enabled.
+	 * 
+	 * @return <code>long</code> with the start time in nanoseconds, or zero if
+	 *         metrics are not enabled and nothing should be recorded
+	 */
+	protected final long metricsStartTime() {
+		return jargonMetrics.isEnabled() ? System.nanoTime() : 0L;
+	}
+
+	/**
+	 * Record the latency of an API call started at the given time
+	 * 
+	 * @param apiNumber
+	 *            <code>int</code> with the iRODS API number
+	 * @param startTime
+	 *            <code>long</code> from {@link #metricsStartTime()}
+	 * @param success
+	 *            <code>boolean</code> that is <code>false</code> if the call
+	 *            ended in an error
+	 */
+	protected final void recordApiCall(final int apiNumber,
+			final long startTime, final boolean success) {
+		if (startTime != 0L) {
+			jargonMetrics.recordApiCall(apiNumber, System.nanoTime()
+					- startTime, success);
+		}
+	}
+
+	private void recordParse(final long startTime) {
+		if (startTime != 0L) {
+			jargonMetrics.recordParse(System.nanoTime() - startTime);
+		}
+	}
+
+	/**
+	 * Render the packing instruction as a protocol message, recording the
+	 * time taken
+	 */
+	private String serialize(final IRodsPI irodsPI) throws JargonException {
+		long startTime = metricsStartTime();
+		String message = irodsPI.getParsedTags();
+		if (startTime != 0L) {
+			jargonMetrics.recordSerialize(System.nanoTime() - startTime);
+		}
+		return message;
+	}
+
 	/**
 	 * Handy method to get the pipeline configuration, which is derived from the
 	 * jargon properties and describes the various networing and buffering
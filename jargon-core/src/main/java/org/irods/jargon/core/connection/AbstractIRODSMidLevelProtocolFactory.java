@@ -5,6 +5,7 @@ package org.irods.jargon.core.connection;
 
 import org.irods.jargon.core.exception.AuthenticationException;
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.metrics.JargonMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -89,12 +90,23 @@ abstract class AbstractIRODSMidLevelProtocolFactory {
 
 		log.info("instance() method...calling connection life cycle");
 
+		JargonMetrics jargonMetrics = irodsSession.getJargonMetrics();
+		boolean instrumented = jargonMetrics.isEnabled();
+		long startTime = instrumented ? System.nanoTime() : 0L;
+
 		log.info("create connection....");
 		AbstractConnection connection = irodsConnectionFactory.instance(
 				irodsAccount, irodsSession, irodsProtocolManager);
 
+		if (instrumented) {
+			long connectedTime = System.nanoTime();
+			jargonMetrics.recordConnectionOpen(connectedTime - startTime);
+			startTime = connectedTime;
+		}
+
 		AbstractIRODSMidLevelProtocol protocol = createInitialProtocol(
 				connection, irodsProtocolManager);
+		protocol.setJargonMetrics(jargonMetrics);
 		try {
 			// add a session reference to the protocol.
 			protocol.setIrodsSession(irodsSession);
@@ -102,6 +114,14 @@ abstract class AbstractIRODSMidLevelProtocolFactory {
 			log.info("...have connection, now authenticate given the auth scheme in the iRODS account...");
 			protocol = authenticate(protocol, irodsAccount, irodsSession,
 					irodsProtocolManager);
+
+			if (instrumented) {
+				jargonMetrics.recordAuthentication(System.nanoTime()
+						- startTime);
+			}
+
+			// some auth schemes replace the connection while authenticating
+			protocol.setJargonMetrics(jargonMetrics);
 			log.info("..authenticated...now decorate and return...");
 			return decorate(protocol, irodsAccount, irodsSession);
 		} catch (AuthenticationException e) {
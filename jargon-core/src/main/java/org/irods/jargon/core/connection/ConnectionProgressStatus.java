@@ -22,6 +22,7 @@ public class ConnectionProgressStatus {
 
 	private final long byteCount;
 	private final CallbackType callbackType;
+	private final int streamNumber;
 
 	/**
 	 * @return the byteCount for the operation. Note that this does not
@@ -38,6 +39,15 @@ public class ConnectionProgressStatus {
 		return callbackType;
 	}
 
+	/**
+	 * @return <code>int</code> with the stream that moved the bytes, zero for
+	 *         the main connection, or the parallel transfer thread number plus
+	 *         one
+	 */
+	public int getStreamNumber() {
+		return streamNumber;
+	}
+
 	/**
 	 * Create an immutable callback for progress sending data (PUT)
 	 * 
@@ -48,7 +58,25 @@ public class ConnectionProgressStatus {
 	 */
 	public static ConnectionProgressStatus instanceForSend(final long byteCount) {
 		return new ConnectionProgressStatus(CallbackType.SEND_PROGRESS,
-				byteCount);
+				byteCount, 0);
+	}
+
+	/**
+	 * Create an immutable callback for progress sending data (PUT) on one
+	 * stream of a parallel transfer
+	 * 
+	 * @param byteCount
+	 *            <code>long</code> with the number of bytes instantaneously
+	 *            sent.
+	 * @param streamNumber
+	 *            <code>int</code> with the parallel transfer thread number plus
+	 *            one
+	 * @return
+	 */
+	public static ConnectionProgressStatus instanceForSend(
+			final long byteCount, final int streamNumber) {
+		return new ConnectionProgressStatus(CallbackType.SEND_PROGRESS,
+				byteCount, streamNumber);
 	}
 
 	/**
@@ -62,11 +90,29 @@ public class ConnectionProgressStatus {
 	public static ConnectionProgressStatus instanceForReceive(
 			final long byteCount) {
 		return new ConnectionProgressStatus(CallbackType.RECEIVE_PROGRESS,
-				byteCount);
+				byteCount, 0);
+	}
+
+	/**
+	 * Create an immutable callback for progress receiving data (GET) on one
+	 * stream of a parallel transfer
+	 * 
+	 * @param byteCount
+	 *            <code>long</code> with the number of bytes instantaneously
+	 *            received.
+	 * @param streamNumber
+	 *            <code>int</code> with the parallel transfer thread number plus
+	 *            one
+	 * @return
+	 */
+	public static ConnectionProgressStatus instanceForReceive(
+			final long byteCount, final int streamNumber) {
+		return new ConnectionProgressStatus(CallbackType.RECEIVE_PROGRESS,
+				byteCount, streamNumber);
 	}
 
 	private ConnectionProgressStatus(final CallbackType callbackType,
-			final long byteCount) {
+			final long byteCount, final int streamNumber) {
 
 		if (callbackType == null) {
 			throw new IllegalArgumentException("null callbackType");
@@ -74,6 +120,7 @@ public class ConnectionProgressStatus {
 
 		this.callbackType = callbackType;
 		this.byteCount = byteCount;
+		this.streamNumber = streamNumber;
 	}
 
 	@Override
@@ -84,6 +131,8 @@ public class ConnectionProgressStatus {
 		sb.append(callbackType);
 		sb.append("\n   byteCount:");
 		sb.append(byteCount);
+		sb.append("\n   streamNumber:");
+		sb.append(streamNumber);
 		return sb.toString();
 	}
 
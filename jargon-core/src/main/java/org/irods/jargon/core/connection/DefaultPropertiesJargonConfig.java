@@ -165,6 +165,17 @@ public class DefaultPropertiesJargonConfig implements JargonProperties {
 		return Boolean.valueOf(propVal);
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.connection.JargonProperties#
+	 * isComputeChecksumDuringTransfer()
+	 */
+	@Override
+	public boolean isComputeChecksumDuringTransfer() {
+		return verifyPropExistsAndGetAsBoolean("transfer.checksum.inline");
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -537,4 +548,73 @@ public class DefaultPropertiesJargonConfig implements JargonProperties {
 	public long getIntraFileStatusCallbacksTotalBytesInterval() {
 		return verifyPropExistsAndGetAsLong("transfer.intra.file.callback.after.n.bytes");
 	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.connection.JargonProperties#
+	 * getTransferStallThresholdMillis()
+	 */
+	@Override
+	public long getTransferStallThresholdMillis() {
+		return verifyPropExistsAndGetAsLong("transfer.stall.threshold.millis");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.connection.JargonProperties#
+	 * isUsingGenQueryResultCache()
+	 */
+	@Override
+	public boolean isUsingGenQueryResultCache() {
+		return verifyPropExistsAndGetAsBoolean("use.genquery.result.cache");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.connection.JargonProperties#
+	 * getGenQueryResultCacheMaxEntries()
+	 */
+	@Override
+	public int getGenQueryResultCacheMaxEntries() {
+		return verifyPropExistsAndGetAsInt("genquery.result.cache.max.entries");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.connection.JargonProperties#getBulkAVUPipelineDepth
+	 * ()
+	 */
+	@Override
+	public int getBulkAVUPipelineDepth() {
+		return verifyPropExistsAndGetAsInt("bulk.avu.pipeline.depth");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.connection.JargonProperties#getRequestPipelineDepth
+	 * ()
+	 */
+	@Override
+	public int getRequestPipelineDepth() {
+		return verifyPropExistsAndGetAsInt("request.pipeline.depth");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.connection.JargonProperties#getLocalChecksumBlockSize
+	 * ()
+	 */
+	@Override
+	public int getLocalChecksumBlockSize() {
+		return verifyPropExistsAndGetAsInt("local.checksum.block.size");
+	}
 }
@@ -195,40 +195,51 @@ public class IRODSMidLevelProtocol extends AbstractIRODSMidLevelProtocol {
 
 		// message may be null for some operations
 
+		long startTime = metricsStartTime();
+		boolean success = false;
+
 		try {
-			int messageLength = 0;
+			try {
+				int messageLength = 0;
 
-			if (message != null) {
-				messageLength = message.getBytes(getEncoding()).length;
-			}
+				if (message != null) {
+					messageLength = message.getBytes(getEncoding()).length;
+				}
 
-			getIrodsConnection().send(
-					createHeader(IRODSConstants.RODS_API_REQ, messageLength,
-							errorLength, byteStringLength, intInfo));
+				getIrodsConnection().send(
+						createHeader(IRODSConstants.RODS_API_REQ,
+								messageLength, errorLength, byteStringLength,
+								intInfo));
 
-			if (isPamFlush()) {
-				log.debug("doing extra pam flush for iRODS 3.2");
+				if (isPamFlush()) {
+					log.debug("doing extra pam flush for iRODS 3.2");
+					getIrodsConnection().flush();
+				}
+
+				getIrodsConnection().send(message);
 				getIrodsConnection().flush();
-			}
 
-			getIrodsConnection().send(message);
-			getIrodsConnection().flush();
+				if (byteStringLength > 0) {
+					getIrodsConnection().send(bytes, byteOffset,
+							byteStringLength);
+				}
 
-			if (byteStringLength > 0) {
-				getIrodsConnection().send(bytes, byteOffset, byteStringLength);
-			}
+				getIrodsConnection().flush();
 
-			getIrodsConnection().flush();
+			} catch (UnsupportedEncodingException e) {
+				log.error("unsupported encoding", e);
+				throw new JargonException(e);
+			} catch (IOException e) {
+				disconnectWithForce();
+				throw new JargonException(e);
+			}
 
-		} catch (UnsupportedEncodingException e) {
-			log.error("unsupported encoding", e);
-			throw new JargonException(e);
-		} catch (IOException e) {
-			disconnectWithForce();
-			throw new JargonException(e);
+			Tag response = readMessage();
+			success = true;
+			return response;
+		} finally {
+			recordApiCall(intInfo, startTime, success);
 		}
-
-		return readMessage();
 	}
 
 }
@@ -15,11 +15,15 @@ import org.irods.jargon.core.checksum.LocalChecksumComputerFactoryImpl;
 import org.irods.jargon.core.exception.AuthenticationException;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.exception.JargonRuntimeException;
+import org.irods.jargon.core.metrics.InMemoryJargonMetrics;
+import org.irods.jargon.core.metrics.JargonMetrics;
+import org.irods.jargon.core.metrics.NoOpJargonMetrics;
 import org.irods.jargon.core.packinstr.TransferOptions;
 import org.irods.jargon.core.pub.IRODSFileSystem;
 import org.irods.jargon.core.pub.IRODSGenQueryExecutorImpl.QueryCloseBehavior;
 import org.irods.jargon.core.query.GenQueryBuilderException;
 import org.irods.jargon.core.query.GenQueryProcessor;
+import org.irods.jargon.core.query.GenQueryResultCache;
 import org.irods.jargon.core.query.IRODSGenQueryBuilder;
 import org.irods.jargon.core.query.IRODSGenQueryFromBuilder;
 import org.irods.jargon.core.query.IRODSQueryResultRow;
@@ -101,9 +105,11 @@ public class IRODSSession {
 	private JargonProperties jargonProperties;
 
 	/**
-	 * Factory to return a checksum computation strategy
+	 * Factory to return a checksum computation strategy, made for the block
+	 * size in the current jargon properties
 	 */
-	private final LocalChecksumComputerFactory localChecksumComputerFactory = new LocalChecksumComputerFactoryImpl();
+	private LocalChecksumComputerFactory localChecksumComputerFactory = null;
+	private int localChecksumBlockSize = -1;
 
 	/**
 	 * Simple cache (tolerating concurrent access) for name/value props. This
@@ -120,6 +126,20 @@ public class IRODSSession {
 	 */
 	private final DiscoveredServerPropertiesCache discoveredServerPropertiesCache = new DiscoveredServerPropertiesCache();
 
+	/**
+	 * Cache of GenQuery results, shared across accounts and connections. This
+	 * is lazily created when first requested, and is only consulted when
+	 * <code>JargonProperties.isUsingGenQueryResultCache()</code> is set.
+	 */
+	private GenQueryResultCache genQueryResultCache = null;
+
+	/**
+	 * Instrumentation of the connections created by this session. If not set,
+	 * this is created as an <code>InMemoryJargonMetrics</code> when
+	 * <code>JargonProperties.isInstrument()</code> is set.
+	 */
+	private JargonMetrics jargonMetrics = null;
+
 	/**
 	 * Get the <code>JargonProperties</code> that contains metadata to tune the
 	 * behavior of Jargon. This will either be the default, loaded from the
@@ -194,6 +214,8 @@ public class IRODSSession {
 							.isComputeAndVerifyChecksumAfterTransfer());
 			transferOptions.setComputeChecksumAfterTransfer(jargonProperties
 					.isComputeChecksumAfterTransfer());
+			transferOptions.setComputeChecksumDuringTransfer(jargonProperties
+					.isComputeChecksumDuringTransfer());
 			transferOptions.setIntraFileStatusCallbacks(jargonProperties
 					.isIntraFileStatusCallbacks());
 			transferOptions
@@ -202,6 +224,8 @@ public class IRODSSession {
 			transferOptions
 					.setIntraFileStatusCallbacksTotalBytesInterval(jargonProperties
 							.getIntraFileStatusCallbacksTotalBytesInterval());
+			transferOptions.setStallThresholdMillis(jargonProperties
+					.getTransferStallThresholdMillis());
 			transferOptions.setChecksumEncoding(jargonProperties
 					.getChecksumEncoding());
 
@@ -445,8 +469,14 @@ public class IRODSSession {
 			final Map<String, AbstractIRODSMidLevelProtocol> irodsProtocols)
 			throws JargonException {
 		AbstractIRODSMidLevelProtocol irodsProtocol;
+		JargonMetrics metrics = getJargonMetrics();
+		boolean instrumented = metrics.isEnabled();
+		long startTime = instrumented ? System.nanoTime() : 0L;
 		irodsProtocol = irodsProtocolManager.getIRODSProtocol(irodsAccount,
 				buildPipelineConfigurationBasedOnJargonProperties(), this);
+		if (instrumented) {
+			metrics.recordConnectionAcquire(System.nanoTime() - startTime);
+		}
 		if (irodsProtocol == null) {
 			log.error("no connection returned from connection manager");
 			throw new JargonException(
@@ -759,13 +789,86 @@ public class IRODSSession {
 		return getJargonProperties().isUsingDiscoveredServerPropertiesCache();
 	}
 
+	/**
+	 * Get the cache of GenQuery results that is shared by caching query
+	 * executors. The cache is created on first access, bounded by the
+	 * <code>JargonProperties.getGenQueryResultCacheMaxEntries()</code> value.
+	 * 
+	 * @return {@link GenQueryResultCache}
+	 */
+	public synchronized GenQueryResultCache getGenQueryResultCache() {
+		if (genQueryResultCache == null) {
+			genQueryResultCache = new GenQueryResultCache(
+					jargonProperties.getGenQueryResultCacheMaxEntries());
+		}
+		return genQueryResultCache;
+	}
+
+	/**
+	 * Handy method to see if we're using the GenQuery result cache. This is
+	 * set in the jargon properties.
+	 * 
+	 * @return <code>boolean</code> of <code>true</code> if GenQuery results
+	 *         are cached
+	 */
+	public boolean isUsingGenQueryResultCache() {
+		// getjargonProperties is already sync'd
+		return getJargonProperties().isUsingGenQueryResultCache();
+	}
+
+	/**
+	 * Get the {@link JargonMetrics} that will receive the timings of the
+	 * connections created by this session. This is the implementation given
+	 * to {@link #setJargonMetrics(JargonMetrics)}, or, if none was given, an
+	 * {@link InMemoryJargonMetrics} when instrumentation is turned on in the
+	 * jargon properties, otherwise a no-op implementation.
+	 * <p/>
+	 * Connections pick up the metrics when they are created, so this should
+	 * be configured before any connections are made.
+	 * 
+	 * @return {@link JargonMetrics}, never <code>null</code>
+	 */
+	public synchronized JargonMetrics getJargonMetrics() {
+		if (jargonMetrics == null) {
+			if (getJargonProperties().isInstrument()) {
+				log.info("instrumentation is on, using in-memory metrics");
+				jargonMetrics = new InMemoryJargonMetrics();
+			} else {
+				return NoOpJargonMetrics.INSTANCE;
+			}
+		}
+		return jargonMetrics;
+	}
+
+	/**
+	 * Set the {@link JargonMetrics} that will receive the timings of the
+	 * connections created by this session
+	 * 
+	 * @param jargonMetrics
+	 *            {@link JargonMetrics} implementation, or <code>null</code> to
+	 *            go back to the default based on the jargon properties
+	 */
+	public synchronized void setJargonMetrics(final JargonMetrics jargonMetrics) {
+		this.jargonMetrics = jargonMetrics;
+	}
+
 	/**
 	 * Get a reference to a factory that can return checksum computation
 	 * strategies on local file systems
 	 * 
 	 * @return {@link LocalChecksumComputerFactory}
 	 */
-	public LocalChecksumComputerFactory getLocalChecksumComputerFactory() {
+	public synchronized LocalChecksumComputerFactory getLocalChecksumComputerFactory() {
+		int blockSize = jargonProperties == null ? 0 : jargonProperties
+				.getLocalChecksumBlockSize();
+		if (localChecksumComputerFactory == null
+				|| blockSize != localChecksumBlockSize) {
+			log.debug("creating local checksum factory with block size:{}",
+					blockSize);
+			localChecksumComputerFactory = new LocalChecksumComputerFactoryImpl(
+					blockSize);
+			localChecksumBlockSize = blockSize;
+		}
 		return localChecksumComputerFactory;
 	}
 
@@ -117,6 +117,16 @@ public interface JargonProperties {
 	 */
 	boolean isComputeAndVerifyChecksumAfterTransfer();
 
+	/**
+	 * Gets whether the checksum for
+	 * <code>computeAndVerifyChecksumAfterTransfer</code> is computed from the
+	 * bytes as they are transferred, rather than by reading the local file a
+	 * second time.
+	 * 
+	 * @return the computeChecksumDuringTransfer
+	 */
+	boolean isComputeChecksumDuringTransfer();
+
 	/**
 	 * Gets whether intra-file status call-backs are enabled for transfers. If
 	 * <code>true</code>, and a call-back listener is provided, these allow
@@ -145,6 +155,15 @@ public interface JargonProperties {
 	 */
 	long getIntraFileStatusCallbacksTotalBytesInterval();
 
+	/**
+	 * Gets the time that a stream of a transfer may move no bytes before it is
+	 * reported as stalled to the status callback listener, when intra-file
+	 * status callbacks are in use.
+	 * 
+	 * @return <code>long</code> with the stall threshold in milliseconds
+	 */
+	long getTransferStallThresholdMillis();
+
 	/**
 	 * Get the time-out, in seconds, for the main iRODS socket. Will be zero or
 	 * less if not specified
@@ -286,9 +305,10 @@ public interface JargonProperties {
 	 * certain amount of overhead, so this is typically unsuitable for
 	 * production deployment.
 	 * <p/>
-	 * Note that actual instrumentation will be an ongoing process, and will be
-	 * done as certain operations are tuned. Initially, this will represent the
-	 * infrastructure for such tuning information.
+	 * When set, and no other <code>JargonMetrics</code> has been given to the
+	 * <code>IRODSSession</code>, iRODS API latencies and connection timings
+	 * are kept in an <code>InMemoryJargonMetrics</code> available from
+	 * <code>IRODSSession.getJargonMetrics()</code>.
 	 * 
 	 * @return
 	 */
@@ -503,4 +523,56 @@ public interface JargonProperties {
 	 */
 	boolean isLongTransferRestart();
 
-}
\ No newline at end of file
+	/**
+	 * Indicates whether the results of read-mostly GenQueries (resource,
+	 * zone, and user lookups) should be cached in the
+	 * <code>GenQueryResultCache</code> held by the {@link IRODSSession}.
+	 * When set, the <code>IRODSAccessObjectFactory</code> will return a
+	 * caching <code>IRODSGenQueryExecutor</code>.
+	 * 
+	 * @return <code>boolean</code> of <code>true</code> if GenQuery results
+	 *         should be cached
+	 */
+	boolean isUsingGenQueryResultCache();
+
+	/**
+	 * Get the maximum number of result sets held in the GenQuery result
+	 * cache, if caching is in use
+	 * 
+	 * @return <code>int</code> with the maximum number of cached query
+	 *         results
+	 */
+	int getGenQueryResultCacheMaxEntries();
+
+	/**
+	 * Get the number of AVU requests sent ahead of their responses by the bulk
+	 * metadata operations, such as
+	 * <code>DataObjectAO.addBulkAVUMetadataToDataObject()</code>. Pipelining
+	 * the requests saves a network round trip per AVU. A value of 1 sends each
+	 * request after the response to the one before.
+	 * 
+	 * @return <code>int</code> with the number of outstanding AVU requests
+	 */
+	int getBulkAVUPipelineDepth();
+
+	/**
+	 * Get the number of requests sent ahead of their responses by batched
+	 * operations other than bulk AVU operations, such as deleting many files
+	 * with <code>IRODSFileSystemAO.fileDeleteNoForceInBatch()</code>. A value
+	 * of 1 sends each request after the response to the one before.
+	 * 
+	 * @return <code>int</code> with the number of outstanding requests
+	 */
+	int getRequestPipelineDepth();
+
+	/**
+	 * Get the size of each read when computing the checksum of a local file.
+	 * A size greater than zero reads the file through a
+	 * <code>FileChannel</code>, overlapping the reads with the digest, while
+	 * zero reads through a <code>FileInputStream</code>.
+	 * 
+	 * @return <code>int</code> with the read size in bytes, or 0
+	 */
+	int getLocalChecksumBlockSize();
+
+}
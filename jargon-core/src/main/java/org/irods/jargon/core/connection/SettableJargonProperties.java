@@ -29,6 +29,7 @@ public class SettableJargonProperties implements JargonProperties {
 	private boolean allowPutGetResourceRedirects = false;
 	private boolean computeChecksumAfterTransfer = false;
 	private boolean computeAndVerifyChecksumAfterTransfer = false;
+	private boolean computeChecksumDuringTransfer = false;
 	private boolean intraFileStatusCallbacks = false;
 	private int irodsSocketTimeout = 0;
 	private int irodsParallelSocketTimeout = 0;
@@ -83,6 +84,18 @@ public class SettableJargonProperties implements JargonProperties {
 	 */
 	private long intraFileStatusCallbacksTotalBytesInterval = 4194304;
 
+	private long transferStallThresholdMillis = 30000;
+
+	private boolean usingGenQueryResultCache = false;
+
+	private int genQueryResultCacheMaxEntries = 1000;
+
+	private int bulkAVUPipelineDepth = 64;
+
+	private int requestPipelineDepth = 64;
+
+	private int localChecksumBlockSize = 1048576;
+
 	/**
 	 * Construct a default properties set based on the provided initial set of
 	 * <code>JargonProperties</code>. This can be used to wire in properties via
@@ -122,6 +135,8 @@ public class SettableJargonProperties implements JargonProperties {
 				.isComputeAndVerifyChecksumAfterTransfer();
 		computeChecksumAfterTransfer = jargonProperties
 				.isComputeChecksumAfterTransfer();
+		computeChecksumDuringTransfer = jargonProperties
+				.isComputeChecksumDuringTransfer();
 		intraFileStatusCallbacks = jargonProperties
 				.isIntraFileStatusCallbacks();
 		irodsParallelSocketTimeout = jargonProperties
@@ -188,6 +203,15 @@ public class SettableJargonProperties implements JargonProperties {
 				.getIntraFileStatusCallbacksNumberCallsInterval();
 		this.intraFileStatusCallbacksTotalBytesInterval = jargonProperties
 				.getIntraFileStatusCallbacksTotalBytesInterval();
+		transferStallThresholdMillis = jargonProperties
+				.getTransferStallThresholdMillis();
+		usingGenQueryResultCache = jargonProperties
+				.isUsingGenQueryResultCache();
+		genQueryResultCacheMaxEntries = jargonProperties
+				.getGenQueryResultCacheMaxEntries();
+		bulkAVUPipelineDepth = jargonProperties.getBulkAVUPipelineDepth();
+		requestPipelineDepth = jargonProperties.getRequestPipelineDepth();
+		localChecksumBlockSize = jargonProperties.getLocalChecksumBlockSize();
 
 	}
 
@@ -358,6 +382,30 @@ public class SettableJargonProperties implements JargonProperties {
 		this.computeAndVerifyChecksumAfterTransfer = computeAndVerifyChecksumAfterTransfer;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.connection.JargonProperties#
+	 * isComputeChecksumDuringTransfer()
+	 */
+	@Override
+	public synchronized boolean isComputeChecksumDuringTransfer() {
+		return computeChecksumDuringTransfer;
+	}
+
+	/**
+	 * Compute transfer checksums from the bytes as they are sent or received,
+	 * instead of reading the local file a second time
+	 * 
+	 * @param computeChecksumDuringTransfer
+	 *            <code>boolean</code> that digests the transferred bytes if
+	 *            set to <code>true</code>
+	 */
+	public synchronized void setComputeChecksumDuringTransfer(
+			final boolean computeChecksumDuringTransfer) {
+		this.computeChecksumDuringTransfer = computeChecksumDuringTransfer;
+	}
+
 	/**
 	 * Set whether intra-file status call-backs for file transfers are enabled.
 	 * This will give progress of bytes within transfers, with a slight
@@ -1013,6 +1061,8 @@ public class SettableJargonProperties implements JargonProperties {
 		builder.append(computeChecksumAfterTransfer);
 		builder.append(", computeAndVerifyChecksumAfterTransfer=");
 		builder.append(computeAndVerifyChecksumAfterTransfer);
+		builder.append(", computeChecksumDuringTransfer=");
+		builder.append(computeChecksumDuringTransfer);
 		builder.append(", intraFileStatusCallbacks=");
 		builder.append(intraFileStatusCallbacks);
 		builder.append(", irodsSocketTimeout=");
@@ -1106,6 +1156,18 @@ public class SettableJargonProperties implements JargonProperties {
 		builder.append(intraFileStatusCallbacksNumberCallsInterval);
 		builder.append(", intraFileStatusCallbacksTotalBytesInterval=");
 		builder.append(intraFileStatusCallbacksTotalBytesInterval);
+		builder.append(", transferStallThresholdMillis=");
+		builder.append(transferStallThresholdMillis);
+		builder.append(", usingGenQueryResultCache=");
+		builder.append(usingGenQueryResultCache);
+		builder.append(", genQueryResultCacheMaxEntries=");
+		builder.append(genQueryResultCacheMaxEntries);
+		builder.append(", bulkAVUPipelineDepth=");
+		builder.append(bulkAVUPipelineDepth);
+		builder.append(", requestPipelineDepth=");
+		builder.append(requestPipelineDepth);
+		builder.append(", localChecksumBlockSize=");
+		builder.append(localChecksumBlockSize);
 		builder.append("]");
 		return builder.toString();
 	}
@@ -1183,4 +1245,159 @@ public class SettableJargonProperties implements JargonProperties {
 		this.intraFileStatusCallbacksTotalBytesInterval = intraFileStatusCallbacksTotalBytesInterval;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.connection.JargonProperties#
+	 * getTransferStallThresholdMillis()
+	 */
+	@Override
+	public synchronized long getTransferStallThresholdMillis() {
+		return transferStallThresholdMillis;
+	}
+
+	/**
+	 * Set the time a stream of a transfer may move no bytes before it is
+	 * reported as stalled
+	 * 
+	 * @param transferStallThresholdMillis
+	 *            <code>long</code> with the stall threshold in milliseconds,
+	 *            greater than zero
+	 */
+	public synchronized void setTransferStallThresholdMillis(
+			final long transferStallThresholdMillis) {
+		if (transferStallThresholdMillis <= 0) {
+			throw new IllegalArgumentException(
+					"transferStallThresholdMillis must be greater than zero");
+		}
+		this.transferStallThresholdMillis = transferStallThresholdMillis;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.connection.JargonProperties#
+	 * isUsingGenQueryResultCache()
+	 */
+	@Override
+	public synchronized boolean isUsingGenQueryResultCache() {
+		return usingGenQueryResultCache;
+	}
+
+	/**
+	 * Set whether the results of read-mostly GenQueries should be cached
+	 * 
+	 * @param usingGenQueryResultCache
+	 */
+	public synchronized void setUsingGenQueryResultCache(
+			final boolean usingGenQueryResultCache) {
+		this.usingGenQueryResultCache = usingGenQueryResultCache;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.connection.JargonProperties#
+	 * getGenQueryResultCacheMaxEntries()
+	 */
+	@Override
+	public synchronized int getGenQueryResultCacheMaxEntries() {
+		return genQueryResultCacheMaxEntries;
+	}
+
+	/**
+	 * Set the maximum number of result sets held in the GenQuery result
+	 * cache
+	 * 
+	 * @param genQueryResultCacheMaxEntries
+	 */
+	public synchronized void setGenQueryResultCacheMaxEntries(
+			final int genQueryResultCacheMaxEntries) {
+		this.genQueryResultCacheMaxEntries = genQueryResultCacheMaxEntries;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.connection.JargonProperties#getBulkAVUPipelineDepth
+	 * ()
+	 */
+	@Override
+	public synchronized int getBulkAVUPipelineDepth() {
+		return bulkAVUPipelineDepth;
+	}
+
+	/**
+	 * Set the number of AVU requests sent ahead of their responses by the bulk
+	 * metadata operations
+	 * 
+	 * @param bulkAVUPipelineDepth
+	 *            <code>int</code> of 1 or more
+	 */
+	public synchronized void setBulkAVUPipelineDepth(
+			final int bulkAVUPipelineDepth) {
+		if (bulkAVUPipelineDepth < 1) {
+			throw new IllegalArgumentException(
+					"bulkAVUPipelineDepth must be at least 1");
+		}
+		this.bulkAVUPipelineDepth = bulkAVUPipelineDepth;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.connection.JargonProperties#getRequestPipelineDepth
+	 * ()
+	 */
+	@Override
+	public synchronized int getRequestPipelineDepth() {
+		return requestPipelineDepth;
+	}
+
+	/**
+	 * Set the number of requests sent ahead of their responses by batched
+	 * operations other than bulk AVU operations
+	 * 
+	 * @param requestPipelineDepth
+	 *            <code>int</code> of 1 or more
+	 */
+	public synchronized void setRequestPipelineDepth(
+			final int requestPipelineDepth) {
+		if (requestPipelineDepth < 1) {
+			throw new IllegalArgumentException(
+					"requestPipelineDepth must be at least 1");
+		}
+		this.requestPipelineDepth = requestPipelineDepth;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.connection.JargonProperties#getLocalChecksumBlockSize
+	 * ()
+	 */
+	@Override
+	public synchronized int getLocalChecksumBlockSize() {
+		return localChecksumBlockSize;
+	}
+
+	/**
+	 * Set the size of each read when computing the checksum of a local file,
+	 * or 0 to read through a <code>FileInputStream</code>
+	 * 
+	 * @param localChecksumBlockSize
+	 *            <code>int</code> with the read size in bytes
+	 */
+	public synchronized void setLocalChecksumBlockSize(
+			final int localChecksumBlockSize) {
+		if (localChecksumBlockSize < 0) {
+			throw new IllegalArgumentException(
+					"negative localChecksumBlockSize");
+		}
+		this.localChecksumBlockSize = localChecksumBlockSize;
+	}
+
 }
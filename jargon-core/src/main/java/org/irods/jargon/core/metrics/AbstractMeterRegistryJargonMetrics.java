@@ -0,0 +1,210 @@
+package org.irods.jargon.core.metrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Adapter from {@link JargonMetrics} to a dimensional metrics library, in the
+ * style of Micrometer. Each measurement is reported as a named timer or
+ * counter with tags, given as alternating key and value strings. The API
+ * latency timer is tagged with the iRODS API number and the outcome, so that
+ * a registry that publishes histograms can show which API calls dominate.
+ * <p/>
+ * Jargon does not depend on any metrics library. A subclass forwards to the
+ * library of choice, for example, with Micrometer:
+ *
+ * <pre>
+ * public class MicrometerJargonMetrics extends AbstractMeterRegistryJargonMetrics {
+ * 	private final MeterRegistry registry;
+ *
+ * 	protected void recordTimer(String name, String[] tags, long elapsedNanos) {
+ * 		registry.timer(name, tags).record(elapsedNanos, TimeUnit.NANOSECONDS);
+ * 	}
+ *
+ * 	protected void incrementCounter(String name, String[] tags, long amount) {
+ * 		registry.counter(name, tags).increment(amount);
+ * 	}
+ * }
+ * </pre>
+ *
+ * Tag arrays are created once and shared between calls, and must not be
+ * changed by the subclass.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public abstract class AbstractMeterRegistryJargonMetrics implements
+		JargonMetrics {
+
+	public static final String API_LATENCY = "jargon.api.latency";
+	public static final String BYTES_SENT = "jargon.bytes.sent";
+	public static final String BYTES_RECEIVED = "jargon.bytes.received";
+	public static final String CONNECTION_OPEN = "jargon.connection.open";
+	public static final String CONNECTION_AUTHENTICATION = "jargon.connection.authentication";
+	public static final String CONNECTION_ACQUIRE = "jargon.connection.acquire";
+	public static final String MESSAGE_SERIALIZE = "jargon.message.serialize";
+	public static final String MESSAGE_PARSE = "jargon.message.parse";
+
+	public static final String TAG_API = "api";
+	public static final String TAG_OUTCOME = "outcome";
+	public static final String OUTCOME_SUCCESS = "success";
+	public static final String OUTCOME_ERROR = "error";
+
+	private static final String[] NO_TAGS = new String[0];
+
+	private volatile boolean enabled = true;
+
+	/**
+	 * Tags for the API latency timer by API number, the first element for
+	 * successful calls and the second for errors
+	 */
+	private final ConcurrentMap<Integer, String[][]> apiTags = new ConcurrentHashMap<Integer, String[][]>();
+
+	/**
+	 * Record a time in the named timer
+	 *
+	 * @param name
+	 *            <code>String</code> with the meter name
+	 * @param tags
+	 *            <code>String[]</code> with alternating tag keys and values,
+	 *            may be empty
+	 * @param elapsedNanos
+	 *            <code>long</code> with the elapsed time in nanoseconds
+	 */
+	protected abstract void recordTimer(String name, String[] tags,
+			long elapsedNanos);
+
+	/**
+	 * Add to the named counter
+	 *
+	 * @param name
+	 *            <code>String</code> with the meter name
+	 * @param tags
+	 *            <code>String[]</code> with alternating tag keys and values,
+	 *            may be empty
+	 * @param amount
+	 *            <code>long</code> to add
+	 */
+	protected abstract void incrementCounter(String name, String[] tags,
+			long amount);
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.metrics.JargonMetrics#isEnabled()
+	 */
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Turn measurement on or off
+	 *
+	 * @param enabled
+	 *            <code>boolean</code> that is <code>true</code> to take
+	 *            measurements
+	 */
+	public void setEnabled(final boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.metrics.JargonMetrics#recordApiCall(int,
+	 * long, boolean)
+	 */
+	@Override
+	public void recordApiCall(final int apiNumber, final long elapsedNanos,
+			final boolean success) {
+		Integer key = apiNumber;
+		String[][] tags = apiTags.get(key);
+		if (tags == null) {
+			String api = String.valueOf(apiNumber);
+			tags = new String[][] {
+					{ TAG_API, api, TAG_OUTCOME, OUTCOME_SUCCESS },
+					{ TAG_API, api, TAG_OUTCOME, OUTCOME_ERROR } };
+			String[][] existing = apiTags.putIfAbsent(key, tags);
+			if (existing != null) {
+				tags = existing;
+			}
+		}
+		recordTimer(API_LATENCY, success ? tags[0] : tags[1], elapsedNanos);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.metrics.JargonMetrics#recordBytesSent(long)
+	 */
+	@Override
+	public void recordBytesSent(final long bytes) {
+		incrementCounter(BYTES_SENT, NO_TAGS, bytes);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.metrics.JargonMetrics#recordBytesReceived(long)
+	 */
+	@Override
+	public void recordBytesReceived(final long bytes) {
+		incrementCounter(BYTES_RECEIVED, NO_TAGS, bytes);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.metrics.JargonMetrics#recordConnectionOpen(long)
+	 */
+	@Override
+	public void recordConnectionOpen(final long elapsedNanos) {
+		recordTimer(CONNECTION_OPEN, NO_TAGS, elapsedNanos);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.metrics.JargonMetrics#recordAuthentication(long)
+	 */
+	@Override
+	public void recordAuthentication(final long elapsedNanos) {
+		recordTimer(CONNECTION_AUTHENTICATION, NO_TAGS, elapsedNanos);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.metrics.JargonMetrics#recordConnectionAcquire(long)
+	 */
+	@Override
+	public void recordConnectionAcquire(final long elapsedNanos) {
+		recordTimer(CONNECTION_ACQUIRE, NO_TAGS, elapsedNanos);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.metrics.JargonMetrics#recordSerialize(long)
+	 */
+	@Override
+	public void recordSerialize(final long elapsedNanos) {
+		recordTimer(MESSAGE_SERIALIZE, NO_TAGS, elapsedNanos);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.metrics.JargonMetrics#recordParse(long)
+	 */
+	@Override
+	public void recordParse(final long elapsedNanos) {
+		recordTimer(MESSAGE_PARSE, NO_TAGS, elapsedNanos);
+	}
+
+}
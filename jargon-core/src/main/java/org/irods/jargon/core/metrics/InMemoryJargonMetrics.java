@@ -0,0 +1,284 @@
+package org.irods.jargon.core.metrics;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link JargonMetrics} that keeps its measurements in memory, as a
+ * {@link LatencyHistogram} per iRODS API number and for each of the
+ * connection and message handling steps. The measurements may be read at any
+ * time, for example to log the API calls that dominate the time spent in
+ * iRODS, or to expose them through JMX.
+ * <p/>
+ * This is the implementation used when <code>jargon.instrument</code> is set
+ * and no other implementation has been given to the <code>IRODSSession</code>.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class InMemoryJargonMetrics implements JargonMetrics {
+
+	private volatile boolean enabled = true;
+
+	private final ConcurrentMap<Integer, LatencyHistogram> apiLatencies = new ConcurrentHashMap<Integer, LatencyHistogram>();
+	private final ConcurrentMap<Integer, AtomicLong> apiErrors = new ConcurrentHashMap<Integer, AtomicLong>();
+	private final AtomicLong bytesSent = new AtomicLong();
+	private final AtomicLong bytesReceived = new AtomicLong();
+	private final LatencyHistogram connectionOpen = new LatencyHistogram();
+	private final LatencyHistogram authentication = new LatencyHistogram();
+	private final LatencyHistogram connectionAcquire = new LatencyHistogram();
+	private final LatencyHistogram serialize = new LatencyHistogram();
+	private final LatencyHistogram parse = new LatencyHistogram();
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.metrics.JargonMetrics#isEnabled()
+	 */
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Turn measurement on or off. Measurements already taken are kept.
+	 *
+	 * @param enabled
+	 *            <code>boolean</code> that is <code>true</code> to take
+	 *            measurements
+	 */
+	public void setEnabled(final boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.metrics.JargonMetrics#recordApiCall(int,
+	 * long, boolean)
+	 */
+	@Override
+	public void recordApiCall(final int apiNumber, final long elapsedNanos,
+			final boolean success) {
+		Integer key = apiNumber;
+		LatencyHistogram histogram = apiLatencies.get(key);
+		if (histogram == null) {
+			LatencyHistogram created = new LatencyHistogram();
+			histogram = apiLatencies.putIfAbsent(key, created);
+			if (histogram == null) {
+				histogram = created;
+			}
+		}
+		histogram.record(elapsedNanos);
+
+		if (!success) {
+			AtomicLong errors = apiErrors.get(key);
+			if (errors == null) {
+				AtomicLong created = new AtomicLong();
+				errors = apiErrors.putIfAbsent(key, created);
+				if (errors == null) {
+					errors = created;
+				}
+			}
+			errors.incrementAndGet();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.metrics.JargonMetrics#recordBytesSent(long)
+	 */
+	@Override
+	public void recordBytesSent(final long bytes) {
+		bytesSent.addAndGet(bytes);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.metrics.JargonMetrics#recordBytesReceived(long)
+	 */
+	@Override
+	public void recordBytesReceived(final long bytes) {
+		bytesReceived.addAndGet(bytes);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.metrics.JargonMetrics#recordConnectionOpen(long)
+	 */
+	@Override
+	public void recordConnectionOpen(final long elapsedNanos) {
+		connectionOpen.record(elapsedNanos);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.metrics.JargonMetrics#recordAuthentication(long)
+	 */
+	@Override
+	public void recordAuthentication(final long elapsedNanos) {
+		authentication.record(elapsedNanos);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.metrics.JargonMetrics#recordConnectionAcquire(long)
+	 */
+	@Override
+	public void recordConnectionAcquire(final long elapsedNanos) {
+		connectionAcquire.record(elapsedNanos);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.metrics.JargonMetrics#recordSerialize(long)
+	 */
+	@Override
+	public void recordSerialize(final long elapsedNanos) {
+		serialize.record(elapsedNanos);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.metrics.JargonMetrics#recordParse(long)
+	 */
+	@Override
+	public void recordParse(final long elapsedNanos) {
+		parse.record(elapsedNanos);
+	}
+
+	/**
+	 * @return <code>Set</code> of <code>Integer</code> with the iRODS API
+	 *         numbers that have been called, in order
+	 */
+	public Set<Integer> getApiNumbers() {
+		SortedSet<Integer> apiNumbers = new TreeSet<Integer>(
+				apiLatencies.keySet());
+		return Collections.unmodifiableSet(apiNumbers);
+	}
+
+	/**
+	 * Get the latencies of calls to an iRODS API
+	 *
+	 * @param apiNumber
+	 *            <code>int</code> with the iRODS API number
+	 * @return {@link LatencyHistogram} for the API, or <code>null</code> if
+	 *         the API has not been called
+	 */
+	public LatencyHistogram getApiLatency(final int apiNumber) {
+		return apiLatencies.get(apiNumber);
+	}
+
+	/**
+	 * Get the number of calls to an iRODS API that ended in an error
+	 *
+	 * @param apiNumber
+	 *            <code>int</code> with the iRODS API number
+	 * @return <code>long</code> with the number of failed calls
+	 */
+	public long getApiErrorCount(final int apiNumber) {
+		AtomicLong errors = apiErrors.get(apiNumber);
+		return errors == null ? 0 : errors.get();
+	}
+
+	/**
+	 * @return <code>long</code> with the total bytes sent to iRODS
+	 */
+	public long getBytesSent() {
+		return bytesSent.get();
+	}
+
+	/**
+	 * @return <code>long</code> with the total bytes received from iRODS
+	 */
+	public long getBytesReceived() {
+		return bytesReceived.get();
+	}
+
+	/**
+	 * @return {@link LatencyHistogram} of the times to open a connection
+	 */
+	public LatencyHistogram getConnectionOpen() {
+		return connectionOpen;
+	}
+
+	/**
+	 * @return {@link LatencyHistogram} of the times to authenticate
+	 */
+	public LatencyHistogram getAuthentication() {
+		return authentication;
+	}
+
+	/**
+	 * @return {@link LatencyHistogram} of the times waited for the protocol
+	 *         manager to provide a connection
+	 */
+	public LatencyHistogram getConnectionAcquire() {
+		return connectionAcquire;
+	}
+
+	/**
+	 * @return {@link LatencyHistogram} of the times to render requests
+	 */
+	public LatencyHistogram getSerialize() {
+		return serialize;
+	}
+
+	/**
+	 * @return {@link LatencyHistogram} of the times to parse responses
+	 */
+	public LatencyHistogram getParse() {
+		return parse;
+	}
+
+	/**
+	 * Clear all measurements
+	 */
+	public void reset() {
+		apiLatencies.clear();
+		apiErrors.clear();
+		bytesSent.set(0);
+		bytesReceived.set(0);
+		connectionOpen.reset();
+		authentication.reset();
+		connectionAcquire.reset();
+		serialize.reset();
+		parse.reset();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("InMemoryJargonMetrics [enabled=");
+		builder.append(enabled);
+		builder.append(", apiLatencies=");
+		builder.append(apiLatencies);
+		builder.append(", bytesSent=");
+		builder.append(bytesSent);
+		builder.append(", bytesReceived=");
+		builder.append(bytesReceived);
+		builder.append(", connectionOpen=");
+		builder.append(connectionOpen);
+		builder.append(", authentication=");
+		builder.append(authentication);
+		builder.append("]");
+		return builder.toString();
+	}
+
+}
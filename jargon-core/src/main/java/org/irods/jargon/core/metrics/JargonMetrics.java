@@ -0,0 +1,109 @@
+package org.irods.jargon.core.metrics;
+
+/**
+ * Service provider interface for the instrumentation of Jargon. An
+ * implementation is given to the <code>IRODSSession</code>, and is called by
+ * the connection and protocol layers as iRODS API calls are made, so that the
+ * time spent in each iRODS API, and in connecting, authenticating, and
+ * handling protocol messages, can be reported to a monitoring system.
+ * <p/>
+ * The methods are called on the threads doing iRODS i/o, often while holding
+ * the lock on a connection, so implementations must be thread-safe and should
+ * return quickly. When {@link #isEnabled()} returns <code>false</code>, the
+ * callers skip reading the clock, so an implementation that is switched off
+ * costs nothing.
+ * <p/>
+ * Jargon provides {@link NoOpJargonMetrics}, the default,
+ * {@link InMemoryJargonMetrics}, which keeps histograms that may be queried,
+ * and {@link AbstractMeterRegistryJargonMetrics}, an adapter to a dimensional
+ * metrics library such as Micrometer.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public interface JargonMetrics {
+
+	/**
+	 * Indicates whether measurements are being taken. This is checked before
+	 * any timing is done, and should be a simple field read.
+	 *
+	 * @return <code>boolean</code> that is <code>true</code> if the other
+	 *         methods should be called
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Record a completed iRODS API call, from the sending of the request to
+	 * the reading of the response
+	 *
+	 * @param apiNumber
+	 *            <code>int</code> with the iRODS API number of the request
+	 * @param elapsedNanos
+	 *            <code>long</code> with the elapsed time in nanoseconds
+	 * @param success
+	 *            <code>boolean</code> that is <code>false</code> if the call
+	 *            ended in an error
+	 */
+	void recordApiCall(int apiNumber, long elapsedNanos, boolean success);
+
+	/**
+	 * Record bytes written to an iRODS agent connection
+	 *
+	 * @param bytes
+	 *            <code>long</code> with the number of bytes sent
+	 */
+	void recordBytesSent(long bytes);
+
+	/**
+	 * Record bytes read from an iRODS agent connection
+	 *
+	 * @param bytes
+	 *            <code>long</code> with the number of bytes received
+	 */
+	void recordBytesReceived(long bytes);
+
+	/**
+	 * Record the time to open the network connection to an iRODS agent
+	 *
+	 * @param elapsedNanos
+	 *            <code>long</code> with the elapsed time in nanoseconds
+	 */
+	void recordConnectionOpen(long elapsedNanos);
+
+	/**
+	 * Record the time to authenticate a newly opened connection
+	 *
+	 * @param elapsedNanos
+	 *            <code>long</code> with the elapsed time in nanoseconds
+	 */
+	void recordAuthentication(long elapsedNanos);
+
+	/**
+	 * Record the time waited for the <code>IRODSProtocolManager</code> to
+	 * provide a connection. For a manager that pools connections this is the
+	 * pool wait, for a manager that always connects it includes the open and
+	 * authentication time.
+	 *
+	 * @param elapsedNanos
+	 *            <code>long</code> with the elapsed time in nanoseconds
+	 */
+	void recordConnectionAcquire(long elapsedNanos);
+
+	/**
+	 * Record the time to render a request packing instruction as a protocol
+	 * message
+	 *
+	 * @param elapsedNanos
+	 *            <code>long</code> with the elapsed time in nanoseconds
+	 */
+	void recordSerialize(long elapsedNanos);
+
+	/**
+	 * Record the time to parse a protocol message read from iRODS
+	 *
+	 * @param elapsedNanos
+	 *            <code>long</code> with the elapsed time in nanoseconds
+	 */
+	void recordParse(long elapsedNanos);
+
+}
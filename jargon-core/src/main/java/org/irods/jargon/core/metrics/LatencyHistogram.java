@@ -0,0 +1,158 @@
+package org.irods.jargon.core.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe histogram of elapsed times. Times are counted in buckets by
+ * powers of two of nanoseconds, so the memory used is fixed and recording is
+ * a few atomic updates, at the cost of percentiles that are accurate to within
+ * a factor of two. The count, total, and maximum are exact.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class LatencyHistogram {
+
+	private static final int BUCKET_COUNT = 64;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong totalNanos = new AtomicLong();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	/**
+	 * Record an elapsed time
+	 *
+	 * @param elapsedNanos
+	 *            <code>long</code> with the elapsed time in nanoseconds,
+	 *            negative values are recorded as zero
+	 */
+	public void record(final long elapsedNanos) {
+		long value = elapsedNanos < 0 ? 0 : elapsedNanos;
+		buckets.incrementAndGet(bucketFor(value));
+		count.incrementAndGet();
+		totalNanos.addAndGet(value);
+
+		long currentMax = maxNanos.get();
+		while (value > currentMax
+				&& !maxNanos.compareAndSet(currentMax, value)) {
+			currentMax = maxNanos.get();
+		}
+	}
+
+	/**
+	 * @return <code>long</code> with the number of times recorded
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * @return <code>long</code> with the sum of the times recorded, in
+	 *         nanoseconds
+	 */
+	public long getTotalNanos() {
+		return totalNanos.get();
+	}
+
+	/**
+	 * @return <code>long</code> with the longest time recorded, in
+	 *         nanoseconds
+	 */
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	/**
+	 * @return <code>double</code> with the mean of the times recorded, in
+	 *         milliseconds, or zero if nothing is recorded
+	 */
+	public double getMeanMillis() {
+		long recorded = count.get();
+		if (recorded == 0) {
+			return 0;
+		}
+		return (double) totalNanos.get() / recorded
+				/ TimeUnit.MILLISECONDS.toNanos(1);
+	}
+
+	/**
+	 * Get an estimate of a percentile of the times recorded. The estimate is
+	 * the upper bound of the bucket holding the percentile, so it is never
+	 * lower than the true value, and never higher than the maximum.
+	 *
+	 * @param percentile
+	 *            <code>double</code> from 0 to 100
+	 * @return <code>long</code> with the estimate in nanoseconds, or zero if
+	 *         nothing is recorded
+	 */
+	public long getPercentileNanos(final double percentile) {
+
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException(
+					"percentile must be between 0 and 100");
+		}
+
+		long recorded = count.get();
+		if (recorded == 0) {
+			return 0;
+		}
+
+		long rank = (long) Math.ceil(percentile / 100 * recorded);
+		if (rank < 1) {
+			rank = 1;
+		}
+
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += buckets.get(i);
+			if (seen >= rank) {
+				return Math.min(upperBoundOf(i), maxNanos.get());
+			}
+		}
+
+		return maxNanos.get();
+	}
+
+	/**
+	 * Clear all recorded times
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			buckets.set(i, 0);
+		}
+		count.set(0);
+		totalNanos.set(0);
+		maxNanos.set(0);
+	}
+
+	static int bucketFor(final long value) {
+		if (value <= 1) {
+			return 0;
+		}
+		return BUCKET_COUNT - 1 - Long.numberOfLeadingZeros(value);
+	}
+
+	private static long upperBoundOf(final int bucket) {
+		if (bucket >= BUCKET_COUNT - 2) {
+			return Long.MAX_VALUE;
+		}
+		return (1L << (bucket + 1)) - 1;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("LatencyHistogram [count=");
+		builder.append(getCount());
+		builder.append(", meanMillis=");
+		builder.append(getMeanMillis());
+		builder.append(", maxNanos=");
+		builder.append(getMaxNanos());
+		builder.append("]");
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,58 @@
+package org.irods.jargon.core.metrics;
+
+/**
+ * {@link JargonMetrics} that records nothing. This is used when no
+ * instrumentation is configured.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public final class NoOpJargonMetrics implements JargonMetrics {
+
+	/**
+	 * Shared instance, this object has no state
+	 */
+	public static final NoOpJargonMetrics INSTANCE = new NoOpJargonMetrics();
+
+	private NoOpJargonMetrics() {
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return false;
+	}
+
+	@Override
+	public void recordApiCall(final int apiNumber, final long elapsedNanos,
+			final boolean success) {
+	}
+
+	@Override
+	public void recordBytesSent(final long bytes) {
+	}
+
+	@Override
+	public void recordBytesReceived(final long bytes) {
+	}
+
+	@Override
+	public void recordConnectionOpen(final long elapsedNanos) {
+	}
+
+	@Override
+	public void recordAuthentication(final long elapsedNanos) {
+	}
+
+	@Override
+	public void recordConnectionAcquire(final long elapsedNanos) {
+	}
+
+	@Override
+	public void recordSerialize(final long elapsedNanos) {
+	}
+
+	@Override
+	public void recordParse(final long elapsedNanos) {
+	}
+
+}
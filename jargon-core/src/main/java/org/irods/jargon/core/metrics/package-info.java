@@ -0,0 +1,7 @@
+/**
+ * Instrumentation of the connection and protocol layers. A {@link org.irods.jargon.core.metrics.JargonMetrics} implementation
+ * set in the <code>IRODSSession</code> receives the latency of each iRODS API call, bytes sent and received, and connection and
+ * message handling times.
+ */
+package org.irods.jargon.core.metrics;
+
@@ -1,6 +1,7 @@
 package org.irods.jargon.core.packinstr;
 
 import org.irods.jargon.core.protovalues.ChecksumEncodingEnum;
+import org.irods.jargon.core.transfer.TransferTelemetry;
 
 /**
  * Represents options that control the transfer of data to and from iRODS (get
@@ -51,6 +52,11 @@ public class TransferOptions {
 	 * be notified, no matter how many calls have been made
 	 */
 	private long intraFileStatusCallbacksTotalBytesInterval = 4194304;
+	/**
+	 * Time in milliseconds that a stream of a transfer may move no bytes
+	 * before it is reported as stalled, when intra-file callbacks are in use
+	 */
+	private long stallThresholdMillis = TransferTelemetry.DEFAULT_STALL_THRESHOLD_MILLIS;
 
 	/**
 	 * DataType option for putting certain types of special files
@@ -71,6 +77,14 @@ public class TransferOptions {
 	 */
 	private boolean computeAndVerifyChecksumAfterTransfer = false;
 
+	/**
+	 * Compute the checksum for <code>computeAndVerifyChecksumAfterTransfer</code>
+	 * from the bytes as they are transferred, and compare it to the checksum
+	 * iRODS computes, instead of reading the local file a second time. This
+	 * has no effect when the checksum is only computed and not verified.
+	 */
+	private boolean computeChecksumDuringTransfer = false;
+
 	/*
 	 * (non-Javadoc)
 	 *
@@ -107,6 +121,8 @@ public class TransferOptions {
 		builder.append(intraFileStatusCallbacksNumberCallsInterval);
 		builder.append(", intraFileStatusCallbacksTotalBytesInterval=");
 		builder.append(intraFileStatusCallbacksTotalBytesInterval);
+		builder.append(", stallThresholdMillis=");
+		builder.append(stallThresholdMillis);
 		builder.append(", ");
 		if (putOption != null) {
 			builder.append("putOption=");
@@ -117,6 +133,8 @@ public class TransferOptions {
 		builder.append(computeChecksumAfterTransfer);
 		builder.append(", computeAndVerifyChecksumAfterTransfer=");
 		builder.append(computeAndVerifyChecksumAfterTransfer);
+		builder.append(", computeChecksumDuringTransfer=");
+		builder.append(computeChecksumDuringTransfer);
 		builder.append("]");
 		return builder.toString();
 	}
@@ -143,6 +161,8 @@ public class TransferOptions {
 						.isComputeChecksumAfterTransfer());
 				setComputeAndVerifyChecksumAfterTransfer(transferOptions
 						.isComputeAndVerifyChecksumAfterTransfer());
+				setComputeChecksumDuringTransfer(transferOptions
+						.isComputeChecksumDuringTransfer());
 				setIntraFileStatusCallbacks(transferOptions.intraFileStatusCallbacks);
 				setForceOption(transferOptions.getForceOption());
 				setUseParallelTransfer(transferOptions.isUseParallelTransfer());
@@ -152,6 +172,8 @@ public class TransferOptions {
 						.getIntraFileStatusCallbacksNumberCallsInterval());
 				setIntraFileStatusCallbacksTotalBytesInterval(transferOptions
 						.getIntraFileStatusCallbacksTotalBytesInterval());
+				setStallThresholdMillis(transferOptions
+						.getStallThresholdMillis());
 			}
 		}
 	}
@@ -276,6 +298,22 @@ public class TransferOptions {
 		return computeAndVerifyChecksumAfterTransfer;
 	}
 
+	/**
+	 * @param computeChecksumDuringTransfer
+	 *            the computeChecksumDuringTransfer to set
+	 */
+	public synchronized void setComputeChecksumDuringTransfer(
+			final boolean computeChecksumDuringTransfer) {
+		this.computeChecksumDuringTransfer = computeChecksumDuringTransfer;
+	}
+
+	/**
+	 * @return the computeChecksumDuringTransfer
+	 */
+	public synchronized boolean isComputeChecksumDuringTransfer() {
+		return computeChecksumDuringTransfer;
+	}
+
 	/**
 	 * @return the intraFileStatusCallbacks value. If <code>true</code>, then
 	 *         call-backs will be sent on progress within-file, if a listener is
@@ -406,4 +444,27 @@ public class TransferOptions {
 			final long intraFileStatusCallbacksTotalBytesInterval) {
 		this.intraFileStatusCallbacksTotalBytesInterval = intraFileStatusCallbacksTotalBytesInterval;
 	}
+
+	/**
+	 * @return <code>long</code> with the time in milliseconds that a stream
+	 *         may move no bytes before it is reported as stalled
+	 */
+	public synchronized long getStallThresholdMillis() {
+		return stallThresholdMillis;
+	}
+
+	/**
+	 * @param stallThresholdMillis
+	 *            <code>long</code> with the time in milliseconds that a stream
+	 *            may move no bytes before it is reported as stalled, greater
+	 *            than zero
+	 */
+	public synchronized void setStallThresholdMillis(
+			final long stallThresholdMillis) {
+		if (stallThresholdMillis <= 0) {
+			throw new IllegalArgumentException(
+					"stallThresholdMillis must be greater than zero");
+		}
+		this.stallThresholdMillis = stallThresholdMillis;
+	}
 }
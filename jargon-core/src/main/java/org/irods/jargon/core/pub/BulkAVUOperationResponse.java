@@ -3,6 +3,11 @@
  */
 package org.irods.jargon.core.pub;
 
+import org.irods.jargon.core.exception.DataNotFoundException;
+import org.irods.jargon.core.exception.DuplicateDataException;
+import org.irods.jargon.core.exception.FileNotFoundException;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.protovalues.ErrorEnum;
 import org.irods.jargon.core.pub.domain.AvuData;
 
 /**
@@ -22,6 +27,39 @@ public class BulkAVUOperationResponse {
 	private ResultStatus resultStatus;
 	private String message;
 
+	/**
+	 * Classify the error returned by iRODS for one AVU request. The typed
+	 * exception is used where iRODS sent a known error code, and otherwise
+	 * the underlying error code, less any sub code, is checked.
+	 * 
+	 * @param error
+	 *            <code>JargonException</code> returned for the request
+	 * @return {@link ResultStatus} for the error, which is never
+	 *         <code>OK</code>
+	 */
+	public static ResultStatus resultStatusForError(
+			final JargonException error) {
+
+		if (error == null) {
+			throw new IllegalArgumentException("null error");
+		}
+
+		int code = error.getUnderlyingIRODSExceptionCode();
+		int baseCode = code - code % 1000;
+
+		if (error instanceof DuplicateDataException
+				|| baseCode == ErrorEnum.CATALOG_ALREADY_HAS_ITEM_BY_THAT_NAME
+						.getInt()) {
+			return ResultStatus.DUPLICATE_AVU;
+		} else if (error instanceof FileNotFoundException
+				|| error instanceof DataNotFoundException
+				|| baseCode == ErrorEnum.CAT_UNKNOWN_COLLECTION.getInt()
+				|| baseCode == ErrorEnum.CAT_UNKNOWN_FILE.getInt()) {
+			return ResultStatus.MISSING_METADATA_TARGET;
+		}
+		return ResultStatus.OTHER_ERROR;
+	}
+
 	public static BulkAVUOperationResponse instance(
 			final ResultStatus resultStatus, final AvuData avuData,
 			final String message) {
@@ -0,0 +1,463 @@
+/**
+ *
+ */
+package org.irods.jargon.core.pub;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.irods.jargon.core.exception.DataNotFoundException;
+import org.irods.jargon.core.exception.FileNotFoundException;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.DataObjInpForObjStat;
+import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.irods.jargon.core.pub.domain.ObjStat.SpecColType;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry.ObjectType;
+import org.irods.jargon.core.query.GenQueryBuilderException;
+import org.irods.jargon.core.query.IRODSGenQueryBuilder;
+import org.irods.jargon.core.query.IRODSQueryResultRow;
+import org.irods.jargon.core.query.QueryConditionOperators;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
+import org.irods.jargon.core.utils.CollectionAndPath;
+import org.irods.jargon.core.utils.GenQueryPagingUtils;
+import org.irods.jargon.core.utils.MiscIRODSUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utilities (for the package) to resolve the <code>ObjStat</code> of many
+ * paths at once. Paths are grouped by parent collection, and each group is
+ * resolved with a small number of GenQueries using <code>IN</code> conditions
+ * rather than one rsObjStat round trip per path.
+ * <p/>
+ * Special collections (soft links, mounted collections, structured files) are
+ * not fully described by the iCAT at the requested path, so any group whose
+ * parent is a special collection, or any collection that is itself the root of
+ * a special collection, falls back to rsObjStat calls. These are pipelined
+ * through the {@link PipelinedProtocolExtensionPoint}, so that a group costs
+ * about one round trip rather than one per path.
+ * <p/>
+ * Values in an <code>IN</code> condition are quoted, so a single quote in a
+ * name is doubled, as the iCAT query parser expects.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+class BulkObjStatUtils {
+
+	/**
+	 * Maximum number of values placed in a single <code>IN</code> condition
+	 */
+	static final int MAX_IN_CONDITION_VALUES = 100;
+
+	/**
+	 * Maximum number of characters (values plus quoting) placed in a single
+	 * <code>IN</code> condition, kept well under the iCAT query buffer size
+	 */
+	static final int MAX_IN_CONDITION_LENGTH = 2048;
+
+	public static final String QUERY_EXCEPTION_FOR_QUERY = "query exception for  query:";
+
+	public static final Logger log = LoggerFactory
+			.getLogger(BulkObjStatUtils.class);
+
+	private final CollectionAndDataObjectListAndSearchAO collectionAndDataObjectListAndSearchAO;
+
+	/**
+	 * Constructor
+	 *
+	 * @param collectionAndDataObjectListAndSearchAO
+	 *            {@link CollectionAndDataObjectListAndSearchAO} used to obtain
+	 *            the query executor and for fall-back objStat calls
+	 */
+	BulkObjStatUtils(
+			final CollectionAndDataObjectListAndSearchAO collectionAndDataObjectListAndSearchAO) {
+		if (collectionAndDataObjectListAndSearchAO == null) {
+			throw new IllegalArgumentException(
+					"null collectionAndDataObjectListAndSearchAO");
+		}
+
+		this.collectionAndDataObjectListAndSearchAO = collectionAndDataObjectListAndSearchAO;
+	}
+
+	/**
+	 * Resolve the <code>ObjStat</code> for each of the given paths. Paths that
+	 * do not exist (or are not visible to the user) are not present in the
+	 * returned <code>Map</code>.
+	 *
+	 * @param irodsAbsolutePaths
+	 *            <code>Collection<String></code> of absolute iRODS paths
+	 * @return <code>Map<String, ObjStat></code> keyed by the requested path,
+	 *         in the iteration order of the given paths
+	 * @throws JargonException
+	 */
+	Map<String, ObjStat> retrieveObjectStatsForPaths(
+			final Collection<String> irodsAbsolutePaths) throws JargonException {
+
+		log.info("retrieveObjectStatsForPaths()");
+
+		if (irodsAbsolutePaths == null) {
+			throw new IllegalArgumentException("null irodsAbsolutePaths");
+		}
+
+		log.info("number of paths:{}", irodsAbsolutePaths.size());
+
+		/*
+		 * group the children by parent collection, preserving the requested
+		 * order
+		 */
+		Map<String, Set<String>> pathsByParent = new LinkedHashMap<String, Set<String>>();
+		Map<String, String> normalizedPathsByRequestedPath = new LinkedHashMap<String, String>(
+				irodsAbsolutePaths.size());
+
+		for (String irodsAbsolutePath : irodsAbsolutePaths) {
+			if (irodsAbsolutePath == null || irodsAbsolutePath.isEmpty()) {
+				throw new IllegalArgumentException(
+						"null or empty path in irodsAbsolutePaths");
+			}
+
+			MiscIRODSUtils.checkPathSizeForMax(irodsAbsolutePath);
+			CollectionAndPath collectionAndPath = MiscIRODSUtils
+					.separateCollectionAndPathFromGivenAbsolutePath(irodsAbsolutePath);
+
+			if (collectionAndPath.getCollectionParent().isEmpty()) {
+				/*
+				 * root or a zone, just objStat these, they are few and special
+				 */
+				normalizedPathsByRequestedPath.put(irodsAbsolutePath,
+						irodsAbsolutePath);
+				addToGroup(pathsByParent, "", irodsAbsolutePath);
+			} else {
+				String normalizedPath = MiscIRODSUtils
+						.buildAbsolutePathFromCollectionParentAndFileName(
+								collectionAndPath.getCollectionParent(),
+								collectionAndPath.getChildName());
+				normalizedPathsByRequestedPath.put(irodsAbsolutePath,
+						normalizedPath);
+				addToGroup(pathsByParent,
+						collectionAndPath.getCollectionParent(), normalizedPath);
+			}
+		}
+
+		Map<String, ObjStat> objStatsByPath = new HashMap<String, ObjStat>(
+				normalizedPathsByRequestedPath.size());
+
+		for (Map.Entry<String, Set<String>> group : pathsByParent.entrySet()) {
+			resolveGroup(group.getKey(),
+					new ArrayList<String>(group.getValue()), objStatsByPath);
+		}
+
+		Map<String, ObjStat> result = new LinkedHashMap<String, ObjStat>(
+				objStatsByPath.size());
+		ObjStat objStat;
+		for (Map.Entry<String, String> requested : normalizedPathsByRequestedPath
+				.entrySet()) {
+			objStat = objStatsByPath.get(requested.getValue());
+			if (objStat != null) {
+				result.put(requested.getKey(), objStat);
+			}
+		}
+
+		log.info("resolved {} of {} paths", result.size(),
+				normalizedPathsByRequestedPath.size());
+		return result;
+
+	}
+
+	private void addToGroup(final Map<String, Set<String>> pathsByParent,
+			final String parent, final String irodsAbsolutePath) {
+		Set<String> children = pathsByParent.get(parent);
+		if (children == null) {
+			children = new LinkedHashSet<String>();
+			pathsByParent.put(parent, children);
+		}
+		children.add(irodsAbsolutePath);
+	}
+
+	/**
+	 * Resolve all of the children of one parent collection
+	 *
+	 * @param parent
+	 *            <code>String</code> with the parent collection path, blank
+	 *            for root and zone level paths
+	 * @param children
+	 *            <code>List<String></code> with the absolute paths of the
+	 *            children
+	 * @param objStatsByPath
+	 *            <code>Map</code> to which resolved values are added
+	 * @throws JargonException
+	 */
+	private void resolveGroup(final String parent,
+			final List<String> children,
+			final Map<String, ObjStat> objStatsByPath) throws JargonException {
+
+		log.info("resolving {} children of parent:{}", children.size(), parent);
+
+		if (parent.isEmpty()) {
+			objStatEachPath(children, objStatsByPath);
+			return;
+		}
+
+		ObjStat parentObjStat;
+		try {
+			parentObjStat = collectionAndDataObjectListAndSearchAO
+					.retrieveObjectStatForPath(parent);
+		} catch (FileNotFoundException fnf) {
+			log.info("parent not found, no children exist:{}", parent);
+			return;
+		}
+
+		if (parentObjStat.getSpecColType() != SpecColType.NORMAL) {
+			log.info("parent is a special collection, fall back to objStat");
+			objStatEachPath(children, objStatsByPath);
+			return;
+		}
+
+		String zone = MiscIRODSUtils.getZoneInPath(parent);
+
+		Set<String> specialCollections = new HashSet<String>();
+		for (List<String> chunk : chunkValues(children)) {
+			queryCollections(chunk, zone, objStatsByPath, specialCollections);
+		}
+
+		List<String> dataNames = new ArrayList<String>();
+		for (String child : children) {
+			if (!objStatsByPath.containsKey(child)
+					&& !specialCollections.contains(child)) {
+				dataNames.add(MiscIRODSUtils
+						.getLastPathComponentForGiveAbsolutePath(child));
+			}
+		}
+
+		for (List<String> chunk : chunkValues(dataNames)) {
+			queryDataObjects(parent, chunk, zone, objStatsByPath);
+		}
+
+		objStatEachPath(specialCollections, objStatsByPath);
+
+	}
+
+	/**
+	 * Fall back to an objStat call for each of the given paths, pipelining
+	 * the calls with the depth of the <code>request.pipeline.depth</code>
+	 * jargon property. A path that is not found is left out, any other error
+	 * is thrown once all the calls are answered.
+	 */
+	private void objStatEachPath(final Collection<String> paths,
+			final Map<String, ObjStat> objStatsByPath) throws JargonException {
+
+		if (paths.isEmpty()) {
+			return;
+		}
+
+		List<String> pathList = new ArrayList<String>(paths);
+		List<DataObjInpForObjStat> requests = new ArrayList<DataObjInpForObjStat>(
+				pathList.size());
+		for (String path : pathList) {
+			requests.add(DataObjInpForObjStat.instance(path));
+		}
+
+		log.info("pipelining objStat of {} paths", requests.size());
+
+		IRODSAccessObjectFactory irodsAccessObjectFactory = collectionAndDataObjectListAndSearchAO
+				.getIRODSAccessObjectFactory();
+		List<Tag> responses = new ArrayList<Tag>(requests.size());
+		List<JargonException> errors = irodsAccessObjectFactory
+				.getPipelinedProtocolExtensionPoint(
+						collectionAndDataObjectListAndSearchAO
+								.getIRODSAccount()).irodsFunctionPipelined(
+						requests,
+						irodsAccessObjectFactory.getJargonProperties()
+								.getRequestPipelineDepth(), responses);
+
+		JargonException firstError = null;
+		for (int i = 0; i < pathList.size(); i++) {
+			JargonException error = errors.get(i);
+			if (error == null) {
+				objStatsByPath.put(pathList.get(i),
+						CollectionAndDataObjectListAndSearchAOImpl
+								.buildObjStatFromResponse(pathList.get(i),
+										responses.get(i)));
+			} else if (error instanceof DataNotFoundException
+					|| error instanceof FileNotFoundException) {
+				log.debug("path not found:{}", pathList.get(i));
+			} else if (firstError == null) {
+				log.error("error in objStat of path:{}", pathList.get(i), error);
+				firstError = error;
+			}
+		}
+
+		if (firstError != null) {
+			throw firstError;
+		}
+	}
+
+	private void queryCollections(final List<String> collectionPaths,
+			final String zone, final Map<String, ObjStat> objStatsByPath,
+			final Set<String> specialCollections) throws JargonException {
+
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		try {
+			builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_ID)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_NAME)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_COLL_OWNER_NAME)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_COLL_OWNER_ZONE)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_COLL_CREATE_TIME)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_COLL_MODIFY_TIME)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_TYPE)
+					.addConditionAsMultiValueCondition(
+							RodsGenQueryEnum.COL_COLL_NAME,
+							QueryConditionOperators.IN, collectionPaths);
+		} catch (GenQueryBuilderException e) {
+			log.error(QUERY_EXCEPTION_FOR_QUERY, e);
+			throw new JargonException("error building query", e);
+		}
+
+		for (IRODSQueryResultRow row : GenQueryPagingUtils.queryAllRows(
+				collectionAndDataObjectListAndSearchAO
+						.getIRODSAccessObjectFactory(),
+				collectionAndDataObjectListAndSearchAO.getIRODSAccount(),
+				builder, zone)) {
+			String collName = row.getColumn(1);
+
+			if (!row.getColumn(6).isEmpty()) {
+				log.info("collection is a special collection root:{}",
+						collName);
+				specialCollections.add(collName);
+				continue;
+			}
+
+			ObjStat objStat = new ObjStat();
+			objStat.setAbsolutePath(collName);
+			objStat.setDataId(row.getColumnAsIntOrZero(0));
+			objStat.setObjectType(ObjectType.COLLECTION);
+			objStat.setOwnerName(row.getColumn(2));
+			objStat.setOwnerZone(row.getColumn(3));
+			objStat.setCreatedAt(row.getColumnAsDateOrNull(4));
+			objStat.setModifiedAt(row.getColumnAsDateOrNull(5));
+			objStat.setSpecColType(SpecColType.NORMAL);
+			objStatsByPath.put(collName, objStat);
+		}
+	}
+
+	private void queryDataObjects(final String parent,
+			final List<String> dataNames, final String zone,
+			final Map<String, ObjStat> objStatsByPath) throws JargonException {
+
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		try {
+			builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_D_DATA_ID)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_DATA_NAME)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_DATA_SIZE)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_D_OWNER_NAME)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_D_OWNER_ZONE)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_D_DATA_CHECKSUM)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_D_CREATE_TIME)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_D_MODIFY_TIME)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_DATA_REPL_NUM)
+					.addConditionAsGenQueryField(
+							RodsGenQueryEnum.COL_COLL_NAME,
+							QueryConditionOperators.EQUAL, parent)
+					.addConditionAsMultiValueCondition(
+							RodsGenQueryEnum.COL_DATA_NAME,
+							QueryConditionOperators.IN, dataNames);
+		} catch (GenQueryBuilderException e) {
+			log.error(QUERY_EXCEPTION_FOR_QUERY, e);
+			throw new JargonException("error building query", e);
+		}
+
+		/*
+		 * replicas will produce multiple rows for the same data object, like
+		 * rsObjStat, the first replica found is reported
+		 */
+		for (IRODSQueryResultRow row : GenQueryPagingUtils.queryAllRows(
+				collectionAndDataObjectListAndSearchAO
+						.getIRODSAccessObjectFactory(),
+				collectionAndDataObjectListAndSearchAO.getIRODSAccount(),
+				builder, zone)) {
+			String absolutePath = MiscIRODSUtils
+					.buildAbsolutePathFromCollectionParentAndFileName(parent,
+							row.getColumn(1));
+			if (objStatsByPath.containsKey(absolutePath)) {
+				continue;
+			}
+
+			ObjStat objStat = new ObjStat();
+			objStat.setAbsolutePath(absolutePath);
+			objStat.setDataId(row.getColumnAsIntOrZero(0));
+			objStat.setObjectType(ObjectType.DATA_OBJECT);
+			objStat.setObjSize(row.getColumnAsLongOrZero(2));
+			objStat.setOwnerName(row.getColumn(3));
+			objStat.setOwnerZone(row.getColumn(4));
+			objStat.setChecksum(row.getColumn(5));
+			objStat.setCreatedAt(row.getColumnAsDateOrNull(6));
+			objStat.setModifiedAt(row.getColumnAsDateOrNull(7));
+			objStat.setReplNumber(row.getColumnAsIntOrZero(8));
+			objStat.setSpecColType(SpecColType.NORMAL);
+			objStatsByPath.put(absolutePath, objStat);
+		}
+	}
+
+	/**
+	 * Split the given values into lists that are suitable for a single
+	 * <code>IN</code> condition, doubling any single quote in a value so that
+	 * it can be placed between quotes
+	 *
+	 * @param values
+	 *            <code>List<String></code> of values without quotes
+	 * @return <code>List</code> of chunks of the escaped values
+	 */
+	static List<List<String>> chunkValues(final List<String> values) {
+		List<List<String>> chunks = new ArrayList<List<String>>();
+		List<String> chunk = new ArrayList<String>();
+		int chunkLength = 0;
+
+		for (String unescaped : values) {
+			String value = escapeQuotes(unescaped);
+			int valueLength = value.length() + 3;
+			if (!chunk.isEmpty()
+					&& (chunk.size() >= MAX_IN_CONDITION_VALUES || chunkLength
+							+ valueLength > MAX_IN_CONDITION_LENGTH)) {
+				chunks.add(chunk);
+				chunk = new ArrayList<String>();
+				chunkLength = 0;
+			}
+			chunk.add(value);
+			chunkLength += valueLength;
+		}
+
+		if (!chunk.isEmpty()) {
+			chunks.add(chunk);
+		}
+
+		return chunks;
+	}
+
+	/**
+	 * Escape a value for a quoted query condition value by doubling each
+	 * single quote
+	 *
+	 * @param value
+	 *            <code>String</code> without quotes
+	 * @return <code>String</code> that may be placed between single quotes
+	 */
+	static String escapeQuotes(final String value) {
+		return value.replace("'", "''");
+	}
+
+}
@@ -0,0 +1,316 @@
+package org.irods.jargon.core.pub;
+
+import java.util.Set;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.IRODSSession;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.query.AbstractIRODSGenQuery;
+import org.irods.jargon.core.query.GenQueryCacheRegion;
+import org.irods.jargon.core.query.GenQueryResultCache;
+import org.irods.jargon.core.query.IRODSQueryResultSet;
+import org.irods.jargon.core.query.JargonQueryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decorator for an {@link IRODSGenQueryExecutor} that consults a shared
+ * {@link GenQueryResultCache} before sending a query to iRODS. This is
+ * returned by the {@link IRODSAccessObjectFactory} when
+ * <code>JargonProperties.isUsingGenQueryResultCache()</code> is set.
+ * <p/>
+ * Results are cached under a key built from the account (host, port, user and
+ * zone), the target zone, the partial start index, and the query as given by
+ * the caller, so that a cache hit does not use a connection. The regions that
+ * a query touches are found from the query as given, without translating it,
+ * so that a miss translates the query only once, when it is executed. Only
+ * result sets that are complete, or that have already been closed in iRODS,
+ * are cached, as a continued query depends on state held by the iRODS agent. Queries using continuation (
+ * <code>getMoreResults()</code>) and closes are always passed through to the
+ * decorated executor.
+ * <p/>
+ * Whether a query is cached, and for how long, depends on the
+ * {@link GenQueryCacheRegion}s that it touches, see the cache for details.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class CachingIRODSGenQueryExecutorImpl extends IRODSGenericAO implements
+		IRODSGenQueryExecutor {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(CachingIRODSGenQueryExecutorImpl.class);
+
+	private final IRODSGenQueryExecutor irodsGenQueryExecutor;
+	private final GenQueryResultCache genQueryResultCache;
+
+	/**
+	 * Constructor, called by the {@link IRODSAccessObjectFactory}
+	 *
+	 * @param irodsSession
+	 *            {@link IRODSSession}
+	 * @param irodsAccount
+	 *            {@link IRODSAccount}
+	 * @param irodsGenQueryExecutor
+	 *            {@link IRODSGenQueryExecutor} that is decorated, and will
+	 *            process any query not found in the cache
+	 * @param genQueryResultCache
+	 *            {@link GenQueryResultCache} that holds results
+	 * @throws JargonException
+	 */
+	public CachingIRODSGenQueryExecutorImpl(final IRODSSession irodsSession,
+			final IRODSAccount irodsAccount,
+			final IRODSGenQueryExecutor irodsGenQueryExecutor,
+			final GenQueryResultCache genQueryResultCache)
+			throws JargonException {
+		super(irodsSession, irodsAccount);
+
+		if (irodsGenQueryExecutor == null) {
+			throw new IllegalArgumentException("null irodsGenQueryExecutor");
+		}
+
+		if (genQueryResultCache == null) {
+			throw new IllegalArgumentException("null genQueryResultCache");
+		}
+
+		this.irodsGenQueryExecutor = irodsGenQueryExecutor;
+		this.genQueryResultCache = genQueryResultCache;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.pub.IRODSGenQueryExecutor#executeIRODSQuery(org
+	 * .irods.jargon.core.query.AbstractIRODSGenQuery, int)
+	 */
+	@Override
+	public IRODSQueryResultSet executeIRODSQuery(
+			final AbstractIRODSGenQuery irodsQuery, final int continueIndex)
+			throws JargonException, JargonQueryException {
+		return executeIRODSQueryInZone(irodsQuery, continueIndex, null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.pub.IRODSGenQueryExecutor#executeIRODSQueryInZone
+	 * (org.irods.jargon.core.query.AbstractIRODSGenQuery, int,
+	 * java.lang.String)
+	 */
+	@Override
+	public IRODSQueryResultSet executeIRODSQueryInZone(
+			final AbstractIRODSGenQuery irodsQuery, final int continueIndex,
+			final String zoneName) throws JargonException, JargonQueryException {
+
+		log.info("executeIRODSQueryInZone()");
+
+		if (irodsQuery == null) {
+			throw new IllegalArgumentException("null irodsQuery");
+		}
+
+		if (continueIndex != 0) {
+			return irodsGenQueryExecutor.executeIRODSQueryInZone(irodsQuery,
+					continueIndex, zoneName);
+		}
+
+		String key = buildCacheKey(irodsQuery, 0, zoneName);
+		IRODSQueryResultSet resultSet = genQueryResultCache.get(key);
+
+		if (resultSet != null) {
+			log.debug("cache hit");
+			return resultSet;
+		}
+
+		Set<GenQueryCacheRegion> regions = GenQueryCacheRegion
+				.regionsForQuery(irodsQuery);
+
+		if (genQueryResultCache.computeTimeToLiveMillis(regions) <= 0) {
+			return irodsGenQueryExecutor.executeIRODSQueryInZone(irodsQuery,
+					continueIndex, zoneName);
+		}
+
+		resultSet = irodsGenQueryExecutor.executeIRODSQueryInZone(irodsQuery,
+				continueIndex, zoneName);
+
+		/*
+		 * an open result set depends on state in the agent and cannot be
+		 * shared
+		 */
+		if (!resultSet.isHasMoreRecords()) {
+			genQueryResultCache.put(key, regions, resultSet);
+		}
+
+		return resultSet;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.pub.IRODSGenQueryExecutor#
+	 * executeIRODSQueryWithPaging
+	 * (org.irods.jargon.core.query.AbstractIRODSGenQuery, int)
+	 */
+	@Override
+	public IRODSQueryResultSet executeIRODSQueryWithPaging(
+			final AbstractIRODSGenQuery irodsQuery, final int partialStartIndex)
+			throws JargonException, JargonQueryException {
+		return executeIRODSQueryWithPagingInZone(irodsQuery, partialStartIndex,
+				null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.pub.IRODSGenQueryExecutor#
+	 * executeIRODSQueryWithPagingInZone
+	 * (org.irods.jargon.core.query.AbstractIRODSGenQuery, int,
+	 * java.lang.String)
+	 */
+	@Override
+	public IRODSQueryResultSet executeIRODSQueryWithPagingInZone(
+			final AbstractIRODSGenQuery irodsQuery,
+			final int partialStartIndex, final String zoneName)
+			throws JargonException, JargonQueryException {
+
+		log.info("executeIRODSQueryWithPagingInZone()");
+
+		if (irodsQuery == null) {
+			throw new IllegalArgumentException("null irodsQuery");
+		}
+
+		String key = buildCacheKey(irodsQuery, partialStartIndex, zoneName);
+		IRODSQueryResultSet resultSet = genQueryResultCache.get(key);
+
+		if (resultSet != null) {
+			log.debug("cache hit");
+			return resultSet;
+		}
+
+		Set<GenQueryCacheRegion> regions = GenQueryCacheRegion
+				.regionsForQuery(irodsQuery);
+
+		if (genQueryResultCache.computeTimeToLiveMillis(regions) <= 0) {
+			return irodsGenQueryExecutor.executeIRODSQueryWithPagingInZone(
+					irodsQuery, partialStartIndex, zoneName);
+		}
+
+		resultSet = irodsGenQueryExecutor.executeIRODSQueryWithPagingInZone(
+				irodsQuery, partialStartIndex, zoneName);
+		genQueryResultCache.put(key, regions, resultSet);
+		return resultSet;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.pub.IRODSGenQueryExecutor#
+	 * executeIRODSQueryAndCloseResult
+	 * (org.irods.jargon.core.query.AbstractIRODSGenQuery, int)
+	 */
+	@Override
+	public IRODSQueryResultSet executeIRODSQueryAndCloseResult(
+			final AbstractIRODSGenQuery irodsQuery, final int partialStartIndex)
+			throws JargonException, JargonQueryException {
+		return executeIRODSQueryAndCloseResultInZone(irodsQuery,
+				partialStartIndex, null);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.pub.IRODSGenQueryExecutor#
+	 * executeIRODSQueryAndCloseResultInZone
+	 * (org.irods.jargon.core.query.AbstractIRODSGenQuery, int,
+	 * java.lang.String)
+	 */
+	@Override
+	public IRODSQueryResultSet executeIRODSQueryAndCloseResultInZone(
+			final AbstractIRODSGenQuery irodsQuery,
+			final int partialStartIndex, final String zoneName)
+			throws JargonException, JargonQueryException {
+
+		log.info("executeIRODSQueryAndCloseResultInZone()");
+
+		/*
+		 * the close and paging variants produce the same closed result set
+		 */
+		return executeIRODSQueryWithPagingInZone(irodsQuery, partialStartIndex,
+				zoneName);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.pub.IRODSGenQueryExecutor#getMoreResultsInZone(
+	 * org.irods.jargon.core.query.IRODSQueryResultSet, java.lang.String)
+	 */
+	@Override
+	public IRODSQueryResultSet getMoreResultsInZone(
+			final IRODSQueryResultSet irodsQueryResultSet, final String zoneName)
+			throws JargonException, JargonQueryException {
+		return irodsGenQueryExecutor.getMoreResultsInZone(irodsQueryResultSet,
+				zoneName);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.pub.IRODSGenQueryExecutor#getMoreResults(org.irods
+	 * .jargon.core.query.IRODSQueryResultSet)
+	 */
+	@Override
+	public IRODSQueryResultSet getMoreResults(
+			final IRODSQueryResultSet irodsQueryResultSet)
+			throws JargonException, JargonQueryException {
+		return irodsGenQueryExecutor.getMoreResults(irodsQueryResultSet);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.pub.IRODSGenQueryExecutor#closeResults(org.irods
+	 * .jargon.core.query.IRODSQueryResultSet)
+	 */
+	@Override
+	public void closeResults(final IRODSQueryResultSet resultSet)
+			throws JargonException {
+		irodsGenQueryExecutor.closeResults(resultSet);
+	}
+
+	/**
+	 * @return the {@link GenQueryResultCache} consulted by this executor
+	 */
+	public GenQueryResultCache getGenQueryResultCache() {
+		return genQueryResultCache;
+	}
+
+	/**
+	 * Build the cache key, which is the account identity plus the query as
+	 * given by the caller, so that a hit needs no connection
+	 */
+	private String buildCacheKey(final AbstractIRODSGenQuery irodsQuery,
+			final int partialStartIndex, final String zoneName) {
+		IRODSAccount irodsAccount = getIRODSAccount();
+		StringBuilder sb = new StringBuilder();
+		sb.append(irodsAccount.getHost());
+		sb.append(':');
+		sb.append(irodsAccount.getPort());
+		sb.append('|');
+		sb.append(irodsAccount.getUserName());
+		sb.append('#');
+		sb.append(irodsAccount.getZone());
+		sb.append('|');
+		sb.append(zoneName == null ? "" : zoneName);
+		sb.append('|');
+		sb.append(partialStartIndex);
+		sb.append('|');
+		sb.append(GenQueryResultCache.describeQuery(irodsQuery));
+		return sb.toString();
+	}
+
+}
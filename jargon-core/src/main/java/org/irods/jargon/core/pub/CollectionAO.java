@@ -898,7 +898,8 @@ public interface CollectionAO extends FileCatalogObjectAO {
 	 * tolerant of individual duplicate AVUs, and will trap those exceptions and
 	 * not throw them. <br/>
 	 * This method will return a collection of individual success or failure for
-	 * each AVU.
+	 * each AVU. The requests for all of the AVUs are pipelined, as set by the
+	 * <code>bulk.avu.pipeline.depth</code> jargon property.
 	 * 
 	 * @param absolutePath
 	 *            <code>String</code> with the absolute path for the collection
@@ -921,7 +922,8 @@ public interface CollectionAO extends FileCatalogObjectAO {
 	 * tolerant of individual non-existent AVUs, and will trap those exceptions
 	 * and not throw them. <br/>
 	 * This method will return a collection of individual success or failure for
-	 * each AVU.
+	 * each AVU. The requests are pipelined, as for
+	 * {@link #addBulkAVUMetadataToCollection}.
 	 * 
 	 * @param absolutePath
 	 *            <code>String</code> with the absolute path for the collection
@@ -1,6 +1,8 @@
 package org.irods.jargon.core.pub;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.irods.jargon.core.exception.FileNotFoundException;
 import org.irods.jargon.core.exception.JargonException;
@@ -8,6 +10,7 @@ import org.irods.jargon.core.pub.domain.DataObject;
 import org.irods.jargon.core.pub.domain.IRODSDomainObject;
 import org.irods.jargon.core.pub.domain.ObjStat;
 import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
+import org.irods.jargon.core.query.CollectionChangeListing;
 import org.irods.jargon.core.query.PagingAwareCollectionListing;
 
 /**
@@ -513,6 +516,92 @@ public interface CollectionAndDataObjectListAndSearchAO extends
 	ObjStat retrieveObjectStatForPath(String irodsAbsolutePath)
 			throws FileNotFoundException, JargonException;
 
+	/**
+	 * Retrieve the <code>ObjStat</code> for a batch of collections and/or data
+	 * objects. This is equivalent to calling
+	 * {@link #retrieveObjectStatForPath(String)} for each path, but paths are
+	 * grouped by parent collection and resolved with a few GenQueries per
+	 * parent, which is much cheaper when checking the existence of many paths.
+	 * <p/>
+	 * Paths that live under special collections (e.g. soft links and mounted
+	 * collections) fall back to an rsObjStat call per path.
+	 * <p/>
+	 * Note that, unlike the single path version, a missing path does not cause
+	 * a <code>FileNotFoundException</code>, rather, that path will not be
+	 * present in the returned <code>Map</code>.
+	 * 
+	 * @param irodsAbsolutePaths
+	 *            <code>Collection<String></code> with absolute paths to iRODS
+	 *            collections or data objects.
+	 * @return <code>Map<String, ObjStat></code> keyed by the requested path,
+	 *         in the iteration order of the given paths, containing the
+	 *         {@link ObjStat} for each path that exists
+	 * @throws JargonException
+	 */
+	Map<String, ObjStat> retrieveObjectStatsForPaths(
+			Collection<String> irodsAbsolutePaths) throws JargonException;
+
+	/**
+	 * List the collections and data objects anywhere beneath the given parent
+	 * collection that have been created or modified since the given
+	 * watermark. This is an incremental, 'change feed' listing, suitable for
+	 * synchronization and tree comparison, that avoids walking the entire tree
+	 * on each pass.
+	 * <p/>
+	 * The watermark is an iRODS server time in milliseconds. To begin, use
+	 * <code>0</code> (to list everything), or a time obtained from
+	 * <code>EnvironmentalInfoAO.getIRODSServerCurrentTime()</code>. On later
+	 * calls, pass the value of
+	 * {@link CollectionChangeListing#getNewWatermark()} from the previous
+	 * listing. The iCAT keeps modify times to the second, and the comparison
+	 * is inclusive, so an entry modified in the same second as the watermark
+	 * will be listed again, and callers should tolerate repeats. The new
+	 * watermark is the server time before the listing began, so changes made
+	 * while the listing is paged through are listed again next time.
+	 * <p/>
+	 * The listing is returned a page at a time, of at most the
+	 * <code>JargonProperties.getMaxFilesAndDirsQueryMax()</code> rows. While
+	 * {@link CollectionChangeListing#isLastResult()} is <code>false</code>,
+	 * pass the listing to {@link #listMoreChangesUnderPathSince} for the next
+	 * page.
+	 * <p/>
+	 * Note that deletions are not reported, and that the contents of mounted
+	 * and structured file collections, which are not kept in the iCAT, are not
+	 * covered.
+	 *
+	 * @param absolutePathToParent
+	 *            <code>String</code> with the absolute path to an iRODS
+	 *            collection
+	 * @param sinceWatermark
+	 *            <code>long</code> with the iRODS time, in milliseconds, at or
+	 *            after which changes are listed
+	 * @return {@link CollectionChangeListing} with the first page of changed
+	 *         collections and data objects, and a new watermark
+	 * @throws FileNotFoundException
+	 *             if the parent collection does not exist
+	 * @throws JargonException
+	 */
+	CollectionChangeListing listChangesUnderPathSince(
+			String absolutePathToParent, long sinceWatermark)
+			throws FileNotFoundException, JargonException;
+
+	/**
+	 * List the next page of changes after a page returned by
+	 * {@link #listChangesUnderPathSince(String, long)} or by this method.
+	 *
+	 * @param previousListing
+	 *            {@link CollectionChangeListing} that is the previous page,
+	 *            which must not be the last
+	 * @return {@link CollectionChangeListing} with the next page of changed
+	 *         collections and data objects, and the same watermarks
+	 * @throws FileNotFoundException
+	 *             if the parent collection no longer exists
+	 * @throws JargonException
+	 */
+	CollectionChangeListing listMoreChangesUnderPathSince(
+			CollectionChangeListing previousListing)
+			throws FileNotFoundException, JargonException;
+
 	/**
 	 * Return the <code>CollectionAndDataObjectListingEntry</code> that is
 	 * associated with the given iRODS absolute path. This is equivalent to
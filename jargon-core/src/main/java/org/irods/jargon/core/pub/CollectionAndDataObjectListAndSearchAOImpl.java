@@ -1,7 +1,9 @@
 package org.irods.jargon.core.pub;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.connection.IRODSSession;
@@ -21,6 +23,7 @@ import org.irods.jargon.core.pub.io.IRODSFileSystemAOHelper;
 import org.irods.jargon.core.query.AbstractIRODSQueryResultSet;
 import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
 import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry.ObjectType;
+import org.irods.jargon.core.query.CollectionChangeListing;
 import org.irods.jargon.core.query.GenQueryBuilderException;
 import org.irods.jargon.core.query.GenQueryField.SelectFieldTypes;
 import org.irods.jargon.core.query.IRODSGenQueryBuilder;
@@ -1557,6 +1560,107 @@ public class CollectionAndDataObjectListAndSearchAOImpl extends IRODSGenericAO
 
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.pub.CollectionAndDataObjectListAndSearchAO#
+	 * retrieveObjectStatsForPaths(java.util.Collection)
+	 */
+	@Override
+	public Map<String, ObjStat> retrieveObjectStatsForPaths(
+			final Collection<String> irodsAbsolutePaths)
+			throws JargonException {
+
+		log.info("retrieveObjectStatsForPaths()");
+
+		if (irodsAbsolutePaths == null) {
+			throw new IllegalArgumentException("null irodsAbsolutePaths");
+		}
+
+		BulkObjStatUtils bulkObjStatUtils = new BulkObjStatUtils(this);
+		return bulkObjStatUtils.retrieveObjectStatsForPaths(irodsAbsolutePaths);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.core.pub.CollectionAndDataObjectListAndSearchAO#
+	 * listChangesUnderPathSince(java.lang.String, long)
+	 */
+	@Override
+	@FederationEnabled
+	public CollectionChangeListing listChangesUnderPathSince(
+			final String absolutePathToParent, final long sinceWatermark)
+			throws FileNotFoundException, JargonException {
+
+		log.info("listChangesUnderPathSince()");
+
+		if (absolutePathToParent == null || absolutePathToParent.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty absolutePathToParent");
+		}
+
+		if (sinceWatermark < 0) {
+			throw new IllegalArgumentException("negative sinceWatermark");
+		}
+
+		log.info("absolutePathToParent:{}", absolutePathToParent);
+		log.info("sinceWatermark:{}", sinceWatermark);
+
+		ObjStat objStat = retrieveObjectStatForPath(absolutePathToParent);
+
+		if (!objStat.isSomeTypeOfCollection()) {
+			log.error("path is not a collection:{}", absolutePathToParent);
+			throw new JargonException("path is not a collection");
+		}
+
+		CollectionListingUtils collectionListingUtils = new CollectionListingUtils(
+				this);
+		return collectionListingUtils.listChangesUnderPathSince(objStat,
+				sinceWatermark);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.pub.CollectionAndDataObjectListAndSearchAO#
+	 * listMoreChangesUnderPathSince
+	 * (org.irods.jargon.core.query.CollectionChangeListing)
+	 */
+	@Override
+	@FederationEnabled
+	public CollectionChangeListing listMoreChangesUnderPathSince(
+			final CollectionChangeListing previousListing)
+			throws FileNotFoundException, JargonException {
+
+		log.info("listMoreChangesUnderPathSince()");
+
+		if (previousListing == null) {
+			throw new IllegalArgumentException("null previousListing");
+		}
+
+		if (previousListing.isLastResult()) {
+			throw new IllegalArgumentException(
+					"previousListing is the last page of changes");
+		}
+
+		log.info("previousListing:{}", previousListing);
+
+		ObjStat objStat = retrieveObjectStatForPath(previousListing
+				.getAbsolutePathToParent());
+
+		if (!objStat.isSomeTypeOfCollection()) {
+			log.error("path is not a collection:{}",
+					previousListing.getAbsolutePathToParent());
+			throw new JargonException("path is not a collection");
+		}
+
+		CollectionListingUtils collectionListingUtils = new CollectionListingUtils(
+				this);
+		return collectionListingUtils.listMoreChangesUnderPathSince(objStat,
+				previousListing);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -1584,6 +1688,22 @@ public class CollectionAndDataObjectListAndSearchAOImpl extends IRODSGenericAO
 		}
 
 		log.debug("response from objStat: {}", response.parseTag());
+		return buildObjStatFromResponse(irodsAbsolutePath, response);
+	}
+
+	/**
+	 * Build the <code>ObjStat</code> of a path from the response to an
+	 * rsObjStat call
+	 * 
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> with the path that was stat'd
+	 * @param response
+	 *            {@link Tag} with the <code>RodsObjStat_PI</code>
+	 * @return {@link ObjStat}
+	 * @throws JargonException
+	 */
+	static ObjStat buildObjStatFromResponse(final String irodsAbsolutePath,
+			final Tag response) throws JargonException {
 
 		/**
 		 * For spec cols - soft link - phyPath = parent canonical dir -objPath =
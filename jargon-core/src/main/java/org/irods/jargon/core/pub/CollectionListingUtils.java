@@ -4,7 +4,9 @@
 package org.irods.jargon.core.pub;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.irods.jargon.core.exception.DataNotFoundException;
 import org.irods.jargon.core.exception.FileDriverError;
@@ -20,13 +22,16 @@ import org.irods.jargon.core.pub.domain.Zone;
 import org.irods.jargon.core.pub.io.IRODSFileSystemAOHelper;
 import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
 import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry.ObjectType;
+import org.irods.jargon.core.query.CollectionChangeListing;
 import org.irods.jargon.core.query.GenQueryBuilderException;
 import org.irods.jargon.core.query.IRODSGenQueryBuilder;
 import org.irods.jargon.core.query.IRODSGenQueryFromBuilder;
 import org.irods.jargon.core.query.IRODSQueryResultRow;
 import org.irods.jargon.core.query.IRODSQueryResultSet;
 import org.irods.jargon.core.query.JargonQueryException;
+import org.irods.jargon.core.query.QueryConditionOperators;
 import org.irods.jargon.core.query.QueryResultProcessingUtils;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
 import org.irods.jargon.core.utils.CollectionAndPath;
 import org.irods.jargon.core.utils.IRODSDataConversionUtil;
 import org.irods.jargon.core.utils.MiscIRODSUtils;
@@ -44,6 +49,13 @@ class CollectionListingUtils {
 	private final CollectionAndDataObjectListAndSearchAO collectionAndDataObjectListAndSearchAO;
 	public static final String QUERY_EXCEPTION_FOR_QUERY = "query exception for  query:";
 
+	/**
+	 * The queries of a change listing, in the order they are paged through
+	 */
+	private static final int CHANGE_QUERY_COLLECTIONS = 0;
+	private static final int CHANGE_QUERY_DATA_OBJECTS_IN_PARENT = 1;
+	private static final int CHANGE_QUERY_COUNT = 3;
+
 	public static final Logger log = LoggerFactory
 			.getLogger(CollectionIteratorAOImpl.class);
 
@@ -744,6 +756,271 @@ class CollectionListingUtils {
 		return files;
 	}
 
+	/**
+	 * List the first page of collections and data objects anywhere under the
+	 * collection described by the given objStat that were created or modified
+	 * at or after the given watermark. The new watermark is the iRODS server
+	 * time taken before the first query, so that anything changed while the
+	 * listing is paged through is listed again next time.
+	 *
+	 * @param objStat
+	 *            {@link ObjStat} for the parent collection
+	 * @param sinceWatermark
+	 *            <code>long</code> with the iRODS time in millis
+	 * @return {@link CollectionChangeListing}
+	 * @throws JargonException
+	 */
+	CollectionChangeListing listChangesUnderPathSince(final ObjStat objStat,
+			final long sinceWatermark) throws JargonException {
+
+		log.info("listChangesUnderPathSince()");
+
+		if (objStat == null) {
+			throw new IllegalArgumentException("null objStat");
+		}
+
+		long serverTime = collectionAndDataObjectListAndSearchAO
+				.getIRODSAccessObjectFactory()
+				.getEnvironmentalInfoAO(
+						collectionAndDataObjectListAndSearchAO
+								.getIRODSAccount()).getIRODSServerCurrentTime();
+		log.info("server time before listing:{}", serverTime);
+
+		CollectionChangeListing collectionChangeListing = new CollectionChangeListing();
+		collectionChangeListing.setAbsolutePathToParent(objStat
+				.getAbsolutePath());
+		collectionChangeListing.setSinceWatermark(sinceWatermark);
+		collectionChangeListing.setNewWatermark(Math.max(sinceWatermark,
+				serverTime));
+		return listChangesPage(objStat, collectionChangeListing);
+	}
+
+	/**
+	 * List the next page of changes after the given listing, with the same
+	 * watermarks
+	 *
+	 * @param objStat
+	 *            {@link ObjStat} for the parent collection
+	 * @param previousListing
+	 *            {@link CollectionChangeListing} that was the previous page
+	 * @return {@link CollectionChangeListing}
+	 * @throws JargonException
+	 */
+	CollectionChangeListing listMoreChangesUnderPathSince(
+			final ObjStat objStat,
+			final CollectionChangeListing previousListing)
+			throws JargonException {
+
+		log.info("listMoreChangesUnderPathSince()");
+
+		if (objStat == null) {
+			throw new IllegalArgumentException("null objStat");
+		}
+
+		if (previousListing == null) {
+			throw new IllegalArgumentException("null previousListing");
+		}
+
+		CollectionChangeListing collectionChangeListing = new CollectionChangeListing();
+		collectionChangeListing.setAbsolutePathToParent(previousListing
+				.getAbsolutePathToParent());
+		collectionChangeListing.setSinceWatermark(previousListing
+				.getSinceWatermark());
+		collectionChangeListing.setNewWatermark(previousListing
+				.getNewWatermark());
+		collectionChangeListing.setContinuationQuery(previousListing
+				.getContinuationQuery());
+		collectionChangeListing.setContinuationIndex(previousListing
+				.getContinuationIndex());
+		return listChangesPage(objStat, collectionChangeListing);
+	}
+
+	/**
+	 * Fill a page of changes, of at most the maximum query size in rows,
+	 * starting at the continuation of the given listing. The changes are found
+	 * with three queries, for the changed collections under the parent, the
+	 * changed data objects directly in the parent, and the changed data objects
+	 * in its descendants. Each page of each query is closed as soon as it is
+	 * read, so nothing is held open in iRODS between pages.
+	 */
+	private CollectionChangeListing listChangesPage(final ObjStat objStat,
+			final CollectionChangeListing collectionChangeListing)
+			throws JargonException {
+
+		String effectiveAbsolutePath = MiscIRODSUtils
+				.determineAbsolutePathBasedOnCollTypeInObjectStat(objStat);
+		log.info("determined effectiveAbsolutePathToBe:{}",
+				effectiveAbsolutePath);
+
+		String zone = MiscIRODSUtils.getZoneInPath(effectiveAbsolutePath);
+		boolean isRoot = effectiveAbsolutePath.equals("/");
+
+		StringBuilder sb = new StringBuilder();
+		sb.append(effectiveAbsolutePath);
+		if (!isRoot) {
+			sb.append('/');
+		}
+		String descendantPrefix = sb.toString();
+
+		// iCAT times are zero padded seconds, and compare as strings
+		String irodsWatermark = String.format("%011d",
+				collectionChangeListing.getSinceWatermark() / 1000);
+
+		IRODSGenQueryExecutor irodsGenQueryExecutor = collectionAndDataObjectListAndSearchAO
+				.getIRODSAccessObjectFactory().getIRODSGenQueryExecutor(
+						collectionAndDataObjectListAndSearchAO
+								.getIRODSAccount());
+		int pageSize = collectionAndDataObjectListAndSearchAO
+				.getJargonProperties().getMaxFilesAndDirsQueryMax();
+
+		/*
+		 * replicas produce a row per replica, so discard duplicates
+		 */
+		Set<String> pathsSeen = new HashSet<String>();
+		int changeQuery = collectionChangeListing.getContinuationQuery();
+		int index = collectionChangeListing.getContinuationIndex();
+		int rows = 0;
+
+		try {
+			while (changeQuery < CHANGE_QUERY_COUNT && rows < pageSize) {
+
+				/*
+				 * the root matches the like condition for descendants,
+				 * otherwise the direct children of the parent are queried
+				 * separately
+				 */
+				if (changeQuery == CHANGE_QUERY_DATA_OBJECTS_IN_PARENT
+						&& isRoot) {
+					changeQuery++;
+					index = 0;
+					continue;
+				}
+
+				boolean isCollection = changeQuery == CHANGE_QUERY_COLLECTIONS;
+				IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true,
+						false, true, null);
+
+				if (isCollection) {
+					CollectionAOHelper
+							.buildSelectsNeededForCollectionsInCollectionsAndDataObjectsListingEntry(builder);
+					builder.addConditionAsGenQueryField(
+							RodsGenQueryEnum.COL_COLL_NAME,
+							QueryConditionOperators.LIKE,
+							descendantPrefix + "%").addConditionAsGenQueryField(
+							RodsGenQueryEnum.COL_COLL_MODIFY_TIME,
+							QueryConditionOperators.GREATER_THAN_OR_EQUAL_TO,
+							irodsWatermark);
+				} else {
+					IRODSFileSystemAOHelper
+							.buildDataObjectQuerySelects(builder);
+					if (changeQuery == CHANGE_QUERY_DATA_OBJECTS_IN_PARENT) {
+						builder.addConditionAsGenQueryField(
+								RodsGenQueryEnum.COL_COLL_NAME,
+								QueryConditionOperators.EQUAL,
+								effectiveAbsolutePath);
+					} else {
+						builder.addConditionAsGenQueryField(
+								RodsGenQueryEnum.COL_COLL_NAME,
+								QueryConditionOperators.LIKE,
+								descendantPrefix + "%");
+					}
+					builder.addConditionAsGenQueryField(
+							RodsGenQueryEnum.COL_D_MODIFY_TIME,
+							QueryConditionOperators.GREATER_THAN_OR_EQUAL_TO,
+							irodsWatermark);
+				}
+
+				IRODSQueryResultSet resultSet = irodsGenQueryExecutor
+						.executeIRODSQueryAndCloseResultInZone(
+								builder.exportIRODSQueryFromBuilder(pageSize
+										- rows), index, zone);
+
+				for (IRODSQueryResultRow row : resultSet.getResults()) {
+					addChangedEntry(row, resultSet.getTotalRecords(),
+							effectiveAbsolutePath, descendantPrefix,
+							isCollection, pathsSeen, collectionChangeListing);
+				}
+
+				rows += resultSet.getResults().size();
+
+				if (resultSet.isHasMoreRecords()
+						&& !resultSet.getResults().isEmpty()) {
+					index += resultSet.getResults().size();
+				} else {
+					changeQuery++;
+					index = 0;
+				}
+			}
+
+		} catch (JargonQueryException e) {
+			log.error(QUERY_EXCEPTION_FOR_QUERY, e);
+			throw new JargonException(e);
+		} catch (GenQueryBuilderException e) {
+			log.error(QUERY_EXCEPTION_FOR_QUERY, e);
+			throw new JargonException(e);
+		}
+
+		collectionChangeListing.setContinuationQuery(changeQuery);
+		collectionChangeListing.setContinuationIndex(index);
+		collectionChangeListing.setLastResult(changeQuery >= CHANGE_QUERY_COUNT);
+
+		log.info("changes found:{}", collectionChangeListing);
+		return collectionChangeListing;
+	}
+
+	private void addChangedEntry(final IRODSQueryResultRow row,
+			final int totalRecords, final String effectiveAbsolutePath,
+			final String descendantPrefix, final boolean isCollection,
+			final Set<String> pathsSeen,
+			final CollectionChangeListing collectionChangeListing)
+			throws JargonException {
+
+		CollectionAndDataObjectListingEntry entry;
+		String collectionPath;
+
+		if (isCollection) {
+			entry = CollectionAOHelper
+					.buildCollectionListEntryFromResultSetRowForCollectionQuery(
+							row, totalRecords);
+			collectionPath = entry.getPathOrName();
+		} else {
+			entry = CollectionAOHelper
+					.buildCollectionListEntryFromResultSetRowForDataObjectQuery(
+							row, totalRecords);
+			collectionPath = entry.getParentPath();
+		}
+
+		/*
+		 * underscores in the like condition are wildcards, so check the
+		 * collection really is under the parent. As with other listings, the
+		 * root is discarded from collection results.
+		 */
+		if (isCollection) {
+			if (collectionPath.equals("/")
+					|| !collectionPath.startsWith(descendantPrefix)) {
+				return;
+			}
+		} else if (!collectionPath.equals(effectiveAbsolutePath)
+				&& !collectionPath.startsWith(descendantPrefix)) {
+			return;
+		}
+
+		if (!pathsSeen.add(entry.getFormattedAbsolutePath())) {
+			return;
+		}
+
+		collectionChangeListing.getCollectionAndDataObjectListingEntries().add(
+				entry);
+
+		if (isCollection) {
+			collectionChangeListing.setCollectionsCount(collectionChangeListing
+					.getCollectionsCount() + 1);
+		} else {
+			collectionChangeListing.setDataObjectsCount(collectionChangeListing
+					.getDataObjectsCount() + 1);
+		}
+	}
+
 	/**
 	 * Use the data in the objStat, in the case of special collections, to
 	 * augment the entry for a collection
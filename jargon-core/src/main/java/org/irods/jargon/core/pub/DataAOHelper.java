@@ -8,17 +8,21 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 import org.irods.jargon.core.checksum.AbstractChecksumComputeStrategy;
 import org.irods.jargon.core.checksum.ChecksumManager;
 import org.irods.jargon.core.checksum.ChecksumManagerImpl;
 import org.irods.jargon.core.checksum.ChecksumValue;
+import org.irods.jargon.core.checksum.StreamingChecksumDigester;
 import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
 import org.irods.jargon.core.connection.ConnectionProgressStatusListener;
 import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.FileIntegrityException;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.packinstr.DataObjInp;
 import org.irods.jargon.core.packinstr.OpenedDataObjInp;
@@ -280,6 +284,10 @@ public final class DataAOHelper extends AOHelper {
 	 * @param transferOptions
 	 * @param transferStatusCallbackListener
 	 * @param transferControlBlock
+	 * @param streamingChecksumDigester
+	 *            {@link StreamingChecksumDigester} that digests the data as it
+	 *            is written to the local file, or <code>null</code> if no
+	 *            checksum is computed during the transfer
 	 * @throws JargonException
 	 */
 	void processNormalGetTransfer(final File localFileToHoldData,
@@ -287,7 +295,8 @@ public final class DataAOHelper extends AOHelper {
 			final AbstractIRODSMidLevelProtocol irodsProtocol,
 			final TransferOptions transferOptions,
 			final TransferControlBlock transferControlBlock,
-			final TransferStatusCallbackListener transferStatusCallbackListener)
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final StreamingChecksumDigester streamingChecksumDigester)
 			throws JargonException {
 
 		log.info("normal file transfer started, get output stream for local destination file");
@@ -344,13 +353,23 @@ public final class DataAOHelper extends AOHelper {
 							transferStatusCallbackListener);
 		}
 
+		/*
+		 * the digest sits in front of the buffering, so it sees the bytes in
+		 * the large chunks read from iRODS
+		 */
+		OutputStream outputStream = localFileOutputStream;
+		if (streamingChecksumDigester != null) {
+			log.info("computing checksum during get");
+			outputStream = streamingChecksumDigester
+					.wrapOutputStream(localFileOutputStream);
+		}
+
 		// read the message byte stream into the local file
-		irodsProtocol.read(localFileOutputStream, length,
-				intraFileStatusListener);
+		irodsProtocol.read(outputStream, length, intraFileStatusListener);
 		log.info("transfer is complete");
 		try {
-			localFileOutputStream.flush();
-			localFileOutputStream.close();
+			outputStream.flush();
+			outputStream.close();
 		} catch (IOException e) {
 			log.error(
 					"IOException when trying to create a new file for the local output stream for {}",
@@ -424,6 +443,20 @@ public final class DataAOHelper extends AOHelper {
 			execFlag = true;
 		}
 
+		/*
+		 * A checksum computed during the transfer is not known until the data
+		 * is sent, so iRODS is asked for its checksum afterwards instead of
+		 * being given one with the put. This is only worth doing when
+		 * verifying, a checksum that is only computed is left to iRODS.
+		 */
+		StreamingChecksumDigester streamingChecksumDigester = null;
+		if (myTransferOptions.isComputeAndVerifyChecksumAfterTransfer()
+				&& myTransferOptions.isComputeChecksumDuringTransfer()) {
+			streamingChecksumDigester = instanceStreamingChecksumDigester();
+			myTransferOptions.setComputeChecksumAfterTransfer(false);
+			myTransferOptions.setComputeAndVerifyChecksumAfterTransfer(false);
+		}
+
 		DataObjInp dataObjInp = DataObjInp.instanceForNormalPutStrategy(
 				targetFile.getAbsolutePath(), localFile.length(),
 				targetFile.getResource(), overwrite, myTransferOptions,
@@ -431,18 +464,16 @@ public final class DataAOHelper extends AOHelper {
 
 		// see if checksum is required
 
-		if (myTransferOptions != null) {
-			if (myTransferOptions.isComputeAndVerifyChecksumAfterTransfer()
-					|| myTransferOptions.isComputeChecksumAfterTransfer()) {
-				log.info("computing a checksum on the file at:{}",
-						localFile.getAbsolutePath());
+		if (myTransferOptions.isComputeAndVerifyChecksumAfterTransfer()
+				|| myTransferOptions.isComputeChecksumAfterTransfer()) {
+			log.info("computing a checksum on the file at:{}",
+					localFile.getAbsolutePath());
 
-				ChecksumValue localFileChecksum = computeLocalFileChecksum(
-						localFile, null);
+			ChecksumValue localFileChecksum = computeLocalFileChecksum(
+					localFile, null);
 
-				log.info("local file checksum is:{}", localFileChecksum);
-				dataObjInp.setFileChecksumValue(localFileChecksum);
-			}
+			log.info("local file checksum is:{}", localFileChecksum);
+			dataObjInp.setFileChecksumValue(localFileChecksum);
 		}
 
 		ConnectionProgressStatusListener intraFileStatusListener = null;
@@ -474,9 +505,119 @@ public final class DataAOHelper extends AOHelper {
 					inputStreamBuffSize);
 		}
 
+		if (streamingChecksumDigester != null) {
+			log.info("computing checksum during put");
+			fileInputStream = streamingChecksumDigester
+					.wrapInputStream(fileInputStream);
+		}
+
 		irodsProtocol.irodsFunctionIncludingAllDataInStream(dataObjInp,
 				localFile.length(), fileInputStream, intraFileStatusListener);
 
+		if (streamingChecksumDigester != null) {
+			checkChecksumAfterPut(localFile, targetFile,
+					streamingChecksumDigester.getChecksumValue());
+		}
+
+	}
+
+	/**
+	 * Create a digester that computes the checksum of a transfer as the data
+	 * passes through, using the checksum type of the target server
+	 * 
+	 * @return {@link StreamingChecksumDigester}
+	 * @throws JargonException
+	 */
+	StreamingChecksumDigester instanceStreamingChecksumDigester()
+			throws JargonException {
+		ChecksumEncodingEnum checksumEncoding = checksumManager
+				.determineChecksumEncodingForTargetServer();
+		log.info("checksum during transfer using:{}", checksumEncoding);
+		return StreamingChecksumDigester.instance(checksumEncoding);
+	}
+
+	/**
+	 * Create a task that computes the checksum of a local file, so that it can
+	 * run on another thread while the file is transferred. The checksum type
+	 * is determined here, on the calling thread, as that may need the iRODS
+	 * connection.
+	 * 
+	 * @param localFile
+	 *            <code>File</code> to checksum
+	 * @return <code>Callable</code> that returns the {@link ChecksumValue}
+	 * @throws JargonException
+	 */
+	Callable<ChecksumValue> localFileChecksumTask(final File localFile)
+			throws JargonException {
+
+		if (localFile == null) {
+			throw new IllegalArgumentException("null localFile");
+		}
+
+		ChecksumEncodingEnum checksumEncoding = checksumManager
+				.determineChecksumEncodingForTargetServer();
+		log.info("local checksum during transfer using:{}", checksumEncoding);
+		final AbstractChecksumComputeStrategy strategy = irodsAccessObjectFactory
+				.getIrodsSession().getLocalChecksumComputerFactory()
+				.instance(checksumEncoding);
+
+		return new Callable<ChecksumValue>() {
+			@Override
+			public ChecksumValue call() throws JargonException {
+				try {
+					return strategy.instanceChecksumForPackingInstruction(localFile
+							.getAbsolutePath());
+				} catch (FileNotFoundException e) {
+					log.error("cannot find file for computing local checksum",
+							e);
+					throw new JargonException(
+							"cannot find local file to do the checksum", e);
+				}
+			}
+		};
+	}
+
+	/**
+	 * After a put where the local checksum was computed during the transfer,
+	 * have iRODS compute and store the checksum of the new data object, and
+	 * compare the two.
+	 * 
+	 * @param localFile
+	 *            <code>File</code> that was put, read again only if iRODS
+	 *            uses a different checksum type
+	 * @param targetFile
+	 *            {@link IRODSFile} that was the target of the put
+	 * @param localChecksum
+	 *            {@link ChecksumValue} of the data that was sent
+	 * @throws FileIntegrityException
+	 *             if the checksums differ
+	 * @throws JargonException
+	 */
+	void checkChecksumAfterPut(final File localFile,
+			final IRODSFile targetFile, final ChecksumValue localChecksum)
+			throws JargonException {
+
+		log.info("checkChecksumAfterPut()");
+
+		ChecksumValue irodsChecksum = irodsAccessObjectFactory
+				.getDataObjectAO(irodsAccount).computeChecksumOnDataObject(
+						targetFile);
+		log.info("irods checksum:{}", irodsChecksum);
+		log.info("local checksum:{}", localChecksum);
+
+		ChecksumValue comparableChecksum = localChecksum;
+		if (irodsChecksum.getChecksumEncoding() != localChecksum
+				.getChecksumEncoding()) {
+			log.info("irods used a different checksum type, recompute the local checksum");
+			comparableChecksum = computeLocalFileChecksum(localFile,
+					irodsChecksum.getChecksumEncoding());
+		}
+
+		if (!irodsChecksum.getChecksumStringValue().equals(
+				comparableChecksum.getChecksumStringValue())) {
+			throw new FileIntegrityException(
+					"checksum verification after put fails");
+		}
 	}
 
 	/**
@@ -1091,6 +1091,10 @@ public interface DataObjectAO extends FileCatalogObjectAO {
 	 * be returned giving individual success/failure information. For example,
 	 * an attempt to add a duplicate AVU will result in an error entry in the
 	 * response versus a thrown exception.
+	 * <p/>
+	 * The requests for all of the AVUs are pipelined, as set by the
+	 * <code>bulk.avu.pipeline.depth</code> jargon property, rather than
+	 * waiting for each to complete before sending the next.
 	 * 
 	 * @param absolutePath
 	 *            <code>String</code> with the absolute path to the data object
@@ -1109,7 +1113,8 @@ public interface DataObjectAO extends FileCatalogObjectAO {
 	/**
 	 * Given a list of avu metadata, delete all from the data object. A response
 	 * will be returned giving individual success/failure information. Note that
-	 * a delete of a non-existent AVU will be silently ignored
+	 * a delete of a non-existent AVU will be silently ignored. The requests
+	 * are pipelined, as for {@link #addBulkAVUMetadataToDataObject}.
 	 * 
 	 * @param absolutePath
 	 *            <code>String</code> with the absolute path to the data object
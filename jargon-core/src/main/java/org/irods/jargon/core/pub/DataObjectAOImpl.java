@@ -1,6 +1,5 @@
 package org.irods.jargon.core.pub;
 
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -8,8 +7,14 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.irods.jargon.core.checksum.ChecksumValue;
+import org.irods.jargon.core.checksum.StreamingChecksumDigester;
 import org.irods.jargon.core.connection.ConnectionConstants;
 import org.irods.jargon.core.connection.ConnectionProgressStatus;
 import org.irods.jargon.core.connection.ConnectionProgressStatusListener;
@@ -34,7 +39,6 @@ import org.irods.jargon.core.packinstr.TransferOptions;
 import org.irods.jargon.core.packinstr.TransferOptions.ForceOption;
 import org.irods.jargon.core.protovalues.FilePermissionEnum;
 import org.irods.jargon.core.protovalues.UserTypeEnum;
-import org.irods.jargon.core.pub.BulkAVUOperationResponse.ResultStatus;
 import org.irods.jargon.core.pub.RuleProcessingAO.RuleProcessingType;
 import org.irods.jargon.core.pub.domain.AvuData;
 import org.irods.jargon.core.pub.domain.DataObject;
@@ -645,6 +649,9 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 			} catch (FileRestartManagementException e) {
 				log.error("transfer and restart failed", e);
 				throw e;
+			} catch (FileIntegrityException e) {
+				log.error("checksum verification failed", e);
+				throw e;
 			} catch (JargonException je) {
 				log.info("attempting a restart after exception", je);
 				fileRestartInfo = retrieveRestartInfoIfAvailable(
@@ -847,6 +854,21 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 			execFlag = true;
 		}
 
+		/*
+		 * The parallel threads send ranges of the file out of order, so the
+		 * checksum cannot be computed from the transferred bytes. Instead the
+		 * local file is checksummed on another thread while the transfer runs,
+		 * reading data the transfer threads have brought into the page cache,
+		 * and iRODS is asked for its checksum afterwards.
+		 */
+		boolean checksumDuringTransfer = myTransferOptions
+				.isComputeAndVerifyChecksumAfterTransfer()
+				&& myTransferOptions.isComputeChecksumDuringTransfer();
+		if (checksumDuringTransfer) {
+			myTransferOptions.setComputeChecksumAfterTransfer(false);
+			myTransferOptions.setComputeAndVerifyChecksumAfterTransfer(false);
+		}
+
 		/*
 		 * If specified by options, and with a call-back listener registered,
 		 * create an object to aggregate and channel within-file progress
@@ -858,9 +880,27 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 				targetFile.getResource(), overwrite, myTransferOptions,
 				execFlag);
 
+		ExecutorService checksumExecutor = null;
+		Future<ChecksumValue> localChecksumDuringTransfer = null;
+
 		try {
 
-			if (myTransferOptions.isComputeAndVerifyChecksumAfterTransfer()
+			if (checksumDuringTransfer) {
+				checksumExecutor = Executors
+						.newSingleThreadExecutor(new ThreadFactory() {
+							@Override
+							public Thread newThread(final Runnable runnable) {
+								Thread thread = new Thread(runnable,
+										"put-checksum");
+								thread.setDaemon(true);
+								return thread;
+							}
+						});
+				localChecksumDuringTransfer = checksumExecutor
+						.submit(dataAOHelper
+								.localFileChecksumTask(localFile));
+			} else if (myTransferOptions
+					.isComputeAndVerifyChecksumAfterTransfer()
 					|| myTransferOptions.isComputeChecksumAfterTransfer()) {
 				log.info(
 						"before generating parallel transfer threads, computing a checksum on the file at:{}",
@@ -911,8 +951,18 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 						intraFileStatusListener);
 			}
 
+			if (localChecksumDuringTransfer != null) {
+				dataAOHelper.checkChecksumAfterPut(localFile, targetFile,
+						localChecksumDuringTransfer.get());
+			}
+
 		} catch (DataNotFoundException dnf) {
 			log.warn("send of put returned no data found from irods, currently is ignored and null is returned from put operation");
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof JargonException) {
+				throw (JargonException) e.getCause();
+			}
+			throw new JargonException(ERROR_IN_PARALLEL_TRANSFER, e);
 		} catch (JargonException je) {
 			if (je.getMessage().indexOf("-312000") > -1) {
 				log.error("attempted put of file that exists in irods without overwrite");
@@ -925,6 +975,10 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 		} catch (Exception e) {
 			log.error(ERROR_IN_PARALLEL_TRANSFER, e);
 			throw new JargonException(ERROR_IN_PARALLEL_TRANSFER, e);
+		} finally {
+			if (checksumExecutor != null) {
+				checksumExecutor.shutdownNow();
+			}
 		}
 	}
 
@@ -1465,6 +1519,18 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 		}
 
 		LocalFileUtils.createLocalFileIfNotExists(localFileToHoldData);
+
+		/*
+		 * Set up before the get is sent, as the checksum type may need to be
+		 * asked of iRODS, and the connection is busy once data is flowing
+		 */
+		StreamingChecksumDigester streamingChecksumDigester = null;
+		if (thisFileTransferOptions.isComputeAndVerifyChecksumAfterTransfer()
+				&& thisFileTransferOptions.isComputeChecksumDuringTransfer()) {
+			streamingChecksumDigester = dataAOHelper
+					.instanceStreamingChecksumDigester();
+		}
+
 		Tag message;
 		try {
 			message = getIRODSProtocol().irodsFunction(dataObjInp);
@@ -1517,6 +1583,7 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 
 		// if length == zero, check for multiple thread copy, may still process
 		// as a standard txfr if 0 threads specified
+		StreamingChecksumDigester checksumDigestedDuringGet = null;
 		try {
 			if (lengthFromIrodsResponse == 0) {
 				try {
@@ -1557,10 +1624,12 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 					throw e;
 				}
 			} else {
+				checksumDigestedDuringGet = streamingChecksumDigester;
 				dataAOHelper.processNormalGetTransfer(localFileToHoldData,
 						lengthFromIrodsResponse, getIRODSProtocol(),
 						thisFileTransferOptions, transferControlBlock,
-						transferStatusCallbackListener);
+						transferStatusCallbackListener,
+						checksumDigestedDuringGet);
 			}
 
 			/*
@@ -1591,12 +1660,21 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 
 				ChecksumValue irodsChecksum = computeChecksumOnDataObject(irodsFileToGet);
 
-				log.info("computing a checksum on the file at:{}",
-						localFileToHoldData.getAbsolutePath());
+				ChecksumValue localFileChecksum;
+				if (checksumDigestedDuringGet != null
+						&& checksumDigestedDuringGet.getChecksumEncoding() == irodsChecksum
+								.getChecksumEncoding()) {
+					log.info("using the checksum computed during the get");
+					localFileChecksum = checksumDigestedDuringGet
+							.getChecksumValue();
+				} else {
+					log.info("computing a checksum on the file at:{}",
+							localFileToHoldData.getAbsolutePath());
 
-				ChecksumValue localFileChecksum = dataAOHelper
-						.computeLocalFileChecksum(localFileToHoldData,
-								irodsChecksum.getChecksumEncoding());
+					localFileChecksum = dataAOHelper.computeLocalFileChecksum(
+							localFileToHoldData,
+							irodsChecksum.getChecksumEncoding());
+				}
 
 				log.info("local file checksum is:{}", localFileChecksum);
 				log.info("irods checksum:{}", irodsChecksum);
@@ -1977,34 +2055,23 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 			throw new IllegalArgumentException("null or empty avuData");
 		}
 
-		List<BulkAVUOperationResponse> responses = new ArrayList<BulkAVUOperationResponse>();
+		List<ModAvuMetadataInp> requests = new ArrayList<ModAvuMetadataInp>(
+				avuData.size());
+		String absPath;
+		try {
+			absPath = resolveBulkAVUTargetPath(absolutePath);
+		} catch (FileNotFoundException fnf) {
+			log.error("target of bulk AVU add not found:{}", absolutePath);
+			return buildMissingTargetResponses(avuData, fnf.getMessage());
+		}
 
 		for (AvuData value : avuData) {
-			try {
-				addAVUMetadata(absolutePath, value);
-			} catch (DataNotFoundException dnf) {
-				log.error(
-						"dataNotFoundException when adding an AVU, catch and add to response data",
-						dnf);
-				responses.add(BulkAVUOperationResponse.instance(
-						ResultStatus.MISSING_METADATA_TARGET, value,
-						dnf.getMessage()));
-				continue;
-			} catch (DuplicateDataException dde) {
-				log.error(
-						"DuplicateDataException when adding an AVU, catch and add to response data",
-						dde);
-				responses.add(BulkAVUOperationResponse.instance(
-						ResultStatus.DUPLICATE_AVU, value, dde.getMessage()));
-				continue;
-
-			}
-
-			log.info("treat as success...", value);
-			responses.add(BulkAVUOperationResponse.instance(ResultStatus.OK,
-					value, ""));
+			requests.add(ModAvuMetadataInp.instanceForAddDataObjectMetadata(
+					absPath, value));
 		}
 
+		List<BulkAVUOperationResponse> responses = sendBulkAVURequests(
+				avuData, requests);
 		log.info("...complete");
 		return responses;
 	}
@@ -2023,35 +2090,56 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 
 		log.info("deleteBulkAVUMetadataFromDataObject()");
 
+		if (absolutePath == null || absolutePath.isEmpty()) {
+			throw new IllegalArgumentException("null or empty absolute path");
+		}
+
 		if (avuData == null || avuData.isEmpty()) {
 			throw new IllegalArgumentException("null or empty avuData");
 		}
 
-		List<BulkAVUOperationResponse> responses = new ArrayList<BulkAVUOperationResponse>();
+		List<ModAvuMetadataInp> requests = new ArrayList<ModAvuMetadataInp>(
+				avuData.size());
+		String absPath;
+		try {
+			absPath = resolveBulkAVUTargetPath(absolutePath);
+		} catch (FileNotFoundException fnf) {
+			log.error("target of bulk AVU delete not found:{}", absolutePath);
+			return buildMissingTargetResponses(avuData, fnf.getMessage());
+		}
 
 		for (AvuData value : avuData) {
-			try {
-				deleteAVUMetadata(absolutePath, value);
-			} catch (DataNotFoundException dnf) {
-				log.error(
-						"dataNotFoundException when deleti an AVU, catch and add to response data",
-						dnf);
-				responses.add(BulkAVUOperationResponse.instance(
-						ResultStatus.MISSING_METADATA_TARGET, value,
-						dnf.getMessage()));
-				continue;
-
-			}
-
-			log.info("treat as success...", value);
-			responses.add(BulkAVUOperationResponse.instance(ResultStatus.OK,
-					value, ""));
+			requests.add(ModAvuMetadataInp
+					.instanceForDeleteDataObjectMetadata(absPath, value));
 		}
 
+		List<BulkAVUOperationResponse> responses = sendBulkAVURequests(
+				avuData, requests);
 		log.info("...complete");
 		return responses;
 	}
 
+	/**
+	 * Stat the target of a bulk AVU operation once, resolving soft links, so
+	 * that the AVU requests may be sent without a stat per AVU
+	 */
+	private String resolveBulkAVUTargetPath(final String absolutePath)
+			throws FileNotFoundException, JargonException {
+
+		MiscIRODSUtils.checkPathSizeForMax(absolutePath);
+		ObjStat objStat = this.retrieveObjStat(absolutePath);
+
+		if (objStat.getSpecColType() == SpecColType.MOUNTED_COLL) {
+			log.info(
+					"objStat indicates collection type that does not support this operation:{}",
+					objStat);
+			throw new OperationNotSupportedForCollectionTypeException(
+					"The special collection type does not support this operation");
+		}
+
+		return resolveAbsolutePathGivenObjStat(objStat);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -4614,8 +4702,12 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 		log.info("irodsAbsolutePath:{}", irodsAbsolutePath);
 
 		log.info("get input stream and read to compute sha1");
-		InputStream is = new BufferedInputStream(getIRODSFileFactory()
-				.instanceIRODSFileInputStream(irodsAbsolutePath));
+		/*
+		 * each read of the iRODS stream is a round trip, so read in large
+		 * blocks rather than through a small buffer
+		 */
+		InputStream is = getIRODSFileFactory().instanceIRODSFileInputStream(
+				irodsAbsolutePath);
 		MessageDigest md;
 		try {
 			md = MessageDigest.getInstance("SHA1");
@@ -4624,7 +4716,8 @@ public final class DataObjectAOImpl extends FileCatalogObjectAOImpl implements
 			throw new JargonException("cannot commute SHA1 checksum", e);
 		}
 
-		byte[] dataBytes = new byte[1024];
+		byte[] dataBytes = new byte[Math.max(8192, getJargonProperties()
+				.getGetBufferSize())];
 
 		int nread = 0;
 
@@ -20,6 +20,7 @@ import org.irods.jargon.core.transfer.TransferStatus;
 import org.irods.jargon.core.transfer.TransferStatus.TransferState;
 import org.irods.jargon.core.transfer.TransferStatus.TransferType;
 import org.irods.jargon.core.transfer.TransferStatusCallbackListener;
+import org.irods.jargon.core.transfer.TransferTelemetry;
 import org.irods.jargon.core.utils.LocalFileUtils;
 import org.irods.jargon.core.utils.MiscIRODSUtils;
 import org.slf4j.Logger;
@@ -512,7 +513,8 @@ public final class DataTransferOperationsImpl extends IRODSGenericAO implements
 										.getTotalFilesToTransfer(),
 								TransferState.OVERALL_COMPLETION,
 								getIRODSAccount().getHost(), getIRODSAccount()
-										.getZone());
+										.getZone(), TransferTelemetry
+										.snapshotOf(operativeTransferControlBlock));
 
 				transferStatusCallbackListener.overallStatusCallback(status);
 			}
@@ -551,7 +553,8 @@ public final class DataTransferOperationsImpl extends IRODSGenericAO implements
 										.getTotalFilesToTransfer(),
 								TransferState.OVERALL_COMPLETION,
 								getIRODSAccount().getHost(), getIRODSAccount()
-										.getZone());
+										.getZone(), TransferTelemetry
+										.snapshotOf(operativeTransferControlBlock));
 
 				transferStatusCallbackListener.overallStatusCallback(status);
 			}
@@ -968,7 +971,8 @@ public final class DataTransferOperationsImpl extends IRODSGenericAO implements
 										.getTotalFilesToTransfer(),
 								TransferState.OVERALL_COMPLETION,
 								getIRODSAccount().getHost(), getIRODSAccount()
-										.getZone());
+										.getZone(), TransferTelemetry
+										.snapshotOf(operativeTransferControlBlock));
 				transferStatusCallbackListener.overallStatusCallback(status);
 
 			}
@@ -1270,7 +1274,8 @@ public final class DataTransferOperationsImpl extends IRODSGenericAO implements
 						transferControlBlock.getTotalFilesSkippedSoFar(),
 						transferControlBlock.getTotalFilesToTransfer(),
 						TransferState.OVERALL_COMPLETION, getIRODSAccount()
-								.getHost(), getIRODSAccount().getZone());
+								.getHost(), getIRODSAccount().getZone(),
+						TransferTelemetry.snapshotOf(transferControlBlock));
 				transferStatusCallbackListener.overallStatusCallback(status);
 			}
 		}
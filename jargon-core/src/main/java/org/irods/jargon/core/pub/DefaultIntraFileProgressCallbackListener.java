@@ -10,6 +10,10 @@ import org.irods.jargon.core.transfer.TransferControlBlock;
 import org.irods.jargon.core.transfer.TransferStatus;
 import org.irods.jargon.core.transfer.TransferStatus.TransferType;
 import org.irods.jargon.core.transfer.TransferStatusCallbackListener;
+import org.irods.jargon.core.transfer.TransferTelemetry;
+import org.irods.jargon.core.transfer.TransferTelemetrySnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Implementation of a listener for intra-file status call-backs. This object
@@ -22,12 +26,23 @@ import org.irods.jargon.core.transfer.TransferStatusCallbackListener;
  * minimum. Note that this is an initial implementation, and further
  * configuration and optimization strategies may be employed later. In other
  * words, this object may change.
+ * <p/>
+ * The bytes reported by each stream are recorded in the
+ * {@link TransferTelemetry} of the transfer control block, if it keeps any, and
+ * the intra-file status call-backs carry a snapshot of the telemetry. This
+ * listener is the {@link TransferTelemetry.StallListener} of the telemetry,
+ * and when the stall watch finds streams that have moved nothing for the stall
+ * threshold in the transfer options, an overall status call-back is made in
+ * the <code>STALLED</code> state.
  * 
  * @author Mike Conway - DICE (www.irods.org)
  * 
  */
 public class DefaultIntraFileProgressCallbackListener implements
-		ConnectionProgressStatusListener {
+		ConnectionProgressStatusListener, TransferTelemetry.StallListener {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(DefaultIntraFileProgressCallbackListener.class);
 
 	private final TransferStatusCallbackListener transferStatusCallbackListener;
 	private final TransferType transferType;
@@ -35,6 +50,7 @@ public class DefaultIntraFileProgressCallbackListener implements
 	private long totalBytesTransferred;
 	private final int interval;
 	private final TransferOptions transferOptions;
+	private final TransferTelemetry transferTelemetry;
 
 	private int countOfMessagesSinceLastSend = 0;
 	private long countOfBytesSinceLastSend = 0L;
@@ -148,6 +164,8 @@ public class DefaultIntraFileProgressCallbackListener implements
 		this.transferType = transferType;
 		this.totalBytesToTransfer = totalBytesToTransfer;
 		this.interval = interval;
+		transferTelemetry = TransferTelemetry
+				.forTransferControlBlock(transferControlBlock);
 
 		if (transferOptions == null) {
 			this.transferOptions = new TransferOptions();
@@ -158,6 +176,22 @@ public class DefaultIntraFileProgressCallbackListener implements
 		} else {
 			this.transferOptions = transferOptions;
 		}
+
+		if (transferTelemetry != null) {
+			/*
+			 * the stall threshold comes from the given options, or else from
+			 * the options of the transfer, rather than from the defaults
+			 */
+			TransferOptions stallOptions = transferOptions;
+			if (stallOptions == null) {
+				stallOptions = transferControlBlock.getTransferOptions();
+			}
+			if (stallOptions != null) {
+				transferTelemetry.setStallThresholdMillis(stallOptions
+						.getStallThresholdMillis());
+			}
+			transferTelemetry.setStallListener(this);
+		}
 	}
 
 	/*
@@ -187,6 +221,11 @@ public class DefaultIntraFileProgressCallbackListener implements
 		countOfMessagesSinceLastSend++;
 		countOfBytesSinceLastSend += connectionProgressStatus.getByteCount();
 		totalBytesTransferred += connectionProgressStatus.getByteCount();
+		if (transferTelemetry != null) {
+			transferTelemetry.recordBytes(
+					connectionProgressStatus.getStreamNumber(),
+					connectionProgressStatus.getByteCount());
+		}
 
 		/*
 		 * at this point transfer options guaranteed to not be null, it should
@@ -200,7 +239,8 @@ public class DefaultIntraFileProgressCallbackListener implements
 			try {
 				TransferStatus transferStatus = TransferStatus
 						.instanceForIntraFileStatus(transferType,
-								totalBytesToTransfer, totalBytesTransferred);
+								totalBytesToTransfer, totalBytesTransferred,
+								snapshot());
 				transferStatusCallbackListener.statusCallback(transferStatus);
 				countOfMessagesSinceLastSend = 0;
 				countOfBytesSinceLastSend = 0;
@@ -211,6 +251,33 @@ public class DefaultIntraFileProgressCallbackListener implements
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.transfer.TransferTelemetry.StallListener#streamsStalled
+	 * (org.irods.jargon.core.transfer.TransferTelemetrySnapshot)
+	 */
+	@Override
+	public synchronized void streamsStalled(
+			final TransferTelemetrySnapshot snapshot) {
+		try {
+			transferStatusCallbackListener
+					.overallStatusCallback(TransferStatus.instanceForStall(
+							transferType, totalBytesToTransfer,
+							totalBytesTransferred, snapshot));
+		} catch (JargonException e) {
+			log.error("error sending stall status callback, ignored", e);
+		}
+	}
+
+	private TransferTelemetrySnapshot snapshot() {
+		if (transferTelemetry == null) {
+			return null;
+		}
+		return transferTelemetry.snapshot();
+	}
+
 	/**
 	 * @return the transferOptions
 	 */
@@ -266,10 +333,14 @@ public class DefaultIntraFileProgressCallbackListener implements
 	public void finalConnectionProgressStatusCallback(
 			ConnectionProgressStatus connectionProgressStatus) {
 		try {
+			if (transferTelemetry != null) {
+				transferTelemetry.streamFinished(connectionProgressStatus
+						.getStreamNumber());
+			}
 			TransferStatus transferStatus = TransferStatus
 					.instanceForIntraFileStatus(this.transferType,
 							this.totalBytesToTransfer,
-							this.totalBytesToTransfer);
+							this.totalBytesToTransfer, snapshot());
 			transferStatusCallbackListener.statusCallback(transferStatus);
 		} catch (JargonException e) {
 			throw new JargonRuntimeException("error sending status callback", e);
@@ -3,6 +3,7 @@
  */
 package org.irods.jargon.core.pub;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.irods.jargon.core.connection.IRODSAccount;
@@ -10,7 +11,10 @@ import org.irods.jargon.core.connection.IRODSSession;
 import org.irods.jargon.core.exception.FileNotFoundException;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.packinstr.DataObjInp;
+import org.irods.jargon.core.packinstr.ModAvuMetadataInp;
 import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.pub.BulkAVUOperationResponse.ResultStatus;
+import org.irods.jargon.core.pub.domain.AvuData;
 import org.irods.jargon.core.pub.domain.ObjStat;
 import org.irods.jargon.core.pub.domain.Resource;
 import org.irods.jargon.core.pub.domain.UserFilePermission;
@@ -301,6 +305,75 @@ public abstract class FileCatalogObjectAOImpl extends IRODSGenericAO implements
 
 	}
 
+	/**
+	 * Send AVU add or delete requests as a pipeline, so that the cost of a
+	 * large batch is not one network round trip per AVU, and map the result of
+	 * each request to a {@link BulkAVUOperationResponse}. The depth of the
+	 * pipeline is the <code>bulk.avu.pipeline.depth</code> jargon property.
+	 * 
+	 * @param avuData
+	 *            <code>List</code> of {@link AvuData}, one per request
+	 * @param requests
+	 *            <code>List</code> of {@link ModAvuMetadataInp}, in the same
+	 *            order as the <code>avuData</code>
+	 * @return <code>List</code> of {@link BulkAVUOperationResponse}, one per
+	 *         request, in order
+	 * @throws JargonException
+	 *             if the connection fails
+	 */
+	protected List<BulkAVUOperationResponse> sendBulkAVURequests(
+			final List<AvuData> avuData, final List<ModAvuMetadataInp> requests)
+			throws JargonException {
+
+		if (avuData.size() != requests.size()) {
+			throw new IllegalArgumentException(
+					"avuData and requests differ in size");
+		}
+
+		log.info("sending {} AVU requests", requests.size());
+
+		List<JargonException> errors = getIRODSProtocol()
+				.irodsFunctionPipelined(requests,
+						getJargonProperties().getBulkAVUPipelineDepth());
+
+		List<BulkAVUOperationResponse> responses = new ArrayList<BulkAVUOperationResponse>(
+				requests.size());
+
+		for (int i = 0; i < requests.size(); i++) {
+			JargonException error = errors.get(i);
+			AvuData value = avuData.get(i);
+			if (error == null) {
+				responses.add(BulkAVUOperationResponse.instance(
+						ResultStatus.OK, value, ""));
+				continue;
+			}
+
+			String message = error.getMessage() == null ? "" : error
+					.getMessage();
+			log.warn("AVU request failed for {}:{}", value, message);
+			responses.add(BulkAVUOperationResponse.instance(
+					BulkAVUOperationResponse.resultStatusForError(error),
+					value, message));
+		}
+
+		return responses;
+	}
+
+	/**
+	 * Build the responses for a bulk AVU operation whose target was not found
+	 */
+	protected List<BulkAVUOperationResponse> buildMissingTargetResponses(
+			final List<AvuData> avuData, final String message) {
+		List<BulkAVUOperationResponse> responses = new ArrayList<BulkAVUOperationResponse>(
+				avuData.size());
+		for (AvuData value : avuData) {
+			responses.add(BulkAVUOperationResponse.instance(
+					ResultStatus.MISSING_METADATA_TARGET, value,
+					message == null ? "" : message));
+		}
+		return responses;
+	}
+
 	@Override
 	public abstract boolean isUserHasAccess(final String irodsAbsolutePath,
 			final String userName) throws JargonException;
@@ -10,6 +10,7 @@ import org.irods.jargon.core.exception.AuthenticationException;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.packinstr.TransferOptions;
 import org.irods.jargon.core.pub.io.IRODSFileFactory;
+import org.irods.jargon.core.query.GenQueryResultCache;
 import org.irods.jargon.core.transfer.TransferControlBlock;
 
 /**
@@ -420,6 +421,19 @@ public interface IRODSAccessObjectFactory {
 	ProtocolExtensionPoint getProtocolExtensionPoint(IRODSAccount irodsAccount)
 			throws JargonException;
 
+	/**
+	 * Get an AO like {@link #getProtocolExtensionPoint(IRODSAccount)} that can
+	 * also pipeline a series of packing instructions.
+	 * 
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} that describes the connection to iRODS.
+	 * @return {@link PipelinedProtocolExtensionPoint} that may be used to
+	 *         communicate with iRODS using packing instructions.
+	 * @throws JargonException
+	 */
+	PipelinedProtocolExtensionPoint getPipelinedProtocolExtensionPoint(
+			IRODSAccount irodsAccount) throws JargonException;
+
 	/**
 	 * Get the properties of the iRODS server described by the provided
 	 * <code>IRODSAccount</code>
@@ -523,4 +537,14 @@ public interface IRODSAccessObjectFactory {
 	DataObjectChecksumUtilitiesAO getDataObjectChecksumUtilitiesAO(
 			IRODSAccount irodsAccount) throws JargonException;
 
-}
\ No newline at end of file
+	/**
+	 * Get the cache of GenQuery results shared by the session. This cache is
+	 * consulted by the <code>IRODSGenQueryExecutor</code> when the
+	 * <code>use.genquery.result.cache</code> property is set, and may be used
+	 * to tune time to live by region, or to review cache statistics.
+	 * 
+	 * @return {@link GenQueryResultCache}
+	 */
+	GenQueryResultCache getGenQueryResultCache();
+
+}
@@ -11,6 +11,7 @@ import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.packinstr.TransferOptions;
 import org.irods.jargon.core.pub.io.IRODSFileFactory;
 import org.irods.jargon.core.pub.io.IRODSFileFactoryImpl;
+import org.irods.jargon.core.query.GenQueryResultCache;
 import org.irods.jargon.core.transfer.TransferControlBlock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -269,7 +270,16 @@ public final class IRODSAccessObjectFactoryImpl implements
 	public IRODSGenQueryExecutor getIRODSGenQueryExecutor(
 			final IRODSAccount irodsAccount) throws JargonException {
 		checkIrodsSessionSet();
-		return new IRODSGenQueryExecutorImpl(irodsSession, irodsAccount);
+		IRODSGenQueryExecutor irodsGenQueryExecutor = new IRODSGenQueryExecutorImpl(
+				irodsSession, irodsAccount);
+
+		if (irodsSession.isUsingGenQueryResultCache()) {
+			return new CachingIRODSGenQueryExecutorImpl(irodsSession,
+					irodsAccount, irodsGenQueryExecutor,
+					irodsSession.getGenQueryResultCache());
+		}
+
+		return irodsGenQueryExecutor;
 	}
 
 	/*
@@ -528,6 +538,20 @@ public final class IRODSAccessObjectFactoryImpl implements
 		return new ProtocolExtensionPointImpl(irodsSession, irodsAccount);
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.core.pub.IRODSAccessObjectFactory#
+	 * getPipelinedProtocolExtensionPoint
+	 * (org.irods.jargon.core.connection.IRODSAccount)
+	 */
+	@Override
+	public PipelinedProtocolExtensionPoint getPipelinedProtocolExtensionPoint(
+			final IRODSAccount irodsAccount) throws JargonException {
+		checkIrodsSessionSet();
+		return new ProtocolExtensionPointImpl(irodsSession, irodsAccount);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -685,4 +709,16 @@ public final class IRODSAccessObjectFactoryImpl implements
 		return getIrodsSession().isUsingDynamicServerPropertiesCache();
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.pub.IRODSAccessObjectFactory#getGenQueryResultCache
+	 * ()
+	 */
+	@Override
+	public GenQueryResultCache getGenQueryResultCache() {
+		return getIrodsSession().getGenQueryResultCache();
+	}
+
 }
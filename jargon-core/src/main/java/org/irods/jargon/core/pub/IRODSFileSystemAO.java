@@ -278,6 +278,26 @@ public interface IRODSFileSystemAO extends IRODSAccessObject {
 	 */
 	void fileDeleteNoForce(IRODSFile irodsFile) throws JargonException;
 
+	/**
+	 * Delete a batch of iRODS data objects, using the no force option to move
+	 * the deleted files to the trash. The delete requests are pipelined on the
+	 * connection, so that a large batch does not cost a network round trip per
+	 * file, and the paths are not checked before they are deleted. A failure
+	 * to delete one file does not stop the others. The pipeline depth is the
+	 * <code>request.pipeline.depth</code> jargon property.
+	 * 
+	 * @param irodsAbsolutePaths
+	 *            <code>List</code> of <code>String</code> with the absolute
+	 *            paths of data objects to delete
+	 * @return <code>List</code> of <code>String</code> with the paths that
+	 *         could not be deleted, including any that did not exist, which
+	 *         is empty if every delete succeeded
+	 * @throws JargonException
+	 *             if the connection fails
+	 */
+	List<String> fileDeleteNoForceInBatch(List<String> irodsAbsolutePaths)
+			throws JargonException;
+
 	/**
 	 * Returns the iRODS encoded value that reflects the highest file
 	 * permissions for the given iRODS collection. Note that a separate
@@ -1140,6 +1140,59 @@ public final class IRODSFileSystemAOImpl extends IRODSGenericAO implements
 
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.pub.IRODSFileSystemAO#fileDeleteNoForceInBatch(
+	 * java.util.List)
+	 */
+	@Override
+	public List<String> fileDeleteNoForceInBatch(
+			final List<String> irodsAbsolutePaths) throws JargonException {
+
+		log.info("fileDeleteNoForceInBatch(final List<String> irodsAbsolutePaths)");
+		if (irodsAbsolutePaths == null) {
+			throw new IllegalArgumentException("null irodsAbsolutePaths");
+		}
+
+		List<String> notDeleted = new ArrayList<String>();
+		if (irodsAbsolutePaths.isEmpty()) {
+			return notDeleted;
+		}
+
+		log.info("deleting {} files without force option",
+				irodsAbsolutePaths.size());
+
+		List<DataObjInp> requests = new ArrayList<DataObjInp>(
+				irodsAbsolutePaths.size());
+		for (String irodsAbsolutePath : irodsAbsolutePaths) {
+			if (irodsAbsolutePath == null || irodsAbsolutePath.isEmpty()) {
+				throw new IllegalArgumentException(
+						"null or empty path in irodsAbsolutePaths");
+			}
+			requests.add(DataObjInp
+					.instanceForDeleteWithNoForce(irodsAbsolutePath));
+		}
+
+		List<JargonException> errors = getIRODSProtocol()
+				.irodsFunctionPipelined(requests,
+						getJargonProperties().getRequestPipelineDepth());
+
+		for (int i = 0; i < errors.size(); i++) {
+			JargonException error = errors.get(i);
+			if (error == null || error instanceof DuplicateDataException) {
+				continue;
+			}
+			log.warn("unable to delete {}:{}", irodsAbsolutePaths.get(i),
+					error.getMessage());
+			notDeleted.add(irodsAbsolutePaths.get(i));
+		}
+
+		log.info("{} files not deleted", notDeleted.size());
+		return notDeleted;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
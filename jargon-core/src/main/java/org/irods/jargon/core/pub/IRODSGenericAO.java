@@ -13,6 +13,8 @@ import org.irods.jargon.core.packinstr.OperationComplete;
 import org.irods.jargon.core.packinstr.Tag;
 import org.irods.jargon.core.packinstr.TransferOptions;
 import org.irods.jargon.core.pub.io.IRODSFileFactory;
+import org.irods.jargon.core.query.GenQueryCacheRegion;
+import org.irods.jargon.core.query.GenQueryResultCache;
 import org.irods.jargon.core.transfer.TransferControlBlock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -198,4 +200,28 @@ public abstract class IRODSGenericAO implements IRODSAccessObject {
 		return getIRODSProtocol().irodsFunction(operationComplete);
 	}
 
+	/**
+	 * Discard any cached GenQuery results that depend on the given regions of
+	 * the iCAT. Access objects that change catalog data should call this after
+	 * the change, so that a caching <code>IRODSGenQueryExecutor</code> does not
+	 * return stale data. This is a no-op if the GenQuery result cache is not in
+	 * use.
+	 * 
+	 * @param regions
+	 *            {@link GenQueryCacheRegion} that have been changed
+	 */
+	protected void invalidateGenQueryResultCache(
+			final GenQueryCacheRegion... regions) {
+		if (!irodsSession.isUsingGenQueryResultCache()) {
+			return;
+		}
+
+		GenQueryResultCache genQueryResultCache = irodsSession
+				.getGenQueryResultCache();
+		for (GenQueryCacheRegion region : regions) {
+			log.debug("invalidating gen query cache region:{}", region);
+			genQueryResultCache.invalidateRegion(region);
+		}
+	}
+
 }
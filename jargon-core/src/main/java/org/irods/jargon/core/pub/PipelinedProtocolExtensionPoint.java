@@ -0,0 +1,86 @@
+package org.irods.jargon.core.pub;
+
+import java.util.List;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.IRodsPI;
+import org.irods.jargon.core.packinstr.Tag;
+
+/**
+ * A {@link ProtocolExtensionPoint} that can also pipeline a series of packing
+ * instructions, sending requests ahead of the responses rather than waiting
+ * for each response before sending the next request. This is a separate
+ * interface so that existing implementations of
+ * <code>ProtocolExtensionPoint</code> are not broken.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public interface PipelinedProtocolExtensionPoint extends
+		ProtocolExtensionPoint {
+
+	/**
+	 * Execute a series of iRODS packing instructions that carry no binary
+	 * data, pipelining the requests. The pipeline depth is the
+	 * <code>request.pipeline.depth</code> jargon property. An error for one
+	 * request does not stop the others.
+	 *
+	 * @param irodsPIs
+	 *            <code>List</code> of {@link IRodsPI} to execute, in order
+	 * @return <code>List</code> of <code>JargonException</code>, with one
+	 *         entry per packing instruction, which is <code>null</code> if
+	 *         that packing instruction succeeded
+	 * @throws JargonException
+	 *             if the connection fails, in which case the outcome of any
+	 *             unanswered requests is unknown
+	 */
+	List<JargonException> irodsFunctionPipelined(
+			final List<? extends IRodsPI> irodsPIs) throws JargonException;
+
+	/**
+	 * Execute a series of iRODS packing instructions that carry no binary
+	 * data, pipelining the requests with the given depth. An error for one
+	 * request does not stop the others.
+	 *
+	 * @param irodsPIs
+	 *            <code>List</code> of {@link IRodsPI} to execute, in order
+	 * @param depth
+	 *            <code>int</code> with the most requests sent and not yet
+	 *            answered
+	 * @return <code>List</code> of <code>JargonException</code>, with one
+	 *         entry per packing instruction, which is <code>null</code> if
+	 *         that packing instruction succeeded
+	 * @throws JargonException
+	 *             if the connection fails, in which case the outcome of any
+	 *             unanswered requests is unknown
+	 */
+	List<JargonException> irodsFunctionPipelined(
+			final List<? extends IRodsPI> irodsPIs, final int depth)
+			throws JargonException;
+
+	/**
+	 * Execute a series of iRODS packing instructions that carry no binary
+	 * data, pipelining the requests with the given depth, and keeping the
+	 * response to each. An error for one request does not stop the others.
+	 *
+	 * @param irodsPIs
+	 *            <code>List</code> of {@link IRodsPI} to execute, in order
+	 * @param depth
+	 *            <code>int</code> with the most requests sent and not yet
+	 *            answered
+	 * @param responses
+	 *            <code>List</code> of {@link Tag} to which the response to
+	 *            each packing instruction is added in order, which is
+	 *            <code>null</code> if that packing instruction failed
+	 * @return <code>List</code> of <code>JargonException</code>, with one
+	 *         entry per packing instruction, which is <code>null</code> if
+	 *         that packing instruction succeeded
+	 * @throws JargonException
+	 *             if the connection fails, in which case the outcome of any
+	 *             unanswered requests is unknown
+	 */
+	List<JargonException> irodsFunctionPipelined(
+			final List<? extends IRodsPI> irodsPIs, final int depth,
+			final List<Tag> responses) throws JargonException;
+
+}
@@ -1,5 +1,7 @@
 package org.irods.jargon.core.pub;
 
+import java.util.List;
+
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.connection.IRODSSession;
 import org.irods.jargon.core.exception.JargonException;
@@ -23,7 +25,7 @@ import org.slf4j.LoggerFactory;
  * 
  */
 public class ProtocolExtensionPointImpl extends IRODSGenericAO implements
-		ProtocolExtensionPoint {
+		PipelinedProtocolExtensionPoint {
 
 	private static Logger log = LoggerFactory
 			.getLogger(ProtocolExtensionPointImpl.class);
@@ -53,4 +55,67 @@ public class ProtocolExtensionPointImpl extends IRODSGenericAO implements
 				irodsPI.getParsedTags(), irodsPI.getApiNumber());
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.pub.PipelinedProtocolExtensionPoint#
+	 * irodsFunctionPipelined(java.util.List)
+	 */
+	@Override
+	public List<JargonException> irodsFunctionPipelined(
+			final List<? extends IRodsPI> irodsPIs) throws JargonException {
+		return irodsFunctionPipelined(irodsPIs, getJargonProperties()
+				.getRequestPipelineDepth());
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.pub.PipelinedProtocolExtensionPoint#
+	 * irodsFunctionPipelined(java.util.List, int)
+	 */
+	@Override
+	public List<JargonException> irodsFunctionPipelined(
+			final List<? extends IRodsPI> irodsPIs, final int depth)
+			throws JargonException {
+
+		if (irodsPIs == null) {
+			String err = "null irodsPIs";
+			log.error(err);
+			throw new IllegalArgumentException(err);
+		}
+
+		return getIRODSProtocol().irodsFunctionPipelined(irodsPIs, depth);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.core.pub.PipelinedProtocolExtensionPoint#
+	 * irodsFunctionPipelined(java.util.List, int, java.util.List)
+	 */
+	@Override
+	public List<JargonException> irodsFunctionPipelined(
+			final List<? extends IRodsPI> irodsPIs, final int depth,
+			final List<Tag> responses) throws JargonException {
+
+		if (irodsPIs == null) {
+			String err = "null irodsPIs";
+			log.error(err);
+			throw new IllegalArgumentException(err);
+		}
+
+		if (responses == null) {
+			String err = "null responses";
+			log.error(err);
+			throw new IllegalArgumentException(err);
+		}
+
+		return getIRODSProtocol().irodsFunctionPipelined(irodsPIs, depth,
+				responses);
+	}
+
 }
@@ -25,6 +25,7 @@ import org.irods.jargon.core.pub.io.IRODSFile;
 import org.irods.jargon.core.query.AVUQueryElement;
 import org.irods.jargon.core.query.AbstractIRODSQueryResultSet;
 import org.irods.jargon.core.query.GenQueryBuilderException;
+import org.irods.jargon.core.query.GenQueryCacheRegion;
 import org.irods.jargon.core.query.GenQueryOrderByField.OrderByType;
 import org.irods.jargon.core.query.IRODSGenQuery;
 import org.irods.jargon.core.query.IRODSGenQueryBuilder;
@@ -115,6 +116,7 @@ public final class ResourceAOImpl extends IRODSGenericAO implements ResourceAO {
 				.instanceForAddResource(resource);
 		log.debug("executing admin PI");
 		getIRODSProtocol().irodsFunction(adminPI);
+		invalidateGenQueryResultCache(GenQueryCacheRegion.RESOURCE);
 		log.info("complete");
 	}
 
@@ -136,6 +138,7 @@ public final class ResourceAOImpl extends IRODSGenericAO implements ResourceAO {
 		log.debug("executing admin PI");
 		try {
 			getIRODSProtocol().irodsFunction(adminPI);
+			invalidateGenQueryResultCache(GenQueryCacheRegion.RESOURCE);
 		} catch (DataNotFoundException e) {
 			log.warn("data not found deleting resource, silently ignore", e);
 		}
@@ -177,6 +180,7 @@ public final class ResourceAOImpl extends IRODSGenericAO implements ResourceAO {
 				.instanceForAddChildToResource(child, parent, optionalContext);
 		log.debug("executing admin PI");
 		getIRODSProtocol().irodsFunction(adminPI);
+		invalidateGenQueryResultCache(GenQueryCacheRegion.RESOURCE);
 		log.info("complete");
 		// FIXME: add test that lists tree
 
@@ -212,6 +216,7 @@ public final class ResourceAOImpl extends IRODSGenericAO implements ResourceAO {
 				.instanceForRemoveChildFromResource(child, parent);
 		log.debug("executing admin PI");
 		getIRODSProtocol().irodsFunction(adminPI);
+		invalidateGenQueryResultCache(GenQueryCacheRegion.RESOURCE);
 		log.info("complete");
 
 	}
@@ -231,8 +236,8 @@ public final class ResourceAOImpl extends IRODSGenericAO implements ResourceAO {
 			throw new IllegalArgumentException("null or empty resourceName");
 		}
 
-		final IRODSGenQueryExecutorImpl irodsGenQueryExecutorImpl = new IRODSGenQueryExecutorImpl(
-				getIRODSSession(), getIRODSAccount());
+		final IRODSGenQueryExecutor irodsGenQueryExecutorImpl = getIRODSAccessObjectFactory()
+				.getIRODSGenQueryExecutor(getIRODSAccount());
 
 		final StringBuilder sb = new StringBuilder();
 
@@ -295,8 +300,8 @@ public final class ResourceAOImpl extends IRODSGenericAO implements ResourceAO {
 	@Override
 	public Resource findById(final String resourceId) throws JargonException,
 			DataNotFoundException {
-		final IRODSGenQueryExecutorImpl irodsGenQueryExecutorImpl = new IRODSGenQueryExecutorImpl(
-				getIRODSSession(), getIRODSAccount());
+		final IRODSGenQueryExecutor irodsGenQueryExecutorImpl = getIRODSAccessObjectFactory()
+				.getIRODSGenQueryExecutor(getIRODSAccount());
 		final StringBuilder sb = new StringBuilder();
 
 		sb.append(resourceAOHelper.buildResourceSelectsClassic());
@@ -373,8 +378,8 @@ public final class ResourceAOImpl extends IRODSGenericAO implements ResourceAO {
 	private List<Resource> findAllClassic() throws JargonException {
 
 		log.info("findAllClassic() - pre 4.0 server");
-		final IRODSGenQueryExecutor irodsGenQueryExecutor = new IRODSGenQueryExecutorImpl(
-				getIRODSSession(), getIRODSAccount());
+		final IRODSGenQueryExecutor irodsGenQueryExecutor = getIRODSAccessObjectFactory()
+				.getIRODSGenQueryExecutor(getIRODSAccount());
 
 		StringBuilder userQuery = new StringBuilder();
 		userQuery.append(resourceAOHelper.buildResourceSelectsClassic());
@@ -404,8 +409,8 @@ public final class ResourceAOImpl extends IRODSGenericAO implements ResourceAO {
 
 		log.info("findAllComposable() - post 4.0 server");
 
-		final IRODSGenQueryExecutor irodsGenQueryExecutor = new IRODSGenQueryExecutorImpl(
-				getIRODSSession(), getIRODSAccount());
+		final IRODSGenQueryExecutor irodsGenQueryExecutor = getIRODSAccessObjectFactory()
+				.getIRODSGenQueryExecutor(getIRODSAccount());
 
 		IRODSQueryResultSet resultSet = null;
 		try {
@@ -467,8 +472,8 @@ public final class ResourceAOImpl extends IRODSGenericAO implements ResourceAO {
 			throw new JargonException(msg);
 		}
 
-		IRODSGenQueryExecutorImpl irodsGenQueryExecutorImpl = new IRODSGenQueryExecutorImpl(
-				getIRODSSession(), getIRODSAccount());
+		IRODSGenQueryExecutor irodsGenQueryExecutorImpl = getIRODSAccessObjectFactory()
+				.getIRODSGenQueryExecutor(getIRODSAccount());
 
 		String queryString = query.toString();
 		if (log.isInfoEnabled()) {
@@ -596,8 +601,8 @@ public final class ResourceAOImpl extends IRODSGenericAO implements ResourceAO {
 		log.debug("resource avu list query: {}", sb.toString());
 		final IRODSGenQuery irodsQuery = IRODSGenQuery.instance(sb.toString(),
 				DEFAULT_REC_COUNT);
-		final IRODSGenQueryExecutorImpl irodsGenQueryExecutorImpl = new IRODSGenQueryExecutorImpl(
-				getIRODSSession(), getIRODSAccount());
+		final IRODSGenQueryExecutor irodsGenQueryExecutorImpl = getIRODSAccessObjectFactory()
+				.getIRODSGenQueryExecutor(getIRODSAccount());
 
 		IRODSQueryResultSetInterface resultSet;
 
@@ -643,8 +648,8 @@ public final class ResourceAOImpl extends IRODSGenericAO implements ResourceAO {
 			throw new IllegalArgumentException("null or empty query");
 		}
 
-		final IRODSGenQueryExecutorImpl irodsGenQueryExecutorImpl = new IRODSGenQueryExecutorImpl(
-				getIRODSSession(), getIRODSAccount());
+		final IRODSGenQueryExecutor irodsGenQueryExecutorImpl = getIRODSAccessObjectFactory()
+				.getIRODSGenQueryExecutor(getIRODSAccount());
 
 		// TODO: ripe for factoring out as applied to other domain objects
 
@@ -819,6 +824,8 @@ public final class ResourceAOImpl extends IRODSGenericAO implements ResourceAO {
 		try {
 
 			getIRODSProtocol().irodsFunction(modifyAvuMetadataInp);
+			invalidateGenQueryResultCache(GenQueryCacheRegion.RESOURCE,
+					GenQueryCacheRegion.METADATA);
 
 		} catch (JargonException je) {
 
@@ -868,6 +875,8 @@ public final class ResourceAOImpl extends IRODSGenericAO implements ResourceAO {
 
 		try {
 			getIRODSProtocol().irodsFunction(modifyAvuMetadataInp);
+			invalidateGenQueryResultCache(GenQueryCacheRegion.RESOURCE,
+					GenQueryCacheRegion.METADATA);
 		} catch (JargonException je) {
 
 			if (je.getMessage().indexOf("-817000") > -1) {
@@ -226,6 +226,72 @@ public interface SpecificQueryAO extends IRODSAccessObject {
 			SpecificQuery specificQuery, int maxRows, int userDefinedOffset)
 			throws DataNotFoundException, JargonException, JargonQueryException;
 
+	/**
+	 * Execute a specific query by alias, returning a cursor that streams
+	 * through all of the results, asking iRODS for more pages as needed. This
+	 * avoids holding the entire result in memory, and is suitable for very
+	 * large results. The query is left open in iRODS until the results are
+	 * exhausted or the cursor is closed, so the caller should close the
+	 * cursor in a <code>finally</code> block.
+	 * <p/>
+	 * The definition of the alias is kept for a short time, so that repeated
+	 * queries on the same alias do not look it up each time.
+	 *
+	 * @param specificQuery
+	 *            {@link SpecificQuery} that defines the query alias, and any
+	 *            associated parameters to use. The continuation value should
+	 *            be zero.
+	 * @param pageSize
+	 *            <code>int</code> with the number of rows to ask for in each
+	 *            page
+	 * @param prefetch
+	 *            <code>boolean</code> that indicates that the next page should
+	 *            be requested in the background while the current page is
+	 *            read. The cursor then runs the query on a connection of its
+	 *            own, held until it is closed.
+	 * @return {@link SpecificQueryResultCursor} positioned before the first
+	 *         row
+	 * @throws DataNotFoundException
+	 *             if the alias cannot be located
+	 * @throws JargonException
+	 *             general exception
+	 * @throws JargonQueryException
+	 *             exception in the forumulation of the query
+	 */
+	SpecificQueryResultCursor openSpecificQueryCursorUsingAlias(
+			SpecificQuery specificQuery, int pageSize, boolean prefetch)
+			throws DataNotFoundException, JargonException, JargonQueryException;
+
+	/**
+	 * Execute a specific query by providing the exact sql that was registered
+	 * in iRODS, returning a cursor that streams through all of the results.
+	 * See {@link #openSpecificQueryCursorUsingAlias(SpecificQuery, int, boolean)}
+	 * for details.
+	 *
+	 * @param specificQuery
+	 *            {@link SpecificQuery} that defines the query sql, and any
+	 *            associated parameters to use. The continuation value should
+	 *            be zero.
+	 * @param pageSize
+	 *            <code>int</code> with the number of rows to ask for in each
+	 *            page
+	 * @param prefetch
+	 *            <code>boolean</code> that indicates that the next page should
+	 *            be requested in the background while the current page is
+	 *            read. The cursor then runs the query on a connection of its
+	 *            own, held until it is closed.
+	 * @return {@link SpecificQueryResultCursor} positioned before the first
+	 *         row
+	 * @throws DataNotFoundException
+	 * @throws JargonException
+	 *             general exception
+	 * @throws JargonQueryException
+	 *             exception in the forumulation of the query
+	 */
+	SpecificQueryResultCursor openSpecificQueryCursorUsingSql(
+			SpecificQuery specificQuery, int pageSize, boolean prefetch)
+			throws DataNotFoundException, JargonException, JargonQueryException;
+
 	/**
 	 * Given a portion of a query alias, find matching specific queries as
 	 * stored in iRODS. Note that wildcards in the 'like' statement are not
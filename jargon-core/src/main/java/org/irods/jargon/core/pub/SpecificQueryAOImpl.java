@@ -1,8 +1,13 @@
 package org.irods.jargon.core.pub;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.connection.IRODSSession;
 import org.irods.jargon.core.exception.DataNotFoundException;
@@ -31,6 +36,48 @@ public class SpecificQueryAOImpl extends IRODSGenericAO implements
 	public static final Logger log = LoggerFactory
 			.getLogger(SpecificQueryAOImpl.class);
 
+	/**
+	 * Time that a definition looked up by alias is kept for use in executing
+	 * queries on that alias
+	 */
+	public static final long ALIAS_DEFINITION_TIME_TO_LIVE_MILLIS = 60 * 1000;
+
+	/**
+	 * Number of alias definitions, and of parsed column name lists, to keep
+	 */
+	public static final int DEFINITION_CACHE_SIZE = 256;
+
+	/**
+	 * Definitions by grid and alias, used to avoid looking up the alias for
+	 * each execution. Entries are discarded when the alias is removed using
+	 * this access object, and otherwise expire, so that changes by other
+	 * clients are eventually seen.
+	 */
+	private static final Map<String, CachedDefinition> aliasDefinitionCache = new LinkedHashMap<String, CachedDefinition>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(
+				final Map.Entry<String, CachedDefinition> eldest) {
+			return size() > DEFINITION_CACHE_SIZE;
+		}
+	};
+
+	/**
+	 * Column names parsed from sql, by sql text
+	 */
+	private static final Map<String, List<String>> columnNamesCache = new LinkedHashMap<String, List<String>>(
+			16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(
+				final Map.Entry<String, List<String>> eldest) {
+			return size() > DEFINITION_CACHE_SIZE;
+		}
+	};
+
 	protected SpecificQueryAOImpl(final IRODSSession irodsSession,
 			final IRODSAccount irodsAccount) throws SpecificQueryException,
 			JargonException {
@@ -189,9 +236,8 @@ public class SpecificQueryAOImpl extends IRODSGenericAO implements
 		specificQueryDefinition
 				.setArgumentCount(countArgumentsInQuery(specificQueryDefinition
 						.getSql()));
-		specificQueryDefinition
-				.setColumnNames(parseColumnNamesFromQuery(specificQueryDefinition
-						.getSql()));
+		specificQueryDefinition.setColumnNames(new ArrayList<String>(
+				columnNamesForQuery(specificQueryDefinition.getSql())));
 
 		log.info("query definition:{}", specificQueryDefinition);
 		return specificQueryDefinition;
@@ -256,6 +302,27 @@ public class SpecificQueryAOImpl extends IRODSGenericAO implements
 		return listToReturn;
 	}
 
+	/**
+	 * Get the column names for an sql query, as in
+	 * {@link #parseColumnNamesFromQuery(String)}, keeping recently parsed sql
+	 * so that repeated queries are not parsed each time
+	 *
+	 * @param sql
+	 *            <code>String</code> with the sql
+	 * @return unmodifiable <code>List<String></code> of column names
+	 */
+	static List<String> columnNamesForQuery(final String sql) {
+		synchronized (columnNamesCache) {
+			List<String> columnNames = columnNamesCache.get(sql);
+			if (columnNames == null) {
+				columnNames = Collections
+						.unmodifiableList(parseColumnNamesFromQuery(sql));
+				columnNamesCache.put(sql, columnNames);
+			}
+			return columnNames;
+		}
+	}
+
 	/**
 	 * Given a query string, count the number of arguments expected
 	 * 
@@ -338,6 +405,8 @@ public class SpecificQueryAOImpl extends IRODSGenericAO implements
 				.instanceForRemoveSpecificQuery(specificQuery);
 		log.info(EXECUTING_SQUERY_PI);
 		getIRODSProtocol().irodsFunction(queryPI);
+		invalidateCachedDefinitions(specificQuery.getAlias(),
+				specificQuery.getSql());
 		log.info("removed specific query");
 
 	}
@@ -367,6 +436,7 @@ public class SpecificQueryAOImpl extends IRODSGenericAO implements
 				.instanceForRemoveSpecificQueryByAlias(alias);
 		log.info(EXECUTING_SQUERY_PI);
 		getIRODSProtocol().irodsFunction(queryPI);
+		invalidateCachedDefinitions(alias, null);
 		log.info("removed specific query");
 
 	}
@@ -395,6 +465,7 @@ public class SpecificQueryAOImpl extends IRODSGenericAO implements
 				.instanceForRemoveAllSpecificQueryBySQL(sqlQuery);
 		log.info(EXECUTING_SQUERY_PI);
 		getIRODSProtocol().irodsFunction(queryPI);
+		invalidateCachedDefinitions(null, sqlQuery);
 		log.info("removed specific query");
 
 	}
@@ -499,10 +570,131 @@ public class SpecificQueryAOImpl extends IRODSGenericAO implements
 		 * expected
 		 */
 
-		SpecificQueryDefinition specificQueryDefinition = findSpecificQueryByAlias(specificQuery
+		SpecificQueryDefinition specificQueryDefinition = findSpecificQueryDefinitionForExecution(specificQuery);
+
+		return queryOnAliasGivenDefinition(specificQuery, maxRows,
+				specificQueryDefinition, userDefinedOffset);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.pub.SpecificQueryAO#openSpecificQueryCursorUsingAlias
+	 * (org.irods.jargon.core.query.SpecificQuery, int, boolean)
+	 */
+	@Override
+	public SpecificQueryResultCursor openSpecificQueryCursorUsingAlias(
+			final SpecificQuery specificQuery, final int pageSize,
+			final boolean prefetch) throws DataNotFoundException,
+			JargonException, JargonQueryException {
+
+		log.info("openSpecificQueryCursorUsingAlias()");
+
+		if (specificQuery == null) {
+			throw new IllegalArgumentException("null specific query");
+		}
+
+		if (pageSize <= 0) {
+			throw new IllegalArgumentException("pageSize must be > 0");
+		}
+
+		checkSupportForSpecificQuery();
+
+		SpecificQueryDefinition specificQueryDefinition = findSpecificQueryDefinitionForExecution(specificQuery);
+
+		return openCursor(specificQuery,
+				specificQueryDefinition.getColumnNames(), pageSize, prefetch);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.core.pub.SpecificQueryAO#openSpecificQueryCursorUsingSql
+	 * (org.irods.jargon.core.query.SpecificQuery, int, boolean)
+	 */
+	@Override
+	public SpecificQueryResultCursor openSpecificQueryCursorUsingSql(
+			final SpecificQuery specificQuery, final int pageSize,
+			final boolean prefetch) throws DataNotFoundException,
+			JargonException, JargonQueryException {
+
+		log.info("openSpecificQueryCursorUsingSql()");
+
+		if (specificQuery == null) {
+			throw new IllegalArgumentException("null specific query");
+		}
+
+		if (pageSize <= 0) {
+			throw new IllegalArgumentException("pageSize must be > 0");
+		}
+
+		checkSupportForSpecificQuery();
+
+		List<String> columnNames = columnNamesForQuery(specificQuery
 				.getQueryString());
+		int numberOfParameters = SpecificQueryAOImpl
+				.countArgumentsInQuery(specificQuery.getQueryString());
+
+		if (specificQuery.getArguments().size() != numberOfParameters) {
+			log.error("number of parameters in query does not match number of parameters provided");
+			throw new JargonQueryException(
+					"mismatch between query parameters and number of arguments provided");
+		}
+
+		return openCursor(specificQuery, columnNames, pageSize, prefetch);
+	}
 
-		log.info("found specific query definition by alias");
+	private SpecificQueryResultCursor openCursor(
+			final SpecificQuery specificQuery, final List<String> columnNames,
+			final int pageSize, final boolean prefetch) throws JargonException {
+
+		return new SpecificQueryResultCursor(getIRODSSession(),
+				getIRODSAccount(), specificQuery, columnNames, pageSize,
+				prefetch);
+	}
+
+	/**
+	 * Look up the definition for the alias in the given query, using a recent
+	 * definition if one is cached, and check that the query arguments match
+	 *
+	 * @param specificQuery
+	 *            {@link SpecificQuery} where the query string is an alias
+	 * @return {@link SpecificQueryDefinition}, which should not be altered
+	 * @throws DataNotFoundException
+	 * @throws JargonException
+	 * @throws JargonQueryException
+	 */
+	private SpecificQueryDefinition findSpecificQueryDefinitionForExecution(
+			final SpecificQuery specificQuery) throws DataNotFoundException,
+			JargonException, JargonQueryException {
+
+		String alias = specificQuery.getQueryString();
+		String key = buildAliasCacheKey(alias);
+		SpecificQueryDefinition specificQueryDefinition = null;
+
+		synchronized (aliasDefinitionCache) {
+			CachedDefinition cachedDefinition = aliasDefinitionCache.get(key);
+			if (cachedDefinition != null) {
+				if (System.currentTimeMillis() - cachedDefinition.cachedAt < ALIAS_DEFINITION_TIME_TO_LIVE_MILLIS) {
+					specificQueryDefinition = cachedDefinition.specificQueryDefinition;
+				} else {
+					aliasDefinitionCache.remove(key);
+				}
+			}
+		}
+
+		if (specificQueryDefinition == null) {
+			specificQueryDefinition = findSpecificQueryByAlias(alias);
+			log.info("found specific query definition by alias");
+			synchronized (aliasDefinitionCache) {
+				aliasDefinitionCache.put(key, new CachedDefinition(
+						specificQueryDefinition));
+			}
+		} else {
+			log.info("using cached specific query definition for alias");
+		}
 
 		if (specificQuery.getArguments().size() != specificQueryDefinition
 				.getArgumentCount()) {
@@ -511,8 +703,51 @@ public class SpecificQueryAOImpl extends IRODSGenericAO implements
 					"mismatch between query parameters and number of arguments provided");
 		}
 
-		return queryOnAliasGivenDefinition(specificQuery, maxRows,
-				specificQueryDefinition, userDefinedOffset);
+		return specificQueryDefinition;
+	}
+
+	private String buildAliasCacheKey(final String alias) {
+		IRODSAccount irodsAccount = getIRODSAccount();
+		StringBuilder sb = new StringBuilder();
+		sb.append(irodsAccount.getHost());
+		sb.append(':');
+		sb.append(irodsAccount.getPort());
+		sb.append('|');
+		sb.append(irodsAccount.getZone());
+		sb.append('|');
+		sb.append(alias);
+		return sb.toString();
+	}
+
+	/**
+	 * Discard cached definitions for this grid that match the given alias or
+	 * sql
+	 *
+	 * @param alias
+	 *            <code>String</code> with an alias, or <code>null</code>
+	 * @param sql
+	 *            <code>String</code> with sql, or <code>null</code>
+	 */
+	private void invalidateCachedDefinitions(final String alias,
+			final String sql) {
+		String prefix = buildAliasCacheKey("");
+		synchronized (aliasDefinitionCache) {
+			Iterator<Map.Entry<String, CachedDefinition>> iter = aliasDefinitionCache
+					.entrySet().iterator();
+			Map.Entry<String, CachedDefinition> entry;
+			SpecificQueryDefinition definition;
+			while (iter.hasNext()) {
+				entry = iter.next();
+				if (!entry.getKey().startsWith(prefix)) {
+					continue;
+				}
+				definition = entry.getValue().specificQueryDefinition;
+				if ((alias != null && alias.equals(definition.getAlias()))
+						|| (sql != null && sql.equals(definition.getSql()))) {
+					iter.remove();
+				}
+			}
+		}
 	}
 
 	/**
@@ -534,6 +769,44 @@ public class SpecificQueryAOImpl extends IRODSGenericAO implements
 			final SpecificQueryDefinition specificQueryDefinition,
 			final int userDefinedOffset) throws JargonException {
 
+		SpecificQueryResultSet results = queryPageWithoutClosing(
+				getIRODSProtocol(), specificQuery,
+				specificQueryDefinition.getColumnNames(), maxRows,
+				userDefinedOffset);
+
+		log.info("doing a close for this page...");
+		closeResultSet(results);
+		return results;
+
+	}
+
+	/**
+	 * Execute a specific query for a page of results, leaving the query open
+	 * in iRODS if there are more results. A query with no results (signaled
+	 * by iRODS as a <code>DataNotFoundException</code>) is returned as an
+	 * empty result set.
+	 *
+	 * @param irodsProtocol
+	 *            {@link AbstractIRODSMidLevelProtocol} to query with
+	 * @param specificQuery
+	 *            {@link SpecificQuery} to execute, including any continuation
+	 * @param columnNames
+	 *            <code>List<String></code> with the column names in the
+	 *            results
+	 * @param maxRows
+	 *            <code>int</code> with the maximum rows in the page
+	 * @param userDefinedOffset
+	 *            <code>int</code> offset added to the record counts of the
+	 *            returned rows
+	 * @return {@link SpecificQueryResultSet}
+	 * @throws JargonException
+	 */
+	static SpecificQueryResultSet queryPageWithoutClosing(
+			final AbstractIRODSMidLevelProtocol irodsProtocol,
+			final SpecificQuery specificQuery, final List<String> columnNames,
+			final int maxRows, final int userDefinedOffset)
+			throws JargonException {
+
 		SpecificQueryInp specificQueryInp = SpecificQueryInp.instance(
 				specificQuery.getArguments(), specificQuery.getQueryString(),
 				maxRows, specificQuery.getContinuationValue(),
@@ -547,11 +820,10 @@ public class SpecificQueryAOImpl extends IRODSGenericAO implements
 		 * an actual query missing error). Treat this as an empty result set
 		 */
 		try {
-			response = getIRODSProtocol().irodsFunction(specificQueryInp);
+			response = irodsProtocol.irodsFunction(specificQueryInp);
 		} catch (DataNotFoundException e) {
 			log.info("no reults from iRODS, return as an empty result set");
-			return new SpecificQueryResultSet(specificQuery,
-					specificQueryDefinition.getColumnNames());
+			return new SpecificQueryResultSet(specificQuery, columnNames);
 		}
 
 		// result set is not empty
@@ -566,19 +838,11 @@ public class SpecificQueryAOImpl extends IRODSGenericAO implements
 		}
 
 		List<IRODSQueryResultRow> resultRows = QueryResultProcessingUtils
-				.translateResponseIntoResultSet(response,
-						specificQueryDefinition.getColumnNames(), continuation,
-						userDefinedOffset);
-
-		SpecificQueryResultSet results = new SpecificQueryResultSet(
-				specificQuery, resultRows,
-				specificQueryDefinition.getColumnNames(), hasMoreRecords,
-				continuation);
-
-		log.info("doing a close for this page...");
-		closeResultSet(results);
-		return results;
+				.translateResponseIntoResultSet(response, columnNames,
+						continuation, userDefinedOffset);
 
+		return new SpecificQueryResultSet(specificQuery, resultRows,
+				columnNames, hasMoreRecords, continuation);
 	}
 
 	/*
@@ -614,8 +878,8 @@ public class SpecificQueryAOImpl extends IRODSGenericAO implements
 		 * and column names
 		 */
 
-		List<String> columnNames = SpecificQueryAOImpl
-				.parseColumnNamesFromQuery(specificQuery.getQueryString());
+		List<String> columnNames = columnNamesForQuery(specificQuery
+				.getQueryString());
 		int numberOfParameters = SpecificQueryAOImpl
 				.countArgumentsInQuery(specificQuery.getQueryString());
 
@@ -673,6 +937,25 @@ public class SpecificQueryAOImpl extends IRODSGenericAO implements
 	private void closeResultSet(
 			final SpecificQueryResultSet specificQueryResultSet)
 			throws JargonException {
+		closeResultSet(getIRODSProtocol(), specificQueryResultSet);
+	}
+
+	/**
+	 * Close the result set associated with the given specific query, using
+	 * the given connection. This will ignore calls if no continuation was in
+	 * the result set.
+	 *
+	 * @param irodsProtocol
+	 *            {@link AbstractIRODSMidLevelProtocol} that the query was run
+	 *            on
+	 * @param specificQueryResultSet
+	 *            {@link SpecificQueryResultSet} to close
+	 * @throws JargonException
+	 */
+	static void closeResultSet(
+			final AbstractIRODSMidLevelProtocol irodsProtocol,
+			final SpecificQueryResultSet specificQueryResultSet)
+			throws JargonException {
 		log.info("closeResultSet()");
 		if (specificQueryResultSet == null) {
 			throw new IllegalArgumentException("null specificQueryResultSet");
@@ -686,7 +969,7 @@ public class SpecificQueryAOImpl extends IRODSGenericAO implements
 		SpecificQueryInp specificQueryInp = SpecificQueryInp
 				.instanceForClose(specificQueryResultSet);
 
-		getIRODSProtocol().irodsFunction(specificQueryInp);
+		irodsProtocol.irodsFunction(specificQueryInp);
 		log.info("specific query closed");
 
 	}
@@ -739,4 +1022,17 @@ public class SpecificQueryAOImpl extends IRODSGenericAO implements
 			throw new JargonException("no support for specific query");
 		}
 	}
+
+	/**
+	 * A definition looked up by alias, and when it was looked up
+	 */
+	private static final class CachedDefinition {
+		private final SpecificQueryDefinition specificQueryDefinition;
+		private final long cachedAt;
+
+		CachedDefinition(final SpecificQueryDefinition specificQueryDefinition) {
+			this.specificQueryDefinition = specificQueryDefinition;
+			cachedAt = System.currentTimeMillis();
+		}
+	}
 }
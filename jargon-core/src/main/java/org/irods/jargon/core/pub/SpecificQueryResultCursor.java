@@ -0,0 +1,494 @@
+package org.irods.jargon.core.pub;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.IRODSSession;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.query.IRODSQueryResultRow;
+import org.irods.jargon.core.query.SpecificQuery;
+import org.irods.jargon.core.query.SpecificQueryResultSet;
+import org.irods.jargon.core.utils.SessionClosingThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A forward-only cursor over the results of a specific query, obtained from the
+ * {@link SpecificQueryAO}. Rather than returning one page of results, the
+ * cursor keeps the query open in iRODS and asks for the next page, using the
+ * continuation, as the rows of the current page are used up. Only one page is
+ * held in memory at a time, so very large results may be processed.
+ * <p/>
+ * Without prefetching, the cursor uses the connection that was current when it
+ * was opened, and only talks to iRODS from within {@link #next()} and
+ * {@link #close()}, so the caller may do other work with that connection in
+ * between.
+ * <p/>
+ * Optionally, the next page may be requested in the background while the
+ * current page is processed. A background request can not share the caller's
+ * connection, as it could land in the middle of other work the caller is doing
+ * there, such as a transfer. A prefetching cursor instead opens the query on a
+ * connection of its own, held by a background thread, and every request for
+ * the query is made there. This takes one more connection for the account for
+ * as long as the cursor is open.
+ * <p/>
+ * The cursor holds the query open in iRODS, and when prefetching, a thread and
+ * a connection, until the last row is read or it is closed. It is
+ * <code>Closeable</code>, and should be closed in a <code>finally</code> block,
+ * much like a JDBC <code>ResultSet</code>:
+ *
+ * <pre>
+ * SpecificQueryResultCursor cursor = specificQueryAO
+ * 		.openSpecificQueryCursorUsingAlias(specificQuery, 5000, true);
+ * try {
+ * 	while (cursor.next()) {
+ * 		String name = cursor.getString(&quot;coll_name&quot;);
+ * 		long size = cursor.getLong(&quot;data_size&quot;);
+ * 	}
+ * } finally {
+ * 	cursor.close();
+ * }
+ * </pre>
+ *
+ * The cursor is closed automatically once the last row is read. A cursor that
+ * is abandoned early must be closed, so that the query is released in iRODS.
+ * This must be done before the caller's connection is closed.
+ * <p/>
+ * This object is not thread-safe, and should be used by one thread at a time.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class SpecificQueryResultCursor implements Closeable {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(SpecificQueryResultCursor.class);
+
+	private final IRODSSession irodsSession;
+	private final IRODSAccount irodsAccount;
+	private final SpecificQuery specificQuery;
+	private final List<String> columnNames;
+	private final int pageSize;
+	private ExecutorService prefetchExecutor;
+
+	/**
+	 * connection the query is open on, which when prefetching belongs to, and
+	 * is only used by, the prefetch thread
+	 */
+	private AbstractIRODSMidLevelProtocol irodsProtocol = null;
+	private SpecificQueryResultSet currentPage;
+	private Future<SpecificQueryResultSet> nextPage = null;
+	private int indexInPage = -1;
+	private int rowsFetched;
+	private int rowsRead = 0;
+	private IRODSQueryResultRow currentRow = null;
+	private boolean closed = false;
+
+	/**
+	 * Constructor, called by the {@link SpecificQueryAO}, that opens the query
+	 * and obtains the first page
+	 *
+	 * @param irodsSession
+	 *            {@link IRODSSession} that provides connections
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} the query is run as
+	 * @param specificQuery
+	 *            {@link SpecificQuery} to execute
+	 * @param columnNames
+	 *            <code>List<String></code> with the column names in the
+	 *            results
+	 * @param pageSize
+	 *            <code>int</code> with the number of rows to ask for in each
+	 *            page
+	 * @param prefetch
+	 *            <code>boolean</code> that indicates that the next page should
+	 *            be requested in the background, on a connection held by the
+	 *            cursor
+	 * @throws JargonException
+	 */
+	SpecificQueryResultCursor(final IRODSSession irodsSession,
+			final IRODSAccount irodsAccount,
+			final SpecificQuery specificQuery, final List<String> columnNames,
+			final int pageSize, final boolean prefetch)
+			throws JargonException {
+
+		if (irodsSession == null) {
+			throw new IllegalArgumentException("null irodsSession");
+		}
+
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+
+		if (specificQuery == null) {
+			throw new IllegalArgumentException("null specificQuery");
+		}
+
+		if (columnNames == null) {
+			throw new IllegalArgumentException("null columnNames");
+		}
+
+		if (pageSize <= 0) {
+			throw new IllegalArgumentException("pageSize must be > 0");
+		}
+
+		this.irodsSession = irodsSession;
+		this.irodsAccount = irodsAccount;
+		this.specificQuery = specificQuery;
+		this.columnNames = Collections.unmodifiableList(columnNames);
+		this.pageSize = pageSize;
+
+		if (prefetch) {
+			prefetchExecutor = Executors
+					.newSingleThreadExecutor(new SessionClosingThreadFactory(
+							irodsSession, irodsAccount,
+							"specific-query-prefetch"));
+			nextPage = prefetchExecutor
+					.submit(new Callable<SpecificQueryResultSet>() {
+						@Override
+						public SpecificQueryResultSet call() throws Exception {
+							return fetchFirstPage();
+						}
+					});
+			try {
+				currentPage = takeNextPage();
+			} catch (JargonException je) {
+				releasePrefetchConnection(null);
+				throw je;
+			}
+		} else {
+			currentPage = fetchFirstPage();
+		}
+
+		rowsFetched = currentPage.getResults().size();
+
+		if (currentPage.isHasMoreRecords()) {
+			startPrefetch();
+		} else if (prefetchExecutor != null) {
+			log.debug("all results in the first page, nothing to prefetch");
+			releasePrefetchConnection(null);
+		}
+	}
+
+	/**
+	 * Move to the next row, fetching the next page from iRODS if needed
+	 *
+	 * @return <code>boolean</code> that is <code>true</code> if there is a
+	 *         current row, or <code>false</code> if the results are exhausted
+	 * @throws JargonException
+	 */
+	public boolean next() throws JargonException {
+
+		if (closed) {
+			currentRow = null;
+			return false;
+		}
+
+		indexInPage++;
+
+		while (indexInPage >= currentPage.getResults().size()) {
+
+			if (!currentPage.isHasMoreRecords()) {
+				log.info("results exhausted after {} rows", rowsRead);
+				release();
+				return false;
+			}
+
+			currentPage = takeNextPage();
+			rowsFetched += currentPage.getResults().size();
+			indexInPage = 0;
+			startPrefetch();
+		}
+
+		currentRow = currentPage.getResults().get(indexInPage);
+		rowsRead++;
+		return true;
+	}
+
+	/**
+	 * Get the current row
+	 *
+	 * @return {@link IRODSQueryResultRow} at the cursor
+	 * @throws JargonException
+	 *             if there is no current row
+	 */
+	public IRODSQueryResultRow getRow() throws JargonException {
+		if (currentRow == null) {
+			throw new JargonException(
+					"no current row, next() must return true first");
+		}
+		return currentRow;
+	}
+
+	/**
+	 * @param columnName
+	 *            <code>String</code> with the name of a column
+	 * @return <code>String</code> value of the column in the current row
+	 * @throws JargonException
+	 */
+	public String getString(final String columnName) throws JargonException {
+		return getRow().getColumn(columnName);
+	}
+
+	/**
+	 * @param column
+	 *            <code>int</code> with the position of a column
+	 * @return <code>String</code> value of the column in the current row
+	 * @throws JargonException
+	 */
+	public String getString(final int column) throws JargonException {
+		return getRow().getColumn(column);
+	}
+
+	/**
+	 * @param columnName
+	 *            <code>String</code> with the name of a column
+	 * @return <code>int</code> value of the column in the current row, or zero
+	 *         if blank
+	 * @throws JargonException
+	 */
+	public int getInt(final String columnName) throws JargonException {
+		return getRow().getColumnAsIntOrZero(columnName);
+	}
+
+	/**
+	 * @param column
+	 *            <code>int</code> with the position of a column
+	 * @return <code>int</code> value of the column in the current row, or zero
+	 *         if blank
+	 * @throws JargonException
+	 */
+	public int getInt(final int column) throws JargonException {
+		return getRow().getColumnAsIntOrZero(column);
+	}
+
+	/**
+	 * @param columnName
+	 *            <code>String</code> with the name of a column
+	 * @return <code>long</code> value of the column in the current row, or
+	 *         zero if blank
+	 * @throws JargonException
+	 */
+	public long getLong(final String columnName) throws JargonException {
+		return getRow().getColumnAsLongOrZero(columnName);
+	}
+
+	/**
+	 * @param column
+	 *            <code>int</code> with the position of a column
+	 * @return <code>long</code> value of the column in the current row, or
+	 *         zero if blank
+	 * @throws JargonException
+	 */
+	public long getLong(final int column) throws JargonException {
+		return getRow().getColumnAsLongOrZero(column);
+	}
+
+	/**
+	 * @param columnName
+	 *            <code>String</code> with the name of a column holding an iRODS
+	 *            time value
+	 * @return <code>Date</code> value of the column in the current row, or
+	 *         <code>null</code> if blank
+	 * @throws JargonException
+	 */
+	public Date getDate(final String columnName) throws JargonException {
+		return getRow().getColumnAsDateOrNull(columnName);
+	}
+
+	/**
+	 * @param column
+	 *            <code>int</code> with the position of a column holding an
+	 *            iRODS time value
+	 * @return <code>Date</code> value of the column in the current row, or
+	 *         <code>null</code> if blank
+	 * @throws JargonException
+	 */
+	public Date getDate(final int column) throws JargonException {
+		return getRow().getColumnAsDateOrNull(column);
+	}
+
+	/**
+	 * Close the cursor, releasing the query in iRODS, and when prefetching,
+	 * the connection and thread held by the cursor. This may be called more
+	 * than once.
+	 *
+	 * @throws IOException
+	 *             wrapping the <code>JargonException</code> if the query could
+	 *             not be released
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			release();
+		} catch (JargonException je) {
+			throw new IOException("error closing specific query cursor", je);
+		}
+	}
+
+	/**
+	 * @return <code>boolean</code> that is <code>true</code> if the cursor has
+	 *         been closed
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * @return <code>List<String></code> with the column names in the results
+	 */
+	public List<String> getColumnNames() {
+		return columnNames;
+	}
+
+	/**
+	 * @return <code>int</code> with the number of rows read so far
+	 */
+	public int getRowsRead() {
+		return rowsRead;
+	}
+
+	/**
+	 * @return the specificQuery
+	 */
+	public SpecificQuery getSpecificQuery() {
+		return specificQuery;
+	}
+
+	private void release() throws JargonException {
+
+		if (closed) {
+			return;
+		}
+
+		log.info("close()");
+		closed = true;
+		currentRow = null;
+
+		/*
+		 * a page being fetched in the background holds the latest
+		 * continuation, so wait for it before closing
+		 */
+		if (nextPage != null) {
+			try {
+				currentPage = takeNextPage();
+			} catch (JargonException je) {
+				log.warn("error in prefetched page when closing, ignored", je);
+			}
+		}
+
+		if (prefetchExecutor != null) {
+			releasePrefetchConnection(currentPage);
+		} else if (currentPage.isHasMoreRecords()) {
+			SpecificQueryAOImpl.closeResultSet(irodsProtocol, currentPage);
+		}
+	}
+
+	/**
+	 * Close the query, if still open, on the prefetch thread, then stop that
+	 * thread, which returns its connection as it exits
+	 *
+	 * @param lastPage
+	 *            {@link SpecificQueryResultSet} with the last page obtained,
+	 *            or <code>null</code> if there is no open query
+	 */
+	private void releasePrefetchConnection(
+			final SpecificQueryResultSet lastPage) throws JargonException {
+
+		log.debug("releasing prefetch connection");
+		nextPage = null;
+
+		try {
+			await(prefetchExecutor.submit(new Callable<Void>() {
+				@Override
+				public Void call() throws Exception {
+					if (lastPage != null && lastPage.isHasMoreRecords()) {
+						SpecificQueryAOImpl.closeResultSet(irodsProtocol,
+								lastPage);
+					}
+					return null;
+				}
+			}));
+		} finally {
+			prefetchExecutor.shutdown();
+			prefetchExecutor = null;
+		}
+	}
+
+	private void startPrefetch() {
+
+		if (prefetchExecutor == null || !currentPage.isHasMoreRecords()) {
+			return;
+		}
+
+		log.debug("prefetching next page");
+		final SpecificQueryResultSet priorPage = currentPage;
+		final int offset = rowsFetched;
+		nextPage = prefetchExecutor
+				.submit(new Callable<SpecificQueryResultSet>() {
+					@Override
+					public SpecificQueryResultSet call() throws Exception {
+						return fetchPageAfter(priorPage, offset);
+					}
+				});
+	}
+
+	private SpecificQueryResultSet takeNextPage() throws JargonException {
+
+		if (nextPage == null) {
+			if (prefetchExecutor == null) {
+				return fetchPageAfter(currentPage, rowsFetched);
+			}
+			startPrefetch();
+		}
+
+		Future<SpecificQueryResultSet> pending = nextPage;
+		nextPage = null;
+		return await(pending);
+	}
+
+	private <T> T await(final Future<T> future) throws JargonException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JargonException("interrupted waiting for next page", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof JargonException) {
+				throw (JargonException) e.getCause();
+			}
+			throw new JargonException("error getting next page", e.getCause());
+		}
+	}
+
+	/**
+	 * Open the query on the connection for the account in the current thread,
+	 * which from then on is used for the query
+	 */
+	private SpecificQueryResultSet fetchFirstPage() throws JargonException {
+		irodsProtocol = irodsSession.currentConnection(irodsAccount);
+		return SpecificQueryAOImpl.queryPageWithoutClosing(irodsProtocol,
+				specificQuery, columnNames, pageSize, 0);
+	}
+
+	private SpecificQueryResultSet fetchPageAfter(
+			final SpecificQueryResultSet priorPage, final int offset)
+			throws JargonException {
+		SpecificQuery continuation = SpecificQuery.instanceArguments(
+				specificQuery.getQueryString(), specificQuery.getArguments(),
+				priorPage.getContinuationIndex(), specificQuery.getZoneHint());
+		return SpecificQueryAOImpl.queryPageWithoutClosing(irodsProtocol,
+				continuation, columnNames, pageSize, offset);
+	}
+
+}
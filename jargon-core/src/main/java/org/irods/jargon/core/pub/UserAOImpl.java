@@ -24,6 +24,7 @@ import org.irods.jargon.core.pub.aohelper.UserAOHelper;
 import org.irods.jargon.core.pub.domain.AvuData;
 import org.irods.jargon.core.pub.domain.User;
 import org.irods.jargon.core.query.GenQueryBuilderException;
+import org.irods.jargon.core.query.GenQueryCacheRegion;
 import org.irods.jargon.core.query.GenQueryOrderByField.OrderByType;
 import org.irods.jargon.core.query.IRODSGenQuery;
 import org.irods.jargon.core.query.IRODSGenQueryBuilder;
@@ -217,6 +218,7 @@ public final class UserAOImpl extends IRODSGenericAO implements UserAO {
 		try {
 
 			getIRODSProtocol().irodsFunction(adminPI);
+			invalidateGenQueryResultCache(GenQueryCacheRegion.USER);
 
 		} catch (DuplicateDataException dde) {
 			throw dde;
@@ -379,8 +381,8 @@ public final class UserAOImpl extends IRODSGenericAO implements UserAO {
 	@FederationEnabled
 	public User findByIdInZone(final String userId, final String zone)
 			throws JargonException, DataNotFoundException {
-		final IRODSGenQueryExecutorImpl irodsGenQueryExecutorImpl = new IRODSGenQueryExecutorImpl(
-				getIRODSSession(), getIRODSAccount());
+		final IRODSGenQueryExecutor irodsGenQueryExecutorImpl = getIRODSAccessObjectFactory()
+				.getIRODSGenQueryExecutor(getIRODSAccount());
 		StringBuilder userQuery = new StringBuilder();
 
 		userQuery.append(UserAOHelper.buildUserSelects());
@@ -598,6 +600,7 @@ public final class UserAOImpl extends IRODSGenericAO implements UserAO {
 
 		try {
 			getIRODSProtocol().irodsFunction(adminPI);
+			invalidateGenQueryResultCache(GenQueryCacheRegion.USER);
 		} catch (DataNotFoundException dnf) {
 			log.debug("user does not exist, just behave as if deleted");
 		} catch (InvalidUserException iue) {
@@ -804,6 +807,7 @@ public final class UserAOImpl extends IRODSGenericAO implements UserAO {
 		GeneralAdminInp adminPI = GeneralAdminInp
 				.instanceForModifyUserPassword(userName, myKey2);
 		getIRODSProtocol().irodsFunction(adminPI);
+		invalidateGenQueryResultCache(GenQueryCacheRegion.USER);
 
 	}
 
@@ -859,6 +863,8 @@ public final class UserAOImpl extends IRODSGenericAO implements UserAO {
 
 		try {
 			getIRODSProtocol().irodsFunction(modifyAvuMetadataInp);
+			invalidateGenQueryResultCache(GenQueryCacheRegion.USER,
+					GenQueryCacheRegion.METADATA);
 		} catch (JargonException je) {
 
 			if (je.getMessage().indexOf("-827000") > -1) {
@@ -915,6 +921,8 @@ public final class UserAOImpl extends IRODSGenericAO implements UserAO {
 		log.debug("sending avu request");
 		try {
 			getIRODSProtocol().irodsFunction(modifyAvuMetadataInp);
+			invalidateGenQueryResultCache(GenQueryCacheRegion.USER,
+					GenQueryCacheRegion.METADATA);
 		} catch (JargonException je) {
 
 			if (je.getMessage().indexOf("-827000") > -1) {
@@ -957,6 +965,7 @@ public final class UserAOImpl extends IRODSGenericAO implements UserAO {
 		GeneralAdminInp adminPI = GeneralAdminInp.instanceForModifyUserType(
 				user.getName(), user.getUserType());
 		getIRODSProtocol().irodsFunction(adminPI);
+		invalidateGenQueryResultCache(GenQueryCacheRegion.USER);
 	}
 
 	/*
@@ -985,6 +994,7 @@ public final class UserAOImpl extends IRODSGenericAO implements UserAO {
 		GeneralAdminInp adminPI = GeneralAdminInp.instanceForModifyUserDN(
 				userName, userDN);
 		getIRODSProtocol().irodsFunction(adminPI);
+		invalidateGenQueryResultCache(GenQueryCacheRegion.USER);
 	}
 
 	@Override
@@ -1007,24 +1017,28 @@ public final class UserAOImpl extends IRODSGenericAO implements UserAO {
 		GeneralAdminInp adminPI = GeneralAdminInp.instanceForRemoveUserDN(
 				userName, userDN);
 		getIRODSProtocol().irodsFunction(adminPI);
+		invalidateGenQueryResultCache(GenQueryCacheRegion.USER);
 	}
 
 	private void updateUserZone(final User user) throws JargonException {
 		GeneralAdminInp adminPI = GeneralAdminInp.instanceForModifyUserZone(
 				user.getName(), user.getZone());
 		getIRODSProtocol().irodsFunction(adminPI);
+		invalidateGenQueryResultCache(GenQueryCacheRegion.USER);
 	}
 
 	private void updateUserComment(final User user) throws JargonException {
 		GeneralAdminInp adminPI = GeneralAdminInp.instanceForModifyUserComment(
 				user.getName(), user.getComment());
 		getIRODSProtocol().irodsFunction(adminPI);
+		invalidateGenQueryResultCache(GenQueryCacheRegion.USER);
 	}
 
 	private void updateUserInfo(final User user) throws JargonException {
 		GeneralAdminInp adminPI = GeneralAdminInp.instanceForModifyUserInfo(
 				user.getName(), user.getInfo());
 		getIRODSProtocol().irodsFunction(adminPI);
+		invalidateGenQueryResultCache(GenQueryCacheRegion.USER);
 	}
 
 	private IRODSGenQueryExecutor getGenQueryExecutor() throws JargonException {
@@ -17,6 +17,7 @@ import org.irods.jargon.core.pub.domain.User;
 import org.irods.jargon.core.pub.domain.UserGroup;
 import org.irods.jargon.core.query.AbstractIRODSQueryResultSet;
 import org.irods.jargon.core.query.GenQueryBuilderException;
+import org.irods.jargon.core.query.GenQueryCacheRegion;
 import org.irods.jargon.core.query.IRODSGenQuery;
 import org.irods.jargon.core.query.IRODSGenQueryBuilder;
 import org.irods.jargon.core.query.IRODSQueryResultRow;
@@ -84,6 +85,7 @@ public final class UserGroupAOImpl extends IRODSGenericAO implements
 
 		try {
 			getIRODSProtocol().irodsFunction(adminPI);
+			invalidateGenQueryResultCache(GenQueryCacheRegion.USER);
 		} catch (NoMoreRulesException nmr) {
 			log.warn("no more rules exception will be treated as duplicate user to normalize behavior for pre-2.5 iRODS servers");
 			throw new DuplicateDataException(
@@ -151,6 +153,7 @@ public final class UserGroupAOImpl extends IRODSGenericAO implements
 
 		try {
 			getIRODSProtocol().irodsFunction(adminPI);
+			invalidateGenQueryResultCache(GenQueryCacheRegion.USER);
 		} catch (DataNotFoundException dnf) {
 			log.warn("user group does not exist, ignoring remove");
 		} catch (InvalidUserException e) {
@@ -594,6 +597,7 @@ public final class UserGroupAOImpl extends IRODSGenericAO implements
 		log.debug("executing admin PI");
 
 		getIRODSProtocol().irodsFunction(adminPI);
+		invalidateGenQueryResultCache(GenQueryCacheRegion.USER);
 	}
 
 	/*
@@ -634,6 +638,7 @@ public final class UserGroupAOImpl extends IRODSGenericAO implements
 		log.debug("executing admin PI");
 
 		getIRODSProtocol().irodsFunction(adminPI);
+		invalidateGenQueryResultCache(GenQueryCacheRegion.USER);
 
 	}
 
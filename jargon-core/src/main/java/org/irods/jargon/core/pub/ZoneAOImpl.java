@@ -51,8 +51,8 @@ public final class ZoneAOImpl extends IRODSGenericAO implements ZoneAO {
 	@Override
 	public List<Zone> listZones() throws JargonException {
 
-		IRODSGenQueryExecutor irodsGenQueryExecutor = new IRODSGenQueryExecutorImpl(
-				getIRODSSession(), getIRODSAccount());
+		IRODSGenQueryExecutor irodsGenQueryExecutor = getIRODSAccessObjectFactory()
+				.getIRODSGenQueryExecutor(getIRODSAccount());
 
 		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
 		IRODSQueryResultSet resultSet;
@@ -150,8 +150,8 @@ public final class ZoneAOImpl extends IRODSGenericAO implements ZoneAO {
 			return tempZone;
 		}
 
-		IRODSGenQueryExecutorImpl irodsGenQueryExecutorImpl = new IRODSGenQueryExecutorImpl(
-				getIRODSSession(), getIRODSAccount());
+		IRODSGenQueryExecutor irodsGenQueryExecutorImpl = getIRODSAccessObjectFactory()
+				.getIRODSGenQueryExecutor(getIRODSAccount());
 		StringBuilder zoneQuery = new StringBuilder();
 		char comma = ',';
 
@@ -0,0 +1,88 @@
+/**
+ *
+ */
+package org.irods.jargon.core.query;
+
+import java.util.Arrays;
+
+import org.irods.jargon.core.exception.JargonException;
+
+/**
+ * A {@link PreparedIRODSGenQuery} with values bound to its markers, ready to
+ * be given to the <code>IRODSGenQueryExecutor</code>. The translation of the
+ * template is reused, so executing a bound query does not parse the query
+ * again.
+ * <p/>
+ * This object is immutable, and is safe to share between threads.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public final class BoundIRODSGenQuery extends AbstractIRODSGenQuery {
+
+	private final PreparedIRODSGenQuery preparedIRODSGenQuery;
+	private final String[] values;
+
+	BoundIRODSGenQuery(final PreparedIRODSGenQuery preparedIRODSGenQuery,
+			final int numberOfResultsDesired, final String[] values)
+			throws JargonException {
+		super(numberOfResultsDesired);
+
+		if (preparedIRODSGenQuery == null) {
+			throw new IllegalArgumentException("null preparedIRODSGenQuery");
+		}
+
+		if (values == null) {
+			throw new IllegalArgumentException("null values");
+		}
+
+		if (values.length != preparedIRODSGenQuery.getBindCount()) {
+			throw new IllegalArgumentException("expected "
+					+ preparedIRODSGenQuery.getBindCount()
+					+ " bind values, got " + values.length);
+		}
+
+		this.preparedIRODSGenQuery = preparedIRODSGenQuery;
+		this.values = Arrays.copyOf(values, values.length);
+	}
+
+	/**
+	 * Create the translated form of this query, suitable for sending to iRODS
+	 *
+	 * @return {@link TranslatedIRODSGenQuery}
+	 * @throws JargonException
+	 * @throws JargonQueryException
+	 */
+	public TranslatedIRODSGenQuery convertToTranslatedIRODSGenQuery()
+			throws JargonException, JargonQueryException {
+		return preparedIRODSGenQuery.translate(this, values);
+	}
+
+	/**
+	 * @return the preparedIRODSGenQuery
+	 */
+	public PreparedIRODSGenQuery getPreparedIRODSGenQuery() {
+		return preparedIRODSGenQuery;
+	}
+
+	/**
+	 * @return a copy of the values bound to the markers, in order
+	 */
+	String[] getValues() {
+		return Arrays.copyOf(values, values.length);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("BoundIRODSGenQuery:");
+		sb.append("\n   queryTemplate:");
+		sb.append(preparedIRODSGenQuery.getQueryTemplate());
+		sb.append("\n   values:");
+		sb.append(Arrays.toString(values));
+		sb.append("\n    numberOfResultsDesired:");
+		sb.append(numberOfResultsDesired);
+		return sb.toString();
+	}
+
+}
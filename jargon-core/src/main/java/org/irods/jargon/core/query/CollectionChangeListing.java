@@ -0,0 +1,236 @@
+/**
+ *
+ */
+package org.irods.jargon.core.query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The collections and data objects under a collection that have been created
+ * or modified at or after a given watermark, along with a new watermark that
+ * may be used to ask for the next set of changes.
+ * <p/>
+ * Watermarks are iRODS server times in milliseconds since the epoch (as in
+ * <code>EnvironmentalInfoAO.getIRODSServerCurrentTime()</code>). The iCAT
+ * keeps modify times in seconds, and changes are found with a
+ * 'greater than or equal' comparison, so entries modified in the same second
+ * as the watermark will be returned again by the next incremental listing.
+ * Callers should treat the listing as 'at least once'.
+ * <p/>
+ * A listing holds one page of changes. If {@link #isLastResult()} is
+ * <code>false</code>, the listing is given back to the access object to get
+ * the next page, with the same watermarks.
+ * <p/>
+ * Deletions do not leave a modify time in the catalog, and are not reflected
+ * in this listing.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class CollectionChangeListing {
+
+	/**
+	 * Absolute path to the collection under which changes were listed
+	 */
+	private String absolutePathToParent = "";
+
+	/**
+	 * Watermark (iRODS time in millis) that was given for the listing
+	 */
+	private long sinceWatermark = 0L;
+
+	/**
+	 * Watermark (iRODS time in millis) to use for the next listing, this is
+	 * the iRODS server time taken before the first page was queried, or the
+	 * given watermark if that is later
+	 */
+	private long newWatermark = 0L;
+
+	/**
+	 * <code>true</code> if this is the last page of changes
+	 */
+	private boolean lastResult = true;
+
+	/**
+	 * Query at which the next page continues, kept for the access object
+	 */
+	private int continuationQuery = 0;
+
+	/**
+	 * Offset into the results of the continuation query at which the next
+	 * page continues, kept for the access object
+	 */
+	private int continuationIndex = 0;
+
+	/**
+	 * Count of changed collections in the results
+	 */
+	private int collectionsCount = 0;
+
+	/**
+	 * Count of changed data objects in the results
+	 */
+	private int dataObjectsCount = 0;
+
+	/**
+	 * Changed collections, followed by changed data objects, in this page
+	 */
+	private List<CollectionAndDataObjectListingEntry> collectionAndDataObjectListingEntries = new ArrayList<CollectionAndDataObjectListingEntry>();
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("CollectionChangeListing");
+		sb.append("\n   absolutePathToParent:");
+		sb.append(absolutePathToParent);
+		sb.append("\n   sinceWatermark:");
+		sb.append(sinceWatermark);
+		sb.append("\n   newWatermark:");
+		sb.append(newWatermark);
+		sb.append("\n   collectionsCount:");
+		sb.append(collectionsCount);
+		sb.append("\n   dataObjectsCount:");
+		sb.append(dataObjectsCount);
+		sb.append("\n   lastResult:");
+		sb.append(lastResult);
+		return sb.toString();
+	}
+
+	/**
+	 * @return the absolutePathToParent
+	 */
+	public String getAbsolutePathToParent() {
+		return absolutePathToParent;
+	}
+
+	/**
+	 * @param absolutePathToParent
+	 *            the absolutePathToParent to set
+	 */
+	public void setAbsolutePathToParent(final String absolutePathToParent) {
+		this.absolutePathToParent = absolutePathToParent;
+	}
+
+	/**
+	 * @return the sinceWatermark
+	 */
+	public long getSinceWatermark() {
+		return sinceWatermark;
+	}
+
+	/**
+	 * @param sinceWatermark
+	 *            the sinceWatermark to set
+	 */
+	public void setSinceWatermark(final long sinceWatermark) {
+		this.sinceWatermark = sinceWatermark;
+	}
+
+	/**
+	 * @return the newWatermark
+	 */
+	public long getNewWatermark() {
+		return newWatermark;
+	}
+
+	/**
+	 * @param newWatermark
+	 *            the newWatermark to set
+	 */
+	public void setNewWatermark(final long newWatermark) {
+		this.newWatermark = newWatermark;
+	}
+
+	/**
+	 * @return the lastResult
+	 */
+	public boolean isLastResult() {
+		return lastResult;
+	}
+
+	/**
+	 * @param lastResult
+	 *            the lastResult to set
+	 */
+	public void setLastResult(final boolean lastResult) {
+		this.lastResult = lastResult;
+	}
+
+	/**
+	 * @return the continuationQuery
+	 */
+	public int getContinuationQuery() {
+		return continuationQuery;
+	}
+
+	/**
+	 * @param continuationQuery
+	 *            the continuationQuery to set
+	 */
+	public void setContinuationQuery(final int continuationQuery) {
+		this.continuationQuery = continuationQuery;
+	}
+
+	/**
+	 * @return the continuationIndex
+	 */
+	public int getContinuationIndex() {
+		return continuationIndex;
+	}
+
+	/**
+	 * @param continuationIndex
+	 *            the continuationIndex to set
+	 */
+	public void setContinuationIndex(final int continuationIndex) {
+		this.continuationIndex = continuationIndex;
+	}
+
+	/**
+	 * @return the collectionsCount
+	 */
+	public int getCollectionsCount() {
+		return collectionsCount;
+	}
+
+	/**
+	 * @param collectionsCount
+	 *            the collectionsCount to set
+	 */
+	public void setCollectionsCount(final int collectionsCount) {
+		this.collectionsCount = collectionsCount;
+	}
+
+	/**
+	 * @return the dataObjectsCount
+	 */
+	public int getDataObjectsCount() {
+		return dataObjectsCount;
+	}
+
+	/**
+	 * @param dataObjectsCount
+	 *            the dataObjectsCount to set
+	 */
+	public void setDataObjectsCount(final int dataObjectsCount) {
+		this.dataObjectsCount = dataObjectsCount;
+	}
+
+	/**
+	 * @return the collectionAndDataObjectListingEntries
+	 */
+	public List<CollectionAndDataObjectListingEntry> getCollectionAndDataObjectListingEntries() {
+		return collectionAndDataObjectListingEntries;
+	}
+
+	/**
+	 * @param collectionAndDataObjectListingEntries
+	 *            the collectionAndDataObjectListingEntries to set
+	 */
+	public void setCollectionAndDataObjectListingEntries(
+			final List<CollectionAndDataObjectListingEntry> collectionAndDataObjectListingEntries) {
+		this.collectionAndDataObjectListingEntries = collectionAndDataObjectListingEntries;
+	}
+
+}
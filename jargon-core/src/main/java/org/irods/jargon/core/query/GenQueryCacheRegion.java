@@ -0,0 +1,197 @@
+/**
+ *
+ */
+package org.irods.jargon.core.query;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Classifies GenQueries by the iCAT tables they touch, so that cached query
+ * results can be given a time to live by class of query, and invalidated when
+ * an access object changes the underlying catalog data.
+ * <p/>
+ * The region of a query is derived from the column names used in its selects
+ * and conditions, so a query that joins users and metadata (for example) will
+ * belong to both the <code>USER</code> and the <code>METADATA</code> regions.
+ * <p/>
+ * Only the <code>RESOURCE</code>, <code>ZONE</code> and <code>USER</code>
+ * regions are invalidated when jargon changes their catalog data, see
+ * {@link #isInvalidatedOnChange()}. The other regions are changed by the data
+ * object, collection, AVU, ACL and ticket access objects without any
+ * invalidation, and so their results must not be cached.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public enum GenQueryCacheRegion {
+
+	RESOURCE(true), ZONE(true), USER(true), COLLECTION(false),
+	DATA_OBJECT(false), METADATA(false), ACCESS(false), TICKET(false),
+	QUOTA(false), OTHER(false);
+
+	/**
+	 * Matches the column names in the text of a query, such as
+	 * <code>RESC_NAME</code>, which all contain an underscore, unlike the
+	 * keywords and aggregate functions
+	 */
+	private static final Pattern COLUMN_NAME_PATTERN = Pattern
+			.compile("[A-Za-z][A-Za-z0-9]*(_[A-Za-z0-9]+)+");
+
+	private final boolean invalidatedOnChange;
+
+	GenQueryCacheRegion(final boolean invalidatedOnChange) {
+		this.invalidatedOnChange = invalidatedOnChange;
+	}
+
+	/**
+	 * Determine the set of regions that a query belongs to, as given by the
+	 * caller, without translating it. Translating a query given as a string
+	 * needs the properties of the iRODS server, and so a connection, so the
+	 * column names are instead found in the text of the query, outside of any
+	 * quoted values.
+	 *
+	 * @param irodsQuery
+	 *            {@link AbstractIRODSGenQuery} to classify
+	 * @return <code>Set</code> of {@link GenQueryCacheRegion}, this will never
+	 *         be empty
+	 */
+	public static Set<GenQueryCacheRegion> regionsForQuery(
+			final AbstractIRODSGenQuery irodsQuery) {
+
+		if (irodsQuery == null) {
+			throw new IllegalArgumentException("null irodsQuery");
+		}
+
+		Set<GenQueryCacheRegion> regions = EnumSet
+				.noneOf(GenQueryCacheRegion.class);
+
+		if (irodsQuery instanceof IRODSGenQuery) {
+			addRegionsForQueryText(regions,
+					((IRODSGenQuery) irodsQuery).getQueryString());
+		} else if (irodsQuery instanceof BoundIRODSGenQuery) {
+			addRegionsForQueryText(regions, ((BoundIRODSGenQuery) irodsQuery)
+					.getPreparedIRODSGenQuery().getQueryTemplate());
+		} else if (irodsQuery instanceof IRODSGenQueryFromBuilder) {
+			IRODSGenQueryBuilderQueryData queryData = ((IRODSGenQueryFromBuilder) irodsQuery)
+					.getIrodsGenQueryBuilderData();
+			for (GenQuerySelectField selectField : queryData.getSelectFields()) {
+				regions.add(regionForColumnName(selectField
+						.getSelectFieldColumnName()));
+			}
+			for (GenQueryBuilderCondition condition : queryData.getConditions()) {
+				regions.add(regionForColumnName(condition
+						.getSelectFieldColumnName()));
+			}
+		} else {
+			throw new IllegalArgumentException("unknown type of irodsGenQuery");
+		}
+
+		if (regions.isEmpty()) {
+			regions.add(OTHER);
+		}
+
+		return regions;
+	}
+
+	private static void addRegionsForQueryText(
+			final Set<GenQueryCacheRegion> regions, final String queryText) {
+		if (queryText == null) {
+			return;
+		}
+
+		Matcher matcher = COLUMN_NAME_PATTERN.matcher(queryText.replaceAll(
+				"'[^']*'", "''"));
+		while (matcher.find()) {
+			regions.add(regionForColumnName(matcher.group().toUpperCase()));
+		}
+	}
+
+	/**
+	 * Determine the set of regions that a query belongs to
+	 *
+	 * @param translatedIRODSGenQuery
+	 *            {@link TranslatedIRODSGenQuery} to classify
+	 * @return <code>Set</code> of {@link GenQueryCacheRegion}, this will never
+	 *         be empty
+	 */
+	public static Set<GenQueryCacheRegion> regionsForQuery(
+			final TranslatedIRODSGenQuery translatedIRODSGenQuery) {
+
+		if (translatedIRODSGenQuery == null) {
+			throw new IllegalArgumentException("null translatedIRODSGenQuery");
+		}
+
+		Set<GenQueryCacheRegion> regions = EnumSet
+				.noneOf(GenQueryCacheRegion.class);
+
+		for (GenQuerySelectField selectField : translatedIRODSGenQuery
+				.getSelectFields()) {
+			regions.add(regionForColumnName(selectField
+					.getSelectFieldColumnName()));
+		}
+
+		for (TranslatedGenQueryCondition condition : translatedIRODSGenQuery
+				.getTranslatedQueryConditions()) {
+			regions.add(regionForColumnName(condition.getColumnName()));
+		}
+
+		if (regions.isEmpty()) {
+			regions.add(OTHER);
+		}
+
+		return regions;
+	}
+
+	/**
+	 * Determine the region for a single GenQuery column name, such as
+	 * <code>RESC_NAME</code>
+	 *
+	 * @param columnName
+	 *            <code>String</code> with the column name
+	 * @return {@link GenQueryCacheRegion} for the column
+	 */
+	public static GenQueryCacheRegion regionForColumnName(
+			final String columnName) {
+
+		if (columnName == null || columnName.isEmpty()) {
+			return OTHER;
+		}
+
+		if (columnName.startsWith("DATA_ACCESS")
+				|| columnName.startsWith("COLL_ACCESS")) {
+			return ACCESS;
+		} else if (columnName.startsWith("RESC_")) {
+			return RESOURCE;
+		} else if (columnName.startsWith("ZONE_")) {
+			return ZONE;
+		} else if (columnName.startsWith("USER_")) {
+			return USER;
+		} else if (columnName.startsWith("META_")) {
+			return METADATA;
+		} else if (columnName.startsWith("TICKET_")) {
+			return TICKET;
+		} else if (columnName.startsWith("QUOTA_")) {
+			return QUOTA;
+		} else if (columnName.startsWith("DATA_")) {
+			return DATA_OBJECT;
+		} else if (columnName.startsWith("COLL_")
+				|| columnName.startsWith("COL_COLL_")) {
+			return COLLECTION;
+		} else {
+			return OTHER;
+		}
+	}
+
+	/**
+	 * @return <code>boolean</code> of <code>true</code> if the access objects
+	 *         invalidate this region when they change its catalog data, so
+	 *         that results in this region may be cached
+	 */
+	public boolean isInvalidatedOnChange() {
+		return invalidatedOnChange;
+	}
+
+}
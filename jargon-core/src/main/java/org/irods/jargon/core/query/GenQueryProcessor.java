@@ -186,6 +186,9 @@ public class GenQueryProcessor {
 			translatedIRODSQuery = irodsQueryTranslator
 					.getTranslatedQuery((IRODSGenQuery) irodsQuery);
 
+		} else if (irodsQuery instanceof BoundIRODSGenQuery) {
+			translatedIRODSQuery = ((BoundIRODSGenQuery) irodsQuery)
+					.convertToTranslatedIRODSGenQuery();
 		} else if (irodsQuery instanceof IRODSGenQueryFromBuilder) {
 			try {
 				translatedIRODSQuery = ((IRODSGenQueryFromBuilder) irodsQuery)
@@ -0,0 +1,420 @@
+/**
+ *
+ */
+package org.irods.jargon.core.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded, time-limited cache of GenQuery result sets. This is meant to be
+ * shared (e.g. held in the <code>IRODSSession</code>) and consulted by a
+ * caching <code>IRODSGenQueryExecutor</code>, so that read-mostly catalog
+ * queries (resource lists, zone info, user and group lookups) are not re-sent
+ * to iRODS on every call.
+ * <p/>
+ * Each entry is tagged with the {@link GenQueryCacheRegion}s of its query. A
+ * time to live is kept for each region, and a query is only cached if every
+ * region it touches has a time to live greater than zero. Entries live for the
+ * shortest time to live of their regions. Only the <code>RESOURCE</code>,
+ * <code>ZONE</code> and <code>USER</code> regions may be cached, as the other
+ * regions are changed by access objects that do not invalidate the cache, see
+ * {@link GenQueryCacheRegion#isInvalidatedOnChange()}.
+ * <p/>
+ * Access objects that change catalog data should call
+ * {@link #invalidateRegion(GenQueryCacheRegion)} so that stale results are not
+ * served. When the cache is full, the least recently used entry is evicted.
+ * <p/>
+ * This class is thread-safe. The cache holds its own immutable copy of each
+ * result set, which is shared between the callers of {@link #get(String)}.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class GenQueryResultCache {
+
+	public static final int DEFAULT_MAX_ENTRIES = 1000;
+	public static final long DEFAULT_RESOURCE_TIME_TO_LIVE_MILLIS = 300000L;
+	public static final long DEFAULT_ZONE_TIME_TO_LIVE_MILLIS = 600000L;
+	public static final long DEFAULT_USER_TIME_TO_LIVE_MILLIS = 60000L;
+
+	public static final Logger log = LoggerFactory
+			.getLogger(GenQueryResultCache.class);
+
+	private final int maxEntries;
+	private final Map<GenQueryCacheRegion, Long> timeToLiveMillisByRegion = new EnumMap<GenQueryCacheRegion, Long>(
+			GenQueryCacheRegion.class);
+	private final LinkedHashMap<String, CacheEntry> entries;
+
+	private long hits = 0;
+	private long misses = 0;
+	private long expirations = 0;
+	private long evictions = 0;
+	private long invalidations = 0;
+
+	/**
+	 * Create a cache with the default size bound
+	 */
+	public GenQueryResultCache() {
+		this(DEFAULT_MAX_ENTRIES);
+	}
+
+	/**
+	 * Create a cache with the given size bound
+	 *
+	 * @param maxEntries
+	 *            <code>int</code> with the maximum number of result sets to
+	 *            hold
+	 */
+	public GenQueryResultCache(final int maxEntries) {
+
+		if (maxEntries <= 0) {
+			throw new IllegalArgumentException("maxEntries must be > 0");
+		}
+
+		this.maxEntries = maxEntries;
+		entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true);
+
+		for (GenQueryCacheRegion region : GenQueryCacheRegion.values()) {
+			timeToLiveMillisByRegion.put(region, 0L);
+		}
+
+		timeToLiveMillisByRegion.put(GenQueryCacheRegion.RESOURCE,
+				DEFAULT_RESOURCE_TIME_TO_LIVE_MILLIS);
+		timeToLiveMillisByRegion.put(GenQueryCacheRegion.ZONE,
+				DEFAULT_ZONE_TIME_TO_LIVE_MILLIS);
+		timeToLiveMillisByRegion.put(GenQueryCacheRegion.USER,
+				DEFAULT_USER_TIME_TO_LIVE_MILLIS);
+	}
+
+	/**
+	 * Set the time to live for results of queries in the given region. A value
+	 * of 0 means that queries touching this region are not cached. Only a
+	 * region that is invalidated when its catalog data changes may be given a
+	 * time to live greater than 0.
+	 *
+	 * @param region
+	 *            {@link GenQueryCacheRegion}
+	 * @param timeToLiveMillis
+	 *            <code>long</code> with the time to live in milliseconds
+	 * @throws IllegalArgumentException
+	 *             if a time to live greater than 0 is given for a region that
+	 *             is not invalidated on change
+	 */
+	public synchronized void setTimeToLiveMillis(
+			final GenQueryCacheRegion region, final long timeToLiveMillis) {
+
+		if (region == null) {
+			throw new IllegalArgumentException("null region");
+		}
+
+		if (timeToLiveMillis < 0) {
+			throw new IllegalArgumentException("timeToLiveMillis must be >= 0");
+		}
+
+		if (timeToLiveMillis > 0 && !region.isInvalidatedOnChange()) {
+			throw new IllegalArgumentException(
+					"region is not invalidated on change, and cannot be cached:"
+							+ region);
+		}
+
+		log.info("setting time to live for region:{} to:{}", region,
+				timeToLiveMillis);
+		timeToLiveMillisByRegion.put(region, timeToLiveMillis);
+		invalidateRegionInternal(region);
+	}
+
+	/**
+	 * Get the time to live for results of queries in the given region
+	 *
+	 * @param region
+	 *            {@link GenQueryCacheRegion}
+	 * @return <code>long</code> with the time to live in milliseconds, 0 if
+	 *         not cached
+	 */
+	public synchronized long getTimeToLiveMillis(
+			final GenQueryCacheRegion region) {
+
+		if (region == null) {
+			throw new IllegalArgumentException("null region");
+		}
+
+		return timeToLiveMillisByRegion.get(region);
+	}
+
+	/**
+	 * Compute the time to live for a query touching the given regions
+	 *
+	 * @param regions
+	 *            <code>Set</code> of {@link GenQueryCacheRegion}
+	 * @return <code>long</code> with the time to live in milliseconds, 0 if a
+	 *         query in these regions should not be cached
+	 */
+	public synchronized long computeTimeToLiveMillis(
+			final Set<GenQueryCacheRegion> regions) {
+
+		if (regions == null || regions.isEmpty()) {
+			throw new IllegalArgumentException("null or empty regions");
+		}
+
+		long timeToLive = Long.MAX_VALUE;
+		for (GenQueryCacheRegion region : regions) {
+			timeToLive = Math.min(timeToLive,
+					timeToLiveMillisByRegion.get(region));
+		}
+		return timeToLive;
+	}
+
+	/**
+	 * Look up a cached result set
+	 *
+	 * @param key
+	 *            <code>String</code> with the cache key
+	 * @return {@link IRODSQueryResultSet} or <code>null</code> if no live entry
+	 *         is cached
+	 */
+	public synchronized IRODSQueryResultSet get(final String key) {
+
+		if (key == null || key.isEmpty()) {
+			throw new IllegalArgumentException("null or empty key");
+		}
+
+		CacheEntry entry = entries.get(key);
+
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+
+		if (entry.expiresAt <= System.currentTimeMillis()) {
+			log.debug("cache entry expired");
+			entries.remove(key);
+			expirations++;
+			misses++;
+			return null;
+		}
+
+		hits++;
+		return entry.resultSet;
+	}
+
+	/**
+	 * Cache a result set, if the regions of the query are cacheable. The cache
+	 * keeps an immutable copy of the result set, so later changes to the given
+	 * result set or its rows are not seen by the callers of
+	 * {@link #get(String)}.
+	 *
+	 * @param key
+	 *            <code>String</code> with the cache key
+	 * @param regions
+	 *            <code>Set</code> of {@link GenQueryCacheRegion} touched by
+	 *            the query
+	 * @param resultSet
+	 *            {@link IRODSQueryResultSet} to cache
+	 * @return <code>boolean</code> of <code>true</code> if the result was
+	 *         cached
+	 */
+	public synchronized boolean put(final String key,
+			final Set<GenQueryCacheRegion> regions,
+			final IRODSQueryResultSet resultSet) {
+
+		if (key == null || key.isEmpty()) {
+			throw new IllegalArgumentException("null or empty key");
+		}
+
+		if (resultSet == null) {
+			throw new IllegalArgumentException("null resultSet");
+		}
+
+		long timeToLive = computeTimeToLiveMillis(regions);
+		if (timeToLive <= 0) {
+			return false;
+		}
+
+		IRODSQueryResultSet snapshot;
+		try {
+			snapshot = snapshot(resultSet);
+		} catch (JargonException e) {
+			log.warn("unable to copy result set, not cached", e);
+			return false;
+		}
+
+		entries.put(key, new CacheEntry(snapshot, regions,
+				System.currentTimeMillis() + timeToLive));
+
+		Iterator<Map.Entry<String, CacheEntry>> iter = entries.entrySet()
+				.iterator();
+		while (entries.size() > maxEntries && iter.hasNext()) {
+			iter.next();
+			iter.remove();
+			evictions++;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Discard all cached results of queries that touch the given region. This
+	 * should be called when catalog data in that region has been changed.
+	 *
+	 * @param region
+	 *            {@link GenQueryCacheRegion} to invalidate
+	 */
+	public synchronized void invalidateRegion(final GenQueryCacheRegion region) {
+
+		if (region == null) {
+			throw new IllegalArgumentException("null region");
+		}
+
+		invalidateRegionInternal(region);
+	}
+
+	private void invalidateRegionInternal(final GenQueryCacheRegion region) {
+		Iterator<CacheEntry> iter = entries.values().iterator();
+		while (iter.hasNext()) {
+			if (iter.next().regions.contains(region)) {
+				iter.remove();
+				invalidations++;
+			}
+		}
+	}
+
+	/**
+	 * Discard all cached results
+	 */
+	public synchronized void clear() {
+		invalidations += entries.size();
+		entries.clear();
+	}
+
+	/**
+	 * @return {@link GenQueryResultCacheStatistics} with a snapshot of the
+	 *         cache statistics
+	 */
+	public synchronized GenQueryResultCacheStatistics getStatistics() {
+		return new GenQueryResultCacheStatistics(hits, misses, expirations,
+				evictions, invalidations, entries.size(), maxEntries);
+	}
+
+	/**
+	 * @return the maxEntries
+	 */
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * Describe a query as the caller gave it, before translation, for use in a
+	 * cache key. Translating a query given as a string needs the properties of
+	 * the iRODS server, and so a connection, which a cache hit should not
+	 * need.
+	 *
+	 * @param irodsQuery
+	 *            {@link AbstractIRODSGenQuery} to describe
+	 * @return <code>String</code> that is equal for equal queries, and differs
+	 *         otherwise
+	 */
+	public static String describeQuery(final AbstractIRODSGenQuery irodsQuery) {
+
+		if (irodsQuery == null) {
+			throw new IllegalArgumentException("null irodsQuery");
+		}
+
+		StringBuilder sb = new StringBuilder();
+		sb.append(irodsQuery.getNumberOfResultsDesired());
+
+		if (irodsQuery instanceof IRODSGenQuery) {
+			sb.append('Q');
+			appendPart(sb, ((IRODSGenQuery) irodsQuery).getQueryString());
+		} else if (irodsQuery instanceof BoundIRODSGenQuery) {
+			BoundIRODSGenQuery boundIRODSGenQuery = (BoundIRODSGenQuery) irodsQuery;
+			sb.append('P');
+			appendPart(sb, boundIRODSGenQuery.getPreparedIRODSGenQuery()
+					.getQueryTemplate());
+			for (String value : boundIRODSGenQuery.getValues()) {
+				appendPart(sb, value);
+			}
+		} else if (irodsQuery instanceof IRODSGenQueryFromBuilder) {
+			IRODSGenQueryBuilderQueryData queryData = ((IRODSGenQueryFromBuilder) irodsQuery)
+					.getIrodsGenQueryBuilderData();
+			sb.append('B');
+			sb.append(queryData.isDistinct() ? 'd' : '-');
+			sb.append(queryData.isUpperCase() ? 'u' : '-');
+			sb.append(queryData.isComputeTotalRowCount() ? 'c' : '-');
+			sb.append('s');
+			for (GenQuerySelectField selectField : queryData.getSelectFields()) {
+				appendPart(sb, selectField.getSelectFieldColumnName());
+				appendPart(sb, selectField.getSelectFieldType().name());
+			}
+			sb.append('w');
+			for (GenQueryBuilderCondition condition : queryData.getConditions()) {
+				appendPart(sb, condition.getSelectFieldColumnName());
+				appendPart(sb, condition.getOperator().name());
+				appendPart(sb, condition.getValue());
+			}
+			sb.append('o');
+			for (GenQueryOrderByField orderByField : queryData
+					.getOrderByFields()) {
+				appendPart(sb, orderByField.getSelectFieldColumnName());
+				appendPart(sb, orderByField.getOrderByType().name());
+			}
+		} else {
+			throw new IllegalArgumentException("unknown type of irodsGenQuery");
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Copy a result set, with rows whose columns cannot be changed
+	 */
+	private static IRODSQueryResultSet snapshot(
+			final IRODSQueryResultSet resultSet) throws JargonException {
+		List<IRODSQueryResultRow> rows = new ArrayList<IRODSQueryResultRow>(
+				resultSet.getResults().size());
+		for (IRODSQueryResultRow row : resultSet.getResults()) {
+			rows.add(IRODSQueryResultRow.instance(Collections
+					.unmodifiableList(new ArrayList<String>(row
+							.getColumnsAsList())), resultSet.getColumnNames(),
+					row.getRecordCount(), row.isLastResult()));
+		}
+		return IRODSQueryResultSet.instance(
+				resultSet.getTranslatedIRODSQuery(), rows,
+				resultSet.getContinuationIndex(), resultSet.getTotalRecords());
+	}
+
+	/**
+	 * Append a part of a key with its length, so that no two different lists
+	 * of parts make the same key
+	 */
+	private static void appendPart(final StringBuilder sb, final String part) {
+		String value = part == null ? "" : part;
+		sb.append(value.length());
+		sb.append(':');
+		sb.append(value);
+	}
+
+	private static final class CacheEntry {
+		private final IRODSQueryResultSet resultSet;
+		private final Set<GenQueryCacheRegion> regions;
+		private final long expiresAt;
+
+		CacheEntry(final IRODSQueryResultSet resultSet,
+				final Set<GenQueryCacheRegion> regions, final long expiresAt) {
+			this.resultSet = resultSet;
+			this.regions = regions;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
@@ -0,0 +1,139 @@
+/**
+ *
+ */
+package org.irods.jargon.core.query;
+
+/**
+ * Immutable snapshot of the statistics kept by a {@link GenQueryResultCache}
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class GenQueryResultCacheStatistics {
+
+	private final long hits;
+	private final long misses;
+	private final long expirations;
+	private final long evictions;
+	private final long invalidations;
+	private final int size;
+	private final int maxEntries;
+
+	/**
+	 * Constructor
+	 *
+	 * @param hits
+	 *            <code>long</code> with the number of lookups that found a
+	 *            live entry
+	 * @param misses
+	 *            <code>long</code> with the number of lookups that did not
+	 *            find a live entry
+	 * @param expirations
+	 *            <code>long</code> with the number of entries discarded
+	 *            because their time to live had passed
+	 * @param evictions
+	 *            <code>long</code> with the number of entries discarded to keep
+	 *            the cache within its size bound
+	 * @param invalidations
+	 *            <code>long</code> with the number of entries discarded by
+	 *            region invalidation or clearing of the cache
+	 * @param size
+	 *            <code>int</code> with the current number of entries
+	 * @param maxEntries
+	 *            <code>int</code> with the size bound of the cache
+	 */
+	public GenQueryResultCacheStatistics(final long hits, final long misses,
+			final long expirations, final long evictions,
+			final long invalidations, final int size, final int maxEntries) {
+		this.hits = hits;
+		this.misses = misses;
+		this.expirations = expirations;
+		this.evictions = evictions;
+		this.invalidations = invalidations;
+		this.size = size;
+		this.maxEntries = maxEntries;
+	}
+
+	/**
+	 * @return the hits
+	 */
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the misses
+	 */
+	public long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return the expirations
+	 */
+	public long getExpirations() {
+		return expirations;
+	}
+
+	/**
+	 * @return the evictions
+	 */
+	public long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * @return the invalidations
+	 */
+	public long getInvalidations() {
+		return invalidations;
+	}
+
+	/**
+	 * @return the size
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return the maxEntries
+	 */
+	public int getMaxEntries() {
+		return maxEntries;
+	}
+
+	/**
+	 * @return <code>double</code> with the ratio of hits to total lookups, or
+	 *         0 if no lookups have been made
+	 */
+	public double getHitRatio() {
+		long total = hits + misses;
+		if (total == 0) {
+			return 0;
+		}
+		return (double) hits / (double) total;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("GenQueryResultCacheStatistics:");
+		sb.append("\n   hits:");
+		sb.append(hits);
+		sb.append("\n   misses:");
+		sb.append(misses);
+		sb.append("\n   expirations:");
+		sb.append(expirations);
+		sb.append("\n   evictions:");
+		sb.append(evictions);
+		sb.append("\n   invalidations:");
+		sb.append(invalidations);
+		sb.append("\n   size:");
+		sb.append(size);
+		sb.append("\n   maxEntries:");
+		sb.append(maxEntries);
+		return sb.toString();
+	}
+
+}
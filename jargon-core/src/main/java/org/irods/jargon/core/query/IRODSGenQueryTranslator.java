@@ -1,7 +1,9 @@
 package org.irods.jargon.core.query;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
 
 import org.irods.jargon.core.connection.IRODSServerProperties;
@@ -32,6 +34,23 @@ public class IRODSGenQueryTranslator {
 	public static final String ORDER_BY = "ORDER BY";
 	private static final String GROUP_BY = "GROUP BY";
 
+	/**
+	 * Maximum number of prepared queries held in the shared LRU cache
+	 */
+	public static final int PREPARED_QUERY_CACHE_SIZE = 256;
+
+	private static final Map<String, PreparedIRODSGenQuery> preparedQueryCache = new LinkedHashMap<String, PreparedIRODSGenQuery>(
+			16, 0.75f, true) {
+
+		private static final long serialVersionUID = 6432109873120925381L;
+
+		@Override
+		protected boolean removeEldestEntry(
+				final Map.Entry<String, PreparedIRODSGenQuery> eldest) {
+			return size() > PREPARED_QUERY_CACHE_SIZE;
+		}
+	};
+
 	/**
 	 * Public constructor takes a <code>IRODSServerProperties</code> object that
 	 * describes the current iRODS server.
@@ -90,6 +109,91 @@ public class IRODSGenQueryTranslator {
 	public TranslatedIRODSGenQuery getTranslatedQuery(
 			final IRODSGenQuery irodsQuery) throws JargonQueryException,
 			JargonException {
+
+		if (irodsQuery == null) {
+			throw new IllegalArgumentException("null irodsQuery");
+		}
+
+		return translateQuery(irodsQuery);
+	}
+
+	/**
+	 * Get a prepared version of a query template (as in iquest) that may
+	 * contain bind markers in place of condition values. The template is
+	 * translated once, and may then be bound to values and executed many
+	 * times. See {@link PreparedIRODSGenQuery} for the template syntax.
+	 * <p/>
+	 * Recently used templates with at least one bind marker are kept in an LRU
+	 * cache that is shared by all translators, and a cached translation is
+	 * returned if available. A template without markers is translated each
+	 * time, as is any query given to {@link #getTranslatedQuery}, so that
+	 * queries built with literal values do not crowd the cache. The cache is
+	 * bypassed if an extensible metadata mapping has been provided.
+	 * 
+	 * @param queryTemplate
+	 *            <code>String</code> with the query template
+	 * @return {@link PreparedIRODSGenQuery} that can be bound to values
+	 * @throws JargonQueryException
+	 * @throws JargonException
+	 */
+	public PreparedIRODSGenQuery getPreparedQuery(final String queryTemplate)
+			throws JargonQueryException, JargonException {
+
+		if (queryTemplate == null || queryTemplate.isEmpty()) {
+			throw new IllegalArgumentException("null or empty queryTemplate");
+		}
+
+		boolean cacheable = extensibleMetaDataMapping == null;
+		PreparedIRODSGenQuery preparedIRODSGenQuery;
+
+		if (cacheable) {
+			synchronized (preparedQueryCache) {
+				preparedIRODSGenQuery = preparedQueryCache.get(queryTemplate);
+			}
+
+			if (preparedIRODSGenQuery != null) {
+				log.debug("found prepared query in cache");
+				return preparedIRODSGenQuery;
+			}
+		}
+
+		preparedIRODSGenQuery = PreparedIRODSGenQuery.instance(queryTemplate,
+				translateQuery(IRODSGenQuery.instance(queryTemplate, 1)));
+
+		if (cacheable && preparedIRODSGenQuery.getBindCount() > 0) {
+			synchronized (preparedQueryCache) {
+				preparedQueryCache.put(queryTemplate, preparedIRODSGenQuery);
+			}
+		}
+
+		return preparedIRODSGenQuery;
+	}
+
+	/**
+	 * Check whether a prepared translation of the template is in the shared
+	 * cache
+	 * 
+	 * @param queryTemplate
+	 *            <code>String</code> with the query template
+	 * @return <code>boolean</code> that is <code>true</code> if cached
+	 */
+	static boolean isPreparedQueryCached(final String queryTemplate) {
+		synchronized (preparedQueryCache) {
+			return preparedQueryCache.containsKey(queryTemplate);
+		}
+	}
+
+	/**
+	 * Parse and translate the query string
+	 * 
+	 * @param irodsQuery
+	 * @return
+	 * @throws JargonQueryException
+	 * @throws JargonException
+	 */
+	private TranslatedIRODSGenQuery translateQuery(
+			final IRODSGenQuery irodsQuery) throws JargonQueryException,
+			JargonException {
 		List<String> selects = parseSelectsIntoListOfNames(irodsQuery
 				.getQueryString());
 
@@ -0,0 +1,201 @@
+/**
+ *
+ */
+package org.irods.jargon.core.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.irods.jargon.core.exception.JargonException;
+
+/**
+ * A GenQuery stated as an iquest-like template that has been translated once,
+ * and that may be bound to values and executed many times without parsing the
+ * query again.
+ * <p/>
+ * The template may contain bind markers in place of condition values, for
+ * example:
+ *
+ * <pre>
+ * select COLL_NAME, DATA_NAME where COLL_NAME = ? and DATA_NAME like ?
+ * </pre>
+ *
+ * A bind marker is an unquoted <code>?</code> standing alone as the value of a
+ * condition. Values are bound in the order that the markers appear, and are
+ * given without quotes, which will be added, as with the
+ * {@link IRODSGenQueryBuilder}. A quoted <code>'?'</code> is treated as a
+ * literal value.
+ * <p/>
+ * Instances are obtained from
+ * {@link IRODSGenQueryTranslator#getPreparedQuery(String)}, which keeps
+ * recently used templates, so that a template used repeatedly is translated
+ * only once.
+ * <p/>
+ * This object is immutable, and is safe to share between threads.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public final class PreparedIRODSGenQuery {
+
+	public static final String BIND_MARKER = "?";
+
+	private final String queryTemplate;
+	private final List<GenQuerySelectField> selectFields;
+	private final List<TranslatedGenQueryCondition> translatedQueryConditions;
+	private final int[] bindConditionIndexes;
+	private final boolean distinct;
+
+	/**
+	 * Create a prepared query from a query template and its translation
+	 *
+	 * @param queryTemplate
+	 *            <code>String</code> with the query template, as in iquest,
+	 *            with optional bind markers
+	 * @param translatedIRODSGenQuery
+	 *            {@link TranslatedIRODSGenQuery} that is the translation of
+	 *            the template
+	 * @return <code>PreparedIRODSGenQuery</code>
+	 */
+	static PreparedIRODSGenQuery instance(final String queryTemplate,
+			final TranslatedIRODSGenQuery translatedIRODSGenQuery) {
+		return new PreparedIRODSGenQuery(queryTemplate, translatedIRODSGenQuery);
+	}
+
+	private PreparedIRODSGenQuery(final String queryTemplate,
+			final TranslatedIRODSGenQuery translatedIRODSGenQuery) {
+
+		if (queryTemplate == null || queryTemplate.isEmpty()) {
+			throw new IllegalArgumentException("null or empty queryTemplate");
+		}
+
+		if (translatedIRODSGenQuery == null) {
+			throw new IllegalArgumentException("null translatedIRODSGenQuery");
+		}
+
+		this.queryTemplate = queryTemplate;
+		selectFields = Collections
+				.unmodifiableList(new ArrayList<GenQuerySelectField>(
+						translatedIRODSGenQuery.getSelectFields()));
+		translatedQueryConditions = Collections
+				.unmodifiableList(new ArrayList<TranslatedGenQueryCondition>(
+						translatedIRODSGenQuery.getTranslatedQueryConditions()));
+		distinct = translatedIRODSGenQuery.isDistinct();
+
+		List<Integer> bindIndexes = new ArrayList<Integer>();
+		for (int i = 0; i < translatedQueryConditions.size(); i++) {
+			if (BIND_MARKER.equals(translatedQueryConditions.get(i).getValue())) {
+				bindIndexes.add(i);
+			}
+		}
+
+		bindConditionIndexes = new int[bindIndexes.size()];
+		for (int i = 0; i < bindConditionIndexes.length; i++) {
+			bindConditionIndexes[i] = bindIndexes.get(i);
+		}
+	}
+
+	/**
+	 * Bind values to the markers in this query, creating a query that may be
+	 * given to the <code>IRODSGenQueryExecutor</code>
+	 *
+	 * @param numberOfResultsDesired
+	 *            <code>int</code> with the number of desired results
+	 * @param values
+	 *            <code>String...</code> with a value, without quotes, for each
+	 *            bind marker in the template, in order
+	 * @return {@link BoundIRODSGenQuery}
+	 * @throws JargonException
+	 */
+	public BoundIRODSGenQuery bind(final int numberOfResultsDesired,
+			final String... values) throws JargonException {
+		return new BoundIRODSGenQuery(this, numberOfResultsDesired, values);
+	}
+
+	/**
+	 * Create the translated form of this query with the given values bound to
+	 * the markers. Only the bound conditions are created, the rest of the
+	 * translation is shared.
+	 *
+	 * @param irodsQuery
+	 *            {@link AbstractIRODSGenQuery} that will be associated with the
+	 *            translation
+	 * @param values
+	 *            <code>String[]</code> with a value, without quotes, for each
+	 *            bind marker
+	 * @return {@link TranslatedIRODSGenQuery}
+	 * @throws JargonException
+	 * @throws JargonQueryException
+	 */
+	TranslatedIRODSGenQuery translate(final AbstractIRODSGenQuery irodsQuery,
+			final String[] values) throws JargonException,
+			JargonQueryException {
+
+		if (values == null) {
+			throw new IllegalArgumentException("null values");
+		}
+
+		if (values.length != bindConditionIndexes.length) {
+			throw new IllegalArgumentException("expected "
+					+ bindConditionIndexes.length + " bind values, got "
+					+ values.length);
+		}
+
+		if (bindConditionIndexes.length == 0) {
+			return TranslatedIRODSGenQuery.instance(selectFields,
+					translatedQueryConditions, irodsQuery, distinct);
+		}
+
+		List<TranslatedGenQueryCondition> boundConditions = new ArrayList<TranslatedGenQueryCondition>(
+				translatedQueryConditions);
+
+		StringBuilder sb;
+		for (int i = 0; i < bindConditionIndexes.length; i++) {
+
+			if (values[i] == null) {
+				throw new IllegalArgumentException("null bind value at:" + i);
+			}
+
+			sb = new StringBuilder();
+			sb.append('\'');
+			sb.append(values[i]);
+			sb.append('\'');
+
+			int conditionIndex = bindConditionIndexes[i];
+			boundConditions.set(conditionIndex,
+					translatedQueryConditions.get(conditionIndex).withValue(
+							sb.toString()));
+		}
+
+		return TranslatedIRODSGenQuery.instance(selectFields,
+				Collections.unmodifiableList(boundConditions), irodsQuery,
+				distinct);
+	}
+
+	/**
+	 * @return the number of bind markers in the template
+	 */
+	public int getBindCount() {
+		return bindConditionIndexes.length;
+	}
+
+	/**
+	 * @return the queryTemplate
+	 */
+	public String getQueryTemplate() {
+		return queryTemplate;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("PreparedIRODSGenQuery:");
+		sb.append("\n   queryTemplate:");
+		sb.append(queryTemplate);
+		sb.append("\n   bindCount:");
+		sb.append(bindConditionIndexes.length);
+		return sb.toString();
+	}
+
+}
@@ -167,13 +167,30 @@ public class TranslatedGenQueryCondition {
 		}
 
 		columnName = fieldName;
-		this.fieldSource = GenQuerySelectField.SelectFieldSource.DEFINED_QUERY_FIELD;
+		this.fieldSource = fieldSource;
 		this.operator = operator;
 		this.value = value;
 		this.columnNumericTranslation = columnNumericTranslation;
 
 	}
 
+	/**
+	 * Create a copy of this condition with a different value, keeping the
+	 * column translation and operator. This is used to bind values into a
+	 * {@link PreparedIRODSGenQuery} without translating the query again.
+	 * 
+	 * @param value
+	 *            <code>String</code> with the value component of the
+	 *            condition, as it will be sent to iRODS.
+	 * @return <code>TranslatedGenQueryCondition</code> object.
+	 * @throws JargonQueryException
+	 */
+	TranslatedGenQueryCondition withValue(final String value)
+			throws JargonQueryException {
+		return new TranslatedGenQueryCondition(columnName, fieldSource,
+				columnNumericTranslation, operator, value);
+	}
+
 	@Override
 	public String toString() {
 		StringBuilder b = new StringBuilder();
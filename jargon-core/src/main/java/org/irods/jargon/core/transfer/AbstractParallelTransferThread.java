@@ -153,4 +153,13 @@ public class AbstractParallelTransferThread {
 	protected int getThreadNumber() {
 		return threadNumber;
 	}
+
+	/**
+	 * @return the stream number under which this thread reports its progress,
+	 *         which is the thread number plus one, as stream zero is the main
+	 *         connection
+	 */
+	protected int getStreamNumber() {
+		return threadNumber + 1;
+	}
 }
\ No newline at end of file
@@ -44,6 +44,7 @@ public class DefaultTransferControlBlock implements TransferControlBlock {
 	private TransferOptions transferOptions = null;
 	private long totalBytesTransferredSoFar = 0L;
 	private long totalBytesToTransfer = 0L;
+	private final TransferTelemetry transferTelemetry = new TransferTelemetry();
 
 	/*
 	 * (non-Javadoc)
@@ -60,6 +61,7 @@ public class DefaultTransferControlBlock implements TransferControlBlock {
 		totalFilesTransferredSoFar = 0;
 		totalBytesTransferredSoFar = 0;
 		totalBytesToTransfer = 0;
+		transferTelemetry.reset();
 	}
 
 	/**
@@ -384,6 +386,10 @@ public class DefaultTransferControlBlock implements TransferControlBlock {
 	public synchronized void setTransferOptions(
 			final TransferOptions transferOptions) {
 		this.transferOptions = transferOptions;
+		if (transferOptions != null) {
+			transferTelemetry.setStallThresholdMillis(transferOptions
+					.getStallThresholdMillis());
+		}
 	}
 
 	/*
@@ -432,6 +438,7 @@ public class DefaultTransferControlBlock implements TransferControlBlock {
 	public synchronized void setTotalBytesToTransfer(
 			final long totalBytesToTransfer) {
 		this.totalBytesToTransfer = totalBytesToTransfer;
+		transferTelemetry.setExpectedBytes(totalBytesToTransfer);
 	}
 
 	/*
@@ -500,4 +507,17 @@ public class DefaultTransferControlBlock implements TransferControlBlock {
 		return totalFilesTransferredSoFar - totalFilesSkippedSoFar;
 	}
 
+	/**
+	 * Get the throughput telemetry of the transfer. This may be polled while
+	 * the transfer runs to see the current rates, estimated time remaining,
+	 * and any stalled streams. Control blocks that do not extend this class
+	 * keep no telemetry, see
+	 * {@link TransferTelemetry#forTransferControlBlock(TransferControlBlock)}.
+	 * 
+	 * @return {@link TransferTelemetry} for the transfer
+	 */
+	public TransferTelemetry getTransferTelemetry() {
+		return transferTelemetry;
+	}
+
 }
@@ -190,6 +190,12 @@ public final class ParallelGetTransferThread extends
 			log.error("Exception closing local file", e);
 			throw new JargonException("IOException closing local file");
 		} finally {
+			TransferTelemetry transferTelemetry = TransferTelemetry
+					.forTransferControlBlock(parallelGetFileTransferStrategy
+							.getTransferControlBlock());
+			if (transferTelemetry != null) {
+				transferTelemetry.streamFinished(getStreamNumber());
+			}
 			log.info("parallel thread closing out local random access file stream");
 			try {
 				log.info("closing sockets, this close eats exceptions");
@@ -285,7 +291,8 @@ public final class ParallelGetTransferThread extends
 									.getConnectionProgressStatusListener()
 									.connectionProgressStatusCallback(
 											ConnectionProgressStatus
-													.instanceForReceive(read));
+													.instanceForReceive(read,
+															getStreamNumber()));
 						}
 
 						if (parallelGetFileTransferStrategy
@@ -339,7 +346,8 @@ public final class ParallelGetTransferThread extends
 									.getConnectionProgressStatusListener()
 									.connectionProgressStatusCallback(
 											ConnectionProgressStatus
-													.instanceForReceive(read));
+													.instanceForReceive(read,
+															getStreamNumber()));
 						}
 
 					}
@@ -177,6 +177,12 @@ public final class ParallelPutTransferThread extends
 					e);
 			throw new JargonException("error during parallel file put", e);
 		} finally {
+			TransferTelemetry transferTelemetry = TransferTelemetry
+					.forTransferControlBlock(parallelPutFileTransferStrategy
+							.getTransferControlBlock());
+			if (transferTelemetry != null) {
+				transferTelemetry.streamFinished(getStreamNumber());
+			}
 			log.info("closing sockets, this eats any exceptions");
 			close();
 			log.info("socket conns for parallel transfer closed, now close the file stream");
@@ -350,7 +356,8 @@ public final class ParallelPutTransferThread extends
 								.getConnectionProgressStatusListener()
 								.connectionProgressStatusCallback(
 										ConnectionProgressStatus
-												.instanceForSend(read));
+												.instanceForSend(read,
+														getStreamNumber()));
 					}
 
 					log.debug("wrote data to the buffer");
@@ -0,0 +1,96 @@
+package org.irods.jargon.core.transfer;
+
+/**
+ * Immutable throughput of one stream of a transfer at the time a
+ * {@link TransferTelemetrySnapshot} was taken
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class StreamTelemetry {
+
+	private final int streamNumber;
+	private final long bytesTransferred;
+	private final double bytesPerSecond;
+	private final long millisSinceLastProgress;
+	private final boolean active;
+	private final boolean stalled;
+
+	StreamTelemetry(final int streamNumber, final long bytesTransferred,
+			final double bytesPerSecond, final long millisSinceLastProgress,
+			final boolean active, final boolean stalled) {
+		this.streamNumber = streamNumber;
+		this.bytesTransferred = bytesTransferred;
+		this.bytesPerSecond = bytesPerSecond;
+		this.millisSinceLastProgress = millisSinceLastProgress;
+		this.active = active;
+		this.stalled = stalled;
+	}
+
+	/**
+	 * @return <code>int</code> with the stream number,
+	 *         {@link TransferTelemetry#MAIN_STREAM} for the main connection, or
+	 *         the parallel transfer thread number plus one
+	 */
+	public int getStreamNumber() {
+		return streamNumber;
+	}
+
+	/**
+	 * @return <code>long</code> with the bytes moved on this stream
+	 */
+	public long getBytesTransferred() {
+		return bytesTransferred;
+	}
+
+	/**
+	 * @return <code>double</code> with the moving average rate of this stream
+	 */
+	public double getBytesPerSecond() {
+		return bytesPerSecond;
+	}
+
+	/**
+	 * @return <code>long</code> with the time since this stream last moved
+	 *         bytes
+	 */
+	public long getMillisSinceLastProgress() {
+		return millisSinceLastProgress;
+	}
+
+	/**
+	 * @return <code>boolean</code> that is <code>true</code> if this stream has
+	 *         not finished
+	 */
+	public boolean isActive() {
+		return active;
+	}
+
+	/**
+	 * @return <code>boolean</code> that is <code>true</code> if this stream has
+	 *         not finished and has moved no bytes for the stall threshold
+	 */
+	public boolean isStalled() {
+		return stalled;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("StreamTelemetry [streamNumber=");
+		builder.append(streamNumber);
+		builder.append(", bytesTransferred=");
+		builder.append(bytesTransferred);
+		builder.append(", bytesPerSecond=");
+		builder.append(bytesPerSecond);
+		builder.append(", millisSinceLastProgress=");
+		builder.append(millisSinceLastProgress);
+		builder.append(", active=");
+		builder.append(active);
+		builder.append(", stalled=");
+		builder.append(stalled);
+		builder.append("]");
+		return builder.toString();
+	}
+
+}
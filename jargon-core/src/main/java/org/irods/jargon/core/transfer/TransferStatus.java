@@ -26,7 +26,7 @@ public class TransferStatus {
 	 * @author Mike Conway - DICE (www.irods.org)
 	 */
 	public enum TransferState {
-		IN_PROGRESS_START_FILE, IN_PROGRESS_COMPLETE_FILE, SUCCESS, FAILURE, PAUSED, CANCELLED, RESTARTING, SKIPPING, OVERALL_INITIATION, OVERALL_COMPLETION, SYNCH_INITIALIZATION, SYNCH_DIFF_GENERATION, SYNCH_DIFF_RESOLVE_STEP, SYNCH_COMPLETION
+		IN_PROGRESS_START_FILE, IN_PROGRESS_COMPLETE_FILE, SUCCESS, FAILURE, PAUSED, CANCELLED, RESTARTING, SKIPPING, OVERALL_INITIATION, OVERALL_COMPLETION, SYNCH_INITIALIZATION, SYNCH_DIFF_GENERATION, SYNCH_DIFF_RESOLVE_STEP, SYNCH_COMPLETION, STALLED
 	}
 
 	private final TransferState transferState;
@@ -58,6 +58,7 @@ public class TransferStatus {
 	private final int totalFilesToTransfer;
 	private final Exception transferException;
 	private final boolean intraFileStatusReport;
+	private final TransferTelemetrySnapshot transferTelemetrySnapshot;
 
 	/**
 	 * Create an immutable transfer status object for a complete file or overall
@@ -106,7 +107,64 @@ public class TransferStatus {
 				targetFileAbsolutePath, targetResource, totalSize,
 				bytesTransfered, totalFilesTransferredSoFar,
 				totalFilesSkippedSoFar, totalFilesToTransfer, transferState,
-				null, false, transferHost, transferZone);
+				null, false, transferHost, transferZone, null);
+
+	}
+
+	/**
+	 * Create an immutable transfer status object for a complete file or overall
+	 * transfer, including the throughput telemetry of the transfer.
+	 * 
+	 * @param transferType
+	 *            <code>TransferType</code> that indicates the type of transfer
+	 * @param sourceFileAbsolutePath
+	 *            <code>String</code> absolute path to the source file
+	 * @param targetFileAbsolutePath
+	 *            <code>String</code> absolute path to the target file
+	 * @param targetResource
+	 *            <code>String</code> with an optional resource, set to blank if
+	 *            unused.
+	 * @param totalSize
+	 *            <code>long</code> with the total size of the file
+	 * @param bytesTransfered
+	 *            <code>long</code> with the total transferred so far, which is
+	 *            some fraction of the total size
+	 * @param totalFilesTransferredSoFar
+	 *            <code>int<code> with the total files transferred, including this status callback
+	 * @param totalFilesSkippedSoFar
+	 *            <code>int<code> with the total files skipped if this is a
+	 *            restart, including this status callback
+	 * @param totalFilesToTransfer
+	 *            <code>int</code> with the total files involved in this
+	 *            operation
+	 * @param transferState
+	 *            <code>TransferState</code> indicating whether the transfer is
+	 *            ongoing or has completed
+	 * @param transferHost
+	 *            <code>String</code> with the host name for the transfer
+	 * @param transferZone
+	 *            <code>String</code> with the zone name for the transfer
+	 * @param transferTelemetrySnapshot
+	 *            {@link TransferTelemetrySnapshot} with the rates and stalled
+	 *            streams of the transfer, may be <code>null</code>
+	 */
+	public static TransferStatus instance(final TransferType transferType,
+			final String sourceFileAbsolutePath,
+			final String targetFileAbsolutePath, final String targetResource,
+			final long totalSize, final long bytesTransfered,
+			final int totalFilesTransferredSoFar,
+			final int totalFilesSkippedSoFar, final int totalFilesToTransfer,
+			final TransferState transferState, final String transferHost,
+			final String transferZone,
+			final TransferTelemetrySnapshot transferTelemetrySnapshot)
+			throws JargonException {
+
+		return new TransferStatus(transferType, null, sourceFileAbsolutePath,
+				targetFileAbsolutePath, targetResource, totalSize,
+				bytesTransfered, totalFilesTransferredSoFar,
+				totalFilesSkippedSoFar, totalFilesToTransfer, transferState,
+				null, false, transferHost, transferZone,
+				transferTelemetrySnapshot);
 
 	}
 
@@ -159,7 +217,7 @@ public class TransferStatus {
 				sourceFileAbsolutePath, targetFileAbsolutePath, targetResource,
 				totalSize, bytesTransfered, totalFilesTransferredSoFar,
 				totalFilesSkippedSoFar, totalFilesToTransfer, transferState,
-				null, false, transferHost, transferZone);
+				null, false, transferHost, transferZone, null);
 
 	}
 
@@ -197,7 +255,66 @@ public class TransferStatus {
 
 		return new TransferStatus(transferType, null, "", "", "", totalSize,
 				bytesTransfered, 0, 0, 0, TransferState.IN_PROGRESS_START_FILE,
-				null, true, "", "");
+				null, true, "", "", null);
+	}
+
+	/**
+	 * Create an immutable transfer status object for a partial transfer of a
+	 * file, including the throughput telemetry of the transfer.
+	 * 
+	 * @param transferType
+	 *            <code>TransferType</code> that indicates the type of transfer
+	 * @param totalSize
+	 *            <code>long</code> with the total size of the file
+	 * @param bytesTransfered
+	 *            <code>long</code> with the total transferred so far, which is
+	 *            some fraction of the total size
+	 * @param transferTelemetrySnapshot
+	 *            {@link TransferTelemetrySnapshot} with the rates and stalled
+	 *            streams of the transfer
+	 */
+	public static TransferStatus instanceForIntraFileStatus(
+			final TransferType transferType, final long totalSize,
+			final long bytesTransfered,
+			final TransferTelemetrySnapshot transferTelemetrySnapshot)
+			throws JargonException {
+
+		return new TransferStatus(transferType, null, "", "", "", totalSize,
+				bytesTransfered, 0, 0, 0, TransferState.IN_PROGRESS_START_FILE,
+				null, true, "", "", transferTelemetrySnapshot);
+	}
+
+	/**
+	 * Create an immutable transfer status object reporting that one or more
+	 * streams of a file transfer have moved no data for the stall threshold of
+	 * the {@link TransferTelemetry}. The stalled streams are given in the
+	 * snapshot.
+	 * 
+	 * @param transferType
+	 *            <code>TransferType</code> that indicates the type of transfer
+	 * @param totalSize
+	 *            <code>long</code> with the total size of the file
+	 * @param bytesTransfered
+	 *            <code>long</code> with the total transferred so far, which is
+	 *            some fraction of the total size
+	 * @param transferTelemetrySnapshot
+	 *            {@link TransferTelemetrySnapshot} with the rates and stalled
+	 *            streams of the transfer
+	 */
+	public static TransferStatus instanceForStall(
+			final TransferType transferType, final long totalSize,
+			final long bytesTransfered,
+			final TransferTelemetrySnapshot transferTelemetrySnapshot)
+			throws JargonException {
+
+		if (transferTelemetrySnapshot == null) {
+			throw new IllegalArgumentException(
+					"null transferTelemetrySnapshot");
+		}
+
+		return new TransferStatus(transferType, null, "", "", "", totalSize,
+				bytesTransfered, 0, 0, 0, TransferState.STALLED, null, true,
+				"", "", transferTelemetrySnapshot);
 	}
 
 	/**
@@ -250,7 +367,7 @@ public class TransferStatus {
 				bytesTransfered, totalFilesTransferredSoFar,
 				totalFilesSkippedSoFar, totalFilesToTransfer,
 				TransferState.FAILURE, exception, false, transferHost,
-				transferZone);
+				transferZone, null);
 
 	}
 
@@ -290,7 +407,7 @@ public class TransferStatus {
 				totalSize, bytesTransfered, totalFilesTransferredSoFar,
 				totalFilesSkippedSoFar, totalFilesToTransfer,
 				TransferState.FAILURE, exception, false, transferHost,
-				transferZone);
+				transferZone, null);
 
 	}
 
@@ -332,6 +449,10 @@ public class TransferStatus {
 		sb.append(transferHost);
 		sb.append("\n   transferZone:");
 		sb.append(transferZone);
+		if (transferTelemetrySnapshot != null) {
+			sb.append("\n   transferTelemetrySnapshot:");
+			sb.append(transferTelemetrySnapshot);
+		}
 		return sb.toString();
 	}
 
@@ -351,6 +472,7 @@ public class TransferStatus {
 	 * @param transferState
 	 * @param transferException
 	 * @param intraFileStatusReport
+	 * @param transferTelemetrySnapshot
 	 * @throws JargonException
 	 */
 	private TransferStatus(final TransferType transferType,
@@ -363,7 +485,9 @@ public class TransferStatus {
 			final TransferState transferState,
 			final Exception transferException,
 			final boolean intraFileStatusReport, final String transferHost,
-			final String transferZone) throws JargonException {
+			final String transferZone,
+			final TransferTelemetrySnapshot transferTelemetrySnapshot)
+			throws JargonException {
 
 		if (totalSize < 0) {
 			throw new JargonException("totalSize less than zero");
@@ -432,6 +556,7 @@ public class TransferStatus {
 		this.intraFileStatusReport = intraFileStatusReport;
 		this.transferHost = transferHost;
 		this.transferZone = transferZone;
+		this.transferTelemetrySnapshot = transferTelemetrySnapshot;
 
 	}
 
@@ -504,4 +629,14 @@ public class TransferStatus {
 		return totalFilesSkippedSoFar;
 	}
 
+	/**
+	 * @return {@link TransferTelemetrySnapshot} with the rates, estimated time
+	 *         remaining, and stalled streams of the transfer when this status
+	 *         was created, or <code>null</code> if not reported with this
+	 *         status
+	 */
+	public TransferTelemetrySnapshot getTransferTelemetrySnapshot() {
+		return transferTelemetrySnapshot;
+	}
+
 }
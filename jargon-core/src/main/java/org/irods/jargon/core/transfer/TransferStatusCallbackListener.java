@@ -49,7 +49,14 @@ public interface TransferStatusCallbackListener {
 	 * Method will receive a callback at the initiation and completion of an
 	 * overall transfer {@link org.irods.jargon.core.transfer.TransferStatus}
 	 * with information on the transfer.
-	 * 
+	 * <p/>
+	 * The completion of a get or put carries a
+	 * {@link org.irods.jargon.core.transfer.TransferTelemetrySnapshot} with the
+	 * rates of the transfer. A callback in the <code>STALLED</code> state is
+	 * sent while a file is moving if a stream of the transfer stops moving
+	 * data, and again when the set of stalled streams changes. Stall
+	 * callbacks come from a separate watch thread, and should return quickly.
+	 *
 	 * @throws JargonException
 	 */
 	public void overallStatusCallback(final TransferStatus transferStatus)
@@ -0,0 +1,534 @@
+package org.irods.jargon.core.transfer;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Samples the throughput of a transfer, for each stream that carries data. The
+ * single-stream path reports on the main connection as stream
+ * {@link #MAIN_STREAM}, and each parallel transfer thread reports as its thread
+ * number plus one.
+ * <p/>
+ * Rates are exponentially weighted moving averages, updated once per sample
+ * interval, so that a burst or a pause affects the rate gradually over the
+ * averaging window. A stream is stalled when it has not finished and has moved
+ * no bytes for the stall threshold, which may be set in the
+ * <code>TransferOptions</code> or the jargon properties.
+ * <p/>
+ * A stall is found by the passage of time rather than by the arrival of bytes,
+ * so that a transfer in which every stream has stopped is still noticed. While
+ * a {@link StallListener} is set and some stream is active, the stalled streams
+ * are checked once per sample interval on a shared watch thread, and the
+ * listener is told each time the set of stalled streams changes. The watch
+ * stops when every stream has finished, when the telemetry is reset, or once
+ * the telemetry is no longer referenced. A caller may also poll
+ * {@link #snapshot()}, for example via the
+ * {@link DefaultTransferControlBlock}.
+ * <p/>
+ * The bytes are recorded by the intra-file progress listener of a get or put,
+ * so telemetry is gathered when intra-file status call-backs are turned on in
+ * the transfer options.
+ * <p/>
+ * This object is thread-safe, and is shared by the threads of a parallel
+ * transfer.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class TransferTelemetry {
+
+	/**
+	 * Told when the set of stalled streams of a transfer changes
+	 */
+	public interface StallListener {
+
+		/**
+		 * Called on the stall watch thread when the set of stalled streams
+		 * changes and is not empty. This should return quickly, as the watch
+		 * thread is shared by all transfers.
+		 *
+		 * @param snapshot
+		 *            {@link TransferTelemetrySnapshot} with the stalled streams
+		 */
+		void streamsStalled(TransferTelemetrySnapshot snapshot);
+	}
+
+	private static final Logger log = LoggerFactory
+			.getLogger(TransferTelemetry.class);
+
+	private static final ScheduledExecutorService stallWatchExecutor = Executors
+			.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(final Runnable runnable) {
+					Thread thread = new Thread(runnable, "transfer-stall-watch");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	/**
+	 * Stream number for data moved on the main connection
+	 */
+	public static final int MAIN_STREAM = 0;
+
+	public static final long DEFAULT_SAMPLE_INTERVAL_MILLIS = 1000;
+	public static final long DEFAULT_AVERAGING_WINDOW_MILLIS = 10000;
+	public static final long DEFAULT_STALL_THRESHOLD_MILLIS = 30000;
+
+	private final long sampleIntervalNanos;
+	private final long averagingWindowNanos;
+	private long stallThresholdNanos;
+
+	private final Map<Integer, Throughput> streams = new TreeMap<Integer, Throughput>();
+	private Throughput overall = null;
+	private long expectedBytes = 0L;
+	private StallListener stallListener = null;
+	private ScheduledFuture<?> stallWatch = null;
+	private String lastStalledStreams = "";
+
+	/**
+	 * Create telemetry with the default sample interval, averaging window, and
+	 * stall threshold
+	 */
+	public TransferTelemetry() {
+		this(DEFAULT_SAMPLE_INTERVAL_MILLIS, DEFAULT_AVERAGING_WINDOW_MILLIS,
+				DEFAULT_STALL_THRESHOLD_MILLIS);
+	}
+
+	/**
+	 * Create telemetry with the given timings
+	 *
+	 * @param sampleIntervalMillis
+	 *            <code>long</code> with the minimum time between rate samples
+	 * @param averagingWindowMillis
+	 *            <code>long</code> with the time constant of the moving
+	 *            average, a longer window gives a steadier rate
+	 * @param stallThresholdMillis
+	 *            <code>long</code> with the time a stream may move no bytes
+	 *            before it is reported as stalled
+	 */
+	public TransferTelemetry(final long sampleIntervalMillis,
+			final long averagingWindowMillis, final long stallThresholdMillis) {
+
+		if (sampleIntervalMillis <= 0) {
+			throw new IllegalArgumentException(
+					"sampleIntervalMillis must be greater than zero");
+		}
+
+		if (averagingWindowMillis <= 0) {
+			throw new IllegalArgumentException(
+					"averagingWindowMillis must be greater than zero");
+		}
+
+		checkStallThreshold(stallThresholdMillis);
+
+		sampleIntervalNanos = TimeUnit.MILLISECONDS
+				.toNanos(sampleIntervalMillis);
+		averagingWindowNanos = TimeUnit.MILLISECONDS
+				.toNanos(averagingWindowMillis);
+		stallThresholdNanos = TimeUnit.MILLISECONDS
+				.toNanos(stallThresholdMillis);
+	}
+
+	/**
+	 * Record bytes moved on a stream
+	 *
+	 * @param streamNumber
+	 *            <code>int</code> with the stream that moved the bytes
+	 * @param bytes
+	 *            <code>long</code> with the bytes moved since the last call
+	 *            for this stream
+	 */
+	public void recordBytes(final int streamNumber, final long bytes) {
+		recordBytes(streamNumber, bytes, System.nanoTime());
+	}
+
+	synchronized void recordBytes(final int streamNumber, final long bytes,
+			final long nowNanos) {
+		if (overall == null) {
+			overall = new Throughput(nowNanos);
+		}
+		overall.record(bytes, nowNanos);
+		streamFor(streamNumber, nowNanos).record(bytes, nowNanos);
+		startStallWatch();
+	}
+
+	/**
+	 * Note that a stream has moved all of its data, so that it is no longer
+	 * checked for stalls. A stream that records bytes after this is active
+	 * again, as when the threads of a parallel transfer are numbered the same
+	 * for each file.
+	 *
+	 * @param streamNumber
+	 *            <code>int</code> with the stream that is done
+	 */
+	public synchronized void streamFinished(final int streamNumber) {
+		Throughput stream = streams.get(streamNumber);
+		if (stream != null) {
+			stream.active = false;
+		}
+		if (!isAnyStreamActive()) {
+			stopStallWatch();
+		}
+	}
+
+	/**
+	 * @return <code>long</code> with the time a stream may move no bytes
+	 *         before it is reported as stalled
+	 */
+	public synchronized long getStallThresholdMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(stallThresholdNanos);
+	}
+
+	/**
+	 * Set the time a stream may move no bytes before it is reported as
+	 * stalled
+	 *
+	 * @param stallThresholdMillis
+	 *            <code>long</code> with the stall threshold, greater than zero
+	 */
+	public synchronized void setStallThresholdMillis(
+			final long stallThresholdMillis) {
+		checkStallThreshold(stallThresholdMillis);
+		stallThresholdNanos = TimeUnit.MILLISECONDS
+				.toNanos(stallThresholdMillis);
+	}
+
+	/**
+	 * Set the listener told when streams stall, which starts the stall watch
+	 * if bytes are being recorded
+	 *
+	 * @param stallListener
+	 *            {@link StallListener}, or <code>null</code> to stop watching
+	 */
+	public synchronized void setStallListener(final StallListener stallListener) {
+		this.stallListener = stallListener;
+		if (stallListener == null) {
+			stopStallWatch();
+		} else {
+			startStallWatch();
+		}
+	}
+
+	/**
+	 * @return <code>long</code> with the bytes the transfer is expected to
+	 *         move, or zero if not known
+	 */
+	public synchronized long getExpectedBytes() {
+		return expectedBytes;
+	}
+
+	/**
+	 * Set the bytes the transfer is expected to move, used to estimate the
+	 * time remaining
+	 *
+	 * @param expectedBytes
+	 *            <code>long</code> with the expected bytes, zero if not known
+	 */
+	public synchronized void setExpectedBytes(final long expectedBytes) {
+		this.expectedBytes = expectedBytes;
+	}
+
+	/**
+	 * Forget all streams and samples, so the telemetry can be used again
+	 */
+	public synchronized void reset() {
+		stopStallWatch();
+		streams.clear();
+		overall = null;
+		expectedBytes = 0L;
+		lastStalledStreams = "";
+	}
+
+	/**
+	 * Check for a change in the stalled streams, telling the
+	 * {@link StallListener} if streams have newly stalled. This is done
+	 * periodically by the stall watch, and may also be called by a caller
+	 * that polls.
+	 */
+	public void checkForStalls() {
+		checkForStalls(System.nanoTime());
+	}
+
+	void checkForStalls(final long nowNanos) {
+
+		TransferTelemetrySnapshot snapshot;
+		StallListener listener;
+
+		synchronized (this) {
+			if (!isAnyStreamActive()) {
+				stopStallWatch();
+				lastStalledStreams = "";
+				return;
+			}
+
+			snapshot = snapshot(nowNanos);
+			StringBuilder stalledStreams = new StringBuilder();
+			for (StreamTelemetry stream : snapshot.getStalledStreams()) {
+				stalledStreams.append(stream.getStreamNumber());
+				stalledStreams.append(' ');
+			}
+
+			String stalled = stalledStreams.toString();
+			if (stalled.equals(lastStalledStreams)) {
+				return;
+			}
+
+			lastStalledStreams = stalled;
+			if (stalled.isEmpty() || stallListener == null) {
+				return;
+			}
+			listener = stallListener;
+		}
+
+		// tell the listener outside of the lock, it may ask for a snapshot
+		listener.streamsStalled(snapshot);
+	}
+
+	/**
+	 * Get the telemetry kept by a transfer control block. Telemetry is kept by
+	 * the {@link DefaultTransferControlBlock}, and by control blocks that
+	 * extend it.
+	 *
+	 * @param transferControlBlock
+	 *            {@link TransferControlBlock}, may be <code>null</code>
+	 * @return {@link TransferTelemetry} of the transfer, or <code>null</code>
+	 *         if the control block keeps none
+	 */
+	public static TransferTelemetry forTransferControlBlock(
+			final TransferControlBlock transferControlBlock) {
+		if (transferControlBlock instanceof DefaultTransferControlBlock) {
+			return ((DefaultTransferControlBlock) transferControlBlock)
+					.getTransferTelemetry();
+		}
+		return null;
+	}
+
+	/**
+	 * Take a snapshot of the telemetry kept by a transfer control block
+	 *
+	 * @param transferControlBlock
+	 *            {@link TransferControlBlock}, may be <code>null</code>
+	 * @return {@link TransferTelemetrySnapshot}, or <code>null</code> if the
+	 *         control block keeps no telemetry
+	 */
+	public static TransferTelemetrySnapshot snapshotOf(
+			final TransferControlBlock transferControlBlock) {
+		TransferTelemetry transferTelemetry = forTransferControlBlock(transferControlBlock);
+		if (transferTelemetry == null) {
+			return null;
+		}
+		return transferTelemetry.snapshot();
+	}
+
+	/**
+	 * Get the current rates, estimated time remaining, and stalled streams
+	 *
+	 * @return {@link TransferTelemetrySnapshot}
+	 */
+	public TransferTelemetrySnapshot snapshot() {
+		return snapshot(System.nanoTime());
+	}
+
+	synchronized TransferTelemetrySnapshot snapshot(final long nowNanos) {
+
+		List<StreamTelemetry> streamTelemetry = new ArrayList<StreamTelemetry>(
+				streams.size());
+		for (Map.Entry<Integer, Throughput> entry : streams.entrySet()) {
+			Throughput stream = entry.getValue();
+			double rate = stream.rateAt(nowNanos);
+			long idleNanos = nowNanos - stream.lastProgressNanos;
+			streamTelemetry.add(new StreamTelemetry(entry.getKey(),
+					stream.bytes, rate, TimeUnit.NANOSECONDS
+							.toMillis(idleNanos), stream.active,
+					stream.active && idleNanos >= stallThresholdNanos));
+		}
+
+		if (overall == null) {
+			return new TransferTelemetrySnapshot(0L, 0L, expectedBytes, 0D,
+					-1L, streamTelemetry);
+		}
+
+		double overallRate = overall.rateAt(nowNanos);
+		long estimatedMillisRemaining = -1L;
+		if (expectedBytes > 0 && overallRate > 0) {
+			long remaining = Math.max(0L, expectedBytes - overall.bytes);
+			estimatedMillisRemaining = (long) (remaining / overallRate * 1000D);
+		}
+
+		return new TransferTelemetrySnapshot(
+				TimeUnit.NANOSECONDS.toMillis(nowNanos - overall.startNanos),
+				overall.bytes, expectedBytes, overallRate,
+				estimatedMillisRemaining, streamTelemetry);
+	}
+
+	private static void checkStallThreshold(final long stallThresholdMillis) {
+		if (stallThresholdMillis <= 0) {
+			throw new IllegalArgumentException(
+					"stallThresholdMillis must be greater than zero");
+		}
+	}
+
+	private boolean isAnyStreamActive() {
+		for (Throughput stream : streams.values()) {
+			if (stream.active) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Start the periodic stall check, if there is a listener and bytes are
+	 * being recorded. Called with the lock held.
+	 */
+	private void startStallWatch() {
+		if (stallWatch != null || stallListener == null
+				|| !isAnyStreamActive()) {
+			return;
+		}
+
+		log.debug("starting stall watch");
+		StallWatch watch = new StallWatch(this);
+		stallWatch = stallWatchExecutor.scheduleWithFixedDelay(watch,
+				sampleIntervalNanos, sampleIntervalNanos,
+				TimeUnit.NANOSECONDS);
+		watch.future = stallWatch;
+	}
+
+	/**
+	 * Called with the lock held
+	 */
+	private void stopStallWatch() {
+		if (stallWatch != null) {
+			log.debug("stopping stall watch");
+			stallWatch.cancel(false);
+			stallWatch = null;
+		}
+	}
+
+	/**
+	 * Periodic stall check, which holds the telemetry weakly so that an
+	 * abandoned transfer does not keep it, and stops itself once the
+	 * telemetry is gone
+	 */
+	private static class StallWatch implements Runnable {
+		private final WeakReference<TransferTelemetry> telemetry;
+		private volatile ScheduledFuture<?> future = null;
+
+		StallWatch(final TransferTelemetry transferTelemetry) {
+			telemetry = new WeakReference<TransferTelemetry>(
+					transferTelemetry);
+		}
+
+		@Override
+		public void run() {
+			TransferTelemetry transferTelemetry = telemetry.get();
+			if (transferTelemetry == null) {
+				if (future != null) {
+					future.cancel(false);
+				}
+				return;
+			}
+
+			try {
+				transferTelemetry.checkForStalls();
+			} catch (RuntimeException e) {
+				log.error("error in stall check, ignored", e);
+			}
+		}
+	}
+
+	private Throughput streamFor(final int streamNumber, final long nowNanos) {
+		Throughput stream = streams.get(streamNumber);
+		if (stream == null) {
+			stream = new Throughput(nowNanos);
+			streams.put(streamNumber, stream);
+		}
+		return stream;
+	}
+
+	/**
+	 * Byte count and moving average rate of a stream, or of the whole
+	 * transfer. Guarded by the enclosing telemetry.
+	 */
+	private class Throughput {
+		private final long startNanos;
+		private long bytes = 0L;
+		private long lastProgressNanos;
+		private long sampleStartNanos;
+		private long bytesSinceSample = 0L;
+		private boolean sampled = false;
+		private double rate = 0D;
+		private boolean active = true;
+
+		Throughput(final long nowNanos) {
+			startNanos = nowNanos;
+			lastProgressNanos = nowNanos;
+			sampleStartNanos = nowNanos;
+		}
+
+		void record(final long count, final long nowNanos) {
+			bytes += count;
+			bytesSinceSample += count;
+			if (count > 0) {
+				lastProgressNanos = nowNanos;
+			}
+			active = true;
+			sample(nowNanos);
+		}
+
+		/**
+		 * Fold the bytes since the last sample into the average, if a sample
+		 * interval has passed. A stream moving no bytes decays toward a zero
+		 * rate.
+		 */
+		void sample(final long nowNanos) {
+			long elapsed = nowNanos - sampleStartNanos;
+			if (elapsed < sampleIntervalNanos) {
+				return;
+			}
+
+			double sampleRate = bytesSinceSample * 1000000000D / elapsed;
+			if (sampled) {
+				double weight = 1D - Math.exp(-(double) elapsed
+						/ averagingWindowNanos);
+				rate += weight * (sampleRate - rate);
+			} else {
+				rate = sampleRate;
+				sampled = true;
+			}
+
+			sampleStartNanos = nowNanos;
+			bytesSinceSample = 0L;
+		}
+
+		/**
+		 * The moving average, or before the first sample interval has passed,
+		 * the rate so far
+		 */
+		double rateAt(final long nowNanos) {
+			sample(nowNanos);
+			if (sampled) {
+				return rate;
+			}
+			long elapsed = nowNanos - startNanos;
+			if (elapsed <= 0) {
+				return 0D;
+			}
+			return bytes * 1000000000D / elapsed;
+		}
+	}
+
+}
@@ -0,0 +1,131 @@
+package org.irods.jargon.core.transfer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable view of the throughput of a transfer, taken from a
+ * {@link TransferTelemetry}. This reports the moving average rate of the whole
+ * transfer and of each stream, an estimate of the time remaining, and the
+ * streams that have stalled.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class TransferTelemetrySnapshot {
+
+	private final long elapsedMillis;
+	private final long bytesTransferred;
+	private final long expectedBytes;
+	private final double bytesPerSecond;
+	private final long estimatedMillisRemaining;
+	private final List<StreamTelemetry> streams;
+
+	TransferTelemetrySnapshot(final long elapsedMillis,
+			final long bytesTransferred, final long expectedBytes,
+			final double bytesPerSecond, final long estimatedMillisRemaining,
+			final List<StreamTelemetry> streams) {
+		this.elapsedMillis = elapsedMillis;
+		this.bytesTransferred = bytesTransferred;
+		this.expectedBytes = expectedBytes;
+		this.bytesPerSecond = bytesPerSecond;
+		this.estimatedMillisRemaining = estimatedMillisRemaining;
+		this.streams = Collections.unmodifiableList(streams);
+	}
+
+	/**
+	 * @return <code>long</code> with the time since the first bytes were
+	 *         recorded
+	 */
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	/**
+	 * @return <code>long</code> with the bytes moved on all streams
+	 */
+	public long getBytesTransferred() {
+		return bytesTransferred;
+	}
+
+	/**
+	 * @return <code>long</code> with the bytes the transfer is expected to
+	 *         move, or zero if not known
+	 */
+	public long getExpectedBytes() {
+		return expectedBytes;
+	}
+
+	/**
+	 * @return <code>double</code> with the moving average rate of the whole
+	 *         transfer
+	 */
+	public double getBytesPerSecond() {
+		return bytesPerSecond;
+	}
+
+	/**
+	 * @return <code>long</code> with the estimated time to move the rest of the
+	 *         expected bytes at the current rate, or -1 if the expected bytes
+	 *         are not known or nothing is moving
+	 */
+	public long getEstimatedMillisRemaining() {
+		return estimatedMillisRemaining;
+	}
+
+	/**
+	 * @return <code>List</code> of {@link StreamTelemetry} for each stream, in
+	 *         stream number order
+	 */
+	public List<StreamTelemetry> getStreams() {
+		return streams;
+	}
+
+	/**
+	 * @return <code>List</code> of {@link StreamTelemetry} for the streams
+	 *         that are stalled, empty if none are
+	 */
+	public List<StreamTelemetry> getStalledStreams() {
+		List<StreamTelemetry> stalled = new ArrayList<StreamTelemetry>();
+		for (StreamTelemetry stream : streams) {
+			if (stream.isStalled()) {
+				stalled.add(stream);
+			}
+		}
+		return stalled;
+	}
+
+	/**
+	 * @return <code>boolean</code> that is <code>true</code> if any stream is
+	 *         stalled
+	 */
+	public boolean isStalled() {
+		for (StreamTelemetry stream : streams) {
+			if (stream.isStalled()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("TransferTelemetrySnapshot [elapsedMillis=");
+		builder.append(elapsedMillis);
+		builder.append(", bytesTransferred=");
+		builder.append(bytesTransferred);
+		builder.append(", expectedBytes=");
+		builder.append(expectedBytes);
+		builder.append(", bytesPerSecond=");
+		builder.append(bytesPerSecond);
+		builder.append(", estimatedMillisRemaining=");
+		builder.append(estimatedMillisRemaining);
+		builder.append(", streams=");
+		builder.append(streams);
+		builder.append("]");
+		return builder.toString();
+	}
+
+}
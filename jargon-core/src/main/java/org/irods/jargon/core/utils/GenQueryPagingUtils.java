@@ -0,0 +1,153 @@
+package org.irods.jargon.core.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.IRODSGenQueryExecutor;
+import org.irods.jargon.core.query.GenQueryBuilderException;
+import org.irods.jargon.core.query.IRODSGenQueryBuilder;
+import org.irods.jargon.core.query.IRODSGenQueryFromBuilder;
+import org.irods.jargon.core.query.IRODSQueryResultRow;
+import org.irods.jargon.core.query.IRODSQueryResultSet;
+import org.irods.jargon.core.query.JargonQueryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utility methods that run a GenQuery built by an {@link IRODSGenQueryBuilder}
+ * through every page of its results, rather than stopping at the first page.
+ * Each page is the size of the <code>maxFilesAndDirsQueryMax</code> jargon
+ * property, and the query is always closed in iRODS, even on an error.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class GenQueryPagingUtils {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(GenQueryPagingUtils.class);
+
+	/**
+	 * Receives the rows of a query one page at a time, as they arrive
+	 */
+	public interface PageHandler {
+
+		/**
+		 * @param rows
+		 *            <code>List</code> of {@link IRODSQueryResultRow} in one
+		 *            page of the results
+		 * @throws JargonException
+		 */
+		void handlePage(List<IRODSQueryResultRow> rows) throws JargonException;
+	}
+
+	private GenQueryPagingUtils() {
+	}
+
+	/**
+	 * Execute the query in the given zone, continuing until all rows are
+	 * obtained
+	 *
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory} that runs the query
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} whose connection runs the query
+	 * @param builder
+	 *            {@link IRODSGenQueryBuilder} with the query
+	 * @param zone
+	 *            <code>String</code> with the zone to query, or
+	 *            <code>null</code> for the zone of the account
+	 * @return <code>List</code> of {@link IRODSQueryResultRow} with every row
+	 * @throws JargonException
+	 */
+	public static List<IRODSQueryResultRow> queryAllRows(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount,
+			final IRODSGenQueryBuilder builder, final String zone)
+			throws JargonException {
+
+		final List<IRODSQueryResultRow> rows = new ArrayList<IRODSQueryResultRow>();
+		queryAllPages(irodsAccessObjectFactory, irodsAccount, builder, zone,
+				new PageHandler() {
+					@Override
+					public void handlePage(final List<IRODSQueryResultRow> page) {
+						rows.addAll(page);
+					}
+				});
+		return rows;
+	}
+
+	/**
+	 * Execute the query in the given zone, giving each page of rows to the
+	 * handler as it arrives, so that the whole result is never held at once
+	 *
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory} that runs the query
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} whose connection runs the query
+	 * @param builder
+	 *            {@link IRODSGenQueryBuilder} with the query
+	 * @param zone
+	 *            <code>String</code> with the zone to query, or
+	 *            <code>null</code> for the zone of the account
+	 * @param pageHandler
+	 *            {@link PageHandler} that receives each page
+	 * @throws JargonException
+	 */
+	public static void queryAllPages(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount,
+			final IRODSGenQueryBuilder builder, final String zone,
+			final PageHandler pageHandler) throws JargonException {
+
+		if (irodsAccessObjectFactory == null) {
+			throw new IllegalArgumentException("null irodsAccessObjectFactory");
+		}
+
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+
+		if (builder == null) {
+			throw new IllegalArgumentException("null builder");
+		}
+
+		if (pageHandler == null) {
+			throw new IllegalArgumentException("null pageHandler");
+		}
+
+		IRODSGenQueryExecutor irodsGenQueryExecutor = irodsAccessObjectFactory
+				.getIRODSGenQueryExecutor(irodsAccount);
+
+		IRODSQueryResultSet resultSet = null;
+		try {
+			IRODSGenQueryFromBuilder irodsQuery = builder
+					.exportIRODSQueryFromBuilder(irodsAccessObjectFactory
+							.getJargonProperties().getMaxFilesAndDirsQueryMax());
+			resultSet = irodsGenQueryExecutor.executeIRODSQueryInZone(
+					irodsQuery, 0, zone);
+			pageHandler.handlePage(resultSet.getResults());
+
+			while (resultSet.isHasMoreRecords()) {
+				log.debug("more results to get, requerying");
+				resultSet = irodsGenQueryExecutor.getMoreResultsInZone(
+						resultSet, zone);
+				pageHandler.handlePage(resultSet.getResults());
+			}
+		} catch (JargonQueryException e) {
+			log.error("query exception for query", e);
+			throw new JargonException("error in query", e);
+		} catch (GenQueryBuilderException e) {
+			log.error("query exception for query", e);
+			throw new JargonException("error in query", e);
+		} finally {
+			if (resultSet != null) {
+				irodsGenQueryExecutor.closeResults(resultSet);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,151 @@
+package org.irods.jargon.core.utils;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.IRODSSession;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the worker threads of a service that does iRODS work in parallel.
+ * Connections are kept per thread, so each worker reuses one connection for
+ * all of its tasks, and closes it when the worker exits. The threads are
+ * daemon threads, named with the given prefix and a count.
+ * <p/>
+ * This serves both a plain executor and a <code>ForkJoinPool</code>.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class SessionClosingThreadFactory implements ThreadFactory,
+		ForkJoinPool.ForkJoinWorkerThreadFactory {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(SessionClosingThreadFactory.class);
+
+	private final IRODSSession irodsSession;
+	private final IRODSAccount irodsAccount;
+	private final String threadNamePrefix;
+	private final AtomicInteger count = new AtomicInteger(0);
+
+	/**
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory} whose session holds the
+	 *            connections of the workers
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} of the connection each worker closes
+	 * @param threadNamePrefix
+	 *            <code>String</code> that starts the name of each thread
+	 */
+	public SessionClosingThreadFactory(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount, final String threadNamePrefix) {
+		this(checkFactory(irodsAccessObjectFactory).getIrodsSession(),
+				irodsAccount, threadNamePrefix);
+	}
+
+	/**
+	 * @param irodsSession
+	 *            {@link IRODSSession} that holds the connections of the
+	 *            workers
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} of the connection each worker closes
+	 * @param threadNamePrefix
+	 *            <code>String</code> that starts the name of each thread
+	 */
+	public SessionClosingThreadFactory(final IRODSSession irodsSession,
+			final IRODSAccount irodsAccount, final String threadNamePrefix) {
+
+		if (irodsSession == null) {
+			throw new IllegalArgumentException("null irodsSession");
+		}
+
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+
+		if (threadNamePrefix == null || threadNamePrefix.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty threadNamePrefix");
+		}
+
+		this.irodsSession = irodsSession;
+		this.irodsAccount = irodsAccount;
+		this.threadNamePrefix = threadNamePrefix;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+	 */
+	@Override
+	public Thread newThread(final Runnable runnable) {
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					runnable.run();
+				} finally {
+					closeSession();
+				}
+			}
+		}, nextThreadName());
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory#newThread
+	 * (java.util.concurrent.ForkJoinPool)
+	 */
+	@Override
+	public ForkJoinWorkerThread newThread(final ForkJoinPool pool) {
+		ForkJoinWorkerThread thread = new ForkJoinWorkerThread(pool) {
+			@Override
+			protected void onTermination(final Throwable exception) {
+				try {
+					closeSession();
+				} finally {
+					super.onTermination(exception);
+				}
+			}
+		};
+		thread.setName(nextThreadName());
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	/**
+	 * Close the connection of the current thread, any error is logged and
+	 * ignored
+	 */
+	private void closeSession() {
+		try {
+			irodsSession.closeSession(irodsAccount);
+		} catch (Exception e) {
+			log.warn("error encountered closing session, ignored", e);
+		}
+	}
+
+	private String nextThreadName() {
+		return threadNamePrefix + "-" + count.incrementAndGet();
+	}
+
+	private static IRODSAccessObjectFactory checkFactory(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory) {
+		if (irodsAccessObjectFactory == null) {
+			throw new IllegalArgumentException("null irodsAccessObjectFactory");
+		}
+		return irodsAccessObjectFactory;
+	}
+
+}
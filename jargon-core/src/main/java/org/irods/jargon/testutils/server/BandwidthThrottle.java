@@ -0,0 +1,94 @@
+package org.irods.jargon.testutils.server;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paces bytes to a rate. Each caller reserves the time its bytes take at the
+ * rate, after any bytes already reserved, and sleeps until its reservation
+ * ends, so a throttle shared by several sockets divides the rate between
+ * them.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+class BandwidthThrottle {
+
+	/**
+	 * Largest number of bytes paced in one step, so that a large write is
+	 * spread out rather than sent as one burst after one long sleep
+	 */
+	static final int MAX_CHUNK = 64 * 1024;
+
+	private final long bytesPerSecond;
+	private long nextFreeNanos = System.nanoTime();
+
+	BandwidthThrottle(final long bytesPerSecond) {
+		if (bytesPerSecond <= 0) {
+			throw new IllegalArgumentException(
+					"bytesPerSecond must be greater than zero");
+		}
+		this.bytesPerSecond = bytesPerSecond;
+	}
+
+	/**
+	 * Wait until the given bytes may pass
+	 *
+	 * @param bytes
+	 *            <code>int</code> with the bytes to pass
+	 * @throws InterruptedIOException
+	 *             if the thread is interrupted while waiting
+	 */
+	void acquire(final int bytes) throws InterruptedIOException {
+		if (bytes <= 0) {
+			return;
+		}
+
+		long wakeNanos;
+		synchronized (this) {
+			long now = System.nanoTime();
+			if (nextFreeNanos < now) {
+				nextFreeNanos = now;
+			}
+			nextFreeNanos += bytes * 1000000000L / bytesPerSecond;
+			wakeNanos = nextFreeNanos;
+		}
+
+		long sleepNanos = wakeNanos - System.nanoTime();
+		if (sleepNanos <= 0) {
+			return;
+		}
+
+		try {
+			TimeUnit.NANOSECONDS.sleep(sleepNanos);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("interrupted while throttled");
+		}
+	}
+
+	/**
+	 * Wait on each of the throttles in turn
+	 *
+	 * @param throttles
+	 *            array of {@link BandwidthThrottle}, entries may be
+	 *            <code>null</code>
+	 * @param bytes
+	 *            <code>int</code> with the bytes to pass
+	 * @throws InterruptedIOException
+	 */
+	static void acquireAll(final BandwidthThrottle[] throttles,
+			final int bytes) throws InterruptedIOException {
+		for (BandwidthThrottle throttle : throttles) {
+			if (throttle != null) {
+				throttle.acquire(bytes);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "BandwidthThrottle [bytesPerSecond=" + bytesPerSecond + "]";
+	}
+
+}
@@ -0,0 +1,89 @@
+package org.irods.jargon.testutils.server;
+
+/**
+ * Immutable collection or data object in an {@link InMemoryCatalog}. An
+ * update to a data object replaces its entry, keeping the id and create time.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+class CatalogEntry {
+
+	private final long id;
+	private final String path;
+	private final boolean collection;
+	private final String ownerName;
+	private final byte[] content;
+	private final long createTime;
+	private final long modifyTime;
+
+	CatalogEntry(final long id, final String path, final boolean collection,
+			final String ownerName, final byte[] content,
+			final long createTime, final long modifyTime) {
+		this.id = id;
+		this.path = path;
+		this.collection = collection;
+		this.ownerName = ownerName;
+		this.content = content;
+		this.createTime = createTime;
+		this.modifyTime = modifyTime;
+	}
+
+	/**
+	 * @return a copy of this data object with new content
+	 */
+	CatalogEntry withContent(final byte[] newContent, final long now) {
+		return new CatalogEntry(id, path, false, ownerName, newContent,
+				createTime, now);
+	}
+
+	long getId() {
+		return id;
+	}
+
+	String getPath() {
+		return path;
+	}
+
+	boolean isCollection() {
+		return collection;
+	}
+
+	String getOwnerName() {
+		return ownerName;
+	}
+
+	/**
+	 * @return the content of a data object, shared, not to be changed
+	 */
+	byte[] getContent() {
+		return content;
+	}
+
+	long getSize() {
+		return content == null ? 0L : content.length;
+	}
+
+	long getCreateTime() {
+		return createTime;
+	}
+
+	long getModifyTime() {
+		return modifyTime;
+	}
+
+	String getParentPath() {
+		return InMemoryCatalog.parentOf(path);
+	}
+
+	String getName() {
+		return path.substring(path.lastIndexOf('/') + 1);
+	}
+
+	@Override
+	public String toString() {
+		return "CatalogEntry [id=" + id + ", path=" + path + ", collection="
+				+ collection + ", size=" + getSize() + "]";
+	}
+
+}
@@ -0,0 +1,145 @@
+package org.irods.jargon.testutils.server;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Ticket in an {@link InMemoryCatalog}, granting access to a collection or
+ * data object. A ticket is changed in place while holding the lock of its
+ * catalog, and the query code reads copies.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+class CatalogTicket {
+
+	private final long id;
+	private final String ticketString;
+	private final String type;
+	private final CatalogEntry target;
+	private final String ownerName;
+	private final long createTime;
+	private long modifyTime;
+	private int usesLimit = 0;
+	private int writeFileLimit = 0;
+	private long writeByteLimit = 0L;
+
+	/**
+	 * Expiry in seconds since the epoch, 0 if the ticket does not expire
+	 */
+	private long expiryTime = 0L;
+	private final Set<String> allowedUsers = new LinkedHashSet<String>();
+	private final Set<String> allowedGroups = new LinkedHashSet<String>();
+	private final Set<String> allowedHosts = new LinkedHashSet<String>();
+
+	CatalogTicket(final long id, final String ticketString, final String type,
+			final CatalogEntry target, final String ownerName, final long now) {
+		this.id = id;
+		this.ticketString = ticketString;
+		this.type = type;
+		this.target = target;
+		this.ownerName = ownerName;
+		createTime = now;
+		modifyTime = now;
+	}
+
+	/**
+	 * @return a copy of this ticket, which does not change with it
+	 */
+	CatalogTicket copy() {
+		CatalogTicket copy = new CatalogTicket(id, ticketString, type, target,
+				ownerName, createTime);
+		copy.modifyTime = modifyTime;
+		copy.usesLimit = usesLimit;
+		copy.writeFileLimit = writeFileLimit;
+		copy.writeByteLimit = writeByteLimit;
+		copy.expiryTime = expiryTime;
+		copy.allowedUsers.addAll(allowedUsers);
+		copy.allowedGroups.addAll(allowedGroups);
+		copy.allowedHosts.addAll(allowedHosts);
+		return copy;
+	}
+
+	long getId() {
+		return id;
+	}
+
+	String getTicketString() {
+		return ticketString;
+	}
+
+	String getType() {
+		return type;
+	}
+
+	CatalogEntry getTarget() {
+		return target;
+	}
+
+	String getOwnerName() {
+		return ownerName;
+	}
+
+	long getCreateTime() {
+		return createTime;
+	}
+
+	long getModifyTime() {
+		return modifyTime;
+	}
+
+	void setModifyTime(final long modifyTime) {
+		this.modifyTime = modifyTime;
+	}
+
+	int getUsesLimit() {
+		return usesLimit;
+	}
+
+	void setUsesLimit(final int usesLimit) {
+		this.usesLimit = usesLimit;
+	}
+
+	int getWriteFileLimit() {
+		return writeFileLimit;
+	}
+
+	void setWriteFileLimit(final int writeFileLimit) {
+		this.writeFileLimit = writeFileLimit;
+	}
+
+	long getWriteByteLimit() {
+		return writeByteLimit;
+	}
+
+	void setWriteByteLimit(final long writeByteLimit) {
+		this.writeByteLimit = writeByteLimit;
+	}
+
+	long getExpiryTime() {
+		return expiryTime;
+	}
+
+	void setExpiryTime(final long expiryTime) {
+		this.expiryTime = expiryTime;
+	}
+
+	Set<String> getAllowedUsers() {
+		return allowedUsers;
+	}
+
+	Set<String> getAllowedGroups() {
+		return allowedGroups;
+	}
+
+	Set<String> getAllowedHosts() {
+		return allowedHosts;
+	}
+
+	@Override
+	public String toString() {
+		return "CatalogTicket [id=" + id + ", ticketString=" + ticketString
+				+ ", type=" + type + ", target=" + target.getPath() + "]";
+	}
+
+}
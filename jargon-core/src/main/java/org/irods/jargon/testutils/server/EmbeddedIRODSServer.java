@@ -0,0 +1,361 @@
+package org.irods.jargon.testutils.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An in-process stand-in for an iRODS grid, speaking the XML packing protocol
+ * over real sockets, so that Jargon can be exercised and benchmarked on a
+ * single machine with no grid installed.
+ * <p/>
+ * The server supports the startup pack and standard password authentication,
+ * server info, object stat, general query, create, open, read, write, seek
+ * and close of data objects, put and get including parallel transfers over
+ * separate ports, delete, data object checksums, making and removing
+ * collections, adding and removing AVU metadata, creating, modifying and
+ * deleting tickets, and starting a session with a ticket, which is accepted
+ * but grants no access. The namespace is an {@link InMemoryCatalog}. Other APIs get a
+ * <code>SYS_UNMATCHED_API_NUM</code> error.
+ * <p/>
+ * Latency, bandwidth caps and parallel thread policy are set in the
+ * {@link EmbeddedIRODSServerConfiguration}, and faults may be injected while
+ * the server runs through its {@link FaultInjector}. Typical use in a test:
+ *
+ * <pre>
+ * EmbeddedIRODSServerConfiguration configuration = new EmbeddedIRODSServerConfiguration();
+ * configuration.addUser(&quot;test1&quot;, &quot;test&quot;);
+ * configuration.setLatencyMillis(5);
+ * EmbeddedIRODSServer server = new EmbeddedIRODSServer(configuration);
+ * server.start();
+ * IRODSAccount account = server.createIRODSAccount(&quot;test1&quot;);
+ * ...
+ * server.stop();
+ * </pre>
+ *
+ * A JUnit test may use an {@link EmbeddedIRODSServerRule} to do this around
+ * each test.
+ * <p/>
+ * Each connection is served by its own thread. The server is not meant to be
+ * exposed beyond the test machine, as it does nothing to protect itself.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class EmbeddedIRODSServer implements Closeable {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(EmbeddedIRODSServer.class);
+
+	/**
+	 * Owner of the catalog entries made by the server when no users are
+	 * configured
+	 */
+	public static final String DEFAULT_OWNER = "rods";
+
+	private final EmbeddedIRODSServerConfiguration configuration;
+	private final FaultInjector faultInjector = new FaultInjector();
+	private final InMemoryCatalog catalog;
+	private final GenQueryEvaluator queryEvaluator;
+	private final BandwidthThrottle linkThrottle;
+	private final Set<ServerConnectionHandler> handlers = new HashSet<ServerConnectionHandler>();
+	private final ConcurrentHashMap<Integer, AtomicLong> apiCallCounts = new ConcurrentHashMap<Integer, AtomicLong>();
+	private final AtomicInteger connectionCount = new AtomicInteger(0);
+	private final long bootTime = InMemoryCatalog.now();
+	private ServerSocket serverSocket = null;
+	private volatile boolean stopped = false;
+
+	/**
+	 * Create a server, which listens once {@link #start()} is called
+	 *
+	 * @param configuration
+	 *            {@link EmbeddedIRODSServerConfiguration}, which is copied
+	 */
+	public EmbeddedIRODSServer(
+			final EmbeddedIRODSServerConfiguration configuration) {
+		if (configuration == null) {
+			throw new IllegalArgumentException("null configuration");
+		}
+
+		this.configuration = new EmbeddedIRODSServerConfiguration(
+				configuration);
+
+		List<String> userNames = new ArrayList<String>(this.configuration
+				.getUsers().keySet());
+		catalog = new InMemoryCatalog(userNames.isEmpty() ? DEFAULT_OWNER
+				: userNames.get(0));
+		queryEvaluator = new GenQueryEvaluator(catalog,
+				this.configuration.getZone(),
+				this.configuration.getDefaultResource(),
+				this.configuration.getHost(), userNames);
+
+		if (this.configuration.getLinkBandwidthBytesPerSecond() > 0) {
+			linkThrottle = new BandwidthThrottle(
+					this.configuration.getLinkBandwidthBytesPerSecond());
+		} else {
+			linkThrottle = null;
+		}
+	}
+
+	/**
+	 * Create the zone and home collections, and start listening
+	 *
+	 * @throws IOException
+	 *             if the port cannot be opened
+	 */
+	public synchronized void start() throws IOException {
+		if (serverSocket != null) {
+			throw new IllegalStateException("server already started");
+		}
+
+		String zoneRoot = "/" + configuration.getZone();
+		catalog.createCollection(zoneRoot + "/home");
+		catalog.createCollection(zoneRoot + "/trash/home");
+		for (String userName : configuration.getUsers().keySet()) {
+			catalog.createCollection(zoneRoot + "/home/" + userName, userName);
+		}
+
+		serverSocket = new ServerSocket(configuration.getPort(), 50,
+				InetAddress.getByName(configuration.getHost()));
+		log.info("embedded iRODS server listening on {}:{}",
+				configuration.getHost(), serverSocket.getLocalPort());
+
+		Thread acceptor = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				acceptConnections();
+			}
+		}, "embedded-irods-accept-" + serverSocket.getLocalPort());
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	/**
+	 * Stop listening and close every open connection. The catalog is kept.
+	 */
+	public void stop() {
+		List<ServerConnectionHandler> open;
+		synchronized (this) {
+			if (stopped) {
+				return;
+			}
+			stopped = true;
+			open = new ArrayList<ServerConnectionHandler>(handlers);
+			if (serverSocket != null) {
+				try {
+					serverSocket.close();
+				} catch (IOException e) {
+					log.warn("error closing server socket, ignored", e);
+				}
+			}
+		}
+
+		for (ServerConnectionHandler handler : open) {
+			handler.close();
+		}
+		log.info("embedded iRODS server stopped");
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() {
+		stop();
+	}
+
+	/**
+	 * Create an account for a configured user, with its home collection and
+	 * the default resource
+	 *
+	 * @param userName
+	 *            <code>String</code> with a user added to the configuration
+	 * @return {@link IRODSAccount} that connects to this server
+	 * @throws JargonException
+	 */
+	public IRODSAccount createIRODSAccount(final String userName)
+			throws JargonException {
+		String password = configuration.getUsers().get(userName);
+		if (password == null) {
+			throw new IllegalArgumentException("unknown user:" + userName);
+		}
+
+		return IRODSAccount.instance(getHost(), getPort(), userName, password,
+				getHomeDirectory(userName), getZone(),
+				configuration.getDefaultResource());
+	}
+
+	/**
+	 * @param userName
+	 *            <code>String</code> with the user name
+	 * @return <code>String</code> with the absolute path of the home
+	 *         collection of the user
+	 */
+	public String getHomeDirectory(final String userName) {
+		return "/" + getZone() + "/home/" + userName;
+	}
+
+	/**
+	 * @return <code>int</code> with the port the server listens on
+	 */
+	public synchronized int getPort() {
+		if (serverSocket == null) {
+			throw new IllegalStateException("server not started");
+		}
+		return serverSocket.getLocalPort();
+	}
+
+	public String getHost() {
+		return configuration.getHost();
+	}
+
+	public String getZone() {
+		return configuration.getZone();
+	}
+
+	/**
+	 * @return {@link InMemoryCatalog} with the namespace of the server
+	 */
+	public InMemoryCatalog getCatalog() {
+		return catalog;
+	}
+
+	/**
+	 * @return {@link FaultInjector} that changes the behavior of the running
+	 *         server
+	 */
+	public FaultInjector getFaultInjector() {
+		return faultInjector;
+	}
+
+	/**
+	 * @return <code>int</code> with the number of connections accepted since
+	 *         the server started
+	 */
+	public int getConnectionCount() {
+		return connectionCount.get();
+	}
+
+	/**
+	 * @return <code>int</code> with the number of connections now open
+	 */
+	public synchronized int getOpenConnectionCount() {
+		return handlers.size();
+	}
+
+	/**
+	 * @param apiNumber
+	 *            <code>int</code> with an iRODS API number
+	 * @return <code>long</code> with the number of calls to the API since the
+	 *         server started
+	 */
+	public long getApiCallCount(final int apiNumber) {
+		AtomicLong count = apiCallCounts.get(apiNumber);
+		return count == null ? 0L : count.get();
+	}
+
+	EmbeddedIRODSServerConfiguration getConfiguration() {
+		return configuration;
+	}
+
+	GenQueryEvaluator getQueryEvaluator() {
+		return queryEvaluator;
+	}
+
+	long getBootTime() {
+		return bootTime;
+	}
+
+	boolean isStopped() {
+		return stopped;
+	}
+
+	/**
+	 * @return the throttles for a new socket, one of its own and the shared
+	 *         link throttle, either of which may be <code>null</code>
+	 */
+	BandwidthThrottle[] newSocketThrottles() {
+		BandwidthThrottle socketThrottle = null;
+		if (configuration.getBandwidthBytesPerSecond() > 0) {
+			socketThrottle = new BandwidthThrottle(
+					configuration.getBandwidthBytesPerSecond());
+		}
+		return new BandwidthThrottle[] { socketThrottle, linkThrottle };
+	}
+
+	void recordApiCall(final int apiNumber) {
+		AtomicLong count = apiCallCounts.get(apiNumber);
+		if (count == null) {
+			apiCallCounts.putIfAbsent(apiNumber, new AtomicLong());
+			count = apiCallCounts.get(apiNumber);
+		}
+		count.incrementAndGet();
+	}
+
+	synchronized void connectionClosed(final ServerConnectionHandler handler) {
+		handlers.remove(handler);
+	}
+
+	private void acceptConnections() {
+		while (!stopped) {
+			Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (IOException e) {
+				if (!stopped) {
+					log.error("error accepting connection, server stops", e);
+				}
+				return;
+			}
+
+			connectionCount.incrementAndGet();
+			if (faultInjector.rejectConnection()) {
+				log.info("rejecting connection by fault");
+				try {
+					socket.close();
+				} catch (IOException e) {
+					log.debug("error closing rejected socket, ignored", e);
+				}
+				continue;
+			}
+
+			ServerConnectionHandler handler = new ServerConnectionHandler(
+					this, socket);
+			synchronized (this) {
+				if (stopped) {
+					handler.close();
+					return;
+				}
+				handlers.add(handler);
+			}
+
+			Thread thread = new Thread(handler, "embedded-irods-connection-"
+					+ socket.getPort());
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "EmbeddedIRODSServer [configuration=" + configuration
+				+ ", stopped=" + stopped + "]";
+	}
+
+}
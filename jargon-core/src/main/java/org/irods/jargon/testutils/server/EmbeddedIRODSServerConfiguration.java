@@ -0,0 +1,364 @@
+package org.irods.jargon.testutils.server;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.irods.jargon.core.connection.ConnectionConstants;
+
+/**
+ * Settings for an {@link EmbeddedIRODSServer}. The server takes a copy of
+ * these settings when it starts, so changes made after
+ * {@link EmbeddedIRODSServer#start()} have no effect, except through the
+ * {@link FaultInjector}, which is live.
+ * <p/>
+ * The network conditions are simulated in the server process. Latency is a
+ * delay before each reply is sent, and before the handshake response of a new
+ * connection, to stand in for round trips and agent start up. Bandwidth is
+ * paced per socket, on the main connection and on each parallel transfer
+ * stream, and optionally across all sockets of the server, to stand in for a
+ * shared link.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class EmbeddedIRODSServerConfiguration {
+
+	public static final String DEFAULT_ZONE = "tempZone";
+	public static final String DEFAULT_RESOURCE = "demoResc";
+	public static final String DEFAULT_REL_VERSION = "rods4.1.0";
+	public static final String DEFAULT_API_VERSION = "d";
+	public static final int DEFAULT_PARALLEL_THREADS = 4;
+
+	private String host = "localhost";
+	private int port = 0;
+	private String zone = DEFAULT_ZONE;
+	private String defaultResource = DEFAULT_RESOURCE;
+	private String relVersion = DEFAULT_REL_VERSION;
+	private String apiVersion = DEFAULT_API_VERSION;
+	private final Map<String, String> users = new LinkedHashMap<String, String>();
+	private int maxParallelThreads = DEFAULT_PARALLEL_THREADS;
+	private long singleBufferSize = ConnectionConstants.MAX_SZ_FOR_SINGLE_BUF;
+	private long latencyMillis = 0L;
+	private long connectLatencyMillis = 0L;
+	private final Map<Integer, Long> apiLatencyMillis = new HashMap<Integer, Long>();
+	private long bandwidthBytesPerSecond = 0L;
+	private long linkBandwidthBytesPerSecond = 0L;
+
+	/**
+	 * Create a configuration for a server in {@link #DEFAULT_ZONE} on an
+	 * ephemeral port of <code>localhost</code>, with no users
+	 */
+	public EmbeddedIRODSServerConfiguration() {
+	}
+
+	/**
+	 * Copy constructor
+	 *
+	 * @param other
+	 *            {@link EmbeddedIRODSServerConfiguration} to copy
+	 */
+	public EmbeddedIRODSServerConfiguration(
+			final EmbeddedIRODSServerConfiguration other) {
+		if (other == null) {
+			throw new IllegalArgumentException("null other");
+		}
+
+		synchronized (other) {
+			host = other.host;
+			port = other.port;
+			zone = other.zone;
+			defaultResource = other.defaultResource;
+			relVersion = other.relVersion;
+			apiVersion = other.apiVersion;
+			users.putAll(other.users);
+			maxParallelThreads = other.maxParallelThreads;
+			singleBufferSize = other.singleBufferSize;
+			latencyMillis = other.latencyMillis;
+			connectLatencyMillis = other.connectLatencyMillis;
+			apiLatencyMillis.putAll(other.apiLatencyMillis);
+			bandwidthBytesPerSecond = other.bandwidthBytesPerSecond;
+			linkBandwidthBytesPerSecond = other.linkBandwidthBytesPerSecond;
+		}
+	}
+
+	/**
+	 * Add a user that may log in with the standard iRODS password scheme. A
+	 * home collection is created for each user when the server starts.
+	 *
+	 * @param userName
+	 *            <code>String</code> with the user name
+	 * @param password
+	 *            <code>String</code> with the password
+	 */
+	public synchronized void addUser(final String userName,
+			final String password) {
+		if (userName == null || userName.isEmpty()) {
+			throw new IllegalArgumentException("null or empty userName");
+		}
+
+		if (password == null
+				|| password.length() >= ConnectionConstants.MAX_PASSWORD_LENGTH) {
+			throw new IllegalArgumentException(
+					"password is null or too long for the iRODS protocol");
+		}
+
+		users.put(userName, password);
+	}
+
+	/**
+	 * @return <code>Map</code> of user names to passwords, in the order added
+	 */
+	public synchronized Map<String, String> getUsers() {
+		return Collections.unmodifiableMap(new LinkedHashMap<String, String>(
+				users));
+	}
+
+	public synchronized String getHost() {
+		return host;
+	}
+
+	/**
+	 * @param host
+	 *            <code>String</code> with the address to listen on, and to
+	 *            send to clients as the address of parallel transfer ports
+	 */
+	public synchronized void setHost(final String host) {
+		if (host == null || host.isEmpty()) {
+			throw new IllegalArgumentException("null or empty host");
+		}
+		this.host = host;
+	}
+
+	public synchronized int getPort() {
+		return port;
+	}
+
+	/**
+	 * @param port
+	 *            <code>int</code> with the port to listen on, or zero for an
+	 *            ephemeral port
+	 */
+	public synchronized void setPort(final int port) {
+		if (port < 0) {
+			throw new IllegalArgumentException("negative port");
+		}
+		this.port = port;
+	}
+
+	public synchronized String getZone() {
+		return zone;
+	}
+
+	public synchronized void setZone(final String zone) {
+		if (zone == null || zone.isEmpty()) {
+			throw new IllegalArgumentException("null or empty zone");
+		}
+		this.zone = zone;
+	}
+
+	public synchronized String getDefaultResource() {
+		return defaultResource;
+	}
+
+	public synchronized void setDefaultResource(final String defaultResource) {
+		if (defaultResource == null || defaultResource.isEmpty()) {
+			throw new IllegalArgumentException("null or empty defaultResource");
+		}
+		this.defaultResource = defaultResource;
+	}
+
+	public synchronized String getRelVersion() {
+		return relVersion;
+	}
+
+	/**
+	 * @param relVersion
+	 *            <code>String</code> with the release version reported in the
+	 *            handshake and by the server info call, such as
+	 *            <code>rods3.3.1</code>, which steers the version specific
+	 *            behavior of the client
+	 */
+	public synchronized void setRelVersion(final String relVersion) {
+		if (relVersion == null || relVersion.isEmpty()) {
+			throw new IllegalArgumentException("null or empty relVersion");
+		}
+		this.relVersion = relVersion;
+	}
+
+	public synchronized String getApiVersion() {
+		return apiVersion;
+	}
+
+	public synchronized void setApiVersion(final String apiVersion) {
+		if (apiVersion == null || apiVersion.isEmpty()) {
+			throw new IllegalArgumentException("null or empty apiVersion");
+		}
+		this.apiVersion = apiVersion;
+	}
+
+	public synchronized int getMaxParallelThreads() {
+		return maxParallelThreads;
+	}
+
+	/**
+	 * @param maxParallelThreads
+	 *            <code>int</code> with the most streams the server offers for
+	 *            a parallel transfer, zero makes the server decline parallel
+	 *            transfers as a server side policy would
+	 */
+	public synchronized void setMaxParallelThreads(final int maxParallelThreads) {
+		if (maxParallelThreads < 0) {
+			throw new IllegalArgumentException("negative maxParallelThreads");
+		}
+		this.maxParallelThreads = maxParallelThreads;
+	}
+
+	public synchronized long getSingleBufferSize() {
+		return singleBufferSize;
+	}
+
+	/**
+	 * @param singleBufferSize
+	 *            <code>long</code> with the largest data object the server
+	 *            returns inline in the reply to a get, larger objects are
+	 *            sent over parallel transfer ports
+	 */
+	public synchronized void setSingleBufferSize(final long singleBufferSize) {
+		if (singleBufferSize < 0) {
+			throw new IllegalArgumentException("negative singleBufferSize");
+		}
+		this.singleBufferSize = singleBufferSize;
+	}
+
+	public synchronized long getLatencyMillis() {
+		return latencyMillis;
+	}
+
+	/**
+	 * @param latencyMillis
+	 *            <code>long</code> with the delay before every reply
+	 */
+	public synchronized void setLatencyMillis(final long latencyMillis) {
+		if (latencyMillis < 0) {
+			throw new IllegalArgumentException("negative latencyMillis");
+		}
+		this.latencyMillis = latencyMillis;
+	}
+
+	public synchronized long getConnectLatencyMillis() {
+		return connectLatencyMillis;
+	}
+
+	/**
+	 * @param connectLatencyMillis
+	 *            <code>long</code> with the delay before the handshake response
+	 *            of a new connection
+	 */
+	public synchronized void setConnectLatencyMillis(
+			final long connectLatencyMillis) {
+		if (connectLatencyMillis < 0) {
+			throw new IllegalArgumentException("negative connectLatencyMillis");
+		}
+		this.connectLatencyMillis = connectLatencyMillis;
+	}
+
+	/**
+	 * Set an extra delay before the replies to one API, added to the
+	 * {@link #getLatencyMillis()}
+	 *
+	 * @param apiNumber
+	 *            <code>int</code> with the iRODS API number
+	 * @param latencyMillis
+	 *            <code>long</code> with the extra delay
+	 */
+	public synchronized void setApiLatencyMillis(final int apiNumber,
+			final long latencyMillis) {
+		if (latencyMillis < 0) {
+			throw new IllegalArgumentException("negative latencyMillis");
+		}
+		apiLatencyMillis.put(apiNumber, latencyMillis);
+	}
+
+	/**
+	 * @param apiNumber
+	 *            <code>int</code> with the iRODS API number
+	 * @return <code>long</code> with the total delay before the replies to the
+	 *         API
+	 */
+	public synchronized long getLatencyMillisForApi(final int apiNumber) {
+		Long extra = apiLatencyMillis.get(apiNumber);
+		return latencyMillis + (extra == null ? 0L : extra);
+	}
+
+	public synchronized long getBandwidthBytesPerSecond() {
+		return bandwidthBytesPerSecond;
+	}
+
+	/**
+	 * @param bandwidthBytesPerSecond
+	 *            <code>long</code> with the cap on each socket in each
+	 *            direction, zero for no cap
+	 */
+	public synchronized void setBandwidthBytesPerSecond(
+			final long bandwidthBytesPerSecond) {
+		if (bandwidthBytesPerSecond < 0) {
+			throw new IllegalArgumentException(
+					"negative bandwidthBytesPerSecond");
+		}
+		this.bandwidthBytesPerSecond = bandwidthBytesPerSecond;
+	}
+
+	public synchronized long getLinkBandwidthBytesPerSecond() {
+		return linkBandwidthBytesPerSecond;
+	}
+
+	/**
+	 * @param linkBandwidthBytesPerSecond
+	 *            <code>long</code> with the cap shared by all sockets of the
+	 *            server in each direction, zero for no cap
+	 */
+	public synchronized void setLinkBandwidthBytesPerSecond(
+			final long linkBandwidthBytesPerSecond) {
+		if (linkBandwidthBytesPerSecond < 0) {
+			throw new IllegalArgumentException(
+					"negative linkBandwidthBytesPerSecond");
+		}
+		this.linkBandwidthBytesPerSecond = linkBandwidthBytesPerSecond;
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("EmbeddedIRODSServerConfiguration [host=");
+		builder.append(host);
+		builder.append(", port=");
+		builder.append(port);
+		builder.append(", zone=");
+		builder.append(zone);
+		builder.append(", defaultResource=");
+		builder.append(defaultResource);
+		builder.append(", relVersion=");
+		builder.append(relVersion);
+		builder.append(", users=");
+		builder.append(users.keySet());
+		builder.append(", maxParallelThreads=");
+		builder.append(maxParallelThreads);
+		builder.append(", singleBufferSize=");
+		builder.append(singleBufferSize);
+		builder.append(", latencyMillis=");
+		builder.append(latencyMillis);
+		builder.append(", connectLatencyMillis=");
+		builder.append(connectLatencyMillis);
+		builder.append(", apiLatencyMillis=");
+		builder.append(apiLatencyMillis);
+		builder.append(", bandwidthBytesPerSecond=");
+		builder.append(bandwidthBytesPerSecond);
+		builder.append(", linkBandwidthBytesPerSecond=");
+		builder.append(linkBandwidthBytesPerSecond);
+		builder.append("]");
+		return builder.toString();
+	}
+
+}
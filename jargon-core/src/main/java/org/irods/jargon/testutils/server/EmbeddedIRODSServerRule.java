@@ -0,0 +1,136 @@
+package org.irods.jargon.testutils.server;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.junit.rules.ExternalResource;
+
+/**
+ * JUnit rule that starts an {@link EmbeddedIRODSServer} before each test and
+ * stops it after, along with an {@link IRODSFileSystem} and an
+ * {@link IRODSAccount} for the default user, whose connections are closed
+ * before the server stops. Typical use in a test:
+ *
+ * <pre>
+ * &#064;Rule
+ * public EmbeddedIRODSServerRule serverRule = new EmbeddedIRODSServerRule();
+ *
+ * &#064;Test
+ * public void testSomething() throws Exception {
+ * 	IRODSAccount irodsAccount = serverRule.getIrodsAccount();
+ * 	...
+ * }
+ * </pre>
+ *
+ * The rule runs around the <code>Before</code> and <code>After</code>
+ * methods of the test, so these may use the server.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class EmbeddedIRODSServerRule extends ExternalResource {
+
+	public static final String DEFAULT_USER = "test1";
+	public static final String DEFAULT_PASSWORD = "test";
+
+	private final EmbeddedIRODSServerConfiguration configuration;
+	private EmbeddedIRODSServer server = null;
+	private IRODSFileSystem irodsFileSystem = null;
+	private IRODSAccount irodsAccount = null;
+
+	/**
+	 * Create a rule for a server with the default configuration and the
+	 * default user
+	 */
+	public EmbeddedIRODSServerRule() {
+		this(new EmbeddedIRODSServerConfiguration());
+	}
+
+	/**
+	 * Create a rule for a server with the given configuration, to which the
+	 * default user is added if it is not already there
+	 *
+	 * @param configuration
+	 *            {@link EmbeddedIRODSServerConfiguration} of the server
+	 */
+	public EmbeddedIRODSServerRule(
+			final EmbeddedIRODSServerConfiguration configuration) {
+
+		if (configuration == null) {
+			throw new IllegalArgumentException("null configuration");
+		}
+
+		if (!configuration.getUsers().containsKey(DEFAULT_USER)) {
+			configuration.addUser(DEFAULT_USER, DEFAULT_PASSWORD);
+		}
+
+		this.configuration = configuration;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.junit.rules.ExternalResource#before()
+	 */
+	@Override
+	protected void before() throws Throwable {
+		server = new EmbeddedIRODSServer(configuration);
+		server.start();
+		try {
+			irodsFileSystem = IRODSFileSystem.instance();
+			irodsAccount = server.createIRODSAccount(DEFAULT_USER);
+		} catch (Exception e) {
+			after();
+			throw e;
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.junit.rules.ExternalResource#after()
+	 */
+	@Override
+	protected void after() {
+		if (irodsFileSystem != null) {
+			irodsFileSystem.closeAndEatExceptions();
+			irodsFileSystem = null;
+		}
+
+		if (server != null) {
+			server.stop();
+			server = null;
+		}
+
+		irodsAccount = null;
+	}
+
+	/**
+	 * @return {@link EmbeddedIRODSServerConfiguration} of the server
+	 */
+	public EmbeddedIRODSServerConfiguration getConfiguration() {
+		return configuration;
+	}
+
+	/**
+	 * @return {@link EmbeddedIRODSServer} running for the current test
+	 */
+	public EmbeddedIRODSServer getServer() {
+		return server;
+	}
+
+	/**
+	 * @return {@link IRODSFileSystem} whose connections are closed after the
+	 *         current test
+	 */
+	public IRODSFileSystem getIrodsFileSystem() {
+		return irodsFileSystem;
+	}
+
+	/**
+	 * @return {@link IRODSAccount} of the default user on the server
+	 */
+	public IRODSAccount getIrodsAccount() {
+		return irodsAccount;
+	}
+
+}
@@ -0,0 +1,270 @@
+package org.irods.jargon.testutils.server;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Faults to inject into the traffic of an {@link EmbeddedIRODSServer}. Unlike
+ * the {@link EmbeddedIRODSServerConfiguration}, this may be changed while the
+ * server runs, and applies from the next request.
+ * <p/>
+ * An API may be made to fail with an iRODS error code, either for a number of
+ * calls or at random, or to drop the connection instead of replying. New
+ * connections may be refused, and the streams of parallel transfers may be
+ * made to stall, or to break, after moving a given number of bytes.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class FaultInjector {
+
+	/**
+	 * What the server does in place of the normal reply to an API call
+	 */
+	public enum FaultType {
+		/**
+		 * Reply with an iRODS error code
+		 */
+		ERROR,
+		/**
+		 * Close the connection without replying
+		 */
+		DROP_CONNECTION
+	}
+
+	private final List<Fault> faults = new ArrayList<Fault>();
+	private Random random = new Random();
+	private int connectionsToReject = 0;
+	private long streamStallAfterBytes = -1L;
+	private long streamStallMillis = 0L;
+	private long streamDropAfterBytes = -1L;
+
+	/**
+	 * Make the next calls to an API fail with an iRODS error
+	 *
+	 * @param apiNumber
+	 *            <code>int</code> with the iRODS API number
+	 * @param errorCode
+	 *            <code>int</code> with the negative iRODS error code, as in
+	 *            {@link org.irods.jargon.core.protovalues.ErrorEnum}
+	 * @param times
+	 *            <code>int</code> with the number of calls to fail
+	 */
+	public synchronized void failApi(final int apiNumber, final int errorCode,
+			final int times) {
+		checkErrorCode(errorCode);
+		checkTimes(times);
+		faults.add(new Fault(apiNumber, FaultType.ERROR, errorCode, times, 1D));
+	}
+
+	/**
+	 * Make calls to an API fail with an iRODS error at random, until
+	 * {@link #clear()}
+	 *
+	 * @param apiNumber
+	 *            <code>int</code> with the iRODS API number
+	 * @param errorCode
+	 *            <code>int</code> with the negative iRODS error code
+	 * @param probability
+	 *            <code>double</code> from 0 to 1 with the chance that a call
+	 *            fails
+	 */
+	public synchronized void failApiWithProbability(final int apiNumber,
+			final int errorCode, final double probability) {
+		checkErrorCode(errorCode);
+		if (probability < 0D || probability > 1D) {
+			throw new IllegalArgumentException(
+					"probability must be between 0 and 1");
+		}
+		faults.add(new Fault(apiNumber, FaultType.ERROR, errorCode, -1,
+				probability));
+	}
+
+	/**
+	 * Make the server close the connection instead of replying to the next
+	 * calls to an API
+	 *
+	 * @param apiNumber
+	 *            <code>int</code> with the iRODS API number
+	 * @param times
+	 *            <code>int</code> with the number of calls to drop
+	 */
+	public synchronized void dropConnectionOnApi(final int apiNumber,
+			final int times) {
+		checkTimes(times);
+		faults.add(new Fault(apiNumber, FaultType.DROP_CONNECTION, 0, times,
+				1D));
+	}
+
+	/**
+	 * Make the server close the next new connections as soon as they are
+	 * accepted
+	 *
+	 * @param times
+	 *            <code>int</code> with the number of connections to refuse
+	 */
+	public synchronized void rejectConnections(final int times) {
+		checkTimes(times);
+		connectionsToReject += times;
+	}
+
+	/**
+	 * Make each stream of a parallel transfer pause once, after it has moved
+	 * the given bytes
+	 *
+	 * @param afterBytes
+	 *            <code>long</code> with the bytes a stream moves before the
+	 *            pause
+	 * @param stallMillis
+	 *            <code>long</code> with the length of the pause
+	 */
+	public synchronized void stallParallelStreams(final long afterBytes,
+			final long stallMillis) {
+		if (afterBytes < 0) {
+			throw new IllegalArgumentException("negative afterBytes");
+		}
+		if (stallMillis <= 0) {
+			throw new IllegalArgumentException(
+					"stallMillis must be greater than zero");
+		}
+		streamStallAfterBytes = afterBytes;
+		streamStallMillis = stallMillis;
+	}
+
+	/**
+	 * Make each stream of a parallel transfer close its socket after it has
+	 * moved the given bytes
+	 *
+	 * @param afterBytes
+	 *            <code>long</code> with the bytes a stream moves before it
+	 *            breaks
+	 */
+	public synchronized void dropParallelStreams(final long afterBytes) {
+		if (afterBytes < 0) {
+			throw new IllegalArgumentException("negative afterBytes");
+		}
+		streamDropAfterBytes = afterBytes;
+	}
+
+	/**
+	 * Seed the random choices of {@link #failApiWithProbability}, so that a
+	 * run can be repeated
+	 *
+	 * @param seed
+	 *            <code>long</code> with the seed
+	 */
+	public synchronized void setRandomSeed(final long seed) {
+		random = new Random(seed);
+	}
+
+	/**
+	 * Remove all faults
+	 */
+	public synchronized void clear() {
+		faults.clear();
+		connectionsToReject = 0;
+		streamStallAfterBytes = -1L;
+		streamStallMillis = 0L;
+		streamDropAfterBytes = -1L;
+	}
+
+	/**
+	 * Find the fault, if any, to apply to a call of an API, counting it down
+	 *
+	 * @return {@link Fault} or <code>null</code> to reply normally
+	 */
+	synchronized Fault nextFault(final int apiNumber) {
+		Iterator<Fault> iterator = faults.iterator();
+		while (iterator.hasNext()) {
+			Fault fault = iterator.next();
+			if (fault.apiNumber != apiNumber) {
+				continue;
+			}
+
+			if (fault.probability < 1D
+					&& random.nextDouble() >= fault.probability) {
+				continue;
+			}
+
+			if (fault.remaining > 0 && --fault.remaining == 0) {
+				iterator.remove();
+			}
+			return fault;
+		}
+		return null;
+	}
+
+	synchronized boolean rejectConnection() {
+		if (connectionsToReject > 0) {
+			connectionsToReject--;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * @return <code>long</code> with the bytes after which a parallel stream
+	 *         pauses, or -1 for none
+	 */
+	synchronized long getStreamStallAfterBytes() {
+		return streamStallAfterBytes;
+	}
+
+	synchronized long getStreamStallMillis() {
+		return streamStallMillis;
+	}
+
+	/**
+	 * @return <code>long</code> with the bytes after which a parallel stream
+	 *         breaks, or -1 for none
+	 */
+	synchronized long getStreamDropAfterBytes() {
+		return streamDropAfterBytes;
+	}
+
+	private static void checkErrorCode(final int errorCode) {
+		if (errorCode >= 0) {
+			throw new IllegalArgumentException(
+					"errorCode must be a negative iRODS error");
+		}
+	}
+
+	private static void checkTimes(final int times) {
+		if (times <= 0) {
+			throw new IllegalArgumentException(
+					"times must be greater than zero");
+		}
+	}
+
+	/**
+	 * A fault to apply to an API
+	 */
+	static class Fault {
+		private final int apiNumber;
+		private final FaultType faultType;
+		private final int errorCode;
+		private final double probability;
+		private int remaining;
+
+		Fault(final int apiNumber, final FaultType faultType,
+				final int errorCode, final int remaining,
+				final double probability) {
+			this.apiNumber = apiNumber;
+			this.faultType = faultType;
+			this.errorCode = errorCode;
+			this.remaining = remaining;
+			this.probability = probability;
+		}
+
+		FaultType getFaultType() {
+			return faultType;
+		}
+
+		int getErrorCode() {
+			return errorCode;
+		}
+	}
+
+}
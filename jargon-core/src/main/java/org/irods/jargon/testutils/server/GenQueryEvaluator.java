@@ -0,0 +1,837 @@
+package org.irods.jargon.testutils.server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.irods.jargon.core.packinstr.GenQueryInp;
+import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.protovalues.FilePermissionEnum;
+import org.irods.jargon.core.pub.domain.AvuData;
+import org.irods.jargon.core.utils.IRODSConstants;
+
+/**
+ * Answers a <code>GenQueryInp_PI</code> from an {@link InMemoryCatalog}.
+ * <p/>
+ * The catalog has no tables to join, so the columns named in a query decide
+ * what a row is. Any data object or data access column makes a row per data
+ * object, carrying the columns of its collection and owner. Otherwise any
+ * collection column makes a row per collection, a user column a row per user,
+ * and a resource column a row for the single resource. A ticket column makes
+ * a row per ticket, or per allowed user, group or host of a ticket when one
+ * of those columns is named. A data object or collection AVU column makes a
+ * row per AVU of each data object or collection, and a query on any other
+ * metadata finds nothing. Every object is owned by one user, who has
+ * <code>own</code> access. A collection access column makes a row per entry
+ * of the access list of each collection, which also holds any access given
+ * with {@link InMemoryCatalog#setAccessPermission}; the access columns of a
+ * data object show only its owner.
+ * <p/>
+ * The conditions, distinct, aggregates, ordering and upper case options of
+ * the protocol are supported, which is enough to list, search and stat the
+ * catalog through the normal Jargon query code.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+class GenQueryEvaluator {
+
+	static final int NO_DISTINCT = 1;
+
+	static final String OWN_ACCESS_NAME = "own";
+	static final String OWN_ACCESS_TYPE = "1200";
+	static final String DEFAULT_DATA_MODE = "33188";
+	static final String VAULT_PATH = "/var/lib/irods/iRODS/Vault";
+	static final String DATA_TYPE_NAME = "generic";
+
+	private static final int FUNCTION_MIN = 2;
+	private static final int FUNCTION_MAX = 3;
+	private static final int FUNCTION_SUM = 4;
+	private static final int FUNCTION_AVG = 5;
+	private static final int FUNCTION_COUNT = 6;
+
+	private static final int META_DATA_ATTR_NAME = 600;
+	private static final int META_COLL_ATTR_NAME = 610;
+
+	private static final int TICKET_ALLOWED_HOST = 2221;
+	private static final int TICKET_ALLOWED_USER_NAME = 2223;
+	private static final int TICKET_ALLOWED_GROUP_NAME = 2225;
+
+	/**
+	 * Operators of a condition, longest first so that a prefix does not match
+	 * first
+	 */
+	private static final String[] OPERATORS = { "sounds not like",
+			"sounds like", "not between", "not like", "not in", "between",
+			"like", "in", "n<=", "n>=", "n<>", "n<", "n>", "n=", "<>", "!=",
+			"<=", ">=", "<", ">", "=" };
+
+	private final InMemoryCatalog catalog;
+	private final String zone;
+	private final String resource;
+	private final String host;
+	private final Map<String, String> userIds = new LinkedHashMap<String, String>();
+
+	/**
+	 * @param catalog
+	 *            {@link InMemoryCatalog} to query
+	 * @param zone
+	 *            <code>String</code> with the zone of every object and user
+	 * @param resource
+	 *            <code>String</code> with the name of the only resource
+	 * @param host
+	 *            <code>String</code> with the location of the resource
+	 * @param userNames
+	 *            <code>List</code> of the user names, in id order
+	 */
+	GenQueryEvaluator(final InMemoryCatalog catalog, final String zone,
+			final String resource, final String host,
+			final List<String> userNames) {
+		this.catalog = catalog;
+		this.zone = zone;
+		this.resource = resource;
+		this.host = host;
+		long id = 9000L;
+		for (String userName : userNames) {
+			userIds.put(userName, String.valueOf(id++));
+		}
+	}
+
+	/**
+	 * Run a query
+	 *
+	 * @param genQueryInp
+	 *            {@link Tag} with the <code>GenQueryInp_PI</code>
+	 * @return <code>List</code> of rows, each holding the values of the
+	 *         selected columns in select order
+	 * @throws IllegalArgumentException
+	 *             if a condition cannot be parsed
+	 */
+	List<String[]> evaluate(final Tag genQueryInp) {
+
+		int options = intValue(genQueryInp.getTag(IRODSConstants.options));
+
+		List<Integer> selects = new ArrayList<Integer>();
+		List<Integer> functions = new ArrayList<Integer>();
+		Tag selectPairs = genQueryInp.getTag(GenQueryInp.INX_IVAL_PAIR_PI);
+		if (selectPairs != null && selectPairs.getTags() != null) {
+			for (Tag tag : selectPairs.getTags()) {
+				if (GenQueryInp.INX.equals(tag.getName())) {
+					selects.add(tag.getIntValue());
+				} else if (GenQueryInp.IVALUE.equals(tag.getName())) {
+					functions.add(tag.getIntValue());
+				}
+			}
+		}
+
+		if (selects.isEmpty() || functions.size() != selects.size()) {
+			throw new IllegalArgumentException("no select columns in query");
+		}
+
+		List<Integer> conditionColumns = new ArrayList<Integer>();
+		List<Condition> conditions = new ArrayList<Condition>();
+		Tag conditionPairs = genQueryInp.getTag(GenQueryInp.INX_VAL_PAIR_PI);
+		if (conditionPairs != null && conditionPairs.getTags() != null) {
+			List<String> values = new ArrayList<String>();
+			for (Tag tag : conditionPairs.getTags()) {
+				if (GenQueryInp.INX.equals(tag.getName())) {
+					conditionColumns.add(tag.getIntValue());
+				} else if (GenQueryInp.SVALUE.equals(tag.getName())) {
+					values.add(tag.getStringValue());
+				}
+			}
+			boolean upperCase = (options & GenQueryInp.UPPER_CASE_WHERE) != 0;
+			for (int i = 0; i < conditionColumns.size(); i++) {
+				conditions.add(Condition.parse(conditionColumns.get(i),
+						i < values.size() ? values.get(i) : "", upperCase));
+			}
+		}
+
+		Set<Integer> referenced = new LinkedHashSet<Integer>(selects);
+		referenced.addAll(conditionColumns);
+
+		List<String[]> rows = new ArrayList<String[]>();
+		for (Map<Integer, String> candidate : candidateRows(referenced)) {
+			if (matches(candidate, conditions)) {
+				String[] row = new String[selects.size()];
+				for (int i = 0; i < row.length; i++) {
+					String value = candidate.get(selects.get(i));
+					row[i] = value == null ? "" : value;
+				}
+				rows.add(row);
+			}
+		}
+
+		if (hasAggregate(functions)) {
+			rows = aggregate(rows, functions);
+		} else if ((options & NO_DISTINCT) == 0) {
+			rows = distinct(rows);
+		}
+
+		sort(rows, functions);
+		return rows;
+	}
+
+	/**
+	 * Build the rows of the entity that the referenced columns describe
+	 */
+	private List<Map<Integer, String>> candidateRows(
+			final Set<Integer> referenced) {
+
+		boolean data = false;
+		boolean collection = false;
+		boolean user = false;
+		boolean resourceColumn = false;
+		boolean ticket = false;
+		int ticketRestriction = 0;
+		int avuColumns = 0;
+		boolean collectionAccess = false;
+
+		for (int column : referenced) {
+			if (column >= META_DATA_ATTR_NAME
+					&& column < META_DATA_ATTR_NAME + 4) {
+				data = true;
+				avuColumns = META_DATA_ATTR_NAME;
+			} else if (column >= META_COLL_ATTR_NAME
+					&& column < META_COLL_ATTR_NAME + 4) {
+				collection = true;
+				avuColumns = META_COLL_ATTR_NAME;
+			} else if (column >= 600 && column < 700) {
+				// no other metadata is kept
+				return Collections.emptyList();
+			} else if (column >= 2200 && column < 2300) {
+				ticket = true;
+				if (column == TICKET_ALLOWED_HOST
+						|| column == TICKET_ALLOWED_USER_NAME
+						|| column == TICKET_ALLOWED_GROUP_NAME) {
+					ticketRestriction = column;
+				}
+			} else if ((column >= 400 && column < 500)
+					|| (column >= 700 && column < 710)) {
+				data = true;
+			} else if ((column >= 710 && column < 720) || column == 1300
+					|| column == 1301) {
+				collection = true;
+				collectionAccess = true;
+			} else if (column >= 500 && column < 600) {
+				collection = true;
+			} else if (column >= 200 && column < 300) {
+				user = true;
+			} else if (column >= 300 && column < 400) {
+				resourceColumn = true;
+			}
+		}
+
+		List<Map<Integer, String>> rows = new ArrayList<Map<Integer, String>>();
+		if (ticket) {
+			for (CatalogTicket catalogTicket : catalog.ticketSnapshot()) {
+				Map<Integer, String> row = ticketRow(catalogTicket);
+				if (ticketRestriction == 0) {
+					rows.add(row);
+					continue;
+				}
+				Set<String> allowed;
+				if (ticketRestriction == TICKET_ALLOWED_HOST) {
+					allowed = catalogTicket.getAllowedHosts();
+				} else if (ticketRestriction == TICKET_ALLOWED_USER_NAME) {
+					allowed = catalogTicket.getAllowedUsers();
+				} else {
+					allowed = catalogTicket.getAllowedGroups();
+				}
+				for (String value : allowed) {
+					Map<Integer, String> restrictionRow = new HashMap<Integer, String>(
+							row);
+					restrictionRow.put(ticketRestriction - 1,
+							String.valueOf(catalogTicket.getId()));
+					restrictionRow.put(ticketRestriction, value);
+					rows.add(restrictionRow);
+				}
+			}
+		} else if (data) {
+			Map<String, CatalogEntry> collections = new HashMap<String, CatalogEntry>();
+			List<CatalogEntry> entries = catalog.snapshot();
+			for (CatalogEntry entry : entries) {
+				if (entry.isCollection()) {
+					collections.put(entry.getPath(), entry);
+				}
+			}
+			for (CatalogEntry entry : entries) {
+				if (!entry.isCollection()) {
+					for (int replicaNumber : catalog.getReplicaNumbers(entry
+							.getPath())) {
+						addRow(rows, dataObjectRow(entry,
+								collections.get(entry.getParentPath()),
+								replicaNumber), entry, avuColumns, false);
+					}
+				}
+			}
+		} else if (collection) {
+			for (CatalogEntry entry : catalog.snapshot()) {
+				if (entry.isCollection()) {
+					addRow(rows, collectionRow(entry), entry, avuColumns,
+							collectionAccess);
+				}
+			}
+		} else if (user) {
+			for (String userName : userIds.keySet()) {
+				Map<Integer, String> row = new HashMap<Integer, String>();
+				addUserColumns(row, userName);
+				rows.add(row);
+			}
+		} else if (resourceColumn) {
+			Map<Integer, String> row = new HashMap<Integer, String>();
+			row.put(301, "10001");
+			row.put(302, resource);
+			row.put(303, zone);
+			row.put(304, "unixfilesystem");
+			row.put(305, "cache");
+			row.put(306, host);
+			row.put(307, VAULT_PATH);
+			rows.add(row);
+		}
+		return rows;
+	}
+
+	/**
+	 * Add the row of an entry, or when AVU columns are named, a copy of it for
+	 * each AVU of the entry, and when collection access columns are named, a
+	 * copy of each of those for each entry of the access list
+	 */
+	private void addRow(final List<Map<Integer, String>> rows,
+			final Map<Integer, String> row, final CatalogEntry entry,
+			final int avuColumns, final boolean collectionAccess) {
+		List<Map<Integer, String>> avuRows = new ArrayList<Map<Integer, String>>();
+		if (avuColumns == 0) {
+			avuRows.add(row);
+		} else {
+			int avuId = 0;
+			for (AvuData avuData : catalog.getAVUMetadata(entry.getPath())) {
+				Map<Integer, String> avuRow = new HashMap<Integer, String>(row);
+				avuRow.put(avuColumns, avuData.getAttribute());
+				avuRow.put(avuColumns + 1, avuData.getValue());
+				avuRow.put(avuColumns + 2, avuData.getUnit());
+				avuRow.put(avuColumns + 3,
+						String.valueOf(entry.getId() * 1000L + avuId++));
+				avuRows.add(avuRow);
+			}
+		}
+
+		if (!collectionAccess) {
+			rows.addAll(avuRows);
+			return;
+		}
+
+		Map<String, FilePermissionEnum> accessList = catalog
+				.getAccessPermissions(entry.getPath());
+		for (Map<Integer, String> avuRow : avuRows) {
+			for (Map.Entry<String, FilePermissionEnum> access : accessList
+					.entrySet()) {
+				Map<Integer, String> accessRow = new HashMap<Integer, String>(
+						avuRow);
+				accessRow.put(710, String.valueOf(access.getValue()
+						.getPermissionNumericValue()));
+				accessRow.put(711, accessName(access.getValue()));
+				accessRow.put(713, userId(access.getKey()));
+				accessRow.put(1300, access.getKey());
+				accessRow.put(1301, zone);
+				rows.add(accessRow);
+			}
+		}
+	}
+
+	/**
+	 * The iCAT name of an access type
+	 */
+	private static String accessName(final FilePermissionEnum filePermissionEnum) {
+		switch (filePermissionEnum) {
+		case OWN:
+			return OWN_ACCESS_NAME;
+		case WRITE:
+			return "modify object";
+		case READ:
+			return "read object";
+		default:
+			return filePermissionEnum.name().toLowerCase(Locale.US)
+					.replace('_', ' ');
+		}
+	}
+
+	private Map<Integer, String> dataObjectRow(final CatalogEntry entry,
+			final CatalogEntry parent, final int replicaNumber) {
+		Map<Integer, String> row = new HashMap<Integer, String>();
+		if (parent != null) {
+			row.putAll(collectionRow(parent));
+			// the access and owner columns are those of the data object
+			for (int column = 710; column < 720; column++) {
+				row.remove(column);
+			}
+			row.remove(1300);
+			row.remove(1301);
+		}
+		String id = String.valueOf(entry.getId());
+		row.put(401, id);
+		row.put(402, parent == null ? "" : String.valueOf(parent.getId()));
+		row.put(403, entry.getName());
+		row.put(404, String.valueOf(replicaNumber));
+		row.put(405, "");
+		row.put(406, DATA_TYPE_NAME);
+		row.put(407, String.valueOf(entry.getSize()));
+		row.put(409, resource);
+		row.put(410, VAULT_PATH + entry.getPath());
+		row.put(411, entry.getOwnerName());
+		row.put(412, zone);
+		row.put(413, "1");
+		row.put(414, "");
+		row.put(415, "");
+		row.put(419, formatTime(entry.getCreateTime()));
+		row.put(420, formatTime(entry.getModifyTime()));
+		row.put(421, DEFAULT_DATA_MODE);
+		row.put(700, OWN_ACCESS_TYPE);
+		row.put(701, OWN_ACCESS_NAME);
+		row.put(703, userId(entry.getOwnerName()));
+		row.put(704, id);
+		addUserColumns(row, entry.getOwnerName());
+		return row;
+	}
+
+	private Map<Integer, String> ticketRow(final CatalogTicket catalogTicket) {
+		Map<Integer, String> row = new HashMap<Integer, String>();
+		CatalogEntry target = catalogTicket.getTarget();
+		row.put(2200, String.valueOf(catalogTicket.getId()));
+		row.put(2201, catalogTicket.getTicketString());
+		row.put(2202, catalogTicket.getType());
+		row.put(2203, userId(catalogTicket.getOwnerName()));
+		row.put(2204, String.valueOf(target.getId()));
+		row.put(2205, target.isCollection() ? "collection" : "data");
+		row.put(2206, String.valueOf(catalogTicket.getUsesLimit()));
+		row.put(2207, "0");
+		row.put(2208, catalogTicket.getExpiryTime() == 0L ? ""
+				: formatTime(catalogTicket.getExpiryTime()));
+		row.put(2209, formatTime(catalogTicket.getCreateTime()));
+		row.put(2210, formatTime(catalogTicket.getModifyTime()));
+		row.put(2211, "0");
+		row.put(2212, String.valueOf(catalogTicket.getWriteFileLimit()));
+		row.put(2213, "0");
+		row.put(2214, String.valueOf(catalogTicket.getWriteByteLimit()));
+		if (target.isCollection()) {
+			row.put(2228, target.getPath());
+		} else {
+			row.put(2226, target.getName());
+			row.put(2227, target.getParentPath());
+		}
+		row.put(2229, catalogTicket.getOwnerName());
+		row.put(2230, zone);
+		return row;
+	}
+
+	private Map<Integer, String> collectionRow(final CatalogEntry entry) {
+		Map<Integer, String> row = new HashMap<Integer, String>();
+		String id = String.valueOf(entry.getId());
+		row.put(500, id);
+		row.put(501, entry.getPath());
+		row.put(502, entry.getPath().equals("/") ? "" : entry.getParentPath());
+		row.put(503, entry.getOwnerName());
+		row.put(504, zone);
+		row.put(506, "");
+		row.put(508, formatTime(entry.getCreateTime()));
+		row.put(509, formatTime(entry.getModifyTime()));
+		row.put(510, catalog.isMountPoint(entry.getPath()) ? "mountPoint"
+				: "");
+		row.put(710, OWN_ACCESS_TYPE);
+		row.put(711, OWN_ACCESS_NAME);
+		row.put(713, userId(entry.getOwnerName()));
+		row.put(714, id);
+		row.put(1300, entry.getOwnerName());
+		row.put(1301, zone);
+		addUserColumns(row, entry.getOwnerName());
+		return row;
+	}
+
+	private void addUserColumns(final Map<Integer, String> row,
+			final String userName) {
+		row.put(201, userId(userName));
+		row.put(202, userName);
+		row.put(203, "rodsuser");
+		row.put(204, zone);
+	}
+
+	private String userId(final String userName) {
+		String id = userIds.get(userName);
+		return id == null ? "" : id;
+	}
+
+	static String formatTime(final long seconds) {
+		return String.format(Locale.US, "%011d", seconds);
+	}
+
+	private static boolean matches(final Map<Integer, String> row,
+			final List<Condition> conditions) {
+		for (Condition condition : conditions) {
+			String value = row.get(condition.column);
+			if (!condition.matches(value == null ? "" : value)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean hasAggregate(final List<Integer> functions) {
+		for (int function : functions) {
+			if (function >= FUNCTION_MIN && function <= FUNCTION_COUNT) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static List<String[]> distinct(final List<String[]> rows) {
+		Set<List<String>> seen = new LinkedHashSet<List<String>>();
+		List<String[]> distinctRows = new ArrayList<String[]>();
+		for (String[] row : rows) {
+			if (seen.add(Arrays.asList(row))) {
+				distinctRows.add(row);
+			}
+		}
+		return distinctRows;
+	}
+
+	/**
+	 * Group the rows by their plain columns, and compute the aggregate columns
+	 * over each group
+	 */
+	private static List<String[]> aggregate(final List<String[]> rows,
+			final List<Integer> functions) {
+
+		Map<List<String>, List<String[]>> groups = new LinkedHashMap<List<String>, List<String[]>>();
+		for (String[] row : rows) {
+			List<String> key = new ArrayList<String>();
+			for (int i = 0; i < row.length; i++) {
+				if (!isAggregate(functions.get(i))) {
+					key.add(row[i]);
+				}
+			}
+			List<String[]> group = groups.get(key);
+			if (group == null) {
+				group = new ArrayList<String[]>();
+				groups.put(key, group);
+			}
+			group.add(row);
+		}
+
+		if (groups.isEmpty() && allAggregate(functions)) {
+			// an aggregate over no rows is still one row
+			groups.put(new ArrayList<String>(), new ArrayList<String[]>());
+		}
+
+		List<String[]> aggregated = new ArrayList<String[]>();
+		for (List<String[]> group : groups.values()) {
+			String[] result = new String[functions.size()];
+			for (int i = 0; i < result.length; i++) {
+				int function = functions.get(i);
+				if (!isAggregate(function)) {
+					result[i] = group.get(0)[i];
+				} else {
+					result[i] = computeAggregate(function, group, i);
+				}
+			}
+			aggregated.add(result);
+		}
+		return aggregated;
+	}
+
+	private static boolean isAggregate(final int function) {
+		return function >= FUNCTION_MIN && function <= FUNCTION_COUNT;
+	}
+
+	private static boolean allAggregate(final List<Integer> functions) {
+		for (int function : functions) {
+			if (!isAggregate(function)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String computeAggregate(final int function,
+			final List<String[]> group, final int column) {
+		if (function == FUNCTION_COUNT) {
+			return String.valueOf(group.size());
+		}
+
+		if (group.isEmpty()) {
+			return "";
+		}
+
+		if (function == FUNCTION_MIN || function == FUNCTION_MAX) {
+			String best = group.get(0)[column];
+			for (String[] row : group) {
+				int comparison = compareValues(row[column], best);
+				if ((function == FUNCTION_MIN && comparison < 0)
+						|| (function == FUNCTION_MAX && comparison > 0)) {
+					best = row[column];
+				}
+			}
+			return best;
+		}
+
+		double sum = 0D;
+		for (String[] row : group) {
+			if (isNumber(row[column])) {
+				sum += Double.parseDouble(row[column]);
+			}
+		}
+		double result = function == FUNCTION_SUM ? sum : sum / group.size();
+		if (result == Math.rint(result) && !Double.isInfinite(result)) {
+			return String.valueOf((long) result);
+		}
+		return String.valueOf(result);
+	}
+
+	/**
+	 * Order by the columns flagged for ordering, in select order
+	 */
+	private static void sort(final List<String[]> rows,
+			final List<Integer> functions) {
+		final List<Integer> orderColumns = new ArrayList<Integer>();
+		final List<Boolean> descending = new ArrayList<Boolean>();
+		for (int i = 0; i < functions.size(); i++) {
+			int function = functions.get(i);
+			if (function == GenQueryInp.ORDER_BY
+					|| function == GenQueryInp.ORDER_BY_DESC) {
+				orderColumns.add(i);
+				descending.add(function == GenQueryInp.ORDER_BY_DESC);
+			}
+		}
+
+		if (orderColumns.isEmpty()) {
+			return;
+		}
+
+		Collections.sort(rows, new Comparator<String[]>() {
+			@Override
+			public int compare(final String[] left, final String[] right) {
+				for (int i = 0; i < orderColumns.size(); i++) {
+					int column = orderColumns.get(i);
+					int comparison = compareValues(left[column], right[column]);
+					if (comparison != 0) {
+						return descending.get(i) ? -comparison : comparison;
+					}
+				}
+				return 0;
+			}
+		});
+	}
+
+	/**
+	 * Compare as numbers when both values are numbers, as the catalog does for
+	 * its numeric columns, otherwise as strings
+	 */
+	static int compareValues(final String left, final String right) {
+		if (isNumber(left) && isNumber(right)) {
+			return Double.compare(Double.parseDouble(left),
+					Double.parseDouble(right));
+		}
+		return left.compareTo(right);
+	}
+
+	static boolean isNumber(final String value) {
+		if (value == null || value.isEmpty()) {
+			return false;
+		}
+		try {
+			Double.parseDouble(value);
+			return true;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	private static int intValue(final Tag tag) {
+		if (tag == null || tag.getStringValue() == null
+				|| tag.getStringValue().isEmpty()) {
+			return 0;
+		}
+		return tag.getIntValue();
+	}
+
+	/**
+	 * A parsed condition, such as <code> = 'abc' </code> or
+	 * <code> in ('a', 'b') </code>
+	 */
+	static class Condition {
+		private final int column;
+		private final String operator;
+		private final List<String> operands;
+		private final boolean upperCase;
+		private final Pattern likePattern;
+
+		private Condition(final int column, final String operator,
+				final List<String> operands, final boolean upperCase) {
+			this.column = column;
+			this.operator = operator;
+			this.operands = operands;
+			this.upperCase = upperCase;
+			if (operator.endsWith("like")) {
+				likePattern = likeToPattern(operands.get(0));
+			} else {
+				likePattern = null;
+			}
+		}
+
+		static Condition parse(final int column, final String condition,
+				final boolean upperCase) {
+			String trimmed = condition == null ? "" : condition.trim();
+			String lower = trimmed.toLowerCase(Locale.US);
+			String operator = null;
+			for (String candidate : OPERATORS) {
+				if (lower.startsWith(candidate)) {
+					operator = candidate;
+					break;
+				}
+			}
+
+			if (operator == null) {
+				throw new IllegalArgumentException("unknown operator in:"
+						+ condition);
+			}
+
+			List<String> operands = parseOperands(trimmed.substring(operator
+					.length()));
+			if (operands.isEmpty()) {
+				throw new IllegalArgumentException("no value in condition:"
+						+ condition);
+			}
+
+			if (operator.endsWith("between") && operands.size() != 2) {
+				throw new IllegalArgumentException(
+						"between needs two values:" + condition);
+			}
+
+			if (upperCase) {
+				List<String> upper = new ArrayList<String>(operands.size());
+				for (String operand : operands) {
+					upper.add(operand.toUpperCase(Locale.US));
+				}
+				operands = upper;
+			}
+
+			return new Condition(column, operator, operands, upperCase);
+		}
+
+		/**
+		 * Split the values of a condition, each quoted with single quotes or
+		 * bare, separated by spaces, commas or parentheses
+		 */
+		static List<String> parseOperands(final String text) {
+			List<String> operands = new ArrayList<String>();
+			int i = 0;
+			while (i < text.length()) {
+				char c = text.charAt(i);
+				if (c == ' ' || c == ',' || c == '(' || c == ')') {
+					i++;
+				} else if (c == '\'') {
+					StringBuilder value = new StringBuilder();
+					i++;
+					while (i < text.length()) {
+						char next = text.charAt(i);
+						if (next == '\'') {
+							if (i + 1 < text.length()
+									&& text.charAt(i + 1) == '\'') {
+								value.append('\'');
+								i += 2;
+								continue;
+							}
+							break;
+						}
+						value.append(next);
+						i++;
+					}
+					operands.add(value.toString());
+					i++;
+				} else {
+					int start = i;
+					while (i < text.length()
+							&& " ,()".indexOf(text.charAt(i)) < 0) {
+						i++;
+					}
+					operands.add(text.substring(start, i));
+				}
+			}
+			return operands;
+		}
+
+		private static Pattern likeToPattern(final String like) {
+			StringBuilder regex = new StringBuilder();
+			StringBuilder literal = new StringBuilder();
+			for (char c : like.toCharArray()) {
+				if (c == '%' || c == '_') {
+					if (literal.length() > 0) {
+						regex.append(Pattern.quote(literal.toString()));
+						literal.setLength(0);
+					}
+					regex.append(c == '%' ? ".*" : ".");
+				} else {
+					literal.append(c);
+				}
+			}
+			if (literal.length() > 0) {
+				regex.append(Pattern.quote(literal.toString()));
+			}
+			return Pattern.compile(regex.toString(), Pattern.DOTALL);
+		}
+
+		boolean matches(final String rawValue) {
+			String value = upperCase ? rawValue.toUpperCase(Locale.US)
+					: rawValue;
+			String first = operands.get(0);
+
+			if (operator.equals("=") || operator.equals("n=")) {
+				return compareValues(value, first) == 0;
+			} else if (operator.equals("<>") || operator.equals("!=")
+					|| operator.equals("n<>")) {
+				return compareValues(value, first) != 0;
+			} else if (operator.equals("<") || operator.equals("n<")) {
+				return compareValues(value, first) < 0;
+			} else if (operator.equals(">") || operator.equals("n>")) {
+				return compareValues(value, first) > 0;
+			} else if (operator.equals("<=") || operator.equals("n<=")) {
+				return compareValues(value, first) <= 0;
+			} else if (operator.equals(">=") || operator.equals("n>=")) {
+				return compareValues(value, first) >= 0;
+			} else if (operator.equals("like")
+					|| operator.equals("sounds like")) {
+				return likePattern.matcher(value).matches();
+			} else if (operator.equals("not like")
+					|| operator.equals("sounds not like")) {
+				return !likePattern.matcher(value).matches();
+			} else if (operator.equals("in")) {
+				return inOperands(value);
+			} else if (operator.equals("not in")) {
+				return !inOperands(value);
+			} else {
+				boolean between = compareValues(value, first) >= 0
+						&& compareValues(value, operands.get(1)) <= 0;
+				return operator.equals("between") ? between : !between;
+			}
+		}
+
+		private boolean inOperands(final String value) {
+			for (String operand : operands) {
+				if (compareValues(value, operand) == 0) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+}
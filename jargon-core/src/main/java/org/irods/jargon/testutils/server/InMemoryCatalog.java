@@ -0,0 +1,552 @@
+package org.irods.jargon.testutils.server;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.irods.jargon.core.protovalues.FilePermissionEnum;
+import org.irods.jargon.core.pub.domain.AvuData;
+
+/**
+ * The namespace of an {@link EmbeddedIRODSServer}, holding collections and the
+ * content of data objects in memory. Tests may load data before a run, and
+ * check what a client has written after it.
+ * <p/>
+ * Paths are absolute iRODS paths, a trailing slash is ignored. Entries are
+ * kept in path order, which is the order in which queries return them. AVU
+ * metadata may be attached to collections and data objects, in the order it
+ * was added. Tickets are kept by ticket string, and are not removed with the
+ * object they are for.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class InMemoryCatalog {
+
+	private final TreeMap<String, CatalogEntry> entries = new TreeMap<String, CatalogEntry>();
+	private final Map<String, Set<AvuData>> avus = new HashMap<String, Set<AvuData>>();
+	private final Map<String, Map<String, FilePermissionEnum>> permissions = new HashMap<String, Map<String, FilePermissionEnum>>();
+	private final Map<String, CatalogTicket> tickets = new LinkedHashMap<String, CatalogTicket>();
+	private final Map<String, int[]> replicaNumbers = new HashMap<String, int[]>();
+	private final Set<String> mountPoints = new HashSet<String>();
+	private final String defaultOwner;
+	private long nextId = 10000L;
+
+	/**
+	 * Create a catalog holding only the root collection
+	 *
+	 * @param defaultOwner
+	 *            <code>String</code> with the owner of entries created through
+	 *            this class, rather than by a client
+	 */
+	public InMemoryCatalog(final String defaultOwner) {
+		if (defaultOwner == null || defaultOwner.isEmpty()) {
+			throw new IllegalArgumentException("null or empty defaultOwner");
+		}
+		this.defaultOwner = defaultOwner;
+		entries.put("/", new CatalogEntry(nextId++, "/", true, defaultOwner,
+				null, now(), now()));
+	}
+
+	/**
+	 * Create a collection and any missing parents
+	 *
+	 * @param path
+	 *            <code>String</code> with the absolute path
+	 */
+	public void createCollection(final String path) {
+		createCollection(path, defaultOwner);
+	}
+
+	/**
+	 * Create a collection owned by the given user, and any missing parents
+	 * owned by the same user
+	 *
+	 * @param path
+	 *            <code>String</code> with the absolute path
+	 * @param ownerName
+	 *            <code>String</code> with the owner
+	 */
+	public synchronized void createCollection(final String path,
+			final String ownerName) {
+		String normalized = normalize(path);
+		CatalogEntry existing = entries.get(normalized);
+		if (existing != null) {
+			if (!existing.isCollection()) {
+				throw new IllegalArgumentException(
+						"a data object exists at path:" + normalized);
+			}
+			return;
+		}
+		createCollection(parentOf(normalized), ownerName);
+		long time = now();
+		entries.put(normalized, new CatalogEntry(nextId++, normalized, true,
+				ownerName, null, time, time));
+	}
+
+	/**
+	 * Create or replace a data object, creating any missing parent
+	 * collections
+	 *
+	 * @param path
+	 *            <code>String</code> with the absolute path
+	 * @param content
+	 *            <code>byte[]</code> with the content, which is copied
+	 */
+	public void putDataObject(final String path, final byte[] content) {
+		if (content == null) {
+			throw new IllegalArgumentException("null content");
+		}
+		String normalized = normalize(path);
+		synchronized (this) {
+			createCollection(parentOf(normalized), defaultOwner);
+			storeDataObject(normalized, content.clone(), defaultOwner);
+		}
+	}
+
+	/**
+	 * Get a copy of the content of a data object
+	 *
+	 * @param path
+	 *            <code>String</code> with the absolute path
+	 * @return <code>byte[]</code> with the content, or <code>null</code> if
+	 *         there is no data object at the path
+	 */
+	public synchronized byte[] getDataObjectContent(final String path) {
+		CatalogEntry entry = entries.get(normalize(path));
+		if (entry == null || entry.isCollection()) {
+			return null;
+		}
+		return entry.getContent().clone();
+	}
+
+	/**
+	 * @param path
+	 *            <code>String</code> with the absolute path
+	 * @return <code>boolean</code> that is <code>true</code> if a collection
+	 *         or data object is at the path
+	 */
+	public synchronized boolean exists(final String path) {
+		return entries.containsKey(normalize(path));
+	}
+
+	/**
+	 * @param path
+	 *            <code>String</code> with the absolute path
+	 * @return <code>boolean</code> that is <code>true</code> if a collection
+	 *         is at the path
+	 */
+	public synchronized boolean isCollection(final String path) {
+		CatalogEntry entry = entries.get(normalize(path));
+		return entry != null && entry.isCollection();
+	}
+
+	/**
+	 * Remove a data object, or a collection and everything under it
+	 *
+	 * @param path
+	 *            <code>String</code> with the absolute path
+	 * @return <code>boolean</code> that is <code>true</code> if anything was
+	 *         removed
+	 */
+	public synchronized boolean remove(final String path) {
+		String normalized = normalize(path);
+		if (normalized.equals("/")) {
+			throw new IllegalArgumentException("cannot remove the root");
+		}
+		CatalogEntry entry = entries.remove(normalized);
+		if (entry == null) {
+			return false;
+		}
+		avus.remove(normalized);
+		permissions.remove(normalized);
+		replicaNumbers.remove(normalized);
+		mountPoints.remove(normalized);
+		if (entry.isCollection()) {
+			SortedMap<String, CatalogEntry> descendants = descendants(normalized);
+			avus.keySet().removeAll(descendants.keySet());
+			permissions.keySet().removeAll(descendants.keySet());
+			replicaNumbers.keySet().removeAll(descendants.keySet());
+			mountPoints.removeAll(descendants.keySet());
+			descendants.clear();
+		}
+		return true;
+	}
+
+	/**
+	 * Get the AVU metadata of a collection or data object
+	 *
+	 * @param path
+	 *            <code>String</code> with the absolute path
+	 * @return <code>List</code> of {@link AvuData}, in the order added, which
+	 *         is empty if there is nothing at the path
+	 */
+	public synchronized List<AvuData> getAVUMetadata(final String path) {
+		Set<AvuData> values = avus.get(normalize(path));
+		if (values == null) {
+			return new ArrayList<AvuData>();
+		}
+		return new ArrayList<AvuData>(values);
+	}
+
+	/**
+	 * Attach an AVU to a collection or data object
+	 *
+	 * @param path
+	 *            <code>String</code> with the absolute path
+	 * @param avuData
+	 *            {@link AvuData} to attach
+	 * @return <code>boolean</code> that is <code>false</code> if the AVU was
+	 *         already attached
+	 */
+	public synchronized boolean addAVUMetadata(final String path,
+			final AvuData avuData) {
+		if (avuData == null) {
+			throw new IllegalArgumentException("null avuData");
+		}
+		String normalized = normalize(path);
+		if (!entries.containsKey(normalized)) {
+			throw new IllegalArgumentException("nothing at path:"
+					+ normalized);
+		}
+		Set<AvuData> values = avus.get(normalized);
+		if (values == null) {
+			values = new LinkedHashSet<AvuData>();
+			avus.put(normalized, values);
+		}
+		return values.add(avuData);
+	}
+
+	/**
+	 * Remove an AVU, if attached
+	 *
+	 * @return <code>boolean</code> that is <code>true</code> if the AVU was
+	 *         removed
+	 */
+	synchronized boolean removeAVUMetadata(final String path,
+			final AvuData avuData) {
+		String normalized = normalize(path);
+		Set<AvuData> values = avus.get(normalized);
+		if (values == null || !values.remove(avuData)) {
+			return false;
+		}
+		if (values.isEmpty()) {
+			avus.remove(normalized);
+		}
+		return true;
+	}
+
+	/**
+	 * Give a user access to a collection or data object, beside the
+	 * <code>own</code> access of its owner
+	 *
+	 * @param path
+	 *            <code>String</code> with the absolute path
+	 * @param userName
+	 *            <code>String</code> with the user or group
+	 * @param filePermissionEnum
+	 *            {@link FilePermissionEnum} with the access, or
+	 *            <code>NONE</code> to take it away
+	 */
+	public synchronized void setAccessPermission(final String path,
+			final String userName, final FilePermissionEnum filePermissionEnum) {
+		if (userName == null || userName.isEmpty()) {
+			throw new IllegalArgumentException("null or empty userName");
+		}
+		if (filePermissionEnum == null) {
+			throw new IllegalArgumentException("null filePermissionEnum");
+		}
+		String normalized = normalize(path);
+		if (!entries.containsKey(normalized)) {
+			throw new IllegalArgumentException("nothing at path:"
+					+ normalized);
+		}
+		Map<String, FilePermissionEnum> granted = permissions.get(normalized);
+		if (filePermissionEnum == FilePermissionEnum.NONE) {
+			if (granted != null) {
+				granted.remove(userName);
+			}
+			return;
+		}
+		if (granted == null) {
+			granted = new LinkedHashMap<String, FilePermissionEnum>();
+			permissions.put(normalized, granted);
+		}
+		granted.put(userName, filePermissionEnum);
+	}
+
+	/**
+	 * Get the access list of a collection or data object
+	 *
+	 * @param path
+	 *            <code>String</code> with the absolute path
+	 * @return <code>Map</code> of user name to {@link FilePermissionEnum},
+	 *         with the owner first, which is empty if there is nothing at the
+	 *         path
+	 */
+	public synchronized Map<String, FilePermissionEnum> getAccessPermissions(
+			final String path) {
+		String normalized = normalize(path);
+		Map<String, FilePermissionEnum> accessList = new LinkedHashMap<String, FilePermissionEnum>();
+		CatalogEntry entry = entries.get(normalized);
+		if (entry == null) {
+			return accessList;
+		}
+		accessList.put(entry.getOwnerName(), FilePermissionEnum.OWN);
+		Map<String, FilePermissionEnum> granted = permissions.get(normalized);
+		if (granted != null) {
+			for (Map.Entry<String, FilePermissionEnum> grant : granted
+					.entrySet()) {
+				if (!accessList.containsKey(grant.getKey())) {
+					accessList.put(grant.getKey(), grant.getValue());
+				}
+			}
+		}
+		return accessList;
+	}
+
+	/**
+	 * Give a data object the replicas with the given numbers, as though
+	 * others had been made or trimmed. Each replica is good and has the
+	 * content of the data object. A data object has only replica 0 unless
+	 * this is called.
+	 *
+	 * @param path
+	 *            <code>String</code> with the absolute path of a data object
+	 * @param numbers
+	 *            <code>int</code> with at least one replica number
+	 */
+	public synchronized void setReplicaNumbers(final String path,
+			final int... numbers) {
+		if (numbers == null || numbers.length == 0) {
+			throw new IllegalArgumentException("null or empty numbers");
+		}
+		String normalized = normalize(path);
+		CatalogEntry entry = entries.get(normalized);
+		if (entry == null || entry.isCollection()) {
+			throw new IllegalArgumentException("no data object at path:"
+					+ path);
+		}
+		replicaNumbers.put(normalized, numbers.clone());
+	}
+
+	/**
+	 * Make a collection the root of a mounted collection, a special
+	 * collection. Queries show its collection type as
+	 * <code>mountPoint</code>, and an objStat of it or of anything under it
+	 * reports a mounted collection.
+	 *
+	 * @param path
+	 *            <code>String</code> with the absolute path of a collection
+	 */
+	public synchronized void setMountPoint(final String path) {
+		String normalized = normalize(path);
+		CatalogEntry entry = entries.get(normalized);
+		if (entry == null || !entry.isCollection()) {
+			throw new IllegalArgumentException("no collection at path:" + path);
+		}
+		mountPoints.add(normalized);
+	}
+
+	/**
+	 * @return <code>boolean</code> that is <code>true</code> if the path is
+	 *         the root of a mounted collection
+	 */
+	synchronized boolean isMountPoint(final String path) {
+		return mountPoints.contains(normalize(path));
+	}
+
+	/**
+	 * @return <code>String</code> with the root of the mounted collection
+	 *         that holds or is the path, or <code>null</code>
+	 */
+	synchronized String getMountPointOf(final String path) {
+		String current = normalize(path);
+		while (!current.equals("/")) {
+			if (mountPoints.contains(current)) {
+				return current;
+			}
+			current = parentOf(current);
+		}
+		return null;
+	}
+
+	/**
+	 * @return <code>int[]</code> with the replica numbers of a data object
+	 */
+	synchronized int[] getReplicaNumbers(final String path) {
+		int[] numbers = replicaNumbers.get(normalize(path));
+		return numbers == null ? new int[] { 0 } : numbers.clone();
+	}
+
+	/**
+	 * @return <code>int</code> with the number of data objects
+	 */
+	public synchronized int getDataObjectCount() {
+		int count = 0;
+		for (CatalogEntry entry : entries.values()) {
+			if (!entry.isCollection()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return <code>int</code> with the number of tickets
+	 */
+	public synchronized int getTicketCount() {
+		return tickets.size();
+	}
+
+	/**
+	 * @param ticketString
+	 *            <code>String</code> with the ticket string
+	 * @return <code>boolean</code> that is <code>true</code> if the ticket
+	 *         exists
+	 */
+	public synchronized boolean hasTicket(final String ticketString) {
+		return tickets.containsKey(ticketString);
+	}
+
+	/**
+	 * Create a ticket for a collection or data object
+	 *
+	 * @return {@link CatalogTicket} created, or <code>null</code> if a ticket
+	 *         with the ticket string exists
+	 * @throws IllegalArgumentException
+	 *             if there is nothing at the path
+	 */
+	synchronized CatalogTicket createTicket(final String ticketString,
+			final String type, final String path, final String ownerName) {
+		CatalogEntry target = entries.get(normalize(path));
+		if (target == null) {
+			throw new IllegalArgumentException("nothing at path:" + path);
+		}
+		if (tickets.containsKey(ticketString)) {
+			return null;
+		}
+		CatalogTicket ticket = new CatalogTicket(nextId++, ticketString,
+				type, target, ownerName, now());
+		tickets.put(ticketString, ticket);
+		return ticket;
+	}
+
+	/**
+	 * Get a ticket to change, which must be done holding the lock of this
+	 * catalog
+	 *
+	 * @return {@link CatalogTicket}, or <code>null</code> if there is none
+	 */
+	synchronized CatalogTicket getTicket(final String ticketString) {
+		return tickets.get(ticketString);
+	}
+
+	synchronized boolean removeTicket(final String ticketString) {
+		return tickets.remove(ticketString) != null;
+	}
+
+	/**
+	 * @return <code>List</code> of a copy of every {@link CatalogTicket}, in
+	 *         the order created
+	 */
+	synchronized List<CatalogTicket> ticketSnapshot() {
+		List<CatalogTicket> copies = new ArrayList<CatalogTicket>(
+				tickets.size());
+		for (CatalogTicket ticket : tickets.values()) {
+			copies.add(ticket.copy());
+		}
+		return copies;
+	}
+
+	synchronized CatalogEntry getEntry(final String path) {
+		return entries.get(normalize(path));
+	}
+
+	/**
+	 * Store a data object whose parent collection already exists
+	 */
+	synchronized CatalogEntry storeDataObject(final String path,
+			final byte[] content, final String ownerName) {
+		String normalized = normalize(path);
+		CatalogEntry existing = entries.get(normalized);
+		CatalogEntry stored;
+		long time = now();
+		if (existing == null) {
+			stored = new CatalogEntry(nextId++, normalized, false, ownerName,
+					content, time, time);
+		} else if (existing.isCollection()) {
+			throw new IllegalArgumentException("a collection exists at path:"
+					+ normalized);
+		} else {
+			stored = existing.withContent(content, time);
+		}
+		entries.put(normalized, stored);
+		return stored;
+	}
+
+	/**
+	 * @return <code>List</code> of every {@link CatalogEntry}, in path order
+	 */
+	synchronized List<CatalogEntry> snapshot() {
+		return new ArrayList<CatalogEntry>(entries.values());
+	}
+
+	/**
+	 * @return <code>boolean</code> that is <code>true</code> if anything is
+	 *         under the collection
+	 */
+	synchronized boolean hasChildren(final String path) {
+		return !descendants(normalize(path)).isEmpty();
+	}
+
+	private SortedMap<String, CatalogEntry> descendants(final String normalized) {
+		String prefix = normalized.equals("/") ? "/" : normalized + "/";
+		// '0' sorts just after '/', so this is every path under the prefix
+		return entries.subMap(prefix, false,
+				prefix.substring(0, prefix.length() - 1) + "0", false);
+	}
+
+	static String normalize(final String path) {
+		if (path == null || !path.startsWith("/")) {
+			throw new IllegalArgumentException("path must be absolute:" + path);
+		}
+		String normalized = path;
+		while (normalized.length() > 1 && normalized.endsWith("/")) {
+			normalized = normalized.substring(0, normalized.length() - 1);
+		}
+		return normalized;
+	}
+
+	static String parentOf(final String path) {
+		int last = path.lastIndexOf('/');
+		if (last <= 0) {
+			return "/";
+		}
+		return path.substring(0, last);
+	}
+
+	static long now() {
+		return System.currentTimeMillis() / 1000L;
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("InMemoryCatalog [");
+		for (Map.Entry<String, CatalogEntry> entry : entries.entrySet()) {
+			builder.append("\n  ");
+			builder.append(entry.getValue());
+		}
+		builder.append("]");
+		return builder.toString();
+	}
+
+}
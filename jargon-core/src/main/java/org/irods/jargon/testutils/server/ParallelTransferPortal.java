@@ -0,0 +1,312 @@
+package org.irods.jargon.testutils.server;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.irods.jargon.core.transfer.AbstractParallelTransferThread;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The server end of one parallel transfer. A port is opened for the client
+ * threads, each of which connects and sends the cookie given in the
+ * <code>PortalOprOut_PI</code>. The data is split into one contiguous range
+ * per stream, and each stream is told its range with the same 24 byte headers
+ * an iRODS agent sends, so that the client code under test runs as it does
+ * against a real grid.
+ * <p/>
+ * For a put the ranges are read into a buffer that is stored in the catalog
+ * when the client completes the operation. For a get the ranges are sent from
+ * the content of the data object.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+class ParallelTransferPortal implements Closeable {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(ParallelTransferPortal.class);
+
+	/**
+	 * How long the portal waits for the client threads to connect
+	 */
+	static final int ACCEPT_TIMEOUT_MILLIS = 30000;
+
+	private static final Random COOKIES = new Random();
+
+	private final EmbeddedIRODSServer server;
+	private final boolean put;
+	private final byte[] data;
+	private final int numberOfThreads;
+	private final int cookie;
+	private final ServerSocket serverSocket;
+	private final CountDownLatch streamsDone;
+	private final AtomicInteger nextStream = new AtomicInteger(0);
+	private volatile IOException failure = null;
+
+	/**
+	 * Open the port of a parallel transfer
+	 *
+	 * @param server
+	 *            {@link EmbeddedIRODSServer} that owns the transfer
+	 * @param put
+	 *            <code>boolean</code> that is <code>true</code> if the client
+	 *            is sending data
+	 * @param data
+	 *            <code>byte[]</code> that receives the data of a put, or holds
+	 *            the data of a get
+	 * @param numberOfThreads
+	 *            <code>int</code> with the number of streams
+	 * @throws IOException
+	 */
+	ParallelTransferPortal(final EmbeddedIRODSServer server,
+			final boolean put, final byte[] data, final int numberOfThreads)
+			throws IOException {
+		if (numberOfThreads <= 0) {
+			throw new IllegalArgumentException(
+					"numberOfThreads must be greater than zero");
+		}
+		this.server = server;
+		this.put = put;
+		this.data = data;
+		this.numberOfThreads = numberOfThreads;
+		cookie = COOKIES.nextInt(Integer.MAX_VALUE - 1) + 1;
+		streamsDone = new CountDownLatch(numberOfThreads);
+		serverSocket = new ServerSocket(0, numberOfThreads,
+				InetAddress.getByName(server.getHost()));
+		serverSocket.setSoTimeout(ACCEPT_TIMEOUT_MILLIS);
+	}
+
+	/**
+	 * Start accepting the client threads
+	 */
+	void start() {
+		Thread acceptor = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				acceptStreams();
+			}
+		}, "embedded-irods-portal-" + getPort());
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	int getCookie() {
+		return cookie;
+	}
+
+	int getNumberOfThreads() {
+		return numberOfThreads;
+	}
+
+	boolean isPut() {
+		return put;
+	}
+
+	/**
+	 * @return <code>byte[]</code> with the data moved by the transfer
+	 */
+	byte[] getData() {
+		return data;
+	}
+
+	/**
+	 * Wait for every stream to finish
+	 *
+	 * @param timeoutMillis
+	 *            <code>long</code> with the longest time to wait
+	 * @throws IOException
+	 *             if a stream failed, or the streams did not finish in time
+	 */
+	void await(final long timeoutMillis) throws IOException {
+		try {
+			if (!streamsDone.await(timeoutMillis, TimeUnit.MILLISECONDS)) {
+				throw new IOException(
+						"timed out waiting for parallel transfer streams");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted waiting for parallel transfer");
+		} finally {
+			close();
+		}
+
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	@Override
+	public void close() {
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			log.warn("error closing parallel transfer port, ignored", e);
+		}
+	}
+
+	private void acceptStreams() {
+		for (int i = 0; i < numberOfThreads; i++) {
+			final Socket socket;
+			try {
+				socket = serverSocket.accept();
+			} catch (SocketTimeoutException e) {
+				fail(new IOException(
+						"timed out waiting for parallel transfer connection"));
+				releaseRemaining(numberOfThreads - i);
+				return;
+			} catch (IOException e) {
+				if (!serverSocket.isClosed()) {
+					fail(e);
+				}
+				releaseRemaining(numberOfThreads - i);
+				return;
+			}
+
+			Thread stream = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						serveStream(socket);
+					} catch (IOException e) {
+						fail(e);
+					} finally {
+						closeQuietly(socket);
+						streamsDone.countDown();
+					}
+				}
+			}, "embedded-irods-stream-" + getPort() + "-" + i);
+			stream.setDaemon(true);
+			stream.start();
+		}
+	}
+
+	private void serveStream(final Socket socket) throws IOException {
+		BandwidthThrottle[] throttles = server.newSocketThrottles();
+		DataInputStream in = new DataInputStream(new ThrottledInputStream(
+				socket.getInputStream(), throttles));
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new ThrottledOutputStream(socket.getOutputStream(), throttles),
+				BandwidthThrottle.MAX_CHUNK));
+
+		int clientCookie = in.readInt();
+		if (clientCookie != cookie) {
+			throw new IOException("wrong cookie on parallel transfer stream");
+		}
+
+		int streamNumber = nextStream.getAndIncrement();
+		long rangeLength = data.length / numberOfThreads;
+		long offset = rangeLength * streamNumber;
+		if (streamNumber == numberOfThreads - 1) {
+			rangeLength = data.length - offset;
+		}
+
+		log.debug("stream {} moves {} bytes from offset {}", streamNumber,
+				rangeLength, offset);
+
+		writeHeader(out, put ? AbstractParallelTransferThread.PUT_OPR
+				: AbstractParallelTransferThread.GET_OPR, offset, rangeLength);
+
+		FaultInjector faults = server.getFaultInjector();
+		long stallAfter = faults.getStreamStallAfterBytes();
+		long stallMillis = faults.getStreamStallMillis();
+		long dropAfter = faults.getStreamDropAfterBytes();
+		boolean stalled = false;
+
+		int position = (int) offset;
+		int end = (int) (offset + rangeLength);
+		while (position < end) {
+			int chunk = Math.min(BandwidthThrottle.MAX_CHUNK, end - position);
+			long moved = position - offset;
+			if (dropAfter >= 0) {
+				if (moved >= dropAfter) {
+					throw new IOException("parallel stream dropped by fault");
+				}
+				chunk = (int) Math.min(chunk, dropAfter - moved);
+			}
+			if (!stalled && stallAfter >= 0 && moved >= stallAfter) {
+				out.flush();
+				stall(stallMillis);
+				stalled = true;
+			} else if (!stalled && stallAfter > moved) {
+				chunk = (int) Math.min(chunk, stallAfter - moved);
+			}
+
+			if (put) {
+				in.readFully(data, position, chunk);
+			} else {
+				out.write(data, position, chunk);
+			}
+			position += chunk;
+		}
+
+		writeHeader(out, AbstractParallelTransferThread.DONE_OPR, 0L, 0L);
+	}
+
+	/**
+	 * Send a transfer header, in a single write as the client reads each
+	 * field with a single read
+	 */
+	private static void writeHeader(final DataOutputStream out,
+			final int operation, final long offset, final long length)
+			throws IOException {
+		out.writeInt(operation);
+		out.writeInt(0);
+		out.writeLong(offset);
+		out.writeLong(length);
+		out.flush();
+	}
+
+	private static void stall(final long stallMillis) throws IOException {
+		try {
+			Thread.sleep(stallMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted during stream stall");
+		}
+	}
+
+	private void fail(final IOException e) {
+		log.warn("parallel transfer stream failed", e);
+		if (failure == null) {
+			failure = e;
+		}
+	}
+
+	private void releaseRemaining(final int count) {
+		for (int i = 0; i < count; i++) {
+			streamsDone.countDown();
+		}
+	}
+
+	private static void closeQuietly(final Socket socket) {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			log.debug("error closing stream socket, ignored", e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "ParallelTransferPortal [put=" + put + ", length="
+				+ data.length + ", numberOfThreads=" + numberOfThreads
+				+ ", port=" + getPort() + "]";
+	}
+
+}
@@ -0,0 +1,266 @@
+package org.irods.jargon.testutils.server;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+import org.irods.jargon.core.packinstr.IRodsPI;
+import org.irods.jargon.core.packinstr.RErrMsg;
+import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.utils.IRODSConstants;
+
+/**
+ * One message of the iRODS XML protocol, as read by the server: a
+ * <code>MsgHeader_PI</code> header preceded by its length, then the message
+ * body, any error, and any byte stream. Also writes the server side
+ * messages.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+class ProtocolFrame {
+
+	static final String ENCODING = "UTF-8";
+
+	/**
+	 * Largest header the server will read, a larger value means the stream
+	 * is not speaking the protocol
+	 */
+	private static final int MAX_HEADER_LENGTH = 4096;
+
+	private final String type;
+	private final int intInfo;
+	private final Tag body;
+	private final byte[] byteStream;
+
+	private ProtocolFrame(final String type, final int intInfo,
+			final Tag body, final byte[] byteStream) {
+		this.type = type;
+		this.intInfo = intInfo;
+		this.body = body;
+		this.byteStream = byteStream;
+	}
+
+	/**
+	 * Read the next message, including all of its byte stream
+	 *
+	 * @param in
+	 *            <code>DataInputStream</code> of the connection
+	 * @return {@link ProtocolFrame}, or <code>null</code> if the client closed
+	 *         the connection between messages
+	 * @throws IOException
+	 */
+	static ProtocolFrame read(final DataInputStream in) throws IOException {
+		int headerLength;
+		try {
+			headerLength = in.readInt();
+		} catch (EOFException e) {
+			return null;
+		}
+
+		if (headerLength <= 0 || headerLength > MAX_HEADER_LENGTH) {
+			throw new IOException("invalid header length:" + headerLength);
+		}
+
+		Tag header = readTag(in, headerLength);
+		if (header == null) {
+			throw new IOException("missing message header");
+		}
+
+		int messageLength = header.getTag(IRODSConstants.msgLen)
+				.getIntValue();
+		int errorLength = header.getTag(IRODSConstants.errorLen)
+				.getIntValue();
+		int byteStreamLength = header.getTag(IRODSConstants.bsLen)
+				.getIntValue();
+
+		Tag body = null;
+		if (messageLength > 0) {
+			body = readTag(in, messageLength);
+		}
+
+		if (errorLength > 0) {
+			in.readFully(new byte[errorLength]);
+		}
+
+		byte[] byteStream = new byte[byteStreamLength];
+		in.readFully(byteStream);
+
+		return new ProtocolFrame(header.getTag(IRODSConstants.type)
+				.getStringValue(), header.getTag(IRODSConstants.intInfo)
+				.getIntValue(), body, byteStream);
+	}
+
+	private static Tag readTag(final DataInputStream in, final int length)
+			throws IOException {
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return Tag.readNextTag(bytes, ENCODING);
+	}
+
+	/**
+	 * Write a message
+	 *
+	 * @param out
+	 *            <code>DataOutputStream</code> of the connection, which is
+	 *            flushed
+	 * @param type
+	 *            <code>String</code> with the message type
+	 * @param intInfo
+	 *            <code>int</code> with the API number of a request, or the
+	 *            status of a reply
+	 * @param body
+	 *            {@link Tag} with the message body, or <code>null</code>
+	 * @param errorMessage
+	 *            <code>String</code> with an error text to send in an
+	 *            <code>RError_PI</code>, or <code>null</code>
+	 * @param byteStream
+	 *            <code>byte[]</code> holding the byte stream, or
+	 *            <code>null</code>
+	 * @param offset
+	 *            <code>int</code> with the start of the byte stream
+	 * @param length
+	 *            <code>int</code> with the length of the byte stream
+	 * @throws IOException
+	 */
+	static void write(final DataOutputStream out, final String type,
+			final int intInfo, final Tag body, final String errorMessage,
+			final byte[] byteStream, final int offset, final int length)
+			throws IOException {
+
+		byte[] message = body == null ? new byte[0] : body.parseTag()
+				.getBytes(ENCODING);
+
+		byte[] error = new byte[0];
+		if (errorMessage != null) {
+			Tag errorTag = new Tag("RError_PI", new Tag[] {
+					new Tag("count", 1),
+					new Tag(RErrMsg.PI_TAG, new Tag[] {
+							new Tag(IRODSConstants.status, intInfo),
+							new Tag(IRodsPI.MESSAGE_TAG, errorMessage) }) });
+			error = errorTag.parseTag().getBytes(ENCODING);
+		}
+
+		StringBuilder headerBuilder = new StringBuilder();
+		headerBuilder.append("<MsgHeader_PI><type>");
+		headerBuilder.append(type);
+		headerBuilder.append("</type><msgLen>");
+		headerBuilder.append(message.length);
+		headerBuilder.append("</msgLen><errorLen>");
+		headerBuilder.append(error.length);
+		headerBuilder.append("</errorLen><bsLen>");
+		headerBuilder.append(length);
+		headerBuilder.append("</bsLen><intInfo>");
+		headerBuilder.append(intInfo);
+		headerBuilder.append("</intInfo></MsgHeader_PI>");
+		byte[] header = headerBuilder.toString().getBytes(ENCODING);
+
+		out.writeInt(header.length);
+		out.write(header);
+		out.write(message);
+		out.write(error);
+		if (length > 0) {
+			out.write(byteStream, offset, length);
+		}
+		out.flush();
+	}
+
+	/**
+	 * @return <code>boolean</code> that is <code>true</code> if this is the
+	 *         client closing the connection
+	 */
+	boolean isDisconnect() {
+		return IRODSConstants.RODS_DISCONNECT.equals(type);
+	}
+
+	/**
+	 * @return <code>boolean</code> that is <code>true</code> if this is the
+	 *         startup pack of a new connection
+	 */
+	boolean isConnect() {
+		return IRODSConstants.RODS_CONNECT.equals(type);
+	}
+
+	String getType() {
+		return type;
+	}
+
+	/**
+	 * @return <code>int</code> with the API number of a request
+	 */
+	int getIntInfo() {
+		return intInfo;
+	}
+
+	/**
+	 * @return {@link Tag} with the message body, or <code>null</code> if there
+	 *         was none
+	 */
+	Tag getBody() {
+		return body;
+	}
+
+	/**
+	 * @return <code>byte[]</code> with the byte stream, empty if there was
+	 *         none
+	 */
+	byte[] getByteStream() {
+		return byteStream;
+	}
+
+	/**
+	 * Get a string value from the body
+	 *
+	 * @return <code>String</code> with the value, or the default if the body
+	 *         or tag is missing
+	 */
+	String getString(final String tagName, final String defaultValue) {
+		if (body == null) {
+			return defaultValue;
+		}
+		Tag tag = body.getTag(tagName);
+		if (tag == null || tag.getStringValue() == null) {
+			return defaultValue;
+		}
+		return tag.getStringValue();
+	}
+
+	/**
+	 * Get a numeric value from the body
+	 */
+	long getLong(final String tagName, final long defaultValue) {
+		String value = getString(tagName, null);
+		if (value == null || value.isEmpty()) {
+			return defaultValue;
+		}
+		return Long.parseLong(value.trim());
+	}
+
+	/**
+	 * See if a keyword is given in the <code>KeyValPair_PI</code> of the body
+	 */
+	boolean hasKeyword(final String keyword) {
+		if (body == null) {
+			return false;
+		}
+		Tag pairs = body.getTag(IRODSConstants.KeyValPair_PI);
+		if (pairs == null || pairs.getTags() == null) {
+			return false;
+		}
+		for (Tag tag : pairs.getTags()) {
+			if (IRODSConstants.keyWord.equals(tag.getName())
+					&& keyword.equals(tag.getStringValue())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return "ProtocolFrame [type=" + type + ", intInfo=" + intInfo
+				+ ", byteStreamLength=" + byteStream.length + "]";
+	}
+
+}
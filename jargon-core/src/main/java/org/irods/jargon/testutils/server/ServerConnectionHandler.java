@@ -0,0 +1,1184 @@
+package org.irods.jargon.testutils.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.irods.jargon.core.connection.ConnectionConstants;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.AbstractIRODSPackingInstruction;
+import org.irods.jargon.core.packinstr.CollInp;
+import org.irods.jargon.core.packinstr.DataObjInp;
+import org.irods.jargon.core.packinstr.DataObjInpForObjStat;
+import org.irods.jargon.core.packinstr.GenQueryInp;
+import org.irods.jargon.core.packinstr.GenQueryOut;
+import org.irods.jargon.core.packinstr.MiscSvrInfo;
+import org.irods.jargon.core.packinstr.ModAvuMetadataInp;
+import org.irods.jargon.core.packinstr.OpenedDataObjInp;
+import org.irods.jargon.core.packinstr.StartupPack;
+import org.irods.jargon.core.packinstr.Tag;
+import org.irods.jargon.core.protovalues.ErrorEnum;
+import org.irods.jargon.core.pub.domain.AvuData;
+import org.irods.jargon.core.utils.Base64;
+import org.irods.jargon.core.utils.IRODSConstants;
+import org.irods.jargon.core.utils.LocalFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves one client connection of an {@link EmbeddedIRODSServer}, from the
+ * startup pack to the disconnect. Requests are dispatched by API number,
+ * after any fault and latency have been applied, and each reply is written
+ * before the next request is read, as an iRODS agent does.
+ * <p/>
+ * Open data objects are buffered per connection, and stored in the catalog
+ * when they are closed, or when the client completes a put.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+class ServerConnectionHandler implements Runnable {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(ServerConnectionHandler.class);
+
+	static final int AUTH_REQUEST_API_NBR = 703;
+	static final int AUTH_RESPONSE_API_NBR = 704;
+	static final int OPR_COMPLETE_API_NBR = 626;
+	static final int TICKET_ADMIN_API_NBR = 723;
+
+	/**
+	 * <code>serverType</code> of an iCAT enabled server
+	 */
+	static final int RCAT_ENABLED = 1;
+
+	static final int FIRST_FILE_DESCRIPTOR = 3;
+
+	static final int OPEN_ACCESS_MASK = 3;
+	static final int OPEN_READ_ONLY = 0;
+	static final int OPEN_CREATE = 64;
+	static final int OPEN_TRUNCATE = 512;
+
+	static final int OBJ_TYPE_DATA = 1;
+	static final int OBJ_TYPE_COLLECTION = 2;
+
+	static final int COLL_CLASS_MOUNTED = 2;
+
+	/**
+	 * Longest time to wait, after the client completes a parallel transfer,
+	 * for the streams to finish
+	 */
+	static final long PORTAL_COMPLETE_TIMEOUT_MILLIS = 60000;
+
+	private static final String RECURSIVE_OPR_KW = "recursiveOpr";
+	private static final String TICKET_EXPIRY_FORMAT = "yyyy-MM-dd.HH:mm:ss";
+
+	private static final SecureRandom CHALLENGES = new SecureRandom();
+
+	private final EmbeddedIRODSServer server;
+	private final Socket socket;
+	private final Map<Integer, OpenDataObject> openDataObjects = new HashMap<Integer, OpenDataObject>();
+	private final Map<Integer, QueryCursor> queryCursors = new HashMap<Integer, QueryCursor>();
+	private int nextFileDescriptor = FIRST_FILE_DESCRIPTOR;
+	private int nextContinueIndex = 1;
+	private byte[] challenge = null;
+	private String userName = null;
+	private DataOutputStream out;
+
+	ServerConnectionHandler(final EmbeddedIRODSServer server,
+			final Socket socket) {
+		this.server = server;
+		this.socket = socket;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+		try {
+			BandwidthThrottle[] throttles = server.newSocketThrottles();
+			DataInputStream in = new DataInputStream(new BufferedInputStream(
+					new ThrottledInputStream(socket.getInputStream(),
+							throttles), BandwidthThrottle.MAX_CHUNK));
+			out = new DataOutputStream(new BufferedOutputStream(
+					new ThrottledOutputStream(socket.getOutputStream(),
+							throttles), BandwidthThrottle.MAX_CHUNK));
+
+			ProtocolFrame startup = ProtocolFrame.read(in);
+			if (startup == null || !startup.isConnect()) {
+				log.warn("connection did not start with a startup pack");
+				return;
+			}
+			sleep(server.getConfiguration().getConnectLatencyMillis());
+			sendVersion();
+
+			ProtocolFrame request;
+			while ((request = ProtocolFrame.read(in)) != null) {
+				if (request.isDisconnect()) {
+					log.debug("client disconnected");
+					break;
+				}
+				if (!serve(request)) {
+					break;
+				}
+			}
+		} catch (IOException e) {
+			if (!server.isStopped()) {
+				log.info("connection closed on error:{}", e.getMessage());
+			}
+		} catch (RuntimeException e) {
+			log.error("unexpected error serving connection", e);
+		} finally {
+			closeAll();
+			server.connectionClosed(this);
+		}
+	}
+
+	/**
+	 * Close the socket, ending the connection from another thread
+	 */
+	void close() {
+		try {
+			socket.close();
+		} catch (IOException e) {
+			log.debug("error closing socket, ignored", e);
+		}
+	}
+
+	/**
+	 * Serve one API request
+	 *
+	 * @return <code>boolean</code> that is <code>false</code> if the
+	 *         connection is to be dropped
+	 */
+	private boolean serve(final ProtocolFrame request) throws IOException {
+		int apiNumber = request.getIntInfo();
+		server.recordApiCall(apiNumber);
+		log.debug("request:{}", request);
+
+		FaultInjector.Fault fault = server.getFaultInjector().nextFault(
+				apiNumber);
+		sleep(server.getConfiguration().getLatencyMillisForApi(apiNumber));
+
+		if (fault != null) {
+			if (fault.getFaultType() == FaultInjector.FaultType.DROP_CONNECTION) {
+				log.info("dropping connection on api:{}", apiNumber);
+				return false;
+			}
+			log.info("injecting error {} on api:{}", fault.getErrorCode(),
+					apiNumber);
+			sendError(fault.getErrorCode(), "injected fault");
+			return true;
+		}
+
+		if (userName == null && apiNumber != MiscSvrInfo.API_NBR
+				&& apiNumber != AUTH_REQUEST_API_NBR
+				&& apiNumber != AUTH_RESPONSE_API_NBR) {
+			sendError(ErrorEnum.CAT_INVALID_AUTHENTICATION.getInt(),
+					"not authenticated");
+			return true;
+		}
+
+		try {
+			dispatch(apiNumber, request);
+		} catch (IllegalArgumentException e) {
+			log.info("invalid request for api {}:{}", apiNumber,
+					e.getMessage());
+			sendError(ErrorEnum.CAT_INVALID_ARGUMENT.getInt(), e.getMessage());
+		}
+		return true;
+	}
+
+	private void dispatch(final int apiNumber, final ProtocolFrame request)
+			throws IOException {
+		switch (apiNumber) {
+		case MiscSvrInfo.API_NBR:
+			miscServerInfo();
+			break;
+		case AUTH_REQUEST_API_NBR:
+			authRequest();
+			break;
+		case AUTH_RESPONSE_API_NBR:
+			authResponse(request);
+			break;
+		case DataObjInpForObjStat.OBJ_STAT_API_NBR:
+			objStat(request);
+			break;
+		case GenQueryInp.API_NBR:
+			genQuery(request);
+			break;
+		case DataObjInp.CREATE_FILE_API_NBR:
+			create(request);
+			break;
+		case DataObjInp.OPEN_FILE_API_NBR:
+			open(request);
+			break;
+		case OpenedDataObjInp.READ_API_NBR:
+			read(request);
+			break;
+		case OpenedDataObjInp.WRITE_API_NBR:
+			write(request);
+			break;
+		case OpenedDataObjInp.SEEK_API_NBR:
+			seek(request);
+			break;
+		case OpenedDataObjInp.CLOSE_API_NBR:
+			close(request);
+			break;
+		case DataObjInp.PUT_FILE_API_NBR:
+			put(request);
+			break;
+		case DataObjInp.GET_FILE_API_NBR:
+			get(request);
+			break;
+		case OPR_COMPLETE_API_NBR:
+			operationComplete(request);
+			break;
+		case DataObjInp.DELETE_FILE_API_NBR:
+			unlink(request);
+			break;
+		case DataObjInp.CHECKSUM_API_NBR:
+			checksum(request);
+			break;
+		case CollInp.MKDIR_API_NBR:
+			mkdir(request);
+			break;
+		case CollInp.RMDIR_API_NBR:
+			rmdir(request);
+			break;
+		case ModAvuMetadataInp.MOD_AVU_API_NBR:
+			modAvuMetadata(request);
+			break;
+		case TICKET_ADMIN_API_NBR:
+			ticketAdmin(request);
+			break;
+		default:
+			log.warn("unsupported api:{}", apiNumber);
+			sendError(ErrorEnum.SYS_UNMATCHED_API_NUM.getInt(),
+					"api not supported by the embedded server:" + apiNumber);
+		}
+	}
+
+	private void sendVersion() throws IOException {
+		EmbeddedIRODSServerConfiguration configuration = server
+				.getConfiguration();
+		Tag version = new Tag("Version_PI", new Tag[] {
+				new Tag(IRODSConstants.status, 0),
+				new Tag(IRODSConstants.relVersion,
+						configuration.getRelVersion()),
+				new Tag(IRODSConstants.apiVersion,
+						configuration.getApiVersion()),
+				new Tag("reconnPort", 0), new Tag("reconnAddr", ""),
+				new Tag(IRODSConstants.cookie, 400) });
+		ProtocolFrame.write(out, IRODSConstants.RODS_VERSION, 0, version,
+				null, null, 0, 0);
+	}
+
+	private void miscServerInfo() throws IOException {
+		EmbeddedIRODSServerConfiguration configuration = server
+				.getConfiguration();
+		Tag info = new Tag(MiscSvrInfo.PI_TAG, new Tag[] {
+				new Tag("serverType", RCAT_ENABLED),
+				new Tag("serverBootTime", server.getBootTime()),
+				new Tag(IRODSConstants.relVersion,
+						configuration.getRelVersion()),
+				new Tag(IRODSConstants.apiVersion,
+						configuration.getApiVersion()),
+				new Tag(IRODSConstants.rodsZone, server.getZone()) });
+		sendReply(0, info);
+	}
+
+	private void authRequest() throws IOException {
+		challenge = new byte[ConnectionConstants.CHALLENGE_LENGTH];
+		CHALLENGES.nextBytes(challenge);
+		sendReply(0, new Tag("authRequestOut_PI", new Tag(
+				StartupPack.CHALLENGE, Base64.toString(challenge))));
+	}
+
+	private void authResponse(final ProtocolFrame request) throws IOException {
+		String response = request.getString(IRODSConstants.response, "");
+		String user = request.getString(IRODSConstants.username, "");
+		int zoneIndex = user.indexOf('#');
+		if (zoneIndex > -1) {
+			user = user.substring(0, zoneIndex);
+		}
+
+		String password = server.getConfiguration().getUsers().get(user);
+		if (password == null) {
+			sendError(ErrorEnum.CAT_INVALID_USER.getInt(), "unknown user:"
+					+ user);
+			return;
+		}
+
+		if (challenge == null
+				|| !expectedResponse(challenge, password).equals(response)) {
+			sendError(ErrorEnum.CAT_INVALID_AUTHENTICATION.getInt(),
+					"authentication failed for user:" + user);
+			return;
+		}
+
+		userName = user;
+		challenge = null;
+		sendReply(0, null);
+	}
+
+	/**
+	 * The response to a challenge, computed as the client does for the
+	 * standard iRODS password scheme
+	 */
+	static String expectedResponse(final byte[] challenge,
+			final String password) throws IOException {
+		byte[] buffer = new byte[ConnectionConstants.CHALLENGE_LENGTH
+				+ ConnectionConstants.MAX_PASSWORD_LENGTH];
+		System.arraycopy(challenge, 0, buffer, 0, challenge.length);
+		byte[] passwordBytes = password.getBytes(ProtocolFrame.ENCODING);
+		System.arraycopy(passwordBytes, 0, buffer,
+				ConnectionConstants.CHALLENGE_LENGTH, passwordBytes.length);
+
+		byte[] digest;
+		try {
+			digest = MessageDigest.getInstance("MD5").digest(buffer);
+		} catch (GeneralSecurityException e) {
+			throw new IOException("md5 is not available", e);
+		}
+
+		for (int i = 0; i < digest.length; i++) {
+			if (digest[i] == 0) {
+				digest[i] = 1;
+			}
+		}
+		return Base64.toString(digest);
+	}
+
+	private void objStat(final ProtocolFrame request) throws IOException {
+		String path = request.getString(IRODSConstants.objPath, "");
+		CatalogEntry entry = server.getCatalog().getEntry(path);
+		if (entry == null) {
+			sendError(ErrorEnum.USER_FILE_DOES_NOT_EXIST.getInt(),
+					"no object at path:" + path);
+			return;
+		}
+
+		String collection = entry.isCollection() ? entry.getPath() : entry
+				.getParentPath();
+		String mountPoint = server.getCatalog().getMountPointOf(path);
+		int collClass = 0;
+		if (mountPoint != null) {
+			collClass = COLL_CLASS_MOUNTED;
+			collection = mountPoint;
+		}
+		Tag specColl = new Tag("SpecColl_PI", new Tag[] {
+				new Tag("collClass", collClass), new Tag("type", 0),
+				new Tag("collection", collection), new Tag("objPath", ""),
+				new Tag("resource", ""), new Tag("rescHier", ""),
+				new Tag("phyPath", ""), new Tag("cacheDir", ""),
+				new Tag("cacheDirty", 0), new Tag("replNum", 0) });
+
+		Tag objStat = new Tag(IRODSConstants.RodsObjStat_PI, new Tag[] {
+				new Tag(IRODSConstants.objSize, entry.getSize()),
+				new Tag(IRODSConstants.objType,
+						entry.isCollection() ? OBJ_TYPE_COLLECTION
+								: OBJ_TYPE_DATA),
+				new Tag("dataMode", entry.isCollection() ? "0"
+						: GenQueryEvaluator.DEFAULT_DATA_MODE),
+				new Tag(IRODSConstants.dataId, String.valueOf(entry.getId())),
+				new Tag(IRODSConstants.chksum, ""),
+				new Tag(IRODSConstants.ownerName, entry.getOwnerName()),
+				new Tag(IRODSConstants.ownerZone, server.getZone()),
+				new Tag(IRODSConstants.createTime, GenQueryEvaluator
+						.formatTime(entry.getCreateTime())),
+				new Tag(IRODSConstants.modifyTime, GenQueryEvaluator
+						.formatTime(entry.getModifyTime())), specColl });
+		sendReply(0, objStat);
+	}
+
+	private void genQuery(final ProtocolFrame request) throws IOException {
+		Tag body = request.getBody();
+		if (body == null) {
+			throw new IllegalArgumentException("no query");
+		}
+
+		int maxRows = (int) request.getLong(GenQueryInp.MAX_ROWS, 0);
+		int continueIndex = (int) request.getLong(GenQueryInp.CONTINUE_INX, 0);
+		int options = (int) request.getLong(IRODSConstants.options, 0);
+
+		QueryCursor cursor;
+		if (continueIndex > 0) {
+			cursor = queryCursors.remove(continueIndex);
+			if (cursor == null) {
+				sendError(ErrorEnum.CAT_NO_ROWS_FOUND.getInt(),
+						"no query with continuation:" + continueIndex);
+				return;
+			}
+		} else {
+			List<String[]> rows = server.getQueryEvaluator().evaluate(body);
+			int partialStart = (int) request.getLong(
+					GenQueryInp.PARTIAL_START_INDEX, 0);
+			cursor = new QueryCursor(rows, Math.min(partialStart, rows.size()),
+					(options & GenQueryInp.RETURN_TOTAL_ROW_COUNT) != 0);
+		}
+
+		if (maxRows <= 0) {
+			// closes the query
+			sendReply(0, null);
+			return;
+		}
+
+		int selectCount = 0;
+		Tag selects = body.getTag(GenQueryInp.INX_IVAL_PAIR_PI);
+		if (selects != null) {
+			selectCount = (int) selects.getTag(GenQueryInp.IILEN)
+					.getLongValue();
+		}
+
+		int start = cursor.position;
+		int end = Math.min(cursor.rows.size(), start + maxRows);
+		if (start == end && continueIndex == 0) {
+			sendError(ErrorEnum.CAT_NO_ROWS_FOUND.getInt(), null);
+			return;
+		}
+		cursor.position = end;
+
+		int nextContinue = 0;
+		if (end < cursor.rows.size()) {
+			nextContinue = nextContinueIndex++;
+			queryCursors.put(nextContinue, cursor);
+		}
+
+		Tag reply = new Tag(GenQueryOut.PI_NAME, new Tag[] {
+				new Tag(GenQueryOut.ROW_CNT, end - start),
+				new Tag(GenQueryOut.ATTRIB_CNT, selectCount),
+				new Tag(GenQueryOut.CONTINUE_INX, nextContinue),
+				new Tag("totalRowCount", cursor.returnTotal ? cursor.rows
+						.size() : 0) });
+
+		Tag selectTags = body.getTag(GenQueryInp.INX_IVAL_PAIR_PI);
+		for (int i = 0; i < selectCount; i++) {
+			int resultLength = 1;
+			for (int row = start; row < end; row++) {
+				resultLength = Math.max(resultLength,
+						cursor.rows.get(row)[i].length() + 1);
+			}
+			Tag result = new Tag("SqlResult_PI");
+			result.addTag(new Tag("attriInx", selectTags.getTag(
+					GenQueryInp.INX, i).getIntValue()));
+			result.addTag(new Tag("reslen", resultLength));
+			for (int row = start; row < end; row++) {
+				result.addTag(new Tag("value", cursor.rows.get(row)[i]));
+			}
+			reply.addTag(result);
+		}
+		sendReply(0, reply);
+	}
+
+	private void create(final ProtocolFrame request) throws IOException {
+		String path = request.getString(IRODSConstants.objPath, "");
+		CatalogEntry existing = server.getCatalog().getEntry(path);
+		if (existing != null
+				&& (existing.isCollection() || !request
+						.hasKeyword(DataObjInp.FORCE_FLAG_KW))) {
+			sendError(
+					ErrorEnum.CATALOG_ALREADY_HAS_ITEM_BY_THAT_NAME.getInt(),
+					"object exists at path:" + path);
+			return;
+		}
+
+		if (!checkParent(path)) {
+			return;
+		}
+
+		server.getCatalog().storeDataObject(path, new byte[0], userName);
+		int fd = openDataObject(path, new byte[0], true);
+		sendReply(fd, null);
+	}
+
+	private void open(final ProtocolFrame request) throws IOException {
+		String path = request.getString(IRODSConstants.objPath, "");
+		int flags = (int) request.getLong(IRODSConstants.openFlags, 0);
+		CatalogEntry entry = server.getCatalog().getEntry(path);
+
+		if (entry != null && entry.isCollection()) {
+			sendError(ErrorEnum.CAT_NAME_EXISTS_AS_COLLECTION.getInt(),
+					"collection at path:" + path);
+			return;
+		}
+
+		byte[] content;
+		if (entry == null) {
+			if ((flags & OPEN_CREATE) == 0) {
+				sendError(ErrorEnum.USER_FILE_DOES_NOT_EXIST.getInt(),
+						"no data object at path:" + path);
+				return;
+			}
+			if (!checkParent(path)) {
+				return;
+			}
+			content = new byte[0];
+			server.getCatalog().storeDataObject(path, content, userName);
+		} else if ((flags & OPEN_TRUNCATE) != 0) {
+			content = new byte[0];
+			server.getCatalog().storeDataObject(path, content, userName);
+		} else {
+			content = entry.getContent();
+		}
+
+		boolean writable = (flags & OPEN_ACCESS_MASK) != OPEN_READ_ONLY;
+		sendReply(openDataObject(path, content, writable), null);
+	}
+
+	private void read(final ProtocolFrame request) throws IOException {
+		OpenDataObject file = openDataObjectFor(request);
+		if (file == null) {
+			return;
+		}
+
+		int length = (int) request.getLong(IRODSConstants.len, 0);
+		int count = (int) Math.max(0L,
+				Math.min(length, file.size - file.position));
+		int offset = (int) file.position;
+		file.position += count;
+		ProtocolFrame.write(out, IRODSConstants.RODS_API_REPLY, count, null,
+				null, file.content, offset, count);
+	}
+
+	private void write(final ProtocolFrame request) throws IOException {
+		OpenDataObject file = openDataObjectFor(request);
+		if (file == null) {
+			return;
+		}
+
+		if (!file.writable) {
+			sendError(ErrorEnum.SYS_BAD_FILE_DESCRIPTOR.getInt(),
+					"data object not open for write");
+			return;
+		}
+
+		byte[] bytes = request.getByteStream();
+		file.write(bytes);
+		sendReply(bytes.length, null);
+	}
+
+	private void seek(final ProtocolFrame request) throws IOException {
+		OpenDataObject file = openDataObjectFor(request);
+		if (file == null) {
+			return;
+		}
+
+		long offset = request.getLong(IRODSConstants.offset, 0);
+		int whence = (int) request.getLong(IRODSConstants.whence, 0);
+		long base = 0L;
+		if (whence == OpenedDataObjInp.SEEK_CURRENT) {
+			base = file.position;
+		} else if (whence == OpenedDataObjInp.SEEK_END) {
+			base = file.size;
+		}
+
+		if (base + offset < 0) {
+			throw new IllegalArgumentException("seek before start of file");
+		}
+		file.position = base + offset;
+		sendReply(0, new Tag("fileLseekOut_PI", new Tag(IRODSConstants.offset,
+				file.position)));
+	}
+
+	private void close(final ProtocolFrame request) throws IOException {
+		int fd = (int) request.getLong(OpenedDataObjInp.L1_DESC_INX, 0);
+		OpenDataObject file = openDataObjects.remove(fd);
+		if (file == null) {
+			sendError(ErrorEnum.SYS_BAD_FILE_DESCRIPTOR.getInt(),
+					"unknown file descriptor:" + fd);
+			return;
+		}
+		file.commit();
+		sendReply(0, null);
+	}
+
+	private void put(final ProtocolFrame request) throws IOException {
+		String path = request.getString(IRODSConstants.objPath, "");
+		long dataSize = request.getLong(IRODSConstants.dataSize, 0);
+		CatalogEntry existing = server.getCatalog().getEntry(path);
+
+		if (existing != null && existing.isCollection()) {
+			sendError(ErrorEnum.CAT_NAME_EXISTS_AS_COLLECTION.getInt(),
+					"collection at path:" + path);
+			return;
+		}
+
+		if (existing != null
+				&& !request.hasKeyword(DataObjInp.FORCE_FLAG_KW)) {
+			sendError(ErrorEnum.OVERWITE_WITHOUT_FORCE_FLAG.getInt(),
+					"data object exists at path:" + path);
+			return;
+		}
+
+		if (!checkParent(path)) {
+			return;
+		}
+
+		byte[] bytes = request.getByteStream();
+		if (bytes.length > 0 || dataSize == 0) {
+			server.getCatalog().storeDataObject(path, bytes, userName);
+			sendReply(0, null);
+			return;
+		}
+
+		if (dataSize > Integer.MAX_VALUE) {
+			sendError(ErrorEnum.USER_FILE_TOO_LARGE.getInt(),
+					"data object too large for the embedded server");
+			return;
+		}
+
+		int numberOfThreads = numberOfThreads(request);
+		int fd = openDataObject(path, new byte[0], true);
+		ParallelTransferPortal portal = null;
+		if (numberOfThreads > 0) {
+			portal = new ParallelTransferPortal(server, true,
+					new byte[(int) dataSize], numberOfThreads);
+			openDataObjects.get(fd).portal = portal;
+			portal.start();
+		}
+		sendReply(0, portalOprOut(fd, numberOfThreads, portal));
+	}
+
+	private void get(final ProtocolFrame request) throws IOException {
+		String path = request.getString(IRODSConstants.objPath, "");
+		CatalogEntry entry = server.getCatalog().getEntry(path);
+		if (entry == null || entry.isCollection()) {
+			sendError(ErrorEnum.USER_FILE_DOES_NOT_EXIST.getInt(),
+					"no data object at path:" + path);
+			return;
+		}
+
+		byte[] content = entry.getContent();
+		if (content.length <= server.getConfiguration().getSingleBufferSize()) {
+			ProtocolFrame.write(out, IRODSConstants.RODS_API_REPLY, 0,
+					portalOprOut(0, 0, null), null, content, 0,
+					content.length);
+			return;
+		}
+
+		int numberOfThreads = numberOfThreads(request);
+		int fd = openDataObject(path, content, false);
+		ParallelTransferPortal portal = null;
+		if (numberOfThreads > 0) {
+			portal = new ParallelTransferPortal(server, false, content,
+					numberOfThreads);
+			openDataObjects.get(fd).portal = portal;
+			portal.start();
+		}
+		// the descriptor in the header tells the client to expect no inline
+		// data
+		sendReply(fd, portalOprOut(fd, numberOfThreads, portal));
+	}
+
+	private void operationComplete(final ProtocolFrame request)
+			throws IOException {
+		int fd = (int) request.getLong(
+				AbstractIRODSPackingInstruction.MY_INT, 0);
+		OpenDataObject file = openDataObjects.remove(fd);
+		if (file == null) {
+			log.debug("operation complete for unknown descriptor:{}", fd);
+			sendReply(0, null);
+			return;
+		}
+
+		if (file.portal != null) {
+			try {
+				file.portal.await(PORTAL_COMPLETE_TIMEOUT_MILLIS);
+			} catch (IOException e) {
+				log.warn("parallel transfer failed", e);
+				sendError(ErrorEnum.SYS_COPY_LEN_ERR.getInt(),
+						"parallel transfer failed:" + e.getMessage());
+				return;
+			}
+			if (file.portal.isPut()) {
+				byte[] data = file.portal.getData();
+				file.content = data;
+				file.size = data.length;
+				file.replace = true;
+				file.dirty = true;
+			}
+		}
+		file.commit();
+		sendReply(0, null);
+	}
+
+	private void unlink(final ProtocolFrame request) throws IOException {
+		String path = request.getString(IRODSConstants.objPath, "");
+		CatalogEntry entry = server.getCatalog().getEntry(path);
+		if (entry == null || entry.isCollection()) {
+			sendError(ErrorEnum.USER_FILE_DOES_NOT_EXIST.getInt(),
+					"no data object at path:" + path);
+			return;
+		}
+		server.getCatalog().remove(path);
+		sendReply(0, null);
+	}
+
+	/**
+	 * Checksum a data object the way the configured server version would, MD5
+	 * before iRODS 4 and SHA-256 after
+	 */
+	private void checksum(final ProtocolFrame request) throws IOException {
+		String path = request.getString(IRODSConstants.objPath, "");
+		CatalogEntry entry = server.getCatalog().getEntry(path);
+		if (entry == null || entry.isCollection()) {
+			sendError(ErrorEnum.USER_FILE_DOES_NOT_EXIST.getInt(),
+					"no data object at path:" + path);
+			return;
+		}
+
+		boolean sha256 = server.getConfiguration().getRelVersion()
+				.compareTo("rods4") >= 0;
+		byte[] digest;
+		try {
+			digest = MessageDigest.getInstance(sha256 ? "SHA-256" : "MD5")
+					.digest(entry.getContent());
+		} catch (GeneralSecurityException e) {
+			throw new IOException("digest is not available", e);
+		}
+
+		String checksum;
+		if (sha256) {
+			checksum = "sha2:" + Base64.toString(digest);
+		} else {
+			checksum = LocalFileUtils.digestByteArrayToString(digest);
+		}
+		sendReply(0, new Tag("STR_PI", new Tag(DataObjInp.MY_STR, checksum)));
+	}
+
+	private void mkdir(final ProtocolFrame request) throws IOException {
+		String path = request.getString(IRODSConstants.collName, "");
+		InMemoryCatalog catalog = server.getCatalog();
+		if (catalog.exists(path)) {
+			sendError(
+					ErrorEnum.CATALOG_ALREADY_HAS_ITEM_BY_THAT_NAME.getInt(),
+					"object exists at path:" + path);
+			return;
+		}
+
+		if (!request.hasKeyword(RECURSIVE_OPR_KW) && !checkParent(path)) {
+			return;
+		}
+		catalog.createCollection(path, userName);
+		sendReply(0, null);
+	}
+
+	private void rmdir(final ProtocolFrame request) throws IOException {
+		String path = request.getString(IRODSConstants.collName, "");
+		InMemoryCatalog catalog = server.getCatalog();
+		if (!catalog.isCollection(path)) {
+			sendError(ErrorEnum.CAT_UNKNOWN_COLLECTION.getInt(),
+					"no collection at path:" + path);
+			return;
+		}
+
+		if (!request.hasKeyword(RECURSIVE_OPR_KW) && catalog.hasChildren(path)) {
+			sendError(ErrorEnum.CAT_COLLECTION_NOT_EMPTY.getInt(),
+					"collection not empty:" + path);
+			return;
+		}
+
+		catalog.remove(path);
+		sendReply(0, new Tag(IRODSConstants.CollOprStat_PI, new Tag[] {
+				new Tag("filesCnt", 0), new Tag("totalFileCnt", 0),
+				new Tag(IRODSConstants.bytesWritten, 0),
+				new Tag("lastObjPath", "") }));
+	}
+
+	/**
+	 * Add or remove an AVU on a collection or data object. Removal is by exact
+	 * match, wildcards are not expanded, and modify is not supported.
+	 */
+	private void modAvuMetadata(final ProtocolFrame request)
+			throws IOException {
+		String action = request.getString(ModAvuMetadataInp.ARG_PREFIX + 0,
+				"");
+		String targetType = request.getString(
+				ModAvuMetadataInp.ARG_PREFIX + 1, "");
+		String path = request.getString(ModAvuMetadataInp.ARG_PREFIX + 2, "");
+		AvuData avuData;
+		try {
+			avuData = AvuData.instance(
+					request.getString(ModAvuMetadataInp.ARG_PREFIX + 3, ""),
+					request.getString(ModAvuMetadataInp.ARG_PREFIX + 4, ""),
+					request.getString(ModAvuMetadataInp.ARG_PREFIX + 5, ""));
+		} catch (JargonException e) {
+			throw new IllegalArgumentException(e.getMessage());
+		}
+
+		InMemoryCatalog catalog = server.getCatalog();
+		CatalogEntry entry = catalog.getEntry(path);
+		if (targetType.equals("-d")) {
+			if (entry == null || entry.isCollection()) {
+				sendError(ErrorEnum.CAT_UNKNOWN_FILE.getInt(),
+						"no data object at path:" + path);
+				return;
+			}
+		} else if (targetType.equals("-c") || targetType.equals("-C")) {
+			if (entry == null || !entry.isCollection()) {
+				sendError(ErrorEnum.CAT_UNKNOWN_COLLECTION.getInt(),
+						"no collection at path:" + path);
+				return;
+			}
+		} else {
+			throw new IllegalArgumentException(
+					"unsupported metadata target type:" + targetType);
+		}
+
+		if (action.equals("add")) {
+			if (!catalog.addAVUMetadata(path, avuData)) {
+				sendError(
+						ErrorEnum.CATALOG_ALREADY_HAS_ITEM_BY_THAT_NAME
+								.getInt(), "duplicate AVU:" + avuData);
+				return;
+			}
+		} else if (action.equals("rm") || action.equals("rmw")) {
+			catalog.removeAVUMetadata(path, avuData);
+		} else {
+			throw new IllegalArgumentException(
+					"unsupported metadata action:" + action);
+		}
+		sendReply(0, null);
+	}
+
+	/**
+	 * Check that the parent collection of a new object exists, replying with
+	 * an error if not
+	 */
+	private boolean checkParent(final String path) throws IOException {
+		String parent = InMemoryCatalog.parentOf(InMemoryCatalog
+				.normalize(path));
+		if (!server.getCatalog().isCollection(parent)) {
+			sendError(ErrorEnum.CAT_UNKNOWN_COLLECTION.getInt(),
+					"no parent collection:" + parent);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Decide the number of streams for a parallel transfer, from the number
+	 * the client asked for, as a server side policy would
+	 */
+	private int numberOfThreads(final ProtocolFrame request) {
+		int requested = (int) request.getLong(IRODSConstants.numThreads, 0);
+		int max = server.getConfiguration().getMaxParallelThreads();
+		if (requested < 0) {
+			return 0;
+		} else if (requested == 0) {
+			return max;
+		} else {
+			return Math.min(requested, max);
+		}
+	}
+
+	private Tag portalOprOut(final int fd, final int numberOfThreads,
+			final ParallelTransferPortal portal) {
+		return new Tag("PortalOprOut_PI", new Tag[] {
+				new Tag(IRODSConstants.status, 0),
+				new Tag(IRODSConstants.L1_DESC_INX, fd),
+				new Tag(IRODSConstants.numThreads, numberOfThreads),
+				new Tag(IRODSConstants.chksum, ""),
+				new Tag(IRODSConstants.PortList_PI, new Tag[] {
+						new Tag(IRODSConstants.portNum, portal == null ? 0
+								: portal.getPort()),
+						new Tag(IRODSConstants.cookie, portal == null ? 0
+								: portal.getCookie()),
+						new Tag("sockHandle", 0),
+						new Tag("windowSize", 0),
+						new Tag(IRODSConstants.hostAddr, server.getHost()) }) });
+	}
+
+	private int openDataObject(final String path, final byte[] content,
+			final boolean writable) {
+		int fd = nextFileDescriptor++;
+		openDataObjects.put(fd, new OpenDataObject(InMemoryCatalog
+				.normalize(path), content, writable));
+		return fd;
+	}
+
+	private OpenDataObject openDataObjectFor(final ProtocolFrame request)
+			throws IOException {
+		int fd = (int) request.getLong(OpenedDataObjInp.L1_DESC_INX, 0);
+		OpenDataObject file = openDataObjects.get(fd);
+		if (file == null) {
+			sendError(ErrorEnum.SYS_BAD_FILE_DESCRIPTOR.getInt(),
+					"unknown file descriptor:" + fd);
+		}
+		return file;
+	}
+
+	/**
+	 * Create, modify and delete tickets, and start a session with a ticket.
+	 * A session ticket is accepted as is, and grants nothing beyond the
+	 * access of the connected user.
+	 */
+	private void ticketAdmin(final ProtocolFrame request) throws IOException {
+		String operation = request.getString("arg1", "");
+		String ticketString = request.getString("arg2", "");
+		InMemoryCatalog catalog = server.getCatalog();
+
+		if (operation.equals("session")) {
+			log.info("session ticket:{}", ticketString);
+		} else if (operation.equals("create")) {
+			String path = request.getString("arg4", "");
+			if (catalog.getEntry(path) == null) {
+				sendError(ErrorEnum.CAT_UNKNOWN_FILE.getInt(),
+						"nothing at path:" + path);
+				return;
+			}
+			if (catalog.createTicket(ticketString,
+					request.getString("arg3", ""), path, userName) == null) {
+				sendError(
+						ErrorEnum.CATALOG_ALREADY_HAS_ITEM_BY_THAT_NAME
+								.getInt(), "duplicate ticket:" + ticketString);
+				return;
+			}
+		} else if (operation.equals("delete")) {
+			if (!catalog.removeTicket(ticketString)) {
+				sendError(ErrorEnum.CAT_TICKET_INVALID.getInt(),
+						"no ticket:" + ticketString);
+				return;
+			}
+		} else if (operation.equals("mod")) {
+			synchronized (catalog) {
+				CatalogTicket ticket = catalog.getTicket(ticketString);
+				if (ticket == null) {
+					sendError(ErrorEnum.CAT_TICKET_INVALID.getInt(),
+							"no ticket:" + ticketString);
+					return;
+				}
+				modifyTicket(ticket, request.getString("arg3", ""),
+						request.getString("arg4", ""),
+						request.getString("arg5", ""));
+			}
+		} else {
+			sendError(ErrorEnum.SYS_UNMATCHED_API_NUM.getInt(),
+					"ticket operation not supported by the embedded server:"
+							+ operation);
+			return;
+		}
+		sendReply(0, null);
+	}
+
+	/**
+	 * Apply a ticket <code>mod</code>, holding the lock of the catalog
+	 */
+	private void modifyTicket(final CatalogTicket ticket,
+			final String field, final String value, final String modObject) {
+		try {
+			if (field.equals("uses")) {
+				ticket.setUsesLimit(Integer.parseInt(value));
+			} else if (field.equals("write-file")) {
+				ticket.setWriteFileLimit(Integer.parseInt(value));
+			} else if (field.equals("write-byte")) {
+				ticket.setWriteByteLimit(Long.parseLong(value));
+			} else if (field.equals("expire")) {
+				ticket.setExpiryTime(value.isEmpty() ? 0L
+						: new SimpleDateFormat(TICKET_EXPIRY_FORMAT).parse(
+								value).getTime() / 1000L);
+			} else if (field.equals("add") || field.equals("remove")) {
+				Set<String> allowed;
+				if (value.equals("user")) {
+					allowed = ticket.getAllowedUsers();
+				} else if (value.equals("group")) {
+					allowed = ticket.getAllowedGroups();
+				} else if (value.equals("host")) {
+					allowed = ticket.getAllowedHosts();
+				} else {
+					throw new IllegalArgumentException(
+							"unsupported ticket restriction:" + value);
+				}
+				if (field.equals("add")) {
+					allowed.add(modObject);
+				} else {
+					allowed.remove(modObject);
+				}
+			} else {
+				throw new IllegalArgumentException(
+						"unsupported ticket modification:" + field);
+			}
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("bad ticket value:" + value);
+		} catch (ParseException e) {
+			throw new IllegalArgumentException("bad ticket expiry:" + value);
+		}
+		ticket.setModifyTime(InMemoryCatalog.now());
+	}
+
+	private void sendReply(final int intInfo, final Tag body)
+			throws IOException {
+		ProtocolFrame.write(out, IRODSConstants.RODS_API_REPLY, intInfo, body,
+				null, null, 0, 0);
+	}
+
+	private void sendError(final int errorCode, final String message)
+			throws IOException {
+		ProtocolFrame.write(out, IRODSConstants.RODS_API_REPLY, errorCode,
+				null, message, null, 0, 0);
+	}
+
+	private static void sleep(final long millis) throws IOException {
+		if (millis <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted during simulated latency");
+		}
+	}
+
+	/**
+	 * Abandon any transfers left open by the client, and close the socket
+	 */
+	private void closeAll() {
+		for (OpenDataObject file : openDataObjects.values()) {
+			if (file.portal != null) {
+				file.portal.close();
+			}
+		}
+		openDataObjects.clear();
+		queryCursors.clear();
+		close();
+	}
+
+	/**
+	 * A data object opened by the client, buffered until it is closed. Only
+	 * the ranges written through this descriptor are stored on close, so
+	 * clients that write different ranges of one data object through separate
+	 * connections do not overwrite each other, as with the vault file of a
+	 * real agent.
+	 */
+	private class OpenDataObject {
+		private final String path;
+		private final boolean writable;
+		private byte[] content;
+		private long size;
+		private long position = 0L;
+		private boolean dirty = false;
+
+		/**
+		 * The whole content replaces the data object, as for a put
+		 */
+		private boolean replace = false;
+
+		/**
+		 * Start and end of each range written, merged where they touch
+		 */
+		private final TreeMap<Long, Long> writtenRanges = new TreeMap<Long, Long>();
+		private ParallelTransferPortal portal = null;
+
+		OpenDataObject(final String path, final byte[] content,
+				final boolean writable) {
+			this.path = path;
+			this.content = content;
+			this.writable = writable;
+			size = content.length;
+		}
+
+		void write(final byte[] bytes) {
+			long end = position + bytes.length;
+			if (end > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException(
+						"data object too large for the embedded server");
+			}
+			if (end > content.length) {
+				content = Arrays.copyOf(content,
+						(int) Math.min(Integer.MAX_VALUE,
+								Math.max(end, content.length * 2L)));
+			} else if (!dirty) {
+				// the content may be shared with the catalog
+				content = content.clone();
+			}
+			System.arraycopy(bytes, 0, content, (int) position, bytes.length);
+			addWrittenRange(position, end);
+			position = end;
+			size = Math.max(size, end);
+			dirty = true;
+		}
+
+		private void addWrittenRange(final long start, final long end) {
+			long mergedStart = start;
+			long mergedEnd = end;
+			Map.Entry<Long, Long> before = writtenRanges.floorEntry(start);
+			if (before != null && before.getValue() >= start) {
+				mergedStart = before.getKey();
+				mergedEnd = Math.max(mergedEnd, before.getValue());
+			}
+			Map.Entry<Long, Long> after = writtenRanges
+					.ceilingEntry(mergedStart);
+			while (after != null && after.getKey() <= mergedEnd) {
+				mergedEnd = Math.max(mergedEnd, after.getValue());
+				writtenRanges.remove(after.getKey());
+				after = writtenRanges.ceilingEntry(mergedStart);
+			}
+			writtenRanges.put(mergedStart, mergedEnd);
+		}
+
+		void commit() {
+			if (!dirty) {
+				return;
+			}
+			InMemoryCatalog catalog = server.getCatalog();
+			synchronized (catalog) {
+				byte[] stored;
+				CatalogEntry entry = catalog.getEntry(path);
+				if (replace || entry == null || entry.isCollection()) {
+					stored = Arrays.copyOf(content, (int) size);
+				} else {
+					byte[] current = entry.getContent();
+					stored = Arrays.copyOf(current, (int) Math.max(
+							current.length, writtenRanges.lastEntry()
+									.getValue()));
+					for (Map.Entry<Long, Long> range : writtenRanges
+							.entrySet()) {
+						int start = range.getKey().intValue();
+						System.arraycopy(content, start, stored, start, range
+								.getValue().intValue() - start);
+					}
+				}
+				catalog.storeDataObject(path, stored, userName);
+			}
+			writtenRanges.clear();
+			replace = false;
+			dirty = false;
+		}
+	}
+
+	/**
+	 * The rows of a query not yet returned to the client
+	 */
+	private static class QueryCursor {
+		private final List<String[]> rows;
+		private final boolean returnTotal;
+		private int position;
+
+		QueryCursor(final List<String[]> rows, final int position,
+				final boolean returnTotal) {
+			this.rows = rows;
+			this.position = position;
+			this.returnTotal = returnTotal;
+		}
+	}
+
+}
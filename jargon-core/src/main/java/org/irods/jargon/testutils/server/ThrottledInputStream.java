@@ -0,0 +1,42 @@
+package org.irods.jargon.testutils.server;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that paces its reads through {@link BandwidthThrottle}s
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+class ThrottledInputStream extends FilterInputStream {
+
+	private final BandwidthThrottle[] throttles;
+
+	ThrottledInputStream(final InputStream in,
+			final BandwidthThrottle... throttles) {
+		super(in);
+		this.throttles = throttles;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = in.read();
+		if (b >= 0) {
+			BandwidthThrottle.acquireAll(throttles, 1);
+		}
+		return b;
+	}
+
+	@Override
+	public int read(final byte[] b, final int off, final int len)
+			throws IOException {
+		int read = in.read(b, off, Math.min(len, BandwidthThrottle.MAX_CHUNK));
+		if (read > 0) {
+			BandwidthThrottle.acquireAll(throttles, read);
+		}
+		return read;
+	}
+
+}
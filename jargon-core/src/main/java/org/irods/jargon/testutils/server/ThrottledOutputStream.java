@@ -0,0 +1,41 @@
+package org.irods.jargon.testutils.server;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output stream that paces its writes through {@link BandwidthThrottle}s
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+class ThrottledOutputStream extends FilterOutputStream {
+
+	private final BandwidthThrottle[] throttles;
+
+	ThrottledOutputStream(final OutputStream out,
+			final BandwidthThrottle... throttles) {
+		super(out);
+		this.throttles = throttles;
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		BandwidthThrottle.acquireAll(throttles, 1);
+		out.write(b);
+	}
+
+	@Override
+	public void write(final byte[] b, final int off, final int len)
+			throws IOException {
+		int written = 0;
+		while (written < len) {
+			int chunk = Math.min(BandwidthThrottle.MAX_CHUNK, len - written);
+			BandwidthThrottle.acquireAll(throttles, chunk);
+			out.write(b, off + written, chunk);
+			written += chunk;
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+package org.irods.jargon.core.checksum;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.utils.LocalFileUtils;
+import org.irods.jargon.testutils.TestingPropertiesHelper;
+import org.irods.jargon.testutils.filemanip.FileGenerator;
+import org.irods.jargon.testutils.filemanip.ScratchFileUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class FileChannelDigesterTest {
+
+	private static Properties testingProperties = new Properties();
+	private static ScratchFileUtils scratchFileUtils = null;
+	public static final String IRODS_TEST_SUBDIR_PATH = "FileChannelDigesterTest";
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		TestingPropertiesHelper testingPropertiesLoader = new TestingPropertiesHelper();
+		testingProperties = testingPropertiesLoader.getTestProperties();
+		scratchFileUtils = new ScratchFileUtils(testingProperties);
+		scratchFileUtils
+				.clearAndReinitializeScratchDirectory(IRODS_TEST_SUBDIR_PATH);
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	private static String generateFile(final String testFileName,
+			final long length) throws Exception {
+		String absPath = scratchFileUtils
+				.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH);
+		return FileGenerator.generateFileOfFixedLengthGivenName(absPath,
+				testFileName, length);
+	}
+
+	@Test
+	public void testDigestMatchesStreamDigestAcrossBlockBoundaries()
+			throws Exception {
+		int blockSize = 1024;
+		FileChannelDigester digester = new FileChannelDigester(blockSize);
+		long[] lengths = { 0, 1, blockSize - 1, blockSize, blockSize + 1,
+				blockSize * 3, blockSize * 10 + 17 };
+
+		for (long length : lengths) {
+			String localFileName = generateFile("testDigest" + length
+					+ ".txt", length);
+			Assert.assertTrue("md5 differs for length " + length,
+					Arrays.equals(LocalFileUtils
+							.computeMD5FileCheckSumViaAbsolutePath(localFileName),
+							digester.digest(localFileName, "MD5")));
+			Assert.assertTrue("sha256 differs for length " + length,
+					Arrays.equals(LocalFileUtils
+							.computeSHA256FileCheckSumViaAbsolutePath(localFileName),
+							digester.digest(localFileName, "SHA-256")));
+		}
+	}
+
+	@Test
+	public void testDigestLargeFileDefaultBlockSize() throws Exception {
+		String localFileName = generateFile(
+				"testDigestLargeFileDefaultBlockSize.txt",
+				FileChannelDigester.DEFAULT_BLOCK_SIZE * 5L + 3);
+		Assert.assertTrue(Arrays.equals(
+				LocalFileUtils.computeMD5FileCheckSumViaAbsolutePath(localFileName),
+				new FileChannelDigester().digest(localFileName, "MD5")));
+	}
+
+	@Test(expected = JargonException.class)
+	public void testDigestMissingFile() throws Exception {
+		String absPath = scratchFileUtils
+				.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH);
+		new FileChannelDigester().digest(absPath + "testDigestMissingFile.txt",
+				"MD5");
+	}
+
+	@Test(expected = JargonException.class)
+	public void testDigestUnknownAlgorithm() throws Exception {
+		String localFileName = generateFile("testDigestUnknownAlgorithm.txt",
+				10);
+		new FileChannelDigester().digest(localFileName, "NOT-AN-ALGORITHM");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testZeroBlockSize() throws Exception {
+		new FileChannelDigester(0);
+	}
+
+}
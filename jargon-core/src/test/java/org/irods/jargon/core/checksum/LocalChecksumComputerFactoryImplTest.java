@@ -23,6 +23,29 @@ public class LocalChecksumComputerFactoryImplTest {
 		Assert.assertNotNull(actual);
 	}
 
+	@Test
+	public void testInstanceForMD5WithBlockSize() throws Exception {
+		LocalChecksumComputerFactory factory = new LocalChecksumComputerFactoryImpl(
+				65536);
+		NIOMD5LocalChecksumComputerStrategy actual = (NIOMD5LocalChecksumComputerStrategy) factory
+				.instance(ChecksumEncodingEnum.MD5);
+		Assert.assertNotNull(actual);
+	}
+
+	@Test
+	public void testInstanceForSHA256WithBlockSize() throws Exception {
+		LocalChecksumComputerFactory factory = new LocalChecksumComputerFactoryImpl(
+				65536);
+		NIOSHA256LocalChecksumComputerStrategy actual = (NIOSHA256LocalChecksumComputerStrategy) factory
+				.instance(ChecksumEncodingEnum.SHA256);
+		Assert.assertNotNull(actual);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInstanceWithNegativeBlockSize() throws Exception {
+		new LocalChecksumComputerFactoryImpl(-1);
+	}
+
 	@Test(expected = ChecksumMethodUnavailableException.class)
 	public void testInstanceForStrong() throws Exception {
 		LocalChecksumComputerFactory factory = new LocalChecksumComputerFactoryImpl();
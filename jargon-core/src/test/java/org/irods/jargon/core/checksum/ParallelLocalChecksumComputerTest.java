@@ -0,0 +1,143 @@
+package org.irods.jargon.core.checksum;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.protovalues.ChecksumEncodingEnum;
+import org.irods.jargon.testutils.TestingPropertiesHelper;
+import org.irods.jargon.testutils.filemanip.FileGenerator;
+import org.irods.jargon.testutils.filemanip.ScratchFileUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ParallelLocalChecksumComputerTest {
+
+	private static Properties testingProperties = new Properties();
+	private static ScratchFileUtils scratchFileUtils = null;
+	public static final String IRODS_TEST_SUBDIR_PATH = "ParallelLocalChecksumComputerTest";
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		TestingPropertiesHelper testingPropertiesLoader = new TestingPropertiesHelper();
+		testingProperties = testingPropertiesLoader.getTestProperties();
+		scratchFileUtils = new ScratchFileUtils(testingProperties);
+		scratchFileUtils
+				.clearAndReinitializeScratchDirectory(IRODS_TEST_SUBDIR_PATH);
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	@Test
+	public void testComputeChecksumsUnderDirectory() throws Exception {
+		String rootPath = scratchFileUtils
+				.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH
+						+ "/testComputeChecksumsUnderDirectory");
+		List<String> expectedPaths = new ArrayList<String>();
+		for (int dir = 0; dir < 3; dir++) {
+			String dirPath = rootPath + "/dir" + dir + "/sub/";
+			for (int i = 0; i < 5; i++) {
+				expectedPaths.add(new File(FileGenerator
+						.generateFileOfFixedLengthGivenName(dirPath, "file" + i
+								+ ".txt", 100 + i * 5000)).getAbsolutePath());
+			}
+		}
+
+		LocalChecksumComputerFactory factory = new LocalChecksumComputerFactoryImpl(
+				4096);
+		ParallelLocalChecksumComputer computer = new ParallelLocalChecksumComputer(
+				factory, 4);
+		Map<String, ChecksumValue> checksums = computer
+				.computeChecksumsUnderDirectory(rootPath,
+						ChecksumEncodingEnum.MD5);
+
+		Assert.assertEquals(expectedPaths.size(), checksums.size());
+		AbstractChecksumComputeStrategy strategy = new MD5LocalChecksumComputerStrategy();
+		for (String path : expectedPaths) {
+			Assert.assertEquals("checksum differs for:" + path, strategy
+					.instanceChecksumForPackingInstruction(path)
+					.getChecksumStringValue(), checksums.get(path)
+					.getChecksumStringValue());
+		}
+	}
+
+	@Test
+	public void testComputeChecksumsUnderDirectoryWithLinkLoop()
+			throws Exception {
+		String rootPath = scratchFileUtils
+				.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH
+						+ "/testComputeChecksumsWithLinkLoop");
+		String filePath = FileGenerator.generateFileOfFixedLengthGivenName(
+				rootPath + "/sub/", "file.txt", 100);
+		// a link from deep in the tree back up to its root
+		Files.createSymbolicLink(new File(rootPath, "sub/loop").toPath(),
+				new File(rootPath).toPath());
+
+		Map<String, ChecksumValue> checksums = new ParallelLocalChecksumComputer(
+				new LocalChecksumComputerFactoryImpl(4096), 2)
+				.computeChecksumsUnderDirectory(rootPath,
+						ChecksumEncodingEnum.MD5);
+
+		Assert.assertEquals(1, checksums.size());
+		Assert.assertTrue(checksums.containsKey(new File(filePath)
+				.getAbsolutePath()));
+	}
+
+	@Test
+	public void testComputeChecksumsForList() throws Exception {
+		String absPath = scratchFileUtils
+				.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH);
+		List<String> paths = new ArrayList<String>();
+		for (int i = 0; i < 9; i++) {
+			paths.add(FileGenerator.generateFileOfFixedLengthGivenName(absPath,
+					"testComputeChecksumsForList" + i + ".txt", 2000));
+		}
+
+		ParallelLocalChecksumComputer computer = new ParallelLocalChecksumComputer(
+				new LocalChecksumComputerFactoryImpl());
+		Map<String, ChecksumValue> checksums = computer.computeChecksums(
+				paths, ChecksumEncodingEnum.SHA256);
+
+		Assert.assertEquals(9, checksums.size());
+		AbstractChecksumComputeStrategy strategy = new SHA256LocalChecksumComputerStrategy();
+		for (String path : paths) {
+			Assert.assertEquals(strategy
+					.instanceChecksumForPackingInstruction(path)
+					.getChecksumTransmissionFormat(), checksums.get(path)
+					.getChecksumTransmissionFormat());
+		}
+	}
+
+	@Test(expected = JargonException.class)
+	public void testComputeChecksumsMissingFile() throws Exception {
+		String absPath = scratchFileUtils
+				.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH);
+		List<String> paths = new ArrayList<String>();
+		paths.add(FileGenerator.generateFileOfFixedLengthGivenName(absPath,
+				"testComputeChecksumsMissingFile.txt", 20));
+		paths.add(absPath + "testComputeChecksumsMissingFile-none.txt");
+
+		new ParallelLocalChecksumComputer(
+				new LocalChecksumComputerFactoryImpl(1024), 2)
+				.computeChecksums(paths, ChecksumEncodingEnum.MD5);
+	}
+
+	@Test(expected = JargonException.class)
+	public void testComputeChecksumsUnderMissingDirectory() throws Exception {
+		String absPath = scratchFileUtils
+				.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH);
+		new ParallelLocalChecksumComputer(new LocalChecksumComputerFactoryImpl())
+				.computeChecksumsUnderDirectory(absPath + "noSuchDirectory",
+						ChecksumEncodingEnum.MD5);
+	}
+
+}
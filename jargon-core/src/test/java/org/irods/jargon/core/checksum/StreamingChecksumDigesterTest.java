@@ -0,0 +1,141 @@
+package org.irods.jargon.core.checksum;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Properties;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.protovalues.ChecksumEncodingEnum;
+import org.irods.jargon.testutils.TestingPropertiesHelper;
+import org.irods.jargon.testutils.filemanip.FileGenerator;
+import org.irods.jargon.testutils.filemanip.ScratchFileUtils;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class StreamingChecksumDigesterTest {
+
+	private static Properties testingProperties = new Properties();
+	private static ScratchFileUtils scratchFileUtils = null;
+	public static final String IRODS_TEST_SUBDIR_PATH = "StreamingChecksumDigesterTest";
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		TestingPropertiesHelper testingPropertiesLoader = new TestingPropertiesHelper();
+		testingProperties = testingPropertiesLoader.getTestProperties();
+		scratchFileUtils = new ScratchFileUtils(testingProperties);
+		scratchFileUtils
+				.clearAndReinitializeScratchDirectory(IRODS_TEST_SUBDIR_PATH);
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception {
+	}
+
+	private static void readFully(final InputStream inputStream)
+			throws Exception {
+		byte[] buffer = new byte[777];
+		try {
+			while (inputStream.read(buffer) != -1) {
+				// digest as read
+			}
+			inputStream.read();
+		} finally {
+			inputStream.close();
+		}
+	}
+
+	@Test
+	public void testInputStreamMatchesMD5Strategy() throws Exception {
+		String absPath = scratchFileUtils
+				.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH);
+		String localFileName = FileGenerator
+				.generateFileOfFixedLengthGivenName(absPath,
+						"testInputStreamMatchesMD5Strategy.txt", 100000);
+
+		StreamingChecksumDigester digester = StreamingChecksumDigester
+				.instance(ChecksumEncodingEnum.MD5);
+		readFully(digester.wrapInputStream(new FileInputStream(localFileName)));
+
+		ChecksumValue expected = new MD5LocalChecksumComputerStrategy()
+				.instanceChecksumForPackingInstruction(localFileName);
+		Assert.assertEquals(expected.getChecksumStringValue(), digester
+				.getChecksumValue().getChecksumStringValue());
+		Assert.assertEquals(expected.getChecksumTransmissionFormat(), digester
+				.getChecksumValue().getChecksumTransmissionFormat());
+		Assert.assertEquals(ChecksumEncodingEnum.MD5, digester
+				.getChecksumValue().getChecksumEncoding());
+		Assert.assertEquals(100000L, digester.getBytesDigested());
+	}
+
+	@Test
+	public void testInputStreamMatchesSHA256Strategy() throws Exception {
+		String absPath = scratchFileUtils
+				.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH);
+		String localFileName = FileGenerator
+				.generateFileOfFixedLengthGivenName(absPath,
+						"testInputStreamMatchesSHA256Strategy.txt", 65537);
+
+		StreamingChecksumDigester digester = StreamingChecksumDigester
+				.instance(ChecksumEncodingEnum.SHA256);
+		readFully(digester.wrapInputStream(new FileInputStream(localFileName)));
+
+		ChecksumValue expected = new SHA256LocalChecksumComputerStrategy()
+				.instanceChecksumForPackingInstruction(localFileName);
+		Assert.assertEquals(expected.getChecksumTransmissionFormat(), digester
+				.getChecksumValue().getChecksumTransmissionFormat());
+		Assert.assertEquals(65537L, digester.getBytesDigested());
+	}
+
+	@Test
+	public void testOutputStreamMatchesInputStream() throws Exception {
+		byte[] data = new byte[12345];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (byte) (i * 31);
+		}
+
+		StreamingChecksumDigester reading = StreamingChecksumDigester
+				.instance(ChecksumEncodingEnum.SHA256);
+		readFully(reading.wrapInputStream(new ByteArrayInputStream(data)));
+
+		StreamingChecksumDigester writing = StreamingChecksumDigester
+				.instance(ChecksumEncodingEnum.SHA256);
+		ByteArrayOutputStream written = new ByteArrayOutputStream();
+		OutputStream outputStream = writing.wrapOutputStream(written);
+		outputStream.write(data[0]);
+		outputStream.write(data, 1, data.length - 1);
+		outputStream.close();
+
+		Assert.assertTrue(Arrays.equals(data, written.toByteArray()));
+		Assert.assertEquals(reading.getChecksumValue()
+				.getChecksumStringValue(), writing.getChecksumValue()
+				.getChecksumStringValue());
+		Assert.assertEquals((long) data.length, writing.getBytesDigested());
+	}
+
+	@Test
+	public void testGetChecksumValueTwice() throws Exception {
+		StreamingChecksumDigester digester = StreamingChecksumDigester
+				.instance(ChecksumEncodingEnum.MD5);
+		readFully(digester.wrapInputStream(new ByteArrayInputStream(
+				new byte[] { 1, 2, 3 })));
+		Assert.assertSame(digester.getChecksumValue(),
+				digester.getChecksumValue());
+	}
+
+	@Test(expected = ChecksumMethodUnavailableException.class)
+	public void testInstanceStrong() throws Exception {
+		StreamingChecksumDigester.instance(ChecksumEncodingEnum.STRONG);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInstanceNull() throws Exception {
+		StreamingChecksumDigester.instance(null);
+	}
+
+}
@@ -5,6 +5,8 @@ import java.util.concurrent.Executor;
 
 import junit.framework.Assert;
 
+import org.irods.jargon.core.metrics.InMemoryJargonMetrics;
+import org.irods.jargon.core.metrics.NoOpJargonMetrics;
 import org.irods.jargon.core.packinstr.TransferOptions;
 import org.irods.jargon.testutils.TestingPropertiesHelper;
 import org.junit.BeforeClass;
@@ -303,4 +305,58 @@ public class IRODSSessionTest {
 
 	}
 
+	@Test
+	public void testJargonMetricsRecordsConnectionAndApiCalls()
+			throws Exception {
+		IRODSProtocolManager irodsConnectionManager = IRODSSimpleProtocolManager
+				.instance();
+		IRODSAccount irodsAccount = testingPropertiesHelper
+				.buildIRODSAccountFromTestProperties(testingProperties);
+		IRODSSession irodsSession = IRODSSession
+				.instance(irodsConnectionManager);
+		InMemoryJargonMetrics jargonMetrics = new InMemoryJargonMetrics();
+		irodsSession.setJargonMetrics(jargonMetrics);
+
+		try {
+			AbstractIRODSMidLevelProtocol irodsProtocol = irodsSession
+					.currentConnection(irodsAccount);
+			Assert.assertSame("connection should have session metrics",
+					jargonMetrics, irodsProtocol.getJargonMetrics());
+		} finally {
+			irodsSession.closeSession();
+		}
+
+		Assert.assertEquals("should have timed one connection open", 1,
+				jargonMetrics.getConnectionOpen().getCount());
+		Assert.assertEquals("should have timed one authentication", 1,
+				jargonMetrics.getAuthentication().getCount());
+		Assert.assertEquals("should have timed one connection acquire", 1,
+				jargonMetrics.getConnectionAcquire().getCount());
+		Assert.assertFalse("should have recorded api calls", jargonMetrics
+				.getApiNumbers().isEmpty());
+		Assert.assertTrue("should have counted bytes sent",
+				jargonMetrics.getBytesSent() > 0);
+		Assert.assertTrue("should have counted bytes received",
+				jargonMetrics.getBytesReceived() > 0);
+		Assert.assertTrue("should have timed parsing", jargonMetrics
+				.getParse().getCount() > 0);
+	}
+
+	@Test
+	public void testJargonMetricsDefaultIsNoOp() throws Exception {
+		IRODSProtocolManager irodsConnectionManager = IRODSSimpleProtocolManager
+				.instance();
+		IRODSSession irodsSession = IRODSSession
+				.instance(irodsConnectionManager);
+		SettableJargonProperties overrideJargonProperties = new SettableJargonProperties();
+		overrideJargonProperties.setInstrument(false);
+		irodsSession.setJargonProperties(overrideJargonProperties);
+		Assert.assertSame("should be no-op metrics",
+				NoOpJargonMetrics.INSTANCE, irodsSession.getJargonMetrics());
+
+		overrideJargonProperties.setInstrument(true);
+		Assert.assertTrue("should be in-memory metrics when instrumented",
+				irodsSession.getJargonMetrics() instanceof InMemoryJargonMetrics);
+	}
+
 }
@@ -0,0 +1,71 @@
+package org.irods.jargon.core.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class AbstractMeterRegistryJargonMetricsTest {
+
+	private static class RecordingJargonMetrics extends
+			AbstractMeterRegistryJargonMetrics {
+
+		private final List<String> recorded = new ArrayList<String>();
+		private final List<String[]> tagsRecorded = new ArrayList<String[]>();
+
+		@Override
+		protected void recordTimer(final String name, final String[] tags,
+				final long elapsedNanos) {
+			recorded.add(name + "=" + elapsedNanos);
+			tagsRecorded.add(tags);
+		}
+
+		@Override
+		protected void incrementCounter(final String name,
+				final String[] tags, final long amount) {
+			recorded.add(name + "+" + amount);
+			tagsRecorded.add(tags);
+		}
+	}
+
+	@Test
+	public void testApiCallTaggedByApiAndOutcome() {
+		RecordingJargonMetrics metrics = new RecordingJargonMetrics();
+		metrics.recordApiCall(633, 100, true);
+		metrics.recordApiCall(633, 200, false);
+		metrics.recordApiCall(633, 300, true);
+
+		Assert.assertEquals("wrong timer",
+				AbstractMeterRegistryJargonMetrics.API_LATENCY + "=100",
+				metrics.recorded.get(0));
+		Assert.assertEquals("wrong success tags", Arrays.asList(
+				AbstractMeterRegistryJargonMetrics.TAG_API, "633",
+				AbstractMeterRegistryJargonMetrics.TAG_OUTCOME,
+				AbstractMeterRegistryJargonMetrics.OUTCOME_SUCCESS), Arrays
+				.asList(metrics.tagsRecorded.get(0)));
+		Assert.assertEquals("wrong error outcome",
+				AbstractMeterRegistryJargonMetrics.OUTCOME_ERROR,
+				metrics.tagsRecorded.get(1)[3]);
+		Assert.assertSame("tags should be reused for the same api",
+				metrics.tagsRecorded.get(0), metrics.tagsRecorded.get(2));
+	}
+
+	@Test
+	public void testBytesAreCounters() {
+		RecordingJargonMetrics metrics = new RecordingJargonMetrics();
+		metrics.recordBytesSent(10);
+		metrics.recordBytesReceived(20);
+		Assert.assertEquals("wrong sent counter",
+				AbstractMeterRegistryJargonMetrics.BYTES_SENT + "+10",
+				metrics.recorded.get(0));
+		Assert.assertEquals("wrong received counter",
+				AbstractMeterRegistryJargonMetrics.BYTES_RECEIVED + "+20",
+				metrics.recorded.get(1));
+		Assert.assertEquals("should have no tags", 0,
+				metrics.tagsRecorded.get(0).length);
+	}
+
+}
@@ -0,0 +1,65 @@
+package org.irods.jargon.core.metrics;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void testRecordCountTotalAndMax() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(1000);
+		histogram.record(3000);
+		histogram.record(2000);
+		Assert.assertEquals("wrong count", 3, histogram.getCount());
+		Assert.assertEquals("wrong total", 6000, histogram.getTotalNanos());
+		Assert.assertEquals("wrong max", 3000, histogram.getMaxNanos());
+	}
+
+	@Test
+	public void testPercentileWithinFactorOfTwo() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i * 1000L);
+		}
+		long median = histogram.getPercentileNanos(50);
+		Assert.assertTrue("median too low", median >= 50000);
+		Assert.assertTrue("median too high", median < 100000);
+		Assert.assertEquals("p100 should be max", 100000,
+				histogram.getPercentileNanos(100));
+	}
+
+	@Test
+	public void testPercentileEmpty() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		Assert.assertEquals("empty should be zero", 0,
+				histogram.getPercentileNanos(99));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testPercentileOutOfRange() {
+		new LatencyHistogram().getPercentileNanos(101);
+	}
+
+	@Test
+	public void testBucketFor() {
+		Assert.assertEquals(0, LatencyHistogram.bucketFor(0));
+		Assert.assertEquals(0, LatencyHistogram.bucketFor(1));
+		Assert.assertEquals(1, LatencyHistogram.bucketFor(2));
+		Assert.assertEquals(1, LatencyHistogram.bucketFor(3));
+		Assert.assertEquals(10, LatencyHistogram.bucketFor(1024));
+		Assert.assertEquals(62, LatencyHistogram.bucketFor(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testReset() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(5000);
+		histogram.reset();
+		Assert.assertEquals("should be empty", 0, histogram.getCount());
+		Assert.assertEquals("max should be cleared", 0,
+				histogram.getMaxNanos());
+	}
+
+}
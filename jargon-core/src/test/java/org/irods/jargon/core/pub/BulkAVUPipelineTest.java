@@ -0,0 +1,300 @@
+package org.irods.jargon.core.pub;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.AbstractIRODSMidLevelProtocol;
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.SettableJargonProperties;
+import org.irods.jargon.core.exception.DuplicateDataException;
+import org.irods.jargon.core.exception.FileNotFoundException;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.DataObjInpForObjStat;
+import org.irods.jargon.core.packinstr.ModAvuMetadataInp;
+import org.irods.jargon.core.protovalues.ErrorEnum;
+import org.irods.jargon.core.pub.BulkAVUOperationResponse.ResultStatus;
+import org.irods.jargon.core.pub.domain.AvuData;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServer;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class BulkAVUPipelineTest {
+
+	private static final String USER = "test1";
+
+	@Rule
+	public EmbeddedIRODSServerRule serverRule = new EmbeddedIRODSServerRule();
+
+	private EmbeddedIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSAccount irodsAccount;
+
+	@Before
+	public void setUp() throws Exception {
+		server = serverRule.getServer();
+		irodsFileSystem = serverRule.getIrodsFileSystem();
+		irodsAccount = serverRule.getIrodsAccount();
+	}
+
+	private static List<AvuData> buildAvus(final String prefix,
+			final int count) throws Exception {
+		List<AvuData> avus = new ArrayList<AvuData>();
+		for (int i = 0; i < count; i++) {
+			avus.add(AvuData.instance(prefix + "attr" + i, "value" + i, ""));
+		}
+		return avus;
+	}
+
+	private DataObjectAO dataObjectAO() throws Exception {
+		return irodsFileSystem.getIRODSAccessObjectFactory().getDataObjectAO(
+				irodsAccount);
+	}
+
+	private CollectionAO collectionAO() throws Exception {
+		return irodsFileSystem.getIRODSAccessObjectFactory().getCollectionAO(
+				irodsAccount);
+	}
+
+	@Test
+	public void testAddBulkAVUMetadataToDataObject() throws Exception {
+		String path = server.getHomeDirectory(USER) + "/bulk.dat";
+		server.getCatalog().putDataObject(path, new byte[1]);
+		List<AvuData> avus = buildAvus("testAddBulk", 500);
+
+		List<BulkAVUOperationResponse> responses = dataObjectAO()
+				.addBulkAVUMetadataToDataObject(path, avus);
+
+		Assert.assertEquals(500, responses.size());
+		for (int i = 0; i < responses.size(); i++) {
+			Assert.assertEquals(ResultStatus.OK, responses.get(i)
+					.getResultStatus());
+			Assert.assertEquals(avus.get(i), responses.get(i).getAvuData());
+		}
+		Assert.assertEquals(avus, server.getCatalog().getAVUMetadata(path));
+		Assert.assertEquals(1L,
+				server.getApiCallCount(DataObjInpForObjStat.OBJ_STAT_API_NBR));
+		Assert.assertEquals(500L,
+				server.getApiCallCount(ModAvuMetadataInp.MOD_AVU_API_NBR));
+	}
+
+	@Test
+	public void testAddBulkAVUMetadataWithDuplicates() throws Exception {
+		String path = server.getHomeDirectory(USER) + "/duplicates.dat";
+		server.getCatalog().putDataObject(path, new byte[1]);
+		List<AvuData> avus = buildAvus("testAddBulkDuplicates", 10);
+		server.getCatalog().addAVUMetadata(path, avus.get(3));
+		avus.add(avus.get(7));
+
+		List<BulkAVUOperationResponse> responses = dataObjectAO()
+				.addBulkAVUMetadataToDataObject(path, avus);
+
+		Assert.assertEquals(11, responses.size());
+		for (int i = 0; i < responses.size(); i++) {
+			ResultStatus expected = (i == 3 || i == 10) ? ResultStatus.DUPLICATE_AVU
+					: ResultStatus.OK;
+			Assert.assertEquals("response " + i, expected, responses.get(i)
+					.getResultStatus());
+		}
+		Assert.assertEquals(10, server.getCatalog().getAVUMetadata(path)
+				.size());
+	}
+
+	@Test
+	public void testAddBulkAVUMetadataMissingDataObject() throws Exception {
+		String path = server.getHomeDirectory(USER) + "/missing.dat";
+		List<AvuData> avus = buildAvus("testAddBulkMissing", 3);
+
+		List<BulkAVUOperationResponse> responses = dataObjectAO()
+				.addBulkAVUMetadataToDataObject(path, avus);
+
+		Assert.assertEquals(3, responses.size());
+		for (BulkAVUOperationResponse response : responses) {
+			Assert.assertEquals(ResultStatus.MISSING_METADATA_TARGET,
+					response.getResultStatus());
+		}
+		Assert.assertEquals(0L,
+				server.getApiCallCount(ModAvuMetadataInp.MOD_AVU_API_NBR));
+	}
+
+	@Test
+	public void testDeleteBulkAVUMetadataFromDataObject() throws Exception {
+		String path = server.getHomeDirectory(USER) + "/delete.dat";
+		server.getCatalog().putDataObject(path, new byte[1]);
+		List<AvuData> avus = buildAvus("testDeleteBulk", 20);
+		for (AvuData avu : avus) {
+			server.getCatalog().addAVUMetadata(path, avu);
+		}
+
+		List<BulkAVUOperationResponse> responses = dataObjectAO()
+				.deleteBulkAVUMetadataFromDataObject(path, avus.subList(0, 15));
+
+		Assert.assertEquals(15, responses.size());
+		for (BulkAVUOperationResponse response : responses) {
+			Assert.assertEquals(ResultStatus.OK, response.getResultStatus());
+		}
+		Assert.assertEquals(avus.subList(15, 20), server.getCatalog()
+				.getAVUMetadata(path));
+	}
+
+	@Test
+	public void testBulkAVUMetadataOnCollection() throws Exception {
+		String path = server.getHomeDirectory(USER) + "/bulkCollection";
+		server.getCatalog().createCollection(path);
+		List<AvuData> avus = buildAvus("testBulkCollection", 100);
+
+		List<BulkAVUOperationResponse> responses = collectionAO()
+				.addBulkAVUMetadataToCollection(path, avus);
+		Assert.assertEquals(100, responses.size());
+		Assert.assertEquals(avus, server.getCatalog().getAVUMetadata(path));
+
+		responses = collectionAO().deleteBulkAVUMetadataFromCollection(path,
+				avus);
+		Assert.assertEquals(100, responses.size());
+		Assert.assertTrue(server.getCatalog().getAVUMetadata(path).isEmpty());
+	}
+
+	@Test
+	public void testAddBulkAVUMetadataMissingCollection() throws Exception {
+		String path = server.getHomeDirectory(USER) + "/missingCollection";
+		List<AvuData> avus = buildAvus("testBulkMissingCollection", 5);
+
+		List<BulkAVUOperationResponse> responses = collectionAO()
+				.addBulkAVUMetadataToCollection(path, avus);
+
+		Assert.assertEquals(5, responses.size());
+		for (BulkAVUOperationResponse response : responses) {
+			Assert.assertEquals(ResultStatus.MISSING_METADATA_TARGET,
+					response.getResultStatus());
+		}
+	}
+
+	@Test
+	public void testErrorMidPipelineDoesNotStopBatch() throws Exception {
+		String path = server.getHomeDirectory(USER) + "/midPipeline.dat";
+		server.getCatalog().putDataObject(path, new byte[1]);
+		List<AvuData> avus = buildAvus("testMidPipeline", 50);
+		// connect, so the first call to the AVU API is from the batch
+		dataObjectAO().getObjectStatForAbsolutePath(path);
+		server.getFaultInjector().failApi(ModAvuMetadataInp.MOD_AVU_API_NBR,
+				ErrorEnum.SYS_INTERNAL_NULL_INPUT_ERR.getInt(), 1);
+
+		List<BulkAVUOperationResponse> responses = dataObjectAO()
+				.addBulkAVUMetadataToDataObject(path, avus);
+
+		Assert.assertEquals(ResultStatus.OTHER_ERROR, responses.get(0)
+				.getResultStatus());
+		for (int i = 1; i < responses.size(); i++) {
+			Assert.assertEquals(ResultStatus.OK, responses.get(i)
+					.getResultStatus());
+		}
+		Assert.assertEquals(49, server.getCatalog().getAVUMetadata(path)
+				.size());
+
+		// the connection is still in step after the batch
+		Assert.assertNotNull(dataObjectAO().getObjectStatForAbsolutePath(path));
+	}
+
+	@Test
+	public void testPipelineDepthOne() throws Exception {
+		SettableJargonProperties props = new SettableJargonProperties(
+				irodsFileSystem.getJargonProperties());
+		props.setBulkAVUPipelineDepth(1);
+		irodsFileSystem.getIrodsSession().setJargonProperties(props);
+
+		String path = server.getHomeDirectory(USER) + "/depthOne.dat";
+		server.getCatalog().putDataObject(path, new byte[1]);
+		List<AvuData> avus = buildAvus("testDepthOne", 25);
+
+		List<BulkAVUOperationResponse> responses = dataObjectAO()
+				.addBulkAVUMetadataToDataObject(path, avus);
+
+		Assert.assertEquals(25, responses.size());
+		Assert.assertEquals(avus, server.getCatalog().getAVUMetadata(path));
+	}
+
+	@Test
+	public void testNullRequestInPipelineSendsNothing() throws Exception {
+		String path = server.getHomeDirectory(USER) + "/nullRequest.dat";
+		server.getCatalog().putDataObject(path, new byte[1]);
+		List<AvuData> avus = buildAvus("testNullRequest", 3);
+		List<ModAvuMetadataInp> requests = new ArrayList<ModAvuMetadataInp>();
+		for (AvuData avu : avus) {
+			requests.add(ModAvuMetadataInp.instanceForAddDataObjectMetadata(
+					path, avu));
+		}
+		requests.add(null);
+		AbstractIRODSMidLevelProtocol protocol = irodsFileSystem
+				.getIrodsSession().currentConnection(irodsAccount);
+
+		try {
+			protocol.irodsFunctionPipelined(requests, 2);
+			Assert.fail("null request should not be sent");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+
+		Assert.assertEquals(0L,
+				server.getApiCallCount(ModAvuMetadataInp.MOD_AVU_API_NBR));
+		Assert.assertTrue(server.getCatalog().getAVUMetadata(path).isEmpty());
+		// the connection is still in step
+		Assert.assertNotNull(dataObjectAO().getObjectStatForAbsolutePath(path));
+	}
+
+	@Test
+	public void testDroppedConnectionMidPipelineDiscardsConnection()
+			throws Exception {
+		String path = server.getHomeDirectory(USER) + "/dropped.dat";
+		server.getCatalog().putDataObject(path, new byte[1]);
+		List<AvuData> avus = buildAvus("testDropped", 20);
+		dataObjectAO().getObjectStatForAbsolutePath(path);
+		server.getFaultInjector().dropConnectionOnApi(
+				ModAvuMetadataInp.MOD_AVU_API_NBR, 1);
+
+		try {
+			dataObjectAO().addBulkAVUMetadataToDataObject(path, avus);
+			Assert.fail("dropped connection should fail the batch");
+		} catch (JargonException e) {
+			// expected
+		}
+
+		// the unanswered requests went with the old connection
+		Assert.assertNotNull(dataObjectAO().getObjectStatForAbsolutePath(path));
+		Assert.assertEquals(2, server.getConnectionCount());
+	}
+
+	@Test
+	public void testResultStatusForError() throws Exception {
+		Assert.assertEquals(ResultStatus.DUPLICATE_AVU,
+				BulkAVUOperationResponse
+						.resultStatusForError(new DuplicateDataException(
+								"duplicate")));
+		Assert.assertEquals(ResultStatus.DUPLICATE_AVU,
+				BulkAVUOperationResponse
+						.resultStatusForError(new JargonException("duplicate",
+								ErrorEnum.CATALOG_ALREADY_HAS_ITEM_BY_THAT_NAME
+										.getInt())));
+		Assert.assertEquals(ResultStatus.MISSING_METADATA_TARGET,
+				BulkAVUOperationResponse
+						.resultStatusForError(new FileNotFoundException(
+								"missing")));
+		// a sub code is added to the catalog error code
+		Assert.assertEquals(ResultStatus.MISSING_METADATA_TARGET,
+				BulkAVUOperationResponse
+						.resultStatusForError(new JargonException("missing",
+								ErrorEnum.CAT_UNKNOWN_FILE.getInt() - 2)));
+		Assert.assertEquals(ResultStatus.OTHER_ERROR,
+				BulkAVUOperationResponse
+						.resultStatusForError(new JargonException(
+								"message mentioning -814000")));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetPipelineDepthZero() throws Exception {
+		new SettableJargonProperties().setBulkAVUPipelineDepth(0);
+	}
+
+}
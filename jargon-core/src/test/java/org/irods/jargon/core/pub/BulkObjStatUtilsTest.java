@@ -0,0 +1,156 @@
+package org.irods.jargon.core.pub;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.packinstr.DataObjInpForObjStat;
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.irods.jargon.core.pub.domain.ObjStat.SpecColType;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServer;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class BulkObjStatUtilsTest {
+
+	private static final String USER = "test1";
+
+	@Rule
+	public EmbeddedIRODSServerRule serverRule = new EmbeddedIRODSServerRule();
+
+	private EmbeddedIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSAccount irodsAccount;
+
+	@Before
+	public void setUp() throws Exception {
+		server = serverRule.getServer();
+		irodsFileSystem = serverRule.getIrodsFileSystem();
+		irodsAccount = serverRule.getIrodsAccount();
+	}
+
+	private CollectionAndDataObjectListAndSearchAO listAndSearchAO()
+			throws Exception {
+		return irodsFileSystem.getIRODSAccessObjectFactory()
+				.getCollectionAndDataObjectListAndSearchAO(irodsAccount);
+	}
+
+	private long objStats() {
+		return server.getApiCallCount(DataObjInpForObjStat.OBJ_STAT_API_NBR);
+	}
+
+	@Test
+	public void testChunkValuesEmpty() {
+		List<List<String>> actual = BulkObjStatUtils
+				.chunkValues(new ArrayList<String>());
+		Assert.assertTrue("should be no chunks", actual.isEmpty());
+	}
+
+	@Test
+	public void testChunkValuesByCount() {
+		List<String> values = new ArrayList<String>();
+		int count = BulkObjStatUtils.MAX_IN_CONDITION_VALUES * 2 + 1;
+		for (int i = 0; i < count; i++) {
+			values.add("f" + i);
+		}
+
+		List<List<String>> actual = BulkObjStatUtils.chunkValues(values);
+		Assert.assertEquals("wrong number of chunks", 3, actual.size());
+		Assert.assertEquals("wrong size of first chunk",
+				BulkObjStatUtils.MAX_IN_CONDITION_VALUES, actual.get(0).size());
+		Assert.assertEquals("wrong size of last chunk", 1, actual.get(2)
+				.size());
+	}
+
+	@Test
+	public void testChunkValuesByLength() {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < BulkObjStatUtils.MAX_IN_CONDITION_LENGTH / 2; i++) {
+			sb.append('a');
+		}
+		List<String> values = new ArrayList<String>();
+		for (int i = 0; i < 3; i++) {
+			values.add(sb.toString() + i);
+		}
+
+		List<List<String>> actual = BulkObjStatUtils.chunkValues(values);
+		Assert.assertEquals("should split on length", 3, actual.size());
+	}
+
+	@Test
+	public void testChunkValuesEscapesQuotes() {
+		List<List<String>> actual = BulkObjStatUtils.chunkValues(Arrays
+				.asList("it's", "plain", "''"));
+		Assert.assertEquals(1, actual.size());
+		Assert.assertEquals(Arrays.asList("it''s", "plain", "''''"),
+				actual.get(0));
+	}
+
+	@Test
+	public void testNamesWithQuotesResolvedByQuery() throws Exception {
+		String home = server.getHomeDirectory(USER);
+		String dataPath = home + "/it's.txt";
+		String collectionPath = home + "/o'neil";
+		server.getCatalog().putDataObject(dataPath, new byte[3]);
+		server.getCatalog().createCollection(collectionPath);
+		CollectionAndDataObjectListAndSearchAO listAndSearchAO = listAndSearchAO();
+
+		long objStats = objStats();
+		Map<String, ObjStat> actual = listAndSearchAO
+				.retrieveObjectStatsForPaths(Arrays.asList(dataPath,
+						collectionPath));
+
+		Assert.assertEquals(2, actual.size());
+		Assert.assertEquals(3L, actual.get(dataPath).getObjSize());
+		Assert.assertTrue(actual.get(collectionPath).isSomeTypeOfCollection());
+		// only the parent is stat'd, the children come from the queries
+		Assert.assertEquals(objStats + 1, objStats());
+	}
+
+	@Test
+	public void testSpecialCollectionFallsBackToPipelinedObjStat()
+			throws Exception {
+		String home = server.getHomeDirectory(USER);
+		String mounted = home + "/mounted";
+		String plain = home + "/plain.txt";
+		server.getCatalog().createCollection(mounted);
+		server.getCatalog().setMountPoint(mounted);
+		server.getCatalog().putDataObject(mounted + "/a.txt", new byte[1]);
+		server.getCatalog().putDataObject(mounted + "/b.txt", new byte[2]);
+		server.getCatalog().putDataObject(plain, new byte[4]);
+		CollectionAndDataObjectListAndSearchAO listAndSearchAO = listAndSearchAO();
+
+		long objStats = objStats();
+		Map<String, ObjStat> actual = listAndSearchAO
+				.retrieveObjectStatsForPaths(Arrays.asList(mounted, mounted
+						+ "/a.txt", mounted + "/missing.txt", mounted
+						+ "/b.txt", plain));
+
+		Assert.assertEquals(4, actual.size());
+		Assert.assertEquals(SpecColType.MOUNTED_COLL, actual.get(mounted)
+				.getSpecColType());
+		Assert.assertEquals(SpecColType.MOUNTED_COLL,
+				actual.get(mounted + "/a.txt").getSpecColType());
+		Assert.assertEquals(2L, actual.get(mounted + "/b.txt").getObjSize());
+		Assert.assertFalse(actual.containsKey(mounted + "/missing.txt"));
+		Assert.assertEquals(SpecColType.NORMAL, actual.get(plain)
+				.getSpecColType());
+
+		/*
+		 * the two parents, the mount point found by the query, and each path
+		 * under the mount point
+		 */
+		Assert.assertEquals(objStats + 6, objStats());
+
+		// the connection is still in step after the pipeline
+		Assert.assertEquals(SpecColType.NORMAL, listAndSearchAO
+				.retrieveObjectStatForPath(plain).getSpecColType());
+	}
+
+}
@@ -0,0 +1,78 @@
+package org.irods.jargon.core.pub;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.SettableJargonProperties;
+import org.irods.jargon.core.packinstr.GenQueryInp;
+import org.irods.jargon.core.query.IRODSGenQuery;
+import org.irods.jargon.core.query.IRODSQueryResultSet;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServer;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class CachingIRODSGenQueryExecutorImplTest {
+
+	@Rule
+	public EmbeddedIRODSServerRule serverRule = new EmbeddedIRODSServerRule();
+
+	private EmbeddedIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSAccount irodsAccount;
+
+	@Before
+	public void setUp() throws Exception {
+		server = serverRule.getServer();
+		irodsFileSystem = serverRule.getIrodsFileSystem();
+		irodsAccount = serverRule.getIrodsAccount();
+		SettableJargonProperties jargonProperties = new SettableJargonProperties(
+				irodsFileSystem.getJargonProperties());
+		jargonProperties.setUsingGenQueryResultCache(true);
+		irodsFileSystem.getIrodsSession().setJargonProperties(jargonProperties);
+	}
+
+	@Test
+	public void testCacheHitDoesNotUseConnection() throws Exception {
+		IRODSGenQueryExecutor executor = irodsFileSystem
+				.getIRODSAccessObjectFactory().getIRODSGenQueryExecutor(
+						irodsAccount);
+		Assert.assertTrue(executor instanceof CachingIRODSGenQueryExecutorImpl);
+
+		IRODSQueryResultSet first = executor.executeIRODSQueryAndCloseResult(
+				IRODSGenQuery.instance("select RESC_NAME", 100), 0);
+		irodsFileSystem.getIrodsSession().closeSession(irodsAccount);
+		int connections = server.getConnectionCount();
+
+		IRODSQueryResultSet second = executor.executeIRODSQueryAndCloseResult(
+				IRODSGenQuery.instance("select RESC_NAME", 100), 0);
+
+		Assert.assertNotSame("a hit should return the cached copy", first,
+				second);
+		Assert.assertEquals(first.getResults().size(), second.getResults()
+				.size());
+		Assert.assertEquals("a hit should not connect", connections,
+				server.getConnectionCount());
+		Assert.assertEquals(1L, server.getApiCallCount(GenQueryInp.API_NBR));
+	}
+
+	@Test
+	public void testDifferentQueriesNotShared() throws Exception {
+		IRODSGenQueryExecutor executor = irodsFileSystem
+				.getIRODSAccessObjectFactory().getIRODSGenQueryExecutor(
+						irodsAccount);
+
+		executor.executeIRODSQueryAndCloseResult(
+				IRODSGenQuery.instance("select RESC_NAME", 100), 0);
+		executor.executeIRODSQueryAndCloseResult(
+				IRODSGenQuery.instance("select RESC_NAME", 50), 0);
+		executor.executeIRODSQueryAndCloseResultInZone(
+				IRODSGenQuery.instance("select RESC_NAME", 100), 0, "otherZone");
+		executor.executeIRODSQueryAndCloseResult(
+				IRODSGenQuery.instance("select RESC_NAME", 100), 0);
+
+		Assert.assertEquals(3L, server.getApiCallCount(GenQueryInp.API_NBR));
+	}
+
+}
@@ -0,0 +1,235 @@
+package org.irods.jargon.core.pub;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.SettableJargonProperties;
+import org.irods.jargon.core.packinstr.DataObjInp;
+import org.irods.jargon.core.protovalues.ChecksumEncodingEnum;
+import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServer;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChecksumDuringTransferTest {
+
+	private static final String USER = "test1";
+
+	private EmbeddedIRODSServerConfiguration configuration;
+	private EmbeddedIRODSServer server = null;
+	private IRODSFileSystem irodsFileSystem;
+	private SettableJargonProperties jargonProperties;
+
+	@Before
+	public void setUp() throws Exception {
+		configuration = new EmbeddedIRODSServerConfiguration();
+		configuration.addUser(USER, "test");
+		irodsFileSystem = IRODSFileSystem.instance();
+		jargonProperties = new SettableJargonProperties(
+				irodsFileSystem.getJargonProperties());
+		jargonProperties.setComputeAndVerifyChecksumAfterTransfer(true);
+		jargonProperties.setComputeChecksumDuringTransfer(true);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		irodsFileSystem.closeAndEatExceptions();
+		if (server != null) {
+			server.stop();
+		}
+	}
+
+	private IRODSAccount startServer() throws Exception {
+		irodsFileSystem.getIrodsSession().setJargonProperties(jargonProperties);
+		server = new EmbeddedIRODSServer(configuration);
+		server.start();
+		return server.createIRODSAccount(USER);
+	}
+
+	private static File localFile(final byte[] content) throws IOException {
+		File file = File.createTempFile("checksum-during-transfer", ".dat");
+		file.deleteOnExit();
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content);
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	private static byte[] randomBytes(final int length) {
+		byte[] bytes = new byte[length];
+		new Random(length).nextBytes(bytes);
+		return bytes;
+	}
+
+	private static byte[] readLocalFile(final File file) throws IOException {
+		java.io.DataInputStream in = new java.io.DataInputStream(
+				new java.io.FileInputStream(file));
+		try {
+			byte[] bytes = new byte[(int) file.length()];
+			in.readFully(bytes);
+			return bytes;
+		} finally {
+			in.close();
+		}
+	}
+
+	private void put(final IRODSAccount irodsAccount, final byte[] content,
+			final String path) throws Exception {
+		IRODSAccessObjectFactory accessObjectFactory = irodsFileSystem
+				.getIRODSAccessObjectFactory();
+		accessObjectFactory.getDataTransferOperations(irodsAccount)
+				.putOperation(
+						localFile(content),
+						accessObjectFactory.getIRODSFileFactory(irodsAccount)
+								.instanceIRODSFile(path), null, null);
+	}
+
+	private byte[] get(final IRODSAccount irodsAccount, final String path)
+			throws Exception {
+		IRODSAccessObjectFactory accessObjectFactory = irodsFileSystem
+				.getIRODSAccessObjectFactory();
+		File returned = new File(localFile(new byte[0]).getParentFile(),
+				"checksum-during-transfer-" + System.nanoTime());
+		returned.deleteOnExit();
+		IRODSFile irodsFile = accessObjectFactory.getIRODSFileFactory(
+				irodsAccount).instanceIRODSFile(path);
+		accessObjectFactory.getDataTransferOperations(irodsAccount)
+				.getOperation(irodsFile, returned, null, null);
+		return readLocalFile(returned);
+	}
+
+	@Test
+	public void testPutVerifyChecksumDuringTransfer() throws Exception {
+		IRODSAccount irodsAccount = startServer();
+		byte[] content = randomBytes(300 * 1024 + 5);
+		String path = server.getHomeDirectory(USER) + "/verifyPut.dat";
+
+		put(irodsAccount, content, path);
+
+		Assert.assertTrue(Arrays.equals(content, server.getCatalog()
+				.getDataObjectContent(path)));
+		Assert.assertEquals(1L,
+				server.getApiCallCount(DataObjInp.CHECKSUM_API_NBR));
+	}
+
+	@Test
+	public void testPutComputeChecksumNotDigestedDuringTransfer()
+			throws Exception {
+		jargonProperties.setComputeAndVerifyChecksumAfterTransfer(false);
+		jargonProperties.setComputeChecksumAfterTransfer(true);
+		IRODSAccount irodsAccount = startServer();
+		byte[] content = randomBytes(1000);
+		String path = server.getHomeDirectory(USER) + "/computePut.dat";
+
+		put(irodsAccount, content, path);
+
+		Assert.assertTrue(Arrays.equals(content, server.getCatalog()
+				.getDataObjectContent(path)));
+		// with no verify, the checksum goes with the put as before
+		Assert.assertEquals(0L,
+				server.getApiCallCount(DataObjInp.CHECKSUM_API_NBR));
+	}
+
+	@Test
+	public void testChecksumDuringTransferIsOffByDefault() throws Exception {
+		Assert.assertFalse(irodsFileSystem.getJargonProperties()
+				.isComputeChecksumDuringTransfer());
+		Assert.assertFalse(new SettableJargonProperties()
+				.isComputeChecksumDuringTransfer());
+	}
+
+	@Test
+	public void testPutChecksumBeforeTransfer() throws Exception {
+		jargonProperties.setComputeChecksumDuringTransfer(false);
+		IRODSAccount irodsAccount = startServer();
+		byte[] content = randomBytes(1000);
+		String path = server.getHomeDirectory(USER) + "/beforePut.dat";
+
+		put(irodsAccount, content, path);
+
+		Assert.assertTrue(Arrays.equals(content, server.getCatalog()
+				.getDataObjectContent(path)));
+		// the checksum went with the put for iRODS to verify
+		Assert.assertEquals(0L,
+				server.getApiCallCount(DataObjInp.CHECKSUM_API_NBR));
+	}
+
+	@Test
+	public void testParallelPutVerifyChecksumDuringTransfer()
+			throws Exception {
+		IRODSAccount irodsAccount = startServer();
+		// the client sends files above 32MB over parallel streams
+		byte[] content = randomBytes(33 * 1024 * 1024);
+		String path = server.getHomeDirectory(USER) + "/verifyParallelPut.dat";
+
+		put(irodsAccount, content, path);
+
+		Assert.assertTrue(Arrays.equals(content, server.getCatalog()
+				.getDataObjectContent(path)));
+		Assert.assertEquals(1L,
+				server.getApiCallCount(DataObjInp.CHECKSUM_API_NBR));
+	}
+
+	@Test
+	public void testGetVerifyChecksumDuringTransfer() throws Exception {
+		IRODSAccount irodsAccount = startServer();
+		byte[] content = randomBytes(200 * 1024 + 3);
+		String path = server.getHomeDirectory(USER) + "/verifyGet.dat";
+		server.getCatalog().putDataObject(path, content);
+
+		Assert.assertTrue(Arrays.equals(content, get(irodsAccount, path)));
+		Assert.assertEquals(1L,
+				server.getApiCallCount(DataObjInp.CHECKSUM_API_NBR));
+	}
+
+	@Test
+	public void testParallelGetVerifyChecksum() throws Exception {
+		configuration.setSingleBufferSize(1024 * 1024);
+		configuration.setMaxParallelThreads(3);
+		IRODSAccount irodsAccount = startServer();
+		byte[] content = randomBytes(3 * 1024 * 1024 + 17);
+		String path = server.getHomeDirectory(USER) + "/verifyParallelGet.dat";
+		server.getCatalog().putDataObject(path, content);
+
+		Assert.assertTrue(Arrays.equals(content, get(irodsAccount, path)));
+		Assert.assertEquals(1L,
+				server.getApiCallCount(DataObjInp.CHECKSUM_API_NBR));
+	}
+
+	@Test
+	public void testGetVerifyChecksumMD5Server() throws Exception {
+		configuration.setRelVersion("rods3.3.1");
+		IRODSAccount irodsAccount = startServer();
+		byte[] content = randomBytes(4096);
+		String path = server.getHomeDirectory(USER) + "/verifyGetMD5.dat";
+		server.getCatalog().putDataObject(path, content);
+
+		Assert.assertTrue(Arrays.equals(content, get(irodsAccount, path)));
+	}
+
+	@Test
+	public void testPutVerifyWhenServerUsesOtherChecksum() throws Exception {
+		// the transfer is digested as MD5, iRODS answers with SHA-256
+		jargonProperties.setChecksumEncoding(ChecksumEncodingEnum.MD5);
+		IRODSAccount irodsAccount = startServer();
+		byte[] content = randomBytes(2048);
+		String path = server.getHomeDirectory(USER) + "/verifyOther.dat";
+
+		put(irodsAccount, content, path);
+
+		Assert.assertTrue(Arrays.equals(content, server.getCatalog()
+				.getDataObjectContent(path)));
+	}
+
+}
@@ -1,12 +1,17 @@
 package org.irods.jargon.core.pub;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 
 import junit.framework.Assert;
 
 import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.JargonProperties;
 import org.irods.jargon.core.connection.SettableJargonProperties;
 import org.irods.jargon.core.exception.FileNotFoundException;
 import org.irods.jargon.core.pub.domain.Collection;
@@ -16,6 +21,7 @@ import org.irods.jargon.core.pub.domain.ObjStat.SpecColType;
 import org.irods.jargon.core.pub.io.IRODSFile;
 import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
 import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry.ObjectType;
+import org.irods.jargon.core.query.CollectionChangeListing;
 import org.irods.jargon.core.query.PagingAwareCollectionListing;
 import org.irods.jargon.core.utils.LocalFileUtils;
 import org.irods.jargon.testutils.TestingPropertiesHelper;
@@ -2236,6 +2242,247 @@ public class CollectionAndDataObjectListAndSearchAOImplTest {
 		Assert.assertEquals("wrong file size", fileSize, objStat.getObjSize());
 	}
 
+	@Test
+	public void testRetrieveObjectStatsForPaths() throws Exception {
+
+		String subdirPrefix = "testRetrieveObjectStatsForPaths";
+		String testFilePrefix = "testRetrieveObjectStatsForPaths";
+		String testFileSuffix = ".txt";
+		int count = 20;
+
+		IRODSAccount irodsAccount = testingPropertiesHelper
+				.buildIRODSAccountFromTestProperties(testingProperties);
+
+		String targetIrodsCollection = testingPropertiesHelper
+				.buildIRODSCollectionAbsolutePathFromTestProperties(
+						testingProperties, IRODS_TEST_SUBDIR_PATH + "/"
+								+ subdirPrefix);
+		IRODSFile irodsFile = irodsFileSystem.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFile(targetIrodsCollection);
+		irodsFile.deleteWithForceOption();
+		irodsFile.mkdirs();
+
+		String absPath = scratchFileUtils
+				.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH);
+		String localFileName = FileGenerator.generateFileOfFixedLengthGivenName(
+				absPath, testFilePrefix + testFileSuffix, 1);
+
+		DataTransferOperations dataTransferOperations = irodsFileSystem
+				.getIRODSAccessObjectFactory().getDataTransferOperations(
+						irodsAccount);
+
+		List<String> paths = new ArrayList<String>();
+		String myTarget;
+		for (int i = 0; i < count; i++) {
+			myTarget = targetIrodsCollection + "/c" + (10000 + i)
+					+ subdirPrefix;
+			irodsFile = irodsFileSystem.getIRODSFileFactory(irodsAccount)
+					.instanceIRODSFile(myTarget);
+			irodsFile.mkdir();
+			paths.add(myTarget);
+
+			myTarget = targetIrodsCollection + "/" + testFilePrefix + i
+					+ testFileSuffix;
+			dataTransferOperations.putOperation(new File(localFileName),
+					irodsFileSystem.getIRODSFileFactory(irodsAccount)
+							.instanceIRODSFile(myTarget), null, null);
+			paths.add(myTarget);
+		}
+
+		String missingPath = targetIrodsCollection + "/iamnothere.txt";
+		paths.add(missingPath);
+
+		CollectionAndDataObjectListAndSearchAO listAndSearchAO = irodsFileSystem
+				.getIRODSAccessObjectFactory()
+				.getCollectionAndDataObjectListAndSearchAO(irodsAccount);
+		Map<String, ObjStat> actual = listAndSearchAO
+				.retrieveObjectStatsForPaths(paths);
+
+		Assert.assertEquals("did not get all existing paths", count * 2,
+				actual.size());
+		Assert.assertFalse("should not have missing path",
+				actual.containsKey(missingPath));
+
+		ObjStat objStat = actual.get(targetIrodsCollection + "/"
+				+ testFilePrefix + 0 + testFileSuffix);
+		Assert.assertNotNull("did not find data object", objStat);
+		Assert.assertEquals("not a data object", ObjectType.DATA_OBJECT,
+				objStat.getObjectType());
+		Assert.assertEquals("wrong file size", 1, objStat.getObjSize());
+		Assert.assertTrue("did not set object id", objStat.getDataId() > 0);
+
+		objStat = actual.get(targetIrodsCollection + "/c" + 10000
+				+ subdirPrefix);
+		Assert.assertNotNull("did not find collection", objStat);
+		Assert.assertEquals("not a collection", ObjectType.COLLECTION,
+				objStat.getObjectType());
+		Assert.assertFalse("no owner name", objStat.getOwnerName().isEmpty());
+	}
+
+	@Test
+	public void testListChangesUnderPathSince() throws Exception {
+
+		String subdirPrefix = "testListChangesUnderPathSince";
+		String testFilePrefix = "testListChangesUnderPathSince";
+		String testFileSuffix = ".txt";
+		int count = 5;
+
+		IRODSAccount irodsAccount = testingPropertiesHelper
+				.buildIRODSAccountFromTestProperties(testingProperties);
+
+		String targetIrodsCollection = testingPropertiesHelper
+				.buildIRODSCollectionAbsolutePathFromTestProperties(
+						testingProperties, IRODS_TEST_SUBDIR_PATH + "/"
+								+ subdirPrefix);
+		IRODSFile irodsFile = irodsFileSystem.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFile(targetIrodsCollection);
+		irodsFile.deleteWithForceOption();
+		irodsFile.mkdirs();
+
+		String nestedIrodsCollection = targetIrodsCollection + "/nested";
+		irodsFile = irodsFileSystem.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFile(nestedIrodsCollection);
+		irodsFile.mkdirs();
+
+		String absPath = scratchFileUtils
+				.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH);
+		String localFileName = FileGenerator.generateFileOfFixedLengthGivenName(
+				absPath, testFilePrefix + testFileSuffix, 1);
+
+		DataTransferOperations dataTransferOperations = irodsFileSystem
+				.getIRODSAccessObjectFactory().getDataTransferOperations(
+						irodsAccount);
+
+		for (int i = 0; i < count; i++) {
+			dataTransferOperations.putOperation(new File(localFileName),
+					irodsFileSystem.getIRODSFileFactory(irodsAccount)
+							.instanceIRODSFile(
+									targetIrodsCollection + "/"
+											+ testFilePrefix + i
+											+ testFileSuffix), null, null);
+			dataTransferOperations.putOperation(new File(localFileName),
+					irodsFileSystem.getIRODSFileFactory(irodsAccount)
+							.instanceIRODSFile(
+									nestedIrodsCollection + "/"
+											+ testFilePrefix + i
+											+ testFileSuffix), null, null);
+		}
+
+		CollectionAndDataObjectListAndSearchAO listAndSearchAO = irodsFileSystem
+				.getIRODSAccessObjectFactory()
+				.getCollectionAndDataObjectListAndSearchAO(irodsAccount);
+		CollectionChangeListing actual = listAndSearchAO
+				.listChangesUnderPathSince(targetIrodsCollection, 0);
+
+		Assert.assertEquals("did not get nested collection", 1,
+				actual.getCollectionsCount());
+		Assert.assertEquals("did not get all data objects", count * 2,
+				actual.getDataObjectsCount());
+		Assert.assertEquals("wrong number of entries", count * 2 + 1, actual
+				.getCollectionAndDataObjectListingEntries().size());
+		Assert.assertTrue("watermark not advanced",
+				actual.getNewWatermark() > 0);
+		Assert.assertTrue("should be one page", actual.isLastResult());
+
+		long future = actual.getNewWatermark() + 3600000;
+		actual = listAndSearchAO.listChangesUnderPathSince(
+				targetIrodsCollection, future);
+		Assert.assertTrue("should be no changes", actual
+				.getCollectionAndDataObjectListingEntries().isEmpty());
+		Assert.assertEquals("watermark should not change", future,
+				actual.getNewWatermark());
+	}
+
+	@Test
+	public void testListChangesUnderPathSincePaged() throws Exception {
+
+		String subdirPrefix = "testListChangesUnderPathSincePaged";
+		String testFilePrefix = "testListChangesUnderPathSincePaged";
+		String testFileSuffix = ".txt";
+		int count = 5;
+
+		IRODSAccount irodsAccount = testingPropertiesHelper
+				.buildIRODSAccountFromTestProperties(testingProperties);
+
+		String targetIrodsCollection = testingPropertiesHelper
+				.buildIRODSCollectionAbsolutePathFromTestProperties(
+						testingProperties, IRODS_TEST_SUBDIR_PATH + "/"
+								+ subdirPrefix);
+		IRODSFile irodsFile = irodsFileSystem.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFile(targetIrodsCollection);
+		irodsFile.deleteWithForceOption();
+		irodsFile.mkdirs();
+
+		String nestedIrodsCollection = targetIrodsCollection + "/nested";
+		irodsFile = irodsFileSystem.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFile(nestedIrodsCollection);
+		irodsFile.mkdirs();
+
+		String absPath = scratchFileUtils
+				.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH);
+		String localFileName = FileGenerator.generateFileOfFixedLengthGivenName(
+				absPath, testFilePrefix + testFileSuffix, 1);
+
+		DataTransferOperations dataTransferOperations = irodsFileSystem
+				.getIRODSAccessObjectFactory().getDataTransferOperations(
+						irodsAccount);
+
+		for (int i = 0; i < count; i++) {
+			dataTransferOperations.putOperation(new File(localFileName),
+					irodsFileSystem.getIRODSFileFactory(irodsAccount)
+							.instanceIRODSFile(
+									targetIrodsCollection + "/"
+											+ testFilePrefix + i
+											+ testFileSuffix), null, null);
+			dataTransferOperations.putOperation(new File(localFileName),
+					irodsFileSystem.getIRODSFileFactory(irodsAccount)
+							.instanceIRODSFile(
+									nestedIrodsCollection + "/"
+											+ testFilePrefix + i
+											+ testFileSuffix), null, null);
+		}
+
+		JargonProperties originalProps = irodsFileSystem.getJargonProperties();
+		SettableJargonProperties props = new SettableJargonProperties(
+				originalProps);
+		props.setMaxFilesAndDirsQueryMax(3);
+		irodsFileSystem.getIrodsSession().setJargonProperties(props);
+
+		try {
+			CollectionAndDataObjectListAndSearchAO listAndSearchAO = irodsFileSystem
+					.getIRODSAccessObjectFactory()
+					.getCollectionAndDataObjectListAndSearchAO(irodsAccount);
+			CollectionChangeListing actual = listAndSearchAO
+					.listChangesUnderPathSince(targetIrodsCollection, 0);
+			long newWatermark = actual.getNewWatermark();
+			Set<String> paths = new HashSet<String>();
+			int pages = 1;
+
+			while (true) {
+				Assert.assertTrue("page too big", actual
+						.getCollectionAndDataObjectListingEntries().size() <= 3);
+				Assert.assertEquals("watermark should not change between pages",
+						newWatermark, actual.getNewWatermark());
+				for (CollectionAndDataObjectListingEntry entry : actual
+						.getCollectionAndDataObjectListingEntries()) {
+					paths.add(entry.getFormattedAbsolutePath());
+				}
+				if (actual.isLastResult()) {
+					break;
+				}
+				actual = listAndSearchAO.listMoreChangesUnderPathSince(actual);
+				pages++;
+			}
+
+			Assert.assertEquals("did not get all changes", count * 2 + 1,
+					paths.size());
+			Assert.assertTrue("should have several pages", pages > 1);
+		} finally {
+			irodsFileSystem.getIrodsSession().setJargonProperties(
+					originalProps);
+		}
+	}
+
 	/**
 	 * Bug reported in idrop as https://github.com/DICE-UNC/idrop/issues/56
 	 * 
@@ -0,0 +1,120 @@
+package org.irods.jargon.core.pub;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.SettableJargonProperties;
+import org.irods.jargon.core.packinstr.DataObjInp;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServer;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class FileDeleteInBatchTest {
+
+	private static final String USER = "test1";
+
+	@Rule
+	public EmbeddedIRODSServerRule serverRule = new EmbeddedIRODSServerRule();
+
+	private EmbeddedIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSAccount irodsAccount;
+
+	@Before
+	public void setUp() throws Exception {
+		server = serverRule.getServer();
+		irodsFileSystem = serverRule.getIrodsFileSystem();
+		irodsAccount = serverRule.getIrodsAccount();
+	}
+
+	private IRODSFileSystemAO irodsFileSystemAO() throws Exception {
+		return irodsFileSystem.getIRODSAccessObjectFactory()
+				.getIRODSFileSystemAO(irodsAccount);
+	}
+
+	@Test
+	public void testFileDeleteNoForceInBatch() throws Exception {
+		List<String> paths = new ArrayList<String>();
+		for (int i = 0; i < 100; i++) {
+			String path = server.getHomeDirectory(USER) + "/delete" + i
+					+ ".dat";
+			server.getCatalog().putDataObject(path, new byte[1]);
+			paths.add(path);
+		}
+
+		List<String> notDeleted = irodsFileSystemAO()
+				.fileDeleteNoForceInBatch(paths);
+
+		Assert.assertTrue(notDeleted.isEmpty());
+		for (String path : paths) {
+			Assert.assertNull(server.getCatalog().getDataObjectContent(path));
+		}
+		Assert.assertEquals(100L,
+				server.getApiCallCount(DataObjInp.DELETE_FILE_API_NBR));
+	}
+
+	@Test
+	public void testFileDeleteNoForceInBatchWithMissingFile()
+			throws Exception {
+		String path1 = server.getHomeDirectory(USER) + "/present1.dat";
+		String missing = server.getHomeDirectory(USER) + "/missing.dat";
+		String path2 = server.getHomeDirectory(USER) + "/present2.dat";
+		server.getCatalog().putDataObject(path1, new byte[1]);
+		server.getCatalog().putDataObject(path2, new byte[1]);
+		List<String> paths = new ArrayList<String>();
+		paths.add(path1);
+		paths.add(missing);
+		paths.add(path2);
+
+		List<String> notDeleted = irodsFileSystemAO()
+				.fileDeleteNoForceInBatch(paths);
+
+		Assert.assertEquals(1, notDeleted.size());
+		Assert.assertEquals(missing, notDeleted.get(0));
+		Assert.assertNull(server.getCatalog().getDataObjectContent(path1));
+		Assert.assertNull(server.getCatalog().getDataObjectContent(path2));
+	}
+
+	@Test
+	public void testFileDeleteNoForceInBatchRequestPipelineDepthOne()
+			throws Exception {
+		SettableJargonProperties props = new SettableJargonProperties(
+				irodsFileSystem.getJargonProperties());
+		props.setRequestPipelineDepth(1);
+		irodsFileSystem.getIrodsSession().setJargonProperties(props);
+		List<String> paths = new ArrayList<String>();
+		for (int i = 0; i < 10; i++) {
+			String path = server.getHomeDirectory(USER) + "/depthOne" + i
+					+ ".dat";
+			server.getCatalog().putDataObject(path, new byte[1]);
+			paths.add(path);
+		}
+
+		Assert.assertTrue(irodsFileSystemAO().fileDeleteNoForceInBatch(paths)
+				.isEmpty());
+		Assert.assertEquals(10L,
+				server.getApiCallCount(DataObjInp.DELETE_FILE_API_NBR));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetRequestPipelineDepthZero() throws Exception {
+		new SettableJargonProperties().setRequestPipelineDepth(0);
+	}
+
+	@Test
+	public void testFileDeleteNoForceInBatchEmpty() throws Exception {
+		Assert.assertTrue(irodsFileSystemAO().fileDeleteNoForceInBatch(
+				new ArrayList<String>()).isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testFileDeleteNoForceInBatchNull() throws Exception {
+		irodsFileSystemAO().fileDeleteNoForceInBatch(null);
+	}
+
+}
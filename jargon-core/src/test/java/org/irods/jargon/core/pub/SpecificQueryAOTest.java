@@ -254,6 +254,104 @@ public class SpecificQueryAOTest {
 
 	}
 
+	@Test
+	public void testOpenSpecificQueryCursorLSWithPrefetch() throws Exception {
+
+		IRODSAccount irodsAccount = testingPropertiesHelper
+				.buildIRODSAccountFromTestProperties(testingProperties);
+
+		IRODSAccessObjectFactory accessObjectFactory = irodsFileSystem
+				.getIRODSAccessObjectFactory();
+
+		EnvironmentalInfoAO environmentalInfoAO = irodsFileSystem
+				.getIRODSAccessObjectFactory().getEnvironmentalInfoAO(
+						irodsAccount);
+		if (!environmentalInfoAO.isAbleToRunSpecificQuery()) {
+			return;
+		}
+
+		SpecificQueryAO queryAO = accessObjectFactory
+				.getSpecificQueryAO(irodsAccount);
+		SpecificQuery specificQuery = SpecificQuery.instanceWithNoArguments(
+				"ls", 0, "");
+
+		SpecificQueryResultSet specificQueryResultSet = queryAO
+				.executeSpecificQueryUsingAlias(specificQuery,
+						accessObjectFactory.getJargonProperties()
+								.getMaxFilesAndDirsQueryMax());
+
+		// page size of one forces continuation for each row
+		SpecificQueryResultCursor cursor = queryAO
+				.openSpecificQueryCursorUsingAlias(specificQuery, 1, true);
+		int count = 0;
+		try {
+			while (cursor.next()) {
+				count++;
+				Assert.assertEquals("wrong record count", count, cursor
+						.getRow().getRecordCount());
+				Assert.assertFalse("no alias", cursor.getString(0).isEmpty());
+			}
+		} finally {
+			cursor.close();
+		}
+
+		Assert.assertEquals("cursor did not return all results",
+				specificQueryResultSet.getResults().size(), count);
+		Assert.assertTrue("cursor should be closed", cursor.isClosed());
+
+	}
+
+	@Test
+	public void testOpenSpecificQueryCursorWithPrefetchClosedEarly()
+			throws Exception {
+
+		IRODSAccount irodsAccount = testingPropertiesHelper
+				.buildIRODSAccountFromTestProperties(testingProperties);
+
+		IRODSAccessObjectFactory accessObjectFactory = irodsFileSystem
+				.getIRODSAccessObjectFactory();
+
+		EnvironmentalInfoAO environmentalInfoAO = irodsFileSystem
+				.getIRODSAccessObjectFactory().getEnvironmentalInfoAO(
+						irodsAccount);
+		if (!environmentalInfoAO.isAbleToRunSpecificQuery()) {
+			return;
+		}
+
+		SpecificQueryAO queryAO = accessObjectFactory
+				.getSpecificQueryAO(irodsAccount);
+		SpecificQuery specificQuery = SpecificQuery.instanceWithNoArguments(
+				"ls", 0, "");
+
+		SpecificQueryResultCursor cursor = queryAO
+				.openSpecificQueryCursorUsingAlias(specificQuery, 1, true);
+		try {
+			Assert.assertTrue("no first row", cursor.next());
+			// the caller's connection is free while the cursor prefetches
+			SpecificQueryResultSet specificQueryResultSet = queryAO
+					.executeSpecificQueryUsingAlias(specificQuery,
+							accessObjectFactory.getJargonProperties()
+									.getMaxFilesAndDirsQueryMax());
+			Assert.assertFalse("no results returned", specificQueryResultSet
+					.getResults().isEmpty());
+		} finally {
+			cursor.close();
+		}
+
+		Assert.assertTrue("cursor should be closed", cursor.isClosed());
+		Assert.assertFalse("closed cursor has no rows", cursor.next());
+
+	}
+
+	@Test
+	public void testColumnNamesForQueryIsCached() throws Exception {
+		String query = "select R_USER_MAIN.user_name ,R_USER_MAIN.zone_name from R_USER_MAIN";
+		List<String> colNames = SpecificQueryAOImpl.columnNamesForQuery(query);
+		Assert.assertEquals("R_USER_MAIN.zone_name", colNames.get(1));
+		Assert.assertSame("should reuse parsed column names", colNames,
+				SpecificQueryAOImpl.columnNamesForQuery(query));
+	}
+
 	@Test
 	public void testListLikeLS() throws Exception {
 
@@ -0,0 +1,229 @@
+package org.irods.jargon.core.query;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSServerProperties;
+import org.junit.Test;
+
+public class GenQueryResultCacheTest {
+
+	@Test
+	public void testPutAndGetResourceQuery() throws Exception {
+		GenQueryResultCache cache = new GenQueryResultCache();
+		IRODSQueryResultSet resultSet = resultSet("resc1");
+		Set<GenQueryCacheRegion> regions = EnumSet
+				.of(GenQueryCacheRegion.RESOURCE);
+		Assert.assertTrue("should have cached",
+				cache.put("key", regions, resultSet));
+		IRODSQueryResultSet cached = cache.get("key");
+		Assert.assertNotSame("should cache a copy", resultSet, cached);
+		Assert.assertEquals("resc1", cached.getFirstResult().getColumn(0));
+		Assert.assertEquals(resultSet.getColumnNames(),
+				cached.getColumnNames());
+		GenQueryResultCacheStatistics stats = cache.getStatistics();
+		Assert.assertEquals("should have one hit", 1, stats.getHits());
+		Assert.assertEquals("should have one entry", 1, stats.getSize());
+	}
+
+	@Test
+	public void testGetMiss() throws Exception {
+		GenQueryResultCache cache = new GenQueryResultCache();
+		Assert.assertNull("should not find entry", cache.get("key"));
+		Assert.assertEquals("should have one miss", 1, cache.getStatistics()
+				.getMisses());
+	}
+
+	@Test
+	public void testDataObjectQueryNotCachedByDefault() throws Exception {
+		GenQueryResultCache cache = new GenQueryResultCache();
+		IRODSQueryResultSet resultSet = resultSet("resc1");
+		Set<GenQueryCacheRegion> regions = EnumSet.of(
+				GenQueryCacheRegion.RESOURCE, GenQueryCacheRegion.DATA_OBJECT);
+		Assert.assertFalse("should not have cached",
+				cache.put("key", regions, resultSet));
+		Assert.assertNull("should not find entry", cache.get("key"));
+	}
+
+	@Test
+	public void testInvalidateRegion() throws Exception {
+		GenQueryResultCache cache = new GenQueryResultCache();
+		IRODSQueryResultSet resultSet = resultSet("resc1");
+		cache.put("resc", EnumSet.of(GenQueryCacheRegion.RESOURCE), resultSet);
+		cache.put("user", EnumSet.of(GenQueryCacheRegion.USER), resultSet);
+		cache.invalidateRegion(GenQueryCacheRegion.USER);
+		Assert.assertNull("user entry should be invalidated", cache.get("user"));
+		Assert.assertNotNull("resource entry should remain", cache.get("resc"));
+		Assert.assertEquals("should have one invalidation", 1, cache
+				.getStatistics().getInvalidations());
+	}
+
+	@Test
+	public void testEvictsLeastRecentlyUsed() throws Exception {
+		GenQueryResultCache cache = new GenQueryResultCache(2);
+		IRODSQueryResultSet resultSet = resultSet("resc1");
+		Set<GenQueryCacheRegion> regions = EnumSet
+				.of(GenQueryCacheRegion.RESOURCE);
+		cache.put("a", regions, resultSet);
+		cache.put("b", regions, resultSet);
+		cache.get("a");
+		cache.put("c", regions, resultSet);
+		Assert.assertNull("b should be evicted", cache.get("b"));
+		Assert.assertNotNull("a should remain", cache.get("a"));
+		Assert.assertNotNull("c should remain", cache.get("c"));
+		Assert.assertEquals("should have one eviction", 1, cache
+				.getStatistics().getEvictions());
+	}
+
+	@Test
+	public void testSetTimeToLiveZeroStopsCaching() throws Exception {
+		GenQueryResultCache cache = new GenQueryResultCache();
+		IRODSQueryResultSet resultSet = resultSet("resc1");
+		Set<GenQueryCacheRegion> regions = EnumSet
+				.of(GenQueryCacheRegion.RESOURCE);
+		cache.put("key", regions, resultSet);
+		cache.setTimeToLiveMillis(GenQueryCacheRegion.RESOURCE, 0);
+		Assert.assertNull("entry should be invalidated", cache.get("key"));
+		Assert.assertFalse("should not cache",
+				cache.put("key", regions, resultSet));
+	}
+
+	@Test
+	public void testComputeTimeToLiveIsMinimumOfRegions() throws Exception {
+		GenQueryResultCache cache = new GenQueryResultCache();
+		long ttl = cache.computeTimeToLiveMillis(EnumSet.of(
+				GenQueryCacheRegion.RESOURCE, GenQueryCacheRegion.USER));
+		Assert.assertEquals("should be user ttl",
+				GenQueryResultCache.DEFAULT_USER_TIME_TO_LIVE_MILLIS, ttl);
+	}
+
+	@Test
+	public void testCachedCopyNotChangedByOriginal() throws Exception {
+		GenQueryResultCache cache = new GenQueryResultCache();
+		IRODSQueryResultSet resultSet = resultSet("resc1");
+		cache.put("key", EnumSet.of(GenQueryCacheRegion.RESOURCE), resultSet);
+		resultSet.getFirstResult().getColumnsAsList().set(0, "changed");
+		Assert.assertEquals("resc1", cache.get("key").getFirstResult()
+				.getColumn(0));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testCachedRowsCannotBeChanged() throws Exception {
+		GenQueryResultCache cache = new GenQueryResultCache();
+		cache.put("key", EnumSet.of(GenQueryCacheRegion.RESOURCE),
+				resultSet("resc1"));
+		cache.get("key").getFirstResult().getColumnsAsList().set(0, "changed");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetTimeToLiveRefusedWithoutInvalidation() throws Exception {
+		GenQueryResultCache cache = new GenQueryResultCache();
+		cache.setTimeToLiveMillis(GenQueryCacheRegion.DATA_OBJECT, 1000);
+	}
+
+	@Test
+	public void testSetTimeToLiveZeroAllowedWithoutInvalidation()
+			throws Exception {
+		GenQueryResultCache cache = new GenQueryResultCache();
+		cache.setTimeToLiveMillis(GenQueryCacheRegion.METADATA, 0);
+		Assert.assertEquals(0L,
+				cache.getTimeToLiveMillis(GenQueryCacheRegion.METADATA));
+	}
+
+	@Test
+	public void testRegionsForQueryWithoutTranslation() throws Exception {
+		Assert.assertEquals(EnumSet.of(GenQueryCacheRegion.RESOURCE,
+				GenQueryCacheRegion.DATA_OBJECT), GenQueryCacheRegion
+				.regionsForQuery(IRODSGenQuery.instance(
+						"select RESC_NAME, count(DATA_ID) where RESC_NAME = 'USER_NAME'",
+						10)));
+		Assert.assertEquals(EnumSet.of(GenQueryCacheRegion.RESOURCE),
+				GenQueryCacheRegion.regionsForQuery(builderQuery("a")));
+		Assert.assertEquals(EnumSet.of(GenQueryCacheRegion.RESOURCE),
+				GenQueryCacheRegion.regionsForQuery(boundQuery()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testZeroMaxEntries() throws Exception {
+		new GenQueryResultCache(0);
+	}
+
+	@Test
+	public void testRegionForColumnName() throws Exception {
+		Assert.assertEquals(GenQueryCacheRegion.RESOURCE,
+				GenQueryCacheRegion.regionForColumnName("RESC_NAME"));
+		Assert.assertEquals(GenQueryCacheRegion.ACCESS,
+				GenQueryCacheRegion.regionForColumnName("DATA_ACCESS_NAME"));
+		Assert.assertEquals(GenQueryCacheRegion.DATA_OBJECT,
+				GenQueryCacheRegion.regionForColumnName("DATA_RESC_NAME"));
+		Assert.assertEquals(GenQueryCacheRegion.METADATA,
+				GenQueryCacheRegion.regionForColumnName("META_DATA_ATTR_NAME"));
+		Assert.assertEquals(GenQueryCacheRegion.OTHER,
+				GenQueryCacheRegion.regionForColumnName("SL_HOST_NAME"));
+	}
+
+	@Test
+	public void testDescribeQuery() throws Exception {
+		Assert.assertEquals(GenQueryResultCache.describeQuery(IRODSGenQuery
+				.instance("select RESC_NAME", 10)), GenQueryResultCache
+				.describeQuery(IRODSGenQuery.instance("select RESC_NAME", 10)));
+		Assert.assertFalse(GenQueryResultCache.describeQuery(
+				IRODSGenQuery.instance("select RESC_NAME", 10)).equals(
+				GenQueryResultCache.describeQuery(IRODSGenQuery.instance(
+						"select RESC_NAME", 11))));
+		Assert.assertFalse(GenQueryResultCache.describeQuery(
+				builderQuery("a")).equals(
+				GenQueryResultCache.describeQuery(builderQuery("b"))));
+		Assert.assertEquals(
+				GenQueryResultCache.describeQuery(builderQuery("a")),
+				GenQueryResultCache.describeQuery(builderQuery("a")));
+	}
+
+	@Test
+	public void testDescribeBoundQueryValuesNotAmbiguous() throws Exception {
+		PreparedIRODSGenQuery preparedIRODSGenQuery = preparedQuery();
+		Assert.assertFalse(GenQueryResultCache.describeQuery(
+				preparedIRODSGenQuery.bind(10, "a:1", "b")).equals(
+				GenQueryResultCache.describeQuery(preparedIRODSGenQuery.bind(
+						10, "a", "1:b"))));
+	}
+
+	private PreparedIRODSGenQuery preparedQuery() throws Exception {
+		return new IRODSGenQueryTranslator(IRODSServerProperties.instance(
+				IRODSServerProperties.IcatEnabled.ICAT_ENABLED, 100,
+				"rods3.3", "d", "zone"))
+				.getPreparedQuery("select RESC_NAME where RESC_NAME = ? and RESC_ZONE_NAME = ?");
+	}
+
+	private BoundIRODSGenQuery boundQuery() throws Exception {
+		return preparedQuery().bind(10, "a", "b");
+	}
+
+	private IRODSQueryResultSet resultSet(final String value)
+			throws Exception {
+		TranslatedIRODSGenQuery translatedIRODSGenQuery = builderQuery(value)
+				.convertToTranslatedIRODSGenQuery();
+		List<String> columnNames = new ArrayList<String>();
+		columnNames.add(RodsGenQueryEnum.COL_R_RESC_NAME.getName());
+		List<String> columns = new ArrayList<String>();
+		columns.add(value);
+		List<IRODSQueryResultRow> rows = new ArrayList<IRODSQueryResultRow>();
+		rows.add(IRODSQueryResultRow.instance(columns, columnNames, 0, true));
+		return IRODSQueryResultSet.instance(translatedIRODSGenQuery, rows, 0,
+				1);
+	}
+
+	private IRODSGenQueryFromBuilder builderQuery(final String value)
+			throws Exception {
+		return new IRODSGenQueryBuilder(true, null)
+				.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_R_RESC_NAME)
+				.addConditionAsGenQueryField(RodsGenQueryEnum.COL_R_RESC_NAME,
+						QueryConditionOperators.EQUAL, value)
+				.exportIRODSQueryFromBuilder(10);
+	}
+
+}
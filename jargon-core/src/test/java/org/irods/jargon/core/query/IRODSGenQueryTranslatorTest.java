@@ -773,4 +773,101 @@ public class IRODSGenQueryTranslatorTest {
 
 	}
 
+	@Test
+	public final void testGetPreparedQueryWithBindMarkers() throws Exception {
+		String query = "select COLL_NAME, DATA_NAME where COLL_NAME = ? and DATA_NAME = 'foo' and DATA_SIZE > ?";
+		IRODSServerProperties props = IRODSServerProperties.instance(
+				IRODSServerProperties.IcatEnabled.ICAT_ENABLED, 100, "rods4.1",
+				"d", "zone");
+		IRODSGenQueryTranslator translator = new IRODSGenQueryTranslator(props);
+
+		PreparedIRODSGenQuery prepared = translator.getPreparedQuery(query);
+		Assert.assertEquals("did not find bind markers", 2,
+				prepared.getBindCount());
+
+		BoundIRODSGenQuery bound = prepared.bind(10, "/a/b", "100");
+		TranslatedIRODSGenQuery translatedQuery = bound
+				.convertToTranslatedIRODSGenQuery();
+		Assert.assertEquals(2, translatedQuery.getSelectFields().size());
+		Assert.assertEquals(3, translatedQuery.getTranslatedQueryConditions()
+				.size());
+		Assert.assertEquals("'/a/b'", translatedQuery
+				.getTranslatedQueryConditions().get(0).getValue());
+		Assert.assertEquals("'foo'", translatedQuery
+				.getTranslatedQueryConditions().get(1).getValue());
+		Assert.assertEquals("'100'", translatedQuery
+				.getTranslatedQueryConditions().get(2).getValue());
+		Assert.assertEquals(">", translatedQuery
+				.getTranslatedQueryConditions().get(2).getOperator());
+		Assert.assertEquals(RodsGenQueryEnum.COL_DATA_SIZE.getName(),
+				translatedQuery.getTranslatedQueryConditions().get(2)
+						.getColumnName());
+		Assert.assertSame("query not associated with translation", bound,
+				translatedQuery.getIrodsQuery());
+	}
+
+	@Test
+	public final void testGetPreparedQueryIsCached() throws Exception {
+		String query = "select COLL_NAME where COLL_NAME like ?";
+		IRODSServerProperties props = IRODSServerProperties.instance(
+				IRODSServerProperties.IcatEnabled.ICAT_ENABLED, 100, "rods4.1",
+				"d", "zone");
+		PreparedIRODSGenQuery prepared = new IRODSGenQueryTranslator(props)
+				.getPreparedQuery(query);
+		PreparedIRODSGenQuery preparedAgain = new IRODSGenQueryTranslator(
+				props).getPreparedQuery(query);
+		Assert.assertSame("did not reuse prepared query", prepared,
+				preparedAgain);
+	}
+
+	@Test
+	public final void testPlainQueriesNotCached() throws Exception {
+		String query = "select COLL_NAME where COLL_NAME = '/plain/not/cached'";
+		IRODSServerProperties props = IRODSServerProperties.instance(
+				IRODSServerProperties.IcatEnabled.ICAT_ENABLED, 100, "rods4.1",
+				"d", "zone");
+		IRODSGenQueryTranslator translator = new IRODSGenQueryTranslator(props);
+		translator.getTranslatedQuery(IRODSGenQuery.instance(query, 10));
+		Assert.assertFalse("translated query should not be cached",
+				IRODSGenQueryTranslator.isPreparedQueryCached(query));
+
+		PreparedIRODSGenQuery prepared = translator.getPreparedQuery(query);
+		Assert.assertEquals(0, prepared.getBindCount());
+		Assert.assertFalse("template without markers should not be cached",
+				IRODSGenQueryTranslator.isPreparedQueryCached(query));
+		Assert.assertNotSame(prepared, translator.getPreparedQuery(query));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public final void testBindWrongNumberOfValues() throws Exception {
+		String query = "select COLL_NAME where COLL_NAME = ?";
+		IRODSServerProperties props = IRODSServerProperties.instance(
+				IRODSServerProperties.IcatEnabled.ICAT_ENABLED, 100, "rods4.1",
+				"d", "zone");
+		IRODSGenQueryTranslator translator = new IRODSGenQueryTranslator(props);
+		translator.getPreparedQuery(query).bind(10, "a", "b");
+	}
+
+	@Test
+	public final void testGetTranslatedQueryTwiceSameQueryString()
+			throws Exception {
+		String query = "select COLL_NAME, DATA_NAME where COLL_NAME = '/a/b'";
+		IRODSServerProperties props = IRODSServerProperties.instance(
+				IRODSServerProperties.IcatEnabled.ICAT_ENABLED, 100, "rods4.1",
+				"d", "zone");
+		IRODSGenQueryTranslator translator = new IRODSGenQueryTranslator(props);
+
+		IRODSGenQuery irodsQuery = IRODSGenQuery.instance(query, 10);
+		IRODSGenQuery otherIrodsQuery = IRODSGenQuery.instance(query, 20);
+		TranslatedIRODSGenQuery translatedQuery = translator
+				.getTranslatedQuery(irodsQuery);
+		TranslatedIRODSGenQuery otherTranslatedQuery = translator
+				.getTranslatedQuery(otherIrodsQuery);
+		Assert.assertSame(irodsQuery, translatedQuery.getIrodsQuery());
+		Assert.assertSame(otherIrodsQuery, otherTranslatedQuery.getIrodsQuery());
+		Assert.assertEquals(translatedQuery.getTranslatedQueryConditions()
+				.get(0).getValue(), otherTranslatedQuery
+				.getTranslatedQueryConditions().get(0).getValue());
+	}
+
 }
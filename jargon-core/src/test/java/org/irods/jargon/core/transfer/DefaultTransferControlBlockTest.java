@@ -3,6 +3,7 @@ package org.irods.jargon.core.transfer;
 import junit.framework.Assert;
 
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.TransferOptions;
 import org.junit.Test;
 
 public class DefaultTransferControlBlockTest {
@@ -56,4 +57,29 @@ public class DefaultTransferControlBlockTest {
 				testControlBlock.filter("bbb"));
 	}
 
+	@Test
+	public void testTransferTelemetryFollowsTotalBytesToTransfer()
+			throws Exception {
+		TransferControlBlock testControlBlock = DefaultTransferControlBlock
+				.instance();
+		testControlBlock.setTotalBytesToTransfer(1000L);
+		TransferTelemetry transferTelemetry = TransferTelemetry
+				.forTransferControlBlock(testControlBlock);
+		Assert.assertEquals(1000L, transferTelemetry.getExpectedBytes());
+		testControlBlock.resetTransferData();
+		Assert.assertEquals(0L, transferTelemetry.getExpectedBytes());
+	}
+
+	@Test
+	public void testTransferOptionsSetStallThreshold() throws Exception {
+		TransferControlBlock testControlBlock = DefaultTransferControlBlock
+				.instance();
+		TransferOptions transferOptions = new TransferOptions();
+		transferOptions.setStallThresholdMillis(5000L);
+		testControlBlock.setTransferOptions(transferOptions);
+		Assert.assertEquals(5000L,
+				TransferTelemetry.forTransferControlBlock(testControlBlock)
+						.getStallThresholdMillis());
+	}
+
 }
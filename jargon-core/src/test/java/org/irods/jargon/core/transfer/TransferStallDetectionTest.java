@@ -0,0 +1,118 @@
+package org.irods.jargon.core.transfer;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.SettableJargonProperties;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.TransferOptions;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.transfer.TransferStatus.TransferState;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServer;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerConfiguration;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class TransferStallDetectionTest {
+
+	private static final String USER = "test1";
+	private static final int STREAM_READ_SIZE = 65536;
+
+	@Rule
+	public EmbeddedIRODSServerRule serverRule = new EmbeddedIRODSServerRule(
+			buildConfiguration());
+
+	private EmbeddedIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSAccount irodsAccount;
+
+	private static EmbeddedIRODSServerConfiguration buildConfiguration() {
+		EmbeddedIRODSServerConfiguration configuration = new EmbeddedIRODSServerConfiguration();
+		configuration.setSingleBufferSize(1024 * 1024);
+		configuration.setMaxParallelThreads(3);
+		return configuration;
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		server = serverRule.getServer();
+		irodsFileSystem = serverRule.getIrodsFileSystem();
+		irodsAccount = serverRule.getIrodsAccount();
+		// small reads, so that each stream reports progress before it stalls
+		SettableJargonProperties jargonProperties = new SettableJargonProperties(
+				irodsFileSystem.getJargonProperties());
+		jargonProperties.setParallelCopyBufferSize(STREAM_READ_SIZE);
+		irodsFileSystem.getIrodsSession().setJargonProperties(jargonProperties);
+	}
+
+	private static class StallRecordingListener implements
+			TransferStatusCallbackListener {
+		private final List<TransferStatus> stalls = new ArrayList<TransferStatus>();
+
+		@Override
+		public FileStatusCallbackResponse statusCallback(
+				final TransferStatus transferStatus) throws JargonException {
+			return FileStatusCallbackResponse.CONTINUE;
+		}
+
+		@Override
+		public synchronized void overallStatusCallback(
+				final TransferStatus transferStatus) throws JargonException {
+			if (transferStatus.getTransferState() == TransferState.STALLED) {
+				stalls.add(transferStatus);
+			}
+		}
+
+		@Override
+		public CallbackResponse transferAsksWhetherToForceOperation(
+				final String irodsAbsolutePath, final boolean isCollection) {
+			return CallbackResponse.YES_FOR_ALL;
+		}
+	}
+
+	@Test
+	public void testStalledParallelGetReportedWithoutBytesArriving()
+			throws Exception {
+		byte[] content = new byte[3 * 1024 * 1024 + 17];
+		String path = server.getHomeDirectory(USER) + "/stall.dat";
+		server.getCatalog().putDataObject(path, content);
+		// every stream stops at once, so no bytes arrive during the stall
+		server.getFaultInjector().stallParallelStreams(STREAM_READ_SIZE * 2,
+				1500);
+
+		IRODSAccessObjectFactory accessObjectFactory = irodsFileSystem
+				.getIRODSAccessObjectFactory();
+		TransferControlBlock transferControlBlock = DefaultTransferControlBlock
+				.instance();
+		TransferOptions transferOptions = accessObjectFactory
+				.buildTransferOptionsBasedOnJargonProperties();
+		transferOptions.setIntraFileStatusCallbacks(true);
+		transferOptions.setStallThresholdMillis(300);
+		transferControlBlock.setTransferOptions(transferOptions);
+		StallRecordingListener listener = new StallRecordingListener();
+
+		File returned = File.createTempFile("transfer-stall", ".dat");
+		returned.delete();
+		returned.deleteOnExit();
+		accessObjectFactory.getDataTransferOperations(irodsAccount)
+				.getOperation(
+						accessObjectFactory.getIRODSFileFactory(irodsAccount)
+								.instanceIRODSFile(path), returned, listener,
+						transferControlBlock);
+
+		Assert.assertEquals(content.length, returned.length());
+		synchronized (listener) {
+			Assert.assertFalse("stall not reported", listener.stalls.isEmpty());
+			Assert.assertTrue(listener.stalls.get(0)
+					.getTransferTelemetrySnapshot().isStalled());
+		}
+	}
+
+}
@@ -57,4 +57,17 @@ public class TransferStatusTest {
 				"xxx");
 	}
 
+	@Test
+	public void testInstanceForStall() throws Exception {
+		TransferTelemetry telemetry = new TransferTelemetry();
+		telemetry.recordBytes(1, 10L);
+		TransferStatus transferStatus = TransferStatus.instanceForStall(
+				TransferType.GET, 10L, 2L, telemetry.snapshot());
+		Assert.assertEquals(TransferState.STALLED,
+				transferStatus.getTransferState());
+		Assert.assertTrue(transferStatus.isIntraFileStatusReport());
+		Assert.assertEquals(10L, transferStatus
+				.getTransferTelemetrySnapshot().getBytesTransferred());
+	}
+
 }
@@ -0,0 +1,208 @@
+package org.irods.jargon.core.transfer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.junit.Test;
+
+public class TransferTelemetryTest {
+
+	private static final long START = TimeUnit.SECONDS.toNanos(100);
+	private static final long MEGABYTE = 1048576L;
+
+	private static long at(final long millis) {
+		return START + TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+
+	private static TransferTelemetry steadyTransfer(final int streamNumber,
+			final int seconds) {
+		TransferTelemetry telemetry = new TransferTelemetry(1000, 10000, 5000);
+		telemetry.recordBytes(streamNumber, 0, START);
+		for (int i = 1; i <= seconds; i++) {
+			telemetry.recordBytes(streamNumber, MEGABYTE, at(i * 1000));
+		}
+		return telemetry;
+	}
+
+	@Test
+	public void testSnapshotNothingRecorded() throws Exception {
+		TransferTelemetry telemetry = new TransferTelemetry();
+		TransferTelemetrySnapshot snapshot = telemetry.snapshot();
+		Assert.assertEquals(0L, snapshot.getBytesTransferred());
+		Assert.assertEquals(-1L, snapshot.getEstimatedMillisRemaining());
+		Assert.assertTrue(snapshot.getStreams().isEmpty());
+		Assert.assertFalse(snapshot.isStalled());
+	}
+
+	@Test
+	public void testRateBeforeFirstSample() throws Exception {
+		TransferTelemetry telemetry = new TransferTelemetry(1000, 10000, 5000);
+		telemetry.recordBytes(TransferTelemetry.MAIN_STREAM, 1000, START);
+		TransferTelemetrySnapshot snapshot = telemetry.snapshot(at(500));
+		Assert.assertEquals(2000D, snapshot.getBytesPerSecond(), 0.001);
+		Assert.assertEquals(500L, snapshot.getElapsedMillis());
+	}
+
+	@Test
+	public void testSteadyRate() throws Exception {
+		TransferTelemetry telemetry = steadyTransfer(1, 10);
+		TransferTelemetrySnapshot snapshot = telemetry.snapshot(at(10000));
+		Assert.assertEquals(10 * MEGABYTE, snapshot.getBytesTransferred());
+		Assert.assertEquals((double) MEGABYTE, snapshot.getBytesPerSecond(),
+				0.001);
+		Assert.assertEquals(1, snapshot.getStreams().size());
+		StreamTelemetry stream = snapshot.getStreams().get(0);
+		Assert.assertEquals(1, stream.getStreamNumber());
+		Assert.assertEquals((double) MEGABYTE, stream.getBytesPerSecond(),
+				0.001);
+	}
+
+	@Test
+	public void testRateDecaysWhenIdle() throws Exception {
+		TransferTelemetry telemetry = steadyTransfer(1, 5);
+		TransferTelemetrySnapshot snapshot = telemetry.snapshot(at(15000));
+		Assert.assertEquals(MEGABYTE * Math.exp(-1),
+				snapshot.getBytesPerSecond(), 0.001);
+	}
+
+	@Test
+	public void testEstimatedTimeRemaining() throws Exception {
+		TransferTelemetry telemetry = steadyTransfer(1, 5);
+		telemetry.setExpectedBytes(10 * MEGABYTE);
+		TransferTelemetrySnapshot snapshot = telemetry.snapshot(at(5000));
+		Assert.assertEquals(5000L, snapshot.getEstimatedMillisRemaining());
+	}
+
+	@Test
+	public void testEstimatedTimeRemainingUnknownSize() throws Exception {
+		TransferTelemetry telemetry = steadyTransfer(1, 5);
+		TransferTelemetrySnapshot snapshot = telemetry.snapshot(at(5000));
+		Assert.assertEquals(-1L, snapshot.getEstimatedMillisRemaining());
+	}
+
+	@Test
+	public void testStalledStream() throws Exception {
+		TransferTelemetry telemetry = new TransferTelemetry(1000, 10000, 5000);
+		telemetry.recordBytes(1, 100, START);
+		telemetry.recordBytes(2, 100, START);
+		for (int i = 1; i <= 6; i++) {
+			telemetry.recordBytes(1, 100, at(i * 1000));
+		}
+
+		TransferTelemetrySnapshot snapshot = telemetry.snapshot(at(6000));
+		Assert.assertTrue(snapshot.isStalled());
+		List<StreamTelemetry> stalled = snapshot.getStalledStreams();
+		Assert.assertEquals(1, stalled.size());
+		Assert.assertEquals(2, stalled.get(0).getStreamNumber());
+		Assert.assertEquals(6000L, stalled.get(0).getMillisSinceLastProgress());
+		Assert.assertEquals(800L, snapshot.getBytesTransferred());
+	}
+
+	@Test
+	public void testFinishedStreamIsNotStalled() throws Exception {
+		TransferTelemetry telemetry = new TransferTelemetry(1000, 10000, 5000);
+		telemetry.recordBytes(1, 100, START);
+		telemetry.streamFinished(1);
+		TransferTelemetrySnapshot snapshot = telemetry.snapshot(at(60000));
+		Assert.assertFalse(snapshot.isStalled());
+		Assert.assertFalse(snapshot.getStreams().get(0).isActive());
+
+		telemetry.recordBytes(1, 100, at(60000));
+		snapshot = telemetry.snapshot(at(70000));
+		Assert.assertTrue(snapshot.isStalled());
+	}
+
+	@Test
+	public void testReset() throws Exception {
+		TransferTelemetry telemetry = steadyTransfer(1, 5);
+		telemetry.setExpectedBytes(100L);
+		telemetry.reset();
+		TransferTelemetrySnapshot snapshot = telemetry.snapshot();
+		Assert.assertEquals(0L, snapshot.getBytesTransferred());
+		Assert.assertEquals(0L, snapshot.getExpectedBytes());
+		Assert.assertTrue(snapshot.getStreams().isEmpty());
+	}
+
+	private static class RecordingStallListener implements
+			TransferTelemetry.StallListener {
+		private final List<TransferTelemetrySnapshot> snapshots = new ArrayList<TransferTelemetrySnapshot>();
+		private final CountDownLatch stalled = new CountDownLatch(1);
+
+		@Override
+		public synchronized void streamsStalled(
+				final TransferTelemetrySnapshot snapshot) {
+			snapshots.add(snapshot);
+			stalled.countDown();
+		}
+	}
+
+	@Test
+	public void testCheckForStallsTellsListenerOnChange() throws Exception {
+		// a long sample interval keeps the stall watch out of the way
+		TransferTelemetry telemetry = new TransferTelemetry(60000, 10000, 5000);
+		RecordingStallListener listener = new RecordingStallListener();
+		telemetry.setStallListener(listener);
+		telemetry.recordBytes(1, 100, START);
+		telemetry.recordBytes(2, 100, START);
+
+		telemetry.checkForStalls(at(1000));
+		Assert.assertTrue(listener.snapshots.isEmpty());
+
+		telemetry.checkForStalls(at(6000));
+		Assert.assertEquals(1, listener.snapshots.size());
+		Assert.assertEquals(2, listener.snapshots.get(0).getStalledStreams()
+				.size());
+
+		telemetry.checkForStalls(at(7000));
+		Assert.assertEquals("no change, no call", 1, listener.snapshots.size());
+
+		telemetry.recordBytes(1, 100, at(7000));
+		telemetry.recordBytes(2, 100, at(7000));
+		telemetry.checkForStalls(at(8000));
+		telemetry.recordBytes(2, 100, at(12000));
+		telemetry.checkForStalls(at(12500));
+		Assert.assertEquals(2, listener.snapshots.size());
+		List<StreamTelemetry> stalled = listener.snapshots.get(1)
+				.getStalledStreams();
+		Assert.assertEquals(1, stalled.size());
+		Assert.assertEquals(1, stalled.get(0).getStreamNumber());
+		telemetry.reset();
+	}
+
+	@Test
+	public void testStallWatchFindsStallWithoutBytes() throws Exception {
+		TransferTelemetry telemetry = new TransferTelemetry(20, 1000, 100);
+		RecordingStallListener listener = new RecordingStallListener();
+		telemetry.setStallListener(listener);
+		telemetry.recordBytes(TransferTelemetry.MAIN_STREAM, 100);
+		Assert.assertTrue("stall not found by the watch",
+				listener.stalled.await(10, TimeUnit.SECONDS));
+		telemetry.streamFinished(TransferTelemetry.MAIN_STREAM);
+	}
+
+	@Test
+	public void testSetStallThreshold() throws Exception {
+		TransferTelemetry telemetry = new TransferTelemetry(1000, 10000, 5000);
+		telemetry.setStallThresholdMillis(20000);
+		Assert.assertEquals(20000L, telemetry.getStallThresholdMillis());
+		telemetry.recordBytes(1, 100, START);
+		Assert.assertFalse(telemetry.snapshot(at(10000)).isStalled());
+		Assert.assertTrue(telemetry.snapshot(at(20000)).isStalled());
+	}
+
+	@Test
+	public void testForTransferControlBlockNull() throws Exception {
+		Assert.assertNull(TransferTelemetry.forTransferControlBlock(null));
+		Assert.assertNull(TransferTelemetry.snapshotOf(null));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testZeroStallThreshold() throws Exception {
+		new TransferTelemetry(1000, 10000, 0);
+	}
+
+}
@@ -1,6 +1,10 @@
 package org.irods.jargon.core.unittest;
 
 import org.irods.jargon.core.pub.BulkFileOperationsAOImplTest;
+import org.irods.jargon.core.pub.BulkAVUPipelineTest;
+import org.irods.jargon.core.pub.BulkObjStatUtilsTest;
+import org.irods.jargon.core.pub.CachingIRODSGenQueryExecutorImplTest;
+import org.irods.jargon.core.pub.ChecksumDuringTransferTest;
 import org.irods.jargon.core.pub.CollectionAOImplForSoftLinkTest;
 import org.irods.jargon.core.pub.CollectionAOImplTest;
 import org.irods.jargon.core.pub.CollectionAndDataObjectListAndSearchAOImplForSoftLinksTest;
@@ -20,6 +24,7 @@ import org.irods.jargon.core.pub.FederatedDataTransferOperationsImplTest;
 import org.irods.jargon.core.pub.FederatedIRODSGenQueryExecutorImplTest;
 import org.irods.jargon.core.pub.FederatedSpecificQueryAOTest;
 import org.irods.jargon.core.pub.FederatedUserAOTest;
+import org.irods.jargon.core.pub.FileDeleteInBatchTest;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactoryImplTest;
 import org.irods.jargon.core.pub.IRODSFileSystemSingletonWrapperTest;
 import org.irods.jargon.core.pub.IRODSFileSystemTest;
@@ -82,7 +87,10 @@ import org.junit.runners.Suite;
 		MountedFilesystemsDataTransferOperationsImplTest.class,
 		MountedFilesystemCollectionAOImplTest.class,
 		IRODSFileSystemSingletonWrapperTest.class, ResourceAOHelperTest.class,
-		DataObjectChecksumUtilitiesAOImplTest.class })
+		DataObjectChecksumUtilitiesAOImplTest.class,
+		BulkObjStatUtilsTest.class, BulkAVUPipelineTest.class,
+		ChecksumDuringTransferTest.class, FileDeleteInBatchTest.class,
+		CachingIRODSGenQueryExecutorImplTest.class })
 /**
  * Suite to run Access Object tests in org.irods.jargon.pub.*
  * <p/>
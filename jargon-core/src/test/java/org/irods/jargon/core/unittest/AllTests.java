@@ -5,10 +5,12 @@ import org.irods.jargon.core.query.IRODSGenQueryTranslatorTest;
 import org.irods.jargon.core.query.TranslatedIRODSQueryTest;
 import org.irods.jargon.core.remoteexecute.RemoteExecuteServiceImplTest;
 import org.irods.jargon.core.security.IRODSPasswordUtilitiesTest;
+import org.irods.jargon.core.utils.GenQueryPagingUtilsTest;
 import org.irods.jargon.core.utils.IRODSUriUtilsTest;
 import org.irods.jargon.core.utils.IRODSUriUserInfoTest;
 import org.irods.jargon.core.utils.LocalFileUtilsTest;
 import org.irods.jargon.core.utils.MiscIRODSUtilsTest;
+import org.irods.jargon.core.utils.SessionClosingThreadFactoryTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
@@ -20,7 +22,8 @@ import org.junit.runners.Suite;
 		LocalFileUtilsTest.class, RemoteExecuteServiceImplTest.class,
 		IRODSPasswordUtilitiesTest.class, IRODSUriUtilsTest.class,
 		IRODSUriUserInfoTest.class, MiscIRODSUtilsTest.class,
-		AuthTests.class, ChecksumTests.class, TransferRestartTests.class })
+		AuthTests.class, ChecksumTests.class, TransferRestartTests.class,
+		GenQueryPagingUtilsTest.class, SessionClosingThreadFactoryTest.class })
 /**
  * Suite to run all tests (except long running and functional), further refined by settings in testing.properites.  Some subtests may be shut
  * off by these properties.
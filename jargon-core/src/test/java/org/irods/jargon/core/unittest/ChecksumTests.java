@@ -1,9 +1,12 @@
 package org.irods.jargon.core.unittest;
 
 import org.irods.jargon.core.checksum.ChecksumManagerImplTest;
+import org.irods.jargon.core.checksum.FileChannelDigesterTest;
 import org.irods.jargon.core.checksum.LocalChecksumComputerFactoryImplTest;
 import org.irods.jargon.core.checksum.MD5LocalChecksumComputerStrategyTest;
+import org.irods.jargon.core.checksum.ParallelLocalChecksumComputerTest;
 import org.irods.jargon.core.checksum.SHA256LocalChecksumComputerStrategyTest;
+import org.irods.jargon.core.checksum.StreamingChecksumDigesterTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
@@ -17,7 +20,9 @@ import org.junit.runners.Suite;
 @Suite.SuiteClasses({ MD5LocalChecksumComputerStrategyTest.class,
 		SHA256LocalChecksumComputerStrategyTest.class,
 		LocalChecksumComputerFactoryImplTest.class,
-		ChecksumManagerImplTest.class })
+		ChecksumManagerImplTest.class, FileChannelDigesterTest.class,
+		ParallelLocalChecksumComputerTest.class,
+		StreamingChecksumDigesterTest.class })
 public class ChecksumTests {
 
 }
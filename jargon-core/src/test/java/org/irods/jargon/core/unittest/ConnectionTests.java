@@ -10,6 +10,9 @@ import org.irods.jargon.core.connection.IRODSSessionTest;
 import org.irods.jargon.core.connection.IRODSSimpleConnectionTest;
 import org.irods.jargon.core.connection.IRODSSimpleProtocolManagerTest;
 import org.irods.jargon.core.connection.PAMAuthTest;
+import org.irods.jargon.core.metrics.AbstractMeterRegistryJargonMetricsTest;
+import org.irods.jargon.core.metrics.LatencyHistogramTest;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
@@ -20,7 +23,10 @@ import org.junit.runners.Suite;
 		IRODSServerPropertiesTest.class,
 		DefaultPropertiesJargonConfigTest.class,
 		ConnectionProgressStatusTest.class, PAMAuthTest.class,
-		DiscoveredServerPropertiesCacheTest.class, IRODSAccountTest.class })
+		DiscoveredServerPropertiesCacheTest.class, IRODSAccountTest.class,
+		LatencyHistogramTest.class,
+		AbstractMeterRegistryJargonMetricsTest.class,
+		EmbeddedIRODSServerTest.class })
 public class ConnectionTests {
 
 }
@@ -1,13 +1,16 @@
 package org.irods.jargon.core.unittest;
 
 import org.irods.jargon.core.transfer.DefaultTransferControlBlockTest;
+import org.irods.jargon.core.transfer.TransferStallDetectionTest;
 import org.irods.jargon.core.transfer.TransferStatusTest;
+import org.irods.jargon.core.transfer.TransferTelemetryTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({ TransferStatusTest.class,
-		DefaultTransferControlBlockTest.class })
+		DefaultTransferControlBlockTest.class, TransferTelemetryTest.class,
+		TransferStallDetectionTest.class })
 public class TransferTests {
 
 }
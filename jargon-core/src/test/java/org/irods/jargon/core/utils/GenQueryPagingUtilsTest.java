@@ -0,0 +1,94 @@
+package org.irods.jargon.core.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.SettableJargonProperties;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.query.GenQueryOrderByField.OrderByType;
+import org.irods.jargon.core.query.IRODSGenQueryBuilder;
+import org.irods.jargon.core.query.IRODSQueryResultRow;
+import org.irods.jargon.core.query.QueryConditionOperators;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServer;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class GenQueryPagingUtilsTest {
+
+	private static final String USER = "test1";
+
+	@Rule
+	public EmbeddedIRODSServerRule serverRule = new EmbeddedIRODSServerRule();
+
+	private EmbeddedIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSAccount irodsAccount;
+
+	@Before
+	public void setUp() throws Exception {
+		server = serverRule.getServer();
+		irodsFileSystem = serverRule.getIrodsFileSystem();
+		irodsAccount = serverRule.getIrodsAccount();
+		SettableJargonProperties jargonProperties = new SettableJargonProperties(
+				irodsFileSystem.getJargonProperties());
+		jargonProperties.setMaxFilesAndDirsQueryMax(5);
+		irodsFileSystem.getIrodsSession().setJargonProperties(jargonProperties);
+		String home = server.getHomeDirectory(USER);
+		for (int i = 0; i < 12; i++) {
+			server.getCatalog().putDataObject(home + "/file" + (100 + i),
+					new byte[i]);
+		}
+	}
+
+	private IRODSGenQueryBuilder buildQuery() throws Exception {
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_DATA_NAME)
+				.addConditionAsGenQueryField(RodsGenQueryEnum.COL_COLL_NAME,
+						QueryConditionOperators.EQUAL,
+						server.getHomeDirectory(USER))
+				.addOrderByGenQueryField(RodsGenQueryEnum.COL_DATA_NAME,
+						OrderByType.ASC);
+		return builder;
+	}
+
+	@Test
+	public void testQueryAllRowsReadsEveryPage() throws Exception {
+		List<IRODSQueryResultRow> rows = GenQueryPagingUtils.queryAllRows(
+				irodsFileSystem.getIRODSAccessObjectFactory(), irodsAccount,
+				buildQuery(), null);
+		Assert.assertEquals(12, rows.size());
+		Assert.assertEquals("file100", rows.get(0).getColumn(0));
+		Assert.assertEquals("file111", rows.get(11).getColumn(0));
+	}
+
+	@Test
+	public void testQueryAllPagesGivesEachPage() throws Exception {
+		final List<Integer> pageSizes = new ArrayList<Integer>();
+		GenQueryPagingUtils.queryAllPages(
+				irodsFileSystem.getIRODSAccessObjectFactory(), irodsAccount,
+				buildQuery(), server.getZone(),
+				new GenQueryPagingUtils.PageHandler() {
+					@Override
+					public void handlePage(final List<IRODSQueryResultRow> rows) {
+						pageSizes.add(rows.size());
+					}
+				});
+		Assert.assertEquals(3, pageSizes.size());
+		Assert.assertEquals(5, pageSizes.get(0).intValue());
+		Assert.assertEquals(2, pageSizes.get(2).intValue());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testQueryAllPagesNullHandler() throws Exception {
+		GenQueryPagingUtils.queryAllPages(
+				irodsFileSystem.getIRODSAccessObjectFactory(), irodsAccount,
+				buildQuery(), null, null);
+	}
+
+}
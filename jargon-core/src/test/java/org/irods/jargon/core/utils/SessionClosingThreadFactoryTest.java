@@ -0,0 +1,116 @@
+package org.irods.jargon.core.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServer;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class SessionClosingThreadFactoryTest {
+
+	private static final String USER = "test1";
+
+	@Rule
+	public EmbeddedIRODSServerRule serverRule = new EmbeddedIRODSServerRule();
+
+	private EmbeddedIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSAccount irodsAccount;
+
+	@Before
+	public void setUp() throws Exception {
+		server = serverRule.getServer();
+		irodsFileSystem = serverRule.getIrodsFileSystem();
+		irodsAccount = serverRule.getIrodsAccount();
+	}
+
+	private void statHome() throws JargonException {
+		irodsFileSystem.getIRODSAccessObjectFactory()
+				.getCollectionAndDataObjectListAndSearchAO(irodsAccount)
+				.retrieveObjectStatForPath(server.getHomeDirectory(USER));
+	}
+
+	private void awaitNoOpenConnections() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (server.getOpenConnectionCount() > 0
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		Assert.assertEquals(0, server.getOpenConnectionCount());
+	}
+
+	@Test
+	public void testWorkersCloseConnectionsOnExit() throws Exception {
+		ExecutorService executorService = Executors.newFixedThreadPool(2,
+				new SessionClosingThreadFactory(irodsFileSystem
+						.getIRODSAccessObjectFactory(), irodsAccount,
+						"closing-test"));
+		List<Future<String>> futures = new ArrayList<Future<String>>();
+		for (int i = 0; i < 4; i++) {
+			futures.add(executorService.submit(new Callable<String>() {
+				@Override
+				public String call() throws JargonException {
+					statHome();
+					return Thread.currentThread().getName();
+				}
+			}));
+		}
+		for (Future<String> future : futures) {
+			Assert.assertTrue(future.get().startsWith("closing-test-"));
+		}
+		Assert.assertTrue(server.getOpenConnectionCount() > 0);
+
+		executorService.shutdown();
+		Assert.assertTrue(executorService.awaitTermination(10,
+				TimeUnit.SECONDS));
+		awaitNoOpenConnections();
+	}
+
+	@Test
+	public void testForkJoinWorkersCloseConnectionsOnExit() throws Exception {
+		ForkJoinPool pool = new ForkJoinPool(2,
+				new SessionClosingThreadFactory(irodsFileSystem
+						.getIrodsSession(), irodsAccount, "closing-test"),
+				null, false);
+		pool.invoke(new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void compute() {
+				try {
+					statHome();
+				} catch (JargonException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		});
+		Assert.assertTrue(server.getOpenConnectionCount() > 0);
+
+		pool.shutdown();
+		Assert.assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+		awaitNoOpenConnections();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullAccessObjectFactory() throws Exception {
+		new SessionClosingThreadFactory((IRODSAccessObjectFactory) null,
+				irodsAccount, "closing-test");
+	}
+
+}
@@ -0,0 +1,466 @@
+package org.irods.jargon.testutils.server;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.AuthenticationException;
+import org.irods.jargon.core.exception.CatalogSQLException;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.DataObjInp;
+import org.irods.jargon.core.packinstr.DataObjInpForObjStat;
+import org.irods.jargon.core.packinstr.GenQueryInp;
+import org.irods.jargon.core.protovalues.ErrorEnum;
+import org.irods.jargon.core.protovalues.FilePermissionEnum;
+import org.irods.jargon.core.pub.DataTransferOperations;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.pub.IRODSGenQueryExecutor;
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.irods.jargon.core.pub.domain.UserFilePermission;
+import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
+import org.irods.jargon.core.query.GenQueryOrderByField.OrderByType;
+import org.irods.jargon.core.query.IRODSGenQueryBuilder;
+import org.irods.jargon.core.query.IRODSQueryResultSet;
+import org.irods.jargon.core.query.QueryConditionOperators;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EmbeddedIRODSServerTest {
+
+	private static final String USER = "test1";
+	private static final String PASSWORD = "test";
+
+	private EmbeddedIRODSServerConfiguration configuration;
+	private EmbeddedIRODSServer server = null;
+	private IRODSFileSystem irodsFileSystem = null;
+
+	@Before
+	public void setUp() throws Exception {
+		configuration = new EmbeddedIRODSServerConfiguration();
+		configuration.addUser(USER, PASSWORD);
+		irodsFileSystem = IRODSFileSystem.instance();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		irodsFileSystem.closeAndEatExceptions();
+		if (server != null) {
+			server.stop();
+		}
+	}
+
+	private IRODSAccount startServer() throws Exception {
+		server = new EmbeddedIRODSServer(configuration);
+		server.start();
+		return server.createIRODSAccount(USER);
+	}
+
+	private IRODSAccessObjectFactory accessObjectFactory()
+			throws JargonException {
+		return irodsFileSystem.getIRODSAccessObjectFactory();
+	}
+
+	private static File localFile(final byte[] content) throws IOException {
+		File file = File.createTempFile("embedded-irods", ".dat");
+		file.deleteOnExit();
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content);
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	private static byte[] randomBytes(final int length) {
+		byte[] bytes = new byte[length];
+		new Random(length).nextBytes(bytes);
+		return bytes;
+	}
+
+	private static byte[] readLocalFile(final File file) throws IOException {
+		java.io.DataInputStream in = new java.io.DataInputStream(
+				new java.io.FileInputStream(file));
+		try {
+			byte[] bytes = new byte[(int) file.length()];
+			in.readFully(bytes);
+			return bytes;
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void testStartCreatesHomeCollections() throws Exception {
+		IRODSAccount irodsAccount = startServer();
+		Assert.assertEquals(server.getPort(), irodsAccount.getPort());
+		Assert.assertEquals("/tempZone/home/test1",
+				irodsAccount.getHomeDirectory());
+		Assert.assertTrue(server.getCatalog().isCollection(
+				"/tempZone/home/test1"));
+		Assert.assertTrue(server.getCatalog().isCollection("/tempZone/trash"));
+	}
+
+	@Test
+	public void testServerProperties() throws Exception {
+		configuration.setRelVersion("rods3.3.1");
+		IRODSAccount irodsAccount = startServer();
+		Assert.assertEquals("rods3.3.1", accessObjectFactory()
+				.getIRODSServerProperties(irodsAccount).getRelVersion());
+		Assert.assertEquals(1, server.getConnectionCount());
+	}
+
+	@Test(expected = AuthenticationException.class)
+	public void testWrongPassword() throws Exception {
+		startServer();
+		IRODSAccount irodsAccount = IRODSAccount.instance(server.getHost(),
+				server.getPort(), USER, "wrong", server.getHomeDirectory(USER),
+				server.getZone(), "");
+		accessObjectFactory().getIRODSServerProperties(irodsAccount);
+	}
+
+	@Test
+	public void testPutAndGetSmallFile() throws Exception {
+		IRODSAccount irodsAccount = startServer();
+		byte[] content = randomBytes(10000);
+		String targetPath = server.getHomeDirectory(USER) + "/small.dat";
+		IRODSFile target = accessObjectFactory().getIRODSFileFactory(
+				irodsAccount).instanceIRODSFile(targetPath);
+
+		DataTransferOperations dataTransferOperations = accessObjectFactory()
+				.getDataTransferOperations(irodsAccount);
+		dataTransferOperations.putOperation(localFile(content), target, null,
+				null);
+		Assert.assertTrue(Arrays.equals(content, server.getCatalog()
+				.getDataObjectContent(targetPath)));
+
+		File returned = new File(localFile(new byte[0]).getParentFile(),
+				"embedded-irods-returned-" + System.nanoTime());
+		returned.deleteOnExit();
+		dataTransferOperations.getOperation(target, returned, null, null);
+		Assert.assertTrue(Arrays.equals(content, readLocalFile(returned)));
+	}
+
+	@Test
+	public void testObjStat() throws Exception {
+		IRODSAccount irodsAccount = startServer();
+		String path = server.getHomeDirectory(USER) + "/stat.dat";
+		server.getCatalog().putDataObject(path, new byte[123]);
+
+		ObjStat objStat = accessObjectFactory()
+				.getCollectionAndDataObjectListAndSearchAO(irodsAccount)
+				.retrieveObjectStatForPath(path);
+		Assert.assertEquals(123L, objStat.getObjSize());
+		Assert.assertTrue(objStat.isSomeTypeOfCollection() == false);
+		Assert.assertEquals(USER, objStat.getOwnerName());
+
+		IRODSFile missing = accessObjectFactory().getIRODSFileFactory(
+				irodsAccount).instanceIRODSFile(path + "-missing");
+		Assert.assertFalse(missing.exists());
+	}
+
+	@Test
+	public void testListCollection() throws Exception {
+		IRODSAccount irodsAccount = startServer();
+		String home = server.getHomeDirectory(USER);
+		server.getCatalog().createCollection(home + "/subcollection");
+		server.getCatalog().putDataObject(home + "/b.dat", new byte[2]);
+		server.getCatalog().putDataObject(home + "/a.dat", new byte[1]);
+		server.getCatalog().putDataObject(home + "/subcollection/c.dat",
+				new byte[3]);
+
+		List<CollectionAndDataObjectListingEntry> entries = accessObjectFactory()
+				.getCollectionAndDataObjectListAndSearchAO(irodsAccount)
+				.listDataObjectsAndCollectionsUnderPath(home);
+		Assert.assertEquals(3, entries.size());
+		Assert.assertEquals(home + "/subcollection", entries.get(0)
+				.getPathOrName());
+		Assert.assertEquals("a.dat", entries.get(1).getPathOrName());
+		Assert.assertEquals(1L, entries.get(1).getDataSize());
+		Assert.assertEquals("b.dat", entries.get(2).getPathOrName());
+	}
+
+	@Test
+	public void testQueryPagingOrderingAndAggregates() throws Exception {
+		IRODSAccount irodsAccount = startServer();
+		String home = server.getHomeDirectory(USER);
+		for (int i = 0; i < 12; i++) {
+			server.getCatalog().putDataObject(home + "/file" + (100 + i),
+					new byte[i]);
+		}
+
+		IRODSGenQueryExecutor executor = accessObjectFactory()
+				.getIRODSGenQueryExecutor(irodsAccount);
+
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_DATA_NAME)
+				.addConditionAsGenQueryField(RodsGenQueryEnum.COL_COLL_NAME,
+						QueryConditionOperators.EQUAL, home)
+				.addConditionAsGenQueryField(RodsGenQueryEnum.COL_DATA_NAME,
+						QueryConditionOperators.LIKE, "file1%")
+				.addOrderByGenQueryField(RodsGenQueryEnum.COL_DATA_NAME,
+						OrderByType.DESC);
+		IRODSQueryResultSet resultSet = executor.executeIRODSQuery(
+				builder.exportIRODSQueryFromBuilder(5), 0);
+		Assert.assertEquals(5, resultSet.getResults().size());
+		Assert.assertTrue(resultSet.isHasMoreRecords());
+		Assert.assertEquals("file111", resultSet.getFirstResult()
+				.getColumn(0));
+
+		resultSet = executor.getMoreResults(resultSet);
+		resultSet = executor.getMoreResults(resultSet);
+		Assert.assertEquals(2, resultSet.getResults().size());
+		Assert.assertFalse(resultSet.isHasMoreRecords());
+		Assert.assertEquals("file100", resultSet.getResults().get(1)
+				.getColumn(0));
+
+		builder = new IRODSGenQueryBuilder(true, null);
+		builder.addSelectAsAgregateGenQueryValue(
+				RodsGenQueryEnum.COL_DATA_SIZE,
+				org.irods.jargon.core.query.GenQueryField.SelectFieldTypes.SUM)
+				.addConditionAsGenQueryField(RodsGenQueryEnum.COL_DATA_SIZE,
+						QueryConditionOperators.GREATER_THAN, 5);
+		resultSet = executor.executeIRODSQueryAndCloseResult(
+				builder.exportIRODSQueryFromBuilder(10), 0);
+		Assert.assertEquals("51", resultSet.getFirstResult().getColumn(0));
+	}
+
+	@Test
+	public void testStreamWriteAndRead() throws Exception {
+		IRODSAccount irodsAccount = startServer();
+		String path = server.getHomeDirectory(USER) + "/streamed.dat";
+		byte[] content = randomBytes(200000);
+
+		org.irods.jargon.core.pub.io.IRODSFileOutputStream out = accessObjectFactory()
+				.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFileOutputStream(path);
+		out.write(content);
+		out.close();
+		Assert.assertTrue(Arrays.equals(content, server.getCatalog()
+				.getDataObjectContent(path)));
+
+		org.irods.jargon.core.pub.io.IRODSFileInputStream in = accessObjectFactory()
+				.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFileInputStream(path);
+		byte[] read = new byte[content.length];
+		int total = 0;
+		int count;
+		while (total < read.length
+				&& (count = in.read(read, total, read.length - total)) > 0) {
+			total += count;
+		}
+		in.close();
+		Assert.assertEquals(content.length, total);
+		Assert.assertTrue(Arrays.equals(content, read));
+	}
+
+	@Test
+	public void testMkdirsAndDelete() throws Exception {
+		IRODSAccount irodsAccount = startServer();
+		String path = server.getHomeDirectory(USER) + "/a/b/c";
+		IRODSFile collection = accessObjectFactory().getIRODSFileFactory(
+				irodsAccount).instanceIRODSFile(path);
+		Assert.assertTrue(collection.mkdirs());
+		Assert.assertTrue(server.getCatalog().isCollection(path));
+
+		server.getCatalog().putDataObject(path + "/data.dat", new byte[1]);
+		IRODSFile top = accessObjectFactory().getIRODSFileFactory(
+				irodsAccount).instanceIRODSFile(
+				server.getHomeDirectory(USER) + "/a");
+		Assert.assertTrue(top.deleteWithForceOption());
+		Assert.assertFalse(server.getCatalog().exists(path + "/data.dat"));
+	}
+
+	@Test
+	public void testParallelGet() throws Exception {
+		configuration.setSingleBufferSize(1024 * 1024);
+		configuration.setMaxParallelThreads(3);
+		IRODSAccount irodsAccount = startServer();
+		byte[] content = randomBytes(3 * 1024 * 1024 + 17);
+		String path = server.getHomeDirectory(USER) + "/parallel.dat";
+		server.getCatalog().putDataObject(path, content);
+
+		File returned = new File(localFile(new byte[0]).getParentFile(),
+				"embedded-irods-parallel-" + System.nanoTime());
+		returned.deleteOnExit();
+		accessObjectFactory().getDataTransferOperations(irodsAccount)
+				.getOperation(
+						accessObjectFactory().getIRODSFileFactory(
+								irodsAccount).instanceIRODSFile(path),
+						returned, null, null);
+		Assert.assertTrue(Arrays.equals(content, readLocalFile(returned)));
+	}
+
+	@Test
+	public void testParallelPut() throws Exception {
+		IRODSAccount irodsAccount = startServer();
+		// the client sends files above 32MB over parallel streams
+		byte[] content = randomBytes(33 * 1024 * 1024);
+		String path = server.getHomeDirectory(USER) + "/parallel-put.dat";
+
+		accessObjectFactory().getDataTransferOperations(irodsAccount)
+				.putOperation(
+						localFile(content),
+						accessObjectFactory().getIRODSFileFactory(
+								irodsAccount).instanceIRODSFile(path), null,
+						null);
+		Assert.assertTrue(Arrays.equals(content, server.getCatalog()
+				.getDataObjectContent(path)));
+		Assert.assertEquals(1L,
+				server.getApiCallCount(DataObjInp.PUT_FILE_API_NBR));
+	}
+
+	@Test(expected = CatalogSQLException.class)
+	public void testInjectedError() throws Exception {
+		IRODSAccount irodsAccount = startServer();
+		server.getFaultInjector().failApi(GenQueryInp.API_NBR,
+				ErrorEnum.CAT_SQL_ERR.getInt(), 1);
+		accessObjectFactory().getCollectionAndDataObjectListAndSearchAO(
+				irodsAccount).listDataObjectsAndCollectionsUnderPath(
+				server.getHomeDirectory(USER));
+	}
+
+	@Test
+	public void testInjectedDropIsOneShot() throws Exception {
+		IRODSAccount irodsAccount = startServer();
+		String path = server.getHomeDirectory(USER);
+		server.getFaultInjector().dropConnectionOnApi(
+				DataObjInpForObjStat.OBJ_STAT_API_NBR, 1);
+		try {
+			accessObjectFactory().getCollectionAndDataObjectListAndSearchAO(
+					irodsAccount).retrieveObjectStatForPath(path);
+			Assert.fail("dropped connection should fail the call");
+		} catch (JargonException e) {
+			// expected
+		}
+
+		irodsFileSystem.closeAndEatExceptions();
+		irodsFileSystem = IRODSFileSystem.instance();
+		ObjStat objStat = accessObjectFactory()
+				.getCollectionAndDataObjectListAndSearchAO(irodsAccount)
+				.retrieveObjectStatForPath(path);
+		Assert.assertTrue(objStat.isSomeTypeOfCollection());
+	}
+
+	@Test
+	public void testApiLatency() throws Exception {
+		configuration.setApiLatencyMillis(
+				DataObjInpForObjStat.OBJ_STAT_API_NBR, 200);
+		IRODSAccount irodsAccount = startServer();
+		// connect first, so only the call itself is timed
+		accessObjectFactory().getIRODSServerProperties(irodsAccount);
+
+		long start = System.currentTimeMillis();
+		accessObjectFactory().getCollectionAndDataObjectListAndSearchAO(
+				irodsAccount).retrieveObjectStatForPath(
+				server.getHomeDirectory(USER));
+		Assert.assertTrue(System.currentTimeMillis() - start >= 200);
+	}
+
+	@Test
+	public void testBandwidthCap() throws Exception {
+		configuration.setBandwidthBytesPerSecond(1024 * 1024);
+		IRODSAccount irodsAccount = startServer();
+		String path = server.getHomeDirectory(USER) + "/capped.dat";
+		server.getCatalog().putDataObject(path, randomBytes(512 * 1024));
+		accessObjectFactory().getIRODSServerProperties(irodsAccount);
+
+		File returned = new File(localFile(new byte[0]).getParentFile(),
+				"embedded-irods-capped-" + System.nanoTime());
+		returned.deleteOnExit();
+		long start = System.currentTimeMillis();
+		accessObjectFactory().getDataTransferOperations(irodsAccount)
+				.getOperation(
+						accessObjectFactory().getIRODSFileFactory(
+								irodsAccount).instanceIRODSFile(path),
+						returned, null, null);
+		Assert.assertTrue(System.currentTimeMillis() - start >= 400);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testFailApiPositiveCode() throws Exception {
+		new FaultInjector().failApi(GenQueryInp.API_NBR, 1, 1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAddUserLongPassword() throws Exception {
+		char[] password = new char[60];
+		Arrays.fill(password, 'x');
+		configuration.addUser("user2", new String(password));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCatalogRelativePath() throws Exception {
+		new InMemoryCatalog(USER).createCollection("relative/path");
+	}
+
+	@Test
+	public void testCatalogRemoveSubtree() throws Exception {
+		InMemoryCatalog catalog = new InMemoryCatalog(USER);
+		catalog.putDataObject("/zone/a/b.dat", new byte[1]);
+		catalog.putDataObject("/zone/ab.dat", new byte[1]);
+		Assert.assertTrue(catalog.remove("/zone/a"));
+		Assert.assertFalse(catalog.exists("/zone/a/b.dat"));
+		Assert.assertTrue(catalog.exists("/zone/ab.dat"));
+		Assert.assertEquals(1, catalog.getDataObjectCount());
+	}
+
+	@Test
+	public void testCollectionAccessList() throws Exception {
+		configuration.addUser("user2", "test");
+		IRODSAccount irodsAccount = startServer();
+		String path = "/tempZone/home/test1/shared";
+		server.getCatalog().createCollection(path);
+		server.getCatalog().setAccessPermission(path, "user2",
+				FilePermissionEnum.READ);
+
+		List<UserFilePermission> userFilePermissions = accessObjectFactory()
+				.getCollectionAO(irodsAccount).listPermissionsForCollection(
+						path);
+		Assert.assertEquals(2, userFilePermissions.size());
+		Assert.assertEquals(FilePermissionEnum.OWN, userFilePermissions
+				.get(0).getFilePermissionEnum());
+		Assert.assertEquals("user2", userFilePermissions.get(1)
+				.getUserName());
+		Assert.assertEquals(FilePermissionEnum.READ, userFilePermissions
+				.get(1).getFilePermissionEnum());
+
+		server.getCatalog().setAccessPermission(path, "user2",
+				FilePermissionEnum.NONE);
+		Assert.assertEquals(1, server.getCatalog().getAccessPermissions(path)
+				.size());
+	}
+
+	@Test
+	public void testReplicaNumbers() throws Exception {
+		IRODSAccount irodsAccount = startServer();
+		String path = server.getHomeDirectory(USER) + "/replicas.dat";
+		server.getCatalog().putDataObject(path, new byte[3]);
+		server.getCatalog().setReplicaNumbers(path, 1, 2);
+
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_DATA_REPL_NUM)
+				.addConditionAsGenQueryField(RodsGenQueryEnum.COL_DATA_NAME,
+						QueryConditionOperators.EQUAL, "replicas.dat")
+				.addOrderByGenQueryField(RodsGenQueryEnum.COL_DATA_REPL_NUM,
+						OrderByType.ASC);
+		IRODSQueryResultSet resultSet = accessObjectFactory()
+				.getIRODSGenQueryExecutor(irodsAccount)
+				.executeIRODSQueryAndCloseResult(
+						builder.exportIRODSQueryFromBuilder(10), 0);
+		Assert.assertEquals(2, resultSet.getResults().size());
+		Assert.assertEquals("1", resultSet.getResults().get(0).getColumn(0));
+		Assert.assertEquals("2", resultSet.getResults().get(1).getColumn(0));
+	}
+
+}
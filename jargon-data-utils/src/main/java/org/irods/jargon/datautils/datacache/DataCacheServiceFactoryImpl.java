@@ -15,15 +15,34 @@ import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
 public class DataCacheServiceFactoryImpl implements DataCacheServiceFactory {
 
 	private final IRODSAccessObjectFactory irodsAccessObjectFactory;
+	private final OffHeapDataCache offHeapDataCache;
 
 	public DataCacheServiceFactoryImpl(
 			final IRODSAccessObjectFactory irodsAccessObjectFactory) {
+		this(irodsAccessObjectFactory, null);
+	}
+
+	/**
+	 * Constructor for a factory whose services share a local tier in front of
+	 * the iRODS cache files
+	 * 
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory} that can create necessary
+	 *            objects
+	 * @param offHeapDataCache
+	 *            {@link OffHeapDataCache} shared by the services created here,
+	 *            or <code>null</code> for no local tier
+	 */
+	public DataCacheServiceFactoryImpl(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final OffHeapDataCache offHeapDataCache) {
 		if (irodsAccessObjectFactory == null) {
 			throw new IllegalArgumentException(
 					"irodsAccessObjectFactory is null");
 		}
 
 		this.irodsAccessObjectFactory = irodsAccessObjectFactory;
+		this.offHeapDataCache = offHeapDataCache;
 
 	}
 
@@ -40,7 +59,10 @@ public class DataCacheServiceFactoryImpl implements DataCacheServiceFactory {
 		if (irodsAccount == null) {
 			throw new IllegalArgumentException("null irodsAccount");
 		}
-		return new DataCacheServiceImpl(irodsAccessObjectFactory, irodsAccount);
+		DataCacheServiceImpl dataCacheService = new DataCacheServiceImpl(
+				irodsAccessObjectFactory, irodsAccount);
+		dataCacheService.setOffHeapDataCache(offHeapDataCache);
+		return dataCacheService;
 	}
 
 }
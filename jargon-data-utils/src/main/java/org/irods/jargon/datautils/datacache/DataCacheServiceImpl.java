@@ -8,10 +8,12 @@ import java.io.ObjectInput;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
+import java.util.List;
 
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.IRODSFileSystemAO;
 import org.irods.jargon.core.pub.Stream2StreamAO;
 import org.irods.jargon.core.pub.io.IRODSFile;
 import org.irods.jargon.datautils.AbstractDataUtilsServiceImpl;
@@ -22,6 +24,12 @@ import org.slf4j.LoggerFactory;
  * Service to provide a secure data cache. This allows information to be
  * serialized by a key and stored as an iRODS file in an encrypted format, and
  * later retrieved.
+ * <p/>
+ * If an {@link OffHeapDataCache} is set, it is a local tier in front of the
+ * iRODS files. Values are written through to iRODS and held locally, and a
+ * retrieve that finds the value held locally does not go to iRODS. The cleanup
+ * done during requests then deletes the expired files recorded by the local
+ * tier in one batch, rather than listing the cache directory.
  * 
  * @author Mike Conway - DICE (www.irods.org)
  * 
@@ -38,6 +46,12 @@ public class DataCacheServiceImpl extends AbstractDataUtilsServiceImpl
 	 */
 	CacheServiceConfiguration cacheServiceConfiguration = new CacheServiceConfiguration();
 
+	/**
+	 * Optional local tier, which may be shared by the services of many
+	 * accounts, <code>null</code> if every request goes to iRODS
+	 */
+	private OffHeapDataCache offHeapDataCache = null;
+
 	public static final Logger log = LoggerFactory
 			.getLogger(DataCacheServiceImpl.class);
 
@@ -87,7 +101,7 @@ public class DataCacheServiceImpl extends AbstractDataUtilsServiceImpl
 		log.info("checking on purge of old requests...");
 
 		if (getCacheServiceConfiguration().isDoCleanupDuringRequests()) {
-			purgeOldRequests();
+			cleanupDuringRequest();
 		}
 
 		int keyHash = key.hashCode();
@@ -100,18 +114,7 @@ public class DataCacheServiceImpl extends AbstractDataUtilsServiceImpl
 		log.info("bytes now encrypted for length:{}", encrypted.length);
 		// store in file
 
-		String irodsFileAbsolutePath = buildIRODSFileAbsolutePath(keyHash,
-				irodsAccount.getUserName());
-		log.info("storing to file at absolute path: {}", irodsFileAbsolutePath);
-		IRODSFile cacheFile = getIrodsAccessObjectFactory()
-				.getIRODSFileFactory(irodsAccount).instanceIRODSFile(
-						irodsFileAbsolutePath);
-
-		createCacheFileAndCacheDir(cacheFile);
-		Stream2StreamAO stream2StreamAO = getIrodsAccessObjectFactory()
-				.getStream2StreamAO(irodsAccount);
-		stream2StreamAO.streamBytesToIRODSFile(encrypted, cacheFile);
-
+		String irodsFileAbsolutePath = storeEncryptedBytes(keyHash, encrypted);
 		log.info("done...");
 		return irodsFileAbsolutePath;
 
@@ -156,15 +159,7 @@ public class DataCacheServiceImpl extends AbstractDataUtilsServiceImpl
 		// build hash of key and look for file
 		int keyHash = key.hashCode();
 		log.info("generated hash for key:{}", keyHash);
-		String irodsFileAbsolutePath = buildIRODSFileAbsolutePath(keyHash,
-				irodsAccount.getUserName());
-		log.info("looking for cache file at path:{}", irodsFileAbsolutePath);
-		IRODSFile cacheFile = getIrodsAccessObjectFactory()
-				.getIRODSFileFactory(irodsAccount).instanceIRODSFile(
-						irodsFileAbsolutePath);
-		Stream2StreamAO stream2StreamAO = getIrodsAccessObjectFactory()
-				.getStream2StreamAO(irodsAccount);
-		byte[] fileBytes = stream2StreamAO.streamFileToByte(cacheFile);
+		byte[] fileBytes = retrieveEncryptedBytes(keyHash);
 		log.info("decrypting data based on provided key....");
 		CacheEncryptor cacheEncryptor = new CacheEncryptor(key);
 		fileBytes = cacheEncryptor.decrypt(fileBytes);
@@ -172,7 +167,7 @@ public class DataCacheServiceImpl extends AbstractDataUtilsServiceImpl
 		log.info("streamed file into bytes for length of: {}", fileBytes.length);
 		log.info("deserialzing...");
 		if (getCacheServiceConfiguration().isDoCleanupDuringRequests()) {
-			purgeOldRequests();
+			cleanupDuringRequest();
 		}
 		return new String(fileBytes);
 
@@ -206,7 +201,7 @@ public class DataCacheServiceImpl extends AbstractDataUtilsServiceImpl
 		log.info("checking on purge of old requests...");
 
 		if (getCacheServiceConfiguration().isDoCleanupDuringRequests()) {
-			purgeOldRequests();
+			cleanupDuringRequest();
 		}
 
 		int keyHash = key.hashCode();
@@ -225,18 +220,7 @@ public class DataCacheServiceImpl extends AbstractDataUtilsServiceImpl
 		log.info("bytes now encrypted for length:{}", encrypted.length);
 		// store in file
 
-		String irodsFileAbsolutePath = buildIRODSFileAbsolutePath(keyHash,
-				irodsAccount.getUserName());
-		log.info("storing to file at absolute path: {}", irodsFileAbsolutePath);
-		IRODSFile cacheFile = getIrodsAccessObjectFactory()
-				.getIRODSFileFactory(irodsAccount).instanceIRODSFile(
-						irodsFileAbsolutePath);
-		createCacheFileAndCacheDir(cacheFile);
-
-		Stream2StreamAO stream2StreamAO = getIrodsAccessObjectFactory()
-				.getStream2StreamAO(irodsAccount);
-		stream2StreamAO.streamBytesToIRODSFile(encrypted, cacheFile);
-
+		String irodsFileAbsolutePath = storeEncryptedBytes(keyHash, encrypted);
 		log.info("done...");
 		return irodsFileAbsolutePath;
 
@@ -266,14 +250,88 @@ public class DataCacheServiceImpl extends AbstractDataUtilsServiceImpl
 		checkContracts();
 
 		if (getCacheServiceConfiguration().isDoCleanupDuringRequests()) {
-			purgeOldRequests();
+			cleanupDuringRequest();
 		}
 
 		// build hash of key and look for file
 		int keyHash = key.hashCode();
 		log.info("generated hash for key:{}", keyHash);
+		byte[] fileBytes = retrieveEncryptedBytes(keyHash);
+		log.info("decrypting data based on provided key....");
+		CacheEncryptor cacheEncryptor = new CacheEncryptor(key);
+		fileBytes = cacheEncryptor.decrypt(fileBytes);
+
+		log.info("streamed file into bytes for length of: {}", fileBytes.length);
+		log.info("deserialzing...");
+		return deserializeStreamToObject(fileBytes, key);
+
+	}
+
+	/**
+	 * Write the encrypted bytes to the cache file for the key hash, and hold
+	 * them in the local tier if there is one
+	 * 
+	 * @param keyHash
+	 *            <code>int</code> with the hash of the key
+	 * @param encrypted
+	 *            <code>byte[]</code> with the encrypted value
+	 * @return <code>String</code> with the absolute path of the cache file
+	 * @throws JargonException
+	 */
+	private String storeEncryptedBytes(final int keyHash,
+			final byte[] encrypted) throws JargonException {
 		String irodsFileAbsolutePath = buildIRODSFileAbsolutePath(keyHash,
 				irodsAccount.getUserName());
+		log.info("storing to file at absolute path: {}", irodsFileAbsolutePath);
+		IRODSFile cacheFile = getIrodsAccessObjectFactory()
+				.getIRODSFileFactory(irodsAccount).instanceIRODSFile(
+						irodsFileAbsolutePath);
+
+		if (offHeapDataCache != null) {
+			// a failed write must not leave the old value held locally
+			offHeapDataCache.remove(irodsAccount, irodsFileAbsolutePath);
+		}
+
+		createCacheFileAndCacheDir(cacheFile);
+		Stream2StreamAO stream2StreamAO = getIrodsAccessObjectFactory()
+				.getStream2StreamAO(irodsAccount);
+		stream2StreamAO.streamBytesToIRODSFile(encrypted, cacheFile);
+
+		if (offHeapDataCache != null) {
+			long fileExpiresAt = System.currentTimeMillis()
+					+ computeLifetimeInMillis();
+			offHeapDataCache.put(irodsAccount, irodsFileAbsolutePath,
+					encrypted, fileExpiresAt);
+			offHeapDataCache.recordFileWritten(irodsAccount,
+					irodsFileAbsolutePath, fileExpiresAt);
+		}
+
+		return irodsFileAbsolutePath;
+	}
+
+	/**
+	 * Get the encrypted bytes for the key hash, from the local tier if they
+	 * are held there, otherwise from the cache file
+	 * 
+	 * @param keyHash
+	 *            <code>int</code> with the hash of the key
+	 * @return <code>byte[]</code> with the encrypted value
+	 * @throws JargonException
+	 */
+	private byte[] retrieveEncryptedBytes(final int keyHash)
+			throws JargonException {
+		String irodsFileAbsolutePath = buildIRODSFileAbsolutePath(keyHash,
+				irodsAccount.getUserName());
+
+		if (offHeapDataCache != null) {
+			byte[] held = offHeapDataCache.get(irodsAccount,
+					irodsFileAbsolutePath);
+			if (held != null) {
+				log.info("found in local cache:{}", irodsFileAbsolutePath);
+				return held;
+			}
+		}
+
 		log.info("looking for cache file at path:{}", irodsFileAbsolutePath);
 		IRODSFile cacheFile = getIrodsAccessObjectFactory()
 				.getIRODSFileFactory(irodsAccount).instanceIRODSFile(
@@ -281,14 +339,57 @@ public class DataCacheServiceImpl extends AbstractDataUtilsServiceImpl
 		Stream2StreamAO stream2StreamAO = getIrodsAccessObjectFactory()
 				.getStream2StreamAO(irodsAccount);
 		byte[] fileBytes = stream2StreamAO.streamFileToByte(cacheFile);
-		log.info("decrypting data based on provided key....");
-		CacheEncryptor cacheEncryptor = new CacheEncryptor(key);
-		fileBytes = cacheEncryptor.decrypt(fileBytes);
 
-		log.info("streamed file into bytes for length of: {}", fileBytes.length);
-		log.info("deserialzing...");
-		return deserializeStreamToObject(fileBytes, key);
+		if (offHeapDataCache != null) {
+			// the age of the file is not known, so the local time to live
+			// bounds the entry
+			offHeapDataCache.put(irodsAccount, irodsFileAbsolutePath,
+					fileBytes, Long.MAX_VALUE);
+		}
 
+		return fileBytes;
+	}
+
+	/**
+	 * Clean up expired cache files as part of a request. Without a local tier
+	 * this is {@link #purgeOldRequests()}. With one, the cache directory is
+	 * listed once per account, to find files written before the local tier
+	 * knew of them, and after that the expired files it recorded are deleted
+	 * in one batch.
+	 * 
+	 * @throws JargonException
+	 */
+	private void cleanupDuringRequest() throws JargonException {
+		if (offHeapDataCache == null) {
+			purgeOldRequests();
+			return;
+		}
+
+		if (offHeapDataCache.markOwnerScanned(irodsAccount)) {
+			log.info("first cleanup for {}, scanning cache dir",
+					irodsAccount.getUserName());
+			purgeOldRequests();
+		}
+
+		List<String> expired = offHeapDataCache.takeExpiredFiles(irodsAccount);
+		if (expired.isEmpty()) {
+			return;
+		}
+
+		log.info("deleting {} expired cache files", expired.size());
+		IRODSFileSystemAO irodsFileSystemAO = getIrodsAccessObjectFactory()
+				.getIRODSFileSystemAO(irodsAccount);
+		List<String> notDeleted = irodsFileSystemAO
+				.fileDeleteNoForceInBatch(expired);
+		if (!notDeleted.isEmpty()) {
+			log.warn("{} expired cache files not deleted, logged and ignored",
+					notDeleted.size());
+		}
+	}
+
+	private long computeLifetimeInMillis() {
+		return (long) getCacheServiceConfiguration().getLifetimeInDays() * 60
+				* 1000 * 60 * 24;
 	}
 
 	/**
@@ -387,8 +488,7 @@ public class DataCacheServiceImpl extends AbstractDataUtilsServiceImpl
 	@Override
 	public void purgeOldRequests() throws JargonException {
 		log.info("purgeOldRequests()");
-		long daysToMillis = (long) getCacheServiceConfiguration()
-				.getLifetimeInDays() * 60 * 1000 * 60 * 24;
+		long daysToMillis = computeLifetimeInMillis();
 		long millisNow = System.currentTimeMillis();
 		long purgeThreshold = millisNow - daysToMillis;
 		log.info("purge threshold:{}", purgeThreshold);
@@ -420,6 +520,10 @@ public class DataCacheServiceImpl extends AbstractDataUtilsServiceImpl
 		for (File irodsFile : cacheDir.listFiles()) {
 			if (irodsFile.lastModified() < purgeThreshold) {
 				log.info("purging:{}", irodsFile.getAbsolutePath());
+				if (offHeapDataCache != null) {
+					offHeapDataCache.remove(irodsAccount,
+							irodsFile.getAbsolutePath());
+				}
 				boolean delSuccess = irodsFile.delete();
 				if (!delSuccess) {
 					log.warn("error deleting file logged and ignored");
@@ -455,4 +559,21 @@ public class DataCacheServiceImpl extends AbstractDataUtilsServiceImpl
 		return cacheServiceConfiguration;
 	}
 
+	/**
+	 * @return the {@link OffHeapDataCache} used as a local tier, or
+	 *         <code>null</code> if there is none
+	 */
+	public OffHeapDataCache getOffHeapDataCache() {
+		return offHeapDataCache;
+	}
+
+	/**
+	 * @param offHeapDataCache
+	 *            the {@link OffHeapDataCache} to use as a local tier, or
+	 *            <code>null</code> to send every request to iRODS
+	 */
+	public void setOffHeapDataCache(final OffHeapDataCache offHeapDataCache) {
+		this.offHeapDataCache = offHeapDataCache;
+	}
+
 }
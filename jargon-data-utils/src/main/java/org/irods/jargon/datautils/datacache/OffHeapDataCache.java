@@ -0,0 +1,456 @@
+package org.irods.jargon.datautils.datacache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local tier in front of the iRODS files of the {@link DataCacheService}. The
+ * encrypted bytes of recently used cache files are kept outside of the heap in
+ * direct buffers, keyed by the host and port of the account and the absolute
+ * path of the cache file, so that a repeated retrieve does not go to iRODS.
+ * The total size is bounded, and the least recently used entries are evicted
+ * first. Each entry also has a time to live, so that a value changed by
+ * another process is not served for long.
+ * <p/>
+ * The bound is on the bytes held by live entries. The native memory of an
+ * evicted entry is returned only when its buffer is garbage collected, so the
+ * direct memory in use can briefly exceed the bound.
+ * <p/>
+ * The cache also keeps an index of the cache files written through it, ordered
+ * by the time each file expires, so that expired files can be deleted without
+ * listing the cache directory.
+ * <p/>
+ * One instance is meant to be shared by the services of many accounts, and
+ * is thread safe.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class OffHeapDataCache {
+
+	public static final Logger log = LoggerFactory
+			.getLogger(OffHeapDataCache.class);
+
+	/**
+	 * Default bound on the bytes held, 32 MB
+	 */
+	public static final long DEFAULT_MAX_BYTES = 32L * 1024L * 1024L;
+
+	/**
+	 * Default time to live of an entry, 10 minutes
+	 */
+	public static final long DEFAULT_TIME_TO_LIVE_MILLIS = 10L * 60L * 1000L;
+
+	private final long maxBytes;
+	private final long timeToLiveMillis;
+
+	/**
+	 * Entries in access order, so that the first is the least recently used
+	 */
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(
+			16, 0.75f, true);
+	private final PriorityQueue<Entry> entryExpiries = new PriorityQueue<Entry>();
+	private long currentBytes = 0L;
+	private long hitCount = 0L;
+	private long missCount = 0L;
+
+	private final Map<String, WrittenFile> writtenFiles = new HashMap<String, WrittenFile>();
+	private final PriorityQueue<WrittenFile> fileExpiries = new PriorityQueue<WrittenFile>();
+	private final Set<String> scannedOwners = new HashSet<String>();
+
+	/**
+	 * Create a cache with the default bound and time to live
+	 */
+	public OffHeapDataCache() {
+		this(DEFAULT_MAX_BYTES, DEFAULT_TIME_TO_LIVE_MILLIS);
+	}
+
+	/**
+	 * Create a cache with the given bound and time to live
+	 *
+	 * @param maxBytes
+	 *            <code>long</code> with the most bytes held outside of the
+	 *            heap. Note that this must fit in the direct memory limit of
+	 *            the JVM.
+	 * @param timeToLiveMillis
+	 *            <code>long</code> with the time in milliseconds an entry is
+	 *            served before it is read again from iRODS
+	 */
+	public OffHeapDataCache(final long maxBytes, final long timeToLiveMillis) {
+		if (maxBytes <= 0) {
+			throw new IllegalArgumentException(
+					"maxBytes must be greater than zero");
+		}
+
+		if (timeToLiveMillis <= 0) {
+			throw new IllegalArgumentException(
+					"timeToLiveMillis must be greater than zero");
+		}
+
+		this.maxBytes = maxBytes;
+		this.timeToLiveMillis = timeToLiveMillis;
+	}
+
+	/**
+	 * Hold a copy of the given bytes, replacing any value for the path. A
+	 * value larger than the bound is not held.
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} whose host and port qualify the path
+	 * @param irodsFileAbsolutePath
+	 *            <code>String</code> with the absolute path of the cache file
+	 * @param encryptedBytes
+	 *            <code>byte[]</code> with the encrypted contents of the file
+	 * @param fileExpiresAt
+	 *            <code>long</code> with the time in milliseconds when the file
+	 *            expires, the entry expires at the earlier of this time and its
+	 *            own time to live
+	 */
+	public synchronized void put(final IRODSAccount irodsAccount,
+			final String irodsFileAbsolutePath, final byte[] encryptedBytes,
+			final long fileExpiresAt) {
+
+		String key = computeKey(irodsAccount, irodsFileAbsolutePath);
+
+		if (encryptedBytes == null) {
+			throw new IllegalArgumentException("null encryptedBytes");
+		}
+
+		long now = currentTimeMillis();
+		evictExpiredEntries(now);
+		removeEntry(key);
+
+		if (encryptedBytes.length > maxBytes) {
+			log.info("value of {} bytes is larger than the cache, not held",
+					encryptedBytes.length);
+			return;
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocateDirect(encryptedBytes.length);
+		buffer.put(encryptedBytes);
+		buffer.flip();
+
+		Entry entry = new Entry(key, buffer, Math.min(fileExpiresAt, now
+				+ timeToLiveMillis));
+		entries.put(key, entry);
+		entryExpiries.add(entry);
+		currentBytes += encryptedBytes.length;
+
+		Iterator<Entry> leastRecentlyUsed = entries.values().iterator();
+		while (currentBytes > maxBytes && leastRecentlyUsed.hasNext()) {
+			Entry eldest = leastRecentlyUsed.next();
+			log.debug("evicting least recently used:{}", eldest.key);
+			leastRecentlyUsed.remove();
+			release(eldest);
+		}
+	}
+
+	/**
+	 * Get a copy of the bytes held for a path
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} whose host and port qualify the path
+	 * @param irodsFileAbsolutePath
+	 *            <code>String</code> with the absolute path of the cache file
+	 * @return <code>byte[]</code> with the encrypted contents of the file, or
+	 *         <code>null</code> if they are not held or have expired
+	 */
+	public synchronized byte[] get(final IRODSAccount irodsAccount,
+			final String irodsFileAbsolutePath) {
+
+		String key = computeKey(irodsAccount, irodsFileAbsolutePath);
+		evictExpiredEntries(currentTimeMillis());
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			missCount++;
+			return null;
+		}
+
+		hitCount++;
+		byte[] encryptedBytes = new byte[entry.buffer.remaining()];
+		entry.buffer.duplicate().get(encryptedBytes);
+		return encryptedBytes;
+	}
+
+	/**
+	 * Stop holding the bytes for a path
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} whose host and port qualify the path
+	 * @param irodsFileAbsolutePath
+	 *            <code>String</code> with the absolute path of the cache file
+	 */
+	public synchronized void remove(final IRODSAccount irodsAccount,
+			final String irodsFileAbsolutePath) {
+		removeEntry(computeKey(irodsAccount, irodsFileAbsolutePath));
+	}
+
+	/**
+	 * Note that a cache file was written, so that it can be deleted when it
+	 * expires without a scan of the cache directory
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} that can delete the file
+	 * @param irodsFileAbsolutePath
+	 *            <code>String</code> with the absolute path of the cache file
+	 * @param fileExpiresAt
+	 *            <code>long</code> with the time in milliseconds when the file
+	 *            expires
+	 */
+	public synchronized void recordFileWritten(final IRODSAccount irodsAccount,
+			final String irodsFileAbsolutePath, final long fileExpiresAt) {
+
+		String key = computeKey(irodsAccount, irodsFileAbsolutePath);
+		WrittenFile writtenFile = new WrittenFile(computeOwner(irodsAccount),
+				key, irodsFileAbsolutePath, fileExpiresAt);
+		// a file written again replaces its old expiry, which is skipped
+		writtenFiles.put(key, writtenFile);
+		fileExpiries.add(writtenFile);
+	}
+
+	/**
+	 * Remove and return the cache files of an account that have expired. Any
+	 * bytes held for these files are dropped as well.
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} that can delete the files
+	 * @return <code>List</code> of <code>String</code> with the absolute paths
+	 *         of the expired files, which is empty if there are none
+	 */
+	public synchronized List<String> takeExpiredFiles(
+			final IRODSAccount irodsAccount) {
+
+		String owner = computeOwner(irodsAccount);
+		long now = currentTimeMillis();
+		List<String> expired = new ArrayList<String>();
+		List<WrittenFile> otherOwners = new ArrayList<WrittenFile>();
+		while (!fileExpiries.isEmpty() && fileExpiries.peek().expiresAt <= now) {
+			WrittenFile writtenFile = fileExpiries.poll();
+			if (writtenFiles.get(writtenFile.key) != writtenFile) {
+				continue;
+			}
+			if (!writtenFile.owner.equals(owner)) {
+				otherOwners.add(writtenFile);
+				continue;
+			}
+			writtenFiles.remove(writtenFile.key);
+			removeEntry(writtenFile.key);
+			expired.add(writtenFile.path);
+		}
+		fileExpiries.addAll(otherOwners);
+		return expired;
+	}
+
+	/**
+	 * Note that the cache directory of an account has been scanned once,
+	 * which finds the files written before they were recorded here
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} whose cache directory was scanned
+	 * @return <code>boolean</code> that is <code>true</code> if this is the
+	 *         first time the account was marked
+	 */
+	public synchronized boolean markOwnerScanned(final IRODSAccount irodsAccount) {
+		return scannedOwners.add(computeOwner(irodsAccount));
+	}
+
+	/**
+	 * Drop every entry and recorded file
+	 */
+	public synchronized void clear() {
+		for (Entry entry : entries.values()) {
+			release(entry);
+		}
+		entries.clear();
+		entryExpiries.clear();
+		writtenFiles.clear();
+		fileExpiries.clear();
+		scannedOwners.clear();
+	}
+
+	public synchronized long getCurrentBytes() {
+		return currentBytes;
+	}
+
+	public synchronized int getEntryCount() {
+		return entries.size();
+	}
+
+	public synchronized int getRecordedFileCount() {
+		return writtenFiles.size();
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	public long getTimeToLiveMillis() {
+		return timeToLiveMillis;
+	}
+
+	/**
+	 * @return <code>long</code> with the current time in milliseconds, which
+	 *         may be overridden in tests
+	 */
+	protected long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	/**
+	 * Evict the entries whose time has passed, in expiry order, so that no
+	 * scan of the entries is needed
+	 */
+	private void evictExpiredEntries(final long now) {
+		while (!entryExpiries.isEmpty()
+				&& entryExpiries.peek().expiresAt <= now) {
+			Entry entry = entryExpiries.poll();
+			if (entry.buffer != null) {
+				log.debug("evicting expired:{}", entry.key);
+				entries.remove(entry.key);
+				release(entry);
+			}
+		}
+
+		// entries evicted as least recently used wait here for their expiry
+		if (entryExpiries.size() > 2 * entries.size() + 16) {
+			entryExpiries.clear();
+			entryExpiries.addAll(entries.values());
+		}
+	}
+
+	private void removeEntry(final String key) {
+		Entry entry = entries.remove(key);
+		if (entry != null) {
+			release(entry);
+		}
+	}
+
+	/**
+	 * Take the bytes of an entry off the count and drop its buffer. This frees
+	 * no native memory itself, that is returned when the buffer is garbage
+	 * collected.
+	 */
+	private void release(final Entry entry) {
+		currentBytes -= entry.buffer.capacity();
+		entry.buffer = null;
+	}
+
+	/**
+	 * @return <code>String</code> with the host, port and path, so that
+	 *         accounts on different grids with the same zone and user do not
+	 *         share entries
+	 */
+	private static String computeKey(final IRODSAccount irodsAccount,
+			final String irodsFileAbsolutePath) {
+
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+
+		if (irodsFileAbsolutePath == null || irodsFileAbsolutePath.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty irodsFileAbsolutePath");
+		}
+
+		return irodsAccount.getHost() + ":" + irodsAccount.getPort()
+				+ irodsFileAbsolutePath;
+	}
+
+	/**
+	 * @return <code>String</code> identifying the account on its grid, so
+	 *         that each account only deletes its own files
+	 */
+	private static String computeOwner(final IRODSAccount irodsAccount) {
+
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+
+		return irodsAccount.getUserName() + "#" + irodsAccount.getZone() + "@"
+				+ irodsAccount.getHost() + ":" + irodsAccount.getPort();
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("OffHeapDataCache");
+		sb.append("\n    maxBytes:");
+		sb.append(maxBytes);
+		sb.append("\n    timeToLiveMillis:");
+		sb.append(timeToLiveMillis);
+		sb.append("\n    currentBytes:");
+		sb.append(currentBytes);
+		sb.append("\n    entries:");
+		sb.append(entries.size());
+		sb.append("\n    recordedFiles:");
+		sb.append(writtenFiles.size());
+		return sb.toString();
+	}
+
+	/**
+	 * Bytes held for one cache file, the buffer is <code>null</code> once the
+	 * entry is evicted
+	 */
+	private static class Entry implements Comparable<Entry> {
+		private final String key;
+		private ByteBuffer buffer;
+		private final long expiresAt;
+
+		Entry(final String key, final ByteBuffer buffer, final long expiresAt) {
+			this.key = key;
+			this.buffer = buffer;
+			this.expiresAt = expiresAt;
+		}
+
+		@Override
+		public int compareTo(final Entry other) {
+			return expiresAt < other.expiresAt ? -1
+					: (expiresAt == other.expiresAt ? 0 : 1);
+		}
+	}
+
+	/**
+	 * A cache file written through this cache, and when it expires
+	 */
+	private static class WrittenFile implements Comparable<WrittenFile> {
+		private final String owner;
+		private final String key;
+		private final String path;
+		private final long expiresAt;
+
+		WrittenFile(final String owner, final String key, final String path,
+				final long expiresAt) {
+			this.owner = owner;
+			this.key = key;
+			this.path = path;
+			this.expiresAt = expiresAt;
+		}
+
+		@Override
+		public int compareTo(final WrittenFile other) {
+			return expiresAt < other.expiresAt ? -1
+					: (expiresAt == other.expiresAt ? 0 : 1);
+		}
+	}
+
+}
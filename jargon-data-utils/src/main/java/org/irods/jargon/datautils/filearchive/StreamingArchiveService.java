@@ -0,0 +1,61 @@
+package org.irods.jargon.datautils.filearchive;
+
+import java.io.OutputStream;
+
+import org.irods.jargon.core.exception.FileNotFoundException;
+import org.irods.jargon.core.exception.JargonException;
+
+/**
+ * Service to write an iRODS collection, and everything beneath it, as a tar or
+ * zip archive directly to an <code>OutputStream</code>, such as the response
+ * of a web download. Unlike the {@link LocalTarFileArchiver}, nothing is
+ * first brought to local disk, and the archive is never written to a file.
+ * <p/>
+ * The contents of smaller data objects are read ahead over several
+ * connections while earlier entries are written, and are always written in
+ * order. Larger data objects are streamed straight from iRODS when their turn
+ * comes.
+ *
+ * @author Mike Conway - DICE
+ *
+ */
+public interface StreamingArchiveService {
+
+	/**
+	 * Kinds of archive that may be written
+	 */
+	public enum ArchiveFormat {
+		TAR, ZIP
+	}
+
+	/**
+	 * Write a collection and its contents, or a single data object, as an
+	 * archive. Entry names start with the last component of the given path,
+	 * so that the archive unpacks into one directory named for the
+	 * collection.
+	 * <p/>
+	 * The archive is finished, but the output stream is not closed, which is
+	 * left to the caller.
+	 *
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> with the absolute path of a collection or
+	 *            data object
+	 * @param archiveFormat
+	 *            {@link ArchiveFormat} of the archive
+	 * @param compress
+	 *            <code>boolean</code> that is <code>true</code> if the archive
+	 *            should be compressed. A tar is gzipped as it is written, and
+	 *            the entries of a zip are deflated, otherwise they are stored
+	 *            with no compression.
+	 * @param outputStream
+	 *            <code>OutputStream</code> the archive is written to
+	 * @return <code>int</code> with the number of data objects written
+	 * @throws FileNotFoundException
+	 *             if nothing is at the given path
+	 * @throws JargonException
+	 */
+	int streamArchive(String irodsAbsolutePath, ArchiveFormat archiveFormat,
+			boolean compress, OutputStream outputStream)
+			throws FileNotFoundException, JargonException;
+
+}
@@ -0,0 +1,707 @@
+package org.irods.jargon.datautils.filearchive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.FileNotFoundException;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.irods.jargon.core.query.GenQueryBuilderException;
+import org.irods.jargon.core.query.GenQueryOrderByField.OrderByType;
+import org.irods.jargon.core.query.IRODSGenQueryBuilder;
+import org.irods.jargon.core.query.IRODSQueryResultRow;
+import org.irods.jargon.core.query.QueryConditionOperators;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
+import org.irods.jargon.core.utils.GenQueryPagingUtils;
+import org.irods.jargon.core.utils.MiscIRODSUtils;
+import org.irods.jargon.core.utils.SessionClosingThreadFactory;
+import org.irods.jargon.datautils.AbstractDataUtilsServiceImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes an iRODS collection as a tar or zip archive to an output stream.
+ * <p/>
+ * The collections and data objects beneath the source are found with paged
+ * queries, rather than by listing each collection. Data objects no larger than
+ * the maximum read-ahead object size are read whole into memory by a pool of
+ * reader threads, each with its own connection, up to a bound on the bytes
+ * held that have not yet been written. Larger data objects are streamed
+ * straight into the archive over the connection of the calling thread.
+ * Entries are always written in the order of the listing, collections before
+ * their contents.
+ *
+ * @author Mike Conway - DICE
+ *
+ */
+public class StreamingArchiveServiceImpl extends AbstractDataUtilsServiceImpl
+		implements StreamingArchiveService {
+
+	public static final Logger log = LoggerFactory
+			.getLogger(StreamingArchiveServiceImpl.class);
+
+	/**
+	 * Default number of data objects read ahead at once
+	 */
+	public static final int DEFAULT_READ_AHEAD_PARALLELISM = 4;
+
+	/**
+	 * Default most bytes read ahead and not yet written
+	 */
+	public static final long DEFAULT_READ_AHEAD_BYTES = 32L * 1024L * 1024L;
+
+	/**
+	 * Default largest data object that is read ahead, larger ones are streamed
+	 */
+	public static final long DEFAULT_MAX_READ_AHEAD_OBJECT_SIZE = 4L * 1024L * 1024L;
+
+	/**
+	 * Most data objects read ahead per reader thread, which bounds the work
+	 * queued for many empty or tiny data objects
+	 */
+	private static final int READ_AHEAD_OBJECTS_PER_THREAD = 16;
+
+	private static final int COPY_BUFFER_SIZE = 32 * 1024;
+
+	/**
+	 * Replica status of a replica that is up to date
+	 */
+	private static final String GOOD_REPLICA = "1";
+
+	private int readAheadParallelism = DEFAULT_READ_AHEAD_PARALLELISM;
+	private long readAheadBytes = DEFAULT_READ_AHEAD_BYTES;
+	private long maxReadAheadObjectSize = DEFAULT_MAX_READ_AHEAD_OBJECT_SIZE;
+
+	/**
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory} that can create necessary
+	 *            objects
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} that contains the login information
+	 */
+	public StreamingArchiveServiceImpl(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount) {
+		super(irodsAccessObjectFactory, irodsAccount);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.datautils.filearchive.StreamingArchiveService#streamArchive
+	 * (java.lang.String,
+	 * org.irods.jargon.datautils.filearchive.StreamingArchiveService
+	 * .ArchiveFormat, boolean, java.io.OutputStream)
+	 */
+	@Override
+	public int streamArchive(final String irodsAbsolutePath,
+			final ArchiveFormat archiveFormat, final boolean compress,
+			final OutputStream outputStream) throws FileNotFoundException,
+			JargonException {
+
+		log.info("streamArchive()");
+
+		if (irodsAbsolutePath == null || irodsAbsolutePath.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty irodsAbsolutePath");
+		}
+
+		if (archiveFormat == null) {
+			throw new IllegalArgumentException("null archiveFormat");
+		}
+
+		if (outputStream == null) {
+			throw new IllegalArgumentException("null outputStream");
+		}
+
+		checkContracts();
+
+		log.info("irodsAbsolutePath:{}", irodsAbsolutePath);
+		log.info("archiveFormat:{}", archiveFormat);
+		log.info("compress:{}", compress);
+
+		ObjStat objStat = getIrodsAccessObjectFactory()
+				.getCollectionAndDataObjectListAndSearchAO(getIrodsAccount())
+				.retrieveObjectStatForPath(irodsAbsolutePath);
+		MiscIRODSUtils.evaluateSpecCollSupport(objStat);
+
+		String sourcePath = objStat.getAbsolutePath();
+		if (sourcePath.length() > 1 && sourcePath.endsWith("/")) {
+			sourcePath = sourcePath.substring(0, sourcePath.length() - 1);
+		}
+		String sourceName = MiscIRODSUtils
+				.getLastPathComponentForGiveAbsolutePath(sourcePath);
+		if (sourceName.isEmpty()) {
+			throw new IllegalArgumentException("cannot archive the root");
+		}
+
+		List<ArchiveItem> items;
+		if (objStat.isSomeTypeOfCollection()) {
+			items = listCollectionTree(sourcePath, sourceName);
+		} else {
+			items = new ArrayList<ArchiveItem>(1);
+			items.add(new ArchiveItem(sourcePath, sourceName, false, objStat
+					.getObjSize(), objStat.getModifiedAt()));
+		}
+
+		log.info("archiving {} entries", items.size());
+
+		GzipCompressorOutputStream gzipOutputStream = null;
+		ArchiveEntryWriter archiveEntryWriter;
+		try {
+			if (archiveFormat == ArchiveFormat.TAR) {
+				TarArchiveOutputStream tarArchiveOutputStream;
+				if (compress) {
+					gzipOutputStream = new GzipCompressorOutputStream(
+							outputStream);
+					tarArchiveOutputStream = new TarArchiveOutputStream(
+							gzipOutputStream);
+				} else {
+					tarArchiveOutputStream = new TarArchiveOutputStream(
+							outputStream);
+				}
+				tarArchiveOutputStream
+						.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+				tarArchiveOutputStream
+						.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+				archiveEntryWriter = new TarEntryWriter(tarArchiveOutputStream);
+			} else {
+				ZipArchiveOutputStream zipArchiveOutputStream = new ZipArchiveOutputStream(
+						outputStream);
+				if (compress) {
+					zipArchiveOutputStream
+							.setLevel(Deflater.DEFAULT_COMPRESSION);
+				} else {
+					zipArchiveOutputStream.setLevel(Deflater.NO_COMPRESSION);
+				}
+				archiveEntryWriter = new ZipEntryWriter(zipArchiveOutputStream);
+			}
+
+			int count = writeItems(items, archiveEntryWriter);
+
+			archiveEntryWriter.finish();
+			if (gzipOutputStream != null) {
+				gzipOutputStream.finish();
+			}
+			outputStream.flush();
+			log.info("archived {} data objects", count);
+			return count;
+
+		} catch (IOException e) {
+			log.error("io exception writing archive", e);
+			throw new JargonException("io exception writing archive", e);
+		}
+
+	}
+
+	/**
+	 * Write the entries in order, reading ahead the contents of the smaller
+	 * data objects
+	 */
+	private int writeItems(final List<ArchiveItem> items,
+			final ArchiveEntryWriter archiveEntryWriter)
+			throws JargonException, IOException {
+
+		List<Future<byte[]>> futures = new ArrayList<Future<byte[]>>(
+				items.size());
+		for (int i = 0; i < items.size(); i++) {
+			futures.add(null);
+		}
+
+		ExecutorService executorService = Executors.newFixedThreadPool(
+				readAheadParallelism, new SessionClosingThreadFactory(
+						getIrodsAccessObjectFactory(), getIrodsAccount(),
+						"jargon-archive"));
+		int maxReadAheadObjects = readAheadParallelism
+				* READ_AHEAD_OBJECTS_PER_THREAD;
+		int next = 0;
+		int readAhead = 0;
+		long bytesReadAhead = 0L;
+		int count = 0;
+
+		try {
+			for (int i = 0; i < items.size(); i++) {
+
+				/*
+				 * Queue reads in order until the bound on bytes or objects
+				 * held is reached. Everything before the current item has
+				 * been written, so the current item can always be queued.
+				 */
+				while (next < items.size() && readAhead < maxReadAheadObjects) {
+					ArchiveItem nextItem = items.get(next);
+					if (isReadAhead(nextItem)) {
+						if (bytesReadAhead + nextItem.size > readAheadBytes
+								&& next > i) {
+							break;
+						}
+						futures.set(next, executorService
+								.submit(buildReadTask(nextItem)));
+						bytesReadAhead += nextItem.size;
+						readAhead++;
+					}
+					next++;
+				}
+
+				ArchiveItem item = items.get(i);
+				if (item.collection) {
+					archiveEntryWriter.putEntry(item, 0L);
+					archiveEntryWriter.closeEntry();
+					continue;
+				}
+
+				if (isReadAhead(item)) {
+					byte[] data = getReadAheadData(futures.get(i), item);
+					futures.set(i, null);
+					bytesReadAhead -= item.size;
+					readAhead--;
+					archiveEntryWriter.putEntry(item, data.length);
+					archiveEntryWriter.getOutputStream().write(data);
+				} else {
+					archiveEntryWriter.putEntry(item, item.size);
+					streamDataObject(item, archiveEntryWriter.getOutputStream());
+				}
+				archiveEntryWriter.closeEntry();
+				count++;
+			}
+		} finally {
+			executorService.shutdownNow();
+		}
+
+		return count;
+	}
+
+	private boolean isReadAhead(final ArchiveItem item) {
+		return !item.collection && item.size <= maxReadAheadObjectSize;
+	}
+
+	private byte[] getReadAheadData(final Future<byte[]> future,
+			final ArchiveItem item) throws JargonException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			log.error("error reading data object:{}", item.path, e.getCause());
+			if (e.getCause() instanceof JargonException) {
+				throw (JargonException) e.getCause();
+			}
+			throw new JargonException("error reading data object:"
+					+ item.path, e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JargonException("interrupted writing archive", e);
+		}
+	}
+
+	/**
+	 * Build a task that reads the whole of a data object on a reader thread
+	 */
+	private Callable<byte[]> buildReadTask(final ArchiveItem item) {
+		return new Callable<byte[]>() {
+			@Override
+			public byte[] call() throws Exception {
+				byte[] data = new byte[(int) item.size];
+				InputStream inputStream = openDataObject(item);
+				try {
+					int offset = 0;
+					while (offset < data.length) {
+						int read = inputStream.read(data, offset, data.length
+								- offset);
+						if (read < 0) {
+							throw new JargonException(
+									"data object shorter than its size in the catalog:"
+											+ item.path);
+						}
+						offset += read;
+					}
+				} finally {
+					inputStream.close();
+				}
+				return data;
+			}
+		};
+	}
+
+	/**
+	 * Copy exactly the catalog size of a data object into the archive, which
+	 * has already been told that size in the entry header
+	 */
+	private void streamDataObject(final ArchiveItem item,
+			final OutputStream archiveOutputStream) throws JargonException,
+			IOException {
+		log.info("streaming large data object:{}", item.path);
+		InputStream inputStream = openDataObject(item);
+		try {
+			byte[] buffer = new byte[COPY_BUFFER_SIZE];
+			long remaining = item.size;
+			while (remaining > 0) {
+				int read = inputStream.read(buffer, 0,
+						(int) Math.min(buffer.length, remaining));
+				if (read < 0) {
+					throw new JargonException(
+							"data object shorter than its size in the catalog:"
+									+ item.path);
+				}
+				archiveOutputStream.write(buffer, 0, read);
+				remaining -= read;
+			}
+		} finally {
+			inputStream.close();
+		}
+	}
+
+	private InputStream openDataObject(final ArchiveItem item)
+			throws JargonException {
+		return getIrodsAccessObjectFactory().getIRODSFileFactory(
+				getIrodsAccount()).instanceIRODSFileInputStream(item.path);
+	}
+
+	/**
+	 * List the collection and everything beneath it, each collection followed
+	 * by its data objects, with one paged query for the collections and two
+	 * for the data objects.
+	 * <p/>
+	 * Underscores and percent signs in the source path are wildcards in the
+	 * like conditions, so rows from sibling collections that happen to match
+	 * are dropped.
+	 */
+	private List<ArchiveItem> listCollectionTree(final String sourcePath,
+			final String sourceName) throws JargonException {
+
+		String zone = MiscIRODSUtils.getZoneInPath(sourcePath);
+		String descendantPrefix = sourcePath + "/";
+		Map<String, List<ArchiveItem>> itemsByCollection = new LinkedHashMap<String, List<ArchiveItem>>();
+		Map<String, Date> collectionModifiedAt = new LinkedHashMap<String, Date>();
+
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		try {
+			builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_NAME)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_COLL_MODIFY_TIME)
+					.addConditionAsGenQueryField(
+							RodsGenQueryEnum.COL_COLL_NAME,
+							QueryConditionOperators.LIKE, descendantPrefix + "%")
+					.addOrderByGenQueryField(RodsGenQueryEnum.COL_COLL_NAME,
+							OrderByType.ASC);
+		} catch (GenQueryBuilderException e) {
+			log.error("error building collection query", e);
+			throw new JargonException("error in archive query", e);
+		}
+
+		itemsByCollection.put(sourcePath, new ArrayList<ArchiveItem>());
+		collectionModifiedAt.put(sourcePath, null);
+		for (IRODSQueryResultRow row : GenQueryPagingUtils.queryAllRows(
+				getIrodsAccessObjectFactory(), getIrodsAccount(), builder,
+				zone)) {
+			if (!row.getColumn(0).startsWith(descendantPrefix)) {
+				continue;
+			}
+			itemsByCollection.put(row.getColumn(0),
+					new ArrayList<ArchiveItem>());
+			collectionModifiedAt.put(row.getColumn(0),
+					row.getColumnAsDateOrNull(1));
+		}
+
+		addDataObjects(itemsByCollection, QueryConditionOperators.EQUAL,
+				sourcePath, sourcePath, sourceName, zone);
+		addDataObjects(itemsByCollection, QueryConditionOperators.LIKE,
+				descendantPrefix + "%", sourcePath, sourceName, zone);
+
+		List<ArchiveItem> items = new ArrayList<ArchiveItem>();
+		for (Map.Entry<String, List<ArchiveItem>> entry : itemsByCollection
+				.entrySet()) {
+			items.add(new ArchiveItem(entry.getKey(), entryName(sourcePath,
+					sourceName, entry.getKey()), true, 0L,
+					collectionModifiedAt.get(entry.getKey())));
+			for (ArchiveItem item : entry.getValue()) {
+				items.add(item);
+			}
+		}
+		return items;
+	}
+
+	/**
+	 * Add each data object in the matching collections that were listed. A
+	 * row comes back for each replica, and whichever replicas a data object
+	 * has, one entry is made for it, with the size and modify time of its
+	 * first good replica, or of its first replica if none is good.
+	 */
+	private void addDataObjects(
+			final Map<String, List<ArchiveItem>> itemsByCollection,
+			final QueryConditionOperators operator, final String collection,
+			final String sourcePath, final String sourceName,
+			final String zone) throws JargonException {
+
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		try {
+			builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_NAME)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_DATA_NAME)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_DATA_SIZE)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_D_MODIFY_TIME)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_D_REPL_STATUS)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_DATA_REPL_NUM)
+					.addConditionAsGenQueryField(
+							RodsGenQueryEnum.COL_COLL_NAME, operator,
+							collection)
+					.addOrderByGenQueryField(RodsGenQueryEnum.COL_COLL_NAME,
+							OrderByType.ASC)
+					.addOrderByGenQueryField(RodsGenQueryEnum.COL_DATA_NAME,
+							OrderByType.ASC)
+					.addOrderByGenQueryField(
+							RodsGenQueryEnum.COL_DATA_REPL_NUM, OrderByType.ASC);
+		} catch (GenQueryBuilderException e) {
+			log.error("error building data object query", e);
+			throw new JargonException("error in archive query", e);
+		}
+
+		String descendantPrefix = sourcePath + "/";
+		String lastPath = null;
+		boolean lastGood = false;
+		for (IRODSQueryResultRow row : GenQueryPagingUtils.queryAllRows(
+				getIrodsAccessObjectFactory(), getIrodsAccount(), builder,
+				zone)) {
+			List<ArchiveItem> items = itemsByCollection.get(row.getColumn(0));
+			if (items == null) {
+				if (row.getColumn(0).startsWith(descendantPrefix)) {
+					log.warn("ignoring data object in unlisted collection:{}",
+							row);
+				}
+				continue;
+			}
+			String path = row.getColumn(0) + "/" + row.getColumn(1);
+			boolean good = GOOD_REPLICA.equals(row.getColumn(4));
+			if (path.equals(lastPath)) {
+				if (lastGood || !good) {
+					continue;
+				}
+				// a later replica is good where the first was not
+				items.remove(items.size() - 1);
+			}
+			items.add(new ArchiveItem(path, entryName(sourcePath, sourceName,
+					path), false, row.getColumnAsLongOrZero(2), row
+					.getColumnAsDateOrNull(3)));
+			lastPath = path;
+			lastGood = good;
+		}
+	}
+
+	/**
+	 * Name in the archive of a path beneath the source
+	 */
+	private String entryName(final String sourcePath, final String sourceName,
+			final String path) {
+		return sourceName + path.substring(sourcePath.length());
+	}
+
+	/**
+	 * @return <code>int</code> with the number of data objects read ahead at
+	 *         once
+	 */
+	public int getReadAheadParallelism() {
+		return readAheadParallelism;
+	}
+
+	/**
+	 * @param readAheadParallelism
+	 *            <code>int</code> with the number of data objects read ahead
+	 *            at once, each over its own connection to iRODS
+	 */
+	public void setReadAheadParallelism(final int readAheadParallelism) {
+		if (readAheadParallelism <= 0) {
+			throw new IllegalArgumentException(
+					"readAheadParallelism must be greater than zero");
+		}
+		this.readAheadParallelism = readAheadParallelism;
+	}
+
+	/**
+	 * @return <code>long</code> with the most bytes read ahead and not yet
+	 *         written
+	 */
+	public long getReadAheadBytes() {
+		return readAheadBytes;
+	}
+
+	/**
+	 * @param readAheadBytes
+	 *            <code>long</code> with the most bytes read ahead and not yet
+	 *            written, which is at least the maximum read-ahead object
+	 *            size
+	 */
+	public void setReadAheadBytes(final long readAheadBytes) {
+		if (readAheadBytes < maxReadAheadObjectSize) {
+			throw new IllegalArgumentException(
+					"readAheadBytes must be at least maxReadAheadObjectSize");
+		}
+		this.readAheadBytes = readAheadBytes;
+	}
+
+	/**
+	 * @return <code>long</code> with the size of the largest data object that
+	 *         is read ahead
+	 */
+	public long getMaxReadAheadObjectSize() {
+		return maxReadAheadObjectSize;
+	}
+
+	/**
+	 * @param maxReadAheadObjectSize
+	 *            <code>long</code> with the size of the largest data object
+	 *            that is read ahead, up to the read-ahead bytes. Larger data
+	 *            objects are streamed when their turn comes. Zero streams
+	 *            everything but empty data objects.
+	 */
+	public void setMaxReadAheadObjectSize(final long maxReadAheadObjectSize) {
+		if (maxReadAheadObjectSize < 0
+				|| maxReadAheadObjectSize > readAheadBytes
+				|| maxReadAheadObjectSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(
+					"maxReadAheadObjectSize must be between zero and readAheadBytes");
+		}
+		this.maxReadAheadObjectSize = maxReadAheadObjectSize;
+	}
+
+	/**
+	 * A collection or data object to archive
+	 */
+	private static class ArchiveItem {
+		private final String path;
+		private final String entryName;
+		private final boolean collection;
+		private final long size;
+		private final Date modifiedAt;
+
+		ArchiveItem(final String path, final String entryName,
+				final boolean collection, final long size,
+				final Date modifiedAt) {
+			this.path = path;
+			this.entryName = entryName;
+			this.collection = collection;
+			this.size = size;
+			this.modifiedAt = modifiedAt;
+		}
+	}
+
+	/**
+	 * Name of the entry of an item, with a trailing slash for a collection
+	 */
+	private static String entryName(final ArchiveItem item) {
+		return item.collection ? item.entryName + "/" : item.entryName;
+	}
+
+	/**
+	 * Writes the entries of one kind of archive, each with the entry type of
+	 * its stream
+	 */
+	private interface ArchiveEntryWriter {
+
+		/**
+		 * Start the entry of an item, with the size of its contents
+		 */
+		void putEntry(ArchiveItem item, long size) throws IOException;
+
+		void closeEntry() throws IOException;
+
+		void finish() throws IOException;
+
+		/**
+		 * @return <code>OutputStream</code> the contents of the current entry
+		 *         are written to
+		 */
+		OutputStream getOutputStream();
+	}
+
+	private static class TarEntryWriter implements ArchiveEntryWriter {
+		private final TarArchiveOutputStream tarArchiveOutputStream;
+
+		TarEntryWriter(final TarArchiveOutputStream tarArchiveOutputStream) {
+			this.tarArchiveOutputStream = tarArchiveOutputStream;
+		}
+
+		@Override
+		public void putEntry(final ArchiveItem item, final long size)
+				throws IOException {
+			TarArchiveEntry entry = new TarArchiveEntry(entryName(item));
+			if (!item.collection) {
+				entry.setSize(size);
+			}
+			if (item.modifiedAt != null) {
+				entry.setModTime(item.modifiedAt);
+			}
+			tarArchiveOutputStream.putArchiveEntry(entry);
+		}
+
+		@Override
+		public void closeEntry() throws IOException {
+			tarArchiveOutputStream.closeArchiveEntry();
+		}
+
+		@Override
+		public void finish() throws IOException {
+			tarArchiveOutputStream.finish();
+		}
+
+		@Override
+		public OutputStream getOutputStream() {
+			return tarArchiveOutputStream;
+		}
+	}
+
+	private static class ZipEntryWriter implements ArchiveEntryWriter {
+		private final ZipArchiveOutputStream zipArchiveOutputStream;
+
+		ZipEntryWriter(final ZipArchiveOutputStream zipArchiveOutputStream) {
+			this.zipArchiveOutputStream = zipArchiveOutputStream;
+		}
+
+		@Override
+		public void putEntry(final ArchiveItem item, final long size)
+				throws IOException {
+			ZipArchiveEntry entry = new ZipArchiveEntry(entryName(item));
+			if (!item.collection) {
+				entry.setSize(size);
+			}
+			if (item.modifiedAt != null) {
+				entry.setTime(item.modifiedAt.getTime());
+			}
+			zipArchiveOutputStream.putArchiveEntry(entry);
+		}
+
+		@Override
+		public void closeEntry() throws IOException {
+			zipArchiveOutputStream.closeArchiveEntry();
+		}
+
+		@Override
+		public void finish() throws IOException {
+			zipArchiveOutputStream.finish();
+		}
+
+		@Override
+		public OutputStream getOutputStream() {
+			return zipArchiveOutputStream;
+		}
+	}
+
+}
@@ -1,5 +1,6 @@
 /**
- * Utilities to support file archives, like tar and zip
+ * Utilities to support file archives, like tar and zip, either built from
+ * local files or streamed straight from an iRODS collection
  * 
  * @author Mike Conway - DICE
  *
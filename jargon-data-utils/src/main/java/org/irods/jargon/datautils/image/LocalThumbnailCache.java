@@ -0,0 +1,195 @@
+package org.irods.jargon.datautils.image;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.utils.LocalFileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local disk cache of generated thumbnails. Each thumbnail is stored under a
+ * name computed from the iRODS path and the modify time of the data object, so
+ * a thumbnail is found again for as long as the data object is unchanged, and
+ * a changed data object gets a new thumbnail rather than a stale one.
+ * <p/>
+ * The files are spread over subdirectories named by the first two characters
+ * of the name. A thumbnail is written to a temporary file and renamed into
+ * place, so that a reader never sees a partial thumbnail, and the cache may be
+ * shared by many threads and processes.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class LocalThumbnailCache {
+
+	public static final Logger log = LoggerFactory
+			.getLogger(LocalThumbnailCache.class);
+
+	static final String THUMBNAIL_EXTENSION = ".thumb";
+
+	private final File cacheDirectory;
+
+	/**
+	 * Create a cache in the given local directory, which is created if needed
+	 *
+	 * @param cacheDirectory
+	 *            <code>File</code> with the local directory that holds the
+	 *            thumbnails
+	 */
+	public LocalThumbnailCache(final File cacheDirectory) {
+		if (cacheDirectory == null) {
+			throw new IllegalArgumentException("null cacheDirectory");
+		}
+
+		if (cacheDirectory.exists() && !cacheDirectory.isDirectory()) {
+			throw new IllegalArgumentException("cacheDirectory is a file");
+		}
+
+		this.cacheDirectory = cacheDirectory;
+	}
+
+	/**
+	 * Find the thumbnail for a version of a data object
+	 *
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> with the absolute path of the data object
+	 * @param modifiedAt
+	 *            <code>Date</code> with the modify time of the data object
+	 * @return <code>File</code> with the thumbnail, or <code>null</code> if it
+	 *         is not in the cache
+	 * @throws JargonException
+	 */
+	public File findThumbnail(final String irodsAbsolutePath,
+			final Date modifiedAt) throws JargonException {
+		File thumbnail = computeThumbnailFile(irodsAbsolutePath, modifiedAt);
+		if (thumbnail.isFile()) {
+			log.debug("thumbnail cached for:{}", irodsAbsolutePath);
+			return thumbnail;
+		}
+		return null;
+	}
+
+	/**
+	 * Store the thumbnail for a version of a data object
+	 *
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> with the absolute path of the data object
+	 * @param modifiedAt
+	 *            <code>Date</code> with the modify time of the data object
+	 * @param thumbnailData
+	 *            <code>byte[]</code> with the thumbnail image
+	 * @return <code>File</code> with the stored thumbnail
+	 * @throws JargonException
+	 *             if the thumbnail cannot be written
+	 */
+	public File storeThumbnail(final String irodsAbsolutePath,
+			final Date modifiedAt, final byte[] thumbnailData)
+			throws JargonException {
+
+		if (thumbnailData == null) {
+			throw new IllegalArgumentException("null thumbnailData");
+		}
+
+		File thumbnail = computeThumbnailFile(irodsAbsolutePath, modifiedAt);
+		File parent = thumbnail.getParentFile();
+		parent.mkdirs();
+
+		File tempFile = null;
+		OutputStream out = null;
+		try {
+			tempFile = File.createTempFile("thumb", ".tmp", parent);
+			out = new FileOutputStream(tempFile);
+			out.write(thumbnailData);
+			out.close();
+			out = null;
+			if (!tempFile.renameTo(thumbnail)) {
+				// another thread may have stored the same thumbnail
+				if (!thumbnail.isFile()) {
+					throw new JargonException(
+							"unable to move thumbnail into cache:"
+									+ thumbnail.getAbsolutePath());
+				}
+				tempFile.delete();
+			}
+			log.debug("stored thumbnail for {} at {}", irodsAbsolutePath,
+					thumbnail);
+			return thumbnail;
+		} catch (IOException e) {
+			log.error("IOException storing thumbnail", e);
+			if (tempFile != null) {
+				tempFile.delete();
+			}
+			throw new JargonException("IOException storing thumbnail for:"
+					+ irodsAbsolutePath, e);
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compute where the thumbnail for a version of a data object is stored
+	 *
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> with the absolute path of the data object
+	 * @param modifiedAt
+	 *            <code>Date</code> with the modify time of the data object
+	 * @return <code>File</code> for the thumbnail, which may not exist
+	 * @throws JargonException
+	 */
+	public File computeThumbnailFile(final String irodsAbsolutePath,
+			final Date modifiedAt) throws JargonException {
+
+		if (irodsAbsolutePath == null || irodsAbsolutePath.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty irodsAbsolutePath");
+		}
+
+		if (modifiedAt == null) {
+			throw new IllegalArgumentException("null modifiedAt");
+		}
+
+		String name;
+		try {
+			MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+			messageDigest.update(irodsAbsolutePath.getBytes("UTF-8"));
+			messageDigest.update((byte) 0);
+			messageDigest.update(String.valueOf(modifiedAt.getTime()).getBytes(
+					"UTF-8"));
+			name = LocalFileUtils.digestByteArrayToString(messageDigest
+					.digest());
+		} catch (NoSuchAlgorithmException e) {
+			throw new JargonException("no SHA-256 digest for thumbnail cache",
+					e);
+		} catch (UnsupportedEncodingException e) {
+			throw new JargonException("no UTF-8 encoding for thumbnail cache",
+					e);
+		}
+
+		return new File(new File(cacheDirectory, name.substring(0, 2)), name
+				+ THUMBNAIL_EXTENSION);
+	}
+
+	public File getCacheDirectory() {
+		return cacheDirectory;
+	}
+
+	@Override
+	public String toString() {
+		return "LocalThumbnailCache [cacheDirectory=" + cacheDirectory + "]";
+	}
+
+}
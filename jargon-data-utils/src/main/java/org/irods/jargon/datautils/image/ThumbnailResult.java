@@ -0,0 +1,93 @@
+package org.irods.jargon.datautils.image;
+
+import java.io.File;
+
+/**
+ * The outcome of generating the thumbnail for one data object in a batch
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class ThumbnailResult {
+
+	public enum ResultStatus {
+		GENERATED, FROM_CACHE, NOT_FOUND, ERROR
+	}
+
+	private final ResultStatus resultStatus;
+	private final String irodsAbsolutePath;
+	private final File thumbnailFile;
+	private final String message;
+
+	/**
+	 * Create a result
+	 *
+	 * @param resultStatus
+	 *            {@link ResultStatus} of the thumbnail
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> with the absolute path of the data object
+	 * @param thumbnailFile
+	 *            <code>File</code> with the thumbnail, or <code>null</code> if
+	 *            there is none
+	 * @param message
+	 *            <code>String</code> describing an error, blank if none
+	 * @return {@link ThumbnailResult}
+	 */
+	public static ThumbnailResult instance(final ResultStatus resultStatus,
+			final String irodsAbsolutePath, final File thumbnailFile,
+			final String message) {
+		return new ThumbnailResult(resultStatus, irodsAbsolutePath,
+				thumbnailFile, message);
+	}
+
+	private ThumbnailResult(final ResultStatus resultStatus,
+			final String irodsAbsolutePath, final File thumbnailFile,
+			final String message) {
+
+		if (resultStatus == null) {
+			throw new IllegalArgumentException("null resultStatus");
+		}
+
+		if (irodsAbsolutePath == null || irodsAbsolutePath.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty irodsAbsolutePath");
+		}
+
+		this.resultStatus = resultStatus;
+		this.irodsAbsolutePath = irodsAbsolutePath;
+		this.thumbnailFile = thumbnailFile;
+		this.message = message == null ? "" : message;
+	}
+
+	public ResultStatus getResultStatus() {
+		return resultStatus;
+	}
+
+	public String getIrodsAbsolutePath() {
+		return irodsAbsolutePath;
+	}
+
+	public File getThumbnailFile() {
+		return thumbnailFile;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("ThumbnailResult");
+		sb.append("\n   resultStatus:");
+		sb.append(resultStatus);
+		sb.append("\n   irodsAbsolutePath:");
+		sb.append(irodsAbsolutePath);
+		sb.append("\n   thumbnailFile:");
+		sb.append(thumbnailFile);
+		sb.append("\n   message:");
+		sb.append(message);
+		return sb.toString();
+	}
+
+}
@@ -2,6 +2,7 @@ package org.irods.jargon.datautils.image;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.List;
 
 import org.irods.jargon.core.exception.JargonException;
 
@@ -50,6 +51,54 @@ public interface ThumbnailService {
 			final String irodsAbsolutePathToGenerateThumbnailFor)
 			throws IRODSThumbnailProcessUnavailableException, JargonException;
 
+	/**
+	 * Generate thumbnails for a batch of iRODS data objects, such as the images
+	 * of a gallery page. The thumbnails are kept in a
+	 * {@link LocalThumbnailCache} in the given directory, keyed by path and
+	 * modify time, so that a thumbnail is only generated again when the data
+	 * object changes. The modify times are looked up together, and the
+	 * thumbnails that are not cached are generated by concurrent rule
+	 * invocations, each over its own connection.
+	 * 
+	 * @param cacheDirectory
+	 *            <code>File</code> with the local directory that holds the
+	 *            cached thumbnails
+	 * @param irodsAbsolutePaths
+	 *            <code>List</code> of <code>String</code> with the absolute
+	 *            paths of the data objects
+	 * @return <code>List</code> of {@link ThumbnailResult}, one per path, in
+	 *         the order given. A data object that is missing, or whose
+	 *         thumbnail fails, has a result with no file, and does not stop
+	 *         the others.
+	 * @throws IRODSThumbnailProcessUnavailableException
+	 *             if thumbnail processing is not set up on iRODS
+	 * @throws JargonException
+	 */
+	List<ThumbnailResult> generateThumbnailsForIRODSPathsViaRule(
+			final File cacheDirectory, final List<String> irodsAbsolutePaths)
+			throws IRODSThumbnailProcessUnavailableException, JargonException;
+
+	/**
+	 * Generate thumbnails for every data object directly under an iRODS
+	 * collection, as in
+	 * {@link #generateThumbnailsForIRODSPathsViaRule(File, List)}
+	 * 
+	 * @param cacheDirectory
+	 *            <code>File</code> with the local directory that holds the
+	 *            cached thumbnails
+	 * @param irodsAbsolutePathToCollection
+	 *            <code>String</code> with the absolute path of the collection
+	 * @return <code>List</code> of {@link ThumbnailResult}, one per data
+	 *         object, in listing order
+	 * @throws IRODSThumbnailProcessUnavailableException
+	 *             if thumbnail processing is not set up on iRODS
+	 * @throws JargonException
+	 */
+	List<ThumbnailResult> generateThumbnailsForIRODSCollectionViaRule(
+			final File cacheDirectory,
+			final String irodsAbsolutePathToCollection)
+			throws IRODSThumbnailProcessUnavailableException, JargonException;
+
 	/**
 	 * Given an iRODS absolute path to a data object, retrieve an
 	 * <code>InputStream</code> which is a thumbnail of the given file at the
@@ -7,7 +7,14 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.exception.DataNotFoundException;
@@ -19,9 +26,12 @@ import org.irods.jargon.core.pub.RuleProcessingAO;
 import org.irods.jargon.core.pub.domain.ObjStat;
 import org.irods.jargon.core.pub.domain.ObjStat.SpecColType;
 import org.irods.jargon.core.pub.domain.RemoteCommandInformation;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
 import org.irods.jargon.core.rule.IRODSRuleExecResult;
 import org.irods.jargon.core.utils.Base64;
+import org.irods.jargon.core.utils.SessionClosingThreadFactory;
 import org.irods.jargon.datautils.AbstractDataUtilsServiceImpl;
+import org.irods.jargon.datautils.image.ThumbnailResult.ResultStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,6 +48,17 @@ public class ThumbnailServiceImpl extends AbstractDataUtilsServiceImpl
 	public static final Logger log = LoggerFactory
 			.getLogger(ThumbnailServiceImpl.class);
 
+	/**
+	 * Default number of thumbnails generated at once in a batch
+	 */
+	public static final int DEFAULT_BATCH_PARALLELISM = 4;
+
+	/**
+	 * Number of thumbnails generated at once in a batch, each over its own
+	 * connection
+	 */
+	private int batchParallelism = DEFAULT_BATCH_PARALLELISM;
+
 	/**
 	 * Constructor with required dependencies
 	 * 
@@ -141,7 +162,7 @@ public class ThumbnailServiceImpl extends AbstractDataUtilsServiceImpl
 			OutputStream fos = new BufferedOutputStream(new FileOutputStream(
 					targetTempFile));
 			log.info("have image data, stream to temp file");
-			byte[] buffer = new byte[1024];
+			byte[] buffer = new byte[8192];
 			int len = is.read(buffer);
 			while (len != -1) {
 				fos.write(buffer, 0, len);
@@ -236,6 +257,24 @@ public class ThumbnailServiceImpl extends AbstractDataUtilsServiceImpl
 
 		log.info("using path:{}", myPath);
 
+		return new java.io.ByteArrayInputStream(invokeThumbnailRule(myPath));
+
+	}
+
+	/**
+	 * Run the rule that generates a thumbnail on the iRODS server
+	 * 
+	 * @param myPath
+	 *            <code>String</code> with the absolute path of the data object,
+	 *            resolved through any soft link
+	 * @return <code>byte[]</code> with the thumbnail image
+	 * @throws IRODSThumbnailProcessUnavailableException
+	 *             if thumbnail processing is not set up on iRODS
+	 * @throws JargonException
+	 */
+	protected byte[] invokeThumbnailRule(final String myPath)
+			throws IRODSThumbnailProcessUnavailableException, JargonException {
+
 		// get Base64 Encoded data from a rule invocation, this represents the
 		// generated thumbnail
 
@@ -275,10 +314,232 @@ public class ThumbnailServiceImpl extends AbstractDataUtilsServiceImpl
 					"no iRODS rule-based thumbnail generation available");
 		}
 
-		InputStream is = new java.io.ByteArrayInputStream(
-				Base64.fromString(execOut));
-		return is;
+		return Base64.fromString(execOut);
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.datautils.image.ThumbnailService#
+	 * generateThumbnailsForIRODSCollectionViaRule(java.io.File,
+	 * java.lang.String)
+	 */
+	@Override
+	public List<ThumbnailResult> generateThumbnailsForIRODSCollectionViaRule(
+			final File cacheDirectory,
+			final String irodsAbsolutePathToCollection)
+			throws IRODSThumbnailProcessUnavailableException, JargonException {
+
+		log.info("generateThumbnailsForIRODSCollectionViaRule()");
+
+		if (irodsAbsolutePathToCollection == null
+				|| irodsAbsolutePathToCollection.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty irodsAbsolutePathToCollection");
+		}
+
+		log.info("irodsAbsolutePathToCollection:{}",
+				irodsAbsolutePathToCollection);
+
+		checkContracts();
+
+		CollectionAndDataObjectListAndSearchAO collectionAndDataObjectListAndSearchAO = getIrodsAccessObjectFactory()
+				.getCollectionAndDataObjectListAndSearchAO(irodsAccount);
+
+		List<String> paths = new ArrayList<String>();
+		boolean lastEntry = false;
+		int ctr = 0;
+		while (!lastEntry) {
+			List<CollectionAndDataObjectListingEntry> entries = collectionAndDataObjectListAndSearchAO
+					.listDataObjectsUnderPath(irodsAbsolutePathToCollection,
+							ctr);
+			if (entries.isEmpty()) {
+				break;
+			}
+			for (CollectionAndDataObjectListingEntry entry : entries) {
+				paths.add(entry.getFormattedAbsolutePath());
+				lastEntry = entry.isLastResult();
+				ctr = entry.getCount();
+			}
+		}
+
+		log.info("{} data objects in collection", paths.size());
+		return generateThumbnailsForIRODSPathsViaRule(cacheDirectory, paths);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.datautils.image.ThumbnailService#
+	 * generateThumbnailsForIRODSPathsViaRule(java.io.File, java.util.List)
+	 */
+	@Override
+	public List<ThumbnailResult> generateThumbnailsForIRODSPathsViaRule(
+			final File cacheDirectory, final List<String> irodsAbsolutePaths)
+			throws IRODSThumbnailProcessUnavailableException, JargonException {
 
+		log.info("generateThumbnailsForIRODSPathsViaRule()");
+
+		if (cacheDirectory == null) {
+			throw new IllegalArgumentException("null cacheDirectory");
+		}
+
+		if (irodsAbsolutePaths == null) {
+			throw new IllegalArgumentException("null irodsAbsolutePaths");
+		}
+
+		checkContracts();
+
+		List<ThumbnailResult> results = new ArrayList<ThumbnailResult>(
+				irodsAbsolutePaths.size());
+		if (irodsAbsolutePaths.isEmpty()) {
+			return results;
+		}
+
+		log.info("thumbnails for {} paths", irodsAbsolutePaths.size());
+
+		final LocalThumbnailCache localThumbnailCache = new LocalThumbnailCache(
+				cacheDirectory);
+
+		// one lookup for the modify times of the whole batch
+		CollectionAndDataObjectListAndSearchAO collectionAndDataObjectListAndSearchAO = getIrodsAccessObjectFactory()
+				.getCollectionAndDataObjectListAndSearchAO(irodsAccount);
+		Map<String, ObjStat> objStats = collectionAndDataObjectListAndSearchAO
+				.retrieveObjectStatsForPaths(irodsAbsolutePaths);
+
+		List<Integer> toGenerate = new ArrayList<Integer>();
+		for (int i = 0; i < irodsAbsolutePaths.size(); i++) {
+			String path = irodsAbsolutePaths.get(i);
+			ObjStat objStat = objStats.get(path);
+			if (objStat == null) {
+				results.add(ThumbnailResult.instance(ResultStatus.NOT_FOUND,
+						path, null, "data object not found"));
+				continue;
+			}
+
+			if (objStat.isSomeTypeOfCollection()) {
+				results.add(ThumbnailResult.instance(ResultStatus.ERROR, path,
+						null, "not a data object"));
+				continue;
+			}
+
+			File cached = localThumbnailCache.findThumbnail(path,
+					objStat.getModifiedAt());
+			if (cached != null) {
+				results.add(ThumbnailResult.instance(ResultStatus.FROM_CACHE,
+						path, cached, ""));
+				continue;
+			}
+
+			results.add(null);
+			toGenerate.add(i);
+		}
+
+		log.info("{} thumbnails to generate", toGenerate.size());
+		if (toGenerate.isEmpty()) {
+			return results;
+		}
+
+		ExecutorService executorService = Executors.newFixedThreadPool(
+				Math.min(batchParallelism, toGenerate.size()),
+				new SessionClosingThreadFactory(getIrodsAccessObjectFactory(),
+						getIrodsAccount(), "jargon-thumbnail"));
+		try {
+			List<Future<ThumbnailResult>> futures = new ArrayList<Future<ThumbnailResult>>(
+					toGenerate.size());
+			for (Integer index : toGenerate) {
+				String path = irodsAbsolutePaths.get(index);
+				futures.add(executorService.submit(buildThumbnailTask(
+						localThumbnailCache, path, objStats.get(path))));
+			}
+
+			for (int i = 0; i < toGenerate.size(); i++) {
+				String path = irodsAbsolutePaths.get(toGenerate.get(i));
+				ThumbnailResult result;
+				try {
+					result = futures.get(i).get();
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof IRODSThumbnailProcessUnavailableException) {
+						executorService.shutdownNow();
+						throw (IRODSThumbnailProcessUnavailableException) e
+								.getCause();
+					}
+					log.warn("thumbnail failed for {}", path, e.getCause());
+					result = ThumbnailResult.instance(ResultStatus.ERROR,
+							path, null, String.valueOf(e.getCause()));
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					executorService.shutdownNow();
+					throw new JargonException(
+							"interrupted generating thumbnails", e);
+				}
+				results.set(toGenerate.get(i), result);
+			}
+		} finally {
+			executorService.shutdown();
+		}
+
+		log.info("thumbnail batch complete");
+		return results;
+	}
+
+	/**
+	 * Build a task that generates and caches the thumbnail for one data
+	 * object. A failure of the data object is returned as an error result,
+	 * other than the thumbnail process being unavailable, which is thrown so
+	 * that the batch stops.
+	 */
+	private Callable<ThumbnailResult> buildThumbnailTask(
+			final LocalThumbnailCache localThumbnailCache, final String path,
+			final ObjStat objStat) {
+		return new Callable<ThumbnailResult>() {
+			@Override
+			public ThumbnailResult call() throws Exception {
+				String myPath;
+				if (objStat.getSpecColType() == SpecColType.LINKED_COLL) {
+					myPath = objStat.getObjectPath();
+				} else {
+					myPath = path;
+				}
+
+				try {
+					byte[] thumbnailData = invokeThumbnailRule(myPath);
+					File thumbnail = localThumbnailCache.storeThumbnail(path,
+							objStat.getModifiedAt(), thumbnailData);
+					return ThumbnailResult.instance(ResultStatus.GENERATED,
+							path, thumbnail, "");
+				} catch (IRODSThumbnailProcessUnavailableException e) {
+					throw e;
+				} catch (JargonException e) {
+					log.warn("thumbnail failed for {}:{}", path,
+							e.getMessage());
+					return ThumbnailResult.instance(ResultStatus.ERROR, path,
+							null, e.getMessage());
+				}
+			}
+		};
+	}
+
+	/**
+	 * @return <code>int</code> with the number of thumbnails generated at once
+	 *         in a batch
+	 */
+	public int getBatchParallelism() {
+		return batchParallelism;
+	}
+
+	/**
+	 * @param batchParallelism
+	 *            <code>int</code> with the number of thumbnails generated at
+	 *            once in a batch, each over its own connection to iRODS
+	 */
+	public void setBatchParallelism(final int batchParallelism) {
+		if (batchParallelism <= 0) {
+			throw new IllegalArgumentException(
+					"batchParallelism must be greater than zero");
+		}
+		this.batchParallelism = batchParallelism;
 	}
 
 }
@@ -0,0 +1,360 @@
+package org.irods.jargon.datautils.tree;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.irods.jargon.core.checksum.ChecksumValue;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.protovalues.ChecksumEncodingEnum;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent index of the checksums of local files, kept in a sidecar file so
+ * that a diff does not checksum a local file again unless it has changed. An
+ * entry is only used while the file has the same length and last modified
+ * time as when its checksum was computed.
+ * <p/>
+ * The index is loaded and saved explicitly. Lookups and updates are thread
+ * safe, so many diff workers may share one index.
+ * <p/>
+ * Each line of the file holds one checksum, with tab separated fields and the
+ * path last. Backslash, tab, carriage return and newline in a path are written
+ * as <code>\\</code>, <code>\t</code>, <code>\r</code> and <code>\n</code>.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class LocalChecksumIndex {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(LocalChecksumIndex.class);
+
+	static final String HEADER = "jargon-local-checksum-index 2";
+	private static final String ENCODING = "UTF-8";
+
+	private final File indexFile;
+	private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+	private volatile boolean dirty = false;
+
+	/**
+	 * Create an index kept in the given sidecar file. Note that the file should
+	 * not be under a directory that is diffed, or it will show up as a
+	 * difference.
+	 *
+	 * @param indexFile
+	 *            <code>File</code> with the local file that holds the index,
+	 *            which need not exist yet
+	 */
+	public LocalChecksumIndex(final File indexFile) {
+		if (indexFile == null) {
+			throw new IllegalArgumentException("null indexFile");
+		}
+		this.indexFile = indexFile;
+	}
+
+	/**
+	 * Read the index from its file, replacing any entries held. A missing file
+	 * is an empty index, and unreadable lines are skipped.
+	 *
+	 * @throws JargonException
+	 *             if the file cannot be read
+	 */
+	public synchronized void load() throws JargonException {
+		log.info("load() from:{}", indexFile);
+		entries.clear();
+		dirty = false;
+
+		if (!indexFile.exists()) {
+			log.info("no index file, index is empty");
+			return;
+		}
+
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new InputStreamReader(
+					new FileInputStream(indexFile), ENCODING));
+			String line = reader.readLine();
+			if (!HEADER.equals(line)) {
+				log.warn("unknown index file format, index is empty");
+				return;
+			}
+
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split("\t", 6);
+				if (fields.length != 6) {
+					log.warn("skipping bad index line:{}", line);
+					continue;
+				}
+				try {
+					ChecksumValue checksumValue = new ChecksumValue();
+					checksumValue.setChecksumEncoding(ChecksumEncodingEnum
+							.valueOf(fields[0]));
+					checksumValue.setChecksumStringValue(fields[3]);
+					checksumValue.setChecksumTransmissionFormat(fields[4]);
+					entries.put(unescapePath(fields[5]),
+							new Entry(Long.parseLong(fields[1]), Long
+									.parseLong(fields[2]), checksumValue));
+				} catch (IllegalArgumentException e) {
+					log.warn("skipping bad index line:{}", line);
+				}
+			}
+			log.info("loaded {} checksums", entries.size());
+		} catch (IOException e) {
+			log.error("IOException reading checksum index", e);
+			throw new JargonException("unable to read checksum index:"
+					+ indexFile, e);
+		} finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	/**
+	 * Write the index to its file, if it has changed since it was loaded or
+	 * saved. The index is written to a temporary file that then replaces the
+	 * old one, so a failed save leaves the old index in place.
+	 *
+	 * @throws JargonException
+	 *             if the file cannot be written
+	 */
+	public synchronized void save() throws JargonException {
+		if (!dirty) {
+			log.info("index unchanged, not saved");
+			return;
+		}
+
+		log.info("save() {} checksums to:{}", entries.size(), indexFile);
+		File parent = indexFile.getAbsoluteFile().getParentFile();
+		parent.mkdirs();
+
+		File tempFile = null;
+		BufferedWriter writer = null;
+		try {
+			tempFile = File.createTempFile("checksums", ".tmp", parent);
+			writer = new BufferedWriter(new OutputStreamWriter(
+					new FileOutputStream(tempFile), ENCODING));
+			writer.write(HEADER);
+			writer.newLine();
+			for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+				Entry entry = mapEntry.getValue();
+				writer.write(entry.checksumValue.getChecksumEncoding().name());
+				writer.write('\t');
+				writer.write(String.valueOf(entry.length));
+				writer.write('\t');
+				writer.write(String.valueOf(entry.lastModified));
+				writer.write('\t');
+				writer.write(entry.checksumValue.getChecksumStringValue());
+				writer.write('\t');
+				writer.write(entry.checksumValue
+						.getChecksumTransmissionFormat());
+				writer.write('\t');
+				writer.write(escapePath(mapEntry.getKey()));
+				writer.newLine();
+			}
+			writer.close();
+			writer = null;
+
+			if (indexFile.exists() && !indexFile.delete()) {
+				throw new JargonException("unable to replace checksum index:"
+						+ indexFile);
+			}
+			if (!tempFile.renameTo(indexFile)) {
+				throw new JargonException("unable to move checksum index to:"
+						+ indexFile);
+			}
+			tempFile = null;
+			dirty = false;
+		} catch (IOException e) {
+			log.error("IOException writing checksum index", e);
+			throw new JargonException("unable to write checksum index:"
+					+ indexFile, e);
+		} finally {
+			if (writer != null) {
+				try {
+					writer.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+			if (tempFile != null) {
+				tempFile.delete();
+			}
+		}
+	}
+
+	/**
+	 * Find the checksum of a local file, if it was recorded and the file has
+	 * not changed since
+	 *
+	 * @param localFile
+	 *            <code>File</code> with the local file
+	 * @param checksumEncoding
+	 *            {@link ChecksumEncodingEnum} of the checksum wanted
+	 * @return {@link ChecksumValue}, or <code>null</code> if there is none
+	 *         that is current
+	 */
+	public ChecksumValue lookup(final File localFile,
+			final ChecksumEncodingEnum checksumEncoding) {
+
+		if (localFile == null) {
+			throw new IllegalArgumentException("null localFile");
+		}
+
+		if (checksumEncoding == null) {
+			throw new IllegalArgumentException("null checksumEncoding");
+		}
+
+		Entry entry = entries.get(localFile.getAbsolutePath());
+		if (entry == null
+				|| entry.checksumValue.getChecksumEncoding() != checksumEncoding
+				|| entry.length != localFile.length()
+				|| entry.lastModified != localFile.lastModified()) {
+			return null;
+		}
+		return entry.checksumValue;
+	}
+
+	/**
+	 * Record the checksum of a local file. The length and last modified time
+	 * must be read before the checksum is computed, so that a file changed
+	 * while it was read does not match the entry.
+	 *
+	 * @param localFile
+	 *            <code>File</code> with the local file
+	 * @param length
+	 *            <code>long</code> with the length of the file before its
+	 *            checksum was computed
+	 * @param lastModified
+	 *            <code>long</code> with the last modified time of the file
+	 *            before its checksum was computed
+	 * @param checksumValue
+	 *            {@link ChecksumValue} computed for the file
+	 */
+	public void record(final File localFile, final long length,
+			final long lastModified, final ChecksumValue checksumValue) {
+
+		if (localFile == null) {
+			throw new IllegalArgumentException("null localFile");
+		}
+
+		if (checksumValue == null) {
+			throw new IllegalArgumentException("null checksumValue");
+		}
+
+		entries.put(localFile.getAbsolutePath(), new Entry(length,
+				lastModified, checksumValue));
+		dirty = true;
+	}
+
+	/**
+	 * @return <code>int</code> with the number of checksums held
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	public File getIndexFile() {
+		return indexFile;
+	}
+
+	/**
+	 * Escape the characters of a path that would break the line format
+	 */
+	static String escapePath(final String path) {
+		StringBuilder sb = new StringBuilder(path.length());
+		for (int i = 0; i < path.length(); i++) {
+			char c = path.charAt(i);
+			switch (c) {
+			case '\\':
+				sb.append("\\\\");
+				break;
+			case '\t':
+				sb.append("\\t");
+				break;
+			case '\r':
+				sb.append("\\r");
+				break;
+			case '\n':
+				sb.append("\\n");
+				break;
+			default:
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Reverse {@link #escapePath(String)}
+	 *
+	 * @throws IllegalArgumentException
+	 *             if the path has a bad escape
+	 */
+	static String unescapePath(final String escaped) {
+		StringBuilder sb = new StringBuilder(escaped.length());
+		for (int i = 0; i < escaped.length(); i++) {
+			char c = escaped.charAt(i);
+			if (c != '\\') {
+				sb.append(c);
+				continue;
+			}
+			if (++i == escaped.length()) {
+				throw new IllegalArgumentException("dangling escape in path");
+			}
+			switch (escaped.charAt(i)) {
+			case '\\':
+				sb.append('\\');
+				break;
+			case 't':
+				sb.append('\t');
+				break;
+			case 'r':
+				sb.append('\r');
+				break;
+			case 'n':
+				sb.append('\n');
+				break;
+			default:
+				throw new IllegalArgumentException("bad escape in path");
+			}
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public String toString() {
+		return "LocalChecksumIndex [indexFile=" + indexFile + ", size="
+				+ entries.size() + "]";
+	}
+
+	/**
+	 * The checksum of a file, and the state of the file it was computed from
+	 */
+	private static class Entry {
+		private final long length;
+		private final long lastModified;
+		private final ChecksumValue checksumValue;
+
+		Entry(final long length, final long lastModified,
+				final ChecksumValue checksumValue) {
+			this.length = length;
+			this.lastModified = lastModified;
+			this.checksumValue = checksumValue;
+		}
+	}
+
+}
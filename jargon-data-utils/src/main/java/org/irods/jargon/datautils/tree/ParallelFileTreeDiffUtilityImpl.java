@@ -0,0 +1,725 @@
+package org.irods.jargon.datautils.tree;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.core.checksum.ChecksumManager;
+import org.irods.jargon.core.checksum.ChecksumManagerImpl;
+import org.irods.jargon.core.checksum.ChecksumValue;
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.pub.io.IRODSFileFactory;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry.ObjectType;
+import org.irods.jargon.core.query.GenQueryBuilderException;
+import org.irods.jargon.core.query.IRODSGenQueryBuilder;
+import org.irods.jargon.core.query.IRODSQueryResultRow;
+import org.irods.jargon.core.query.QueryConditionOperators;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
+import org.irods.jargon.core.transfer.TransferControlBlock;
+import org.irods.jargon.core.utils.GenQueryPagingUtils;
+import org.irods.jargon.core.utils.LocalFileUtils;
+import org.irods.jargon.core.utils.MiscIRODSUtils;
+import org.irods.jargon.core.utils.SessionClosingThreadFactory;
+import org.irods.jargon.datautils.AbstractDataUtilsServiceImpl;
+import org.irods.jargon.datautils.tree.FileTreeDiffEntry.DiffType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Diff between a local file tree and an iRODS file tree, for large trees. The
+ * result is the same {@link FileTreeModel} that {@link FileTreeDiffUtilityImpl}
+ * produces, but the work is done differently:
+ * <ul>
+ * <li>each iRODS collection is read with one GenQuery for its data objects,
+ * including their size, modify time and checksum, and one for its
+ * subcollections, rather than a round trip per file</li>
+ * <li>each local directory is listed once</li>
+ * <li>directories are compared in parallel on a fork-join pool, and each worker
+ * uses its own iRODS connection, which is closed when the diff is done</li>
+ * <li>the checksums of local files may be kept in a {@link LocalChecksumIndex},
+ * so that a later diff only checksums the files that changed</li>
+ * </ul>
+ * A data object with no checksum in the catalog is checksummed by iRODS, as
+ * before. Note that the collections are found by query, so the contents of soft
+ * linked or mounted collections are not compared.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class ParallelFileTreeDiffUtilityImpl extends
+		AbstractDataUtilsServiceImpl implements FileTreeDiffUtility {
+
+	private static final Logger log = LoggerFactory
+			.getLogger(ParallelFileTreeDiffUtilityImpl.class);
+
+	/**
+	 * Default number of directories compared at once
+	 */
+	public static final int DEFAULT_PARALLELISM = 4;
+
+	/**
+	 * Optional field allows communication with diff processor
+	 */
+	private final TransferControlBlock transferControlBlock;
+	private final LocalChecksumIndex localChecksumIndex;
+	private final int parallelism;
+	private final ChecksumManager checksumManager;
+
+	/**
+	 * Constructor with no checksum index and the default parallelism
+	 *
+	 * @param irodsAccount
+	 *            <code>IRODSAccount</code> that is used to connect to the
+	 *            compared iRODS file system
+	 * @param irodsAccessObjectFactory
+	 *            <code>IRODSAccessObjectFactory</code> that is used to obtain
+	 *            objects needed to work with iRODS data
+	 */
+	public ParallelFileTreeDiffUtilityImpl(final IRODSAccount irodsAccount,
+			final IRODSAccessObjectFactory irodsAccessObjectFactory) {
+		this(irodsAccount, irodsAccessObjectFactory, null, null,
+				DEFAULT_PARALLELISM);
+	}
+
+	/**
+	 * Constructor with all options
+	 *
+	 * @param irodsAccount
+	 *            <code>IRODSAccount</code> that is used to connect to the
+	 *            compared iRODS file system
+	 * @param irodsAccessObjectFactory
+	 *            <code>IRODSAccessObjectFactory</code> that is used to obtain
+	 *            objects needed to work with iRODS data
+	 * @param transferControlBlock
+	 *            {@link TransferControlBlock} or <code>null</code>. The
+	 *            transfer control block allows signalling of a cancellation of
+	 *            the diff process.
+	 * @param localChecksumIndex
+	 *            {@link LocalChecksumIndex} that has been loaded, or
+	 *            <code>null</code> to checksum every compared local file. The
+	 *            index is saved at the end of each diff.
+	 * @param parallelism
+	 *            <code>int</code> with the number of directories compared at
+	 *            once
+	 */
+	public ParallelFileTreeDiffUtilityImpl(final IRODSAccount irodsAccount,
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final TransferControlBlock transferControlBlock,
+			final LocalChecksumIndex localChecksumIndex, final int parallelism) {
+
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+
+		if (irodsAccessObjectFactory == null) {
+			throw new IllegalArgumentException("null irodsAccessObjectFactory");
+		}
+
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException(
+					"parallelism must be greater than zero");
+		}
+
+		this.irodsAccount = irodsAccount;
+		this.irodsAccessObjectFactory = irodsAccessObjectFactory;
+		this.transferControlBlock = transferControlBlock;
+		this.localChecksumIndex = localChecksumIndex;
+		this.parallelism = parallelism;
+		checksumManager = new ChecksumManagerImpl(irodsAccount,
+				irodsAccessObjectFactory);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.datautils.tree.FileTreeDiffUtility#
+	 * verifyLocalAndIRODSTreesMatch(java.io.File, java.lang.String, long, long)
+	 */
+	@Override
+	public boolean verifyLocalAndIRODSTreesMatch(final File localFileRoot,
+			final String irodsAbsolutePath,
+			final long timestampForLastSynchLeftHandSide,
+			final long timestampForLastSynchRightHandSide)
+			throws JargonException {
+
+		log.info("verifyLocalAndIRODSTreesMatch");
+
+		FileTreeModel diffModel = generateDiffLocalToIRODS(localFileRoot,
+				irodsAbsolutePath, timestampForLastSynchLeftHandSide,
+				timestampForLastSynchRightHandSide);
+
+		if (diffModel == null) {
+			log.info("diff cancelled");
+			return false;
+		}
+
+		return noDiffsInTree((FileTreeNode) diffModel.getRoot());
+	}
+
+	/**
+	 * Matched files add no node, so the trees match when every node is a
+	 * matched directory
+	 */
+	private boolean noDiffsInTree(final FileTreeNode fileTreeNode) {
+		FileTreeDiffEntry entry = (FileTreeDiffEntry) fileTreeNode
+				.getUserObject();
+		if (entry.getDiffType() != DiffType.DIRECTORY_NO_DIFF) {
+			log.warn("diff found when not expected:{}", entry);
+			return false;
+		}
+
+		for (int i = 0; i < fileTreeNode.getChildCount(); i++) {
+			if (!noDiffsInTree((FileTreeNode) fileTreeNode.getChildAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.datautils.tree.FileTreeDiffUtility#generateDiffLocalToIRODS
+	 * (java.io.File, java.lang.String, long, long)
+	 */
+	@Override
+	public FileTreeModel generateDiffLocalToIRODS(final File localFileRoot,
+			final String irodsAbsolutePath,
+			final long timestampForLastSynchLeftHandSide,
+			final long timestampForLastSynchRightHandSide)
+			throws JargonException {
+
+		if (localFileRoot == null) {
+			throw new IllegalArgumentException("null LocalFileRoot");
+		}
+
+		if (irodsAbsolutePath == null || irodsAbsolutePath.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty irodsAbsolutePath");
+		}
+
+		if (!localFileRoot.exists()) {
+			throw new JargonException("localFileRoot does not exist");
+		}
+
+		if (!localFileRoot.isDirectory()) {
+			throw new JargonException(
+					"localFileRoot is not a directory, cannot do a diff");
+		}
+
+		if (timestampForLastSynchLeftHandSide < 0) {
+			throw new IllegalArgumentException(
+					"timestampForLastSynchLeftHandSide is less than zero");
+		}
+
+		if (timestampForLastSynchRightHandSide < 0) {
+			throw new IllegalArgumentException(
+					"timestampForLastSynchRightHandSide is less than zero");
+		}
+
+		log.info("generateDiffLocalToIRODS() for localFileRoot:{}",
+				localFileRoot.getAbsolutePath());
+		log.info("irodsAbsolutePath for iRODS root:{}", irodsAbsolutePath);
+
+		IRODSFileFactory irodsFileFactory = irodsAccessObjectFactory
+				.getIRODSFileFactory(irodsAccount);
+		IRODSFile rootIRODSFile = irodsFileFactory
+				.instanceIRODSFile(irodsAbsolutePath);
+
+		if (!rootIRODSFile.exists()) {
+			throw new JargonException(
+					"root iRODS file does not exist, cannot do a diff");
+		}
+
+		if (!rootIRODSFile.isDirectory()) {
+			throw new JargonException(
+					"irodsFile is not a directory, cannot do a diff");
+		}
+
+		CollectionAndDataObjectListingEntry entry = new CollectionAndDataObjectListingEntry();
+		entry.setCreatedAt(new Date(localFileRoot.lastModified()));
+		entry.setModifiedAt(entry.getCreatedAt());
+		entry.setObjectType(ObjectType.COLLECTION);
+		entry.setParentPath(LocalFileUtils.normalizePath(localFileRoot
+				.getParent()));
+		entry.setPathOrName(LocalFileUtils.normalizePath(localFileRoot
+				.getAbsolutePath()));
+		FileTreeDiffEntry diffEntry = FileTreeDiffEntry.instance(
+				DiffType.DIRECTORY_NO_DIFF, entry,
+				rootIRODSFile.getAbsolutePath());
+		FileTreeNode fileTreeNode = new FileTreeNode(diffEntry);
+		FileTreeModel fileTreeModel = new FileTreeModel(fileTreeNode);
+
+		ForkJoinPool pool = new ForkJoinPool(parallelism,
+				new SessionClosingThreadFactory(irodsAccessObjectFactory,
+						irodsAccount, "jargon-tree-diff"), null, false);
+		try {
+			pool.invoke(new DirectoryDiffTask(fileTreeNode, localFileRoot,
+					rootIRODSFile.getAbsolutePath()));
+		} catch (RuntimeException e) {
+			// the pool may rethrow a copy of the failure, with the original
+			// as its cause
+			Throwable cause = e;
+			while (cause != null) {
+				if (cause instanceof JargonException) {
+					throw (JargonException) cause;
+				}
+				cause = cause.getCause();
+			}
+			throw e;
+		} finally {
+			pool.shutdown();
+			try {
+				pool.awaitTermination(60, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		if (localChecksumIndex != null) {
+			localChecksumIndex.save();
+		}
+
+		if (isCancelled()) {
+			return null;
+		}
+
+		log.info("diff complete");
+		return fileTreeModel;
+	}
+
+	/**
+	 * A data object or collection directly under an iRODS collection
+	 */
+	private static class IRODSChild {
+		private final ObjectType objectType;
+		private final long dataSize;
+		private final Date modifiedAt;
+		private final String checksum;
+
+		IRODSChild(final ObjectType objectType, final long dataSize,
+				final Date modifiedAt, final String checksum) {
+			this.objectType = objectType;
+			this.dataSize = dataSize;
+			this.modifiedAt = modifiedAt;
+			this.checksum = checksum;
+		}
+
+		long getModifiedAtMillis() {
+			return modifiedAt == null ? 0L : modifiedAt.getTime();
+		}
+	}
+
+	/**
+	 * Carries a checked exception out of a fork-join task
+	 */
+	private static class DiffFailure extends RuntimeException {
+
+		private static final long serialVersionUID = 4172620719036129850L;
+
+		DiffFailure(final JargonException cause) {
+			super(cause);
+		}
+	}
+
+	/**
+	 * Compares a local directory to the iRODS collection of the same relative
+	 * path, filling in the node of the directory, and forks a task for each
+	 * pair of matched subdirectories
+	 */
+	private class DirectoryDiffTask extends RecursiveAction {
+
+		private static final long serialVersionUID = -2238744063521853307L;
+
+		private final FileTreeNode parentNode;
+		private final File localDirectory;
+		private final String irodsCollectionPath;
+
+		DirectoryDiffTask(final FileTreeNode parentNode,
+				final File localDirectory, final String irodsCollectionPath) {
+			this.parentNode = parentNode;
+			this.localDirectory = localDirectory;
+			this.irodsCollectionPath = irodsCollectionPath;
+		}
+
+		@Override
+		protected void compute() {
+			if (isCancelled()) {
+				return;
+			}
+
+			log.debug("comparing {} to {}", localDirectory,
+					irodsCollectionPath);
+
+			File[] localChildren = localDirectory.listFiles();
+			if (localChildren == null) {
+				throw new DiffFailure(new JargonException(
+						"unable to list local directory:"
+								+ localDirectory.getAbsolutePath()));
+			}
+
+			Map<String, File> localFiles = new TreeMap<String, File>();
+			Map<String, File> localDirectories = new TreeMap<String, File>();
+			for (File localChild : localChildren) {
+				if (localChild.isFile()) {
+					localFiles.put(localChild.getName(), localChild);
+				} else if (localChild.isDirectory()) {
+					localDirectories.put(localChild.getName(), localChild);
+				}
+			}
+
+			Map<String, IRODSChild> dataObjects;
+			Map<String, IRODSChild> collections;
+			try {
+				dataObjects = listDataObjects(irodsCollectionPath);
+				collections = listCollections(irodsCollectionPath);
+			} catch (JargonException e) {
+				throw new DiffFailure(e);
+			}
+
+			String localPath = LocalFileUtils.normalizePath(localDirectory
+					.getAbsolutePath());
+
+			// files first, as the serial diff does
+			TreeSet<String> names = new TreeSet<String>(localFiles.keySet());
+			names.addAll(dataObjects.keySet());
+			for (String name : names) {
+				if (isCancelled()) {
+					return;
+				}
+
+				File localFile = localFiles.get(name);
+				IRODSChild dataObject = dataObjects.get(name);
+				String irodsPath = irodsCollectionPath + "/" + name;
+
+				if (localFile != null && dataObject != null) {
+					try {
+						compareTwoMatchedFiles(parentNode, localFile,
+								irodsPath, dataObject);
+					} catch (JargonException e) {
+						throw new DiffFailure(e);
+					}
+				} else if (localFile != null) {
+					IRODSChild collection = collections.get(name);
+					if (collection != null) {
+						log.warn("a file is being compared to a directory of the same name");
+						parentNode.add(new FileTreeNode(
+								buildFileTreeDiffEntryForFile(localFile,
+										DiffType.FILE_NAME_DIR_NAME_COLLISION,
+										irodsPath, 0L,
+										collection.getModifiedAtMillis(), "",
+										"")));
+					} else {
+						parentNode.add(new FileTreeNode(
+								buildFileTreeDiffEntryForFile(localFile,
+										DiffType.LEFT_HAND_PLUS, irodsPath, 0,
+										0, "", "")));
+					}
+				} else {
+					File localDirectoryOfSameName = localDirectories.get(name);
+					if (localDirectoryOfSameName != null) {
+						log.warn("a file is being compared to a directory of the same name");
+						parentNode.add(new FileTreeNode(
+								buildFileTreeDiffEntryForFile(
+										localDirectoryOfSameName,
+										DiffType.FILE_NAME_DIR_NAME_COLLISION,
+										irodsPath, dataObject.dataSize,
+										dataObject.getModifiedAtMillis(), "",
+										"")));
+					} else {
+						parentNode.add(new FileTreeNode(
+								buildFileTreeDiffEntryForIRODSChild(
+										irodsCollectionPath, name, dataObject,
+										localPath + "/" + name)));
+					}
+				}
+			}
+
+			// then directories, matched pairs are compared in parallel
+			names = new TreeSet<String>(localDirectories.keySet());
+			names.addAll(collections.keySet());
+			List<DirectoryDiffTask> subtasks = new ArrayList<DirectoryDiffTask>();
+			for (String name : names) {
+				File localChildDirectory = localDirectories.get(name);
+				IRODSChild collection = collections.get(name);
+				String irodsPath = irodsCollectionPath + "/" + name;
+
+				if (localChildDirectory != null && collection != null) {
+					FileTreeNode childNode = new FileTreeNode(
+							buildFileTreeDiffEntryForFile(localChildDirectory,
+									DiffType.DIRECTORY_NO_DIFF, irodsPath, 0,
+									0, "", ""));
+					parentNode.add(childNode);
+					subtasks.add(new DirectoryDiffTask(childNode,
+							localChildDirectory, irodsPath));
+				} else if (localChildDirectory != null) {
+					if (!dataObjects.containsKey(name)) {
+						parentNode.add(new FileTreeNode(
+								buildFileTreeDiffEntryForFile(
+										localChildDirectory,
+										DiffType.LEFT_HAND_PLUS, irodsPath, 0,
+										0, "", "")));
+					}
+				} else if (!localFiles.containsKey(name)) {
+					parentNode.add(new FileTreeNode(
+							buildFileTreeDiffEntryForIRODSChild(
+									irodsCollectionPath, name, collection,
+									localPath + "/" + name)));
+				}
+			}
+
+			invokeAll(subtasks);
+		}
+	}
+
+	/**
+	 * Matched a local file and a data object by name, compare on length, and
+	 * if the lengths are the same, on checksum
+	 */
+	private void compareTwoMatchedFiles(final FileTreeNode parentNode,
+			final File localFile, final String irodsPath,
+			final IRODSChild dataObject) throws JargonException {
+
+		if (localFile.length() != dataObject.dataSize) {
+			FileTreeDiffEntry entry = buildFileTreeDiffEntryForFile(localFile,
+					DiffType.FILE_OUT_OF_SYNCH, irodsPath, dataObject.dataSize,
+					dataObject.getModifiedAtMillis(), "", "");
+			log.debug("files differ on length:{}", entry);
+			parentNode.add(new FileTreeNode(entry));
+			return;
+		}
+
+		ChecksumValue rhsChecksum = checksumManager
+				.determineChecksumEncodingFromIrodsData(dataObject.checksum);
+		if (rhsChecksum == null) {
+			log.debug("no checksum in catalog, computing for:{}", irodsPath);
+			rhsChecksum = irodsAccessObjectFactory.getDataObjectAO(
+					irodsAccount).computeChecksumOnDataObject(
+					irodsAccessObjectFactory.getIRODSFileFactory(irodsAccount)
+							.instanceIRODSFile(irodsPath));
+		}
+
+		ChecksumValue lhsChecksum = computeLocalChecksum(localFile,
+				rhsChecksum);
+
+		if (!lhsChecksum.getChecksumStringValue().equals(
+				rhsChecksum.getChecksumStringValue())) {
+			FileTreeDiffEntry entry = buildFileTreeDiffEntryForFile(localFile,
+					DiffType.FILE_OUT_OF_SYNCH, irodsPath, dataObject.dataSize,
+					dataObject.getModifiedAtMillis(),
+					lhsChecksum.getChecksumStringValue(),
+					rhsChecksum.getChecksumStringValue());
+			log.debug("files differ on checksum:{}", entry);
+			parentNode.add(new FileTreeNode(entry));
+		}
+	}
+
+	/**
+	 * Get the checksum of a local file from the index, or compute and record
+	 * it
+	 */
+	private ChecksumValue computeLocalChecksum(final File localFile,
+			final ChecksumValue rhsChecksum) throws JargonException {
+
+		if (localChecksumIndex != null) {
+			ChecksumValue indexed = localChecksumIndex.lookup(localFile,
+					rhsChecksum.getChecksumEncoding());
+			if (indexed != null) {
+				return indexed;
+			}
+		}
+
+		// taken before reading, so a file changed while read is not indexed
+		long length = localFile.length();
+		long lastModified = localFile.lastModified();
+
+		ChecksumValue lhsChecksum;
+		try {
+			lhsChecksum = irodsAccessObjectFactory.getIrodsSession()
+					.getLocalChecksumComputerFactory()
+					.instance(rhsChecksum.getChecksumEncoding())
+					.instanceChecksumForPackingInstruction(
+							localFile.getAbsolutePath());
+		} catch (FileNotFoundException e) {
+			log.error("file not found computing checksum", e);
+			throw new JargonException(
+					"data error while synchronizing, cannot find local file for checksum",
+					e);
+		}
+
+		if (localChecksumIndex != null) {
+			localChecksumIndex.record(localFile, length, lastModified,
+					lhsChecksum);
+		}
+		return lhsChecksum;
+	}
+
+	/**
+	 * List the data objects directly under a collection with one query, keyed
+	 * by name. Replicas give a row each, and the first is used.
+	 */
+	private Map<String, IRODSChild> listDataObjects(
+			final String irodsCollectionPath) throws JargonException {
+
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		try {
+			builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_DATA_NAME)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_DATA_SIZE)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_D_MODIFY_TIME)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_D_DATA_CHECKSUM)
+					.addConditionAsGenQueryField(
+							RodsGenQueryEnum.COL_COLL_NAME,
+							QueryConditionOperators.EQUAL, irodsCollectionPath);
+		} catch (GenQueryBuilderException e) {
+			log.error("error building data object query", e);
+			throw new JargonException("error building query", e);
+		}
+
+		Map<String, IRODSChild> dataObjects = new TreeMap<String, IRODSChild>();
+		for (IRODSQueryResultRow row : GenQueryPagingUtils.queryAllRows(
+				irodsAccessObjectFactory, irodsAccount, builder,
+				MiscIRODSUtils.getZoneInPath(irodsCollectionPath))) {
+			String name = row.getColumn(0);
+			IRODSChild existing = dataObjects.get(name);
+			if (existing != null && !existing.checksum.isEmpty()) {
+				continue;
+			}
+			// prefer a replica with a checksum
+			dataObjects.put(
+					name,
+					new IRODSChild(ObjectType.DATA_OBJECT, row
+							.getColumnAsLongOrZero(1), row
+							.getColumnAsDateOrNull(2), row.getColumn(3)));
+		}
+		return dataObjects;
+	}
+
+	/**
+	 * List the collections directly under a collection with one query, keyed
+	 * by name
+	 */
+	private Map<String, IRODSChild> listCollections(
+			final String irodsCollectionPath) throws JargonException {
+
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		try {
+			builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_NAME)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_COLL_MODIFY_TIME)
+					.addConditionAsGenQueryField(
+							RodsGenQueryEnum.COL_COLL_PARENT_NAME,
+							QueryConditionOperators.EQUAL, irodsCollectionPath);
+		} catch (GenQueryBuilderException e) {
+			log.error("error building collection query", e);
+			throw new JargonException("error building query", e);
+		}
+
+		Map<String, IRODSChild> collections = new TreeMap<String, IRODSChild>();
+		for (IRODSQueryResultRow row : GenQueryPagingUtils.queryAllRows(
+				irodsAccessObjectFactory, irodsAccount, builder,
+				MiscIRODSUtils.getZoneInPath(irodsCollectionPath))) {
+			String path = row.getColumn(0);
+			if (path.equals(irodsCollectionPath)) {
+				// the root lists itself as its own child
+				continue;
+			}
+			collections.put(
+					MiscIRODSUtils
+							.getLastPathComponentForGiveAbsolutePath(path),
+					new IRODSChild(ObjectType.COLLECTION, 0L, row
+							.getColumnAsDateOrNull(1), ""));
+		}
+		return collections;
+	}
+
+	private FileTreeDiffEntry buildFileTreeDiffEntryForFile(
+			final File diffFile, final DiffType diffType,
+			final String absolutePathOppositeFile,
+			final long lengthOppositeSide, final long timestampOppositeSide,
+			final String checksumThisFile, final String checksumOppositeFile) {
+		CollectionAndDataObjectListingEntry entry = new CollectionAndDataObjectListingEntry();
+		entry.setCreatedAt(new Date(diffFile.lastModified()));
+		entry.setModifiedAt(entry.getCreatedAt());
+		entry.setDataSize(diffFile.length());
+		entry.setParentPath(LocalFileUtils.normalizePath(diffFile.getParent()));
+
+		if (diffFile.isFile()) {
+			entry.setObjectType(ObjectType.DATA_OBJECT);
+			entry.setPathOrName(diffFile.getName());
+			return FileTreeDiffEntry.instanceForFileDiff(diffType, entry,
+					absolutePathOppositeFile, lengthOppositeSide,
+					timestampOppositeSide, checksumThisFile,
+					checksumOppositeFile);
+		}
+
+		entry.setObjectType(ObjectType.COLLECTION);
+		entry.setPathOrName(entry.getParentPath() + "/" + diffFile.getName());
+		return FileTreeDiffEntry.instance(diffType, entry,
+				absolutePathOppositeFile, lengthOppositeSide,
+				timestampOppositeSide);
+	}
+
+	/**
+	 * Build the entry for a data object or collection found only in iRODS
+	 */
+	private FileTreeDiffEntry buildFileTreeDiffEntryForIRODSChild(
+			final String irodsCollectionPath, final String name,
+			final IRODSChild irodsChild, final String absolutePathOppositeFile) {
+		CollectionAndDataObjectListingEntry entry = new CollectionAndDataObjectListingEntry();
+		entry.setCreatedAt(irodsChild.modifiedAt);
+		entry.setModifiedAt(irodsChild.modifiedAt);
+		entry.setDataSize(irodsChild.dataSize);
+		entry.setObjectType(irodsChild.objectType);
+		entry.setParentPath(irodsCollectionPath);
+		if (irodsChild.objectType == ObjectType.DATA_OBJECT) {
+			entry.setPathOrName(name);
+			return FileTreeDiffEntry.instanceForFileDiff(
+					DiffType.RIGHT_HAND_PLUS, entry, absolutePathOppositeFile,
+					0, 0, "", "");
+		}
+
+		entry.setPathOrName(irodsCollectionPath + "/" + name);
+		return FileTreeDiffEntry.instance(DiffType.RIGHT_HAND_PLUS, entry,
+				absolutePathOppositeFile, 0, 0);
+	}
+
+	/**
+	 * @return the transferControlBlock
+	 */
+	public TransferControlBlock getTransferControlBlock() {
+		return transferControlBlock;
+	}
+
+	public LocalChecksumIndex getLocalChecksumIndex() {
+		return localChecksumIndex;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public boolean isCancelled() {
+		boolean cancelled = false;
+		if (transferControlBlock != null) {
+			cancelled = (transferControlBlock.isCancelled() || transferControlBlock
+					.isPaused());
+		}
+		return cancelled;
+	}
+
+}
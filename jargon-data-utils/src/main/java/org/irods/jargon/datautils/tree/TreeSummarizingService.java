@@ -27,6 +27,27 @@ public interface TreeSummarizingService {
 	TreeSummary generateTreeSummaryForIrodsFileTree(String irodsFilePath)
 			throws FileNotFoundException, JargonException;
 
+	/**
+	 * Create a summary describing the contents of an iRODS file tree, computed
+	 * by GenQuery aggregates grouped by collection rather than by visiting
+	 * each file. The summary of each collection directly under the given path
+	 * is also computed, in parallel, and is returned in
+	 * {@link TreeSummary#getSubtreeSummaryMap()}.
+	 * <p/>
+	 * Each data object is counted once, whatever replicas it has. A
+	 * collection whose replicas have more than one replica number is counted
+	 * by a query with a row per data object, rather than by aggregates.
+	 *
+	 * @param irodsFilePath
+	 *            <code>String</code> with an absolute path to an iRODS tree
+	 * @return {@link TreeSummary}
+	 * @throws FileNotFoundException
+	 * @throws JargonException
+	 */
+	TreeSummary generateTreeSummaryForIrodsFileTreeViaQuery(
+			String irodsFilePath) throws FileNotFoundException,
+			JargonException;
+
 	/**
 	 * Create a summary describing the contents of a local file tree
 	 * 
@@ -5,11 +5,33 @@ package org.irods.jargon.datautils.tree;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.irods.jargon.core.query.GenQueryBuilderException;
+import org.irods.jargon.core.query.GenQueryField.SelectFieldTypes;
+import org.irods.jargon.core.query.IRODSGenQueryBuilder;
+import org.irods.jargon.core.query.IRODSQueryResultRow;
+import org.irods.jargon.core.query.QueryConditionOperators;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
 import org.irods.jargon.core.service.AbstractJargonService;
+import org.irods.jargon.core.utils.GenQueryPagingUtils;
+import org.irods.jargon.core.utils.LocalFileUtils;
+import org.irods.jargon.core.utils.MiscIRODSUtils;
+import org.irods.jargon.core.utils.SessionClosingThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,6 +54,14 @@ public class TreeSummarizingServiceImpl extends AbstractJargonService implements
 	private static final Logger log = LoggerFactory
 			.getLogger(TreeSummarizingServiceImpl.class);
 
+	/**
+	 * Default number of subtrees summarized at once by a summary computed by
+	 * query
+	 */
+	public static final int DEFAULT_PARALLELISM = 4;
+
+	private int parallelism = DEFAULT_PARALLELISM;
+
 	/**
 	 * @param irodsAccessObjectFactory
 	 * @param irodsAccount
@@ -79,6 +109,395 @@ public class TreeSummarizingServiceImpl extends AbstractJargonService implements
 
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.datautils.tree.TreeSummarizingService#
+	 * generateTreeSummaryForIrodsFileTreeViaQuery(java.lang.String)
+	 */
+	@Override
+	public TreeSummary generateTreeSummaryForIrodsFileTreeViaQuery(
+			final String irodsFilePath) throws FileNotFoundException,
+			JargonException {
+		log.info("generateTreeSummaryForIrodsFileTreeViaQuery()");
+
+		if (irodsFilePath == null || irodsFilePath.isEmpty()) {
+			throw new IllegalArgumentException("null or empty irodsFilePath");
+		}
+
+		log.info("irodsFilePath:{}", irodsFilePath);
+
+		ObjStat objStat;
+		try {
+			objStat = getIrodsAccessObjectFactory()
+					.getCollectionAndDataObjectListAndSearchAO(
+							getIrodsAccount()).retrieveObjectStatForPath(
+							irodsFilePath);
+		} catch (org.irods.jargon.core.exception.FileNotFoundException e) {
+			throw new FileNotFoundException("cannot find iRODS file");
+		}
+
+		TreeSummary summary = new TreeSummary();
+
+		if (!objStat.isSomeTypeOfCollection()) {
+			log.info("summary of a single data object");
+			summary.addFileCounts(1L, objStat.getObjSize(),
+					objStat.getObjSize(), objStat.getObjSize());
+			summary.addExtensionCount(LocalFileUtils
+					.getFileExtension(MiscIRODSUtils
+							.getLastPathComponentForGiveAbsolutePath(
+									irodsFilePath).toLowerCase()), 1L);
+			summary.addFileSizeCount(
+					TreeSummary.classifyLength(objStat.getObjSize()), 1L);
+			return summary;
+		}
+
+		String zone = MiscIRODSUtils.getZoneInPath(irodsFilePath);
+
+		// data objects directly in the root
+		summarizeDataObjects(summary, irodsFilePath, false, zone);
+
+		// then each subtree in parallel
+		List<String> subcollections = listSubcollections(irodsFilePath, zone);
+		log.info("summarizing {} subtrees", subcollections.size());
+		if (subcollections.isEmpty()) {
+			return summary;
+		}
+
+		ExecutorService executorService = Executors.newFixedThreadPool(
+				Math.min(parallelism, subcollections.size()),
+				new SessionClosingThreadFactory(getIrodsAccessObjectFactory(),
+						getIrodsAccount(), "jargon-tree-summary"));
+		try {
+			List<Future<TreeSummary>> futures = new ArrayList<Future<TreeSummary>>(
+					subcollections.size());
+			for (String subcollection : subcollections) {
+				futures.add(executorService.submit(buildSubtreeTask(
+						subcollection, zone)));
+			}
+
+			for (int i = 0; i < subcollections.size(); i++) {
+				TreeSummary subtreeSummary;
+				try {
+					subtreeSummary = futures.get(i).get();
+				} catch (ExecutionException e) {
+					log.error("error summarizing subtree", e.getCause());
+					if (e.getCause() instanceof JargonException) {
+						throw (JargonException) e.getCause();
+					}
+					throw new JargonException("error summarizing subtree:"
+							+ subcollections.get(i), e.getCause());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new JargonException("interrupted summarizing tree",
+							e);
+				}
+				summary.getSubtreeSummaryMap().put(subcollections.get(i),
+						subtreeSummary);
+				summary.merge(subtreeSummary);
+			}
+		} finally {
+			executorService.shutdownNow();
+		}
+
+		log.info("...done");
+		return summary;
+	}
+
+	private Callable<TreeSummary> buildSubtreeTask(final String collection,
+			final String zone) {
+		return new Callable<TreeSummary>() {
+			@Override
+			public TreeSummary call() throws JargonException {
+				TreeSummary subtreeSummary = new TreeSummary();
+				summarizeDataObjects(subtreeSummary, collection, false, zone);
+				summarizeDataObjects(subtreeSummary, collection, true, zone);
+				return subtreeSummary;
+			}
+		};
+	}
+
+	/**
+	 * Add the data objects of a collection, or of the collections beneath it,
+	 * to a summary. The count, total, min and max are GenQuery aggregates
+	 * grouped by collection, as are the counts below each size limit that
+	 * give the size buckets. GenQuery cannot take a substring of a name, so
+	 * the extension histogram pages over the distinct names in each
+	 * collection.
+	 * <p/>
+	 * Underscores and percent signs in the collection name are wildcards in
+	 * the like condition for the collections beneath it, so each grouped row
+	 * of a sibling collection that happens to match is dropped.
+	 * <p/>
+	 * Replicas: the aggregates are over one row per replica. A data object
+	 * has at most one replica with a given number, so in a collection where
+	 * every replica has the same number, each row is a different data object
+	 * and the aggregates are exact. A collection with more than one replica
+	 * number may hold data objects with several replicas, so it is instead
+	 * listed with one row per data object, grouped by name, with the size of
+	 * the largest replica.
+	 */
+	private void summarizeDataObjects(final TreeSummary summary,
+			final String collection, final boolean descendants,
+			final String zone) throws JargonException {
+		try {
+			summarizeDataObjectsWithQueries(summary, collection, descendants,
+					zone);
+		} catch (GenQueryBuilderException e) {
+			log.error("error building summary query", e);
+			throw new JargonException("error building summary query", e);
+		}
+	}
+
+	private void summarizeDataObjectsWithQueries(final TreeSummary summary,
+			final String collection, final boolean descendants,
+			final String zone) throws JargonException,
+			GenQueryBuilderException {
+
+		// collection name to count and total of its replicas
+		Map<String, long[]> countAndTotals = new HashMap<String, long[]>();
+		for (IRODSQueryResultRow row : queryByCollection(
+				buildDataObjectQuery(collection, descendants)
+						.addSelectAsAgregateGenQueryValue(
+								RodsGenQueryEnum.COL_D_DATA_ID,
+								SelectFieldTypes.COUNT)
+						.addSelectAsAgregateGenQueryValue(
+								RodsGenQueryEnum.COL_DATA_SIZE,
+								SelectFieldTypes.SUM), collection,
+				descendants, zone)) {
+			countAndTotals.put(row.getColumn(0), new long[] {
+					row.getColumnAsLongOrZero(1), row.getColumnAsLongOrZero(2) });
+		}
+
+		if (countAndTotals.isEmpty()) {
+			return;
+		}
+
+		Set<String> replicated = findCollectionsWithSeveralReplicaNumbers(
+				collection, descendants, zone);
+		for (String replicatedCollection : replicated) {
+			summarizeDataObjectsByName(summary, replicatedCollection, zone);
+		}
+		countAndTotals.keySet().removeAll(replicated);
+
+		if (countAndTotals.isEmpty()) {
+			return;
+		}
+
+		// a column is selected once per query, so min and max are queries of
+		// their own
+		Map<String, Long> mins = queryLongByCollection(
+				buildDataObjectQuery(collection, descendants)
+						.addSelectAsAgregateGenQueryValue(
+								RodsGenQueryEnum.COL_DATA_SIZE,
+								SelectFieldTypes.MIN), collection,
+				descendants, zone);
+		Map<String, Long> maxes = queryLongByCollection(
+				buildDataObjectQuery(collection, descendants)
+						.addSelectAsAgregateGenQueryValue(
+								RodsGenQueryEnum.COL_DATA_SIZE,
+								SelectFieldTypes.MAX), collection,
+				descendants, zone);
+
+		long count = 0L;
+		long min = Long.MAX_VALUE;
+		long max = 0L;
+		for (Map.Entry<String, long[]> entry : countAndTotals.entrySet()) {
+			long collectionMin = valueOrZero(mins, entry.getKey());
+			long collectionMax = valueOrZero(maxes, entry.getKey());
+			summary.addFileCounts(entry.getValue()[0], entry.getValue()[1],
+					collectionMin, collectionMax);
+			count += entry.getValue()[0];
+			min = Math.min(min, collectionMin);
+			max = Math.max(max, collectionMax);
+		}
+
+		// count below each limit, buckets outside of min and max are known
+		long countBelowLastLimit = 0L;
+		for (int i = 0; i < TreeSummary.SIZE_LIMITS.length; i++) {
+			long limit = TreeSummary.SIZE_LIMITS[i];
+			long countBelowLimit;
+			if (limit <= min) {
+				countBelowLimit = 0L;
+			} else if (limit > max) {
+				countBelowLimit = count;
+			} else {
+				IRODSGenQueryBuilder builder = buildDataObjectQuery(
+						collection, descendants)
+						.addSelectAsAgregateGenQueryValue(
+								RodsGenQueryEnum.COL_D_DATA_ID,
+								SelectFieldTypes.COUNT)
+						.addConditionAsGenQueryField(
+								RodsGenQueryEnum.COL_DATA_SIZE,
+								QueryConditionOperators.NUMERIC_LESS_THAN, limit);
+				countBelowLimit = sumOfCollections(
+						queryLongByCollection(builder, collection, descendants,
+								zone), countAndTotals.keySet());
+			}
+			summary.addFileSizeCount(TreeSummary.SIZE_BUCKETS[i],
+					countBelowLimit - countBelowLastLimit);
+			countBelowLastLimit = countBelowLimit;
+		}
+		summary.addFileSizeCount(TreeSummary.SIZE_GT_100GB, count
+				- countBelowLastLimit);
+
+		for (IRODSQueryResultRow row : queryByCollection(
+				buildDataObjectQuery(collection, descendants)
+						.addSelectAsGenQueryValue(
+								RodsGenQueryEnum.COL_DATA_NAME), collection,
+				descendants, zone)) {
+			if (countAndTotals.containsKey(row.getColumn(0))) {
+				summary.addExtensionCount(LocalFileUtils.getFileExtension(row
+						.getColumn(1).toLowerCase()), 1L);
+			}
+		}
+	}
+
+	/**
+	 * Find the collections that have replicas with more than one replica
+	 * number, and so may hold data objects with several replicas
+	 */
+	private Set<String> findCollectionsWithSeveralReplicaNumbers(
+			final String collection, final boolean descendants,
+			final String zone) throws JargonException,
+			GenQueryBuilderException {
+		Set<String> seen = new HashSet<String>();
+		Set<String> replicated = new HashSet<String>();
+		for (IRODSQueryResultRow row : queryByCollection(
+				buildDataObjectQuery(collection, descendants)
+						.addSelectAsGenQueryValue(
+								RodsGenQueryEnum.COL_DATA_REPL_NUM),
+				collection, descendants, zone)) {
+			if (!seen.add(row.getColumn(0))) {
+				replicated.add(row.getColumn(0));
+			}
+		}
+		return replicated;
+	}
+
+	/**
+	 * Add the data objects of one collection, with a row for each data object
+	 * however many replicas it has
+	 */
+	private void summarizeDataObjectsByName(final TreeSummary summary,
+			final String collection, final String zone)
+			throws JargonException, GenQueryBuilderException {
+		log.debug("collection with several replica numbers:{}", collection);
+		for (IRODSQueryResultRow row : GenQueryPagingUtils.queryAllRows(
+				getIrodsAccessObjectFactory(),
+				getIrodsAccount(),
+				new IRODSGenQueryBuilder(true, null)
+						.addSelectAsGenQueryValue(
+								RodsGenQueryEnum.COL_DATA_NAME)
+						.addSelectAsAgregateGenQueryValue(
+								RodsGenQueryEnum.COL_DATA_SIZE,
+								SelectFieldTypes.MAX)
+						.addConditionAsGenQueryField(
+								RodsGenQueryEnum.COL_COLL_NAME,
+								QueryConditionOperators.EQUAL, collection),
+				zone)) {
+			summary.addFileInfo(row.getColumn(0), row.getColumnAsLongOrZero(1));
+		}
+	}
+
+	/**
+	 * Builder selecting the collection name, grouping any aggregate by
+	 * collection, with the condition for the collection or the collections
+	 * beneath it
+	 */
+	private IRODSGenQueryBuilder buildDataObjectQuery(
+			final String collection, final boolean descendants)
+			throws GenQueryBuilderException {
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null)
+				.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_NAME);
+		if (descendants) {
+			builder.addConditionAsGenQueryField(RodsGenQueryEnum.COL_COLL_NAME,
+					QueryConditionOperators.LIKE, collection + "/%");
+		} else {
+			builder.addConditionAsGenQueryField(RodsGenQueryEnum.COL_COLL_NAME,
+					QueryConditionOperators.EQUAL, collection);
+		}
+		return builder;
+	}
+
+	/**
+	 * Run a query whose first column is the collection name, dropping the rows
+	 * of sibling collections that match the wildcards of the like condition
+	 */
+	private List<IRODSQueryResultRow> queryByCollection(
+			final IRODSGenQueryBuilder builder, final String collection,
+			final boolean descendants, final String zone)
+			throws JargonException {
+		List<IRODSQueryResultRow> rows = GenQueryPagingUtils.queryAllRows(
+				getIrodsAccessObjectFactory(), getIrodsAccount(), builder, zone);
+		if (!descendants) {
+			return rows;
+		}
+
+		String descendantPrefix = collection + "/";
+		List<IRODSQueryResultRow> subtreeRows = new ArrayList<IRODSQueryResultRow>(
+				rows.size());
+		for (IRODSQueryResultRow row : rows) {
+			if (row.getColumn(0).startsWith(descendantPrefix)) {
+				subtreeRows.add(row);
+			}
+		}
+		return subtreeRows;
+	}
+
+	private Map<String, Long> queryLongByCollection(
+			final IRODSGenQueryBuilder builder, final String collection,
+			final boolean descendants, final String zone)
+			throws JargonException {
+		Map<String, Long> values = new HashMap<String, Long>();
+		for (IRODSQueryResultRow row : queryByCollection(builder, collection,
+				descendants, zone)) {
+			values.put(row.getColumn(0), row.getColumnAsLongOrZero(1));
+		}
+		return values;
+	}
+
+	private static long valueOrZero(final Map<String, Long> values,
+			final String collection) {
+		Long value = values.get(collection);
+		return value == null ? 0L : value;
+	}
+
+	private static long sumOfCollections(final Map<String, Long> values,
+			final Set<String> collections) {
+		long sum = 0L;
+		for (String collection : collections) {
+			sum += valueOrZero(values, collection);
+		}
+		return sum;
+	}
+
+	private List<String> listSubcollections(final String collection,
+			final String zone) throws JargonException {
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		try {
+			builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_NAME)
+					.addConditionAsGenQueryField(
+							RodsGenQueryEnum.COL_COLL_PARENT_NAME,
+							QueryConditionOperators.EQUAL, collection);
+		} catch (GenQueryBuilderException e) {
+			log.error("error building subcollection query", e);
+			throw new JargonException("error building summary query", e);
+		}
+
+		List<String> subcollections = new ArrayList<String>();
+		for (IRODSQueryResultRow row : GenQueryPagingUtils.queryAllRows(
+				getIrodsAccessObjectFactory(), getIrodsAccount(), builder,
+				zone)) {
+			String subcollection = row.getColumn(0);
+			// the root collection is its own parent
+			if (!subcollection.equals(collection)) {
+				subcollections.add(subcollection);
+			}
+		}
+		return subcollections;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -115,4 +534,26 @@ public class TreeSummarizingServiceImpl extends AbstractJargonService implements
 
 	}
 
+	/**
+	 * @return <code>int</code> with the number of subtrees summarized at once
+	 *         by a summary computed by query
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * @param parallelism
+	 *            <code>int</code> with the number of subtrees summarized at
+	 *            once by a summary computed by query, each over its own
+	 *            connection to iRODS
+	 */
+	public void setParallelism(final int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException(
+					"parallelism must be greater than zero");
+		}
+		this.parallelism = parallelism;
+	}
+
 }
@@ -4,6 +4,7 @@
 package org.irods.jargon.datautils.tree;
 
 import java.io.File;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
@@ -28,8 +29,21 @@ public class TreeSummary {
 	public static final String SIZE_100GB = "100GB";
 	public static final String SIZE_GT_100GB = "> 100 GB";
 
+	/**
+	 * Upper limit, exclusive, of each file size bucket but the last
+	 */
+	static final long[] SIZE_LIMITS = { 10L * 1024L, 100L * 1024L,
+			1024L * 1024L, 32L * 1024L * 1024L, 100L * 1024L * 1024L,
+			1024L * 1024L * 1024L, 10L * 1024L * 1024L * 1024L,
+			100L * 1024L * 1024L * 1024L };
+
+	static final String[] SIZE_BUCKETS = { SIZE_10K, SIZE_100K, SIZE_1M,
+			SIZE_32M, SIZE_100M, SIZE_1GB, SIZE_10GB, SIZE_100GB,
+			SIZE_GT_100GB };
+
 	private ConcurrentMap<String, AtomicLong> fileSizeSummaryMap = new ConcurrentHashMap<String, AtomicLong>();
 	private final ConcurrentMap<String, AtomicLong> fileExtensionSummaryMap = new ConcurrentHashMap<String, AtomicLong>();
+	private final ConcurrentMap<String, TreeSummary> subtreeSummaryMap = new ConcurrentHashMap<String, TreeSummary>();
 
 	private long totalBytes = 0L;
 	private long totalFiles = 0L;
@@ -59,46 +73,109 @@ public class TreeSummary {
 	}
 
 	public void processFileInfo(final File file) {
+		addFileInfo(file.getName(), file.length());
+	}
+
+	/**
+	 * Add one file to the counts
+	 *
+	 * @param name
+	 *            <code>String</code> with the name of the file
+	 * @param length
+	 *            <code>long</code> with the length of the file
+	 */
+	void addFileInfo(final String name, final long length) {
 
-		long length = file.length();
-		String extension = LocalFileUtils.getFileExtension(file.getName()
-				.toLowerCase());
+		String extension = LocalFileUtils.getFileExtension(name.toLowerCase());
+
+		addFileCounts(1L, length, length, length);
+		addExtensionCount(extension, 1L);
+		fileSizeSummaryMap.get(classifyLength(length)).incrementAndGet();
+
+	}
+
+	/**
+	 * Find the file size bucket of a length
+	 *
+	 * @param length
+	 *            <code>long</code> with a file length
+	 * @return <code>String</code> with the key of the bucket in the file size
+	 *         summary map
+	 */
+	static String classifyLength(final long length) {
+		for (int i = 0; i < SIZE_LIMITS.length; i++) {
+			if (length < SIZE_LIMITS[i]) {
+				return SIZE_BUCKETS[i];
+			}
+		}
+		return SIZE_GT_100GB;
+	}
 
-		totalBytes += length;
-		totalFiles++;
+	/**
+	 * Add the counts of a group of files
+	 *
+	 * @param files
+	 *            <code>long</code> with the number of files
+	 * @param bytes
+	 *            <code>long</code> with the total length of the files
+	 * @param min
+	 *            <code>long</code> with the length of the shortest file
+	 * @param max
+	 *            <code>long</code> with the length of the longest file
+	 */
+	void addFileCounts(final long files, final long bytes, final long min,
+			final long max) {
+		if (files == 0) {
+			return;
+		}
 
-		if (minLength == 0) {
-			minLength = length;
+		if (totalFiles == 0 || min < minLength) {
+			minLength = min;
 		}
 
-		if (length > maxLength) {
-			maxLength = length;
+		if (max > maxLength) {
+			maxLength = max;
 		}
 
+		totalBytes += bytes;
+		totalFiles += files;
+	}
+
+	void addExtensionCount(final String extension, final long count) {
 		fileExtensionSummaryMap.putIfAbsent(extension, new AtomicLong(0));
-		fileExtensionSummaryMap.get(extension).incrementAndGet();
-
-		// classify length
-		if (length < 10 * 1024) {
-			fileSizeSummaryMap.get(SIZE_10K).incrementAndGet();
-		} else if (length < 100 * 1024) {
-			fileSizeSummaryMap.get(SIZE_100K).incrementAndGet();
-		} else if (length < 1 * 1024 * 1024) {
-			fileSizeSummaryMap.get(SIZE_1M).incrementAndGet();
-		} else if (length < 32 * 1024 * 1024) {
-			fileSizeSummaryMap.get(SIZE_32M).incrementAndGet();
-		} else if (length < 100 * 1024 * 1024) {
-			fileSizeSummaryMap.get(SIZE_100M).incrementAndGet();
-		} else if (length < 1 * 1024 * 1024 * 1024) {
-			fileSizeSummaryMap.get(SIZE_1GB).incrementAndGet();
-		} else if (length < 10 * 1024 * 1024) {
-			fileSizeSummaryMap.get(SIZE_10GB).incrementAndGet();
-		} else if (length < 100 * 1024 * 1024 * 1024) {
-			fileSizeSummaryMap.get(SIZE_100GB).incrementAndGet();
-		} else {
-			fileSizeSummaryMap.get(SIZE_GT_100GB).incrementAndGet();
+		fileExtensionSummaryMap.get(extension).addAndGet(count);
+	}
+
+	void addFileSizeCount(final String sizeBucket, final long count) {
+		fileSizeSummaryMap.get(sizeBucket).addAndGet(count);
+	}
+
+	/**
+	 * Add the counts of another summary to this one
+	 *
+	 * @param other
+	 *            {@link TreeSummary} to add
+	 */
+	void merge(final TreeSummary other) {
+		addFileCounts(other.totalFiles, other.totalBytes, other.minLength,
+				other.maxLength);
+		for (Map.Entry<String, AtomicLong> entry : other.fileExtensionSummaryMap
+				.entrySet()) {
+			addExtensionCount(entry.getKey(), entry.getValue().get());
 		}
+		for (Map.Entry<String, AtomicLong> entry : other.fileSizeSummaryMap
+				.entrySet()) {
+			addFileSizeCount(entry.getKey(), entry.getValue().get());
+		}
+	}
 
+	/**
+	 * @return the subtreeSummaryMap, with a summary of each collection
+	 *         directly under the root, keyed by absolute path. This is only
+	 *         filled in for an iRODS summary computed by query.
+	 */
+	public ConcurrentMap<String, TreeSummary> getSubtreeSummaryMap() {
+		return subtreeSummaryMap;
 	}
 
 	/**
@@ -0,0 +1,269 @@
+package org.irods.jargon.datautils.datacache;
+
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.DataObjInp;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServer;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerConfiguration;
+import org.junit.Test;
+
+public class OffHeapDataCacheTest {
+
+	private static final IRODSAccount ACCOUNT = account("host1", "test1");
+	private static final IRODSAccount OTHER_USER = account("host1", "test2");
+	private static final IRODSAccount OTHER_HOST = account("host2", "test1");
+
+	private static IRODSAccount account(final String host,
+			final String userName) {
+		try {
+			return IRODSAccount.instance(host, 1247, userName, "test",
+					"/zone/home/" + userName, "zone", "");
+		} catch (JargonException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Cache with a clock the test moves
+	 */
+	private static class ClockedOffHeapDataCache extends OffHeapDataCache {
+		private long now = 1000L;
+
+		ClockedOffHeapDataCache(final long maxBytes,
+				final long timeToLiveMillis) {
+			super(maxBytes, timeToLiveMillis);
+		}
+
+		@Override
+		protected long currentTimeMillis() {
+			return now;
+		}
+	}
+
+	@Test
+	public void testPutAndGet() throws Exception {
+		OffHeapDataCache cache = new OffHeapDataCache();
+		byte[] value = "hello".getBytes();
+		cache.put(ACCOUNT, "/zone/home/test1/cache/test1-1.dat", value, Long.MAX_VALUE);
+		value[0] = 'j';
+
+		byte[] actual = cache.get(ACCOUNT, "/zone/home/test1/cache/test1-1.dat");
+		Assert.assertEquals("hello", new String(actual));
+		Assert.assertEquals(5L, cache.getCurrentBytes());
+		Assert.assertEquals(1L, cache.getHitCount());
+		Assert.assertNull(cache.get(ACCOUNT, "/zone/home/test1/cache/test1-2.dat"));
+		Assert.assertEquals(1L, cache.getMissCount());
+	}
+
+	@Test
+	public void testReplaceValue() throws Exception {
+		OffHeapDataCache cache = new OffHeapDataCache();
+		cache.put(ACCOUNT, "a", new byte[10], Long.MAX_VALUE);
+		cache.put(ACCOUNT, "a", new byte[4], Long.MAX_VALUE);
+		Assert.assertEquals(4, cache.get(ACCOUNT, "a").length);
+		Assert.assertEquals(4L, cache.getCurrentBytes());
+		Assert.assertEquals(1, cache.getEntryCount());
+	}
+
+	@Test
+	public void testEvictLeastRecentlyUsed() throws Exception {
+		OffHeapDataCache cache = new OffHeapDataCache(30, 60000);
+		cache.put(ACCOUNT, "a", new byte[10], Long.MAX_VALUE);
+		cache.put(ACCOUNT, "b", new byte[10], Long.MAX_VALUE);
+		cache.put(ACCOUNT, "c", new byte[10], Long.MAX_VALUE);
+		cache.get(ACCOUNT, "a");
+		cache.put(ACCOUNT, "d", new byte[10], Long.MAX_VALUE);
+
+		Assert.assertNotNull(cache.get(ACCOUNT, "a"));
+		Assert.assertNull(cache.get(ACCOUNT, "b"));
+		Assert.assertNotNull(cache.get(ACCOUNT, "c"));
+		Assert.assertNotNull(cache.get(ACCOUNT, "d"));
+		Assert.assertEquals(30L, cache.getCurrentBytes());
+	}
+
+	@Test
+	public void testValueLargerThanCacheNotHeld() throws Exception {
+		OffHeapDataCache cache = new OffHeapDataCache(10, 60000);
+		cache.put(ACCOUNT, "a", new byte[5], Long.MAX_VALUE);
+		cache.put(ACCOUNT, "b", new byte[11], Long.MAX_VALUE);
+		Assert.assertNull(cache.get(ACCOUNT, "b"));
+		Assert.assertNotNull(cache.get(ACCOUNT, "a"));
+	}
+
+	@Test
+	public void testExpireByTimeToLive() throws Exception {
+		ClockedOffHeapDataCache cache = new ClockedOffHeapDataCache(1000, 100);
+		cache.put(ACCOUNT, "a", new byte[10], Long.MAX_VALUE);
+		cache.now += 99;
+		Assert.assertNotNull(cache.get(ACCOUNT, "a"));
+		cache.now += 1;
+		Assert.assertNull(cache.get(ACCOUNT, "a"));
+		Assert.assertEquals(0L, cache.getCurrentBytes());
+	}
+
+	@Test
+	public void testExpireWithFile() throws Exception {
+		ClockedOffHeapDataCache cache = new ClockedOffHeapDataCache(1000,
+				60000);
+		cache.put(ACCOUNT, "a", new byte[10], cache.now + 50);
+		cache.now += 50;
+		Assert.assertNull(cache.get(ACCOUNT, "a"));
+	}
+
+	@Test
+	public void testTakeExpiredFiles() throws Exception {
+		ClockedOffHeapDataCache cache = new ClockedOffHeapDataCache(1000,
+				60000);
+		cache.recordFileWritten(ACCOUNT, "a", cache.now + 10);
+		cache.recordFileWritten(ACCOUNT, "b", cache.now + 20);
+		cache.recordFileWritten(OTHER_USER, "c", cache.now + 10);
+		cache.put(ACCOUNT, "a", new byte[10], cache.now + 10);
+
+		Assert.assertTrue(cache.takeExpiredFiles(ACCOUNT).isEmpty());
+		cache.now += 15;
+		List<String> expired = cache.takeExpiredFiles(ACCOUNT);
+		Assert.assertEquals(1, expired.size());
+		Assert.assertEquals("a", expired.get(0));
+		Assert.assertTrue(cache.takeExpiredFiles(ACCOUNT).isEmpty());
+
+		expired = cache.takeExpiredFiles(OTHER_USER);
+		Assert.assertEquals(1, expired.size());
+		Assert.assertEquals("c", expired.get(0));
+		Assert.assertEquals(1, cache.getRecordedFileCount());
+		Assert.assertEquals(0, cache.getEntryCount());
+	}
+
+	@Test
+	public void testFileWrittenAgainHasNewExpiry() throws Exception {
+		ClockedOffHeapDataCache cache = new ClockedOffHeapDataCache(1000,
+				60000);
+		cache.recordFileWritten(ACCOUNT, "a", cache.now + 10);
+		cache.recordFileWritten(ACCOUNT, "a", cache.now + 100);
+		cache.now += 50;
+		Assert.assertTrue(cache.takeExpiredFiles(ACCOUNT).isEmpty());
+		cache.now += 50;
+		Assert.assertEquals(1, cache.takeExpiredFiles(ACCOUNT).size());
+	}
+
+	@Test
+	public void testMarkOwnerScanned() throws Exception {
+		OffHeapDataCache cache = new OffHeapDataCache();
+		Assert.assertTrue(cache.markOwnerScanned(ACCOUNT));
+		Assert.assertFalse(cache.markOwnerScanned(ACCOUNT));
+		Assert.assertTrue(cache.markOwnerScanned(OTHER_USER));
+	}
+
+	@Test
+	public void testSamePathOnOtherHostNotShared() throws Exception {
+		ClockedOffHeapDataCache cache = new ClockedOffHeapDataCache(1000,
+				60000);
+		cache.put(ACCOUNT, "a", "one".getBytes(), Long.MAX_VALUE);
+		Assert.assertNull(cache.get(OTHER_HOST, "a"));
+		cache.put(OTHER_HOST, "a", "two".getBytes(), Long.MAX_VALUE);
+		Assert.assertEquals("one", new String(cache.get(ACCOUNT, "a")));
+		Assert.assertEquals("two", new String(cache.get(OTHER_HOST, "a")));
+
+		cache.recordFileWritten(ACCOUNT, "a", cache.now + 10);
+		cache.recordFileWritten(OTHER_HOST, "a", cache.now + 10);
+		Assert.assertEquals(2, cache.getRecordedFileCount());
+		Assert.assertTrue(cache.markOwnerScanned(ACCOUNT));
+		Assert.assertTrue(cache.markOwnerScanned(OTHER_HOST));
+
+		cache.now += 10;
+		Assert.assertEquals(1, cache.takeExpiredFiles(ACCOUNT).size());
+		Assert.assertEquals(1, cache.getRecordedFileCount());
+		Assert.assertNull(cache.get(ACCOUNT, "a"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testZeroMaxBytes() throws Exception {
+		new OffHeapDataCache(0, 1000);
+	}
+
+	@Test
+	public void testServiceRetrieveFromLocalTier() throws Exception {
+		EmbeddedIRODSServerConfiguration configuration = new EmbeddedIRODSServerConfiguration();
+		configuration.addUser("test1", "test");
+		EmbeddedIRODSServer server = new EmbeddedIRODSServer(configuration);
+		server.start();
+		IRODSFileSystem irodsFileSystem = IRODSFileSystem.instance();
+		try {
+			IRODSAccount irodsAccount = server.createIRODSAccount("test1");
+			OffHeapDataCache cache = new OffHeapDataCache();
+			DataCacheService dataCacheService = new DataCacheServiceFactoryImpl(
+					irodsFileSystem.getIRODSAccessObjectFactory(), cache)
+					.instanceDataCacheService(irodsAccount);
+
+			String path = dataCacheService.putStringValueIntoCache(
+					"cached value", "the key");
+			Assert.assertNotNull(server.getCatalog().getDataObjectContent(path));
+			long opens = server.getApiCallCount(DataObjInp.OPEN_FILE_API_NBR);
+
+			Assert.assertEquals("cached value", dataCacheService
+					.retrieveStringValueFromCache("test1", "the key"));
+			Assert.assertEquals(opens,
+					server.getApiCallCount(DataObjInp.OPEN_FILE_API_NBR));
+			Assert.assertEquals(1L, cache.getHitCount());
+
+			// a new cache misses, reads the file, then holds it
+			cache.clear();
+			Assert.assertEquals("cached value", dataCacheService
+					.retrieveStringValueFromCache("test1", "the key"));
+			Assert.assertTrue(server
+					.getApiCallCount(DataObjInp.OPEN_FILE_API_NBR) > opens);
+			Assert.assertEquals(1, cache.getEntryCount());
+		} finally {
+			irodsFileSystem.closeAndEatExceptions();
+			server.stop();
+		}
+	}
+
+	@Test
+	public void testServiceDeletesExpiredFilesInBatch() throws Exception {
+		EmbeddedIRODSServerConfiguration configuration = new EmbeddedIRODSServerConfiguration();
+		configuration.addUser("test1", "test");
+		EmbeddedIRODSServer server = new EmbeddedIRODSServer(configuration);
+		server.start();
+		IRODSFileSystem irodsFileSystem = IRODSFileSystem.instance();
+		try {
+			IRODSAccount irodsAccount = server.createIRODSAccount("test1");
+			ClockedOffHeapDataCache cache = new ClockedOffHeapDataCache(
+					OffHeapDataCache.DEFAULT_MAX_BYTES, 60000);
+			cache.now = System.currentTimeMillis();
+			DataCacheService dataCacheService = new DataCacheServiceFactoryImpl(
+					irodsFileSystem.getIRODSAccessObjectFactory(), cache)
+					.instanceDataCacheService(irodsAccount);
+
+			String path1 = dataCacheService.putStringValueIntoCache("one",
+					"key one");
+			String path2 = dataCacheService.putStringValueIntoCache("two",
+					"key two");
+			Assert.assertEquals(2, cache.getRecordedFileCount());
+
+			long deletes = server
+					.getApiCallCount(DataObjInp.DELETE_FILE_API_NBR);
+
+			cache.now += 31L * 24L * 60L * 60L * 1000L;
+			String path3 = dataCacheService.putStringValueIntoCache("three",
+					"key three");
+
+			Assert.assertNull(server.getCatalog().getDataObjectContent(path1));
+			Assert.assertNull(server.getCatalog().getDataObjectContent(path2));
+			Assert.assertNotNull(server.getCatalog()
+					.getDataObjectContent(path3));
+			// the two expired files, and the overwrite of the new file
+			Assert.assertEquals(deletes + 3,
+					server.getApiCallCount(DataObjInp.DELETE_FILE_API_NBR));
+			Assert.assertEquals(1, cache.getRecordedFileCount());
+		} finally {
+			irodsFileSystem.closeAndEatExceptions();
+			server.stop();
+		}
+	}
+
+}
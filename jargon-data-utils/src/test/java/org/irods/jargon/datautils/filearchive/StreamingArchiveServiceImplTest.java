@@ -0,0 +1,258 @@
+package org.irods.jargon.datautils.filearchive;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import junit.framework.Assert;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.FileNotFoundException;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.datautils.filearchive.StreamingArchiveService.ArchiveFormat;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServer;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class StreamingArchiveServiceImplTest {
+
+	@Rule
+	public EmbeddedIRODSServerRule serverRule = new EmbeddedIRODSServerRule();
+
+	private EmbeddedIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSAccount irodsAccount;
+	private String root;
+
+	@Before
+	public void setUp() throws Exception {
+		server = serverRule.getServer();
+		irodsFileSystem = serverRule.getIrodsFileSystem();
+		irodsAccount = serverRule.getIrodsAccount();
+		root = server.getHomeDirectory("test1") + "/archive";
+	}
+
+	private StreamingArchiveServiceImpl buildService() throws Exception {
+		StreamingArchiveServiceImpl service = new StreamingArchiveServiceImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory(), irodsAccount);
+		service.setReadAheadParallelism(3);
+		service.setMaxReadAheadObjectSize(1000L);
+		service.setReadAheadBytes(3000L);
+		return service;
+	}
+
+	private byte[] content(final int length, final int seed) {
+		byte[] data = new byte[length];
+		for (int i = 0; i < length; i++) {
+			data[i] = (byte) (seed + i);
+		}
+		return data;
+	}
+
+	/**
+	 * Build a tree and answer the expected entries and contents in order,
+	 * with <code>null</code> content for a collection
+	 */
+	private Map<String, byte[]> buildTree() throws Exception {
+		Map<String, byte[]> expected = new LinkedHashMap<String, byte[]>();
+		expected.put("archive/", null);
+		for (int i = 0; i < 40; i++) {
+			byte[] data = content(i * 37, i);
+			server.getCatalog().putDataObject(root + "/file" + (100 + i),
+					data);
+			expected.put("archive/file" + (100 + i), data);
+		}
+		server.getCatalog().createCollection(root + "/empty");
+		expected.put("archive/empty/", null);
+		expected.put("archive/sub/", null);
+		byte[] big = content(50000, 7);
+		server.getCatalog().putDataObject(root + "/sub/big.bin", big);
+		expected.put("archive/sub/big.bin", big);
+		byte[] small = content(10, 3);
+		server.getCatalog().putDataObject(root + "/sub/small.txt", small);
+		expected.put("archive/sub/small.txt", small);
+		expected.put("archive/sub/deeper/", null);
+		byte[] deep = content(2000, 9);
+		server.getCatalog().putDataObject(root + "/sub/deeper/deep.txt", deep);
+		expected.put("archive/sub/deeper/deep.txt", deep);
+		server.getCatalog().putDataObject(
+				server.getHomeDirectory("test1") + "/archivex/outside.txt",
+				content(5, 5));
+		return expected;
+	}
+
+	private Map<String, byte[]> readTar(final InputStream inputStream)
+			throws Exception {
+		Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>();
+		TarArchiveInputStream tarIn = new TarArchiveInputStream(inputStream);
+		TarArchiveEntry entry;
+		while ((entry = tarIn.getNextTarEntry()) != null) {
+			if (entry.isDirectory()) {
+				entries.put(entry.getName(), null);
+			} else {
+				entries.put(entry.getName(), readAll(tarIn));
+			}
+		}
+		tarIn.close();
+		return entries;
+	}
+
+	private Map<String, byte[]> readZip(final byte[] zip) throws Exception {
+		Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>();
+		ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(zip));
+		ZipEntry entry;
+		while ((entry = zipIn.getNextEntry()) != null) {
+			if (entry.isDirectory()) {
+				entries.put(entry.getName(), null);
+			} else {
+				entries.put(entry.getName(), readAll(zipIn));
+			}
+		}
+		zipIn.close();
+		return entries;
+	}
+
+	private byte[] readAll(final InputStream inputStream) throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+		while ((read = inputStream.read(buffer)) > 0) {
+			bytes.write(buffer, 0, read);
+		}
+		return bytes.toByteArray();
+	}
+
+	private void assertEntries(final Map<String, byte[]> expected,
+			final Map<String, byte[]> actual) {
+		Assert.assertEquals(new ArrayList<String>(expected.keySet()),
+				new ArrayList<String>(actual.keySet()));
+		for (Map.Entry<String, byte[]> entry : expected.entrySet()) {
+			byte[] data = actual.get(entry.getKey());
+			if (entry.getValue() == null) {
+				Assert.assertNull(data);
+			} else {
+				Assert.assertTrue("content of " + entry.getKey(),
+						Arrays.equals(entry.getValue(), data));
+			}
+		}
+	}
+
+	@Test
+	public void testStreamTar() throws Exception {
+		Map<String, byte[]> expected = buildTree();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int count = buildService().streamArchive(root, ArchiveFormat.TAR,
+				false, out);
+		Assert.assertEquals(43, count);
+		assertEntries(expected,
+				readTar(new ByteArrayInputStream(out.toByteArray())));
+	}
+
+	@Test
+	public void testStreamTarGzip() throws Exception {
+		Map<String, byte[]> expected = buildTree();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		buildService().streamArchive(root + "/", ArchiveFormat.TAR, true, out);
+		byte[] archive = out.toByteArray();
+		Assert.assertEquals((byte) 0x1f, archive[0]);
+		Assert.assertEquals((byte) 0x8b, archive[1]);
+		assertEntries(expected, readTar(new GzipCompressorInputStream(
+				new ByteArrayInputStream(archive))));
+	}
+
+	@Test
+	public void testStreamZip() throws Exception {
+		Map<String, byte[]> expected = buildTree();
+		ByteArrayOutputStream stored = new ByteArrayOutputStream();
+		StreamingArchiveServiceImpl service = buildService();
+		service.streamArchive(root, ArchiveFormat.ZIP, false, stored);
+		assertEntries(expected, readZip(stored.toByteArray()));
+
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		service.streamArchive(root, ArchiveFormat.ZIP, true, compressed);
+		assertEntries(expected, readZip(compressed.toByteArray()));
+		Assert.assertTrue(compressed.size() < stored.size());
+	}
+
+	@Test
+	public void testStreamSingleDataObject() throws Exception {
+		byte[] data = content(5000, 1);
+		server.getCatalog().putDataObject(root + "/one.dat", data);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int count = new StreamingArchiveServiceImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory(), irodsAccount)
+				.streamArchive(root + "/one.dat", ArchiveFormat.TAR, false,
+						out);
+		Assert.assertEquals(1, count);
+		Map<String, byte[]> expected = new LinkedHashMap<String, byte[]>();
+		expected.put("one.dat", data);
+		assertEntries(expected,
+				readTar(new ByteArrayInputStream(out.toByteArray())));
+	}
+
+	@Test
+	public void testStreamTarSkipsWildcardSiblings() throws Exception {
+		String home = server.getHomeDirectory("test1");
+		byte[] data = content(20, 2);
+		server.getCatalog().putDataObject(home + "/my_arch/sub/in.txt", data);
+		server.getCatalog().putDataObject(home + "/myXarch/sub/out.txt",
+				content(5, 5));
+		server.getCatalog().putDataObject(home + "/myXarch/top.txt",
+				content(5, 5));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int count = buildService().streamArchive(home + "/my_arch",
+				ArchiveFormat.TAR, false, out);
+		Assert.assertEquals(1, count);
+		Map<String, byte[]> expected = new LinkedHashMap<String, byte[]>();
+		expected.put("my_arch/", null);
+		expected.put("my_arch/sub/", null);
+		expected.put("my_arch/sub/in.txt", data);
+		assertEntries(expected,
+				readTar(new ByteArrayInputStream(out.toByteArray())));
+	}
+
+	@Test
+	public void testStreamTarWithoutReplicaZero() throws Exception {
+		byte[] trimmed = content(30, 4);
+		server.getCatalog().putDataObject(root + "/trimmed.dat", trimmed);
+		server.getCatalog().setReplicaNumbers(root + "/trimmed.dat", 1, 2);
+		byte[] moved = content(40, 6);
+		server.getCatalog().putDataObject(root + "/sub/moved.dat", moved);
+		server.getCatalog().setReplicaNumbers(root + "/sub/moved.dat", 3);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int count = buildService().streamArchive(root, ArchiveFormat.TAR,
+				false, out);
+		Assert.assertEquals(2, count);
+		Map<String, byte[]> expected = new LinkedHashMap<String, byte[]>();
+		expected.put("archive/", null);
+		expected.put("archive/trimmed.dat", trimmed);
+		expected.put("archive/sub/", null);
+		expected.put("archive/sub/moved.dat", moved);
+		assertEntries(expected,
+				readTar(new ByteArrayInputStream(out.toByteArray())));
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void testStreamMissing() throws Exception {
+		buildService().streamArchive(root + "/missing", ArchiveFormat.TAR,
+				false, new ByteArrayOutputStream());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetMaxReadAheadObjectSizeAboveReadAheadBytes()
+			throws Exception {
+		buildService().setMaxReadAheadObjectSize(5000L);
+	}
+
+}
@@ -0,0 +1,98 @@
+package org.irods.jargon.datautils.image;
+
+import java.io.File;
+import java.util.Date;
+import java.util.Properties;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.utils.LocalFileUtils;
+import org.irods.jargon.testutils.TestingPropertiesHelper;
+import org.irods.jargon.testutils.filemanip.ScratchFileUtils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class LocalThumbnailCacheTest {
+
+	private static Properties testingProperties = new Properties();
+	private static ScratchFileUtils scratchFileUtils = null;
+	public static final String IRODS_TEST_SUBDIR_PATH = "LocalThumbnailCacheTest";
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		TestingPropertiesHelper testingPropertiesLoader = new TestingPropertiesHelper();
+		testingProperties = testingPropertiesLoader.getTestProperties();
+		scratchFileUtils = new ScratchFileUtils(testingProperties);
+		scratchFileUtils
+				.clearAndReinitializeScratchDirectory(IRODS_TEST_SUBDIR_PATH);
+	}
+
+	private File cacheDirectory(final String name) {
+		return new File(
+				scratchFileUtils
+						.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH
+								+ "/" + name));
+	}
+
+	@Test
+	public void testStoreAndFind() throws Exception {
+		LocalThumbnailCache cache = new LocalThumbnailCache(
+				cacheDirectory("testStoreAndFind"));
+		Date modifiedAt = new Date(1000L);
+		Assert.assertNull(cache.findThumbnail("/zone/home/test1/a.jpg",
+				modifiedAt));
+
+		File stored = cache.storeThumbnail("/zone/home/test1/a.jpg",
+				modifiedAt, "thumb".getBytes());
+		File found = cache.findThumbnail("/zone/home/test1/a.jpg", modifiedAt);
+
+		Assert.assertEquals(stored, found);
+		Assert.assertEquals("thumb",
+				new String(LocalFileUtils.getBytesFromFile(found)));
+	}
+
+	@Test
+	public void testModifiedDataObjectNotFound() throws Exception {
+		LocalThumbnailCache cache = new LocalThumbnailCache(
+				cacheDirectory("testModifiedDataObjectNotFound"));
+		cache.storeThumbnail("/zone/home/test1/a.jpg", new Date(1000L),
+				"thumb".getBytes());
+		Assert.assertNull(cache.findThumbnail("/zone/home/test1/a.jpg",
+				new Date(2000L)));
+		Assert.assertNull(cache.findThumbnail("/zone/home/test1/b.jpg",
+				new Date(1000L)));
+	}
+
+	@Test
+	public void testStoreReplaces() throws Exception {
+		LocalThumbnailCache cache = new LocalThumbnailCache(
+				cacheDirectory("testStoreReplaces"));
+		Date modifiedAt = new Date(1000L);
+		cache.storeThumbnail("/zone/home/test1/a.jpg", modifiedAt,
+				"first".getBytes());
+		File stored = cache.storeThumbnail("/zone/home/test1/a.jpg",
+				modifiedAt, "second".getBytes());
+		Assert.assertEquals("second",
+				new String(LocalFileUtils.getBytesFromFile(stored)));
+		Assert.assertEquals(1, stored.getParentFile().listFiles().length);
+	}
+
+	@Test
+	public void testThumbnailFileName() throws Exception {
+		LocalThumbnailCache cache = new LocalThumbnailCache(
+				cacheDirectory("testThumbnailFileName"));
+		File thumbnail = cache.computeThumbnailFile("/zone/home/test1/a.jpg",
+				new Date(1000L));
+		String name = thumbnail.getName();
+		Assert.assertTrue(name.endsWith(LocalThumbnailCache.THUMBNAIL_EXTENSION));
+		Assert.assertEquals(name.substring(0, 2), thumbnail.getParentFile()
+				.getName());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullModifiedAt() throws Exception {
+		new LocalThumbnailCache(cacheDirectory("testNullModifiedAt"))
+				.computeThumbnailFile("/zone/home/test1/a.jpg", null);
+	}
+
+}
@@ -0,0 +1,225 @@
+package org.irods.jargon.datautils.image;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.utils.LocalFileUtils;
+import org.irods.jargon.datautils.image.ThumbnailResult.ResultStatus;
+import org.irods.jargon.testutils.TestingPropertiesHelper;
+import org.irods.jargon.testutils.filemanip.ScratchFileUtils;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServer;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerRule;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class ThumbnailBatchTest {
+
+	private static final String USER = "test1";
+	private static Properties testingProperties = new Properties();
+	private static ScratchFileUtils scratchFileUtils = null;
+	public static final String IRODS_TEST_SUBDIR_PATH = "ThumbnailBatchTest";
+
+	@Rule
+	public EmbeddedIRODSServerRule serverRule = new EmbeddedIRODSServerRule();
+
+	private EmbeddedIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSAccount irodsAccount;
+
+	/**
+	 * Service that makes the thumbnail locally in place of the rule, and
+	 * records the calls
+	 */
+	private static class StubRuleThumbnailService extends ThumbnailServiceImpl {
+		private final AtomicInteger ruleCalls = new AtomicInteger(0);
+		private final Set<String> threads = Collections
+				.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+		private String failingPath = null;
+		private boolean unavailable = false;
+
+		StubRuleThumbnailService(final IRODSFileSystem irodsFileSystem,
+				final IRODSAccount irodsAccount) throws JargonException {
+			super(irodsFileSystem.getIRODSAccessObjectFactory(), irodsAccount);
+		}
+
+		@Override
+		protected byte[] invokeThumbnailRule(final String myPath)
+				throws IRODSThumbnailProcessUnavailableException,
+				JargonException {
+			ruleCalls.incrementAndGet();
+			threads.add(Thread.currentThread().getName());
+			if (unavailable) {
+				throw new IRODSThumbnailProcessUnavailableException(
+						"no iRODS rule-based thumbnail generation available");
+			}
+			if (myPath.equals(failingPath)) {
+				throw new JargonException("thumbnail failed");
+			}
+			try {
+				// long enough for the workers to overlap
+				Thread.sleep(20);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return ("thumb of " + myPath).getBytes();
+		}
+	}
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		TestingPropertiesHelper testingPropertiesLoader = new TestingPropertiesHelper();
+		testingProperties = testingPropertiesLoader.getTestProperties();
+		scratchFileUtils = new ScratchFileUtils(testingProperties);
+		scratchFileUtils
+				.clearAndReinitializeScratchDirectory(IRODS_TEST_SUBDIR_PATH);
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		server = serverRule.getServer();
+		irodsFileSystem = serverRule.getIrodsFileSystem();
+		irodsAccount = serverRule.getIrodsAccount();
+	}
+
+	private File cacheDirectory(final String name) {
+		return new File(
+				scratchFileUtils
+						.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH
+								+ "/" + name));
+	}
+
+	private List<String> putImages(final String collection, final int count)
+			throws Exception {
+		String collectionPath = server.getHomeDirectory(USER) + "/"
+				+ collection;
+		server.getCatalog().createCollection(collectionPath);
+		List<String> paths = new ArrayList<String>();
+		for (int i = 0; i < count; i++) {
+			String path = collectionPath + "/image" + i + ".jpg";
+			server.getCatalog().putDataObject(path, new byte[10]);
+			paths.add(path);
+		}
+		return paths;
+	}
+
+	@Test
+	public void testGenerateThumbnailsForPaths() throws Exception {
+		List<String> paths = putImages("testGenerateThumbnailsForPaths", 20);
+		StubRuleThumbnailService service = new StubRuleThumbnailService(
+				irodsFileSystem, irodsAccount);
+		File cacheDirectory = cacheDirectory("testGenerateThumbnailsForPaths");
+
+		List<ThumbnailResult> results = service
+				.generateThumbnailsForIRODSPathsViaRule(cacheDirectory, paths);
+
+		Assert.assertEquals(20, results.size());
+		for (int i = 0; i < results.size(); i++) {
+			ThumbnailResult result = results.get(i);
+			Assert.assertEquals(ResultStatus.GENERATED,
+					result.getResultStatus());
+			Assert.assertEquals(paths.get(i), result.getIrodsAbsolutePath());
+			Assert.assertEquals("thumb of " + paths.get(i), new String(
+					LocalFileUtils.getBytesFromFile(result.getThumbnailFile())));
+		}
+		Assert.assertEquals(20, service.ruleCalls.get());
+		Assert.assertTrue(service.threads.size() > 1);
+		Assert.assertTrue(service.threads.size() <= ThumbnailServiceImpl.DEFAULT_BATCH_PARALLELISM);
+	}
+
+	@Test
+	public void testRepeatViewServedFromCache() throws Exception {
+		List<String> paths = putImages("testRepeatViewServedFromCache", 5);
+		StubRuleThumbnailService service = new StubRuleThumbnailService(
+				irodsFileSystem, irodsAccount);
+		File cacheDirectory = cacheDirectory("testRepeatViewServedFromCache");
+		service.generateThumbnailsForIRODSPathsViaRule(cacheDirectory, paths);
+
+		List<ThumbnailResult> results = service
+				.generateThumbnailsForIRODSPathsViaRule(cacheDirectory, paths);
+
+		for (ThumbnailResult result : results) {
+			Assert.assertEquals(ResultStatus.FROM_CACHE,
+					result.getResultStatus());
+			Assert.assertTrue(result.getThumbnailFile().isFile());
+		}
+		Assert.assertEquals(5, service.ruleCalls.get());
+	}
+
+	@Test
+	public void testMissingAndFailingPaths() throws Exception {
+		List<String> paths = putImages("testMissingAndFailingPaths", 3);
+		paths.add(1, server.getHomeDirectory(USER)
+				+ "/testMissingAndFailingPaths/missing.jpg");
+		StubRuleThumbnailService service = new StubRuleThumbnailService(
+				irodsFileSystem, irodsAccount);
+		service.failingPath = paths.get(2);
+
+		List<ThumbnailResult> results = service
+				.generateThumbnailsForIRODSPathsViaRule(
+						cacheDirectory("testMissingAndFailingPaths"), paths);
+
+		Assert.assertEquals(4, results.size());
+		Assert.assertEquals(ResultStatus.GENERATED, results.get(0)
+				.getResultStatus());
+		Assert.assertEquals(ResultStatus.NOT_FOUND, results.get(1)
+				.getResultStatus());
+		Assert.assertEquals(ResultStatus.ERROR, results.get(2)
+				.getResultStatus());
+		Assert.assertNull(results.get(2).getThumbnailFile());
+		Assert.assertEquals(ResultStatus.GENERATED, results.get(3)
+				.getResultStatus());
+	}
+
+	@Test(expected = IRODSThumbnailProcessUnavailableException.class)
+	public void testThumbnailProcessUnavailable() throws Exception {
+		List<String> paths = putImages("testThumbnailProcessUnavailable", 3);
+		StubRuleThumbnailService service = new StubRuleThumbnailService(
+				irodsFileSystem, irodsAccount);
+		service.unavailable = true;
+		service.generateThumbnailsForIRODSPathsViaRule(
+				cacheDirectory("testThumbnailProcessUnavailable"), paths);
+	}
+
+	@Test
+	public void testGenerateThumbnailsForCollection() throws Exception {
+		List<String> paths = putImages("testGenerateThumbnailsForCollection",
+				6);
+		StubRuleThumbnailService service = new StubRuleThumbnailService(
+				irodsFileSystem, irodsAccount);
+
+		List<ThumbnailResult> results = service
+				.generateThumbnailsForIRODSCollectionViaRule(
+						cacheDirectory("testGenerateThumbnailsForCollection"),
+						server.getHomeDirectory(USER)
+								+ "/testGenerateThumbnailsForCollection");
+
+		Assert.assertEquals(6, results.size());
+		List<String> actual = new ArrayList<String>();
+		for (ThumbnailResult result : results) {
+			Assert.assertEquals(ResultStatus.GENERATED,
+					result.getResultStatus());
+			actual.add(result.getIrodsAbsolutePath());
+		}
+		Collections.sort(actual);
+		Assert.assertEquals(paths, actual);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSetBatchParallelismZero() throws Exception {
+		new ThumbnailServiceImpl().setBatchParallelism(0);
+	}
+
+}
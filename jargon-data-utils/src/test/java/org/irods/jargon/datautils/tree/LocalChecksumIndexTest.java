@@ -0,0 +1,173 @@
+package org.irods.jargon.datautils.tree;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Properties;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.checksum.ChecksumValue;
+import org.irods.jargon.core.protovalues.ChecksumEncodingEnum;
+import org.irods.jargon.testutils.TestingPropertiesHelper;
+import org.irods.jargon.testutils.filemanip.ScratchFileUtils;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class LocalChecksumIndexTest {
+
+	private static Properties testingProperties = new Properties();
+	private static ScratchFileUtils scratchFileUtils = null;
+	public static final String IRODS_TEST_SUBDIR_PATH = "LocalChecksumIndexTest";
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		TestingPropertiesHelper testingPropertiesLoader = new TestingPropertiesHelper();
+		testingProperties = testingPropertiesLoader.getTestProperties();
+		scratchFileUtils = new ScratchFileUtils(testingProperties);
+		scratchFileUtils
+				.clearAndReinitializeScratchDirectory(IRODS_TEST_SUBDIR_PATH);
+	}
+
+	private File testDirectory(final String name) {
+		return new File(
+				scratchFileUtils
+						.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH
+								+ "/" + name));
+	}
+
+	private static void writeFile(final File file, final String content)
+			throws Exception {
+		file.getParentFile().mkdirs();
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes());
+		} finally {
+			out.close();
+		}
+	}
+
+	private static ChecksumValue md5(final String value) {
+		ChecksumValue checksumValue = new ChecksumValue();
+		checksumValue.setChecksumEncoding(ChecksumEncodingEnum.MD5);
+		checksumValue.setChecksumStringValue(value);
+		checksumValue.setChecksumTransmissionFormat(value);
+		return checksumValue;
+	}
+
+	@Test
+	public void testRecordAndLookup() throws Exception {
+		File dir = testDirectory("testRecordAndLookup");
+		File file = new File(dir, "a.txt");
+		writeFile(file, "hello");
+		LocalChecksumIndex index = new LocalChecksumIndex(new File(dir,
+				"index.txt"));
+
+		Assert.assertNull(index.lookup(file, ChecksumEncodingEnum.MD5));
+		index.record(file, file.length(), file.lastModified(), md5("abc"));
+		Assert.assertEquals("abc",
+				index.lookup(file, ChecksumEncodingEnum.MD5)
+						.getChecksumStringValue());
+		Assert.assertNull(index.lookup(file, ChecksumEncodingEnum.SHA256));
+	}
+
+	@Test
+	public void testChangedFileNotFound() throws Exception {
+		File dir = testDirectory("testChangedFileNotFound");
+		File file = new File(dir, "a.txt");
+		writeFile(file, "hello");
+		LocalChecksumIndex index = new LocalChecksumIndex(new File(dir,
+				"index.txt"));
+		index.record(file, file.length(), file.lastModified(), md5("abc"));
+
+		writeFile(file, "hello again");
+		Assert.assertNull(index.lookup(file, ChecksumEncodingEnum.MD5));
+	}
+
+	@Test
+	public void testSaveAndLoad() throws Exception {
+		File dir = testDirectory("testSaveAndLoad");
+		File file = new File(dir, "a\tb.txt");
+		writeFile(file, "hello");
+		File indexFile = new File(dir, "index/index.txt");
+		LocalChecksumIndex index = new LocalChecksumIndex(indexFile);
+		index.record(file, file.length(), file.lastModified(), md5("abc"));
+		index.save();
+		Assert.assertTrue(indexFile.isFile());
+
+		LocalChecksumIndex loaded = new LocalChecksumIndex(indexFile);
+		loaded.load();
+		Assert.assertEquals(1, loaded.size());
+		ChecksumValue checksumValue = loaded.lookup(file,
+				ChecksumEncodingEnum.MD5);
+		Assert.assertEquals("abc", checksumValue.getChecksumStringValue());
+		Assert.assertEquals(ChecksumEncodingEnum.MD5,
+				checksumValue.getChecksumEncoding());
+	}
+
+	@Test
+	public void testSaveAndLoadPathWithNewlineAndBackslash() throws Exception {
+		File dir = testDirectory("testSaveAndLoadPathWithNewline");
+		File file = new File(dir, "a\nb\\c\r.txt");
+		writeFile(file, "hello");
+		File indexFile = new File(dir, "index.txt");
+		LocalChecksumIndex index = new LocalChecksumIndex(indexFile);
+		index.record(file, file.length(), file.lastModified(), md5("abc"));
+		index.save();
+
+		LocalChecksumIndex loaded = new LocalChecksumIndex(indexFile);
+		loaded.load();
+		Assert.assertEquals(1, loaded.size());
+		Assert.assertEquals("abc", loaded.lookup(file, ChecksumEncodingEnum.MD5)
+				.getChecksumStringValue());
+	}
+
+	@Test
+	public void testRecordedStateBeforeChangeNotFound() throws Exception {
+		File dir = testDirectory("testRecordedStateBeforeChange");
+		File file = new File(dir, "a.txt");
+		writeFile(file, "hello");
+		long length = file.length();
+		long lastModified = file.lastModified();
+		LocalChecksumIndex index = new LocalChecksumIndex(new File(dir,
+				"index.txt"));
+
+		// the file changes while its checksum is computed
+		writeFile(file, "hello again");
+		index.record(file, length, lastModified, md5("abc"));
+
+		Assert.assertNull(index.lookup(file, ChecksumEncodingEnum.MD5));
+	}
+
+	@Test
+	public void testLoadMissingFileIsEmpty() throws Exception {
+		File dir = testDirectory("testLoadMissingFileIsEmpty");
+		LocalChecksumIndex index = new LocalChecksumIndex(new File(dir,
+				"none.txt"));
+		index.load();
+		Assert.assertEquals(0, index.size());
+		index.save();
+		Assert.assertFalse(index.getIndexFile().exists());
+	}
+
+	@Test
+	public void testLoadSkipsBadLines() throws Exception {
+		File dir = testDirectory("testLoadSkipsBadLines");
+		File file = new File(dir, "a.txt");
+		writeFile(file, "hello");
+		File indexFile = new File(dir, "index.txt");
+		writeFile(indexFile, LocalChecksumIndex.HEADER + "\nnot a line\nMD5\t"
+				+ file.length() + "\t" + file.lastModified() + "\tabc\tabc\t"
+				+ file.getAbsolutePath() + "\n");
+
+		LocalChecksumIndex index = new LocalChecksumIndex(indexFile);
+		index.load();
+		Assert.assertEquals(1, index.size());
+		Assert.assertNotNull(index.lookup(file, ChecksumEncodingEnum.MD5));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNullIndexFile() throws Exception {
+		new LocalChecksumIndex(null);
+	}
+
+}
@@ -0,0 +1,214 @@
+package org.irods.jargon.datautils.tree;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.datautils.tree.FileTreeDiffEntry.DiffType;
+import org.irods.jargon.testutils.TestingPropertiesHelper;
+import org.irods.jargon.testutils.filemanip.ScratchFileUtils;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServer;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerRule;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class ParallelFileTreeDiffUtilityImplTest {
+
+	private static Properties testingProperties = new Properties();
+	private static ScratchFileUtils scratchFileUtils = null;
+	public static final String IRODS_TEST_SUBDIR_PATH = "ParallelFileTreeDiffUtilityImplTest";
+
+	@Rule
+	public EmbeddedIRODSServerRule serverRule = new EmbeddedIRODSServerRule();
+
+	private EmbeddedIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSAccount irodsAccount;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception {
+		TestingPropertiesHelper testingPropertiesLoader = new TestingPropertiesHelper();
+		testingProperties = testingPropertiesLoader.getTestProperties();
+		scratchFileUtils = new ScratchFileUtils(testingProperties);
+		scratchFileUtils
+				.clearAndReinitializeScratchDirectory(IRODS_TEST_SUBDIR_PATH);
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		server = serverRule.getServer();
+		irodsFileSystem = serverRule.getIrodsFileSystem();
+		irodsAccount = serverRule.getIrodsAccount();
+	}
+
+	private File testDirectory(final String name) {
+		return new File(
+				scratchFileUtils
+						.createAndReturnAbsoluteScratchPath(IRODS_TEST_SUBDIR_PATH
+								+ "/" + name));
+	}
+
+	private static void writeFile(final File file, final String content)
+			throws Exception {
+		file.getParentFile().mkdirs();
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes());
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Collect the diff entries below the root, keyed by the last path
+	 * component of the name
+	 */
+	private static void collectDiffs(final FileTreeNode node,
+			final Map<String, FileTreeDiffEntry> diffs) {
+		for (int i = 0; i < node.getChildCount(); i++) {
+			FileTreeNode child = (FileTreeNode) node.getChildAt(i);
+			FileTreeDiffEntry entry = (FileTreeDiffEntry) child.getUserObject();
+			String name = entry.getCollectionAndDataObjectListingEntry()
+					.getPathOrName();
+			diffs.put(name.substring(name.lastIndexOf('/') + 1), entry);
+			collectDiffs(child, diffs);
+		}
+	}
+
+	@Test
+	public void testDiffFindsEachKindOfDifference() throws Exception {
+		String irodsRoot = server.getHomeDirectory("test1") + "/diff";
+		server.getCatalog().putDataObject(irodsRoot + "/same.txt",
+				"same".getBytes());
+		server.getCatalog().putDataObject(irodsRoot + "/changed.txt",
+				"aaaa".getBytes());
+		server.getCatalog().putDataObject(irodsRoot + "/shorter.txt",
+				"abc".getBytes());
+		server.getCatalog().putDataObject(irodsRoot + "/irodsOnly.txt",
+				"x".getBytes());
+		server.getCatalog().putDataObject(irodsRoot + "/sub/deep.txt",
+				"deep".getBytes());
+		server.getCatalog().putDataObject(irodsRoot + "/irodsDir/f.txt",
+				"f".getBytes());
+
+		File localRoot = testDirectory("testDiffFindsEachKindOfDifference");
+		writeFile(new File(localRoot, "same.txt"), "same");
+		writeFile(new File(localRoot, "changed.txt"), "bbbb");
+		writeFile(new File(localRoot, "shorter.txt"), "abcd");
+		writeFile(new File(localRoot, "localOnly.txt"), "y");
+		writeFile(new File(localRoot, "sub/deep.txt"), "deep");
+		writeFile(new File(localRoot, "sub/localDeep.txt"), "z");
+		new File(localRoot, "localDir").mkdirs();
+
+		File indexFile = new File(testDirectory("indexes"),
+				"testDiffFindsEachKindOfDifference.txt");
+		LocalChecksumIndex index = new LocalChecksumIndex(indexFile);
+		ParallelFileTreeDiffUtilityImpl diffUtility = new ParallelFileTreeDiffUtilityImpl(
+				irodsAccount, irodsFileSystem.getIRODSAccessObjectFactory(),
+				null, index, 2);
+		FileTreeModel model = diffUtility.generateDiffLocalToIRODS(localRoot,
+				irodsRoot, 0, 0);
+
+		Map<String, FileTreeDiffEntry> diffs = new HashMap<String, FileTreeDiffEntry>();
+		collectDiffs((FileTreeNode) model.getRoot(), diffs);
+
+		Assert.assertEquals(8, diffs.size());
+		Assert.assertFalse(diffs.containsKey("same.txt"));
+		Assert.assertFalse(diffs.containsKey("deep.txt"));
+		Assert.assertEquals(DiffType.FILE_OUT_OF_SYNCH,
+				diffs.get("changed.txt").getDiffType());
+		Assert.assertEquals(DiffType.FILE_OUT_OF_SYNCH,
+				diffs.get("shorter.txt").getDiffType());
+		Assert.assertEquals(DiffType.LEFT_HAND_PLUS, diffs.get("localOnly.txt")
+				.getDiffType());
+		Assert.assertEquals(DiffType.LEFT_HAND_PLUS, diffs.get("localDir")
+				.getDiffType());
+		Assert.assertEquals(DiffType.RIGHT_HAND_PLUS,
+				diffs.get("irodsOnly.txt").getDiffType());
+		Assert.assertEquals(DiffType.RIGHT_HAND_PLUS, diffs.get("irodsDir")
+				.getDiffType());
+		Assert.assertEquals(DiffType.DIRECTORY_NO_DIFF, diffs.get("sub")
+				.getDiffType());
+		Assert.assertEquals(DiffType.LEFT_HAND_PLUS,
+				diffs.get("localDeep.txt").getDiffType());
+
+		// the local files of the same length were checksummed and saved
+		Assert.assertEquals(3, index.size());
+		Assert.assertTrue(indexFile.isFile());
+		Assert.assertFalse(diffUtility.verifyLocalAndIRODSTreesMatch(
+				localRoot, irodsRoot, 0, 0));
+	}
+
+	@Test
+	public void testFileAndDirectoryNameCollision() throws Exception {
+		String irodsRoot = server.getHomeDirectory("test1") + "/collide";
+		server.getCatalog().putDataObject(irodsRoot + "/name/a.txt",
+				"a".getBytes());
+		server.getCatalog().putDataObject(irodsRoot + "/other", "b".getBytes());
+
+		File localRoot = testDirectory("testFileAndDirectoryNameCollision");
+		writeFile(new File(localRoot, "name"), "a");
+		writeFile(new File(localRoot, "other/b.txt"), "b");
+
+		FileTreeModel model = new ParallelFileTreeDiffUtilityImpl(
+				irodsAccount, irodsFileSystem.getIRODSAccessObjectFactory())
+				.generateDiffLocalToIRODS(localRoot, irodsRoot, 0, 0);
+
+		Map<String, FileTreeDiffEntry> diffs = new HashMap<String, FileTreeDiffEntry>();
+		collectDiffs((FileTreeNode) model.getRoot(), diffs);
+		Assert.assertEquals(2, diffs.size());
+		Assert.assertEquals(DiffType.FILE_NAME_DIR_NAME_COLLISION,
+				diffs.get("name").getDiffType());
+		Assert.assertEquals(DiffType.FILE_NAME_DIR_NAME_COLLISION,
+				diffs.get("other").getDiffType());
+	}
+
+	@Test
+	public void testMatchingTreesUseIndexOnSecondDiff() throws Exception {
+		String irodsRoot = server.getHomeDirectory("test1") + "/match";
+		File localRoot = testDirectory("testMatchingTreesUseIndexOnSecondDiff");
+		for (int i = 0; i < 5; i++) {
+			server.getCatalog().putDataObject(
+					irodsRoot + "/dir" + i + "/file.txt",
+					("content" + i).getBytes());
+			writeFile(new File(localRoot, "dir" + i + "/file.txt"), "content"
+					+ i);
+		}
+
+		File indexFile = new File(testDirectory("indexes"),
+				"testMatchingTreesUseIndexOnSecondDiff.txt");
+		LocalChecksumIndex index = new LocalChecksumIndex(indexFile);
+		ParallelFileTreeDiffUtilityImpl diffUtility = new ParallelFileTreeDiffUtilityImpl(
+				irodsAccount, irodsFileSystem.getIRODSAccessObjectFactory(),
+				null, index, 3);
+		Assert.assertTrue(diffUtility.verifyLocalAndIRODSTreesMatch(localRoot,
+				irodsRoot, 0, 0));
+		Assert.assertEquals(5, index.size());
+
+		// a reloaded index serves the second diff
+		LocalChecksumIndex reloaded = new LocalChecksumIndex(indexFile);
+		reloaded.load();
+		Assert.assertEquals(5, reloaded.size());
+		long modified = indexFile.lastModified();
+		Assert.assertTrue(new ParallelFileTreeDiffUtilityImpl(irodsAccount,
+				irodsFileSystem.getIRODSAccessObjectFactory(), null, reloaded,
+				3).verifyLocalAndIRODSTreesMatch(localRoot, irodsRoot, 0, 0));
+		// nothing new was recorded, so the index was not written again
+		Assert.assertEquals(modified, indexFile.lastModified());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testZeroParallelism() throws Exception {
+		new ParallelFileTreeDiffUtilityImpl(irodsAccount,
+				irodsFileSystem.getIRODSAccessObjectFactory(), null, null, 0);
+	}
+
+}
@@ -0,0 +1,191 @@
+package org.irods.jargon.datautils.tree;
+
+import java.io.FileNotFoundException;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServer;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class TreeSummarizingServiceQueryTest {
+
+	@Rule
+	public EmbeddedIRODSServerRule serverRule = new EmbeddedIRODSServerRule();
+
+	private EmbeddedIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSAccount irodsAccount;
+
+	@Before
+	public void setUp() throws Exception {
+		server = serverRule.getServer();
+		irodsFileSystem = serverRule.getIrodsFileSystem();
+		irodsAccount = serverRule.getIrodsAccount();
+	}
+
+	private TreeSummarizingServiceImpl buildService() throws Exception {
+		return new TreeSummarizingServiceImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory(), irodsAccount);
+	}
+
+	@Test
+	public void testSummaryViaQuery() throws Exception {
+		String root = server.getHomeDirectory("test1") + "/summary";
+		server.getCatalog().putDataObject(root + "/a.txt", new byte[5]);
+		server.getCatalog().putDataObject(root + "/b.jpg", new byte[20000]);
+		server.getCatalog().putDataObject(root + "/sub1/c.txt",
+				new byte[200000]);
+		server.getCatalog().putDataObject(root + "/sub1/deeper/d.TXT",
+				new byte[3]);
+		server.getCatalog().putDataObject(root + "/sub1x/f.txt", new byte[7]);
+		server.getCatalog().putDataObject(root + "/sub2/e", new byte[0]);
+		server.getCatalog().createCollection(root + "/empty");
+		server.getCatalog().putDataObject(
+				server.getHomeDirectory("test1") + "/summaryx/outside.txt",
+				new byte[1]);
+
+		TreeSummarizingServiceImpl service = buildService();
+		service.setParallelism(2);
+		TreeSummary summary = service
+				.generateTreeSummaryForIrodsFileTreeViaQuery(root);
+
+		Assert.assertEquals(6L, summary.getTotalFiles());
+		Assert.assertEquals(220015L, summary.getTotalBytes());
+		Assert.assertEquals(0L, summary.getMinLength());
+		Assert.assertEquals(200000L, summary.getMaxLength());
+		Assert.assertEquals(4L,
+				summary.getFileSizeSummaryMap().get(TreeSummary.SIZE_10K)
+						.get());
+		Assert.assertEquals(1L,
+				summary.getFileSizeSummaryMap().get(TreeSummary.SIZE_100K)
+						.get());
+		Assert.assertEquals(1L,
+				summary.getFileSizeSummaryMap().get(TreeSummary.SIZE_1M)
+						.get());
+		Assert.assertEquals(0L,
+				summary.getFileSizeSummaryMap().get(TreeSummary.SIZE_32M)
+						.get());
+		Assert.assertEquals(4L, summary.getFileExtensionSummaryMap()
+				.get(".txt").get());
+		Assert.assertEquals(1L, summary.getFileExtensionSummaryMap()
+				.get(".jpg").get());
+		Assert.assertEquals(1L, summary.getFileExtensionSummaryMap().get("")
+				.get());
+
+		Assert.assertEquals(4, summary.getSubtreeSummaryMap().size());
+		TreeSummary sub1 = summary.getSubtreeSummaryMap().get(root + "/sub1");
+		Assert.assertEquals(2L, sub1.getTotalFiles());
+		Assert.assertEquals(200003L, sub1.getTotalBytes());
+		Assert.assertEquals(3L, sub1.getMinLength());
+		Assert.assertEquals(1L,
+				summary.getSubtreeSummaryMap().get(root + "/sub1x")
+						.getTotalFiles());
+		Assert.assertEquals(0L,
+				summary.getSubtreeSummaryMap().get(root + "/empty")
+						.getTotalFiles());
+	}
+
+	@Test
+	public void testSummaryViaQueryWildcardSiblingsAndReplicas()
+			throws Exception {
+		String root = server.getHomeDirectory("test1") + "/wild";
+		server.getCatalog().putDataObject(root + "/sub_1/a.txt", new byte[10]);
+		server.getCatalog().putDataObject(root + "/sub_1/deeper/b.txt",
+				new byte[20]);
+		server.getCatalog().putDataObject(root + "/subX1/deeper/c.txt",
+				new byte[30]);
+		server.getCatalog().putDataObject(root + "/subX1/deeper/d.txt",
+				new byte[40]);
+		server.getCatalog().setReplicaNumbers(root + "/sub_1/a.txt", 1, 2);
+		server.getCatalog().setReplicaNumbers(root + "/subX1/deeper/c.txt", 3);
+
+		TreeSummary summary = buildService()
+				.generateTreeSummaryForIrodsFileTreeViaQuery(root);
+
+		Assert.assertEquals(4L, summary.getTotalFiles());
+		Assert.assertEquals(100L, summary.getTotalBytes());
+		TreeSummary sub1 = summary.getSubtreeSummaryMap().get(root + "/sub_1");
+		Assert.assertEquals(2L, sub1.getTotalFiles());
+		Assert.assertEquals(30L, sub1.getTotalBytes());
+		Assert.assertEquals(2L, sub1.getFileExtensionSummaryMap().get(".txt")
+				.get());
+		Assert.assertEquals(2L,
+				summary.getSubtreeSummaryMap().get(root + "/subX1")
+						.getTotalFiles());
+	}
+
+	@Test
+	public void testSummaryViaQueryMixesAggregateAndReplicatedCollections()
+			throws Exception {
+		String root = server.getHomeDirectory("test1") + "/mixed";
+		server.getCatalog().putDataObject(root + "/sub/a.txt", new byte[5]);
+		server.getCatalog().putDataObject(root + "/sub/rep/b.dat",
+				new byte[200000]);
+		server.getCatalog().putDataObject(root + "/sub/rep/c.dat",
+				new byte[10]);
+		server.getCatalog().setReplicaNumbers(root + "/sub/rep/b.dat", 0, 1);
+		server.getCatalog().setReplicaNumbers(root + "/sub/rep/c.dat", 1);
+
+		TreeSummary sub = buildService()
+				.generateTreeSummaryForIrodsFileTreeViaQuery(root)
+				.getSubtreeSummaryMap().get(root + "/sub");
+
+		Assert.assertEquals(3L, sub.getTotalFiles());
+		Assert.assertEquals(200015L, sub.getTotalBytes());
+		Assert.assertEquals(5L, sub.getMinLength());
+		Assert.assertEquals(200000L, sub.getMaxLength());
+		Assert.assertEquals(2L,
+				sub.getFileSizeSummaryMap().get(TreeSummary.SIZE_10K).get());
+		Assert.assertEquals(1L,
+				sub.getFileSizeSummaryMap().get(TreeSummary.SIZE_1M).get());
+		Assert.assertEquals(2L, sub.getFileExtensionSummaryMap().get(".dat")
+				.get());
+		Assert.assertEquals(1L, sub.getFileExtensionSummaryMap().get(".txt")
+				.get());
+	}
+
+	@Test
+	public void testSummaryViaQueryOfDataObject() throws Exception {
+		String path = server.getHomeDirectory("test1") + "/single.dat";
+		server.getCatalog().putDataObject(path, new byte[50000]);
+
+		TreeSummary summary = buildService()
+				.generateTreeSummaryForIrodsFileTreeViaQuery(path);
+		Assert.assertEquals(1L, summary.getTotalFiles());
+		Assert.assertEquals(50000L, summary.getTotalBytes());
+		Assert.assertEquals(1L,
+				summary.getFileSizeSummaryMap().get(TreeSummary.SIZE_100K)
+						.get());
+		Assert.assertEquals(1L, summary.getFileExtensionSummaryMap()
+				.get(".dat").get());
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void testSummaryViaQueryMissing() throws Exception {
+		buildService().generateTreeSummaryForIrodsFileTreeViaQuery(
+				server.getHomeDirectory("test1") + "/missing");
+	}
+
+	@Test
+	public void testClassifyLength() throws Exception {
+		Assert.assertEquals(TreeSummary.SIZE_10K,
+				TreeSummary.classifyLength(10239L));
+		Assert.assertEquals(TreeSummary.SIZE_100K,
+				TreeSummary.classifyLength(10240L));
+		Assert.assertEquals(TreeSummary.SIZE_10GB,
+				TreeSummary.classifyLength(5L * 1024L * 1024L * 1024L));
+		Assert.assertEquals(TreeSummary.SIZE_GT_100GB,
+				TreeSummary.classifyLength(100L * 1024L * 1024L * 1024L));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testZeroParallelism() throws Exception {
+		buildService().setParallelism(0);
+	}
+
+}
@@ -4,10 +4,14 @@ import org.irods.jargon.datautils.connection.ConnectionCreatingPoolableObjectFac
 import org.irods.jargon.datautils.connection.TempPasswordCachingProtocolManagerTest;
 import org.irods.jargon.datautils.connectiontester.ConnectionTesterImplTest;
 import org.irods.jargon.datautils.datacache.DataCacheServiceImplTest;
+import org.irods.jargon.datautils.datacache.OffHeapDataCacheTest;
 import org.irods.jargon.datautils.filearchive.LocalFileGzipCompressorTest;
 import org.irods.jargon.datautils.filearchive.LocalTarFileArchiverTest;
+import org.irods.jargon.datautils.filearchive.StreamingArchiveServiceImplTest;
 import org.irods.jargon.datautils.image.ImageServiceFactoryImplTest;
+import org.irods.jargon.datautils.image.LocalThumbnailCacheTest;
 import org.irods.jargon.datautils.image.MediaHandlingUtilsTest;
+import org.irods.jargon.datautils.image.ThumbnailBatchTest;
 import org.irods.jargon.datautils.image.ThumbnailServiceImplTest;
 import org.irods.jargon.datautils.sharing.AnonymousAccessServiceImplTest;
 import org.irods.jargon.datautils.shoppingcart.FileShoppingCartTest;
@@ -19,7 +23,10 @@ import org.irods.jargon.datautils.tree.FileTreeDiffEntryTest;
 import org.irods.jargon.datautils.tree.FileTreeDiffUtilityTest;
 import org.irods.jargon.datautils.tree.FileTreeIteratorVisitorInvokerTest;
 import org.irods.jargon.datautils.tree.FileTreeNodeTest;
+import org.irods.jargon.datautils.tree.LocalChecksumIndexTest;
+import org.irods.jargon.datautils.tree.ParallelFileTreeDiffUtilityImplTest;
 import org.irods.jargon.datautils.tree.TreeSummarizingServiceImplTest;
+import org.irods.jargon.datautils.tree.TreeSummarizingServiceQueryTest;
 import org.irods.jargon.datautils.uploads.UploadsServiceImplTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
@@ -37,7 +44,12 @@ import org.junit.runners.Suite;
 		DiffTreePostProcessorTest.class,
 		FileTreeIteratorVisitorInvokerTest.class,
 		TreeSummarizingServiceImplTest.class, LocalTarFileArchiverTest.class,
-		LocalFileGzipCompressorTest.class, ConnectionTesterImplTest.class })
+		LocalFileGzipCompressorTest.class, ConnectionTesterImplTest.class,
+		OffHeapDataCacheTest.class, LocalThumbnailCacheTest.class,
+		ThumbnailBatchTest.class, LocalChecksumIndexTest.class,
+		ParallelFileTreeDiffUtilityImplTest.class,
+		TreeSummarizingServiceQueryTest.class,
+		StreamingArchiveServiceImplTest.class })
 public class AllTests {
 
 }
@@ -0,0 +1,60 @@
+package org.irods.jargon.httpstream;
+
+import java.util.List;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.io.IRODSFile;
+
+/**
+ * Service to stream many URLs into iRODS. Jobs are held in a bounded queue and
+ * run by a pool of workers, which share pooled HTTP connections and each keep
+ * one iRODS connection for all of their jobs, rather than connecting for each
+ * URL. A job that fails for a reason that may pass, such as an I/O error or
+ * an HTTP 5xx status, is tried again after a growing delay.
+ * <p/>
+ * A service is used for one batch: jobs are submitted, then
+ * {@link #awaitCompletion()} waits for them and releases the connections.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public interface HttpBatchIngestService {
+
+	/**
+	 * Add a URL to the queue, waiting for room in the queue if it is full. The
+	 * workers are started by the first job.
+	 *
+	 * @param sourceURL
+	 *            <code>String</code> with the HTTP url to obtain a stream from
+	 * @param irodsTargetFile
+	 *            {@link IRODSFile} that will be the target of the transfer, a
+	 *            collection to use the file name of the URL
+	 * @return {@link HttpIngestJob} with the status of the job as it runs
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for room in the queue
+	 * @throws JargonException
+	 */
+	HttpIngestJob submit(String sourceURL, IRODSFile irodsTargetFile)
+			throws InterruptedException, JargonException;
+
+	/**
+	 * Stop taking jobs, wait for the submitted jobs to succeed or fail, and
+	 * release the HTTP and iRODS connections of the workers
+	 *
+	 * @return <code>List</code> of every {@link HttpIngestJob}, in the order
+	 *         submitted
+	 * @throws InterruptedException
+	 *             if interrupted while waiting
+	 * @throws JargonException
+	 */
+	List<HttpIngestJob> awaitCompletion() throws InterruptedException,
+			JargonException;
+
+	/**
+	 * Get the totals of the jobs so far
+	 *
+	 * @return {@link HttpIngestMetrics}
+	 */
+	HttpIngestMetrics getMetrics();
+
+}
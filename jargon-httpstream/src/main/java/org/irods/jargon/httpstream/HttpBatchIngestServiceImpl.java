@@ -0,0 +1,655 @@
+package org.irods.jargon.httpstream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.tsccm.ThreadSafeClientConnManager;
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.CatNoAccessException;
+import org.irods.jargon.core.exception.DataNotFoundException;
+import org.irods.jargon.core.exception.FileNotFoundException;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.transfer.TransferControlBlock;
+import org.irods.jargon.core.transfer.TransferStatus;
+import org.irods.jargon.core.transfer.TransferStatus.TransferState;
+import org.irods.jargon.core.transfer.TransferStatus.TransferType;
+import org.irods.jargon.core.transfer.TransferStatusCallbackListener;
+import org.irods.jargon.core.transfer.TransferTelemetry;
+import org.irods.jargon.core.transfer.TransferTelemetrySnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streams a queue of URLs into iRODS with a pool of workers. The workers share
+ * one HTTP client with a pooled connection manager, and each worker keeps its
+ * own iRODS connection across its jobs, which is closed when the worker exits.
+ * <p/>
+ * If a {@link TransferStatusCallbackListener} is given, it receives an
+ * <code>OVERALL_INITIATION</code> callback with the first job, a callback as
+ * each job starts and as it succeeds or fails for good, and an
+ * <code>OVERALL_COMPLETION</code> callback from {@link #awaitCompletion()}.
+ * The callbacks of jobs carry a {@link TransferTelemetrySnapshot} with the
+ * rate of the whole batch, each worker being one stream. Callbacks are made
+ * from the worker threads, one at a time. An exception thrown by the listener
+ * is logged and ignored, and an unexpected exception in a job fails that job
+ * rather than the worker.
+ * <p/>
+ * The bytes transferred in the metrics count only the attempt that succeeded
+ * for each job, the bytes of attempts that failed are counted apart, while
+ * the telemetry rate counts every byte streamed.
+ * <p/>
+ * The settings must be made before the first job is submitted.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class HttpBatchIngestServiceImpl implements HttpBatchIngestService {
+
+	public static final Logger log = LoggerFactory
+			.getLogger(HttpBatchIngestServiceImpl.class);
+
+	public static final int DEFAULT_NUMBER_OF_WORKERS = 4;
+	public static final int DEFAULT_QUEUE_CAPACITY = 100;
+	public static final int DEFAULT_MAX_ATTEMPTS = 3;
+	public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 1000L;
+	public static final long DEFAULT_MAX_BACKOFF_MILLIS = 30000L;
+
+	private final IRODSAccessObjectFactory irodsAccessObjectFactory;
+	private final IRODSAccount irodsAccount;
+	private final TransferStatusCallbackListener transferStatusCallbackListener;
+
+	private int numberOfWorkers = DEFAULT_NUMBER_OF_WORKERS;
+	private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+	private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+	private long initialBackoffMillis = DEFAULT_INITIAL_BACKOFF_MILLIS;
+	private long maxBackoffMillis = DEFAULT_MAX_BACKOFF_MILLIS;
+
+	private final List<HttpIngestJob> jobs = new ArrayList<HttpIngestJob>();
+	private final List<Thread> workers = new ArrayList<Thread>();
+	private final TransferTelemetry transferTelemetry = new TransferTelemetry();
+	private final AtomicInteger jobsNotTaken = new AtomicInteger(0);
+	private final AtomicInteger jobsSucceeded = new AtomicInteger(0);
+	private final AtomicInteger jobsFailed = new AtomicInteger(0);
+	private final AtomicInteger retries = new AtomicInteger(0);
+	private final AtomicLong bytesTransferred = new AtomicLong(0L);
+	private final AtomicLong bytesDiscarded = new AtomicLong(0L);
+	private final Object callbackLock = new Object();
+
+	private BlockingQueue<HttpIngestJob> queue = null;
+	private DefaultHttpClient httpClient = null;
+	private HttpStreamingService httpStreamingService = null;
+	private boolean started = false;
+	private volatile boolean closed = false;
+	private long startMillis = 0L;
+	private volatile long endMillis = 0L;
+
+	/**
+	 * Constructor takes the objects necessary to communicate with iRODS via
+	 * Access Objects
+	 *
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory} that can create various
+	 *            access objects
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} with login information for the target
+	 *            grid
+	 * @param transferStatusCallbackListener
+	 *            {@link TransferStatusCallbackListener} that receives the
+	 *            status of the jobs, or <code>null</code>
+	 */
+	public HttpBatchIngestServiceImpl(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount,
+			final TransferStatusCallbackListener transferStatusCallbackListener) {
+
+		if (irodsAccessObjectFactory == null) {
+			throw new IllegalArgumentException("null irodsAccessObjectFactory");
+		}
+
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+
+		this.irodsAccessObjectFactory = irodsAccessObjectFactory;
+		this.irodsAccount = irodsAccount;
+		this.transferStatusCallbackListener = transferStatusCallbackListener;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.httpstream.HttpBatchIngestService#submit(java.lang.String
+	 * , org.irods.jargon.core.pub.io.IRODSFile)
+	 */
+	@Override
+	public HttpIngestJob submit(final String sourceURL,
+			final IRODSFile irodsTargetFile) throws InterruptedException,
+			JargonException {
+
+		HttpIngestJob job;
+		synchronized (this) {
+			if (closed) {
+				throw new IllegalStateException(
+						"no jobs may be submitted once awaiting completion");
+			}
+
+			job = new HttpIngestJob(jobs.size() + 1, sourceURL,
+					irodsTargetFile);
+			log.info("submitting job:{}", job);
+
+			if (!started) {
+				start(job);
+			}
+			jobs.add(job);
+			jobsNotTaken.incrementAndGet();
+		}
+
+		queue.put(job);
+		return job;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.httpstream.HttpBatchIngestService#awaitCompletion()
+	 */
+	@Override
+	public List<HttpIngestJob> awaitCompletion() throws InterruptedException,
+			JargonException {
+		log.info("awaitCompletion()");
+
+		boolean wasClosed;
+		synchronized (this) {
+			wasClosed = closed;
+			closed = true;
+		}
+
+		for (Thread worker : workers) {
+			worker.join();
+		}
+
+		if (!wasClosed && started) {
+			endMillis = System.currentTimeMillis();
+			httpClient.getConnectionManager().shutdown();
+			HttpIngestMetrics metrics = getMetrics();
+			log.info("batch complete:{}", metrics);
+			sendOverallStatus(TransferState.OVERALL_COMPLETION, jobs.get(0),
+					metrics);
+		}
+
+		synchronized (this) {
+			return new ArrayList<HttpIngestJob>(jobs);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.httpstream.HttpBatchIngestService#getMetrics()
+	 */
+	@Override
+	public HttpIngestMetrics getMetrics() {
+		int submitted;
+		long elapsed;
+		synchronized (this) {
+			submitted = jobs.size();
+			if (!started) {
+				elapsed = 0L;
+			} else if (endMillis > 0) {
+				elapsed = endMillis - startMillis;
+			} else {
+				elapsed = System.currentTimeMillis() - startMillis;
+			}
+		}
+		return new HttpIngestMetrics(submitted, jobsSucceeded.get(),
+				jobsFailed.get(), retries.get(), bytesTransferred.get(),
+				bytesDiscarded.get(), elapsed);
+	}
+
+	/**
+	 * Create the queue, the pooled HTTP client and the workers. Called with
+	 * the lock held.
+	 */
+	private void start(final HttpIngestJob firstJob) throws JargonException {
+		log.info("starting {} workers", numberOfWorkers);
+		startMillis = System.currentTimeMillis();
+		queue = new ArrayBlockingQueue<HttpIngestJob>(queueCapacity);
+
+		ThreadSafeClientConnManager connectionManager = new ThreadSafeClientConnManager();
+		connectionManager.setMaxTotal(numberOfWorkers);
+		connectionManager.setDefaultMaxPerRoute(numberOfWorkers);
+		httpClient = new DefaultHttpClient(connectionManager);
+		httpStreamingService = new HttpStreamingServiceImpl(
+				irodsAccessObjectFactory, irodsAccount, httpClient);
+
+		sendOverallStatus(TransferState.OVERALL_INITIATION, firstJob, null);
+
+		for (int i = 0; i < numberOfWorkers; i++) {
+			Thread thread = new Thread(new Worker(i), "jargon-http-ingest-"
+					+ (i + 1));
+			thread.setDaemon(true);
+			workers.add(thread);
+			thread.start();
+		}
+		started = true;
+	}
+
+	/**
+	 * Run a job until it succeeds, or fails in a way that is not retried, or
+	 * runs out of attempts
+	 */
+	private void runJob(final HttpIngestJob job, final int streamNumber)
+			throws InterruptedException {
+
+		for (int attempt = 1;; attempt++) {
+			job.setAttempts(attempt);
+			job.setJobStatus(HttpIngestJob.JobStatus.RUNNING);
+			if (attempt == 1) {
+				sendJobStatus(job, TransferState.IN_PROGRESS_START_FILE, null);
+			}
+
+			JobListener jobListener = new JobListener(streamNumber);
+			Exception failure = null;
+			String resultPath = null;
+			TransferControlBlock transferControlBlock = null;
+
+			try {
+				transferControlBlock = irodsAccessObjectFactory
+						.buildDefaultTransferControlBlockBasedOnJargonProperties();
+				resultPath = httpStreamingService
+						.streamHttpUrlContentsToIRODSFile(job.getSourceURL(),
+								job.getIrodsTargetFile(), jobListener,
+								transferControlBlock);
+				failure = jobListener.exception;
+			} catch (Exception e) {
+				failure = e;
+			}
+
+			long attemptBytes = 0L;
+			TransferTelemetrySnapshot attemptTelemetry = TransferTelemetry
+					.snapshotOf(transferControlBlock);
+			if (attemptTelemetry != null) {
+				attemptBytes = attemptTelemetry.getBytesTransferred();
+			}
+			jobListener.recordBytesTo(attemptBytes);
+			transferTelemetry.streamFinished(streamNumber);
+
+			if (failure == null) {
+				log.info("job {} succeeded on attempt {}", job.getJobId(),
+						attempt);
+				bytesTransferred.addAndGet(jobListener.bytesRecorded);
+				job.setBytesTransferred(attemptBytes);
+				job.setResultIrodsAbsolutePath(resultPath);
+				job.setLastException(null);
+				job.setJobStatus(HttpIngestJob.JobStatus.SUCCEEDED);
+				jobsSucceeded.incrementAndGet();
+				sendJobStatus(job, TransferState.IN_PROGRESS_COMPLETE_FILE,
+						null);
+				return;
+			}
+
+			log.warn("job {} failed on attempt {}", job.getJobId(), attempt);
+			log.warn("failure", failure);
+			bytesDiscarded.addAndGet(jobListener.bytesRecorded);
+			job.setLastException(failure);
+
+			if (attempt >= maxAttempts || !isRetryable(failure)) {
+				log.error("job {} failed for good", job.getJobId());
+				job.setJobStatus(HttpIngestJob.JobStatus.FAILED);
+				jobsFailed.incrementAndGet();
+				sendJobStatus(job, TransferState.FAILURE, failure);
+				return;
+			}
+
+			if (!(failure instanceof HttpStreamingException)) {
+				// the iRODS connection may be broken, connect again to retry
+				irodsAccessObjectFactory
+						.closeSessionAndEatExceptions(irodsAccount);
+			}
+
+			retries.incrementAndGet();
+			job.setJobStatus(HttpIngestJob.JobStatus.WAITING_TO_RETRY);
+			Thread.sleep(computeBackoffMillis(attempt));
+		}
+	}
+
+	/**
+	 * Fail a job that ended with an unexpected exception, unless it had
+	 * already succeeded or failed
+	 */
+	private void failJob(final HttpIngestJob job, final RuntimeException e) {
+		log.error("unexpected exception in job {}", job.getJobId(), e);
+		if (job.getJobStatus() == HttpIngestJob.JobStatus.SUCCEEDED
+				|| job.getJobStatus() == HttpIngestJob.JobStatus.FAILED) {
+			return;
+		}
+
+		job.setLastException(e);
+		job.setJobStatus(HttpIngestJob.JobStatus.FAILED);
+		jobsFailed.incrementAndGet();
+		sendJobStatus(job, TransferState.FAILURE, e);
+	}
+
+	/**
+	 * Decide whether a failure may pass if the job is tried again: HTTP
+	 * statuses other than time outs, throttling and server errors, missing
+	 * iRODS paths and denied access will fail again
+	 */
+	private boolean isRetryable(final Exception failure) {
+		if (failure instanceof HttpStreamingException) {
+			int status = ((HttpStreamingException) failure)
+					.getHttpStatusCode();
+			return status == 0 || status == 408 || status == 429
+					|| status >= 500;
+		}
+
+		if (failure instanceof FileNotFoundException
+				|| failure instanceof DataNotFoundException
+				|| failure instanceof CatNoAccessException
+				|| failure instanceof RuntimeException) {
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return <code>long</code> with the delay after the given attempt, which
+	 *         doubles with each attempt up to the maximum
+	 */
+	long computeBackoffMillis(final int attempt) {
+		long backoff = initialBackoffMillis;
+		for (int i = 1; i < attempt && backoff < maxBackoffMillis; i++) {
+			backoff *= 2;
+		}
+		return Math.min(backoff, maxBackoffMillis);
+	}
+
+	private void sendJobStatus(final HttpIngestJob job,
+			final TransferState transferState, final Exception failure) {
+		if (transferStatusCallbackListener == null) {
+			return;
+		}
+
+		HttpIngestMetrics metrics = getMetrics();
+		try {
+			TransferStatus status;
+			if (failure == null) {
+				status = TransferStatus.instance(TransferType.PUT, job
+						.getSourceURL(), job.getResultIrodsAbsolutePath(), job
+						.getIrodsTargetFile().getResource(), job
+						.getBytesTransferred(), job.getBytesTransferred(),
+						metrics.getJobsSucceeded(), metrics.getJobsFailed(),
+						metrics.getJobsSubmitted(), transferState,
+						irodsAccount.getHost(), irodsAccount.getZone(),
+						transferTelemetry.snapshot());
+			} else {
+				status = TransferStatus.instanceForException(TransferType.PUT,
+						job.getSourceURL(), job.getIrodsTargetFile()
+								.getAbsolutePath(), job.getIrodsTargetFile()
+								.getResource(), 0L, 0L, metrics
+								.getJobsSucceeded(), metrics.getJobsFailed(),
+						metrics.getJobsSubmitted(), failure, irodsAccount
+								.getHost(), irodsAccount.getZone());
+			}
+
+			synchronized (callbackLock) {
+				transferStatusCallbackListener.statusCallback(status);
+			}
+		} catch (JargonException e) {
+			log.warn("error in status callback, logged and ignored", e);
+		} catch (RuntimeException e) {
+			log.warn("exception in status callback, logged and ignored", e);
+		}
+	}
+
+	/**
+	 * Send an overall status, which names the first job of the batch as the
+	 * source and target
+	 */
+	private void sendOverallStatus(final TransferState transferState,
+			final HttpIngestJob firstJob, final HttpIngestMetrics metrics) {
+		if (transferStatusCallbackListener == null) {
+			return;
+		}
+
+		try {
+			TransferStatus status;
+			if (metrics == null) {
+				status = TransferStatus.instance(TransferType.PUT, firstJob
+						.getSourceURL(), firstJob.getIrodsTargetFile()
+						.getAbsolutePath(), "", 0L, 0L, 0, 0, 0, transferState,
+						irodsAccount.getHost(), irodsAccount.getZone());
+			} else {
+				status = TransferStatus.instance(TransferType.PUT, firstJob
+						.getSourceURL(), firstJob.getIrodsTargetFile()
+						.getAbsolutePath(), "", metrics.getBytesTransferred(),
+						metrics.getBytesTransferred(), metrics
+								.getJobsSucceeded(), metrics.getJobsFailed(),
+						metrics.getJobsSubmitted(), transferState,
+						irodsAccount.getHost(), irodsAccount.getZone(),
+						transferTelemetry.snapshot());
+			}
+
+			synchronized (callbackLock) {
+				transferStatusCallbackListener.overallStatusCallback(status);
+			}
+		} catch (JargonException e) {
+			log.warn("error in status callback, logged and ignored", e);
+		} catch (RuntimeException e) {
+			log.warn("exception in status callback, logged and ignored", e);
+		}
+	}
+
+	/**
+	 * @return <code>int</code> with the number of jobs run at once, each over
+	 *         its own connection to iRODS
+	 */
+	public int getNumberOfWorkers() {
+		return numberOfWorkers;
+	}
+
+	/**
+	 * @param numberOfWorkers
+	 *            <code>int</code> with the number of jobs run at once, each
+	 *            over its own connection to iRODS
+	 */
+	public synchronized void setNumberOfWorkers(final int numberOfWorkers) {
+		checkNotStarted();
+		if (numberOfWorkers <= 0) {
+			throw new IllegalArgumentException(
+					"numberOfWorkers must be greater than zero");
+		}
+		this.numberOfWorkers = numberOfWorkers;
+	}
+
+	/**
+	 * @return <code>int</code> with the number of jobs that may wait in the
+	 *         queue before a submit waits for room
+	 */
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+
+	/**
+	 * @param queueCapacity
+	 *            <code>int</code> with the number of jobs that may wait in the
+	 *            queue before a submit waits for room
+	 */
+	public synchronized void setQueueCapacity(final int queueCapacity) {
+		checkNotStarted();
+		if (queueCapacity <= 0) {
+			throw new IllegalArgumentException(
+					"queueCapacity must be greater than zero");
+		}
+		this.queueCapacity = queueCapacity;
+	}
+
+	/**
+	 * @return <code>int</code> with the most times a job is tried
+	 */
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	/**
+	 * @param maxAttempts
+	 *            <code>int</code> with the most times a job is tried, 1 for no
+	 *            retries
+	 */
+	public synchronized void setMaxAttempts(final int maxAttempts) {
+		checkNotStarted();
+		if (maxAttempts <= 0) {
+			throw new IllegalArgumentException(
+					"maxAttempts must be greater than zero");
+		}
+		this.maxAttempts = maxAttempts;
+	}
+
+	/**
+	 * @return <code>long</code> with the delay in milliseconds before the
+	 *         first retry of a job
+	 */
+	public long getInitialBackoffMillis() {
+		return initialBackoffMillis;
+	}
+
+	/**
+	 * @param initialBackoffMillis
+	 *            <code>long</code> with the delay in milliseconds before the
+	 *            first retry of a job, which doubles for each later retry
+	 */
+	public synchronized void setInitialBackoffMillis(
+			final long initialBackoffMillis) {
+		checkNotStarted();
+		if (initialBackoffMillis < 0) {
+			throw new IllegalArgumentException(
+					"initialBackoffMillis must not be negative");
+		}
+		this.initialBackoffMillis = initialBackoffMillis;
+	}
+
+	/**
+	 * @return <code>long</code> with the longest delay in milliseconds before
+	 *         a retry
+	 */
+	public long getMaxBackoffMillis() {
+		return maxBackoffMillis;
+	}
+
+	/**
+	 * @param maxBackoffMillis
+	 *            <code>long</code> with the longest delay in milliseconds
+	 *            before a retry
+	 */
+	public synchronized void setMaxBackoffMillis(final long maxBackoffMillis) {
+		checkNotStarted();
+		if (maxBackoffMillis < 0) {
+			throw new IllegalArgumentException(
+					"maxBackoffMillis must not be negative");
+		}
+		this.maxBackoffMillis = maxBackoffMillis;
+	}
+
+	private void checkNotStarted() {
+		if (started) {
+			throw new IllegalStateException(
+					"settings may not be changed once jobs are submitted");
+		}
+	}
+
+	/**
+	 * Takes jobs until the service is closed and every job has been taken,
+	 * and closes the iRODS connection of its thread on exit
+	 */
+	private class Worker implements Runnable {
+		private final int streamNumber;
+
+		Worker(final int streamNumber) {
+			this.streamNumber = streamNumber;
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (!closed || jobsNotTaken.get() > 0) {
+					HttpIngestJob job = queue.poll(100, TimeUnit.MILLISECONDS);
+					if (job == null) {
+						continue;
+					}
+					jobsNotTaken.decrementAndGet();
+					try {
+						runJob(job, streamNumber);
+					} catch (RuntimeException e) {
+						failJob(job, e);
+					}
+				}
+			} catch (InterruptedException e) {
+				log.warn("ingest worker interrupted, exiting");
+				Thread.currentThread().interrupt();
+			} finally {
+				irodsAccessObjectFactory
+						.closeSessionAndEatExceptions(irodsAccount);
+			}
+		}
+	}
+
+	/**
+	 * Listens to one attempt of a job, adding its progress to the telemetry of
+	 * the batch and keeping any exception. The bytes are added to the totals
+	 * of the batch once the attempt is known to have succeeded or failed.
+	 */
+	private class JobListener implements TransferStatusCallbackListener {
+		private final int streamNumber;
+		private long bytesRecorded = 0L;
+		private Exception exception = null;
+
+		JobListener(final int streamNumber) {
+			this.streamNumber = streamNumber;
+		}
+
+		@Override
+		public FileStatusCallbackResponse statusCallback(
+				final TransferStatus transferStatus) throws JargonException {
+			if (transferStatus.isIntraFileStatusReport()) {
+				recordBytesTo(transferStatus.getBytesTransfered());
+			} else if (transferStatus.getTransferException() != null) {
+				exception = transferStatus.getTransferException();
+			}
+			return FileStatusCallbackResponse.CONTINUE;
+		}
+
+		@Override
+		public void overallStatusCallback(final TransferStatus transferStatus)
+				throws JargonException {
+			// the batch sends its own overall status
+		}
+
+		@Override
+		public CallbackResponse transferAsksWhetherToForceOperation(
+				final String irodsAbsolutePath, final boolean isCollection) {
+			return CallbackResponse.YES_THIS_FILE;
+		}
+
+		/**
+		 * Record the bytes moved since the last report of this attempt
+		 */
+		void recordBytesTo(final long bytesSoFar) {
+			long delta = bytesSoFar - bytesRecorded;
+			if (delta > 0) {
+				transferTelemetry.recordBytes(streamNumber, delta);
+				bytesRecorded = bytesSoFar;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,146 @@
+package org.irods.jargon.httpstream;
+
+import org.irods.jargon.core.pub.io.IRODSFile;
+
+/**
+ * One URL to be streamed to iRODS by a {@link HttpBatchIngestService}, with
+ * the status of its ingest. The status is updated by the worker that runs the
+ * job, and may be read from any thread.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class HttpIngestJob {
+
+	public enum JobStatus {
+		QUEUED, RUNNING, WAITING_TO_RETRY, SUCCEEDED, FAILED
+	}
+
+	private final long jobId;
+	private final String sourceURL;
+	private final IRODSFile irodsTargetFile;
+	private volatile JobStatus jobStatus = JobStatus.QUEUED;
+	private volatile int attempts = 0;
+	private volatile long bytesTransferred = 0L;
+	private volatile String resultIrodsAbsolutePath = "";
+	private volatile Exception lastException = null;
+
+	HttpIngestJob(final long jobId, final String sourceURL,
+			final IRODSFile irodsTargetFile) {
+
+		if (sourceURL == null || sourceURL.isEmpty()) {
+			throw new IllegalArgumentException("null or empty sourceURL");
+		}
+
+		if (irodsTargetFile == null) {
+			throw new IllegalArgumentException("null irodsTargetFile");
+		}
+
+		this.jobId = jobId;
+		this.sourceURL = sourceURL;
+		this.irodsTargetFile = irodsTargetFile;
+	}
+
+	/**
+	 * @return <code>long</code> with the number of the job, in the order
+	 *         submitted
+	 */
+	public long getJobId() {
+		return jobId;
+	}
+
+	public String getSourceURL() {
+		return sourceURL;
+	}
+
+	public IRODSFile getIrodsTargetFile() {
+		return irodsTargetFile;
+	}
+
+	public JobStatus getJobStatus() {
+		return jobStatus;
+	}
+
+	void setJobStatus(final JobStatus jobStatus) {
+		this.jobStatus = jobStatus;
+	}
+
+	/**
+	 * @return <code>int</code> with the number of times the transfer was
+	 *         started, including retries
+	 */
+	public int getAttempts() {
+		return attempts;
+	}
+
+	void setAttempts(final int attempts) {
+		this.attempts = attempts;
+	}
+
+	/**
+	 * @return <code>long</code> with the bytes streamed by the attempt that
+	 *         succeeded
+	 */
+	public long getBytesTransferred() {
+		return bytesTransferred;
+	}
+
+	void setBytesTransferred(final long bytesTransferred) {
+		this.bytesTransferred = bytesTransferred;
+	}
+
+	/**
+	 * @return <code>String</code> with the iRODS absolute path that holds the
+	 *         contents, blank until the job succeeds
+	 */
+	public String getResultIrodsAbsolutePath() {
+		return resultIrodsAbsolutePath;
+	}
+
+	void setResultIrodsAbsolutePath(final String resultIrodsAbsolutePath) {
+		this.resultIrodsAbsolutePath = resultIrodsAbsolutePath;
+	}
+
+	/**
+	 * @return <code>Exception</code> of the last attempt that failed, or
+	 *         <code>null</code>
+	 */
+	public Exception getLastException() {
+		return lastException;
+	}
+
+	void setLastException(final Exception lastException) {
+		this.lastException = lastException;
+	}
+
+	/**
+	 * @return <code>boolean</code> that is <code>true</code> if the job
+	 *         succeeded or failed for good
+	 */
+	public boolean isDone() {
+		return jobStatus == JobStatus.SUCCEEDED
+				|| jobStatus == JobStatus.FAILED;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("HttpIngestJob");
+		sb.append("\n   jobId:");
+		sb.append(jobId);
+		sb.append("\n   sourceURL:");
+		sb.append(sourceURL);
+		sb.append("\n   irodsTargetFile:");
+		sb.append(irodsTargetFile.getAbsolutePath());
+		sb.append("\n   jobStatus:");
+		sb.append(jobStatus);
+		sb.append("\n   attempts:");
+		sb.append(attempts);
+		sb.append("\n   bytesTransferred:");
+		sb.append(bytesTransferred);
+		sb.append("\n   lastException:");
+		sb.append(lastException);
+		return sb.toString();
+	}
+
+}
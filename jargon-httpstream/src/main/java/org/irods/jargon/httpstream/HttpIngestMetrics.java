@@ -0,0 +1,115 @@
+package org.irods.jargon.httpstream;
+
+/**
+ * Totals of the jobs of a {@link HttpBatchIngestService} at a point in time
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class HttpIngestMetrics {
+
+	private final int jobsSubmitted;
+	private final int jobsSucceeded;
+	private final int jobsFailed;
+	private final int retries;
+	private final long bytesTransferred;
+	private final long bytesDiscarded;
+	private final long elapsedMillis;
+
+	HttpIngestMetrics(final int jobsSubmitted, final int jobsSucceeded,
+			final int jobsFailed, final int retries,
+			final long bytesTransferred, final long bytesDiscarded,
+			final long elapsedMillis) {
+		this.jobsSubmitted = jobsSubmitted;
+		this.jobsSucceeded = jobsSucceeded;
+		this.jobsFailed = jobsFailed;
+		this.retries = retries;
+		this.bytesTransferred = bytesTransferred;
+		this.bytesDiscarded = bytesDiscarded;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	public int getJobsSubmitted() {
+		return jobsSubmitted;
+	}
+
+	public int getJobsSucceeded() {
+		return jobsSucceeded;
+	}
+
+	public int getJobsFailed() {
+		return jobsFailed;
+	}
+
+	/**
+	 * @return <code>int</code> with the number of jobs not yet done
+	 */
+	public int getJobsPending() {
+		return jobsSubmitted - jobsSucceeded - jobsFailed;
+	}
+
+	/**
+	 * @return <code>int</code> with the number of attempts made again after
+	 *         a failure
+	 */
+	public int getRetries() {
+		return retries;
+	}
+
+	/**
+	 * @return <code>long</code> with the bytes streamed by the attempt that
+	 *         succeeded, for each job that has succeeded
+	 */
+	public long getBytesTransferred() {
+		return bytesTransferred;
+	}
+
+	/**
+	 * @return <code>long</code> with the bytes streamed by attempts that
+	 *         failed, which are not part of the bytes transferred
+	 */
+	public long getBytesDiscarded() {
+		return bytesDiscarded;
+	}
+
+	/**
+	 * @return <code>long</code> with the milliseconds since the first job
+	 *         was submitted, up to the completion of the last job once done
+	 */
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	/**
+	 * @return <code>double</code> with the average bytes per second over the
+	 *         elapsed time
+	 */
+	public double getBytesPerSecond() {
+		if (elapsedMillis <= 0) {
+			return 0.0;
+		}
+		return bytesTransferred * 1000.0 / elapsedMillis;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("HttpIngestMetrics");
+		sb.append("\n   jobsSubmitted:");
+		sb.append(jobsSubmitted);
+		sb.append("\n   jobsSucceeded:");
+		sb.append(jobsSucceeded);
+		sb.append("\n   jobsFailed:");
+		sb.append(jobsFailed);
+		sb.append("\n   retries:");
+		sb.append(retries);
+		sb.append("\n   bytesTransferred:");
+		sb.append(bytesTransferred);
+		sb.append("\n   bytesDiscarded:");
+		sb.append(bytesDiscarded);
+		sb.append("\n   elapsedMillis:");
+		sb.append(elapsedMillis);
+		return sb.toString();
+	}
+
+}
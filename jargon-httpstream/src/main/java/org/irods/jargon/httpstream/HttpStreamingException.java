@@ -13,6 +13,8 @@ public class HttpStreamingException extends Exception {
 	 */
 	private static final long serialVersionUID = 3177260897750311917L;
 
+	private int httpStatusCode = 0;
+
 	/**
 	 * 
 	 */
@@ -42,4 +44,25 @@ public class HttpStreamingException extends Exception {
 		super(message, cause);
 	}
 
+	/**
+	 * @param message
+	 * @param httpStatusCode
+	 *            <code>int</code> with the status of the HTTP operation that
+	 *            failed
+	 */
+	public HttpStreamingException(final String message,
+			final int httpStatusCode) {
+		super(message);
+		this.httpStatusCode = httpStatusCode;
+	}
+
+	/**
+	 * @return <code>int</code> with the status of the HTTP operation that
+	 *         failed, or 0 if the error was not an HTTP status, such as an I/O
+	 *         error
+	 */
+	public int getHttpStatusCode() {
+		return httpStatusCode;
+	}
+
 }
@@ -43,4 +43,47 @@ public interface HttpStreamingService {
 			final TransferControlBlock transferControlBlock)
 			throws JargonException, HttpStreamingException;
 
-}
\ No newline at end of file
+	/**
+	 * Accomplish a transfer by providing a URL in simple <code>String</code>
+	 * form, fetching byte ranges of it concurrently. If the HTTP server offers
+	 * byte ranges and gives the length and a validator (a strong entity tag,
+	 * or else the last modified time) of the contents, the contents are split
+	 * into one range per thread, and each thread uses an HTTP get of its range
+	 * and writes it at the same offset of the iRODS file over its own
+	 * connection. Each get is conditional on the validator, so that contents
+	 * that change during the transfer fail it rather than mixing versions.
+	 * Otherwise, or if the contents are small, this behaves as
+	 * {@link #streamHttpUrlContentsToIRODSFile(String, IRODSFile, TransferStatusCallbackListener, TransferControlBlock)}
+	 * and streams the contents as one.
+	 * <p/>
+	 * If any range fails, the others are stopped and the target file is
+	 * removed, so that no partial contents are left in iRODS.
+	 * 
+	 * @param sourceURL
+	 *            <code>String</code> with the HTTP url to obtain a stream from
+	 * @param irodsTargetFile
+	 *            {@link IRODSFile} that will be the target of the transfer
+	 * @param transferStatusCallbackListener
+	 *            {@link TransferStatusCallbackListener} that can receive status
+	 *            callbacks for transfer progress
+	 * @param transferControlBlock
+	 *            {@link TransferControlBlock} that can control aspects of the
+	 *            running transfer
+	 * @param numberOfThreads
+	 *            <code>int</code> with the number of ranges fetched at once
+	 * @return <code>String</code> with the iRODS absolute path to the file that
+	 *         holds the result of the operation
+	 * @throws JargonException
+	 *             for errors occurring within iRODS during the operation
+	 * @throws HttpStreamingException
+	 *             for errors occuring in the HTTP protocol operation
+	 */
+	public abstract String streamHttpUrlContentsToIRODSFileInParallel(
+			final String sourceURL,
+			final IRODSFile irodsTargetFile,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock,
+			final int numberOfThreads) throws JargonException,
+			HttpStreamingException;
+
+}
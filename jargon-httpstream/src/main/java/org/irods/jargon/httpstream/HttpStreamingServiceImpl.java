@@ -4,27 +4,43 @@ import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
 import org.apache.http.StatusLine;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
 import org.apache.http.impl.client.DefaultHttpClient;
 import org.irods.jargon.core.connection.ConnectionProgressStatusListener;
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.exception.JargonRuntimeException;
+import org.irods.jargon.core.packinstr.DataObjInp.OpenFlags;
 import org.irods.jargon.core.pub.DefaultIntraFileProgressCallbackListener;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
 import org.irods.jargon.core.pub.Stream2StreamAO;
 import org.irods.jargon.core.pub.io.ByteCountingCallbackInputStreamWrapper;
+import org.irods.jargon.core.pub.io.FileIOOperations.SeekWhenceType;
 import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.pub.io.IRODSRandomAccessFile;
 import org.irods.jargon.core.transfer.TransferControlBlock;
 import org.irods.jargon.core.transfer.TransferStatus;
 import org.irods.jargon.core.transfer.TransferStatus.TransferState;
 import org.irods.jargon.core.transfer.TransferStatus.TransferType;
 import org.irods.jargon.core.transfer.TransferStatusCallbackListener;
+import org.irods.jargon.core.utils.SessionClosingThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,6 +57,20 @@ public class HttpStreamingServiceImpl implements HttpStreamingService {
 			.getLogger(HttpStreamingServiceImpl.class);
 	private IRODSAccessObjectFactory irodsAccessObjectFactory;
 	private IRODSAccount irodsAccount;
+	private final HttpClient sharedHttpClient;
+
+	/**
+	 * Default for the minimum length of the contents of a URL that is fetched
+	 * in ranges, smaller contents are streamed as one
+	 */
+	public static final long DEFAULT_MINIMUM_RANGED_LENGTH = 32L * 1024L * 1024L;
+	private long minimumRangedLength = DEFAULT_MINIMUM_RANGED_LENGTH;
+
+	/**
+	 * Longest time to wait, after a range fails, for the other ranges to stop
+	 * before the target is removed
+	 */
+	static final long RANGE_STOP_WAIT_SECONDS = 30L;
 
 	/**
 	 * Default constructor takes the objects necessary to communicate with iRODS
@@ -57,8 +87,33 @@ public class HttpStreamingServiceImpl implements HttpStreamingService {
 	public HttpStreamingServiceImpl(
 			final IRODSAccessObjectFactory irodsAccessObjectFactory,
 			final IRODSAccount irodsAccount) throws JargonException {
+		this(irodsAccessObjectFactory, irodsAccount, null);
+	}
+
+	/**
+	 * Constructor that uses one HTTP client for every request, so that its
+	 * connections may be reused. The client is not shut down by this service,
+	 * and must have a connection manager that is safe for use by many threads
+	 * if the service is used by many threads, or by the ranged transfer.
+	 * 
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory} that can create various
+	 *            access objects
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} with login information for the target
+	 *            grid
+	 * @param sharedHttpClient
+	 *            {@link HttpClient} used for every request, or
+	 *            <code>null</code> to use a new client for each request
+	 * @throws JargonException
+	 */
+	public HttpStreamingServiceImpl(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount, final HttpClient sharedHttpClient)
+			throws JargonException {
 		this.irodsAccessObjectFactory = irodsAccessObjectFactory;
 		this.irodsAccount = irodsAccount;
+		this.sharedHttpClient = sharedHttpClient;
 	}
 
 	/*
@@ -98,7 +153,7 @@ public class HttpStreamingServiceImpl implements HttpStreamingService {
 					.buildDefaultTransferControlBlockBasedOnJargonProperties();
 		}
 
-		HttpClient httpclient = new DefaultHttpClient();
+		HttpClient httpclient = obtainHttpClient();
 
 		// Prepare a request object
 		HttpGet httpget = new HttpGet(sourceURL);
@@ -118,12 +173,17 @@ public class HttpStreamingServiceImpl implements HttpStreamingService {
 		StatusLine statusLine = response.getStatusLine();
 		log.info("status from http operation:{}", statusLine);
 		if (statusLine.getStatusCode() == 404) {
-			throw new HttpStreamingException("404 not found for URL");
+			httpget.abort();
+			releaseHttpClient(httpclient);
+			throw new HttpStreamingException("404 not found for URL", 404);
 		} else if (statusLine.getStatusCode() > 200) {
 			log.error("invalid status code:{}", statusLine.getStatusCode());
+			httpget.abort();
+			releaseHttpClient(httpclient);
 			throw new HttpStreamingException(
 					"invalid status from HTTP operation:"
-							+ statusLine.getStatusCode());
+							+ statusLine.getStatusCode(),
+					statusLine.getStatusCode());
 		}
 
 		// Get hold of the response entity
@@ -161,83 +221,83 @@ public class HttpStreamingServiceImpl implements HttpStreamingService {
 
 		}
 
-		operativeTransferControlBlock.setTotalFilesToTransfer(1);
-
 		/*
-		 * Source URL is a file, target is either a collection, or specifies the
-		 * file. If the target exists, or the target parent exists, format the
-		 * appropriate call-back so that it depicts the resulting file
+		 * until the copy starts, an error must release the HTTP connection
+		 * here, or a shared client would run out of connections
 		 */
+		String callbackTargetIrodsPath;
+		IRODSFile callbackTargetIrodsFile;
+		boolean copyStarted = false;
+		try {
+			operativeTransferControlBlock.setTotalFilesToTransfer(1);
 
-		StringBuilder targetIrodsPathBuilder = new StringBuilder();
+			/*
+			 * Source URL is a file, target is either a collection, or specifies the
+			 * file. If the target exists, or the target parent exists, format the
+			 * appropriate call-back so that it depicts the resulting file
+			 */
 
-		/*
-		 * Reset the iRODS file, as the directory may have been created prior to
-		 * the put operation. The reset clears the cache of the exists(),
-		 * isFile(), and other basic file stat info
-		 */
-		irodsTargetFile.reset();
-		if (irodsTargetFile.exists() && irodsTargetFile.isDirectory()) {
-			log.info("target is a directory, source is an url");
-			targetIrodsPathBuilder.append(irodsTargetFile.getAbsolutePath());
-			targetIrodsPathBuilder.append("/");
-			int slashIndex = sourceURL.lastIndexOf('/');
-			String urlFileName = sourceURL.substring(slashIndex + 1);
-			targetIrodsPathBuilder.append(urlFileName);
-		} else if (irodsTargetFile.getParentFile().exists()
-				&& irodsTargetFile.getParentFile().isDirectory()) {
-			log.info("treating target as a file, using the whole path");
-			targetIrodsPathBuilder.append(irodsTargetFile.getAbsolutePath());
-		}
+			callbackTargetIrodsPath = buildTargetIrodsPath(sourceURL,
+					irodsTargetFile);
+			log.info("computed callbackTargetIrodsPath:{}", callbackTargetIrodsPath);
 
-		String callbackTargetIrodsPath = targetIrodsPathBuilder.toString();
-		log.info("computed callbackTargetIrodsPath:{}", callbackTargetIrodsPath);
-
-		// send 0th file status callback that indicates startup
-		if (transferStatusCallbackListener != null) {
-			TransferStatus status = TransferStatus.instance(TransferType.PUT,
-					sourceURL, callbackTargetIrodsPath, "",
-					operativeTransferControlBlock.getTotalBytesToTransfer(),
-					operativeTransferControlBlock
-							.getTotalBytesTransferredSoFar(),
-					operativeTransferControlBlock
-							.getTotalFilesTransferredSoFar(),
-					operativeTransferControlBlock.getTotalFilesSkippedSoFar(),
-					operativeTransferControlBlock.getTotalFilesToTransfer(),
-					TransferState.OVERALL_INITIATION, irodsAccount.getHost(),
-					irodsAccount.getZone());
-			transferStatusCallbackListener.overallStatusCallback(status);
-		}
+			// send 0th file status callback that indicates startup
+			if (transferStatusCallbackListener != null) {
+				TransferStatus status = TransferStatus.instance(TransferType.PUT,
+						sourceURL, callbackTargetIrodsPath, "",
+						operativeTransferControlBlock.getTotalBytesToTransfer(),
+						operativeTransferControlBlock
+								.getTotalBytesTransferredSoFar(),
+						operativeTransferControlBlock
+								.getTotalFilesTransferredSoFar(),
+						operativeTransferControlBlock.getTotalFilesSkippedSoFar(),
+						operativeTransferControlBlock.getTotalFilesToTransfer(),
+						TransferState.OVERALL_INITIATION, irodsAccount.getHost(),
+						irodsAccount.getZone());
+				transferStatusCallbackListener.overallStatusCallback(status);
+			}
 
-		IRODSFile callbackTargetIrodsFile = irodsAccessObjectFactory
-				.getIRODSFileFactory(irodsAccount).instanceIRODSFile(
-						callbackTargetIrodsPath);
-		callbackTargetIrodsFile.setResource(irodsTargetFile.getResource());
+			callbackTargetIrodsFile = irodsAccessObjectFactory
+					.getIRODSFileFactory(irodsAccount).instanceIRODSFile(
+							callbackTargetIrodsPath);
+			callbackTargetIrodsFile.setResource(irodsTargetFile.getResource());
 
-		log.info("callbackTargetIrodsFile:{}", callbackTargetIrodsFile);
+			log.info("callbackTargetIrodsFile:{}", callbackTargetIrodsFile);
 
-		if (transferStatusCallbackListener != null) {
+			if (transferStatusCallbackListener != null) {
 
-			TransferStatus status = TransferStatus.instance(TransferType.PUT,
-					sourceURL, callbackTargetIrodsFile.getAbsolutePath(),
-					irodsTargetFile.getResource(), urlSize, urlSize,
-					operativeTransferControlBlock
-							.getTotalFilesTransferredSoFar(),
-					operativeTransferControlBlock.getTotalFilesSkippedSoFar(),
-					operativeTransferControlBlock.getTotalFilesToTransfer(),
-					TransferState.IN_PROGRESS_START_FILE, irodsAccount
-							.getHost(), irodsAccount.getZone());
+				TransferStatus status = TransferStatus.instance(TransferType.PUT,
+						sourceURL, callbackTargetIrodsFile.getAbsolutePath(),
+						irodsTargetFile.getResource(), urlSize, urlSize,
+						operativeTransferControlBlock
+								.getTotalFilesTransferredSoFar(),
+						operativeTransferControlBlock.getTotalFilesSkippedSoFar(),
+						operativeTransferControlBlock.getTotalFilesToTransfer(),
+						TransferState.IN_PROGRESS_START_FILE, irodsAccount
+								.getHost(), irodsAccount.getZone());
 
-			transferStatusCallbackListener.statusCallback(status);
-		}
+				transferStatusCallbackListener.statusCallback(status);
+			}
 
-		if (transferStatusCallbackListener != null) {
-			log.info("setting up a callback listener for within stream progress");
-			ConnectionProgressStatusListener listener = DefaultIntraFileProgressCallbackListener
-					.instance(TransferType.PUT, urlSize, transferControlBlock,
-							transferStatusCallbackListener);
-			instream = new ByteCountingCallbackInputStreamWrapper(listener,
-					instream);
+			if (transferStatusCallbackListener != null) {
+				log.info("setting up a callback listener for within stream progress");
+				ConnectionProgressStatusListener listener = DefaultIntraFileProgressCallbackListener
+						.instance(TransferType.PUT, urlSize, transferControlBlock,
+								transferStatusCallbackListener);
+				instream = new ByteCountingCallbackInputStreamWrapper(listener,
+						instream);
+			}
+			copyStarted = true;
+		} finally {
+			if (!copyStarted) {
+				httpget.abort();
+				try {
+					instream.close();
+				} catch (IOException e) {
+					log.error("IOException in close of HTTP input stream, logged and ignored");
+				}
+				releaseHttpClient(httpclient);
+			}
 		}
 
 		try {
@@ -328,7 +388,7 @@ public class HttpStreamingServiceImpl implements HttpStreamingService {
 			// When HttpClient instance is no longer needed,
 			// shut down the connection manager to ensure
 			// immediate deallocation of all system resources
-			httpclient.getConnectionManager().shutdown();
+			releaseHttpClient(httpclient);
 		}
 
 		log.info("contents streamed to:{}",
@@ -337,6 +397,533 @@ public class HttpStreamingServiceImpl implements HttpStreamingService {
 
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.httpstream.HttpStreamingService#
+	 * streamHttpUrlContentsToIRODSFileInParallel(java.lang.String,
+	 * org.irods.jargon.core.pub.io.IRODSFile,
+	 * org.irods.jargon.core.transfer.TransferStatusCallbackListener,
+	 * org.irods.jargon.core.transfer.TransferControlBlock, int)
+	 */
+	@Override
+	public String streamHttpUrlContentsToIRODSFileInParallel(
+			final String sourceURL,
+			final IRODSFile irodsTargetFile,
+			final TransferStatusCallbackListener transferStatusCallbackListener,
+			final TransferControlBlock transferControlBlock,
+			final int numberOfThreads) throws JargonException,
+			HttpStreamingException {
+
+		log.info("streamHttpUrlContentsToIRODSFileInParallel()");
+
+		if (sourceURL == null || sourceURL.isEmpty()) {
+			throw new IllegalArgumentException("null sourceURL");
+		}
+
+		if (irodsTargetFile == null) {
+			throw new IllegalArgumentException("irodsTargetFile is null");
+		}
+
+		if (numberOfThreads <= 0) {
+			throw new IllegalArgumentException(
+					"numberOfThreads must be greater than zero");
+		}
+
+		log.info("sourceURL:{}", sourceURL);
+		log.info("irodsTargetFile:{}", irodsTargetFile);
+		log.info("numberOfThreads:{}", numberOfThreads);
+
+		RangedContents rangedContents = findRangedContents(sourceURL);
+		long urlSize = rangedContents == null ? -1 : rangedContents.length;
+		if (numberOfThreads == 1 || urlSize < minimumRangedLength
+				|| urlSize < numberOfThreads) {
+			log.info("ranges not supported or not worthwhile, streaming as a single stream");
+			return streamHttpUrlContentsToIRODSFile(sourceURL,
+					irodsTargetFile, transferStatusCallbackListener,
+					transferControlBlock);
+		}
+
+		TransferControlBlock operativeTransferControlBlock = transferControlBlock;
+		if (operativeTransferControlBlock == null) {
+			operativeTransferControlBlock = irodsAccessObjectFactory
+					.buildDefaultTransferControlBlockBasedOnJargonProperties();
+		}
+
+		operativeTransferControlBlock.setTotalFilesToTransfer(1);
+
+		String callbackTargetIrodsPath = buildTargetIrodsPath(sourceURL,
+				irodsTargetFile);
+		log.info("computed callbackTargetIrodsPath:{}", callbackTargetIrodsPath);
+
+		if (transferStatusCallbackListener != null) {
+			transferStatusCallbackListener.overallStatusCallback(buildStatus(
+					sourceURL, callbackTargetIrodsPath, "",
+					operativeTransferControlBlock.getTotalBytesToTransfer(),
+					operativeTransferControlBlock
+							.getTotalBytesTransferredSoFar(),
+					operativeTransferControlBlock,
+					TransferState.OVERALL_INITIATION));
+		}
+
+		IRODSFile callbackTargetIrodsFile = irodsAccessObjectFactory
+				.getIRODSFileFactory(irodsAccount).instanceIRODSFile(
+						callbackTargetIrodsPath);
+		callbackTargetIrodsFile.setResource(irodsTargetFile.getResource());
+
+		log.info("callbackTargetIrodsFile:{}", callbackTargetIrodsFile);
+
+		if (transferStatusCallbackListener != null) {
+			transferStatusCallbackListener.statusCallback(buildStatus(
+					sourceURL, callbackTargetIrodsFile.getAbsolutePath(),
+					irodsTargetFile.getResource(), urlSize, urlSize,
+					operativeTransferControlBlock,
+					TransferState.IN_PROGRESS_START_FILE));
+		}
+
+		ConnectionProgressStatusListener listener = null;
+		if (transferStatusCallbackListener != null) {
+			log.info("setting up a callback listener for within stream progress, shared by each range");
+			listener = DefaultIntraFileProgressCallbackListener.instance(
+					TransferType.PUT, urlSize, operativeTransferControlBlock,
+					transferStatusCallbackListener);
+		}
+
+		ExecutorService executor = null;
+		List<RangeTransfer> rangeTransfers = new ArrayList<RangeTransfer>();
+		boolean targetCreated = false;
+		try {
+			/*
+			 * Each range is written into an existing, empty data object, so
+			 * that the ranges may be opened and written in any order
+			 */
+			if (callbackTargetIrodsFile.exists()) {
+				log.info("deleting existing target before ranged transfer");
+				callbackTargetIrodsFile.deleteWithForceOption();
+			}
+			callbackTargetIrodsFile.createNewFile();
+			targetCreated = true;
+
+			long rangeLength = (urlSize + numberOfThreads - 1)
+					/ numberOfThreads;
+			executor = Executors.newFixedThreadPool(numberOfThreads,
+					new SessionClosingThreadFactory(irodsAccessObjectFactory,
+							irodsAccount, "jargon-http-range"));
+			List<Future<Void>> rangeFutures = new ArrayList<Future<Void>>();
+			for (long start = 0; start < urlSize; start += rangeLength) {
+				long end = Math.min(start + rangeLength, urlSize) - 1;
+				RangeTransfer rangeTransfer = new RangeTransfer(sourceURL,
+						rangedContents.validator,
+						callbackTargetIrodsFile.getAbsolutePath(), start, end,
+						listener);
+				rangeTransfers.add(rangeTransfer);
+				rangeFutures.add(executor.submit(rangeTransfer));
+			}
+
+			for (Future<Void> rangeFuture : rangeFutures) {
+				try {
+					rangeFuture.get();
+				} catch (ExecutionException e) {
+					log.error("error transferring a range", e.getCause());
+					if (e.getCause() instanceof Exception) {
+						throw (Exception) e.getCause();
+					}
+					throw new JargonException("error transferring a range",
+							e.getCause());
+				}
+			}
+
+			operativeTransferControlBlock.incrementFilesTransferredSoFar();
+
+			if (transferStatusCallbackListener != null) {
+				transferStatusCallbackListener.statusCallback(buildStatus(
+						sourceURL, callbackTargetIrodsFile.getAbsolutePath(),
+						irodsTargetFile.getResource(), urlSize, urlSize,
+						operativeTransferControlBlock,
+						TransferState.IN_PROGRESS_COMPLETE_FILE));
+
+				transferStatusCallbackListener.overallStatusCallback(buildStatus(
+						sourceURL, callbackTargetIrodsPath, "",
+						operativeTransferControlBlock.getTotalBytesToTransfer(),
+						operativeTransferControlBlock
+								.getTotalBytesTransferredSoFar(),
+						operativeTransferControlBlock,
+						TransferState.OVERALL_COMPLETION));
+			}
+
+		} catch (Exception je) {
+			// may rethrow or send back to the callback listener
+			log.error("exception in ranged transfer", je);
+
+			if (targetCreated) {
+				stopRanges(executor, rangeTransfers);
+				removePartialTarget(callbackTargetIrodsFile);
+			}
+
+			operativeTransferControlBlock.reportErrorInTransfer();
+
+			if (transferStatusCallbackListener != null) {
+				log.error("exception will be passed back to existing callback listener");
+
+				TransferStatus status = TransferStatus.instanceForException(
+						TransferType.PUT, sourceURL,
+						callbackTargetIrodsFile.getAbsolutePath(),
+						callbackTargetIrodsFile.getResource(), urlSize,
+						callbackTargetIrodsFile.length(),
+						operativeTransferControlBlock
+								.getTotalFilesTransferredSoFar(),
+						operativeTransferControlBlock
+								.getTotalFilesSkippedSoFar(),
+						operativeTransferControlBlock
+								.getTotalFilesToTransfer(), je, irodsAccount
+								.getHost(), irodsAccount.getZone());
+
+				transferStatusCallbackListener.statusCallback(status);
+
+			} else {
+				log.error("exception will be re-thrown, as there is no status callback listener");
+				throw new JargonException(
+						"exception thrown in transfer process, no callback listener supplied",
+						je);
+			}
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
+			}
+		}
+
+		log.info("contents streamed in ranges to:{}",
+				callbackTargetIrodsFile.getAbsolutePath());
+		return callbackTargetIrodsFile.getAbsolutePath();
+	}
+
+	/**
+	 * Stop the ranges still running after one failed, aborting their HTTP
+	 * gets, and wait for them to end so that none writes to the target after
+	 * it is removed
+	 */
+	private void stopRanges(final ExecutorService executor,
+			final List<RangeTransfer> rangeTransfers) {
+		if (executor == null) {
+			return;
+		}
+
+		executor.shutdownNow();
+		for (RangeTransfer rangeTransfer : rangeTransfers) {
+			rangeTransfer.abort();
+		}
+
+		try {
+			if (!executor.awaitTermination(RANGE_STOP_WAIT_SECONDS,
+					TimeUnit.SECONDS)) {
+				log.warn("ranges still running after waiting for them to stop");
+			}
+		} catch (InterruptedException e) {
+			log.warn("interrupted waiting for ranges to stop");
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Remove the target of a ranged transfer that failed, which holds only
+	 * some of the contents
+	 */
+	private void removePartialTarget(final IRODSFile targetIrodsFile) {
+		log.warn("removing partial data object:{}", targetIrodsFile);
+		try {
+			targetIrodsFile.deleteWithForceOption();
+		} catch (JargonRuntimeException e) {
+			log.error("unable to remove partial data object:{}",
+					targetIrodsFile, e);
+		}
+	}
+
+	/**
+	 * Find the length and a validator of the contents of a URL, if the server
+	 * says that it can serve byte ranges of it. The validator is a strong
+	 * entity tag, or else the last modified time, which is sent with each
+	 * range so that the server sends the whole, changed contents rather than
+	 * a range of them if they change during the transfer.
+	 * 
+	 * @param sourceURL
+	 *            <code>String</code> with the HTTP url
+	 * @return {@link RangedContents} with the length and validator of the
+	 *         contents, or <code>null</code> if ranges are not supported, or
+	 *         the length or a validator is not known
+	 */
+	private RangedContents findRangedContents(final String sourceURL) {
+		HttpClient httpclient = obtainHttpClient();
+		try {
+			HttpResponse response = httpclient
+					.execute(new HttpHead(sourceURL));
+			if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+				log.info("status from HEAD:{}", response.getStatusLine());
+				return null;
+			}
+
+			Header acceptRanges = response.getFirstHeader("Accept-Ranges");
+			Header contentLength = response.getFirstHeader("Content-Length");
+			if (acceptRanges == null
+					|| !"bytes".equalsIgnoreCase(acceptRanges.getValue().trim())
+					|| contentLength == null) {
+				log.info("server does not offer byte ranges with a length");
+				return null;
+			}
+
+			String validator = null;
+			Header etag = response.getFirstHeader("ETag");
+			Header lastModified = response.getFirstHeader("Last-Modified");
+			if (etag != null && !etag.getValue().trim().startsWith("W/")) {
+				validator = etag.getValue().trim();
+			} else if (lastModified != null) {
+				validator = lastModified.getValue().trim();
+			} else {
+				log.info("no strong entity tag or last modified time, a change during the transfer could not be found");
+				return null;
+			}
+
+			return new RangedContents(Long.parseLong(contentLength.getValue()
+					.trim()), validator);
+		} catch (NumberFormatException e) {
+			log.warn("invalid content length from HEAD, ignored", e);
+			return null;
+		} catch (IOException e) {
+			// the single stream will report the error if it persists
+			log.warn("IOException in HEAD, ranges will not be used", e);
+			return null;
+		} finally {
+			releaseHttpClient(httpclient);
+		}
+	}
+
+	/**
+	 * Get the HTTP client for a request, a new one unless a shared client was
+	 * given
+	 */
+	private HttpClient obtainHttpClient() {
+		if (sharedHttpClient != null) {
+			return sharedHttpClient;
+		}
+		return new DefaultHttpClient();
+	}
+
+	/**
+	 * Shut down an HTTP client obtained for a request, unless it is the shared
+	 * client, which is left open for the next request
+	 */
+	private void releaseHttpClient(final HttpClient httpclient) {
+		if (httpclient != sharedHttpClient) {
+			httpclient.getConnectionManager().shutdown();
+		}
+	}
+
+	/**
+	 * Resolve the iRODS path that the contents of a URL are streamed to. If the
+	 * target is a collection, the file name of the URL is used within it.
+	 */
+	private String buildTargetIrodsPath(final String sourceURL,
+			final IRODSFile irodsTargetFile) {
+
+		StringBuilder targetIrodsPathBuilder = new StringBuilder();
+
+		/*
+		 * Reset the iRODS file, as the directory may have been created prior to
+		 * the put operation. The reset clears the cache of the exists(),
+		 * isFile(), and other basic file stat info
+		 */
+		irodsTargetFile.reset();
+		if (irodsTargetFile.exists() && irodsTargetFile.isDirectory()) {
+			log.info("target is a directory, source is an url");
+			targetIrodsPathBuilder.append(irodsTargetFile.getAbsolutePath());
+			targetIrodsPathBuilder.append("/");
+			int slashIndex = sourceURL.lastIndexOf('/');
+			String urlFileName = sourceURL.substring(slashIndex + 1);
+			targetIrodsPathBuilder.append(urlFileName);
+		} else if (irodsTargetFile.getParentFile().exists()
+				&& irodsTargetFile.getParentFile().isDirectory()) {
+			log.info("treating target as a file, using the whole path");
+			targetIrodsPathBuilder.append(irodsTargetFile.getAbsolutePath());
+		}
+
+		return targetIrodsPathBuilder.toString();
+	}
+
+	private TransferStatus buildStatus(final String sourceURL,
+			final String targetPath, final String resource,
+			final long totalSize, final long bytesTransferred,
+			final TransferControlBlock transferControlBlock,
+			final TransferState transferState) throws JargonException {
+		return TransferStatus.instance(TransferType.PUT, sourceURL, targetPath,
+				resource, totalSize, bytesTransferred,
+				transferControlBlock.getTotalFilesTransferredSoFar(),
+				transferControlBlock.getTotalFilesSkippedSoFar(),
+				transferControlBlock.getTotalFilesToTransfer(), transferState,
+				irodsAccount.getHost(), irodsAccount.getZone());
+	}
+
+	/**
+	 * Get the minimum length of the contents of a URL for
+	 * {@link #streamHttpUrlContentsToIRODSFileInParallel(String, IRODSFile, TransferStatusCallbackListener, TransferControlBlock, int)}
+	 * to fetch it in ranges
+	 * 
+	 * @return <code>long</code> with the minimum length in bytes
+	 */
+	public long getMinimumRangedLength() {
+		return minimumRangedLength;
+	}
+
+	/**
+	 * Set the minimum length of the contents of a URL for
+	 * {@link #streamHttpUrlContentsToIRODSFileInParallel(String, IRODSFile, TransferStatusCallbackListener, TransferControlBlock, int)}
+	 * to fetch it in ranges, smaller contents are streamed as one
+	 * 
+	 * @param minimumRangedLength
+	 *            <code>long</code> with the minimum length in bytes
+	 */
+	public void setMinimumRangedLength(final long minimumRangedLength) {
+		if (minimumRangedLength < 0) {
+			throw new IllegalArgumentException(
+					"minimumRangedLength must not be negative");
+		}
+		this.minimumRangedLength = minimumRangedLength;
+	}
+
+	/**
+	 * The length of the contents of a URL that may be fetched in ranges, and
+	 * the validator that each range is conditional on
+	 */
+	private static class RangedContents {
+		private final long length;
+		private final String validator;
+
+		RangedContents(final long length, final String validator) {
+			this.length = length;
+			this.validator = validator;
+		}
+	}
+
+	/**
+	 * Fetches one byte range of a URL, and writes it at the same offset of the
+	 * target data object over its own connection to iRODS
+	 */
+	private class RangeTransfer implements Callable<Void> {
+		private final String sourceURL;
+		private final String validator;
+		private final String targetIrodsPath;
+		private final long start;
+		private final long end;
+		private final ConnectionProgressStatusListener listener;
+		private volatile HttpGet httpget;
+		private volatile boolean aborted = false;
+
+		RangeTransfer(final String sourceURL, final String validator,
+				final String targetIrodsPath, final long start,
+				final long end, final ConnectionProgressStatusListener listener) {
+			this.sourceURL = sourceURL;
+			this.validator = validator;
+			this.targetIrodsPath = targetIrodsPath;
+			this.start = start;
+			this.end = end;
+			this.listener = listener;
+		}
+
+		/**
+		 * Abort the HTTP get of this range, if it has started, so that a
+		 * blocked read ends
+		 */
+		void abort() {
+			aborted = true;
+			HttpGet current = httpget;
+			if (current != null) {
+				current.abort();
+			}
+		}
+
+		@Override
+		public Void call() throws Exception {
+			log.debug("transferring range {}-{}", start, end);
+			HttpClient httpclient = obtainHttpClient();
+			HttpGet httpget = new HttpGet(sourceURL);
+			httpget.setHeader("Range", "bytes=" + start + "-" + end);
+			httpget.setHeader("If-Range", validator);
+			this.httpget = httpget;
+			if (aborted) {
+				httpget.abort();
+			}
+			InputStream instream = null;
+			IRODSRandomAccessFile target = null;
+
+			try {
+				HttpResponse response = httpclient.execute(httpget);
+				StatusLine statusLine = response.getStatusLine();
+				/*
+				 * the whole contents come back if the range is not honored,
+				 * or if the contents changed since the transfer started
+				 */
+				if (statusLine.getStatusCode() != HttpStatus.SC_PARTIAL_CONTENT) {
+					log.error("invalid status code for range:{}", statusLine);
+					httpget.abort();
+					throw new HttpStreamingException(
+							"range request not honored, status from HTTP operation:"
+									+ statusLine.getStatusCode(),
+							statusLine.getStatusCode());
+				}
+
+				HttpEntity entity = response.getEntity();
+				if (entity == null) {
+					throw new HttpStreamingException(
+							"no input stream available for URI range");
+				}
+
+				instream = entity.getContent();
+				if (listener != null) {
+					instream = new ByteCountingCallbackInputStreamWrapper(
+							listener, instream);
+				}
+
+				target = irodsAccessObjectFactory.getIRODSFileFactory(
+						irodsAccount).instanceIRODSRandomAccessFile(
+						targetIrodsPath, OpenFlags.READ_WRITE);
+				target.seek(start, SeekWhenceType.SEEK_START);
+
+				byte[] buffer = new byte[irodsAccessObjectFactory
+						.getJargonProperties().getPutBufferSize()];
+				long remaining = end - start + 1;
+				while (remaining > 0) {
+					int read = instream.read(buffer, 0,
+							(int) Math.min(buffer.length, remaining));
+					if (read == -1) {
+						break;
+					}
+					target.write(buffer, 0, read);
+					remaining -= read;
+				}
+
+				if (remaining > 0) {
+					throw new HttpStreamingException("range " + start + "-"
+							+ end + " ended " + remaining + " bytes early");
+				}
+
+				return null;
+			} catch (RuntimeException e) {
+				httpget.abort();
+				throw e;
+			} finally {
+				if (instream != null) {
+					try {
+						instream.close();
+					} catch (IOException e) {
+						log.error("IOException in close of HTTP input stream, logged and ignored");
+					}
+				}
+				if (target != null) {
+					target.close();
+				}
+				releaseHttpClient(httpclient);
+			}
+		}
+	}
+
 	/**
 	 * @return the irodsAccessObjectFactory
 	 */
@@ -0,0 +1,432 @@
+package org.irods.jargon.httpstream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.pub.io.IRODSFileImpl;
+import org.irods.jargon.core.transfer.TransferStatus;
+import org.irods.jargon.core.transfer.TransferStatus.TransferState;
+import org.irods.jargon.core.transfer.TransferStatusCallbackListener;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServer;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerRule;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class HttpBatchIngestServiceImplTest {
+
+	/**
+	 * Serves /ok/name with contents made from the name, fails /flaky/name with
+	 * a 503 the given number of times before serving it, cuts /partial/name
+	 * off half way the given number of times before serving it, and answers
+	 * anything else with a 404. The client ports seen show whether
+	 * connections are reused.
+	 */
+	private static class IngestHandler implements HttpHandler {
+		private final int flakyFailures;
+		private final Map<String, AtomicInteger> getCounts = new ConcurrentHashMap<String, AtomicInteger>();
+		private final Set<Integer> clientPorts = Collections
+				.synchronizedSet(new HashSet<Integer>());
+
+		IngestHandler(final int flakyFailures) {
+			this.flakyFailures = flakyFailures;
+		}
+
+		@Override
+		public void handle(final HttpExchange exchange) throws IOException {
+			String path = exchange.getRequestURI().getPath();
+			clientPorts.add(exchange.getRemoteAddress().getPort());
+			getCounts.putIfAbsent(path, new AtomicInteger(0));
+			int count = getCounts.get(path).incrementAndGet();
+
+			if (path.startsWith("/partial/") && count <= flakyFailures) {
+				byte[] body = contentsFor(path);
+				exchange.sendResponseHeaders(200, body.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(body, 0, body.length / 2);
+				out.flush();
+				exchange.close();
+				return;
+			}
+
+			int status = 200;
+			if (path.startsWith("/flaky/") && count <= flakyFailures) {
+				status = 503;
+			} else if (!path.startsWith("/ok/") && !path.startsWith("/flaky/")
+					&& !path.startsWith("/partial/")) {
+				status = 404;
+			}
+
+			byte[] body = status == 200 ? contentsFor(path) : "error"
+					.getBytes();
+			exchange.sendResponseHeaders(status, body.length);
+			OutputStream out = exchange.getResponseBody();
+			out.write(body);
+			out.close();
+		}
+
+		int getCount(final String path) {
+			AtomicInteger count = getCounts.get(path);
+			return count == null ? 0 : count.get();
+		}
+	}
+
+	/**
+	 * Keeps every status it is sent
+	 */
+	private static class RecordingListener implements
+			TransferStatusCallbackListener {
+		private final List<TransferStatus> statuses = Collections
+				.synchronizedList(new ArrayList<TransferStatus>());
+
+		@Override
+		public FileStatusCallbackResponse statusCallback(
+				final TransferStatus transferStatus) throws JargonException {
+			statuses.add(transferStatus);
+			return FileStatusCallbackResponse.CONTINUE;
+		}
+
+		@Override
+		public void overallStatusCallback(final TransferStatus transferStatus)
+				throws JargonException {
+			statuses.add(transferStatus);
+		}
+
+		@Override
+		public CallbackResponse transferAsksWhetherToForceOperation(
+				final String irodsAbsolutePath, final boolean isCollection) {
+			return CallbackResponse.YES_THIS_FILE;
+		}
+
+		int count(final TransferState transferState) {
+			int count = 0;
+			synchronized (statuses) {
+				for (TransferStatus status : statuses) {
+					if (status.getTransferState() == transferState) {
+						count++;
+					}
+				}
+			}
+			return count;
+		}
+	}
+
+	@Rule
+	public EmbeddedIRODSServerRule serverRule = new EmbeddedIRODSServerRule();
+
+	private EmbeddedIRODSServer server;
+	private HttpServer httpServer;
+	private IngestHandler handler;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSAccount irodsAccount;
+	private String baseURL;
+
+	@Before
+	public void setUp() throws Exception {
+		server = serverRule.getServer();
+		irodsFileSystem = serverRule.getIrodsFileSystem();
+		irodsAccount = serverRule.getIrodsAccount();
+
+		handler = new IngestHandler(2);
+		httpServer = HttpServer.create(new InetSocketAddress("localhost", 0),
+				0);
+		httpServer.createContext("/", handler);
+		httpServer.start();
+		baseURL = "http://localhost:" + httpServer.getAddress().getPort();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		httpServer.stop(0);
+	}
+
+	private static byte[] contentsFor(final String path) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 2000; i++) {
+			sb.append(path);
+			sb.append(i);
+		}
+		return sb.toString().getBytes();
+	}
+
+	private HttpBatchIngestServiceImpl service(
+			final TransferStatusCallbackListener listener) throws Exception {
+		HttpBatchIngestServiceImpl service = new HttpBatchIngestServiceImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory(), irodsAccount,
+				listener);
+		service.setNumberOfWorkers(3);
+		service.setQueueCapacity(2);
+		service.setInitialBackoffMillis(10);
+		return service;
+	}
+
+	private IRODSFile home() throws Exception {
+		return irodsFileSystem.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFile(server.getHomeDirectory("test1"));
+	}
+
+	@Test
+	public void testIngestManyReusingConnections() throws Exception {
+		HttpBatchIngestServiceImpl service = service(null);
+		int count = 30;
+		for (int i = 0; i < count; i++) {
+			service.submit(baseURL + "/ok/file" + i + ".txt", home());
+		}
+
+		List<HttpIngestJob> jobs = service.awaitCompletion();
+
+		Assert.assertEquals("wrong number of jobs", count, jobs.size());
+		long expectedBytes = 0;
+		for (int i = 0; i < count; i++) {
+			HttpIngestJob job = jobs.get(i);
+			byte[] expected = contentsFor("/ok/file" + i + ".txt");
+			expectedBytes += expected.length;
+			Assert.assertEquals("job not done",
+					HttpIngestJob.JobStatus.SUCCEEDED, job.getJobStatus());
+			Assert.assertEquals("should take one attempt", 1,
+					job.getAttempts());
+			Assert.assertEquals("wrong byte count", expected.length,
+					job.getBytesTransferred());
+			Assert.assertEquals("wrong target",
+					server.getHomeDirectory("test1") + "/file" + i + ".txt",
+					job.getResultIrodsAbsolutePath());
+			Assert.assertTrue("wrong contents", Arrays.equals(expected, server
+					.getCatalog().getDataObjectContent(
+							job.getResultIrodsAbsolutePath())));
+		}
+
+		HttpIngestMetrics metrics = service.getMetrics();
+		Assert.assertEquals(count, metrics.getJobsSubmitted());
+		Assert.assertEquals(count, metrics.getJobsSucceeded());
+		Assert.assertEquals(0, metrics.getJobsFailed());
+		Assert.assertEquals(0, metrics.getJobsPending());
+		Assert.assertEquals(expectedBytes, metrics.getBytesTransferred());
+
+		// one connection per worker, and one for the test thread
+		Assert.assertTrue("iRODS connections not reused by the workers",
+				server.getConnectionCount() <= 4);
+		Assert.assertTrue("HTTP connections not pooled",
+				handler.clientPorts.size() <= 3);
+	}
+
+	@Test
+	public void testRetryUntilSucceeds() throws Exception {
+		HttpBatchIngestServiceImpl service = service(null);
+
+		HttpIngestJob job = service.submit(baseURL + "/flaky/retried.txt",
+				home());
+		service.awaitCompletion();
+
+		Assert.assertEquals("should succeed on third attempt",
+				HttpIngestJob.JobStatus.SUCCEEDED, job.getJobStatus());
+		Assert.assertEquals(3, job.getAttempts());
+		Assert.assertNull(job.getLastException());
+		Assert.assertEquals(2, service.getMetrics().getRetries());
+		Assert.assertTrue("wrong contents", Arrays.equals(
+				contentsFor("/flaky/retried.txt"), server.getCatalog()
+						.getDataObjectContent(job.getResultIrodsAbsolutePath())));
+	}
+
+	@Test
+	public void testFailsWhenOutOfAttempts() throws Exception {
+		HttpBatchIngestServiceImpl service = service(null);
+		service.setMaxAttempts(2);
+
+		HttpIngestJob job = service.submit(baseURL + "/flaky/gaveup.txt",
+				home());
+		service.awaitCompletion();
+
+		Assert.assertEquals(HttpIngestJob.JobStatus.FAILED, job.getJobStatus());
+		Assert.assertEquals(2, job.getAttempts());
+		Assert.assertEquals(503, ((HttpStreamingException) job
+				.getLastException()).getHttpStatusCode());
+		Assert.assertEquals(1, service.getMetrics().getJobsFailed());
+	}
+
+	@Test
+	public void testNotFoundIsNotRetried() throws Exception {
+		RecordingListener listener = new RecordingListener();
+		HttpBatchIngestServiceImpl service = service(listener);
+
+		HttpIngestJob missing = service.submit(baseURL + "/missing.txt",
+				home());
+		HttpIngestJob found = service.submit(baseURL + "/ok/found.txt",
+				home());
+		service.awaitCompletion();
+
+		Assert.assertEquals(HttpIngestJob.JobStatus.FAILED,
+				missing.getJobStatus());
+		Assert.assertEquals("404 should not be retried", 1,
+				missing.getAttempts());
+		Assert.assertEquals(1, handler.getCount("/missing.txt"));
+		Assert.assertEquals("other jobs should go on",
+				HttpIngestJob.JobStatus.SUCCEEDED, found.getJobStatus());
+		Assert.assertEquals(1, listener.count(TransferState.FAILURE));
+	}
+
+	@Test
+	public void testCallbacks() throws Exception {
+		RecordingListener listener = new RecordingListener();
+		HttpBatchIngestServiceImpl service = service(listener);
+		for (int i = 0; i < 5; i++) {
+			service.submit(baseURL + "/ok/callback" + i + ".txt", home());
+		}
+		service.awaitCompletion();
+
+		Assert.assertEquals(1,
+				listener.count(TransferState.OVERALL_INITIATION));
+		Assert.assertEquals(5,
+				listener.count(TransferState.IN_PROGRESS_START_FILE));
+		Assert.assertEquals(5,
+				listener.count(TransferState.IN_PROGRESS_COMPLETE_FILE));
+		Assert.assertEquals(1,
+				listener.count(TransferState.OVERALL_COMPLETION));
+
+		TransferStatus last = listener.statuses
+				.get(listener.statuses.size() - 1);
+		Assert.assertEquals(TransferState.OVERALL_COMPLETION,
+				last.getTransferState());
+		Assert.assertEquals(5, last.getTotalFilesTransferredSoFar());
+		Assert.assertNotNull("no aggregate telemetry",
+				last.getTransferTelemetrySnapshot());
+		Assert.assertEquals(service.getMetrics().getBytesTransferred(), last
+				.getTransferTelemetrySnapshot().getBytesTransferred());
+	}
+
+	@Test
+	public void testRetriedBytesNotCountedAsTransferred() throws Exception {
+		HttpBatchIngestServiceImpl service = service(null);
+
+		HttpIngestJob job = service.submit(baseURL + "/partial/cut.txt",
+				home());
+		service.awaitCompletion();
+
+		byte[] expected = contentsFor("/partial/cut.txt");
+		Assert.assertEquals(HttpIngestJob.JobStatus.SUCCEEDED,
+				job.getJobStatus());
+		Assert.assertEquals(3, job.getAttempts());
+		Assert.assertEquals(expected.length, job.getBytesTransferred());
+		HttpIngestMetrics metrics = service.getMetrics();
+		Assert.assertEquals("only the successful attempt should count",
+				expected.length, metrics.getBytesTransferred());
+		Assert.assertTrue("failed attempts should be counted apart",
+				metrics.getBytesDiscarded() > 0);
+	}
+
+	@Test
+	public void testListenerExceptionsAreIgnored() throws Exception {
+		HttpBatchIngestServiceImpl service = service(new RecordingListener() {
+			@Override
+			public FileStatusCallbackResponse statusCallback(
+					final TransferStatus transferStatus) {
+				throw new IllegalStateException("listener failed");
+			}
+
+			@Override
+			public void overallStatusCallback(
+					final TransferStatus transferStatus) {
+				throw new IllegalStateException("listener failed");
+			}
+		});
+		for (int i = 0; i < 4; i++) {
+			service.submit(baseURL + "/ok/unheard" + i + ".txt", home());
+		}
+
+		List<HttpIngestJob> jobs = service.awaitCompletion();
+
+		for (HttpIngestJob job : jobs) {
+			Assert.assertEquals(HttpIngestJob.JobStatus.SUCCEEDED,
+					job.getJobStatus());
+		}
+		Assert.assertEquals(4, service.getMetrics().getJobsSucceeded());
+	}
+
+	@Test
+	public void testRuntimeExceptionFailsOnlyThatJob() throws Exception {
+		RecordingListener listener = new RecordingListener();
+		HttpBatchIngestServiceImpl service = service(listener);
+		service.setNumberOfWorkers(1);
+		IRODSFile brokenTarget = new IRODSFileImpl(server.getHomeDirectory(
+				"test1"), irodsFileSystem.getIRODSAccessObjectFactory()
+				.getIRODSFileSystemAO(irodsAccount)) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public String getResource() {
+				throw new IllegalStateException("broken target");
+			}
+		};
+
+		HttpIngestJob broken = service.submit(baseURL + "/ok/broken.txt",
+				brokenTarget);
+		HttpIngestJob after = service.submit(baseURL + "/ok/after.txt",
+				home());
+		service.awaitCompletion();
+
+		Assert.assertEquals(HttpIngestJob.JobStatus.FAILED,
+				broken.getJobStatus());
+		Assert.assertTrue(broken.getLastException() instanceof IllegalStateException);
+		Assert.assertEquals("the worker should go on to the next job",
+				HttpIngestJob.JobStatus.SUCCEEDED, after.getJobStatus());
+		Assert.assertEquals(1, service.getMetrics().getJobsFailed());
+		Assert.assertEquals(0, service.getMetrics().getJobsPending());
+	}
+
+	@Test
+	public void testAwaitWithNoJobs() throws Exception {
+		HttpBatchIngestServiceImpl service = service(null);
+		Assert.assertTrue(service.awaitCompletion().isEmpty());
+		Assert.assertEquals(0, server.getConnectionCount());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testSubmitAfterAwait() throws Exception {
+		HttpBatchIngestServiceImpl service = service(null);
+		service.awaitCompletion();
+		service.submit(baseURL + "/ok/late.txt", home());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testSettingsFixedOnceStarted() throws Exception {
+		HttpBatchIngestServiceImpl service = service(null);
+		service.submit(baseURL + "/ok/first.txt", home());
+		try {
+			service.setNumberOfWorkers(8);
+		} finally {
+			service.awaitCompletion();
+		}
+	}
+
+	@Test
+	public void testBackoffDoublesUpToMax() throws Exception {
+		HttpBatchIngestServiceImpl service = service(null);
+		service.setMaxBackoffMillis(50);
+		Assert.assertEquals(10, service.computeBackoffMillis(1));
+		Assert.assertEquals(20, service.computeBackoffMillis(2));
+		Assert.assertEquals(40, service.computeBackoffMillis(3));
+		Assert.assertEquals(50, service.computeBackoffMillis(4));
+		Assert.assertEquals(50, service.computeBackoffMillis(40));
+	}
+
+}
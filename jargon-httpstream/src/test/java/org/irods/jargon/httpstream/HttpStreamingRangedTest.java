@@ -0,0 +1,373 @@
+package org.irods.jargon.httpstream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.transfer.TransferStatus;
+import org.irods.jargon.core.transfer.TransferStatus.TransferState;
+import org.irods.jargon.core.transfer.TransferStatusCallbackListener;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServer;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerRule;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+public class HttpStreamingRangedTest {
+
+	/**
+	 * Serves the same contents at any path, with byte ranges if they are
+	 * offered. A range is served only if its <code>If-Range</code> matches
+	 * the entity tag, which may be changed to act as changed contents.
+	 */
+	private static class ContentsHandler implements HttpHandler {
+		private final byte[] contents;
+		private final boolean offerRanges;
+		private final boolean honorRanges;
+		private volatile String etag = "\"v1\"";
+		private volatile boolean changeAfterHead = false;
+		private final AtomicInteger getCount = new AtomicInteger(0);
+		private final AtomicInteger rangeCount = new AtomicInteger(0);
+		private final List<String> ifRanges = Collections
+				.synchronizedList(new ArrayList<String>());
+
+		ContentsHandler(final byte[] contents, final boolean offerRanges,
+				final boolean honorRanges) {
+			this.contents = contents;
+			this.offerRanges = offerRanges;
+			this.honorRanges = honorRanges;
+		}
+
+		@Override
+		public void handle(final HttpExchange exchange) throws IOException {
+			if (offerRanges) {
+				exchange.getResponseHeaders().set("Accept-Ranges", "bytes");
+			}
+			if (etag != null) {
+				exchange.getResponseHeaders().set("ETag", etag);
+			}
+
+			if ("HEAD".equals(exchange.getRequestMethod())) {
+				exchange.getResponseHeaders().set("Content-Length",
+						String.valueOf(contents.length));
+				exchange.sendResponseHeaders(200, -1);
+				exchange.close();
+				if (changeAfterHead) {
+					etag = "\"v2\"";
+				}
+				return;
+			}
+
+			getCount.incrementAndGet();
+			String range = exchange.getRequestHeaders().getFirst("Range");
+			String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+			if (ifRange != null) {
+				ifRanges.add(ifRange);
+			}
+			int start = 0;
+			int end = contents.length - 1;
+			int status = 200;
+			if (range != null && honorRanges
+					&& (ifRange == null || ifRange.equals(etag))) {
+				rangeCount.incrementAndGet();
+				String[] bounds = range.substring("bytes=".length()).split(
+						"-");
+				start = Integer.parseInt(bounds[0]);
+				end = Integer.parseInt(bounds[1]);
+				status = 206;
+				exchange.getResponseHeaders().set("Content-Range",
+						"bytes " + start + "-" + end + "/" + contents.length);
+			}
+
+			exchange.sendResponseHeaders(status, end - start + 1);
+			OutputStream out = exchange.getResponseBody();
+			out.write(contents, start, end - start + 1);
+			out.close();
+		}
+	}
+
+	/**
+	 * Keeps every status it is sent
+	 */
+	private static class RecordingListener implements
+			TransferStatusCallbackListener {
+		private final List<TransferStatus> statuses = Collections
+				.synchronizedList(new ArrayList<TransferStatus>());
+
+		@Override
+		public FileStatusCallbackResponse statusCallback(
+				final TransferStatus transferStatus) throws JargonException {
+			statuses.add(transferStatus);
+			return FileStatusCallbackResponse.CONTINUE;
+		}
+
+		@Override
+		public void overallStatusCallback(final TransferStatus transferStatus)
+				throws JargonException {
+			statuses.add(transferStatus);
+		}
+
+		@Override
+		public CallbackResponse transferAsksWhetherToForceOperation(
+				final String irodsAbsolutePath, final boolean isCollection) {
+			return CallbackResponse.YES_THIS_FILE;
+		}
+	}
+
+	@Rule
+	public EmbeddedIRODSServerRule serverRule = new EmbeddedIRODSServerRule();
+
+	private EmbeddedIRODSServer server;
+	private HttpServer httpServer;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSAccount irodsAccount;
+	private HttpStreamingServiceImpl service;
+
+	@Before
+	public void setUp() throws Exception {
+		server = serverRule.getServer();
+		irodsFileSystem = serverRule.getIrodsFileSystem();
+		irodsAccount = serverRule.getIrodsAccount();
+		service = new HttpStreamingServiceImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory(), irodsAccount);
+		service.setMinimumRangedLength(1);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		if (httpServer != null) {
+			httpServer.stop(0);
+		}
+	}
+
+	private String serve(final ContentsHandler handler) throws Exception {
+		httpServer = HttpServer.create(new InetSocketAddress("localhost", 0),
+				0);
+		httpServer.createContext("/", handler);
+		httpServer.start();
+		return "http://localhost:" + httpServer.getAddress().getPort()
+				+ "/data/source.bin";
+	}
+
+	private static byte[] contents(final int length) {
+		byte[] contents = new byte[length];
+		new Random(42).nextBytes(contents);
+		return contents;
+	}
+
+	private IRODSFile targetFile(final String name) throws Exception {
+		return irodsFileSystem.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFile(
+						server.getHomeDirectory("test1") + "/" + name);
+	}
+
+	@Test
+	public void testRangedStreamToFile() throws Exception {
+		byte[] contents = contents(1024 * 1024 + 7);
+		ContentsHandler handler = new ContentsHandler(contents, true, true);
+		String url = serve(handler);
+		IRODSFile target = targetFile("ranged.bin");
+
+		String path = service.streamHttpUrlContentsToIRODSFileInParallel(url,
+				target, null, null, 4);
+
+		Assert.assertEquals("wrong target", target.getAbsolutePath(), path);
+		Assert.assertEquals("should get each range", 4,
+				handler.rangeCount.get());
+		Assert.assertEquals("should only get ranges", 4,
+				handler.getCount.get());
+		Assert.assertTrue("contents not written at their offsets",
+				Arrays.equals(contents, server.getCatalog()
+						.getDataObjectContent(path)));
+		Assert.assertEquals("each range should be conditional",
+				Arrays.asList("\"v1\"", "\"v1\"", "\"v1\"", "\"v1\""),
+				handler.ifRanges);
+	}
+
+	@Test
+	public void testRangedStreamToCollectionUsesUrlName() throws Exception {
+		byte[] contents = contents(100000);
+		String url = serve(new ContentsHandler(contents, true, true));
+		IRODSFile target = irodsFileSystem.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFile(server.getHomeDirectory("test1"));
+
+		String path = service.streamHttpUrlContentsToIRODSFileInParallel(url,
+				target, null, null, 3);
+
+		Assert.assertEquals("should use name from url",
+				server.getHomeDirectory("test1") + "/source.bin", path);
+		Assert.assertTrue("contents not written", Arrays.equals(contents,
+				server.getCatalog().getDataObjectContent(path)));
+	}
+
+	@Test
+	public void testRangedStreamReplacesExistingFile() throws Exception {
+		byte[] contents = contents(50000);
+		String url = serve(new ContentsHandler(contents, true, true));
+		IRODSFile target = targetFile("existing.bin");
+		server.getCatalog().putDataObject(target.getAbsolutePath(),
+				contents(90000 + 1));
+
+		String path = service.streamHttpUrlContentsToIRODSFileInParallel(url,
+				target, null, null, 2);
+
+		Assert.assertTrue("longer old contents should be gone",
+				Arrays.equals(contents, server.getCatalog()
+						.getDataObjectContent(path)));
+	}
+
+	@Test
+	public void testRangedStreamCallbacks() throws Exception {
+		byte[] contents = contents(8 * 1024 * 1024);
+		String url = serve(new ContentsHandler(contents, true, true));
+		IRODSFile target = targetFile("callbacks.bin");
+		RecordingListener listener = new RecordingListener();
+
+		service.streamHttpUrlContentsToIRODSFileInParallel(url, target,
+				listener, null, 4);
+
+		List<TransferState> states = new ArrayList<TransferState>();
+		long mostBytes = 0;
+		for (TransferStatus status : listener.statuses) {
+			if (status.isIntraFileStatusReport()) {
+				mostBytes = Math.max(mostBytes, status.getBytesTransfered());
+			} else {
+				states.add(status.getTransferState());
+			}
+			Assert.assertNull("no error expected",
+					status.getTransferException());
+		}
+		Assert.assertEquals("wrong file callbacks", Arrays.asList(
+				TransferState.OVERALL_INITIATION,
+				TransferState.IN_PROGRESS_START_FILE,
+				TransferState.IN_PROGRESS_COMPLETE_FILE,
+				TransferState.OVERALL_COMPLETION), states);
+		Assert.assertTrue("no progress counted over ranges", mostBytes > 0);
+		Assert.assertTrue("progress beyond contents",
+				mostBytes <= contents.length);
+	}
+
+	@Test
+	public void testFallbackWhenRangesNotOffered() throws Exception {
+		byte[] contents = contents(100000);
+		ContentsHandler handler = new ContentsHandler(contents, false, false);
+		String url = serve(handler);
+		IRODSFile target = targetFile("single.bin");
+
+		String path = service.streamHttpUrlContentsToIRODSFileInParallel(url,
+				target, null, null, 4);
+
+		Assert.assertEquals("should not get ranges", 0,
+				handler.rangeCount.get());
+		Assert.assertEquals("should get as one stream", 1,
+				handler.getCount.get());
+		Assert.assertTrue("contents not written", Arrays.equals(contents,
+				server.getCatalog().getDataObjectContent(path)));
+	}
+
+	@Test
+	public void testFallbackWhenSmall() throws Exception {
+		byte[] contents = contents(1000);
+		ContentsHandler handler = new ContentsHandler(contents, true, true);
+		String url = serve(handler);
+		service.setMinimumRangedLength(
+				HttpStreamingServiceImpl.DEFAULT_MINIMUM_RANGED_LENGTH);
+
+		String path = service.streamHttpUrlContentsToIRODSFileInParallel(url,
+				targetFile("small.bin"), null, null, 4);
+
+		Assert.assertEquals("should not get ranges", 0,
+				handler.rangeCount.get());
+		Assert.assertTrue("contents not written", Arrays.equals(contents,
+				server.getCatalog().getDataObjectContent(path)));
+	}
+
+	@Test
+	public void testFallbackWhenNoValidator() throws Exception {
+		byte[] contents = contents(100000);
+		ContentsHandler handler = new ContentsHandler(contents, true, true);
+		handler.etag = null;
+		String url = serve(handler);
+
+		String path = service.streamHttpUrlContentsToIRODSFileInParallel(url,
+				targetFile("unvalidated.bin"), null, null, 4);
+
+		Assert.assertEquals("should not get ranges", 0,
+				handler.rangeCount.get());
+		Assert.assertTrue("contents not written", Arrays.equals(contents,
+				server.getCatalog().getDataObjectContent(path)));
+	}
+
+	@Test
+	public void testContentsChangedDuringTransferRemovesTarget()
+			throws Exception {
+		ContentsHandler handler = new ContentsHandler(contents(100000), true,
+				true);
+		handler.changeAfterHead = true;
+		String url = serve(handler);
+		IRODSFile target = targetFile("changed.bin");
+
+		try {
+			service.streamHttpUrlContentsToIRODSFileInParallel(url, target,
+					null, null, 4);
+			Assert.fail("changed contents should fail the transfer");
+		} catch (JargonException e) {
+			// expected
+		}
+
+		Assert.assertEquals("no range should be served", 0,
+				handler.rangeCount.get());
+		Assert.assertFalse("partial target should be removed", server
+				.getCatalog().exists(target.getAbsolutePath()));
+	}
+
+	@Test
+	public void testFailedRangeWithListenerRemovesTarget() throws Exception {
+		String url = serve(new ContentsHandler(contents(100000), true, false));
+		IRODSFile target = targetFile("failed.bin");
+		RecordingListener listener = new RecordingListener();
+
+		service.streamHttpUrlContentsToIRODSFileInParallel(url, target,
+				listener, null, 4);
+
+		TransferStatus last = listener.statuses
+				.get(listener.statuses.size() - 1);
+		Assert.assertNotNull("error should be reported",
+				last.getTransferException());
+		Assert.assertFalse("partial target should be removed", server
+				.getCatalog().exists(target.getAbsolutePath()));
+	}
+
+	@Test(expected = JargonException.class)
+	public void testRangesOfferedButNotHonored() throws Exception {
+		String url = serve(new ContentsHandler(contents(100000), true, false));
+
+		service.streamHttpUrlContentsToIRODSFileInParallel(url,
+				targetFile("ignored.bin"), null, null, 4);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoThreads() throws Exception {
+		service.streamHttpUrlContentsToIRODSFileInParallel(
+				"http://localhost/source.bin", targetFile("none.bin"), null,
+				null, 0);
+	}
+
+}
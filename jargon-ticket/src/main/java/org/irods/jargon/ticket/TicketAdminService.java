@@ -451,6 +451,29 @@ public interface TicketAdminService {
 			Ticket ticketWithDesiredData) throws DataNotFoundException,
 			JargonException;
 
+	/**
+	 * Apply a series of changes to one or many tickets, sending them to iRODS
+	 * together rather than waiting for each change to be answered before
+	 * sending the next. This is much faster than calling the single update
+	 * methods when many tickets are set up or changed at once.
+	 * <p/>
+	 * A change that fails does not stop the others, and is reported in the
+	 * response at its position in the batch. As with the single update
+	 * methods, the changes are not made in a transaction. The number of
+	 * changes sent ahead of their answers is the
+	 * <code>request.pipeline.depth</code> jargon property.
+	 * 
+	 * @param ticketUpdateBatch
+	 *            {@link TicketUpdateBatch} with the changes, in order
+	 * @return <code>List</code> of {@link TicketUpdateResponse} with the
+	 *         outcome of each change, in the order of the batch
+	 * @throws JargonException
+	 *             if the connection to iRODS fails, in which case the outcome
+	 *             of some changes is not known
+	 */
+	List<TicketUpdateResponse> updateTicketsInBatch(
+			TicketUpdateBatch ticketUpdateBatch) throws JargonException;
+
 	/**
 	 * This is a 'meta' method that can manage the creation of iRODS tickets,
 	 * and the simultaneous setting of the various limits. This convenience
@@ -14,6 +14,7 @@ import org.irods.jargon.core.protovalues.ErrorEnum;
 import org.irods.jargon.core.pub.CollectionAO;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
 import org.irods.jargon.core.pub.IRODSGenQueryExecutor;
+import org.irods.jargon.core.pub.PipelinedProtocolExtensionPoint;
 import org.irods.jargon.core.pub.ProtocolExtensionPoint;
 import org.irods.jargon.core.pub.UserAO;
 import org.irods.jargon.core.pub.domain.ObjStat;
@@ -47,6 +48,8 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 	public static final Logger log = LoggerFactory
 			.getLogger(TicketAdminServiceImpl.class);
 
+	private final TicketCache ticketCache;
+
 	/**
 	 * Default constructor takes the objects necessary to communicate with iRODS
 	 * via Access Objects
@@ -62,8 +65,31 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 	TicketAdminServiceImpl(
 			final IRODSAccessObjectFactory irodsAccessObjectFactory,
 			final IRODSAccount irodsAccount) throws JargonException {
+		this(irodsAccessObjectFactory, irodsAccount, null);
+	}
+
+	/**
+	 * Constructor that shares a cache of ticket metadata and restrictions
+	 * 
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory} that can create various
+	 *            access objects
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} with login information for the target
+	 *            grid
+	 * @param ticketCache
+	 *            {@link TicketCache} used for ticket lookups, and updated by
+	 *            the changes made by this service, or <code>null</code> to
+	 *            query iRODS for every lookup
+	 * @throws JargonException
+	 */
+	TicketAdminServiceImpl(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount, final TicketCache ticketCache)
+			throws JargonException {
 		this.irodsAccessObjectFactory = irodsAccessObjectFactory;
 		this.irodsAccount = irodsAccount;
+		this.ticketCache = ticketCache;
 	}
 
 	/*
@@ -107,7 +133,7 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 
 		try {
 			TicketServiceFactory delegateServiceFactory = new TicketServiceFactoryImpl(
-					irodsAccessObjectFactory);
+					irodsAccessObjectFactory, ticketCache);
 			TicketAdminService delegateService = delegateServiceFactory
 					.instanceTicketAdminService(tempUserAccount);
 			log.info("delegating call to create ticket");
@@ -171,26 +197,28 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 		ticket.setTicketString(createTicket(ticket.getType(), ticketFile,
 				ticket.getTicketString()));
 		log.info("adding count values and limits");
+		TicketUpdateBatch batch = TicketUpdateBatch.instance();
 
 		if (ticket.getExpireTime() != null) {
-			setTicketExpiration(ticket.getTicketString(),
+			batch.setExpiration(ticket.getTicketString(),
 					ticket.getExpireTime());
 		}
 
 		if (ticket.getUsesLimit() > 0) {
-			setTicketUsesLimit(ticket.getTicketString(), ticket.getUsesLimit());
+			batch.setUsesLimit(ticket.getTicketString(), ticket.getUsesLimit());
 		}
 
 		if (ticket.getWriteByteLimit() > 0) {
-			setTicketByteWriteLimit(ticket.getTicketString(),
+			batch.setByteWriteLimit(ticket.getTicketString(),
 					ticket.getWriteByteLimit());
 		}
 
 		if (ticket.getWriteFileLimit() > 0) {
-			setTicketFileWriteLimit(ticket.getTicketString(),
+			batch.setFileWriteLimit(ticket.getTicketString(),
 					ticket.getWriteFileLimit());
 		}
 
+		updateTicketsInBatchAndCheckResponses(batch);
 		return ticket;
 
 	}
@@ -251,7 +279,12 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 
 		ProtocolExtensionPoint pep = irodsAccessObjectFactory
 				.getProtocolExtensionPoint(irodsAccount);
-		Tag ticketOperationResponse = pep.irodsFunction(ticketPI);
+		Tag ticketOperationResponse;
+		try {
+			ticketOperationResponse = pep.irodsFunction(ticketPI);
+		} finally {
+			invalidateCachedTicket(myTicketId);
+		}
 
 		log.info("received response from ticket operation:{}",
 				ticketOperationResponse);
@@ -290,6 +323,8 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 					.getInt()) {
 				response = false;
 			}
+		} finally {
+			invalidateCachedTicket(ticketId);
 		}
 
 		log.info("received response from ticket operation:{}",
@@ -650,6 +685,27 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 	public Ticket getTicketForSpecifiedTicketString(final String ticketId)
 			throws DataNotFoundException, JargonException {
 
+		if (ticketCache != null && ticketId != null && !ticketId.isEmpty()) {
+			Ticket cached = ticketCache.getTicket(irodsAccount, ticketId);
+			if (cached != null) {
+				log.debug("ticket found in cache:{}", ticketId);
+				return cached;
+			}
+		}
+
+		Ticket ticket = queryTicketForSpecifiedTicketString(ticketId);
+		if (ticketCache != null) {
+			ticketCache.putTicket(irodsAccount, ticket);
+		}
+		return ticket;
+	}
+
+	/**
+	 * Query iRODS for a ticket, without using the cache
+	 */
+	private Ticket queryTicketForSpecifiedTicketString(final String ticketId)
+			throws DataNotFoundException, JargonException {
+
 		Ticket ticket = null;
 		IRODSQueryResultSetInterface resultSet = null;
 		String queryCommon = null;
@@ -789,6 +845,8 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 					.getInt()) {
 				response = false;
 			}
+		} finally {
+			invalidateCachedTicket(ticketId);
 		}
 
 		log.info("received response from ticket operation:{}",
@@ -837,6 +895,8 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 					.getInt()) {
 				response = false;
 			}
+		} finally {
+			invalidateCachedTicket(ticketId);
 		}
 
 		log.info("received response from ticket operation:{}",
@@ -885,6 +945,8 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 					.getInt()) {
 				response = false;
 			}
+		} finally {
+			invalidateCachedTicket(ticketId);
 		}
 
 		log.info("received response from ticket operation:{}",
@@ -928,6 +990,8 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 					.getInt()) {
 				response = false;
 			}
+		} finally {
+			invalidateCachedTicket(ticketId);
 		}
 
 		log.info("received response from ticket operation:{}",
@@ -979,6 +1043,8 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 			} else {
 				throw e;
 			}
+		} finally {
+			invalidateCachedTicket(ticketId);
 		}
 
 		log.info("received response from ticket operation:{}",
@@ -1030,6 +1096,8 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 			} else {
 				throw e;
 			}
+		} finally {
+			invalidateCachedTicket(ticketId);
 		}
 
 		log.info("received response from ticket operation:{}",
@@ -1081,6 +1149,8 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 			} else {
 				throw e;
 			}
+		} finally {
+			invalidateCachedTicket(ticketId);
 		}
 
 		log.info("received response from ticket operation:{}",
@@ -1132,6 +1202,8 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 			} else {
 				throw e;
 			}
+		} finally {
+			invalidateCachedTicket(ticketId);
 		}
 
 		log.info("received response from ticket operation:{}",
@@ -1183,6 +1255,8 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 			} else {
 				throw e;
 			}
+		} finally {
+			invalidateCachedTicket(ticketId);
 		}
 
 		log.info("received response from ticket operation:{}",
@@ -1234,6 +1308,8 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 			} else {
 				throw e;
 			}
+		} finally {
+			invalidateCachedTicket(ticketId);
 		}
 
 		log.info("received response from ticket operation:{}",
@@ -1486,6 +1562,17 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 			final String ticketId, final RodsGenQueryEnum col,
 			final int partialStartIndex) throws JargonException {
 
+		// only a whole list, from the start, is cached
+		boolean cacheable = ticketCache != null && partialStartIndex == 0
+				&& ticketId != null && !ticketId.isEmpty();
+		if (cacheable) {
+			List<String> cached = ticketCache.getRestrictions(irodsAccount,
+					ticketId, col);
+			if (cached != null) {
+				return cached;
+			}
+		}
+
 		IRODSGenQuery irodsQuery = null;
 		List<String> restrictions = new ArrayList<String>();
 
@@ -1513,6 +1600,11 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 				restrictions.add(row.getColumn(0));
 			}
 
+			if (cacheable && !resultSet.isHasMoreRecords()) {
+				ticketCache.putRestrictions(irodsAccount, ticketId, col,
+						restrictions);
+			}
+
 		} catch (JargonQueryException e) {
 			log.error("query exception for ticket query:{}", irodsQuery, e);
 			throw new JargonException(ERROR_IN_TICKET_QUERY, e);
@@ -1584,6 +1676,15 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 		}
 		log.info("ticketString:{}", ticketString);
 
+		if (ticketCache != null) {
+			Boolean cached = ticketCache.getTicketInUse(irodsAccount,
+					ticketString);
+			if (cached != null) {
+				log.info("ticket in use from cache:{}", cached);
+				return cached;
+			}
+		}
+
 		boolean ticketFound = false;
 		try {
 			IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
@@ -1612,6 +1713,11 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 			throw new JargonException(
 					"jargonQueryException building ticket query", e);
 		}
+
+		if (ticketCache != null) {
+			ticketCache.putTicketInUse(irodsAccount, ticketString,
+					ticketFound);
+		}
 		return ticketFound;
 	}
 
@@ -1632,20 +1738,25 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 			throw new IllegalArgumentException("null ticketWithDesiredData");
 		}
 
-		// data not found will occur here if I cannot find the ticket
-		Ticket actualTicket = getTicketForSpecifiedTicketString(ticketWithDesiredData
+		/*
+		 * data not found will occur here if I cannot find the ticket, the
+		 * ticket is read from iRODS, as a cached copy may not show a change by
+		 * another client
+		 */
+		Ticket actualTicket = queryTicketForSpecifiedTicketString(ticketWithDesiredData
 				.getTicketString());
 
 		/*
-		 * Compare things now and call appropriate updates. This is not within a
-		 * transaction, but that's the way it works...sorry
+		 * Compare things now and send the updates together. This is not within
+		 * a transaction, but that's the way it works...sorry
 		 */
+		TicketUpdateBatch batch = TicketUpdateBatch.instance();
 
 		// uses limit
 		if (ticketWithDesiredData.getUsesLimit() != actualTicket.getUsesLimit()) {
 			log.info("setting uses limit to:{}",
 					ticketWithDesiredData.getUsesLimit());
-			setTicketUsesLimit(actualTicket.getTicketString(),
+			batch.setUsesLimit(actualTicket.getTicketString(),
 					ticketWithDesiredData.getUsesLimit());
 		}
 
@@ -1654,7 +1765,7 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 				.getWriteFileLimit()) {
 			log.info("setting files write limit to:{}",
 					ticketWithDesiredData.getWriteFileLimit());
-			setTicketFileWriteLimit(actualTicket.getTicketString(),
+			batch.setFileWriteLimit(actualTicket.getTicketString(),
 					ticketWithDesiredData.getWriteFileLimit());
 		}
 
@@ -1663,7 +1774,7 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 				.getWriteByteLimit()) {
 			log.info("setting bytes write limit to:{}",
 					ticketWithDesiredData.getWriteByteLimit());
-			setTicketByteWriteLimit(actualTicket.getTicketString(),
+			batch.setByteWriteLimit(actualTicket.getTicketString(),
 					ticketWithDesiredData.getWriteByteLimit());
 		}
 
@@ -1671,16 +1782,120 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 		if (!isDateSame(ticketWithDesiredData.getExpireTime(),
 				actualTicket.getExpireTime())) {
 			log.info("updating expires limit");
-			setTicketExpiration(actualTicket.getTicketString(),
+			batch.setExpiration(actualTicket.getTicketString(),
 					ticketWithDesiredData.getExpireTime());
 		}
 
+		if (batch.isEmpty()) {
+			log.info("ticket is unchanged");
+			return actualTicket;
+		}
+
+		updateTicketsInBatchAndCheckResponses(batch);
+
 		log.info("ticket updated, read again to return to caller");
 		return getTicketForSpecifiedTicketString(ticketWithDesiredData
 				.getTicketString());
 
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.ticket.TicketAdminService#updateTicketsInBatch(org.irods
+	 * .jargon.ticket.TicketUpdateBatch)
+	 */
+	@Override
+	public List<TicketUpdateResponse> updateTicketsInBatch(
+			final TicketUpdateBatch ticketUpdateBatch) throws JargonException {
+
+		log.info("updateTicketsInBatch()");
+		if (ticketUpdateBatch == null) {
+			throw new IllegalArgumentException("null ticketUpdateBatch");
+		}
+
+		log.info("ticketUpdateBatch:{}", ticketUpdateBatch);
+		List<TicketUpdateResponse> responses = new ArrayList<TicketUpdateResponse>(
+				ticketUpdateBatch.size());
+		if (ticketUpdateBatch.isEmpty()) {
+			return responses;
+		}
+
+		PipelinedProtocolExtensionPoint pep = irodsAccessObjectFactory
+				.getPipelinedProtocolExtensionPoint(irodsAccount);
+		List<JargonException> errors;
+		try {
+			errors = pep.irodsFunctionPipelined(ticketUpdateBatch
+					.getTicketAdminInps());
+		} finally {
+			// the outcome of unanswered changes is not known if this fails
+			for (String ticketString : ticketUpdateBatch.getTicketStrings()) {
+				invalidateCachedTicket(ticketString);
+			}
+		}
+
+		for (int i = 0; i < errors.size(); i++) {
+			JargonException error = errors.get(i);
+			TicketUpdateResponse.ResultStatus resultStatus;
+			String message = "";
+			if (error == null) {
+				resultStatus = TicketUpdateResponse.ResultStatus.OK;
+			} else if (error.getUnderlyingIRODSExceptionCode() == ErrorEnum.CAT_TICKET_INVALID
+					.getInt()) {
+				resultStatus = TicketUpdateResponse.ResultStatus.TICKET_INVALID;
+				message = error.getMessage();
+			} else {
+				log.warn("error in ticket update {}:{}", ticketUpdateBatch
+						.getOperations().get(i), error.getMessage());
+				resultStatus = TicketUpdateResponse.ResultStatus.OTHER_ERROR;
+				message = error.getMessage();
+			}
+			responses.add(TicketUpdateResponse.instance(resultStatus,
+					ticketUpdateBatch.getTicketStrings().get(i),
+					ticketUpdateBatch.getOperations().get(i), message));
+		}
+
+		return responses;
+	}
+
+	/**
+	 * Send a batch of changes, failing on the first change that was not made
+	 *
+	 * @throws DataNotFoundException
+	 *             if a ticket was not found
+	 * @throws JargonException
+	 *             if any other change failed
+	 */
+	private void updateTicketsInBatchAndCheckResponses(
+			final TicketUpdateBatch ticketUpdateBatch)
+			throws DataNotFoundException, JargonException {
+
+		for (TicketUpdateResponse response : updateTicketsInBatch(ticketUpdateBatch)) {
+			if (response.getResultStatus() == TicketUpdateResponse.ResultStatus.OK) {
+				continue;
+			}
+			log.error("ticket update failed:{}", response);
+			String message = "unable to " + response.getOperation()
+					+ " for ticket:" + response.getTicketString() + ", "
+					+ response.getMessage();
+			if (response.getResultStatus() == TicketUpdateResponse.ResultStatus.TICKET_INVALID) {
+				throw new DataNotFoundException(message);
+			}
+			throw new JargonException(message);
+		}
+	}
+
+	/**
+	 * Drop a ticket that this service has changed from the cache, if there is
+	 * one
+	 */
+	private void invalidateCachedTicket(final String ticketString) {
+		if (ticketCache != null) {
+			ticketCache.invalidate(ticketString);
+		}
+	}
+
 	/**
 	 * compare two dates on their components, ignoring millis, as stuff goes to
 	 * irods as a serialized string in the protocol
@@ -1694,11 +1909,9 @@ public final class TicketAdminServiceImpl extends AbstractTicketService
 
 		boolean same = true;
 
-		if (date1 == null & date2 == null) {
+		if (date1 == null && date2 == null) {
 			same = true;
-		}
-
-		if (date1 == null) {
+		} else if (date1 == null) {
 			same = false;
 		} else if (date2 == null) {
 			same = false;
@@ -0,0 +1,368 @@
+package org.irods.jargon.ticket;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Time to live cache of ticket metadata and restrictions, so that a ticket
+ * that is validated again and again is not queried from the iCAT each time. A
+ * cache is shared by the {@link TicketAdminService} instances of a
+ * {@link TicketServiceFactoryImpl}, and each service removes a ticket from the
+ * cache when it creates, changes or deletes that ticket.
+ * <p/>
+ * Values are kept per ticket string and per account, as an account only sees
+ * the tickets it may see. Changes made by other clients are seen once the
+ * cached values expire, which includes the use and write counts of a ticket.
+ * The least recently used tickets are dropped when the cache is full.
+ * <p/>
+ * This class is thread safe.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class TicketCache {
+
+	public static final Logger log = LoggerFactory.getLogger(TicketCache.class);
+
+	public static final long DEFAULT_TIME_TO_LIVE_MILLIS = 30000L;
+	public static final int DEFAULT_MAX_TICKETS = 10000;
+
+	private final long timeToLiveMillis;
+	private final LinkedHashMap<String, Map<String, CachedValues>> tickets;
+	private long hitCount = 0L;
+	private long missCount = 0L;
+
+	/**
+	 * Create a cache with the default time to live and size
+	 */
+	public TicketCache() {
+		this(DEFAULT_MAX_TICKETS, DEFAULT_TIME_TO_LIVE_MILLIS);
+	}
+
+	/**
+	 * Create a cache
+	 *
+	 * @param maxTickets
+	 *            <code>int</code> with the most ticket strings held
+	 * @param timeToLiveMillis
+	 *            <code>long</code> with the time in milliseconds a cached
+	 *            value is used for
+	 */
+	public TicketCache(final int maxTickets, final long timeToLiveMillis) {
+		if (maxTickets <= 0) {
+			throw new IllegalArgumentException("maxTickets must be > 0");
+		}
+
+		if (timeToLiveMillis <= 0) {
+			throw new IllegalArgumentException("timeToLiveMillis must be > 0");
+		}
+
+		this.timeToLiveMillis = timeToLiveMillis;
+		tickets = new LinkedHashMap<String, Map<String, CachedValues>>(16,
+				0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					final Map.Entry<String, Map<String, CachedValues>> eldest) {
+				return size() > maxTickets;
+			}
+		};
+	}
+
+	/**
+	 * Get the cached metadata of a ticket
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} that queried the ticket
+	 * @param ticketString
+	 *            <code>String</code> with the ticket string
+	 * @return {@link Ticket} that is a copy of the cached ticket, or
+	 *         <code>null</code> if none is cached
+	 */
+	public synchronized Ticket getTicket(final IRODSAccount irodsAccount,
+			final String ticketString) {
+		CachedValues values = findValues(irodsAccount, ticketString);
+		if (values == null || values.ticket == null) {
+			missCount++;
+			return null;
+		}
+		hitCount++;
+		return copyTicket(values.ticket);
+	}
+
+	/**
+	 * Cache the metadata of a ticket, which also shows that it is in use
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} that queried the ticket
+	 * @param ticket
+	 *            {@link Ticket} as found in iRODS, which is copied
+	 */
+	public synchronized void putTicket(final IRODSAccount irodsAccount,
+			final Ticket ticket) {
+		if (ticket == null) {
+			throw new IllegalArgumentException("null ticket");
+		}
+		CachedValues values = valuesToUpdate(irodsAccount,
+				ticket.getTicketString());
+		values.ticket = copyTicket(ticket);
+		values.inUse = Boolean.TRUE;
+	}
+
+	/**
+	 * Find whether a ticket string was in use
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} that queried the ticket
+	 * @param ticketString
+	 *            <code>String</code> with the ticket string
+	 * @return <code>Boolean</code> that is <code>null</code> if it is not
+	 *         known
+	 */
+	public synchronized Boolean getTicketInUse(final IRODSAccount irodsAccount,
+			final String ticketString) {
+		CachedValues values = findValues(irodsAccount, ticketString);
+		if (values == null || values.inUse == null) {
+			missCount++;
+			return null;
+		}
+		hitCount++;
+		return values.inUse;
+	}
+
+	/**
+	 * Cache whether a ticket string is in use
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} that queried the ticket
+	 * @param ticketString
+	 *            <code>String</code> with the ticket string
+	 * @param inUse
+	 *            <code>boolean</code> that is <code>true</code> if the ticket
+	 *            exists
+	 */
+	public synchronized void putTicketInUse(final IRODSAccount irodsAccount,
+			final String ticketString, final boolean inUse) {
+		valuesToUpdate(irodsAccount, ticketString).inUse = inUse;
+	}
+
+	/**
+	 * Get the cached allowed users, groups or hosts of a ticket
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} that queried the ticket
+	 * @param ticketString
+	 *            <code>String</code> with the ticket string
+	 * @param restrictionColumn
+	 *            {@link RodsGenQueryEnum} with the column of the restriction
+	 * @return <code>List</code> of <code>String</code> that is a copy of the
+	 *         cached restrictions, or <code>null</code> if none are cached
+	 */
+	public synchronized List<String> getRestrictions(
+			final IRODSAccount irodsAccount, final String ticketString,
+			final RodsGenQueryEnum restrictionColumn) {
+		if (restrictionColumn == null) {
+			throw new IllegalArgumentException("null restrictionColumn");
+		}
+		CachedValues values = findValues(irodsAccount, ticketString);
+		List<String> restrictions = values == null ? null : values.restrictions
+				.get(restrictionColumn);
+		if (restrictions == null) {
+			missCount++;
+			return null;
+		}
+		hitCount++;
+		return new ArrayList<String>(restrictions);
+	}
+
+	/**
+	 * Cache the allowed users, groups or hosts of a ticket
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} that queried the ticket
+	 * @param ticketString
+	 *            <code>String</code> with the ticket string
+	 * @param restrictionColumn
+	 *            {@link RodsGenQueryEnum} with the column of the restriction
+	 * @param restrictions
+	 *            <code>List</code> of <code>String</code> with every
+	 *            restriction, which is copied
+	 */
+	public synchronized void putRestrictions(final IRODSAccount irodsAccount,
+			final String ticketString,
+			final RodsGenQueryEnum restrictionColumn,
+			final List<String> restrictions) {
+		if (restrictionColumn == null) {
+			throw new IllegalArgumentException("null restrictionColumn");
+		}
+		if (restrictions == null) {
+			throw new IllegalArgumentException("null restrictions");
+		}
+		valuesToUpdate(irodsAccount, ticketString).restrictions.put(
+				restrictionColumn, new ArrayList<String>(restrictions));
+	}
+
+	/**
+	 * Remove everything cached about a ticket, for every account
+	 *
+	 * @param ticketString
+	 *            <code>String</code> with the ticket string
+	 */
+	public synchronized void invalidate(final String ticketString) {
+		if (tickets.remove(ticketString) != null) {
+			log.debug("invalidated ticket:{}", ticketString);
+		}
+	}
+
+	/**
+	 * Remove everything cached
+	 */
+	public synchronized void clear() {
+		tickets.clear();
+	}
+
+	/**
+	 * @return <code>int</code> with the number of ticket strings held
+	 */
+	public synchronized int getTicketCount() {
+		return tickets.size();
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	public long getTimeToLiveMillis() {
+		return timeToLiveMillis;
+	}
+
+	/**
+	 * The current time, which tests may override
+	 *
+	 * @return <code>long</code> with the time in milliseconds
+	 */
+	protected long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "TicketCache [timeToLiveMillis=" + timeToLiveMillis
+				+ ", tickets=" + tickets.size() + ", hitCount=" + hitCount
+				+ ", missCount=" + missCount + "]";
+	}
+
+	private CachedValues findValues(final IRODSAccount irodsAccount,
+			final String ticketString) {
+		String accountKey = accountKey(irodsAccount);
+		checkTicketString(ticketString);
+		Map<String, CachedValues> byAccount = tickets.get(ticketString);
+		if (byAccount == null) {
+			return null;
+		}
+		CachedValues values = byAccount.get(accountKey);
+		if (values == null) {
+			return null;
+		}
+		if (values.expiresAt <= currentTimeMillis()) {
+			byAccount.remove(accountKey);
+			if (byAccount.isEmpty()) {
+				tickets.remove(ticketString);
+			}
+			return null;
+		}
+		return values;
+	}
+
+	/**
+	 * Find the values to add to, starting a new set if there are none that
+	 * are current. The expiry is not extended by an update.
+	 */
+	private CachedValues valuesToUpdate(final IRODSAccount irodsAccount,
+			final String ticketString) {
+		CachedValues values = findValues(irodsAccount, ticketString);
+		if (values != null) {
+			return values;
+		}
+		Map<String, CachedValues> byAccount = tickets.get(ticketString);
+		if (byAccount == null) {
+			byAccount = new HashMap<String, CachedValues>();
+			tickets.put(ticketString, byAccount);
+		}
+		values = new CachedValues(currentTimeMillis() + timeToLiveMillis);
+		byAccount.put(accountKey(irodsAccount), values);
+		return values;
+	}
+
+	private static String accountKey(final IRODSAccount irodsAccount) {
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+		StringBuilder sb = new StringBuilder();
+		sb.append(irodsAccount.getUserName());
+		sb.append('#');
+		sb.append(irodsAccount.getZone());
+		sb.append('@');
+		sb.append(irodsAccount.getHost());
+		sb.append(':');
+		sb.append(irodsAccount.getPort());
+		return sb.toString();
+	}
+
+	private static void checkTicketString(final String ticketString) {
+		if (ticketString == null || ticketString.isEmpty()) {
+			throw new IllegalArgumentException("null or empty ticketString");
+		}
+	}
+
+	private static Ticket copyTicket(final Ticket ticket) {
+		Ticket copy = new Ticket();
+		copy.setTicketId(ticket.getTicketId());
+		copy.setTicketString(ticket.getTicketString());
+		copy.setType(ticket.getType());
+		copy.setObjectType(ticket.getObjectType());
+		copy.setOwnerName(ticket.getOwnerName());
+		copy.setOwnerZone(ticket.getOwnerZone());
+		copy.setUsesCount(ticket.getUsesCount());
+		copy.setUsesLimit(ticket.getUsesLimit());
+		copy.setWriteFileCount(ticket.getWriteFileCount());
+		copy.setWriteFileLimit(ticket.getWriteFileLimit());
+		copy.setWriteByteCount(ticket.getWriteByteCount());
+		copy.setWriteByteLimit(ticket.getWriteByteLimit());
+		copy.setExpireTime(ticket.getExpireTime() == null ? null : new Date(
+				ticket.getExpireTime().getTime()));
+		copy.setIrodsAbsolutePath(ticket.getIrodsAbsolutePath());
+		return copy;
+	}
+
+	/**
+	 * What is known about a ticket by one account, until an expiry time
+	 */
+	private static class CachedValues {
+		private final long expiresAt;
+		private Ticket ticket = null;
+		private Boolean inUse = null;
+		private final Map<RodsGenQueryEnum, List<String>> restrictions = new EnumMap<RodsGenQueryEnum, List<String>>(
+				RodsGenQueryEnum.class);
+
+		CachedValues(final long expiresAt) {
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
@@ -103,19 +103,11 @@ public interface TicketClientOperations {
 	/**
 	 * Given an iRODS ticket for a data object, return an object that has an
 	 * <code>InputStream</code> for that file, as well as the length of data to
-	 * be streamed. This method is oriented towards applications that need to
-	 * represent the data from iRODS as a stream.
+	 * be streamed.
 	 * <p/>
-	 * Note that currently only 'get' and 'put' are supported via tickets, so
-	 * mid-tier applications that wish to stream data back to the client need to
-	 * do an intermediate get to the mid-tier platform and then stream from this
-	 * location.
-	 * <p/>
-	 * Tickets are limited in what they can access, so various operations that
-	 * refer to the iCAT, such as obtaining the length, or differentiating
-	 * between a file and a collection, cannot be done in the typical way. As a
-	 * work-around, this object holds the lenght of the cached file so that it
-	 * may be sent in browser responses.
+	 * The data is now streamed straight from iRODS, as in
+	 * {@link #redeemTicketAndStreamDataObjectBack(String, IRODSFile)}, and the
+	 * intermediate cache directory is no longer used.
 	 * 
 	 * @param ticketString
 	 *            <code>String</code> with the unique string that represents the
@@ -124,38 +116,90 @@ public interface TicketClientOperations {
 	 *            {@link IRODSFile} that represents the data to be streamed back
 	 *            to the caller
 	 * @param intermediateCacheRootDirectory
-	 *            {@link File} on the local file system that is the directory
-	 *            root where temporary files may be cached. Note that, upon
-	 *            close of the returned stream, this file will be cleaned up
-	 *            from that cache.
-	 * @return {@link FileStreamAndInfo} with a buffered stream that will delete
-	 *         the cached file upon close. This object also contains a length
-	 *         for the file.
+	 *            {@link File} on the local file system that was the directory
+	 *            root where temporary files were cached. It must still exist.
+	 * @return {@link FileStreamAndInfo} with a buffered stream of the data,
+	 *         and its length
 	 * @throws DataNotFoundException
 	 *             if the ticket data is not available
 	 * @throws JargonException
+	 * @deprecated use
+	 *             {@link #redeemTicketAndStreamDataObjectBack(String, IRODSFile)}
 	 */
+	@Deprecated
 	FileStreamAndInfo redeemTicketGetDataObjectAndStreamBack(
 			String ticketString, IRODSFile irodsSourceFile,
 			File intermediateCacheRootDirectory) throws DataNotFoundException,
 			JargonException;
 
+	/**
+	 * Given an iRODS ticket for a data object, return an object that has an
+	 * <code>InputStream</code> for that data object, as well as the length of
+	 * data to be streamed. This method is oriented towards applications that
+	 * need to represent the data from iRODS as a stream, such as anonymous
+	 * download links.
+	 * <p/>
+	 * The stream reads the data object directly from iRODS, under the ticket
+	 * session, so the first bytes are available as soon as the data object is
+	 * opened. Reads are buffered at the get buffer size in the jargon
+	 * properties. The stream holds the connection of this thread, and must be
+	 * closed by the caller.
+	 * 
+	 * @param ticketString
+	 *            <code>String</code> with the unique string that represents the
+	 *            ticket
+	 * @param irodsSourceFile
+	 *            {@link IRODSFile} that represents the data to be streamed back
+	 *            to the caller
+	 * @return {@link FileStreamAndInfo} with a buffered stream of the data,
+	 *         and its length
+	 * @throws DataNotFoundException
+	 *             if the data object does not exist
+	 * @throws JargonException
+	 */
+	FileStreamAndInfo redeemTicketAndStreamDataObjectBack(String ticketString,
+			IRODSFile irodsSourceFile) throws DataNotFoundException,
+			JargonException;
+
+	/**
+	 * Given an iRODS ticket for a data object, return an object that has an
+	 * <code>InputStream</code> over a range of that data object, as for an
+	 * http range request. Otherwise the same as
+	 * {@link #redeemTicketAndStreamDataObjectBack(String, IRODSFile)}.
+	 * 
+	 * @param ticketString
+	 *            <code>String</code> with the unique string that represents the
+	 *            ticket
+	 * @param irodsSourceFile
+	 *            {@link IRODSFile} that represents the data to be streamed back
+	 *            to the caller
+	 * @param offset
+	 *            <code>long</code> with the offset of the first byte to stream,
+	 *            which must be before the end of the data
+	 * @param length
+	 *            <code>long</code> with the number of bytes to stream, or -1
+	 *            to stream to the end of the data. A range past the end of the
+	 *            data is cut short at the end.
+	 * @return {@link FileStreamAndInfo} with a buffered stream of the range,
+	 *         its length and offset, and the total length of the data
+	 * @throws DataNotFoundException
+	 *             if the data object does not exist
+	 * @throws JargonException
+	 */
+	FileStreamAndInfo redeemTicketAndStreamDataObjectBack(String ticketString,
+			IRODSFile irodsSourceFile, long offset, long length)
+			throws DataNotFoundException, JargonException;
+
 	/**
 	 * This method specifically addresses 'upload' scenarios, where data is
 	 * supplied via an <code>InputStream</code>, representing the contents that
 	 * should be placed in a target file with a given <code>fileName</code>
 	 * underneath a given target iRODS collection path in
-	 * <code>irodsCollectionAbsolutePath</code>. This method will take the
-	 * contents of the input stream, store in a temporary cache location as
-	 * described by the <code>intermediateCacheRootDirectory</code>, then put
-	 * that file to iRODS. Once the operation is complete, the temporary file
-	 * will be removed. This removal is done in a finally block, so that if the
-	 * put operation fails, it should minimize leakage of old files.
+	 * <code>irodsCollectionAbsolutePath</code>.
 	 * <p/>
-	 * The primary use case for this method is in mid-tier applications where a
-	 * file is being uploaded from a browser. Since the iRODS ticket system does
-	 * not support input or output streams, the upload needs to be wrapped to
-	 * emulate a direct streaming via a ticket.
+	 * The data is now streamed straight to iRODS, as in
+	 * {@link #redeemTicketAndStreamToIRODSCollection(String, String, String, InputStream)}
+	 * , and the temporary cache directory is no longer used.
 	 * 
 	 * @param ticketString
 	 *            <code>String</code> with the unique ticket id, which must have
@@ -173,17 +217,57 @@ public interface TicketClientOperations {
 	 *            http upload operation
 	 * @param temporaryCacheDirectoryLocation
 	 *            {@link File} representing a temporary local file system
-	 *            directory where temporary files may be cached
+	 *            directory where temporary files were cached. It must still
+	 *            exist.
 	 * @throws DataNotFoundException
 	 *             if the ticket information is not available
 	 * @throws OverwriteException
 	 *             if an overwrite would occur
 	 * @throws JargonException
+	 * @deprecated use
+	 *             {@link #redeemTicketAndStreamToIRODSCollection(String, String, String, InputStream)}
 	 */
+	@Deprecated
 	void redeemTicketAndStreamToIRODSCollection(String ticketString,
 			String irodsCollectionAbsolutePath, String fileName,
 			InputStream inputStreamForFileData,
 			File temporaryCacheDirectoryLocation) throws DataNotFoundException,
 			OverwriteException, JargonException;
 
+	/**
+	 * This method specifically addresses 'upload' scenarios, where data is
+	 * supplied via an <code>InputStream</code>, representing the contents that
+	 * should be placed in a new data object with a given <code>fileName</code>
+	 * underneath a given target iRODS collection path in
+	 * <code>irodsCollectionAbsolutePath</code>.
+	 * <p/>
+	 * The data is written directly to iRODS as it is read, under the ticket
+	 * session, with no temporary file. Writes are buffered at the put buffer
+	 * size in the jargon properties. The input stream is closed when this
+	 * method returns.
+	 * 
+	 * @param ticketString
+	 *            <code>String</code> with the unique ticket id, which must have
+	 *            write privilages
+	 * @param irodsCollectionAbsolutePath
+	 *            <code>String</code> with the target iRODS parent collection
+	 *            absolute path. The file will be placed under this collection
+	 *            using the given <code>fileName</code>
+	 * @param fileName
+	 *            <code>String</code> with the name of the file being uploaded
+	 *            to iRODS
+	 * @param inputStreamForFileData
+	 *            <code>InputStream</code>. This could be the input stream
+	 *            resulting from an http upload operation
+	 * @throws DataNotFoundException
+	 *             if the ticket information is not available
+	 * @throws OverwriteException
+	 *             if the data object already exists
+	 * @throws JargonException
+	 */
+	void redeemTicketAndStreamToIRODSCollection(String ticketString,
+			String irodsCollectionAbsolutePath, String fileName,
+			InputStream inputStreamForFileData) throws DataNotFoundException,
+			OverwriteException, JargonException;
+
 }
\ No newline at end of file
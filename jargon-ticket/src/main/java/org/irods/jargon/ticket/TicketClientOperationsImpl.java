@@ -1,22 +1,25 @@
 package org.irods.jargon.ticket;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
-import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.exception.DataNotFoundException;
 import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.exception.JargonRuntimeException;
 import org.irods.jargon.core.exception.OverwriteException;
+import org.irods.jargon.core.packinstr.DataObjInp.OpenFlags;
 import org.irods.jargon.core.pub.DataTransferOperations;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
 import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.core.pub.io.IRODSFileInputStream;
 import org.irods.jargon.core.transfer.TransferControlBlock;
 import org.irods.jargon.core.transfer.TransferStatusCallbackListener;
-import org.irods.jargon.ticket.io.CleanUpWhenClosedInputStream;
 import org.irods.jargon.ticket.io.FileStreamAndInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,6 +37,11 @@ public class TicketClientOperationsImpl extends AbstractTicketService implements
 	public static final Logger log = LoggerFactory
 			.getLogger(TicketClientOperationsImpl.class);
 
+	/**
+	 * Size of the buffer used to read an uploaded stream
+	 */
+	private static final int STREAM_COPY_BUFFER_SIZE = 32 * 1024;
+
 	private DataTransferOperations dataTransferOperations = null;
 	private TicketClientSupport ticketClientSupport = null;
 
@@ -141,6 +149,7 @@ public class TicketClientOperationsImpl extends AbstractTicketService implements
 	 * redeemTicketAndStreamToIRODSCollection(java.lang.String,
 	 * java.lang.String, java.lang.String, java.io.InputStream, java.io.File)
 	 */
+	@Deprecated
 	@Override
 	public void redeemTicketAndStreamToIRODSCollection(
 			final String ticketString,
@@ -178,43 +187,107 @@ public class TicketClientOperationsImpl extends AbstractTicketService implements
 					"temporaryCacheDirectoryLocation is not a directory");
 		}
 
-		/*
-		 * Everything is in order I need to stream the input stream data to a
-		 * temporary file first
-		 */
+		log.info("temporary cache is not used, data is streamed to iRODS");
+		redeemTicketAndStreamToIRODSCollection(ticketString,
+				irodsCollectionAbsolutePath, fileName, inputStreamForFileData);
 
-		StringBuffer sb = new StringBuffer();
-		sb.append("redeemTicketAndStreamToIRODSCollection_");
-		sb.append(System.currentTimeMillis());
-		sb.append("_");
-		sb.append(fileName);
-		String tempFileName = sb.toString();
-		log.info("temp file name:{}", tempFileName);
-		File tempFile = new File(temporaryCacheDirectoryLocation, tempFileName);
+	}
 
-		try {
-			FileUtils.copyInputStreamToFile(inputStreamForFileData, tempFile);
-		} catch (IOException e) {
-			log.error("io exception copying input stream to temp file", e);
-			throw new JargonException(
-					"error copying provided input stream to temporary cache");
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.ticket.TicketClientOperations#
+	 * redeemTicketAndStreamToIRODSCollection(java.lang.String,
+	 * java.lang.String, java.lang.String, java.io.InputStream)
+	 */
+	@Override
+	public void redeemTicketAndStreamToIRODSCollection(
+			final String ticketString,
+			final String irodsCollectionAbsolutePath, final String fileName,
+			final InputStream inputStreamForFileData)
+			throws DataNotFoundException, OverwriteException, JargonException {
+
+		log.info("redeemTicketAndStreamToIRODSCollection()");
+
+		if (ticketString == null || ticketString.isEmpty()) {
+			throw new IllegalArgumentException("null or empty ticketString");
 		}
 
-		IRODSFile targetIrodsFile = getIrodsAccessObjectFactory()
-				.getIRODSFileFactory(getIrodsAccount()).instanceIRODSFile(
-						irodsCollectionAbsolutePath, fileName);
-		log.info("target iRODS file:{}", targetIrodsFile);
+		if (irodsCollectionAbsolutePath == null
+				|| irodsCollectionAbsolutePath.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty irodsCollectionAbsolutePath");
+		}
+
+		if (fileName == null || fileName.isEmpty()) {
+			throw new IllegalArgumentException("null or empty fileName");
+		}
 
-		log.info("data has been copied to temp file, now put to iRODS via ticket");
-		/*
-		 * Put file, try and clean up no matter what happens
-		 */
+		if (inputStreamForFileData == null) {
+			throw new IllegalArgumentException("null inputStreamForFileData");
+		}
+
+		OutputStream outputStream = null;
+		IRODSFile targetIrodsFile = null;
+		boolean complete = false;
 		try {
-			putFileToIRODSUsingTicket(ticketString, tempFile, targetIrodsFile,
-					null, null);
+			log.info("initializing session with ticket:{}", ticketString);
+			ticketClientSupport.initializeSessionWithTicket(ticketString);
+
+			IRODSFile irodsFile = getIrodsAccessObjectFactory()
+					.getIRODSFileFactory(getIrodsAccount()).instanceIRODSFile(
+							irodsCollectionAbsolutePath, fileName);
+			log.info("target iRODS file:{}", irodsFile);
+
+			if (irodsFile.exists()) {
+				log.error("target file exists:{}", irodsFile);
+				throw new OverwriteException(
+						"attempt to overwrite file via ticket:"
+								+ irodsFile.getAbsolutePath());
+			}
+
+			// write behind, the stream is written in put buffer sized chunks
+			outputStream = new BufferedOutputStream(getIrodsAccessObjectFactory()
+					.getIRODSFileFactory(getIrodsAccount())
+					.instanceIRODSFileOutputStream(irodsFile,
+							OpenFlags.WRITE_FAIL_IF_EXISTS),
+					getIrodsAccessObjectFactory().getJargonProperties()
+							.getPutBufferSize());
+			// created now, so removed below if the copy does not finish
+			targetIrodsFile = irodsFile;
+
+			byte[] buffer = new byte[STREAM_COPY_BUFFER_SIZE];
+			int count;
+			while ((count = inputStreamForFileData.read(buffer)) != -1) {
+				outputStream.write(buffer, 0, count);
+			}
+			outputStream.close();
+			outputStream = null;
+			complete = true;
+		} catch (IOException e) {
+			log.error("io exception streaming data to iRODS", e);
+			throw new JargonException("error streaming data to iRODS", e);
 		} finally {
-			log.info("delete the temp file");
-			tempFile.delete();
+			if (outputStream != null) {
+				try {
+					outputStream.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+			if (targetIrodsFile != null && !complete) {
+				/*
+				 * remove the partial data object, or a retry would fail as
+				 * the target exists
+				 */
+				log.warn("removing partial data object:{}", targetIrodsFile);
+				try {
+					targetIrodsFile.deleteWithForceOption();
+				} catch (JargonRuntimeException e) {
+					log.error("unable to remove partial data object:{}",
+							targetIrodsFile, e);
+				}
+			}
 			log.info("close input stream");
 			try {
 				inputStreamForFileData.close();
@@ -233,6 +306,7 @@ public class TicketClientOperationsImpl extends AbstractTicketService implements
 	 * redeemTicketGetDataObjectAndStreamBack(java.lang.String,
 	 * org.irods.jargon.core.pub.io.IRODSFile, java.io.File)
 	 */
+	@Deprecated
 	@Override
 	public FileStreamAndInfo redeemTicketGetDataObjectAndStreamBack(
 			final String ticketString, final IRODSFile irodsSourceFile,
@@ -258,41 +332,129 @@ public class TicketClientOperationsImpl extends AbstractTicketService implements
 					"cannot create intermediate cache, root dir does not exist");
 		}
 
-		// compute file name under cache dir as current time +
-		// irodsSourceFileName
-		StringBuilder sb = new StringBuilder();
-		sb.append(".tempTicketFileCache_");
-		sb.append(System.currentTimeMillis());
-		sb.append("_");
-		sb.append(irodsSourceFile.getName());
-		String tempFileName = sb.toString();
+		log.info("intermediate cache is not used, data is streamed from iRODS");
+		return redeemTicketAndStreamDataObjectBack(ticketString,
+				irodsSourceFile);
+
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.ticket.TicketClientOperations#
+	 * redeemTicketAndStreamDataObjectBack(java.lang.String,
+	 * org.irods.jargon.core.pub.io.IRODSFile)
+	 */
+	@Override
+	public FileStreamAndInfo redeemTicketAndStreamDataObjectBack(
+			final String ticketString, final IRODSFile irodsSourceFile)
+			throws DataNotFoundException, JargonException {
+		return redeemTicketAndStreamDataObjectBack(ticketString,
+				irodsSourceFile, 0L, -1L);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.ticket.TicketClientOperations#
+	 * redeemTicketAndStreamDataObjectBack(java.lang.String,
+	 * org.irods.jargon.core.pub.io.IRODSFile, long, long)
+	 */
+	@Override
+	public FileStreamAndInfo redeemTicketAndStreamDataObjectBack(
+			final String ticketString, final IRODSFile irodsSourceFile,
+			final long offset, final long length)
+			throws DataNotFoundException, JargonException {
+
+		log.info("redeemTicketAndStreamDataObjectBack()");
+
+		if (ticketString == null || ticketString.isEmpty()) {
+			throw new IllegalArgumentException("null or empty ticketString");
+		}
+
+		if (irodsSourceFile == null) {
+			throw new IllegalArgumentException("null irodsSourceFile");
+		}
 
-		log.info("temp file name: {}", tempFileName);
+		if (offset < 0) {
+			throw new IllegalArgumentException("offset < 0");
+		}
 
-		File intermediateCacheFile = new File(intermediateCacheRootDirectory,
-				tempFileName);
+		if (length < -1 || length == 0) {
+			throw new IllegalArgumentException(
+					"length must be > 0, or -1 to stream to the end");
+		}
 
-		// other param checks done in delegated methods
+		log.info("irodsSourceFile:{}", irodsSourceFile);
+		log.info("offset:{}", offset);
+		log.info("length:{}", length);
 
 		log.info("initializing session with ticket:{}", ticketString);
 		ticketClientSupport.initializeSessionWithTicket(ticketString);
 
-		log.info("session initialized, doing get operation");
-		dataTransferOperations.getOperation(irodsSourceFile,
-				intermediateCacheFile, null, null);
-		log.info("file obtained and in cache, now returning an input stream");
-		InputStream inputStream;
+		if (!irodsSourceFile.exists()) {
+			log.error("ticket source file does not exist:{}", irodsSourceFile);
+			throw new DataNotFoundException("cannot find data to stream:"
+					+ irodsSourceFile.getAbsolutePath());
+		}
+
+		if (!irodsSourceFile.isFile()) {
+			log.error("ticket source file is not a data object:{}",
+					irodsSourceFile);
+			throw new JargonException("cannot stream a collection:"
+					+ irodsSourceFile.getAbsolutePath());
+		}
+
+		long totalLength = irodsSourceFile.length();
+		if (offset > 0 && offset >= totalLength) {
+			throw new IllegalArgumentException("offset is past the end of data");
+		}
+
+		long streamLength = totalLength - offset;
+		if (length != -1 && length < streamLength) {
+			streamLength = length;
+		}
+
+		log.info("session initialized, opening stream");
+		IRODSFileInputStream irodsFileInputStream = getIrodsAccessObjectFactory()
+				.getIRODSFileFactory(getIrodsAccount())
+				.instanceIRODSFileInputStream(irodsSourceFile);
+
+		InputStream inputStream = irodsFileInputStream;
 		try {
-			inputStream = new BufferedInputStream(
-					new CleanUpWhenClosedInputStream(intermediateCacheFile));
-			return new FileStreamAndInfo(inputStream,
-					intermediateCacheFile.length());
-		} catch (FileNotFoundException e) {
-			log.error("cannot find temp cache file to stream back", e);
-			throw new JargonException(
-					"cannot find the temporary cache stream I had created");
+			if (offset > 0) {
+				long skipped = irodsFileInputStream.skip(offset);
+				if (skipped != offset) {
+					throw new JargonException("unable to seek to offset:"
+							+ offset);
+				}
+			}
+
+			if (streamLength < totalLength - offset) {
+				inputStream = new BoundedInputStream(inputStream, streamLength);
+			}
+
+			// read ahead, the data object is read in get buffer sized chunks
+			return new FileStreamAndInfo(new BufferedInputStream(inputStream,
+					getIrodsAccessObjectFactory().getJargonProperties()
+							.getGetBufferSize()), streamLength, offset,
+					totalLength);
+		} catch (IOException e) {
+			log.error("io exception positioning stream", e);
+			closeQuietly(irodsFileInputStream);
+			throw new JargonException("error positioning stream to offset", e);
+		} catch (JargonException e) {
+			closeQuietly(irodsFileInputStream);
+			throw e;
 		}
+	}
 
+	private static void closeQuietly(final InputStream inputStream) {
+		try {
+			inputStream.close();
+		} catch (IOException e) {
+			// ignore
+		}
 	}
 
 }
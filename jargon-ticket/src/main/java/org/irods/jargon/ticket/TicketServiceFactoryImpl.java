@@ -13,15 +13,33 @@ import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
 public class TicketServiceFactoryImpl implements TicketServiceFactory {
 
 	private final IRODSAccessObjectFactory irodsAccessObjectFactory;
+	private final TicketCache ticketCache;
 
 	public TicketServiceFactoryImpl(
 			final IRODSAccessObjectFactory irodsAccessObjectFactory) {
+		this(irodsAccessObjectFactory, null);
+	}
+
+	/**
+	 * Constructor for a factory whose ticket admin services share a cache of
+	 * ticket metadata and restrictions
+	 * 
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory}
+	 * @param ticketCache
+	 *            {@link TicketCache} shared by the ticket admin services, or
+	 *            <code>null</code> if lookups are not cached
+	 */
+	public TicketServiceFactoryImpl(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final TicketCache ticketCache) {
 		if (irodsAccessObjectFactory == null) {
 			throw new IllegalArgumentException(
 					"irodsAccessObjectFactory is null");
 		}
 
 		this.irodsAccessObjectFactory = irodsAccessObjectFactory;
+		this.ticketCache = ticketCache;
 
 	}
 
@@ -43,7 +61,7 @@ public class TicketServiceFactoryImpl implements TicketServiceFactory {
 		}
 
 		return new TicketAdminServiceImpl(irodsAccessObjectFactory,
-				irodsAccount);
+				irodsAccount, ticketCache);
 
 	}
 
@@ -90,6 +108,14 @@ public class TicketServiceFactoryImpl implements TicketServiceFactory {
 
 	}
 
+	/**
+	 * @return {@link TicketCache} shared by the ticket admin services, or
+	 *         <code>null</code> if there is none
+	 */
+	public TicketCache getTicketCache() {
+		return ticketCache;
+	}
+
 	void checkDependencies() {
 		if (irodsAccessObjectFactory == null) {
 			throw new IllegalArgumentException(
@@ -0,0 +1,325 @@
+package org.irods.jargon.ticket;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.irods.jargon.ticket.packinstr.TicketAdminInp;
+import org.irods.jargon.ticket.packinstr.TicketModifyAddOrRemoveTypeEnum;
+
+/**
+ * A series of changes to one or many existing tickets, to be sent to iRODS
+ * together by {@link TicketAdminService#updateTicketsInBatch(TicketUpdateBatch)}
+ * rather than one network round trip per change. The changes are applied in
+ * the order added. Each method returns this batch, so that calls may be
+ * chained:
+ *
+ * <pre>
+ * TicketUpdateBatch batch = TicketUpdateBatch.instance()
+ * 		.setUsesLimit(&quot;ticket1&quot;, 10)
+ * 		.addUserRestriction(&quot;ticket1&quot;, &quot;test2&quot;)
+ * 		.deleteTicket(&quot;ticket2&quot;);
+ * </pre>
+ *
+ * The arguments are checked as each change is added, as they are by the
+ * single update methods of the <code>TicketAdminService</code>. A batch is
+ * not thread safe.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class TicketUpdateBatch {
+
+	private final List<TicketAdminInp> ticketAdminInps = new ArrayList<TicketAdminInp>();
+	private final List<String> ticketStrings = new ArrayList<String>();
+	private final List<String> operations = new ArrayList<String>();
+
+	/**
+	 * Create an empty batch
+	 *
+	 * @return {@link TicketUpdateBatch}
+	 */
+	public static TicketUpdateBatch instance() {
+		return new TicketUpdateBatch();
+	}
+
+	private TicketUpdateBatch() {
+	}
+
+	/**
+	 * Add a change of the uses limit of a ticket
+	 *
+	 * @param ticketString
+	 *            <code>String</code> with the ticket string
+	 * @param usesLimit
+	 *            <code>int</code> with the uses limit, 0 for no limit
+	 * @return this {@link TicketUpdateBatch}
+	 */
+	public TicketUpdateBatch setUsesLimit(final String ticketString,
+			final int usesLimit) {
+		checkTicketString(ticketString);
+		if (usesLimit < 0) {
+			throw new IllegalArgumentException(
+					"cannot modify a ticket with uses count less than 0");
+		}
+		return add(ticketString, "uses " + usesLimit,
+				TicketAdminInp.instanceForModifyNumberOfUses(ticketString,
+						usesLimit));
+	}
+
+	/**
+	 * Add a change of the file write limit of a ticket
+	 *
+	 * @param ticketString
+	 *            <code>String</code> with the ticket string
+	 * @param fileWriteLimit
+	 *            <code>int</code> with the file write limit, 0 for no limit
+	 * @return this {@link TicketUpdateBatch}
+	 */
+	public TicketUpdateBatch setFileWriteLimit(final String ticketString,
+			final int fileWriteLimit) {
+		checkTicketString(ticketString);
+		if (fileWriteLimit < 0) {
+			throw new IllegalArgumentException(
+					"cannot modify a ticket with file write less than 0");
+		}
+		return add(ticketString, "write-file " + fileWriteLimit,
+				TicketAdminInp.instanceForModifyFileWriteNumber(ticketString,
+						fileWriteLimit));
+	}
+
+	/**
+	 * Add a change of the byte write limit of a ticket
+	 *
+	 * @param ticketString
+	 *            <code>String</code> with the ticket string
+	 * @param byteWriteLimit
+	 *            <code>long</code> with the byte write limit, 0 for no limit
+	 * @return this {@link TicketUpdateBatch}
+	 */
+	public TicketUpdateBatch setByteWriteLimit(final String ticketString,
+			final long byteWriteLimit) {
+		checkTicketString(ticketString);
+		if (byteWriteLimit < 0) {
+			throw new IllegalArgumentException(
+					"cannot modify a ticket with byte write count less than 0");
+		}
+		return add(ticketString, "write-byte " + byteWriteLimit,
+				TicketAdminInp.instanceForModifyByteWriteNumber(ticketString,
+						byteWriteLimit));
+	}
+
+	/**
+	 * Add a change of the expiration of a ticket
+	 *
+	 * @param ticketString
+	 *            <code>String</code> with the ticket string
+	 * @param expirationDate
+	 *            <code>Date</code> with the expiration, or <code>null</code>
+	 *            to remove the expiration
+	 * @return this {@link TicketUpdateBatch}
+	 */
+	public TicketUpdateBatch setExpiration(final String ticketString,
+			final Date expirationDate) {
+		checkTicketString(ticketString);
+		return add(ticketString, "expire " + expirationDate,
+				TicketAdminInp.instanceForModifyExpiration(ticketString,
+						expirationDate));
+	}
+
+	/**
+	 * Add a user to those allowed to use a ticket
+	 *
+	 * @param ticketString
+	 *            <code>String</code> with the ticket string
+	 * @param userName
+	 *            <code>String</code> with the user name
+	 * @return this {@link TicketUpdateBatch}
+	 */
+	public TicketUpdateBatch addUserRestriction(final String ticketString,
+			final String userName) {
+		return addRestriction(ticketString,
+				TicketModifyAddOrRemoveTypeEnum.TICKET_MODIFY_USER, userName);
+	}
+
+	/**
+	 * Remove a user from those allowed to use a ticket
+	 *
+	 * @param ticketString
+	 *            <code>String</code> with the ticket string
+	 * @param userName
+	 *            <code>String</code> with the user name
+	 * @return this {@link TicketUpdateBatch}
+	 */
+	public TicketUpdateBatch removeUserRestriction(final String ticketString,
+			final String userName) {
+		return removeRestriction(ticketString,
+				TicketModifyAddOrRemoveTypeEnum.TICKET_MODIFY_USER, userName);
+	}
+
+	/**
+	 * Add a group to those allowed to use a ticket
+	 *
+	 * @param ticketString
+	 *            <code>String</code> with the ticket string
+	 * @param groupName
+	 *            <code>String</code> with the group name
+	 * @return this {@link TicketUpdateBatch}
+	 */
+	public TicketUpdateBatch addGroupRestriction(final String ticketString,
+			final String groupName) {
+		return addRestriction(ticketString,
+				TicketModifyAddOrRemoveTypeEnum.TICKET_MODIFY_GROUP, groupName);
+	}
+
+	/**
+	 * Remove a group from those allowed to use a ticket
+	 *
+	 * @param ticketString
+	 *            <code>String</code> with the ticket string
+	 * @param groupName
+	 *            <code>String</code> with the group name
+	 * @return this {@link TicketUpdateBatch}
+	 */
+	public TicketUpdateBatch removeGroupRestriction(final String ticketString,
+			final String groupName) {
+		return removeRestriction(ticketString,
+				TicketModifyAddOrRemoveTypeEnum.TICKET_MODIFY_GROUP, groupName);
+	}
+
+	/**
+	 * Add a host to those allowed to use a ticket
+	 *
+	 * @param ticketString
+	 *            <code>String</code> with the ticket string
+	 * @param host
+	 *            <code>String</code> with the host
+	 * @return this {@link TicketUpdateBatch}
+	 */
+	public TicketUpdateBatch addHostRestriction(final String ticketString,
+			final String host) {
+		return addRestriction(ticketString,
+				TicketModifyAddOrRemoveTypeEnum.TICKET_MODIFY_HOST, host);
+	}
+
+	/**
+	 * Remove a host from those allowed to use a ticket
+	 *
+	 * @param ticketString
+	 *            <code>String</code> with the ticket string
+	 * @param host
+	 *            <code>String</code> with the host
+	 * @return this {@link TicketUpdateBatch}
+	 */
+	public TicketUpdateBatch removeHostRestriction(final String ticketString,
+			final String host) {
+		return removeRestriction(ticketString,
+				TicketModifyAddOrRemoveTypeEnum.TICKET_MODIFY_HOST, host);
+	}
+
+	/**
+	 * Add the delete of a ticket
+	 *
+	 * @param ticketString
+	 *            <code>String</code> with the ticket string
+	 * @return this {@link TicketUpdateBatch}
+	 */
+	public TicketUpdateBatch deleteTicket(final String ticketString) {
+		checkTicketString(ticketString);
+		return add(ticketString, "delete",
+				TicketAdminInp.instanceForDelete(ticketString));
+	}
+
+	/**
+	 * @return <code>List</code> of the {@link TicketAdminInp} packing
+	 *         instructions of the changes, in order
+	 */
+	public List<TicketAdminInp> getTicketAdminInps() {
+		return Collections.unmodifiableList(ticketAdminInps);
+	}
+
+	/**
+	 * @return <code>List</code> of the ticket string of each change, in order
+	 */
+	public List<String> getTicketStrings() {
+		return Collections.unmodifiableList(ticketStrings);
+	}
+
+	/**
+	 * @return <code>List</code> of a description of each change, in order
+	 */
+	public List<String> getOperations() {
+		return Collections.unmodifiableList(operations);
+	}
+
+	/**
+	 * @return <code>int</code> with the number of changes
+	 */
+	public int size() {
+		return ticketAdminInps.size();
+	}
+
+	/**
+	 * @return <code>boolean</code> that is <code>true</code> if there are no
+	 *         changes
+	 */
+	public boolean isEmpty() {
+		return ticketAdminInps.isEmpty();
+	}
+
+	private TicketUpdateBatch addRestriction(final String ticketString,
+			final TicketModifyAddOrRemoveTypeEnum type, final String value) {
+		checkTicketString(ticketString);
+		checkRestrictionValue(value);
+		return add(ticketString, "add " + type.getTextValue() + " " + value,
+				TicketAdminInp.instanceForModifyAddAccess(ticketString, type,
+						value));
+	}
+
+	private TicketUpdateBatch removeRestriction(final String ticketString,
+			final TicketModifyAddOrRemoveTypeEnum type, final String value) {
+		checkTicketString(ticketString);
+		checkRestrictionValue(value);
+		return add(ticketString,
+				"remove " + type.getTextValue() + " " + value,
+				TicketAdminInp.instanceForModifyRemoveAccess(ticketString,
+						type, value));
+	}
+
+	private TicketUpdateBatch add(final String ticketString,
+			final String operation, final TicketAdminInp ticketAdminInp) {
+		ticketAdminInps.add(ticketAdminInp);
+		ticketStrings.add(ticketString);
+		operations.add(operation);
+		return this;
+	}
+
+	private void checkTicketString(final String ticketString) {
+		if (ticketString == null || ticketString.isEmpty()) {
+			throw new IllegalArgumentException(
+					"cannot modify ticket with null or empty ticketId");
+		}
+	}
+
+	private void checkRestrictionValue(final String value) {
+		if (value == null || value.isEmpty()) {
+			throw new IllegalArgumentException(
+					"cannot modify ticket with null or empty user, group, or host");
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("TicketUpdateBatch");
+		for (int i = 0; i < operations.size(); i++) {
+			sb.append("\n   ");
+			sb.append(ticketStrings.get(i));
+			sb.append(":");
+			sb.append(operations.get(i));
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,93 @@
+package org.irods.jargon.ticket;
+
+/**
+ * The outcome of one change in a {@link TicketUpdateBatch}
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class TicketUpdateResponse {
+
+	public enum ResultStatus {
+		OK, TICKET_INVALID, OTHER_ERROR
+	}
+
+	private final ResultStatus resultStatus;
+	private final String ticketString;
+	private final String operation;
+	private final String message;
+
+	/**
+	 * Create a response
+	 *
+	 * @param resultStatus
+	 *            {@link ResultStatus} of the change
+	 * @param ticketString
+	 *            <code>String</code> with the ticket string that was changed
+	 * @param operation
+	 *            <code>String</code> describing the change
+	 * @param message
+	 *            <code>String</code> describing an error, blank if none
+	 * @return {@link TicketUpdateResponse}
+	 */
+	public static TicketUpdateResponse instance(
+			final ResultStatus resultStatus, final String ticketString,
+			final String operation, final String message) {
+		return new TicketUpdateResponse(resultStatus, ticketString, operation,
+				message);
+	}
+
+	private TicketUpdateResponse(final ResultStatus resultStatus,
+			final String ticketString, final String operation,
+			final String message) {
+
+		if (resultStatus == null) {
+			throw new IllegalArgumentException("null resultStatus");
+		}
+
+		if (ticketString == null || ticketString.isEmpty()) {
+			throw new IllegalArgumentException("null or empty ticketString");
+		}
+
+		if (operation == null) {
+			throw new IllegalArgumentException("null operation");
+		}
+
+		this.resultStatus = resultStatus;
+		this.ticketString = ticketString;
+		this.operation = operation;
+		this.message = message == null ? "" : message;
+	}
+
+	public ResultStatus getResultStatus() {
+		return resultStatus;
+	}
+
+	public String getTicketString() {
+		return ticketString;
+	}
+
+	public String getOperation() {
+		return operation;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("TicketUpdateResponse");
+		sb.append("\n   resultStatus:");
+		sb.append(resultStatus);
+		sb.append("\n   ticketString:");
+		sb.append(ticketString);
+		sb.append("\n   operation:");
+		sb.append(operation);
+		sb.append("\n   message:");
+		sb.append(message);
+		return sb.toString();
+	}
+
+}
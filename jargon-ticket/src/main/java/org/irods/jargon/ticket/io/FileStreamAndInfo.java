@@ -4,13 +4,12 @@ import java.io.InputStream;
 
 /**
  * Value object holds an
- * <code>InputStream<code> as a result of a ticket based 'get' of a file, where a stream of the file data is desired.  Note
- * that currently only 'get' and 'put' are supported via tickets, so mid-tier applications that wish to stream data back to the client need to do an 
- * intermediate get to the mid-tier platform and then stream from this location.
+ * <code>InputStream<code> as a result of a ticket based 'get' of a file, where a stream of the file data is desired.
  * <p/>
  * Tickets are limited in what they can access, so various operations that refer to the iCAT, such as obtaining the length, or differentiating between
- * a file and a collection, cannot be done in the typical way.  As a work-around, this object holds the lenght of the cached file so that it may be 
- * sent in browser responses.
+ * a file and a collection, cannot be done in the typical way.  As a work-around, this object holds the length of the data to be streamed so that it may be
+ * sent in browser responses.  When only a range of the data is streamed, the offset of the range and the total length of the data are also held, so that a
+ * partial content response may be sent.
  * 
  * @author Mike Conway - DICE (www.irods.org)
  * 
@@ -18,36 +17,66 @@ import java.io.InputStream;
 public class FileStreamAndInfo {
 	private final InputStream inputStream;
 	private final long length;
+	private final long offset;
+	private final long totalLength;
 
 	/**
 	 * Constructor with an input stream and length of the data to be streamed
 	 * 
 	 * @param inputStream
-	 *            {@link CleanUpWhenClosedInputStream} is returned as the
-	 *            underlying stream object. This is a subclass of
-	 *            <code>InputStream</code> that gets rid of the cached file on
-	 *            close. Note that, when obtained through the ticket services,
-	 *            this stream is already buffered
+	 *            <code>InputStream</code> with the data. Note that, when
+	 *            obtained through the ticket services, this stream is already
+	 *            buffered
 	 * @param length
 	 *            <code>long</code> with the length of data to be streamed
 	 */
 	public FileStreamAndInfo(final InputStream inputStream, final long length) {
+		this(inputStream, length, 0L, length);
+	}
+
+	/**
+	 * Constructor with an input stream over a range of the data
+	 * 
+	 * @param inputStream
+	 *            <code>InputStream</code> with the data of the range. Note
+	 *            that, when obtained through the ticket services, this stream
+	 *            is already buffered
+	 * @param length
+	 *            <code>long</code> with the length of data to be streamed
+	 * @param offset
+	 *            <code>long</code> with the offset in the data where the
+	 *            stream starts
+	 * @param totalLength
+	 *            <code>long</code> with the length of all of the data
+	 */
+	public FileStreamAndInfo(final InputStream inputStream, final long length,
+			final long offset, final long totalLength) {
 
 		if (inputStream == null) {
 			throw new IllegalArgumentException("null inputStream");
 		}
 
-		if (length <= 0) {
-			throw new IllegalArgumentException("length must be > 0");
+		if (length < 0) {
+			throw new IllegalArgumentException("length must be >= 0");
+		}
+
+		if (offset < 0) {
+			throw new IllegalArgumentException("offset must be >= 0");
+		}
+
+		if (offset + length > totalLength) {
+			throw new IllegalArgumentException(
+					"offset and length are past the totalLength");
 		}
 
 		this.inputStream = inputStream;
 		this.length = length;
+		this.offset = offset;
+		this.totalLength = totalLength;
 	}
 
 	/**
-	 * @return the inputStream that is pre-buffered, and will delete the
-	 *         underlying cache file when closed
+	 * @return the inputStream that is pre-buffered
 	 */
 	public InputStream getInputStream() {
 		return inputStream;
@@ -60,4 +89,25 @@ public class FileStreamAndInfo {
 		return length;
 	}
 
+	/**
+	 * @return the offset in the data where the stream starts
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	/**
+	 * @return the length of all of the data, of which the stream may be a range
+	 */
+	public long getTotalLength() {
+		return totalLength;
+	}
+
+	/**
+	 * @return <code>true</code> if the stream holds only a range of the data
+	 */
+	public boolean isPartial() {
+		return length < totalLength;
+	}
+
 }
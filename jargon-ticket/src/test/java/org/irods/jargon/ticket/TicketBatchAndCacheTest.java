@@ -0,0 +1,399 @@
+package org.irods.jargon.ticket;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.DataNotFoundException;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.GenQueryInp;
+import org.irods.jargon.core.protovalues.ErrorEnum;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServer;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerRule;
+import org.irods.jargon.ticket.packinstr.TicketCreateModeEnum;
+import org.irods.jargon.ticket.packinstr.TicketInp;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class TicketBatchAndCacheTest {
+
+	/**
+	 * Cache with a clock the test moves
+	 */
+	private static class ClockedTicketCache extends TicketCache {
+		private long now = 1000L;
+
+		ClockedTicketCache(final long timeToLiveMillis) {
+			super(DEFAULT_MAX_TICKETS, timeToLiveMillis);
+		}
+
+		@Override
+		protected long currentTimeMillis() {
+			return now;
+		}
+	}
+
+	@Rule
+	public EmbeddedIRODSServerRule serverRule = new EmbeddedIRODSServerRule();
+
+	private EmbeddedIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSAccount irodsAccount;
+	private TicketAdminService uncachedService;
+	private IRODSFile dataFile;
+
+	@Before
+	public void setUp() throws Exception {
+		server = serverRule.getServer();
+		irodsFileSystem = serverRule.getIrodsFileSystem();
+		irodsAccount = serverRule.getIrodsAccount();
+		uncachedService = new TicketServiceFactoryImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory())
+				.instanceTicketAdminService(irodsAccount);
+
+		String path = server.getHomeDirectory("test1") + "/shared.dat";
+		server.getCatalog().putDataObject(path, "shared".getBytes());
+		dataFile = irodsFileSystem.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFile(path);
+	}
+
+	private TicketAdminService cachedService(final TicketCache ticketCache)
+			throws Exception {
+		return new TicketServiceFactoryImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory(), ticketCache)
+				.instanceTicketAdminService(irodsAccount);
+	}
+
+	private long ticketCalls() {
+		return server.getApiCallCount(TicketInp.TICKET_ADMIN_INP_API_NBR);
+	}
+
+	private long queries() {
+		return server.getApiCallCount(GenQueryInp.API_NBR);
+	}
+
+	@Test
+	public void testUpdateTicketsInBatch() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			uncachedService.createTicket(TicketCreateModeEnum.READ, dataFile,
+					"batch" + i);
+		}
+		Calendar calendar = Calendar.getInstance();
+		calendar.add(Calendar.DAY_OF_MONTH, 2);
+		Date expiry = calendar.getTime();
+
+		TicketUpdateBatch batch = TicketUpdateBatch.instance();
+		for (int i = 0; i < 3; i++) {
+			batch.setUsesLimit("batch" + i, 10 + i)
+					.setFileWriteLimit("batch" + i, 20 + i)
+					.setByteWriteLimit("batch" + i, 3000L + i)
+					.setExpiration("batch" + i, expiry)
+					.addUserRestriction("batch" + i, "test2");
+		}
+		batch.setUsesLimit("nosuchticket", 5);
+
+		long calls = ticketCalls();
+		List<TicketUpdateResponse> responses = uncachedService
+				.updateTicketsInBatch(batch);
+
+		Assert.assertEquals(16, responses.size());
+		Assert.assertEquals(calls + 16, ticketCalls());
+		for (int i = 0; i < 15; i++) {
+			Assert.assertEquals(TicketUpdateResponse.ResultStatus.OK,
+					responses.get(i).getResultStatus());
+		}
+		TicketUpdateResponse invalid = responses.get(15);
+		Assert.assertEquals(
+				TicketUpdateResponse.ResultStatus.TICKET_INVALID,
+				invalid.getResultStatus());
+		Assert.assertEquals("nosuchticket", invalid.getTicketString());
+		Assert.assertEquals("uses 5", invalid.getOperation());
+
+		for (int i = 0; i < 3; i++) {
+			Ticket ticket = uncachedService
+					.getTicketForSpecifiedTicketString("batch" + i);
+			Assert.assertEquals(10 + i, ticket.getUsesLimit());
+			Assert.assertEquals(20 + i, ticket.getWriteFileLimit());
+			Assert.assertEquals(3000L + i, ticket.getWriteByteLimit());
+			Assert.assertEquals(expiry.getTime() / 1000L, ticket
+					.getExpireTime().getTime() / 1000L);
+			List<String> users = uncachedService
+					.listAllUserRestrictionsForSpecifiedTicket("batch" + i, 0);
+			Assert.assertEquals(1, users.size());
+			Assert.assertEquals("test2", users.get(0));
+		}
+	}
+
+	@Test
+	public void testBatchDeletesTickets() throws Exception {
+		uncachedService.createTicket(TicketCreateModeEnum.READ, dataFile,
+				"delete1");
+		uncachedService.createTicket(TicketCreateModeEnum.READ, dataFile,
+				"delete2");
+		List<TicketUpdateResponse> responses = uncachedService
+				.updateTicketsInBatch(TicketUpdateBatch.instance()
+						.deleteTicket("delete1").deleteTicket("delete2"));
+		Assert.assertEquals(2, responses.size());
+		Assert.assertEquals(0, server.getCatalog().getTicketCount());
+	}
+
+	@Test
+	public void testEmptyBatch() throws Exception {
+		long calls = ticketCalls();
+		Assert.assertTrue(uncachedService.updateTicketsInBatch(
+				TicketUpdateBatch.instance()).isEmpty());
+		Assert.assertEquals(calls, ticketCalls());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBatchNegativeUsesLimit() throws Exception {
+		TicketUpdateBatch.instance().setUsesLimit("ticket", -1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBatchBlankUser() throws Exception {
+		TicketUpdateBatch.instance().addUserRestriction("ticket", "");
+	}
+
+	@Test
+	public void testCreateTicketFromTicketObjectSetsLimits() throws Exception {
+		Ticket ticket = new Ticket();
+		ticket.setType(TicketCreateModeEnum.WRITE);
+		ticket.setIrodsAbsolutePath(dataFile.getAbsolutePath());
+		ticket.setTicketString("withlimits");
+		ticket.setUsesLimit(4);
+		ticket.setWriteFileLimit(5);
+		ticket.setWriteByteLimit(600L);
+
+		long calls = ticketCalls();
+		uncachedService.createTicketFromTicketObject(ticket);
+		// the create, and the limits in one batch
+		Assert.assertEquals(calls + 4, ticketCalls());
+
+		Ticket actual = uncachedService
+				.getTicketForSpecifiedTicketString("withlimits");
+		Assert.assertEquals(4, actual.getUsesLimit());
+		Assert.assertEquals(5, actual.getWriteFileLimit());
+		Assert.assertEquals(600L, actual.getWriteByteLimit());
+	}
+
+	@Test
+	public void testCompareGivenTicketToActualAndUpdateAsNeeded()
+			throws Exception {
+		TicketCache ticketCache = new TicketCache();
+		TicketAdminService service = cachedService(ticketCache);
+		service.createTicket(TicketCreateModeEnum.READ, dataFile, "compare");
+		Ticket desired = service.getTicketForSpecifiedTicketString("compare");
+		desired.setUsesLimit(7);
+		desired.setWriteByteLimit(800L);
+
+		Ticket updated = service
+				.compareGivenTicketToActualAndUpdateAsNeeded(desired);
+		Assert.assertEquals(7, updated.getUsesLimit());
+		Assert.assertEquals(800L, updated.getWriteByteLimit());
+		Assert.assertEquals(7, uncachedService
+				.getTicketForSpecifiedTicketString("compare").getUsesLimit());
+
+		long calls = ticketCalls();
+		service.compareGivenTicketToActualAndUpdateAsNeeded(updated);
+		Assert.assertEquals(calls, ticketCalls());
+	}
+
+	@Test
+	public void testCompareAndUpdateFailedChangeThrows() throws Exception {
+		uncachedService.createTicket(TicketCreateModeEnum.READ, dataFile,
+				"failedchange");
+		Ticket desired = uncachedService
+				.getTicketForSpecifiedTicketString("failedchange");
+		desired.setUsesLimit(7);
+		desired.setWriteByteLimit(800L);
+		server.getFaultInjector().failApi(TicketInp.TICKET_ADMIN_INP_API_NBR,
+				ErrorEnum.SYS_INTERNAL_NULL_INPUT_ERR.getInt(), 1);
+
+		try {
+			uncachedService.compareGivenTicketToActualAndUpdateAsNeeded(desired);
+			Assert.fail("failed change should throw");
+		} catch (DataNotFoundException e) {
+			Assert.fail("not a missing ticket");
+		} catch (JargonException e) {
+			// expected
+		}
+	}
+
+	@Test(expected = DataNotFoundException.class)
+	public void testCompareAndUpdateInvalidTicketThrows() throws Exception {
+		uncachedService.createTicket(TicketCreateModeEnum.READ, dataFile,
+				"invalidchange");
+		Ticket desired = uncachedService
+				.getTicketForSpecifiedTicketString("invalidchange");
+		desired.setUsesLimit(7);
+		server.getFaultInjector().failApi(TicketInp.TICKET_ADMIN_INP_API_NBR,
+				ErrorEnum.CAT_TICKET_INVALID.getInt(), 1);
+
+		uncachedService.compareGivenTicketToActualAndUpdateAsNeeded(desired);
+	}
+
+	@Test
+	public void testCachedLookupsDoNotQuery() throws Exception {
+		TicketCache ticketCache = new TicketCache();
+		TicketAdminService service = cachedService(ticketCache);
+		service.createTicket(TicketCreateModeEnum.READ, dataFile, "cached");
+
+		Ticket first = service.getTicketForSpecifiedTicketString("cached");
+		long queries = queries();
+		Ticket second = service.getTicketForSpecifiedTicketString("cached");
+		Assert.assertTrue(service.isTicketInUse("cached"));
+		Assert.assertEquals(queries, queries());
+		Assert.assertEquals(first.getTicketId(), second.getTicketId());
+		Assert.assertEquals(dataFile.getAbsolutePath(),
+				second.getIrodsAbsolutePath());
+		Assert.assertEquals(2L, ticketCache.getHitCount());
+
+		// the caller gets a copy
+		second.setUsesLimit(99);
+		Assert.assertEquals(0, service.getTicketForSpecifiedTicketString(
+				"cached").getUsesLimit());
+	}
+
+	@Test
+	public void testOwnWritesInvalidate() throws Exception {
+		TicketCache ticketCache = new TicketCache();
+		TicketAdminService service = cachedService(ticketCache);
+
+		Assert.assertFalse(service.isTicketInUse("invalidated"));
+		service.createTicket(TicketCreateModeEnum.READ, dataFile,
+				"invalidated");
+		Assert.assertTrue(service.isTicketInUse("invalidated"));
+
+		service.getTicketForSpecifiedTicketString("invalidated");
+		service.setTicketUsesLimit("invalidated", 3);
+		Assert.assertEquals(3, service.getTicketForSpecifiedTicketString(
+				"invalidated").getUsesLimit());
+
+		Assert.assertTrue(service.listAllHostRestrictionsForSpecifiedTicket(
+				"invalidated", 0).isEmpty());
+		service.updateTicketsInBatch(TicketUpdateBatch.instance()
+				.addHostRestriction("invalidated", "localhost"));
+		Assert.assertEquals(1, service
+				.listAllHostRestrictionsForSpecifiedTicket("invalidated", 0)
+				.size());
+
+		service.deleteTicket("invalidated");
+		Assert.assertFalse(service.isTicketInUse("invalidated"));
+	}
+
+	@Test
+	public void testFailedChangeInvalidates() throws Exception {
+		TicketCache ticketCache = new TicketCache();
+		TicketAdminService service = cachedService(ticketCache);
+		service.createTicket(TicketCreateModeEnum.READ, dataFile,
+				"failedChange");
+		service.listAllHostRestrictionsForSpecifiedTicket("failedChange", 0);
+		server.getFaultInjector().failApi(TicketInp.TICKET_ADMIN_INP_API_NBR,
+				ErrorEnum.SYS_INTERNAL_NULL_INPUT_ERR.getInt(), 1);
+
+		try {
+			service.addTicketHostRestriction("failedChange", "localhost");
+			Assert.fail("change should fail");
+		} catch (JargonException e) {
+			// expected
+		}
+
+		// the outcome of a failed change is not known, so it is read again
+		long queries = queries();
+		service.listAllHostRestrictionsForSpecifiedTicket("failedChange", 0);
+		Assert.assertTrue(queries() > queries);
+	}
+
+	@Test
+	public void testCacheSharedByServicesOfFactory() throws Exception {
+		TicketCache ticketCache = new TicketCache();
+		TicketAdminService reader = cachedService(ticketCache);
+		TicketAdminService writer = cachedService(ticketCache);
+		writer.createTicket(TicketCreateModeEnum.READ, dataFile, "shared");
+
+		Assert.assertEquals(0,
+				reader.getTicketForSpecifiedTicketString("shared")
+						.getUsesLimit());
+		writer.setTicketUsesLimit("shared", 8);
+		Assert.assertEquals(8,
+				reader.getTicketForSpecifiedTicketString("shared")
+						.getUsesLimit());
+	}
+
+	@Test
+	public void testRestrictionsCached() throws Exception {
+		TicketCache ticketCache = new TicketCache();
+		TicketAdminService service = cachedService(ticketCache);
+		service.createTicket(TicketCreateModeEnum.READ, dataFile, "restrict");
+		service.addTicketUserRestriction("restrict", "test2");
+
+		Assert.assertEquals(1, service
+				.listAllUserRestrictionsForSpecifiedTicket("restrict", 0)
+				.size());
+		long queries = queries();
+		Assert.assertEquals("test2", service
+				.listAllUserRestrictionsForSpecifiedTicket("restrict", 0)
+				.get(0));
+		Assert.assertTrue(service.listAllGroupRestrictionsForSpecifiedTicket(
+				"restrict", 0).isEmpty());
+		// the group restrictions were not cached yet
+		Assert.assertEquals(queries + 1, queries());
+	}
+
+	@Test
+	public void testCacheExpires() throws Exception {
+		ClockedTicketCache ticketCache = new ClockedTicketCache(100L);
+		Ticket ticket = new Ticket();
+		ticket.setTicketString("expiring");
+		ticketCache.putTicket(irodsAccount, ticket);
+
+		ticketCache.now += 99L;
+		Assert.assertNotNull(ticketCache.getTicket(irodsAccount, "expiring"));
+		Assert.assertEquals(Boolean.TRUE,
+				ticketCache.getTicketInUse(irodsAccount, "expiring"));
+		ticketCache.now += 1L;
+		Assert.assertNull(ticketCache.getTicket(irodsAccount, "expiring"));
+		Assert.assertEquals(0, ticketCache.getTicketCount());
+	}
+
+	@Test
+	public void testCacheKeptPerAccount() throws Exception {
+		TicketCache ticketCache = new TicketCache();
+		Ticket ticket = new Ticket();
+		ticket.setTicketString("peraccount");
+		ticketCache.putTicket(irodsAccount, ticket);
+
+		IRODSAccount otherAccount = IRODSAccount.instance(
+				irodsAccount.getHost(), irodsAccount.getPort(), "test2",
+				"test", "", irodsAccount.getZone(), "");
+		Assert.assertNull(ticketCache.getTicket(otherAccount, "peraccount"));
+		ticketCache.putTicketInUse(otherAccount, "peraccount", true);
+
+		ticketCache.invalidate("peraccount");
+		Assert.assertNull(ticketCache.getTicket(irodsAccount, "peraccount"));
+		Assert.assertNull(ticketCache.getTicketInUse(otherAccount,
+				"peraccount"));
+	}
+
+	@Test
+	public void testCacheDropsLeastRecentlyUsed() throws Exception {
+		TicketCache ticketCache = new TicketCache(2, 60000L);
+		for (String ticketString : new String[] { "a", "b" }) {
+			ticketCache.putTicketInUse(irodsAccount, ticketString, true);
+		}
+		ticketCache.getTicketInUse(irodsAccount, "a");
+		ticketCache.putTicketInUse(irodsAccount, "c", true);
+
+		Assert.assertNotNull(ticketCache.getTicketInUse(irodsAccount, "a"));
+		Assert.assertNull(ticketCache.getTicketInUse(irodsAccount, "b"));
+		Assert.assertNotNull(ticketCache.getTicketInUse(irodsAccount, "c"));
+	}
+
+}
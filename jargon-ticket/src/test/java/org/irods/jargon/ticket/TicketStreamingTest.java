@@ -0,0 +1,213 @@
+package org.irods.jargon.ticket;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.DataNotFoundException;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.exception.OverwriteException;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.pub.io.IRODSFile;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServer;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerRule;
+import org.irods.jargon.ticket.io.FileStreamAndInfo;
+import org.irods.jargon.ticket.packinstr.TicketInp;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class TicketStreamingTest {
+
+	private static final String TICKET = "ticket123";
+
+	@Rule
+	public EmbeddedIRODSServerRule serverRule = new EmbeddedIRODSServerRule();
+
+	private EmbeddedIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSAccount irodsAccount;
+	private TicketClientOperations ticketClientOperations;
+	private byte[] content;
+	private String path;
+
+	@Before
+	public void setUp() throws Exception {
+		server = serverRule.getServer();
+		irodsFileSystem = serverRule.getIrodsFileSystem();
+		irodsAccount = serverRule.getIrodsAccount();
+		ticketClientOperations = new TicketClientOperationsImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory(), irodsAccount);
+
+		content = new byte[100000];
+		new Random(42).nextBytes(content);
+		path = server.getHomeDirectory("test1") + "/streamed.dat";
+		server.getCatalog().putDataObject(path, content);
+	}
+
+	private IRODSFile irodsFile(final String absolutePath) throws Exception {
+		return irodsFileSystem.getIRODSFileFactory(irodsAccount)
+				.instanceIRODSFile(absolutePath);
+	}
+
+	private static byte[] readAll(final InputStream inputStream)
+			throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int count;
+		try {
+			while ((count = inputStream.read(buffer)) != -1) {
+				out.write(buffer, 0, count);
+			}
+		} finally {
+			inputStream.close();
+		}
+		return out.toByteArray();
+	}
+
+	@Test
+	public void testStreamDataObjectBack() throws Exception {
+		FileStreamAndInfo fileStreamAndInfo = ticketClientOperations
+				.redeemTicketAndStreamDataObjectBack(TICKET, irodsFile(path));
+
+		Assert.assertEquals(content.length, fileStreamAndInfo.getLength());
+		Assert.assertEquals(content.length, fileStreamAndInfo.getTotalLength());
+		Assert.assertFalse(fileStreamAndInfo.isPartial());
+		Assert.assertTrue(Arrays.equals(content,
+				readAll(fileStreamAndInfo.getInputStream())));
+		Assert.assertEquals(1L,
+				server.getApiCallCount(TicketInp.TICKET_ADMIN_INP_API_NBR));
+	}
+
+	@Test
+	public void testStreamRangeBack() throws Exception {
+		FileStreamAndInfo fileStreamAndInfo = ticketClientOperations
+				.redeemTicketAndStreamDataObjectBack(TICKET, irodsFile(path),
+						1000L, 500L);
+
+		Assert.assertEquals(500L, fileStreamAndInfo.getLength());
+		Assert.assertEquals(1000L, fileStreamAndInfo.getOffset());
+		Assert.assertEquals(content.length, fileStreamAndInfo.getTotalLength());
+		Assert.assertTrue(fileStreamAndInfo.isPartial());
+		Assert.assertTrue(Arrays.equals(
+				Arrays.copyOfRange(content, 1000, 1500),
+				readAll(fileStreamAndInfo.getInputStream())));
+	}
+
+	@Test
+	public void testStreamRangePastEndIsCut() throws Exception {
+		FileStreamAndInfo fileStreamAndInfo = ticketClientOperations
+				.redeemTicketAndStreamDataObjectBack(TICKET, irodsFile(path),
+						99000L, 5000L);
+
+		Assert.assertEquals(1000L, fileStreamAndInfo.getLength());
+		Assert.assertTrue(Arrays.equals(
+				Arrays.copyOfRange(content, 99000, content.length),
+				readAll(fileStreamAndInfo.getInputStream())));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testStreamRangeOffsetPastEnd() throws Exception {
+		ticketClientOperations.redeemTicketAndStreamDataObjectBack(TICKET,
+				irodsFile(path), content.length, -1L);
+	}
+
+	@Test(expected = DataNotFoundException.class)
+	public void testStreamMissingDataObject() throws Exception {
+		ticketClientOperations.redeemTicketAndStreamDataObjectBack(TICKET,
+				irodsFile(path + ".missing"));
+	}
+
+	@Test(expected = JargonException.class)
+	public void testStreamCollection() throws Exception {
+		ticketClientOperations.redeemTicketAndStreamDataObjectBack(TICKET,
+				irodsFile(server.getHomeDirectory("test1")));
+	}
+
+	@Test
+	public void testDeprecatedGetDoesNotUseCache() throws Exception {
+		File cacheDirectory = new File(System.getProperty("java.io.tmpdir"),
+				"TicketStreamingTest" + System.nanoTime());
+		cacheDirectory.mkdirs();
+		try {
+			FileStreamAndInfo fileStreamAndInfo = ticketClientOperations
+					.redeemTicketGetDataObjectAndStreamBack(TICKET,
+							irodsFile(path), cacheDirectory);
+			Assert.assertEquals(0, cacheDirectory.listFiles().length);
+			Assert.assertTrue(Arrays.equals(content,
+					readAll(fileStreamAndInfo.getInputStream())));
+		} finally {
+			cacheDirectory.delete();
+		}
+	}
+
+	@Test
+	public void testStreamToIRODSCollection() throws Exception {
+		final boolean[] closed = new boolean[1];
+		InputStream inputStream = new ByteArrayInputStream(content) {
+			@Override
+			public void close() throws IOException {
+				closed[0] = true;
+				super.close();
+			}
+		};
+
+		ticketClientOperations.redeemTicketAndStreamToIRODSCollection(TICKET,
+				server.getHomeDirectory("test1"), "uploaded.dat", inputStream);
+
+		Assert.assertTrue(Arrays.equals(content, server.getCatalog()
+				.getDataObjectContent(
+						server.getHomeDirectory("test1") + "/uploaded.dat")));
+		Assert.assertTrue(closed[0]);
+		Assert.assertEquals(1L,
+				server.getApiCallCount(TicketInp.TICKET_ADMIN_INP_API_NBR));
+	}
+
+	@Test
+	public void testStreamToIRODSCollectionFailureRemovesPartial()
+			throws Exception {
+		String target = server.getHomeDirectory("test1") + "/partial.dat";
+		// fails once part of the content has been read
+		InputStream failingStream = new ByteArrayInputStream(content) {
+			@Override
+			public int read(final byte[] b) throws IOException {
+				if (pos > content.length / 2) {
+					throw new IOException("client went away");
+				}
+				return super.read(b);
+			}
+		};
+
+		try {
+			ticketClientOperations.redeemTicketAndStreamToIRODSCollection(
+					TICKET, server.getHomeDirectory("test1"), "partial.dat",
+					failingStream);
+			Assert.fail("failed upload should throw");
+		} catch (JargonException e) {
+			// expected
+		}
+		Assert.assertFalse(server.getCatalog().exists(target));
+
+		// a retry is not refused as an overwrite
+		ticketClientOperations.redeemTicketAndStreamToIRODSCollection(TICKET,
+				server.getHomeDirectory("test1"), "partial.dat",
+				new ByteArrayInputStream(content));
+		Assert.assertTrue(Arrays.equals(content, server.getCatalog()
+				.getDataObjectContent(target)));
+	}
+
+	@Test(expected = OverwriteException.class)
+	public void testStreamToIRODSCollectionOverwrite() throws Exception {
+		ticketClientOperations.redeemTicketAndStreamToIRODSCollection(TICKET,
+				server.getHomeDirectory("test1"), "streamed.dat",
+				new ByteArrayInputStream(content));
+	}
+
+}
@@ -0,0 +1,286 @@
+package org.irods.jargon.userprofile;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Time to live cache of user profiles, so that profiles shown again and again,
+ * such as on a directory page, are not queried from iRODS each time. A cache
+ * may be shared by any number of {@link UserProfileServiceImpl} instances, and
+ * a profile is removed when it is added, updated or removed through any of
+ * them.
+ * <p/>
+ * Profiles are kept per viewing account, as what a viewer may see depends on
+ * ACL's. A profile read by
+ * {@link UserProfileService#retrieveUserProfiles(java.util.List)} holds only
+ * the public fields, and the protected fields are read when the profile is
+ * next asked for with {@link UserProfileService#retrieveUserProfile(String)}.
+ * Changes made by other clients are seen once the cached profile expires. The
+ * least recently used profiles are dropped when the cache is full.
+ * <p/>
+ * This class is thread safe.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class UserProfileCache {
+
+	public static final Logger log = LoggerFactory
+			.getLogger(UserProfileCache.class);
+
+	public static final long DEFAULT_TIME_TO_LIVE_MILLIS = 300000L;
+	public static final int DEFAULT_MAX_PROFILES = 10000;
+
+	private final long timeToLiveMillis;
+	private final LinkedHashMap<String, CachedProfile> profiles;
+	private long hitCount = 0L;
+	private long missCount = 0L;
+
+	/**
+	 * Create a cache with the default time to live and size
+	 */
+	public UserProfileCache() {
+		this(DEFAULT_MAX_PROFILES, DEFAULT_TIME_TO_LIVE_MILLIS);
+	}
+
+	/**
+	 * Create a cache
+	 *
+	 * @param maxProfiles
+	 *            <code>int</code> with the most profiles held
+	 * @param timeToLiveMillis
+	 *            <code>long</code> with the time in milliseconds a cached
+	 *            profile is used for
+	 */
+	public UserProfileCache(final int maxProfiles, final long timeToLiveMillis) {
+		if (maxProfiles <= 0) {
+			throw new IllegalArgumentException("maxProfiles must be > 0");
+		}
+
+		if (timeToLiveMillis <= 0) {
+			throw new IllegalArgumentException("timeToLiveMillis must be > 0");
+		}
+
+		this.timeToLiveMillis = timeToLiveMillis;
+		profiles = new LinkedHashMap<String, CachedProfile>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					final Map.Entry<String, CachedProfile> eldest) {
+				return size() > maxProfiles;
+			}
+		};
+	}
+
+	/**
+	 * Get a cached profile
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} of the viewer
+	 * @param userName
+	 *            <code>String</code> with the user whose profile is wanted
+	 * @param protectedFieldsRequired
+	 *            <code>boolean</code> that is <code>true</code> if a profile
+	 *            held with only its public fields should be treated as missing
+	 * @return {@link UserProfile} that is a copy of the cached profile, or
+	 *         <code>null</code> if none is cached
+	 */
+	public synchronized UserProfile getUserProfile(
+			final IRODSAccount irodsAccount, final String userName,
+			final boolean protectedFieldsRequired) {
+		String profileKey = profileKey(irodsAccount, userName);
+		CachedProfile cachedProfile = profiles.get(profileKey);
+		if (cachedProfile != null
+				&& cachedProfile.expiresAt <= currentTimeMillis()) {
+			profiles.remove(profileKey);
+			cachedProfile = null;
+		}
+		if (cachedProfile == null
+				|| (protectedFieldsRequired && !cachedProfile.protectedFieldsIncluded)) {
+			missCount++;
+			return null;
+		}
+		hitCount++;
+		return copyUserProfile(cachedProfile.userProfile);
+	}
+
+	/**
+	 * Cache a profile
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} of the viewer
+	 * @param userProfile
+	 *            {@link UserProfile} as found in iRODS, which is copied
+	 * @param protectedFieldsIncluded
+	 *            <code>boolean</code> that is <code>true</code> if the
+	 *            protected fields were read
+	 */
+	public synchronized void putUserProfile(final IRODSAccount irodsAccount,
+			final UserProfile userProfile,
+			final boolean protectedFieldsIncluded) {
+		if (userProfile == null) {
+			throw new IllegalArgumentException("null userProfile");
+		}
+		profiles.put(profileKey(irodsAccount, userProfile.getUserName()),
+				new CachedProfile(userKey(irodsAccount,
+						userProfile.getUserName()),
+						copyUserProfile(userProfile), protectedFieldsIncluded,
+						currentTimeMillis() + timeToLiveMillis));
+	}
+
+	/**
+	 * Remove the cached profile of a user, as seen by every viewer of the same
+	 * zone on the same host
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} of any viewer on the host and zone
+	 * @param userName
+	 *            <code>String</code> with the user whose profile changed
+	 */
+	public synchronized void invalidate(final IRODSAccount irodsAccount,
+			final String userName) {
+		String userKey = userKey(irodsAccount, userName);
+		Iterator<CachedProfile> iterator = profiles.values().iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().userKey.equals(userKey)) {
+				iterator.remove();
+			}
+		}
+		log.debug("invalidated profile for:{}", userName);
+	}
+
+	/**
+	 * Remove everything cached
+	 */
+	public synchronized void clear() {
+		profiles.clear();
+	}
+
+	/**
+	 * @return <code>int</code> with the number of profiles held
+	 */
+	public synchronized int getProfileCount() {
+		return profiles.size();
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	public long getTimeToLiveMillis() {
+		return timeToLiveMillis;
+	}
+
+	/**
+	 * The current time, which tests may override
+	 *
+	 * @return <code>long</code> with the time in milliseconds
+	 */
+	protected long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "UserProfileCache [timeToLiveMillis=" + timeToLiveMillis
+				+ ", profiles=" + profiles.size() + ", hitCount=" + hitCount
+				+ ", missCount=" + missCount + "]";
+	}
+
+	/**
+	 * Key of a user in the zone of the account
+	 */
+	private static String userKey(final IRODSAccount irodsAccount,
+			final String userName) {
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+		if (userName == null || userName.isEmpty()) {
+			throw new IllegalArgumentException("null or empty userName");
+		}
+		StringBuilder sb = new StringBuilder();
+		sb.append(userName);
+		sb.append('#');
+		sb.append(irodsAccount.getZone());
+		sb.append('@');
+		sb.append(irodsAccount.getHost());
+		sb.append(':');
+		sb.append(irodsAccount.getPort());
+		return sb.toString();
+	}
+
+	/**
+	 * Key of a user as seen by the viewing account
+	 */
+	private static String profileKey(final IRODSAccount irodsAccount,
+			final String userName) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(userKey(irodsAccount, userName));
+		sb.append('/');
+		sb.append(irodsAccount.getUserName());
+		return sb.toString();
+	}
+
+	/**
+	 * Copy a profile, as it may be changed by the caller
+	 */
+	static UserProfile copyUserProfile(final UserProfile userProfile) {
+		UserProfile copy = new UserProfile();
+		copy.setUserName(userProfile.getUserName());
+		copy.setZone(userProfile.getZone());
+
+		UserProfilePublicFields publicFields = userProfile
+				.getUserProfilePublicFields();
+		UserProfilePublicFields copyPublicFields = copy
+				.getUserProfilePublicFields();
+		copyPublicFields.setDescription(publicFields.getDescription());
+		copyPublicFields.setNickName(publicFields.getNickName());
+		copyPublicFields.setCn(publicFields.getCn());
+		copyPublicFields.setGivenName(publicFields.getGivenName());
+		copyPublicFields.setSn(publicFields.getSn());
+		copyPublicFields.setPostalAddress(publicFields.getPostalAddress());
+		copyPublicFields.setPostalCode(publicFields.getPostalCode());
+		copyPublicFields.setPostOfficeBox(publicFields.getPostOfficeBox());
+		copyPublicFields.setLocalityName(publicFields.getLocalityName());
+		copyPublicFields.setStreet(publicFields.getStreet());
+		copyPublicFields.setJpegPhoto(publicFields.getJpegPhoto());
+		copyPublicFields.setLabeledURL(publicFields.getLabeledURL());
+		copyPublicFields.setSt(publicFields.getSt());
+		copyPublicFields.setTitle(publicFields.getTitle());
+		copyPublicFields.setTelephoneNumber(publicFields
+				.getTelephoneNumber());
+
+		copy.getUserProfileProtectedFields().setMail(
+				userProfile.getUserProfileProtectedFields().getMail());
+		return copy;
+	}
+
+	/**
+	 * The profile of one user as seen by one viewer, until an expiry time
+	 */
+	private static class CachedProfile {
+		private final String userKey;
+		private final UserProfile userProfile;
+		private final boolean protectedFieldsIncluded;
+		private final long expiresAt;
+
+		CachedProfile(final String userKey, final UserProfile userProfile,
+				final boolean protectedFieldsIncluded, final long expiresAt) {
+			this.userKey = userKey;
+			this.userProfile = userProfile;
+			this.protectedFieldsIncluded = protectedFieldsIncluded;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
@@ -1,5 +1,7 @@
 package org.irods.jargon.userprofile;
 
+import java.util.List;
+
 import org.irods.jargon.core.exception.DataNotFoundException;
 import org.irods.jargon.core.exception.DuplicateDataException;
 import org.irods.jargon.core.exception.JargonException;
@@ -74,6 +76,21 @@ public interface UserProfileService {
 	UserProfile retrieveUserProfile(String userName)
 			throws DataNotFoundException, JargonException;
 
+	/**
+	 * Given a list of iRODS user names, retrieve the public part of each
+	 * user profile that exists, such as for a directory of users. The
+	 * protected fields of the returned profiles are left blank.
+	 * 
+	 * @param userNames
+	 *            <code>List</code> of <code>String</code> with the iRODS user
+	 *            names
+	 * @return <code>List</code> of {@link UserProfile} in the order of the
+	 *         given names, leaving out users with no profile
+	 * @throws JargonException
+	 */
+	List<UserProfile> retrieveUserProfiles(List<String> userNames)
+			throws JargonException;
+
 	/**
 	 * Return the calculated path to the user profile directory based on the
 	 * user name and the {@link UserProfileServiceConfiguration} information.
@@ -9,7 +9,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import org.irods.jargon.core.connection.IRODSAccount;
@@ -21,14 +24,21 @@ import org.irods.jargon.core.pub.DataObjectAO;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
 import org.irods.jargon.core.pub.UserGroupAO;
 import org.irods.jargon.core.pub.domain.AvuData;
+import org.irods.jargon.core.pub.domain.ObjStat;
 import org.irods.jargon.core.pub.domain.UserGroup;
 import org.irods.jargon.core.pub.io.IRODSFile;
 import org.irods.jargon.core.query.AVUQueryElement;
 import org.irods.jargon.core.query.AVUQueryElement.AVUQueryPart;
 import org.irods.jargon.core.query.AVUQueryOperatorEnum;
+import org.irods.jargon.core.query.GenQueryBuilderException;
+import org.irods.jargon.core.query.IRODSGenQueryBuilder;
+import org.irods.jargon.core.query.IRODSQueryResultRow;
 import org.irods.jargon.core.query.JargonQueryException;
 import org.irods.jargon.core.query.MetaDataAndDomainData;
+import org.irods.jargon.core.query.QueryConditionOperators;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
 import org.irods.jargon.core.service.AbstractJargonService;
+import org.irods.jargon.core.utils.GenQueryPagingUtils;
 import org.irods.jargon.core.utils.MiscIRODSUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,6 +53,10 @@ import org.slf4j.LoggerFactory;
  * <p/>
  * This scheme is necessary as AVU's are publicly query-able. Having some data
  * in AVU's will help in that they are more easily queried.
+ * <p/>
+ * The public profiles of any number of users are read with one query per
+ * {@link #MAX_USERS_PER_QUERY} users, and may be kept in a
+ * {@link UserProfileCache} given at construction.
  * 
  * @author Mike Conway - DICE (www.irods.org)
  * 
@@ -53,8 +67,166 @@ public class UserProfileServiceImpl extends AbstractJargonService implements
 	public static final Logger log = LoggerFactory
 			.getLogger(UserProfileServiceImpl.class);
 
+	/**
+	 * The most users whose profiles are found in one query
+	 */
+	public static final int MAX_USERS_PER_QUERY = 100;
+
+	/**
+	 * Sets the field of a profile named by a public profile AVU attribute
+	 */
+	private interface ProfileAttributeSetter {
+		void set(UserProfile userProfile, String value);
+	}
+
+	private static final Map<String, ProfileAttributeSetter> PROFILE_ATTRIBUTE_SETTERS = new HashMap<String, ProfileAttributeSetter>();
+
+	static {
+		PROFILE_ATTRIBUTE_SETTERS.put(UserProfileConstants.DESCRIPTION,
+				new ProfileAttributeSetter() {
+					@Override
+					public void set(final UserProfile userProfile,
+							final String value) {
+						userProfile.getUserProfilePublicFields()
+								.setDescription(value);
+					}
+				});
+		PROFILE_ATTRIBUTE_SETTERS.put(UserProfileConstants.NICK_NAME,
+				new ProfileAttributeSetter() {
+					@Override
+					public void set(final UserProfile userProfile,
+							final String value) {
+						userProfile.getUserProfilePublicFields().setNickName(
+								value);
+					}
+				});
+		PROFILE_ATTRIBUTE_SETTERS.put(UserProfileConstants.CN,
+				new ProfileAttributeSetter() {
+					@Override
+					public void set(final UserProfile userProfile,
+							final String value) {
+						userProfile.getUserProfilePublicFields().setCn(value);
+					}
+				});
+		PROFILE_ATTRIBUTE_SETTERS.put(UserProfileConstants.GIVEN_NAME,
+				new ProfileAttributeSetter() {
+					@Override
+					public void set(final UserProfile userProfile,
+							final String value) {
+						userProfile.getUserProfilePublicFields().setGivenName(
+								value);
+					}
+				});
+		PROFILE_ATTRIBUTE_SETTERS.put(UserProfileConstants.SN,
+				new ProfileAttributeSetter() {
+					@Override
+					public void set(final UserProfile userProfile,
+							final String value) {
+						userProfile.getUserProfilePublicFields().setSn(value);
+					}
+				});
+		PROFILE_ATTRIBUTE_SETTERS.put(UserProfileConstants.POSTAL_CODE,
+				new ProfileAttributeSetter() {
+					@Override
+					public void set(final UserProfile userProfile,
+							final String value) {
+						userProfile.getUserProfilePublicFields().setPostalCode(
+								value);
+					}
+				});
+		PROFILE_ATTRIBUTE_SETTERS.put(UserProfileConstants.POSTAL_ADDRESS,
+				new ProfileAttributeSetter() {
+					@Override
+					public void set(final UserProfile userProfile,
+							final String value) {
+						userProfile.getUserProfilePublicFields()
+								.setPostalAddress(value);
+					}
+				});
+		PROFILE_ATTRIBUTE_SETTERS.put(UserProfileConstants.POST_OFFICE_BOX,
+				new ProfileAttributeSetter() {
+					@Override
+					public void set(final UserProfile userProfile,
+							final String value) {
+						userProfile.getUserProfilePublicFields()
+								.setPostOfficeBox(value);
+					}
+				});
+		PROFILE_ATTRIBUTE_SETTERS.put(UserProfileConstants.LOCALITY_NAME,
+				new ProfileAttributeSetter() {
+					@Override
+					public void set(final UserProfile userProfile,
+							final String value) {
+						userProfile.getUserProfilePublicFields()
+								.setLocalityName(value);
+					}
+				});
+		PROFILE_ATTRIBUTE_SETTERS.put(UserProfileConstants.STREET,
+				new ProfileAttributeSetter() {
+					@Override
+					public void set(final UserProfile userProfile,
+							final String value) {
+						userProfile.getUserProfilePublicFields()
+								.setStreet(value);
+					}
+				});
+		PROFILE_ATTRIBUTE_SETTERS.put(UserProfileConstants.STATE,
+				new ProfileAttributeSetter() {
+					@Override
+					public void set(final UserProfile userProfile,
+							final String value) {
+						userProfile.getUserProfilePublicFields().setSt(value);
+					}
+				});
+		PROFILE_ATTRIBUTE_SETTERS.put(UserProfileConstants.JPEG_PHOTO,
+				new ProfileAttributeSetter() {
+					@Override
+					public void set(final UserProfile userProfile,
+							final String value) {
+						userProfile.getUserProfilePublicFields().setJpegPhoto(
+								value);
+					}
+				});
+		PROFILE_ATTRIBUTE_SETTERS.put(UserProfileConstants.LABELED_URL,
+				new ProfileAttributeSetter() {
+					@Override
+					public void set(final UserProfile userProfile,
+							final String value) {
+						userProfile.getUserProfilePublicFields()
+								.setLabeledURL(value);
+					}
+				});
+		PROFILE_ATTRIBUTE_SETTERS.put(UserProfileConstants.TELEPHONE_NUMBER,
+				new ProfileAttributeSetter() {
+					@Override
+					public void set(final UserProfile userProfile,
+							final String value) {
+						userProfile.getUserProfilePublicFields()
+								.setTelephoneNumber(value);
+					}
+				});
+		PROFILE_ATTRIBUTE_SETTERS.put(UserProfileConstants.TITLE,
+				new ProfileAttributeSetter() {
+					@Override
+					public void set(final UserProfile userProfile,
+							final String value) {
+						userProfile.getUserProfilePublicFields()
+								.setTitle(value);
+					}
+				});
+		PROFILE_ATTRIBUTE_SETTERS.put(UserProfileConstants.ZONE,
+				new ProfileAttributeSetter() {
+					@Override
+					public void set(final UserProfile userProfile,
+							final String value) {
+						userProfile.setZone(value);
+					}
+				});
+	}
+
 	private UserProfileServiceConfiguration userProfileServiceConfiguration = new UserProfileServiceConfiguration();
 	private final DataObjectAO dataObjectAO;
+	private final UserProfileCache userProfileCache;
 
 	/**
 	 * Constructs a user profile service with references to objects necessary to
@@ -66,7 +238,25 @@ public class UserProfileServiceImpl extends AbstractJargonService implements
 	public UserProfileServiceImpl(
 			final IRODSAccessObjectFactory irodsAccessObjectFactory,
 			final IRODSAccount irodsAccount) {
+		this(irodsAccessObjectFactory, irodsAccount, null);
+	}
+
+	/**
+	 * Constructs a user profile service that keeps the profiles it reads in a
+	 * cache, which may be shared with other instances
+	 * 
+	 * @param irodsAccessObjectFactory
+	 * @param irodsAccount
+	 * @param userProfileCache
+	 *            {@link UserProfileCache} for the profiles read, or
+	 *            <code>null</code> to not cache
+	 */
+	public UserProfileServiceImpl(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount,
+			final UserProfileCache userProfileCache) {
 		super(irodsAccessObjectFactory, irodsAccount);
+		this.userProfileCache = userProfileCache;
 		try {
 			dataObjectAO = irodsAccessObjectFactory
 					.getDataObjectAO(getIrodsAccount());
@@ -94,11 +284,15 @@ public class UserProfileServiceImpl extends AbstractJargonService implements
 		}
 		log.info("user profile:{}", userProfile);
 
-		log.info("remove old...");
-		removeProfileInformation(userProfile.getUserName());
-		log.info("add new...");
-		addProfileForUser(userProfile.getUserName(), userProfile);
-		log.info("profile updated");
+		try {
+			log.info("remove old...");
+			removeProfileInformation(userProfile.getUserName());
+			log.info("add new...");
+			addProfileForUser(userProfile.getUserName(), userProfile);
+			log.info("profile updated");
+		} finally {
+			invalidateCachedUserProfile(userProfile.getUserName());
+		}
 
 	}
 
@@ -121,153 +315,27 @@ public class UserProfileServiceImpl extends AbstractJargonService implements
 
 		log.info("userName:{}", userName);
 
-		UserProfile userProfile = new UserProfile();
-		userProfile.setUserName(userName);
-		userProfile.setZone(irodsAccount.getZone());
+		if (userProfileCache != null) {
+			UserProfile cachedUserProfile = userProfileCache.getUserProfile(
+					getIrodsAccount(), userName, true);
+			if (cachedUserProfile != null) {
+				log.info("returning cached profile");
+				return cachedUserProfile;
+			}
+		}
 
 		log.info("retreiving the public profile");
 
-		IRODSFile publicProfileFile = retrieveUserPublicProfileFile(userName);
+		List<String> userNames = new ArrayList<String>();
+		userNames.add(userName);
+		UserProfile userProfile = retrievePublicProfiles(userNames).get(
+				userName);
 
-		if (!publicProfileFile.exists()) {
-			log.warn("no public profile found at:{}",
-					publicProfileFile.getAbsolutePath());
+		if (userProfile == null) {
+			log.warn("no public profile found for:{}", userName);
 			throw new DataNotFoundException("no public profile found");
 		}
 
-		log.info("getting profile AVUs...");
-
-		List<AVUQueryElement> query = new ArrayList<AVUQueryElement>();
-
-		try {
-			query.add(AVUQueryElement.instanceForValueQuery(AVUQueryPart.UNITS,
-					AVUQueryOperatorEnum.EQUAL,
-					UserProfileService.AVU_UNIT_NAMESPACE));
-		} catch (JargonQueryException e) {
-			log.error("error building AVU query", e);
-			throw new JargonException("error querying for AVUs", e);
-		}
-
-		List<MetaDataAndDomainData> metadataValues = dataObjectAO
-				.findMetadataValuesForDataObject(publicProfileFile
-						.getAbsolutePath());
-
-		for (MetaDataAndDomainData metadata : metadataValues) {
-			log.info("metadata value:{}", metadata);
-
-			if (metadata.getAvuAttribute().equals(
-					UserProfileConstants.DESCRIPTION)) {
-				userProfile.getUserProfilePublicFields().setDescription(
-						metadata.getAvuValue());
-				continue;
-			}
-
-			if (metadata.getAvuAttribute().equals(
-					UserProfileConstants.NICK_NAME)) {
-				userProfile.getUserProfilePublicFields().setNickName(
-						metadata.getAvuValue());
-				continue;
-			}
-
-			if (metadata.getAvuAttribute().equals(UserProfileConstants.CN)) {
-				userProfile.getUserProfilePublicFields().setCn(
-						metadata.getAvuValue());
-				continue;
-			}
-
-			if (metadata.getAvuAttribute().equals(
-					UserProfileConstants.GIVEN_NAME)) {
-				userProfile.getUserProfilePublicFields().setGivenName(
-						metadata.getAvuValue());
-				continue;
-			}
-
-			if (metadata.getAvuAttribute().equals(UserProfileConstants.SN)) {
-				userProfile.getUserProfilePublicFields().setSn(
-						metadata.getAvuValue());
-				continue;
-			}
-
-			if (metadata.getAvuAttribute().equals(
-					UserProfileConstants.POSTAL_CODE)) {
-				userProfile.getUserProfilePublicFields().setPostalCode(
-						metadata.getAvuValue());
-				continue;
-			}
-
-			if (metadata.getAvuAttribute().equals(
-					UserProfileConstants.POSTAL_ADDRESS)) {
-				userProfile.getUserProfilePublicFields().setPostalAddress(
-						metadata.getAvuValue());
-				continue;
-			}
-
-			if (metadata.getAvuAttribute().equals(
-					UserProfileConstants.POST_OFFICE_BOX)) {
-				userProfile.getUserProfilePublicFields().setPostOfficeBox(
-						metadata.getAvuValue());
-				continue;
-			}
-
-			if (metadata.getAvuAttribute().equals(
-					UserProfileConstants.LOCALITY_NAME)) {
-				userProfile.getUserProfilePublicFields().setLocalityName(
-						metadata.getAvuValue());
-				continue;
-			}
-
-			if (metadata.getAvuAttribute().equals(UserProfileConstants.STREET)) {
-				userProfile.getUserProfilePublicFields().setStreet(
-						metadata.getAvuValue());
-				continue;
-			}
-
-			if (metadata.getAvuAttribute().equals(UserProfileConstants.STATE)) {
-				userProfile.getUserProfilePublicFields().setSt(
-						metadata.getAvuValue());
-				continue;
-			}
-
-			if (metadata.getAvuAttribute().equals(
-					UserProfileConstants.JPEG_PHOTO)) {
-				userProfile.getUserProfilePublicFields().setJpegPhoto(
-						metadata.getAvuValue());
-				continue;
-			}
-
-			if (metadata.getAvuAttribute().equals(
-					UserProfileConstants.LABELED_URL)) {
-				userProfile.getUserProfilePublicFields().setLabeledURL(
-						metadata.getAvuValue());
-				continue;
-			}
-
-			if (metadata.getAvuAttribute().equals(
-					UserProfileConstants.TELEPHONE_NUMBER)) {
-				userProfile.getUserProfilePublicFields().setTelephoneNumber(
-						metadata.getAvuValue());
-				continue;
-			}
-
-			if (metadata.getAvuAttribute().equals(UserProfileConstants.TITLE)) {
-				userProfile.getUserProfilePublicFields().setTitle(
-						metadata.getAvuValue());
-				continue;
-			}
-
-			if (metadata.getAvuAttribute().equals(UserProfileConstants.ZONE)) {
-				userProfile.setZone(metadata.getAvuValue());
-				continue;
-			}
-
-			/*
-			 * right now, quietly log and ignore property that is not
-			 * anticipated
-			 */
-			log.warn("property not recognized: {}", metadata);
-
-		}
-
 		log.info("look for protected profile file info...");
 		String userHomeDir = getUserProfileDir(userName);
 
@@ -282,6 +350,7 @@ public class UserProfileServiceImpl extends AbstractJargonService implements
 			log.warn(
 					"no protected profile info, ignore and return public info:{}",
 					userProfile);
+			cacheUserProfile(userProfile, true);
 			return userProfile;
 		}
 
@@ -310,10 +379,205 @@ public class UserProfileServiceImpl extends AbstractJargonService implements
 		}
 
 		log.info("completed user profile:{}", userProfile);
+		cacheUserProfile(userProfile, true);
 		return userProfile;
 
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * org.irods.jargon.userprofile.UserProfileService#retrieveUserProfiles(java
+	 * .util.List)
+	 */
+	@Override
+	public List<UserProfile> retrieveUserProfiles(final List<String> userNames)
+			throws JargonException {
+
+		log.info("retrieveUserProfiles()");
+
+		if (userNames == null) {
+			throw new IllegalArgumentException("null userNames");
+		}
+
+		log.info("for {} users", userNames.size());
+
+		Map<String, UserProfile> userProfiles = new HashMap<String, UserProfile>();
+		List<String> uncachedUserNames = new ArrayList<String>();
+		for (String userName : userNames) {
+			if (userName == null || userName.isEmpty()) {
+				throw new IllegalArgumentException(
+						"null or empty userName in userNames");
+			}
+
+			UserProfile cachedUserProfile = null;
+			if (userProfileCache != null) {
+				cachedUserProfile = userProfileCache.getUserProfile(
+						getIrodsAccount(), userName, false);
+			}
+
+			if (cachedUserProfile == null) {
+				uncachedUserNames.add(userName);
+			} else {
+				// only the public fields are returned, cached or not
+				cachedUserProfile
+						.setUserProfileProtectedFields(new UserProfileProtectedFields());
+				userProfiles.put(userName, cachedUserProfile);
+			}
+		}
+
+		if (!uncachedUserNames.isEmpty()) {
+			Map<String, UserProfile> retrievedUserProfiles = retrievePublicProfiles(uncachedUserNames);
+			for (UserProfile userProfile : retrievedUserProfiles.values()) {
+				cacheUserProfile(userProfile, false);
+			}
+			userProfiles.putAll(retrievedUserProfiles);
+		}
+
+		List<UserProfile> orderedUserProfiles = new ArrayList<UserProfile>();
+		for (String userName : userNames) {
+			UserProfile userProfile = userProfiles.get(userName);
+			if (userProfile != null) {
+				orderedUserProfiles.add(userProfile);
+			}
+		}
+
+		log.info("found {} profiles", orderedUserProfiles.size());
+		return orderedUserProfiles;
+	}
+
+	/**
+	 * Find the public profiles of the given users. The AVU's of the public
+	 * profile files are found with a query per
+	 * {@link #MAX_USERS_PER_QUERY} users, and any user whose profile file has
+	 * no AVU's is then looked for with a batched objStat.
+	 * 
+	 * @param userNames
+	 *            <code>List</code> of distinct iRODS user names
+	 * @return <code>Map</code> of user name to {@link UserProfile} with only
+	 *         the public fields, for the users who have a profile
+	 * @throws JargonException
+	 */
+	private Map<String, UserProfile> retrievePublicProfiles(
+			final List<String> userNames) throws JargonException {
+
+		Map<String, String> userNamesByProfileDir = new LinkedHashMap<String, String>();
+		for (String userName : userNames) {
+			userNamesByProfileDir.put(getUserProfileDir(userName), userName);
+		}
+
+		Map<String, UserProfile> userProfiles = new HashMap<String, UserProfile>();
+		List<String> profileDirs = new ArrayList<String>(
+				userNamesByProfileDir.keySet());
+
+		for (int i = 0; i < profileDirs.size(); i += MAX_USERS_PER_QUERY) {
+			IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+			try {
+				builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_NAME)
+						.addSelectAsGenQueryValue(
+								RodsGenQueryEnum.COL_META_DATA_ATTR_NAME)
+						.addSelectAsGenQueryValue(
+								RodsGenQueryEnum.COL_META_DATA_ATTR_VALUE);
+			} catch (GenQueryBuilderException e) {
+				log.error("error building profile query", e);
+				throw new JargonException("error querying for AVUs", e);
+			}
+			builder.addConditionAsGenQueryField(
+					RodsGenQueryEnum.COL_DATA_NAME,
+					QueryConditionOperators.EQUAL,
+					userProfileServiceConfiguration.getPublicProfileFileName())
+					.addConditionAsMultiValueCondition(
+							RodsGenQueryEnum.COL_COLL_NAME,
+							QueryConditionOperators.IN,
+							profileDirs.subList(i, Math.min(i
+									+ MAX_USERS_PER_QUERY, profileDirs.size())));
+
+			for (IRODSQueryResultRow row : GenQueryPagingUtils.queryAllRows(
+					getIrodsAccessObjectFactory(), getIrodsAccount(), builder,
+					null)) {
+				String userName = userNamesByProfileDir.get(row.getColumn(0));
+				if (userName == null) {
+					log.warn("ignoring row for unexpected collection:{}", row);
+					continue;
+				}
+				UserProfile userProfile = userProfiles.get(userName);
+				if (userProfile == null) {
+					userProfile = newUserProfile(userName);
+					userProfiles.put(userName, userProfile);
+				}
+				applyProfileAttribute(userProfile, row.getColumn(1),
+						row.getColumn(2));
+			}
+		}
+
+		if (userProfiles.size() < userNamesByProfileDir.size()) {
+			log.info("looking for profile files without AVUs");
+			Map<String, String> userNamesByProfilePath = new HashMap<String, String>();
+			for (Map.Entry<String, String> entry : userNamesByProfileDir
+					.entrySet()) {
+				if (!userProfiles.containsKey(entry.getValue())) {
+					userNamesByProfilePath.put(
+							entry.getKey()
+									+ "/"
+									+ userProfileServiceConfiguration
+											.getPublicProfileFileName(),
+							entry.getValue());
+				}
+			}
+
+			Map<String, ObjStat> objStats = getIrodsAccessObjectFactory()
+					.getCollectionAndDataObjectListAndSearchAO(
+							getIrodsAccount()).retrieveObjectStatsForPaths(
+							userNamesByProfilePath.keySet());
+			for (String profilePath : objStats.keySet()) {
+				String userName = userNamesByProfilePath.get(profilePath);
+				userProfiles.put(userName, newUserProfile(userName));
+			}
+		}
+
+		return userProfiles;
+	}
+
+	private UserProfile newUserProfile(final String userName) {
+		UserProfile userProfile = new UserProfile();
+		userProfile.setUserName(userName);
+		userProfile.setZone(getIrodsAccount().getZone());
+		return userProfile;
+	}
+
+	/**
+	 * Set the field of a profile named by a public profile AVU attribute
+	 */
+	private void applyProfileAttribute(final UserProfile userProfile,
+			final String attribute, final String value) {
+		ProfileAttributeSetter profileAttributeSetter = PROFILE_ATTRIBUTE_SETTERS
+				.get(attribute);
+		if (profileAttributeSetter == null) {
+			/*
+			 * right now, quietly log and ignore property that is not
+			 * anticipated
+			 */
+			log.warn("property not recognized: {}", attribute);
+			return;
+		}
+		profileAttributeSetter.set(userProfile, value);
+	}
+
+	private void cacheUserProfile(final UserProfile userProfile,
+			final boolean protectedFieldsIncluded) {
+		if (userProfileCache != null) {
+			userProfileCache.putUserProfile(getIrodsAccount(), userProfile,
+					protectedFieldsIncluded);
+		}
+	}
+
+	private void invalidateCachedUserProfile(final String userName) {
+		if (userProfileCache != null) {
+			userProfileCache.invalidate(getIrodsAccount(), userName);
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -355,6 +619,7 @@ public class UserProfileServiceImpl extends AbstractJargonService implements
 				protectedProfileFile.getAbsolutePath());
 
 		protectedProfileFile.deleteWithForceOption();
+		invalidateCachedUserProfile(irodsUserName);
 		log.info("delete completed");
 
 	}
@@ -439,6 +704,9 @@ public class UserProfileServiceImpl extends AbstractJargonService implements
 		log.info("userName:{}", irodsUserName);
 		log.info("UserProfile:{}", userProfile);
 
+		// drop a profile cached before it was removed elsewhere
+		invalidateCachedUserProfile(irodsUserName);
+
 		// see if a user profile already exists for this user
 		String userHomeDir = getUserProfileDir(irodsUserName);
 		log.info("looking for profile in userHomeDir:{}", userHomeDir);
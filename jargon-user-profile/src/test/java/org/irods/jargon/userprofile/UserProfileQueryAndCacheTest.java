@@ -0,0 +1,200 @@
+package org.irods.jargon.userprofile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.DataNotFoundException;
+import org.irods.jargon.core.packinstr.DataObjInp;
+import org.irods.jargon.core.packinstr.GenQueryInp;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.pub.domain.AvuData;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServer;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class UserProfileQueryAndCacheTest {
+
+	@Rule
+	public EmbeddedIRODSServerRule serverRule = new EmbeddedIRODSServerRule();
+
+	private EmbeddedIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSAccount irodsAccount;
+
+	@Before
+	public void setUp() throws Exception {
+		server = serverRule.getServer();
+		irodsFileSystem = serverRule.getIrodsFileSystem();
+		irodsAccount = serverRule.getIrodsAccount();
+	}
+
+	private UserProfileService service(final UserProfileCache userProfileCache)
+			throws Exception {
+		return new UserProfileServiceImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory(), irodsAccount,
+				userProfileCache);
+	}
+
+	private String profileDir(final String userName) {
+		return server.getHomeDirectory(userName) + "/"
+				+ UserProfileServiceConfiguration.PROFILE_SUBDIR_NAME;
+	}
+
+	private void profileAvu(final String userName, final String attribute,
+			final String value) throws Exception {
+		server.getCatalog().addAVUMetadata(
+				profileDir(userName) + "/"
+						+ UserProfileServiceConfiguration.PUBLIC_PROFILE_FILE_NAME,
+				AvuData.instance(attribute, value,
+						UserProfileService.AVU_UNIT_NAMESPACE));
+	}
+
+	private void createProfile(final String userName, final String mail)
+			throws Exception {
+		server.getCatalog().putDataObject(
+				profileDir(userName) + "/"
+						+ UserProfileServiceConfiguration.PUBLIC_PROFILE_FILE_NAME,
+				new byte[0]);
+		if (mail != null) {
+			server.getCatalog()
+					.putDataObject(
+							profileDir(userName)
+									+ "/"
+									+ UserProfileServiceConfiguration.PROTECTED_PROFILE_FILE_NAME,
+							(UserProfileConstants.EMAIL + "=" + mail + "\n")
+									.getBytes());
+		}
+	}
+
+	private long queries() {
+		return server.getApiCallCount(GenQueryInp.API_NBR);
+	}
+
+	@Test
+	public void testRetrieveUserProfiles() throws Exception {
+		List<String> userNames = new ArrayList<String>();
+		for (int i = 0; i < 250; i++) {
+			String userName = "user" + i;
+			userNames.add(userName);
+			if (i % 5 == 4) {
+				continue;
+			}
+			createProfile(userName, "user" + i + "@example.org");
+			if (i == 3) {
+				// a profile with nothing filled in
+				continue;
+			}
+			profileAvu(userName, UserProfileConstants.NICK_NAME, "nick" + i);
+			profileAvu(userName, UserProfileConstants.GIVEN_NAME, "given" + i);
+			profileAvu(userName, UserProfileConstants.USER_NAME, userName);
+		}
+
+		long queries = queries();
+		List<UserProfile> userProfiles = service(null).retrieveUserProfiles(
+				userNames);
+
+		// three pages of users, then one batched stat for the empty profile
+		Assert.assertTrue(queries() - queries <= 5);
+		Assert.assertEquals(200, userProfiles.size());
+		UserProfile userProfile = userProfiles.get(0);
+		Assert.assertEquals("user0", userProfile.getUserName());
+		Assert.assertEquals(irodsAccount.getZone(), userProfile.getZone());
+		Assert.assertEquals("nick0", userProfile.getUserProfilePublicFields()
+				.getNickName());
+		Assert.assertEquals("given0", userProfile
+				.getUserProfilePublicFields().getGivenName());
+		Assert.assertEquals("", userProfile.getUserProfileProtectedFields()
+				.getMail());
+
+		userProfile = userProfiles.get(3);
+		Assert.assertEquals("user3", userProfile.getUserName());
+		Assert.assertEquals("", userProfile.getUserProfilePublicFields()
+				.getNickName());
+
+		userProfile = userProfiles.get(199);
+		Assert.assertEquals("user248", userProfile.getUserName());
+		Assert.assertEquals("nick248", userProfile
+				.getUserProfilePublicFields().getNickName());
+	}
+
+	@Test
+	public void testRetrieveUserProfileCached() throws Exception {
+		createProfile("user1", "user1@example.org");
+		profileAvu("user1", UserProfileConstants.TITLE, "title1");
+		profileAvu("user1", UserProfileConstants.ZONE, "otherZone");
+		createProfile("user2", null);
+		profileAvu("user2", UserProfileConstants.SN, "sn2");
+
+		UserProfileCache userProfileCache = new UserProfileCache();
+		UserProfileService userProfileService = service(userProfileCache);
+
+		long queries = queries();
+		UserProfile userProfile = userProfileService
+				.retrieveUserProfile("user1");
+		Assert.assertEquals(queries + 1, queries());
+		Assert.assertEquals("title1", userProfile.getUserProfilePublicFields()
+				.getTitle());
+		Assert.assertEquals("otherZone", userProfile.getZone());
+		Assert.assertEquals("user1@example.org", userProfile
+				.getUserProfileProtectedFields().getMail());
+
+		// changing the returned profile does not change the cache
+		userProfile.getUserProfilePublicFields().setTitle("changed");
+
+		queries = queries();
+		long opens = server.getApiCallCount(DataObjInp.OPEN_FILE_API_NBR);
+		userProfile = userProfileService.retrieveUserProfile("user1");
+		Assert.assertEquals(queries, queries());
+		Assert.assertEquals(opens,
+				server.getApiCallCount(DataObjInp.OPEN_FILE_API_NBR));
+		Assert.assertEquals("title1", userProfile.getUserProfilePublicFields()
+				.getTitle());
+		Assert.assertEquals("user1@example.org", userProfile
+				.getUserProfileProtectedFields().getMail());
+
+		// a second service shares the cache, and a list holds public fields
+		List<String> userNames = new ArrayList<String>();
+		userNames.add("user1");
+		userNames.add("user2");
+		userNames.add("user1");
+		List<UserProfile> userProfiles = service(userProfileCache)
+				.retrieveUserProfiles(userNames);
+		Assert.assertEquals(3, userProfiles.size());
+		Assert.assertEquals("", userProfiles.get(0)
+				.getUserProfileProtectedFields().getMail());
+		Assert.assertEquals("sn2", userProfiles.get(1)
+				.getUserProfilePublicFields().getSn());
+		Assert.assertEquals(2, userProfileCache.getProfileCount());
+
+		// a profile cached by the list is read again for its protected fields
+		queries = queries();
+		userProfile = userProfileService.retrieveUserProfile("user2");
+		Assert.assertEquals(queries + 1, queries());
+		Assert.assertEquals("sn2", userProfile.getUserProfilePublicFields()
+				.getSn());
+		userProfileService.retrieveUserProfile("user2");
+		Assert.assertEquals(queries + 1, queries());
+
+		userProfileCache.invalidate(irodsAccount, "user2");
+		Assert.assertEquals(1, userProfileCache.getProfileCount());
+	}
+
+	@Test(expected = DataNotFoundException.class)
+	public void testRetrieveUserProfileMissing() throws Exception {
+		service(new UserProfileCache()).retrieveUserProfile("nobody");
+	}
+
+	@Test
+	public void testRetrieveUserProfilesNoneFound() throws Exception {
+		List<String> userNames = new ArrayList<String>();
+		userNames.add("nobody");
+		Assert.assertTrue(service(null).retrieveUserProfiles(userNames)
+				.isEmpty());
+	}
+
+}
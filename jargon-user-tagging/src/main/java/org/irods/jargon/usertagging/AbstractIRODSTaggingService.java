@@ -67,4 +67,4 @@ public abstract class AbstractIRODSTaggingService {
 		return objStat;
 	}
 
-}
\ No newline at end of file
+}
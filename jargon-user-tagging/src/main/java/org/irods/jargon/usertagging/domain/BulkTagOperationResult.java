@@ -0,0 +1,130 @@
+package org.irods.jargon.usertagging.domain;
+
+import java.io.Serializable;
+
+import org.irods.jargon.core.query.MetaDataAndDomainData.MetadataDomain;
+
+/**
+ * The outcome of adding or removing one tag on one collection or data object
+ * as part of a bulk tagging operation.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public final class BulkTagOperationResult implements Serializable {
+
+	private static final long serialVersionUID = -4130772356286541823L;
+
+	public enum ResultStatus {
+		/**
+		 * The tag was added or removed
+		 */
+		OK,
+		/**
+		 * The tag was already present for an add, or absent for a remove, so
+		 * nothing was sent to iRODS
+		 */
+		UNCHANGED,
+		/**
+		 * The collection or data object was not found
+		 */
+		MISSING_TARGET,
+		/**
+		 * iRODS returned an error, which is in the message
+		 */
+		ERROR
+	}
+
+	private final String irodsAbsolutePath;
+	private final MetadataDomain metadataDomain;
+	private final String tagData;
+	private final ResultStatus resultStatus;
+	private final String message;
+
+	/**
+	 * Static initializer.
+	 *
+	 * @param irodsAbsolutePath
+	 *            <code>String</code> with the absolute path of the collection
+	 *            or data object
+	 * @param metadataDomain
+	 *            {@link MetadataDomain} of the path, which is
+	 *            <code>null</code> if the path was not found
+	 * @param tagData
+	 *            <code>String</code> with the tag
+	 * @param resultStatus
+	 *            {@link ResultStatus} of the operation
+	 * @param message
+	 *            <code>String</code> with any error message, or blank
+	 * @return instance of <code>BulkTagOperationResult</code>
+	 */
+	public static BulkTagOperationResult instance(
+			final String irodsAbsolutePath,
+			final MetadataDomain metadataDomain, final String tagData,
+			final ResultStatus resultStatus, final String message) {
+		return new BulkTagOperationResult(irodsAbsolutePath, metadataDomain,
+				tagData, resultStatus, message);
+	}
+
+	private BulkTagOperationResult(final String irodsAbsolutePath,
+			final MetadataDomain metadataDomain, final String tagData,
+			final ResultStatus resultStatus, final String message) {
+
+		if (irodsAbsolutePath == null || irodsAbsolutePath.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty irodsAbsolutePath");
+		}
+
+		if (tagData == null || tagData.isEmpty()) {
+			throw new IllegalArgumentException("null or empty tagData");
+		}
+
+		if (resultStatus == null) {
+			throw new IllegalArgumentException("null resultStatus");
+		}
+
+		this.irodsAbsolutePath = irodsAbsolutePath;
+		this.metadataDomain = metadataDomain;
+		this.tagData = tagData;
+		this.resultStatus = resultStatus;
+		this.message = message == null ? "" : message;
+	}
+
+	public String getIrodsAbsolutePath() {
+		return irodsAbsolutePath;
+	}
+
+	public MetadataDomain getMetadataDomain() {
+		return metadataDomain;
+	}
+
+	public String getTagData() {
+		return tagData;
+	}
+
+	public ResultStatus getResultStatus() {
+		return resultStatus;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("BulkTagOperationResult");
+		sb.append("\n   irodsAbsolutePath:");
+		sb.append(irodsAbsolutePath);
+		sb.append("\n   metadataDomain:");
+		sb.append(metadataDomain);
+		sb.append("\n   tagData:");
+		sb.append(tagData);
+		sb.append("\n   resultStatus:");
+		sb.append(resultStatus);
+		sb.append("\n   message:");
+		sb.append(message);
+		return sb.toString();
+	}
+
+}
@@ -155,6 +155,86 @@ public interface IRODSSharingService {
 			String userName, String userZone)
 			throws OperationNotSupportedByThisServerException, JargonException;
 
+	/**
+	 * List the collections shared by the given user, each with the users in
+	 * its ACL. Unlike {@link #listSharedCollectionsOwnedByAUser}, the shares
+	 * and their users are found together with a general query paged through
+	 * to the end, rather than a query for the users of each share, and no
+	 * specific query is needed on the server.
+	 *
+	 * @param userName
+	 *            <code>String</code> with the user name of the share owner
+	 * @param userZone
+	 *            <code>String</code> with the zone of the user, blank for the
+	 *            zone of the logged-in account
+	 * @return <code>List</code> of {@link IRODSSharedFileOrCollection}, with
+	 *         its share users, ordered by path
+	 * @throws JargonException
+	 */
+	List<IRODSSharedFileOrCollection> listSharedCollectionsOwnedByAUserWithShareUsers(
+			String userName, String userZone) throws JargonException;
+
+	/**
+	 * List the collections shared by the given user, each with the users in
+	 * its ACL, giving each share to a listener as soon as it is complete.
+	 *
+	 * @param userName
+	 *            <code>String</code> with the user name of the share owner
+	 * @param userZone
+	 *            <code>String</code> with the zone of the user, blank for the
+	 *            zone of the logged-in account
+	 * @param sharedFileOrCollectionListener
+	 *            {@link SharedFileOrCollectionListener} given each share, in
+	 *            order of path
+	 * @throws JargonException
+	 */
+	void listSharedCollectionsOwnedByAUserWithShareUsers(String userName,
+			String userZone,
+			SharedFileOrCollectionListener sharedFileOrCollectionListener)
+			throws JargonException;
+
+	/**
+	 * List the collections shared with the given user by other users, each
+	 * with the users in its ACL. Unlike
+	 * {@link #listSharedCollectionsSharedWithUser}, this takes one query for
+	 * the shares the user can see, and one general query per hundred of those
+	 * shares for the shares and their users together, and no specific query
+	 * is needed on the server.
+	 *
+	 * @param userName
+	 *            <code>String</code> with the user name of the user the
+	 *            collections are shared with
+	 * @param userZone
+	 *            <code>String</code> with the zone of the user, blank for the
+	 *            zone of the logged-in account
+	 * @return <code>List</code> of {@link IRODSSharedFileOrCollection}, with
+	 *         its share users, ordered by path
+	 * @throws JargonException
+	 */
+	List<IRODSSharedFileOrCollection> listSharedCollectionsSharedWithUserWithShareUsers(
+			String userName, String userZone) throws JargonException;
+
+	/**
+	 * List the collections shared with the given user by other users, each
+	 * with the users in its ACL, giving each share to a listener as soon as it
+	 * is complete.
+	 *
+	 * @param userName
+	 *            <code>String</code> with the user name of the user the
+	 *            collections are shared with
+	 * @param userZone
+	 *            <code>String</code> with the zone of the user, blank for the
+	 *            zone of the logged-in account
+	 * @param sharedFileOrCollectionListener
+	 *            {@link SharedFileOrCollectionListener} given each share, in
+	 *            order of path
+	 * @throws JargonException
+	 */
+	void listSharedCollectionsSharedWithUserWithShareUsers(String userName,
+			String userZone,
+			SharedFileOrCollectionListener sharedFileOrCollectionListener)
+			throws JargonException;
+
 	/**
 	 * Handy method to retrieve ACL share details for a share at the given
 	 * absolute path. Note that if there is no share, an empty list is returned.
@@ -4,7 +4,11 @@
 package org.irods.jargon.usertagging.sharing;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.exception.DataNotFoundException;
@@ -12,6 +16,7 @@ import org.irods.jargon.core.exception.DuplicateDataException;
 import org.irods.jargon.core.exception.FileNotFoundException;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.exception.OperationNotSupportedByThisServerException;
+import org.irods.jargon.core.protovalues.FilePermissionEnum;
 import org.irods.jargon.core.pub.CollectionAO;
 import org.irods.jargon.core.pub.CollectionAndDataObjectListAndSearchAO;
 import org.irods.jargon.core.pub.DataObjectAO;
@@ -24,12 +29,18 @@ import org.irods.jargon.core.pub.io.IRODSFile;
 import org.irods.jargon.core.query.AVUQueryElement;
 import org.irods.jargon.core.query.AVUQueryElement.AVUQueryPart;
 import org.irods.jargon.core.query.AVUQueryOperatorEnum;
+import org.irods.jargon.core.query.GenQueryBuilderException;
+import org.irods.jargon.core.query.GenQueryOrderByField.OrderByType;
+import org.irods.jargon.core.query.IRODSGenQueryBuilder;
 import org.irods.jargon.core.query.IRODSQueryResultRow;
 import org.irods.jargon.core.query.JargonQueryException;
 import org.irods.jargon.core.query.MetaDataAndDomainData;
 import org.irods.jargon.core.query.MetaDataAndDomainData.MetadataDomain;
+import org.irods.jargon.core.query.QueryConditionOperators;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
 import org.irods.jargon.core.query.SpecificQuery;
 import org.irods.jargon.core.query.SpecificQueryResultSet;
+import org.irods.jargon.core.utils.GenQueryPagingUtils;
 import org.irods.jargon.core.utils.MiscIRODSUtils;
 import org.irods.jargon.usertagging.AbstractIRODSTaggingService;
 import org.irods.jargon.usertagging.domain.IRODSSharedFileOrCollection;
@@ -73,6 +84,13 @@ public class IRODSSharingServiceImpl extends AbstractIRODSTaggingService
 	public static final Logger log = LoggerFactory
 			.getLogger(IRODSSharingServiceImpl.class);
 
+	/**
+	 * Most shares named in one query of the shares shared with a user
+	 */
+	public static final int MAX_SHARES_PER_QUERY = 100;
+
+	private final ShareListingCache shareListingCache;
+
 	/**
 	 * @param irodsAccessObjectFactory
 	 *            {@link IRODSAccessObjectFactory} to create iRODS services
@@ -82,7 +100,24 @@ public class IRODSSharingServiceImpl extends AbstractIRODSTaggingService
 	public IRODSSharingServiceImpl(
 			final IRODSAccessObjectFactory irodsAccessObjectFactory,
 			final IRODSAccount irodsAccount) {
+		this(irodsAccessObjectFactory, irodsAccount, null);
+	}
+
+	/**
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory} to create iRODS services
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} that describes the iRODS server and user
+	 * @param shareListingCache
+	 *            {@link ShareListingCache} holding the listings with share
+	 *            users, or <code>null</code> if they are not cached
+	 */
+	public IRODSSharingServiceImpl(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount,
+			final ShareListingCache shareListingCache) {
 		super(irodsAccessObjectFactory, irodsAccount);
+		this.shareListingCache = shareListingCache;
 	}
 
 	/*
@@ -139,6 +174,7 @@ public class IRODSSharingServiceImpl extends AbstractIRODSTaggingService
 					irodsSharedFileOrCollection.getDomainUniqueName(), avuData);
 		}
 
+		invalidateShareListings();
 		log.info("delete action successful");
 
 	}
@@ -216,6 +252,7 @@ public class IRODSSharingServiceImpl extends AbstractIRODSTaggingService
 					newData);
 		}
 
+		invalidateShareListings();
 		log.info("share name modified successfully");
 
 	}
@@ -271,6 +308,7 @@ public class IRODSSharingServiceImpl extends AbstractIRODSTaggingService
 					avuData);
 		}
 
+		invalidateShareListings();
 		log.info("share created");
 	}
 
@@ -341,6 +379,7 @@ public class IRODSSharingServiceImpl extends AbstractIRODSTaggingService
 					avuData);
 		}
 
+		invalidateShareListings();
 		log.info("share created");
 	}
 
@@ -752,6 +791,289 @@ public class IRODSSharingServiceImpl extends AbstractIRODSTaggingService
 
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.usertagging.sharing.IRODSSharingService#
+	 * listSharedCollectionsOwnedByAUserWithShareUsers(java.lang.String,
+	 * java.lang.String)
+	 */
+	@Override
+	public List<IRODSSharedFileOrCollection> listSharedCollectionsOwnedByAUserWithShareUsers(
+			final String userName, final String userZone)
+			throws JargonException {
+		final List<IRODSSharedFileOrCollection> irodsSharedFileOrCollections = new ArrayList<IRODSSharedFileOrCollection>();
+		listSharedCollectionsOwnedByAUserWithShareUsers(userName, userZone,
+				new SharedFileOrCollectionListener() {
+					@Override
+					public void nextShare(
+							final IRODSSharedFileOrCollection irodsSharedFileOrCollection) {
+						irodsSharedFileOrCollections
+								.add(irodsSharedFileOrCollection);
+					}
+				});
+		return irodsSharedFileOrCollections;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.usertagging.sharing.IRODSSharingService#
+	 * listSharedCollectionsOwnedByAUserWithShareUsers(java.lang.String,
+	 * java.lang.String,
+	 * org.irods.jargon.usertagging.sharing.SharedFileOrCollectionListener)
+	 */
+	@Override
+	public void listSharedCollectionsOwnedByAUserWithShareUsers(
+			final String userName, final String userZone,
+			final SharedFileOrCollectionListener sharedFileOrCollectionListener)
+			throws JargonException {
+		log.info("listSharedCollectionsOwnedByAUserWithShareUsers()");
+
+		String myZone = checkListingArgumentsAndGetZone(userName, userZone,
+				sharedFileOrCollectionListener);
+
+		if (replayCachedListing(ShareListingCache.ListingType.OWNED_BY_USER,
+				userName, myZone, sharedFileOrCollectionListener)) {
+			return;
+		}
+
+		ShareAssembler shareAssembler = new ShareAssembler(
+				sharedFileOrCollectionListener, shareListingCache != null);
+		IRODSGenQueryBuilder builder = buildSharesWithUsersQuery();
+		builder.addConditionAsGenQueryField(
+				RodsGenQueryEnum.COL_COLL_OWNER_NAME,
+				QueryConditionOperators.EQUAL, userName)
+				.addConditionAsGenQueryField(
+						RodsGenQueryEnum.COL_COLL_OWNER_ZONE,
+						QueryConditionOperators.EQUAL, myZone);
+		GenQueryPagingUtils.queryAllPages(getIrodsAccessObjectFactory(),
+				getIrodsAccount(), builder, null, shareAssembler);
+		shareAssembler.finish();
+
+		if (shareListingCache != null) {
+			shareListingCache.putListing(getIrodsAccount(),
+					ShareListingCache.ListingType.OWNED_BY_USER, userName,
+					myZone, shareAssembler.getShares());
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.usertagging.sharing.IRODSSharingService#
+	 * listSharedCollectionsSharedWithUserWithShareUsers(java.lang.String,
+	 * java.lang.String)
+	 */
+	@Override
+	public List<IRODSSharedFileOrCollection> listSharedCollectionsSharedWithUserWithShareUsers(
+			final String userName, final String userZone)
+			throws JargonException {
+		final List<IRODSSharedFileOrCollection> irodsSharedFileOrCollections = new ArrayList<IRODSSharedFileOrCollection>();
+		listSharedCollectionsSharedWithUserWithShareUsers(userName, userZone,
+				new SharedFileOrCollectionListener() {
+					@Override
+					public void nextShare(
+							final IRODSSharedFileOrCollection irodsSharedFileOrCollection) {
+						irodsSharedFileOrCollections
+								.add(irodsSharedFileOrCollection);
+					}
+				});
+		return irodsSharedFileOrCollections;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.usertagging.sharing.IRODSSharingService#
+	 * listSharedCollectionsSharedWithUserWithShareUsers(java.lang.String,
+	 * java.lang.String,
+	 * org.irods.jargon.usertagging.sharing.SharedFileOrCollectionListener)
+	 */
+	@Override
+	public void listSharedCollectionsSharedWithUserWithShareUsers(
+			final String userName, final String userZone,
+			final SharedFileOrCollectionListener sharedFileOrCollectionListener)
+			throws JargonException {
+		log.info("listSharedCollectionsSharedWithUserWithShareUsers()");
+
+		String myZone = checkListingArgumentsAndGetZone(userName, userZone,
+				sharedFileOrCollectionListener);
+
+		if (replayCachedListing(
+				ShareListingCache.ListingType.SHARED_WITH_USER, userName,
+				myZone, sharedFileOrCollectionListener)) {
+			return;
+		}
+
+		/*
+		 * First find the shares in whose ACL the user appears, leaving out
+		 * those the user owns, then read those shares with all of their users
+		 */
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		try {
+			builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_NAME)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_COLL_OWNER_NAME)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_COLL_OWNER_ZONE)
+					.addOrderByGenQueryField(RodsGenQueryEnum.COL_COLL_NAME,
+							OrderByType.ASC);
+		} catch (GenQueryBuilderException e) {
+			log.error("error building share query", e);
+			throw new JargonException("error in share query", e);
+		}
+		builder.addConditionAsGenQueryField(
+				RodsGenQueryEnum.COL_META_COLL_ATTR_UNITS,
+				QueryConditionOperators.EQUAL,
+				UserTaggingConstants.SHARE_AVU_UNIT)
+				.addConditionAsGenQueryField(
+						RodsGenQueryEnum.COL_COLL_ACCESS_USER_NAME,
+						QueryConditionOperators.EQUAL, userName)
+				.addConditionAsGenQueryField(
+						RodsGenQueryEnum.COL_COLL_ACCESS_USER_ZONE,
+						QueryConditionOperators.EQUAL, myZone);
+
+		Set<String> sharePaths = new LinkedHashSet<String>();
+		for (IRODSQueryResultRow row : GenQueryPagingUtils.queryAllRows(
+				getIrodsAccessObjectFactory(), getIrodsAccount(), builder,
+				null)) {
+			if (userName.equals(row.getColumn(1))
+					&& myZone.equals(row.getColumn(2))) {
+				continue;
+			}
+			sharePaths.add(row.getColumn(0));
+		}
+
+		log.info("found {} shares shared with the user", sharePaths.size());
+
+		ShareAssembler shareAssembler = new ShareAssembler(
+				sharedFileOrCollectionListener, shareListingCache != null);
+		List<String> paths = new ArrayList<String>(sharePaths);
+		for (int i = 0; i < paths.size(); i += MAX_SHARES_PER_QUERY) {
+			builder = buildSharesWithUsersQuery();
+			builder.addConditionAsMultiValueCondition(
+					RodsGenQueryEnum.COL_COLL_NAME, QueryConditionOperators.IN,
+					paths.subList(i,
+							Math.min(i + MAX_SHARES_PER_QUERY, paths.size())));
+			GenQueryPagingUtils.queryAllPages(getIrodsAccessObjectFactory(),
+					getIrodsAccount(), builder, null, shareAssembler);
+		}
+		shareAssembler.finish();
+
+		if (shareListingCache != null) {
+			shareListingCache.putListing(getIrodsAccount(),
+					ShareListingCache.ListingType.SHARED_WITH_USER, userName,
+					myZone, shareAssembler.getShares());
+		}
+	}
+
+	/**
+	 * Check the arguments of a listing with share users
+	 * 
+	 * @return <code>String</code> with the zone to list for, which is the zone
+	 *         of the logged-in account if none is given
+	 */
+	private String checkListingArgumentsAndGetZone(final String userName,
+			final String userZone,
+			final SharedFileOrCollectionListener sharedFileOrCollectionListener) {
+		if (userName == null || userName.isEmpty()) {
+			throw new IllegalArgumentException("null or empty userName");
+		}
+
+		if (userZone == null) {
+			throw new IllegalArgumentException("null userZone");
+		}
+
+		if (sharedFileOrCollectionListener == null) {
+			throw new IllegalArgumentException(
+					"null sharedFileOrCollectionListener");
+		}
+
+		log.info("userName:{}", userName);
+
+		String myZone;
+		if (userZone.isEmpty()) {
+			myZone = getIrodsAccount().getZone();
+		} else {
+			myZone = userZone;
+		}
+
+		log.info("zone used:{}", myZone);
+		return myZone;
+	}
+
+	/**
+	 * Give the shares of a cached listing to the listener
+	 * 
+	 * @return <code>boolean</code> that is <code>true</code> if the listing
+	 *         was cached
+	 */
+	private boolean replayCachedListing(
+			final ShareListingCache.ListingType listingType,
+			final String userName, final String userZone,
+			final SharedFileOrCollectionListener sharedFileOrCollectionListener)
+			throws JargonException {
+		if (shareListingCache == null) {
+			return false;
+		}
+
+		List<IRODSSharedFileOrCollection> shares = shareListingCache
+				.getListing(getIrodsAccount(), listingType, userName, userZone);
+		if (shares == null) {
+			return false;
+		}
+
+		log.info("using cached listing of {} shares", shares.size());
+		for (IRODSSharedFileOrCollection share : shares) {
+			sharedFileOrCollectionListener.nextShare(share);
+		}
+		return true;
+	}
+
+	/**
+	 * Build a query for share collections and every entry of their ACL's,
+	 * ordered so that the rows of a share are together
+	 */
+	private IRODSGenQueryBuilder buildSharesWithUsersQuery()
+			throws JargonException {
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		try {
+			builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_NAME)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_META_COLL_ATTR_NAME)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_COLL_OWNER_NAME)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_COLL_OWNER_ZONE)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_COLL_ACCESS_USER_NAME)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_COLL_ACCESS_USER_ZONE)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_COLL_ACCESS_TYPE)
+					.addOrderByGenQueryField(RodsGenQueryEnum.COL_COLL_NAME,
+							OrderByType.ASC);
+		} catch (GenQueryBuilderException e) {
+			log.error("error building share query", e);
+			throw new JargonException("error in share query", e);
+		}
+		builder.addConditionAsGenQueryField(
+				RodsGenQueryEnum.COL_META_COLL_ATTR_UNITS,
+				QueryConditionOperators.EQUAL,
+				UserTaggingConstants.SHARE_AVU_UNIT);
+		return builder;
+	}
+
+	/**
+	 * Remove cached listings after a share changes
+	 */
+	private void invalidateShareListings() {
+		if (shareListingCache != null) {
+			shareListingCache.clear();
+		}
+	}
+
 	/**
 	 * @param specificQueryResultSet
 	 * @param irodsSharedFileOrCollection
@@ -870,4 +1192,93 @@ public class IRODSSharingServiceImpl extends AbstractIRODSTaggingService
 		}
 	}
 
+	/**
+	 * Joins the rows of a share query, one per share and ACL entry and ordered
+	 * by path, into shares with their users, giving each share to the
+	 * listener once the next one starts. The last share is held back until
+	 * the listing is finished so that it can be marked as the last result.
+	 */
+	private static class ShareAssembler implements
+			GenQueryPagingUtils.PageHandler {
+		private final SharedFileOrCollectionListener sharedFileOrCollectionListener;
+		private final List<IRODSSharedFileOrCollection> shares;
+		private String path = null;
+		private String shareName;
+		private String shareOwner;
+		private String shareOwnerZone;
+		private Map<String, ShareUser> shareUsers;
+		private IRODSSharedFileOrCollection previousShare = null;
+		private int count = 0;
+
+		ShareAssembler(
+				final SharedFileOrCollectionListener sharedFileOrCollectionListener,
+				final boolean keepShares) {
+			this.sharedFileOrCollectionListener = sharedFileOrCollectionListener;
+			if (keepShares) {
+				shares = new ArrayList<IRODSSharedFileOrCollection>();
+			} else {
+				shares = null;
+			}
+		}
+
+		@Override
+		public void handlePage(final List<IRODSQueryResultRow> rows)
+				throws JargonException {
+			for (IRODSQueryResultRow row : rows) {
+				if (!row.getColumn(0).equals(path)) {
+					completeShare();
+					path = row.getColumn(0);
+					shareName = row.getColumn(1);
+					shareOwner = row.getColumn(2);
+					shareOwnerZone = row.getColumn(3);
+					shareUsers = new LinkedHashMap<String, ShareUser>();
+				}
+				String userKey = row.getColumn(4) + "#" + row.getColumn(5);
+				if (!shareUsers.containsKey(userKey)) {
+					shareUsers.put(userKey, new ShareUser(row.getColumn(4),
+							row.getColumn(5), FilePermissionEnum.valueOf(row
+									.getColumnAsIntOrZero(6))));
+				}
+			}
+		}
+
+		void finish() throws JargonException {
+			completeShare();
+			if (previousShare != null) {
+				previousShare.setLastResult(true);
+				emit(previousShare);
+				previousShare = null;
+			}
+			log.info("listed {} shares", count);
+		}
+
+		List<IRODSSharedFileOrCollection> getShares() {
+			return shares;
+		}
+
+		private void completeShare() throws JargonException {
+			if (path == null) {
+				return;
+			}
+			IRODSSharedFileOrCollection share = new IRODSSharedFileOrCollection(
+					MetadataDomain.COLLECTION, path, shareName, shareOwner,
+					shareOwnerZone, new ArrayList<ShareUser>(
+							shareUsers.values()));
+			share.setCount(++count);
+			path = null;
+			if (previousShare != null) {
+				emit(previousShare);
+			}
+			previousShare = share;
+		}
+
+		private void emit(final IRODSSharedFileOrCollection share)
+				throws JargonException {
+			if (shares != null) {
+				shares.add(share);
+			}
+			sharedFileOrCollectionListener.nextShare(share);
+		}
+	}
+
 }
@@ -0,0 +1,269 @@
+package org.irods.jargon.usertagging.sharing;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.usertagging.domain.IRODSSharedFileOrCollection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Time to live cache of share listings, so that a page of shares that is shown
+ * again and again is not queried from the iCAT each time. A cache may be
+ * shared by any number of {@link IRODSSharingServiceImpl} instances, and
+ * every listing is removed when a share is created, renamed or removed
+ * through any of them.
+ * <p/>
+ * Listings are kept per viewing account, as what a viewer may see depends on
+ * ACL's. Shares and ACL's changed by other clients, or through the core
+ * services directly, are seen once the cached listing expires. The least
+ * recently used listings are dropped when the cache is full.
+ * <p/>
+ * This class is thread safe.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class ShareListingCache {
+
+	public static final Logger log = LoggerFactory
+			.getLogger(ShareListingCache.class);
+
+	public static final long DEFAULT_TIME_TO_LIVE_MILLIS = 60000L;
+	public static final int DEFAULT_MAX_LISTINGS = 1000;
+
+	/**
+	 * The kinds of listing held
+	 */
+	public enum ListingType {
+		OWNED_BY_USER, SHARED_WITH_USER
+	}
+
+	private final long timeToLiveMillis;
+	private final LinkedHashMap<String, CachedListing> listings;
+	private long hitCount = 0L;
+	private long missCount = 0L;
+
+	/**
+	 * Create a cache with the default time to live and size
+	 */
+	public ShareListingCache() {
+		this(DEFAULT_MAX_LISTINGS, DEFAULT_TIME_TO_LIVE_MILLIS);
+	}
+
+	/**
+	 * Create a cache
+	 *
+	 * @param maxListings
+	 *            <code>int</code> with the most listings held
+	 * @param timeToLiveMillis
+	 *            <code>long</code> with the time in milliseconds a cached
+	 *            listing is used for
+	 */
+	public ShareListingCache(final int maxListings, final long timeToLiveMillis) {
+		if (maxListings <= 0) {
+			throw new IllegalArgumentException("maxListings must be > 0");
+		}
+
+		if (timeToLiveMillis <= 0) {
+			throw new IllegalArgumentException("timeToLiveMillis must be > 0");
+		}
+
+		this.timeToLiveMillis = timeToLiveMillis;
+		listings = new LinkedHashMap<String, CachedListing>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					final Map.Entry<String, CachedListing> eldest) {
+				return size() > maxListings;
+			}
+		};
+	}
+
+	/**
+	 * Get a cached listing
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} of the viewer
+	 * @param listingType
+	 *            {@link ListingType} of the listing
+	 * @param userName
+	 *            <code>String</code> with the user the shares are listed for
+	 * @param userZone
+	 *            <code>String</code> with the zone of that user
+	 * @return <code>List</code> of {@link IRODSSharedFileOrCollection} that is
+	 *         a copy of the cached listing, or <code>null</code> if none is
+	 *         cached
+	 * @throws JargonException
+	 */
+	public synchronized List<IRODSSharedFileOrCollection> getListing(
+			final IRODSAccount irodsAccount, final ListingType listingType,
+			final String userName, final String userZone)
+			throws JargonException {
+		String listingKey = listingKey(irodsAccount, listingType, userName,
+				userZone);
+		CachedListing cachedListing = listings.get(listingKey);
+		if (cachedListing != null
+				&& cachedListing.expiresAt <= currentTimeMillis()) {
+			listings.remove(listingKey);
+			cachedListing = null;
+		}
+		if (cachedListing == null) {
+			missCount++;
+			return null;
+		}
+		hitCount++;
+		return copyListing(cachedListing.shares);
+	}
+
+	/**
+	 * Cache a listing
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} of the viewer
+	 * @param listingType
+	 *            {@link ListingType} of the listing
+	 * @param userName
+	 *            <code>String</code> with the user the shares are listed for
+	 * @param userZone
+	 *            <code>String</code> with the zone of that user
+	 * @param shares
+	 *            <code>List</code> of {@link IRODSSharedFileOrCollection} with
+	 *            the whole listing as found in iRODS, which is copied
+	 * @throws JargonException
+	 */
+	public synchronized void putListing(final IRODSAccount irodsAccount,
+			final ListingType listingType, final String userName,
+			final String userZone,
+			final List<IRODSSharedFileOrCollection> shares)
+			throws JargonException {
+		if (shares == null) {
+			throw new IllegalArgumentException("null shares");
+		}
+		listings.put(listingKey(irodsAccount, listingType, userName, userZone),
+				new CachedListing(copyListing(shares), currentTimeMillis()
+						+ timeToLiveMillis));
+	}
+
+	/**
+	 * Remove everything cached, as a change to one share may show in the
+	 * listings of any number of users
+	 */
+	public synchronized void clear() {
+		listings.clear();
+		log.debug("cleared share listings");
+	}
+
+	/**
+	 * @return <code>int</code> with the number of listings held
+	 */
+	public synchronized int getListingCount() {
+		return listings.size();
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	public long getTimeToLiveMillis() {
+		return timeToLiveMillis;
+	}
+
+	/**
+	 * The current time, which tests may override
+	 *
+	 * @return <code>long</code> with the time in milliseconds
+	 */
+	protected long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "ShareListingCache [timeToLiveMillis=" + timeToLiveMillis
+				+ ", listings=" + listings.size() + ", hitCount=" + hitCount
+				+ ", missCount=" + missCount + "]";
+	}
+
+	/**
+	 * Key of a listing as seen by the viewing account
+	 */
+	private static String listingKey(final IRODSAccount irodsAccount,
+			final ListingType listingType, final String userName,
+			final String userZone) {
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+		if (listingType == null) {
+			throw new IllegalArgumentException("null listingType");
+		}
+		if (userName == null || userName.isEmpty()) {
+			throw new IllegalArgumentException("null or empty userName");
+		}
+		if (userZone == null) {
+			throw new IllegalArgumentException("null userZone");
+		}
+		StringBuilder sb = new StringBuilder();
+		sb.append(irodsAccount.getUserName());
+		sb.append('#');
+		sb.append(irodsAccount.getZone());
+		sb.append('@');
+		sb.append(irodsAccount.getHost());
+		sb.append(':');
+		sb.append(irodsAccount.getPort());
+		sb.append('/');
+		sb.append(listingType);
+		sb.append('/');
+		sb.append(userName);
+		sb.append('#');
+		sb.append(userZone);
+		return sb.toString();
+	}
+
+	/**
+	 * Copy a listing, as the count and last result of its shares may be
+	 * changed by the caller. The share users are not copied, as they cannot
+	 * be changed.
+	 */
+	private static List<IRODSSharedFileOrCollection> copyListing(
+			final List<IRODSSharedFileOrCollection> shares)
+			throws JargonException {
+		List<IRODSSharedFileOrCollection> copy = new ArrayList<IRODSSharedFileOrCollection>(
+				shares.size());
+		for (IRODSSharedFileOrCollection share : shares) {
+			IRODSSharedFileOrCollection copyShare = new IRODSSharedFileOrCollection(
+					share.getMetadataDomain(), share.getDomainUniqueName(),
+					share.getShareName(), share.getShareOwner(),
+					share.getShareOwnerZone(), share.getShareUsers());
+			copyShare.setCount(share.getCount());
+			copyShare.setLastResult(share.isLastResult());
+			copyShare.setTotalRecords(share.getTotalRecords());
+			copy.add(copyShare);
+		}
+		return copy;
+	}
+
+	/**
+	 * The listing of one key, until an expiry time
+	 */
+	private static class CachedListing {
+		private final List<IRODSSharedFileOrCollection> shares;
+		private final long expiresAt;
+
+		CachedListing(final List<IRODSSharedFileOrCollection> shares,
+				final long expiresAt) {
+			this.shares = shares;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
@@ -0,0 +1,31 @@
+package org.irods.jargon.usertagging.sharing;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.usertagging.domain.IRODSSharedFileOrCollection;
+
+/**
+ * Listener for the shares found by a streaming listing in the
+ * {@link IRODSSharingService}. Each share is given once all of its users are
+ * known, so a caller may show the first shares while later pages of the
+ * listing are still being read.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public interface SharedFileOrCollectionListener {
+
+	/**
+	 * Receive the next share of a listing. The count of the share is its
+	 * position in the listing, starting at one, and the last share is marked
+	 * as the last result.
+	 *
+	 * @param irodsSharedFileOrCollection
+	 *            {@link IRODSSharedFileOrCollection} with the share and its
+	 *            users
+	 * @throws JargonException
+	 *             which stops the listing, and is thrown to the caller
+	 */
+	void nextShare(IRODSSharedFileOrCollection irodsSharedFileOrCollection)
+			throws JargonException;
+
+}
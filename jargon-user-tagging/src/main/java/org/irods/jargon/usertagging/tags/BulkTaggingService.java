@@ -0,0 +1,88 @@
+package org.irods.jargon.usertagging.tags;
+
+import java.util.List;
+
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.usertagging.domain.BulkTagOperationResult;
+
+/**
+ * Service to add or remove a set of tags of the logged-in user across many
+ * collections and data objects at once. The existing tags are found with a
+ * query per parent collection, or per tree, rather than a lookup per object,
+ * and only the changes are sent to iRODS, as a pipeline of metadata requests
+ * over one connection.
+ * <p/>
+ * Tags are given as a free tag string, delimited by spaces or commas, as for
+ * the {@link FreeTaggingService}. Unlike that service, tags that are not named
+ * are left alone.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public interface BulkTaggingService {
+
+	/**
+	 * Add tags to each of a list of collections and data objects
+	 *
+	 * @param irodsAbsolutePaths
+	 *            <code>List</code> of <code>String</code> with the absolute
+	 *            paths of collections and data objects
+	 * @param tags
+	 *            <code>String</code> with the free tags to add
+	 * @return <code>List</code> of {@link BulkTagOperationResult} with an
+	 *         entry per path and tag, in the order of the paths
+	 * @throws JargonException
+	 */
+	List<BulkTagOperationResult> addTagsToPaths(
+			List<String> irodsAbsolutePaths, String tags)
+			throws JargonException;
+
+	/**
+	 * Remove tags from each of a list of collections and data objects
+	 *
+	 * @param irodsAbsolutePaths
+	 *            <code>List</code> of <code>String</code> with the absolute
+	 *            paths of collections and data objects
+	 * @param tags
+	 *            <code>String</code> with the free tags to remove
+	 * @return <code>List</code> of {@link BulkTagOperationResult} with an
+	 *         entry per path and tag, in the order of the paths
+	 * @throws JargonException
+	 */
+	List<BulkTagOperationResult> removeTagsFromPaths(
+			List<String> irodsAbsolutePaths, String tags)
+			throws JargonException;
+
+	/**
+	 * Add tags to a collection, and to every collection and data object
+	 * beneath it
+	 *
+	 * @param collectionAbsolutePath
+	 *            <code>String</code> with the absolute path of the top
+	 *            collection
+	 * @param tags
+	 *            <code>String</code> with the free tags to add
+	 * @return <code>List</code> of {@link BulkTagOperationResult} with an
+	 *         entry per collection or data object and tag
+	 * @throws JargonException
+	 */
+	List<BulkTagOperationResult> addTagsToCollectionTree(
+			String collectionAbsolutePath, String tags) throws JargonException;
+
+	/**
+	 * Remove tags from a collection, and from every collection and data object
+	 * beneath it
+	 *
+	 * @param collectionAbsolutePath
+	 *            <code>String</code> with the absolute path of the top
+	 *            collection
+	 * @param tags
+	 *            <code>String</code> with the free tags to remove
+	 * @return <code>List</code> of {@link BulkTagOperationResult} with an
+	 *         entry per collection or data object and tag
+	 * @throws JargonException
+	 */
+	List<BulkTagOperationResult> removeTagsFromCollectionTree(
+			String collectionAbsolutePath, String tags) throws JargonException;
+
+}
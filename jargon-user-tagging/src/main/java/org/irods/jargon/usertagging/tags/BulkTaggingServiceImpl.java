@@ -0,0 +1,610 @@
+package org.irods.jargon.usertagging.tags;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.ModAvuMetadataInp;
+import org.irods.jargon.core.pub.BulkAVUOperationResponse;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.pub.domain.AvuData;
+import org.irods.jargon.core.pub.domain.ObjStat;
+import org.irods.jargon.core.query.GenQueryBuilderException;
+import org.irods.jargon.core.query.IRODSGenQueryBuilder;
+import org.irods.jargon.core.query.IRODSQueryResultRow;
+import org.irods.jargon.core.query.MetaDataAndDomainData.MetadataDomain;
+import org.irods.jargon.core.query.QueryConditionOperators;
+import org.irods.jargon.core.query.RodsGenQueryEnum;
+import org.irods.jargon.core.utils.CollectionAndPath;
+import org.irods.jargon.core.utils.GenQueryPagingUtils;
+import org.irods.jargon.core.utils.MiscIRODSUtils;
+import org.irods.jargon.usertagging.AbstractIRODSTaggingService;
+import org.irods.jargon.usertagging.domain.BulkTagOperationResult;
+import org.irods.jargon.usertagging.domain.BulkTagOperationResult.ResultStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Service to add or remove tags across many collections and data objects.
+ * <p/>
+ * The paths of a list are checked with a batched stat, then the existing tags
+ * are found with a query per parent collection for the data objects, and
+ * another for the collections. A tree is listed, and its existing tags found,
+ * with a query for the top collection and one for everything beneath it. Each
+ * query is restricted to the named tags of the logged-in user, and every page
+ * of its results is read.
+ * <p/>
+ * The changes are sent with
+ * <code>PipelinedProtocolExtensionPoint.irodsFunctionPipelined()</code>, which
+ * writes up to <code>bulk.avu.pipeline.depth</code> metadata requests ahead of
+ * their responses, in batches of {@link #REQUEST_BATCH_SIZE} requests.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public final class BulkTaggingServiceImpl extends AbstractIRODSTaggingService
+		implements BulkTaggingService {
+
+	public static final Logger log = LoggerFactory
+			.getLogger(BulkTaggingServiceImpl.class);
+
+	/**
+	 * The most metadata requests held before they are sent
+	 */
+	public static final int REQUEST_BATCH_SIZE = 1000;
+
+	private final TagCloudCache tagCloudCache;
+
+	/**
+	 * Static initializer used to create instances of the service.
+	 *
+	 * @param irodsAccessObjectFactory
+	 *            <code>IRODSAccessObjectFactory</code> that can create various
+	 *            iRODS Access Objects.
+	 * @param irodsAccount
+	 *            <code>IRODSAccount</code> that describes the target server and
+	 *            credentials.
+	 * @return instance of the <code>BulkTaggingService</code>
+	 */
+	public static BulkTaggingService instance(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount) {
+		return new BulkTaggingServiceImpl(irodsAccessObjectFactory,
+				irodsAccount, null);
+	}
+
+	/**
+	 * Static initializer used to create instances of the service that remove
+	 * the cloud of the user from a cache when tags are changed.
+	 *
+	 * @param irodsAccessObjectFactory
+	 *            <code>IRODSAccessObjectFactory</code> that can create various
+	 *            iRODS Access Objects.
+	 * @param irodsAccount
+	 *            <code>IRODSAccount</code> that describes the target server and
+	 *            credentials.
+	 * @param tagCloudCache
+	 *            {@link TagCloudCache} shared with the tag cloud services,
+	 *            which may be <code>null</code>
+	 * @return instance of the <code>BulkTaggingService</code>
+	 */
+	public static BulkTaggingService instance(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount, final TagCloudCache tagCloudCache) {
+		return new BulkTaggingServiceImpl(irodsAccessObjectFactory,
+				irodsAccount, tagCloudCache);
+	}
+
+	private BulkTaggingServiceImpl(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount, final TagCloudCache tagCloudCache) {
+		super(irodsAccessObjectFactory, irodsAccount);
+		this.tagCloudCache = tagCloudCache;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.usertagging.tags.BulkTaggingService#addTagsToPaths(java
+	 * .util.List, java.lang.String)
+	 */
+	@Override
+	public List<BulkTagOperationResult> addTagsToPaths(
+			final List<String> irodsAbsolutePaths, final String tags)
+			throws JargonException {
+		log.info("addTagsToPaths()");
+		return tagPaths(irodsAbsolutePaths, tags, true);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.usertagging.tags.BulkTaggingService#removeTagsFromPaths
+	 * (java.util.List, java.lang.String)
+	 */
+	@Override
+	public List<BulkTagOperationResult> removeTagsFromPaths(
+			final List<String> irodsAbsolutePaths, final String tags)
+			throws JargonException {
+		log.info("removeTagsFromPaths()");
+		return tagPaths(irodsAbsolutePaths, tags, false);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * org.irods.jargon.usertagging.tags.BulkTaggingService#addTagsToCollectionTree
+	 * (java.lang.String, java.lang.String)
+	 */
+	@Override
+	public List<BulkTagOperationResult> addTagsToCollectionTree(
+			final String collectionAbsolutePath, final String tags)
+			throws JargonException {
+		log.info("addTagsToCollectionTree()");
+		return tagCollectionTree(collectionAbsolutePath, tags, true);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.irods.jargon.usertagging.tags.BulkTaggingService#
+	 * removeTagsFromCollectionTree(java.lang.String, java.lang.String)
+	 */
+	@Override
+	public List<BulkTagOperationResult> removeTagsFromCollectionTree(
+			final String collectionAbsolutePath, final String tags)
+			throws JargonException {
+		log.info("removeTagsFromCollectionTree()");
+		return tagCollectionTree(collectionAbsolutePath, tags, false);
+	}
+
+	private List<BulkTagOperationResult> tagPaths(
+			final List<String> irodsAbsolutePaths, final String tags,
+			final boolean add) throws JargonException {
+
+		if (irodsAbsolutePaths == null || irodsAbsolutePaths.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty irodsAbsolutePaths");
+		}
+
+		List<String> tagList = parseTags(tags);
+		log.info("tags:{}", tagList);
+		log.info("for {} paths", irodsAbsolutePaths.size());
+
+		Map<String, ObjStat> objStats = getIrodsAccessObjectFactory()
+				.getCollectionAndDataObjectListAndSearchAO(getIrodsAccount())
+				.retrieveObjectStatsForPaths(irodsAbsolutePaths);
+
+		// targets in the order given, and the names to look up by parent
+		Map<String, MetadataDomain> targets = new LinkedHashMap<String, MetadataDomain>();
+		Set<String> dataObjectParents = new LinkedHashSet<String>();
+		Set<String> collectionParents = new LinkedHashSet<String>();
+		for (String irodsAbsolutePath : irodsAbsolutePaths) {
+			if (irodsAbsolutePath == null || irodsAbsolutePath.isEmpty()) {
+				throw new IllegalArgumentException(
+						"null or empty path in irodsAbsolutePaths");
+			}
+			ObjStat objStat = objStats.get(irodsAbsolutePath);
+			if (objStat == null) {
+				targets.put(irodsAbsolutePath, null);
+				continue;
+			}
+			CollectionAndPath collectionAndPath = MiscIRODSUtils
+					.separateCollectionAndPathFromGivenAbsolutePath(irodsAbsolutePath);
+			String parent = collectionAndPath.getCollectionParent().isEmpty() ? "/"
+					: collectionAndPath.getCollectionParent();
+			String path = childPath(parent, collectionAndPath.getChildName());
+			if (objStat.isSomeTypeOfCollection()) {
+				targets.put(path, MetadataDomain.COLLECTION);
+				collectionParents.add(parent);
+			} else {
+				targets.put(path, MetadataDomain.DATA);
+				dataObjectParents.add(parent);
+			}
+		}
+
+		Map<String, Set<String>> existingTags = new HashMap<String, Set<String>>();
+		for (String parent : dataObjectParents) {
+			IRODSGenQueryBuilder builder = buildDataObjectTagQuery(tagList);
+			builder.addConditionAsGenQueryField(
+					RodsGenQueryEnum.COL_COLL_NAME,
+					QueryConditionOperators.EQUAL, parent);
+			addExistingTags(existingTags, builder);
+		}
+
+		for (String parent : collectionParents) {
+			IRODSGenQueryBuilder builder = buildCollectionTagQuery(tagList);
+			builder.addConditionAsGenQueryField(
+					RodsGenQueryEnum.COL_COLL_PARENT_NAME,
+					QueryConditionOperators.EQUAL, parent);
+			addExistingTags(existingTags, builder);
+		}
+
+		return applyChanges(targets, existingTags, tagList, add);
+	}
+
+	private List<BulkTagOperationResult> tagCollectionTree(
+			final String collectionAbsolutePath, final String tags,
+			final boolean add) throws JargonException {
+
+		if (collectionAbsolutePath == null || collectionAbsolutePath.isEmpty()) {
+			throw new IllegalArgumentException(
+					"null or empty collectionAbsolutePath");
+		}
+
+		List<String> tagList = parseTags(tags);
+		log.info("tags:{}", tagList);
+		log.info("for tree at:{}", collectionAbsolutePath);
+
+		ObjStat objStat = getObjStatForAbsolutePath(collectionAbsolutePath);
+		if (!objStat.isSomeTypeOfCollection()) {
+			throw new JargonException("not a collection:"
+					+ collectionAbsolutePath);
+		}
+
+		String root = collectionAbsolutePath;
+		while (root.length() > 1 && root.endsWith("/")) {
+			root = root.substring(0, root.length() - 1);
+		}
+		String descendantPrefix = root.equals("/") ? "/" : root + "/";
+		String descendants = descendantPrefix + "%";
+
+		Map<String, MetadataDomain> targets = new LinkedHashMap<String, MetadataDomain>();
+		targets.put(root, MetadataDomain.COLLECTION);
+		Map<String, Set<String>> existingTags = new HashMap<String, Set<String>>();
+
+		// the root, then everything beneath it
+		IRODSGenQueryBuilder builder = buildCollectionTagQuery(tagList);
+		builder.addConditionAsGenQueryField(RodsGenQueryEnum.COL_COLL_NAME,
+				QueryConditionOperators.EQUAL, root);
+		addExistingTags(existingTags, builder);
+
+		builder = new IRODSGenQueryBuilder(true, null);
+		try {
+			builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_NAME);
+		} catch (GenQueryBuilderException e) {
+			throw new JargonException("error building tree query", e);
+		}
+		builder.addConditionAsGenQueryField(RodsGenQueryEnum.COL_COLL_NAME,
+				QueryConditionOperators.LIKE, descendants);
+		for (IRODSQueryResultRow row : GenQueryPagingUtils.queryAllRows(
+				getIrodsAccessObjectFactory(), getIrodsAccount(), builder,
+				null)) {
+			if (isInTree(row.getColumn(0), root, descendantPrefix)) {
+				targets.put(row.getColumn(0), MetadataDomain.COLLECTION);
+			}
+		}
+
+		builder = buildCollectionTagQuery(tagList);
+		builder.addConditionAsGenQueryField(RodsGenQueryEnum.COL_COLL_NAME,
+				QueryConditionOperators.LIKE, descendants);
+		addExistingTags(existingTags, builder);
+
+		for (QueryConditionOperators operator : new QueryConditionOperators[] {
+				QueryConditionOperators.EQUAL, QueryConditionOperators.LIKE }) {
+			String collectionCondition = operator == QueryConditionOperators.EQUAL ? root
+					: descendants;
+
+			builder = new IRODSGenQueryBuilder(true, null);
+			try {
+				builder.addSelectAsGenQueryValue(
+						RodsGenQueryEnum.COL_COLL_NAME)
+						.addSelectAsGenQueryValue(
+								RodsGenQueryEnum.COL_DATA_NAME);
+			} catch (GenQueryBuilderException e) {
+				throw new JargonException("error building tree query", e);
+			}
+			builder.addConditionAsGenQueryField(
+					RodsGenQueryEnum.COL_COLL_NAME, operator,
+					collectionCondition);
+			for (IRODSQueryResultRow row : GenQueryPagingUtils.queryAllRows(
+					getIrodsAccessObjectFactory(), getIrodsAccount(), builder,
+					null)) {
+				if (isInTree(row.getColumn(0), root, descendantPrefix)) {
+					targets.put(childPath(row.getColumn(0), row.getColumn(1)),
+							MetadataDomain.DATA);
+				}
+			}
+
+			builder = buildDataObjectTagQuery(tagList);
+			builder.addConditionAsGenQueryField(
+					RodsGenQueryEnum.COL_COLL_NAME, operator,
+					collectionCondition);
+			addExistingTags(existingTags, builder);
+		}
+
+		log.info("tree has {} collections and data objects", targets.size());
+		return applyChanges(targets, existingTags, tagList, add);
+	}
+
+	/**
+	 * Build a query for the given tags of the user on data objects, which
+	 * selects the collection, data name and tag
+	 */
+	private IRODSGenQueryBuilder buildDataObjectTagQuery(
+			final List<String> tagList) throws JargonException {
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		try {
+			builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_NAME)
+					.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_DATA_NAME)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_META_DATA_ATTR_NAME);
+		} catch (GenQueryBuilderException e) {
+			throw new JargonException("error building tag query", e);
+		}
+		builder.addConditionAsGenQueryField(
+				RodsGenQueryEnum.COL_META_DATA_ATTR_UNITS,
+				QueryConditionOperators.EQUAL,
+				UserTaggingConstants.TAG_AVU_UNIT)
+				.addConditionAsGenQueryField(
+						RodsGenQueryEnum.COL_META_DATA_ATTR_VALUE,
+						QueryConditionOperators.EQUAL,
+						getIrodsAccount().getUserName())
+				.addConditionAsMultiValueCondition(
+						RodsGenQueryEnum.COL_META_DATA_ATTR_NAME,
+						QueryConditionOperators.IN, tagList);
+		return builder;
+	}
+
+	/**
+	 * Build a query for the given tags of the user on collections, which
+	 * selects the collection and tag
+	 */
+	private IRODSGenQueryBuilder buildCollectionTagQuery(
+			final List<String> tagList) throws JargonException {
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		try {
+			builder.addSelectAsGenQueryValue(RodsGenQueryEnum.COL_COLL_NAME)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_META_COLL_ATTR_NAME);
+		} catch (GenQueryBuilderException e) {
+			throw new JargonException("error building tag query", e);
+		}
+		builder.addConditionAsGenQueryField(
+				RodsGenQueryEnum.COL_META_COLL_ATTR_UNITS,
+				QueryConditionOperators.EQUAL,
+				UserTaggingConstants.TAG_AVU_UNIT)
+				.addConditionAsGenQueryField(
+						RodsGenQueryEnum.COL_META_COLL_ATTR_VALUE,
+						QueryConditionOperators.EQUAL,
+						getIrodsAccount().getUserName())
+				.addConditionAsMultiValueCondition(
+						RodsGenQueryEnum.COL_META_COLL_ATTR_NAME,
+						QueryConditionOperators.IN, tagList);
+		return builder;
+	}
+
+	/**
+	 * Run a tag query built by {@link #buildDataObjectTagQuery(List)} or
+	 * {@link #buildCollectionTagQuery(List)}, adding each tag found to the
+	 * tags of its path
+	 */
+	private void addExistingTags(final Map<String, Set<String>> existingTags,
+			final IRODSGenQueryBuilder builder) throws JargonException {
+		for (IRODSQueryResultRow row : GenQueryPagingUtils.queryAllRows(
+				getIrodsAccessObjectFactory(), getIrodsAccount(), builder,
+				null)) {
+			List<String> columns = row.getColumnsAsList();
+			String path;
+			if (columns.size() == 3) {
+				path = childPath(columns.get(0), columns.get(1));
+			} else {
+				path = columns.get(0);
+			}
+			Set<String> tags = existingTags.get(path);
+			if (tags == null) {
+				tags = new HashSet<String>();
+				existingTags.put(path, tags);
+			}
+			tags.add(columns.get(columns.size() - 1));
+		}
+	}
+
+	/**
+	 * Compare the tags of each target to the desired tags, and send the
+	 * requests for the differences
+	 *
+	 * @param targets
+	 *            <code>Map</code> of path to {@link MetadataDomain}, which is
+	 *            <code>null</code> for a path that was not found
+	 * @param existingTags
+	 *            <code>Map</code> of path to the named tags it has
+	 * @param tagList
+	 *            <code>List</code> of the tags to add or remove
+	 * @param add
+	 *            <code>boolean</code> that is <code>true</code> to add the
+	 *            tags, <code>false</code> to remove them
+	 * @return <code>List</code> of {@link BulkTagOperationResult} in target
+	 *         and tag order
+	 * @throws JargonException
+	 */
+	private List<BulkTagOperationResult> applyChanges(
+			final Map<String, MetadataDomain> targets,
+			final Map<String, Set<String>> existingTags,
+			final List<String> tagList, final boolean add)
+			throws JargonException {
+
+		List<BulkTagOperationResult> results = new ArrayList<BulkTagOperationResult>(
+				targets.size() * tagList.size());
+		List<ModAvuMetadataInp> requests = new ArrayList<ModAvuMetadataInp>();
+		List<Integer> requestPositions = new ArrayList<Integer>();
+		int sent = 0;
+		boolean changed = false;
+
+		try {
+			for (Map.Entry<String, MetadataDomain> target : targets
+					.entrySet()) {
+				String path = target.getKey();
+				MetadataDomain metadataDomain = target.getValue();
+				Set<String> tags = existingTags.get(path);
+
+				for (String tag : tagList) {
+					if (metadataDomain == null) {
+						results.add(BulkTagOperationResult.instance(path,
+								null, tag, ResultStatus.MISSING_TARGET,
+								"no collection or data object at path"));
+						continue;
+					}
+
+					boolean tagged = tags != null && tags.contains(tag);
+					if (tagged == add) {
+						results.add(BulkTagOperationResult.instance(path,
+								metadataDomain, tag, ResultStatus.UNCHANGED,
+								""));
+						continue;
+					}
+
+					changed = true;
+					requests.add(buildRequest(path, metadataDomain, tag, add));
+					requestPositions.add(results.size());
+					// replaced by the outcome when the request is sent
+					results.add(null);
+
+					if (requests.size() >= REQUEST_BATCH_SIZE) {
+						sent += sendRequests(requests, requestPositions,
+								results, add);
+					}
+				}
+			}
+
+			sent += sendRequests(requests, requestPositions, results, add);
+		} finally {
+			if (tagCloudCache != null && changed) {
+				tagCloudCache.invalidate(getIrodsAccount());
+			}
+		}
+
+		log.info("sent {} tag changes", sent);
+		return results;
+	}
+
+	private ModAvuMetadataInp buildRequest(final String path,
+			final MetadataDomain metadataDomain, final String tag,
+			final boolean add) throws JargonException {
+		AvuData avuData = AvuData.instance(tag, getIrodsAccount()
+				.getUserName(), UserTaggingConstants.TAG_AVU_UNIT);
+		if (metadataDomain == MetadataDomain.COLLECTION) {
+			return add ? ModAvuMetadataInp.instanceForAddCollectionMetadata(
+					path, avuData) : ModAvuMetadataInp
+					.instanceForDeleteCollectionMetadata(path, avuData);
+		}
+		return add ? ModAvuMetadataInp.instanceForAddDataObjectMetadata(path,
+				avuData) : ModAvuMetadataInp
+				.instanceForDeleteDataObjectMetadata(path, avuData);
+	}
+
+	/**
+	 * Send the held requests as a pipeline, and put the outcome of each in the
+	 * results at its position
+	 *
+	 * @return <code>int</code> with the number of requests sent
+	 */
+	private int sendRequests(final List<ModAvuMetadataInp> requests,
+			final List<Integer> requestPositions,
+			final List<BulkTagOperationResult> results, final boolean add)
+			throws JargonException {
+
+		if (requests.isEmpty()) {
+			return 0;
+		}
+
+		log.info("sending {} tag requests", requests.size());
+		List<JargonException> errors = getIrodsAccessObjectFactory()
+				.getPipelinedProtocolExtensionPoint(getIrodsAccount())
+				.irodsFunctionPipelined(
+						requests,
+						getIrodsAccessObjectFactory().getJargonProperties()
+								.getBulkAVUPipelineDepth());
+
+		for (int i = 0; i < requests.size(); i++) {
+			results.set(requestPositions.get(i),
+					buildResult(requests.get(i), errors.get(i), add));
+		}
+
+		int count = requests.size();
+		requests.clear();
+		requestPositions.clear();
+		return count;
+	}
+
+	private BulkTagOperationResult buildResult(
+			final ModAvuMetadataInp request, final JargonException error,
+			final boolean add) {
+
+		MetadataDomain metadataDomain = request.getMetadataTargetType() == ModAvuMetadataInp.MetadataTargetType.COLLECTION ? MetadataDomain.COLLECTION
+				: MetadataDomain.DATA;
+		String path = request.getTargetIdentifier();
+		String tag = request.getAvuData().getAttribute();
+
+		if (error == null) {
+			return BulkTagOperationResult.instance(path, metadataDomain, tag,
+					ResultStatus.OK, "");
+		}
+
+		String message = error.getMessage() == null ? "" : error.getMessage();
+		log.warn("tag request failed for {}:{}", path, message);
+		BulkAVUOperationResponse.ResultStatus avuStatus = BulkAVUOperationResponse
+				.resultStatusForError(error);
+		if (add
+				&& avuStatus == BulkAVUOperationResponse.ResultStatus.DUPLICATE_AVU) {
+			// added since the existing tags were found
+			return BulkTagOperationResult.instance(path, metadataDomain, tag,
+					ResultStatus.UNCHANGED, message);
+		} else if (avuStatus == BulkAVUOperationResponse.ResultStatus.MISSING_METADATA_TARGET) {
+			return BulkTagOperationResult.instance(path, metadataDomain, tag,
+					ResultStatus.MISSING_TARGET, message);
+		}
+		return BulkTagOperationResult.instance(path, metadataDomain, tag,
+				ResultStatus.ERROR, message);
+	}
+
+	/**
+	 * Split a free tag string into its distinct tags
+	 */
+	private List<String> parseTags(final String tags) throws JargonException {
+		if (tags == null) {
+			throw new IllegalArgumentException("null tags");
+		}
+
+		Set<String> distinctTags = new LinkedHashSet<String>(
+				Arrays.asList(FreeTaggingServiceImpl.PARSE_FREE_TAGS_PATTERN
+						.split(tags.replaceAll("\"", "").replaceAll("&quot;", ""))));
+		distinctTags.remove("");
+
+		if (distinctTags.isEmpty()) {
+			throw new JargonException("no tags were found");
+		}
+
+		return new ArrayList<String>(distinctTags);
+	}
+
+	/**
+	 * Underscores and percent signs in a collection name are wildcards in a
+	 * like condition, so check that a collection found by a tree query really
+	 * is the root or beneath it, and not a sibling that happens to match
+	 */
+	private static boolean isInTree(final String collectionName,
+			final String root, final String descendantPrefix) {
+		return collectionName.equals(root)
+				|| collectionName.startsWith(descendantPrefix);
+	}
+
+	private static String childPath(final String parent, final String child) {
+		if (parent.endsWith("/")) {
+			return parent + child;
+		}
+		return parent + "/" + child;
+	}
+
+}
@@ -1,29 +1,32 @@
 package org.irods.jargon.usertagging.tags;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import org.irods.jargon.core.connection.IRODSAccount;
-import org.irods.jargon.core.exception.DataNotFoundException;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.pub.DataAOHelper;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
-import org.irods.jargon.core.pub.IRODSGenQueryExecutor;
 import org.irods.jargon.core.pub.aohelper.CollectionAOHelper;
 import org.irods.jargon.core.pub.io.IRODSFile;
 import org.irods.jargon.core.pub.io.IRODSFileFactory;
 import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
 import org.irods.jargon.core.query.GenQueryBuilderException;
 import org.irods.jargon.core.query.IRODSGenQueryBuilder;
-import org.irods.jargon.core.query.IRODSGenQueryFromBuilder;
 import org.irods.jargon.core.query.IRODSQueryResultRow;
-import org.irods.jargon.core.query.IRODSQueryResultSetInterface;
-import org.irods.jargon.core.query.JargonQueryException;
 import org.irods.jargon.core.query.MetaDataAndDomainData.MetadataDomain;
 import org.irods.jargon.core.query.QueryConditionOperators;
 import org.irods.jargon.core.query.RodsGenQueryEnum;
 import org.irods.jargon.core.query.UserAnnotatedCatalogItem;
+import org.irods.jargon.core.utils.GenQueryPagingUtils;
 import org.irods.jargon.usertagging.AbstractIRODSTaggingService;
 import org.irods.jargon.usertagging.domain.IRODSTagGrouping;
 import org.irods.jargon.usertagging.domain.IRODSTagValue;
@@ -56,7 +59,21 @@ public final class FreeTaggingServiceImpl extends AbstractIRODSTaggingService
 	public static final Logger log = LoggerFactory
 			.getLogger(FreeTaggingServiceImpl.class);
 
+	/**
+	 * Indexes of the id and tag name in the columns of a data object search,
+	 * which are the columns of a data object listing and then the tag
+	 */
+	private static final int DATA_ID_COLUMN = 2;
+	private static final int DATA_TAG_COLUMN = 5;
+
+	/**
+	 * Indexes of the id and tag name in the columns of a collection search
+	 */
+	private static final int COLLECTION_ID_COLUMN = 4;
+	private static final int COLLECTION_TAG_COLUMN = 8;
+
 	private final IRODSTaggingService irodsTaggingService;
+	private final TagCloudCache tagCloudCache;
 
 	/**
 	 * Static initializer that initializes the service with access to objects
@@ -74,7 +91,30 @@ public final class FreeTaggingServiceImpl extends AbstractIRODSTaggingService
 			final IRODSAccessObjectFactory irodsAccessObjectFactory,
 			final IRODSAccount irodsAccount) {
 		return new FreeTaggingServiceImpl(irodsAccessObjectFactory,
-				irodsAccount, null);
+				irodsAccount, null, null);
+	}
+
+	/**
+	 * Static initializer that initializes the service with a cache of tag
+	 * clouds, from which the cloud of the user is removed when the tags of the
+	 * user are updated.
+	 * 
+	 * @param irodsAccessObjectFactory
+	 *            <code>IRODSAccessObjectFactory</code> that can create various
+	 *            iRODS Access Objects.
+	 * @param irodsAccount
+	 *            <code>IRODSAccount</code> that describes the target server and
+	 *            credentials.
+	 * @param tagCloudCache
+	 *            {@link TagCloudCache} shared with the tag cloud services,
+	 *            which may be <code>null</code>
+	 * @return <code>FreeTaggingService</code> implementation instance.
+	 */
+	public static FreeTaggingService instance(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount, final TagCloudCache tagCloudCache) {
+		return new FreeTaggingServiceImpl(irodsAccessObjectFactory,
+				irodsAccount, null, tagCloudCache);
 	}
 
 	/**
@@ -101,7 +141,7 @@ public final class FreeTaggingServiceImpl extends AbstractIRODSTaggingService
 			final IRODSTaggingService irodsTaggingService)
 			throws JargonException {
 		return new FreeTaggingServiceImpl(irodsAccessObjectFactory,
-				irodsAccount, irodsTaggingService);
+				irodsAccount, irodsTaggingService, null);
 	}
 
 	/**
@@ -119,13 +159,18 @@ public final class FreeTaggingServiceImpl extends AbstractIRODSTaggingService
 	 *            implementation that will provide CRUD operations to iRODS
 	 *            tags. This may be left as null, and a default service will be
 	 *            initialized.
+	 * @param tagCloudCache
+	 *            {@link TagCloudCache} to remove the cloud of the user from
+	 *            when tags are updated, or <code>null</code>
 	 * @throws JargonException
 	 */
 	private FreeTaggingServiceImpl(
 			final IRODSAccessObjectFactory irodsAccessObjectFactory,
 			final IRODSAccount irodsAccount,
-			final IRODSTaggingService irodsTaggingService) {
+			final IRODSTaggingService irodsTaggingService,
+			final TagCloudCache tagCloudCache) {
 		super(irodsAccessObjectFactory, irodsAccount);
+		this.tagCloudCache = tagCloudCache;
 
 		if (irodsTaggingService == null) {
 			this.irodsTaggingService = IRODSTaggingServiceImpl.instance(
@@ -329,31 +374,40 @@ public final class FreeTaggingServiceImpl extends AbstractIRODSTaggingService
 		 * Jargon can only make a best-effort here.
 		 */
 
-		if (irodsTagGrouping.getSpaceDelimitedTagsForDomain().trim().isEmpty()) {
-			log.info("I desire no tags, so delete any tags that exist");
-
-			for (IRODSTagValue irodsTagValue : currentTags) {
-				log.debug("deleting current tag:{}", currentTags);
-				irodsTaggingService.removeTagFromGivenDomain(irodsTagValue,
-						irodsTagGrouping.getMetadataDomain(),
-						irodsTagGrouping.getDomainUniqueName());
-			}
-		} else {
-			for (String desiredTag : userTags) {
-				log.debug("processing desiredTag:{}", desiredTag);
-				processSuppliedTagAgainstCurrentTags(desiredTag, currentTags,
-						irodsTagGrouping);
+		try {
+			if (irodsTagGrouping.getSpaceDelimitedTagsForDomain().trim()
+					.isEmpty()) {
+				log.info("I desire no tags, so delete any tags that exist");
+
+				for (IRODSTagValue irodsTagValue : currentTags) {
+					log.debug("deleting current tag:{}", currentTags);
+					irodsTaggingService.removeTagFromGivenDomain(
+							irodsTagValue,
+							irodsTagGrouping.getMetadataDomain(),
+							irodsTagGrouping.getDomainUniqueName());
+				}
+			} else {
+				for (String desiredTag : userTags) {
+					log.debug("processing desiredTag:{}", desiredTag);
+					processSuppliedTagAgainstCurrentTags(desiredTag,
+							currentTags, irodsTagGrouping);
+				}
 			}
-		}
 
-		/*
-		 * Loop thru current tags, if they are no longer desired (not in the
-		 * free tag area), then remove them from iRODS
-		 */
+			/*
+			 * Loop thru current tags, if they are no longer desired (not in
+			 * the free tag area), then remove them from iRODS
+			 */
 
-		for (IRODSTagValue currentTag : currentTags) {
-			processCurrentTagAgainstDesiredTags(currentTag, userTags,
-					irodsTagGrouping);
+			for (IRODSTagValue currentTag : currentTags) {
+				processCurrentTagAgainstDesiredTags(currentTag, userTags,
+						irodsTagGrouping);
+			}
+		} finally {
+			// the cloud changes even when only some of the updates are made
+			if (tagCloudCache != null) {
+				tagCloudCache.invalidate(irodsAccount);
+			}
 		}
 
 		log.debug("updates complete");
@@ -463,88 +517,62 @@ public final class FreeTaggingServiceImpl extends AbstractIRODSTaggingService
 
 		String[] searchTagValues = extractIndividualTagsFromFreeTagString(searchTags);
 
-		if (searchTagValues.length == 0) {
+		// each tag is searched once, in one query per domain
+		Set<String> distinctTags = new LinkedHashSet<String>(
+				Arrays.asList(searchTagValues));
+		distinctTags.remove("");
+
+		if (distinctTags.isEmpty()) {
 			throw new JargonException("no searchTags were found");
 		}
 
+		List<String> searchTagList = new ArrayList<String>(distinctTags);
+		log.debug("searchTags to add to query:{}", searchTagList);
+
 		List<CollectionAndDataObjectListingEntry> resultEntries = new ArrayList<CollectionAndDataObjectListingEntry>();
 
-		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, true,
-				null);
+		// do data objects first, no replicas
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
 		try {
 			DataAOHelper.buildDataObjectQuerySelectsNoReplicationInfo(builder);
+			builder.addSelectAsGenQueryValue(
+					RodsGenQueryEnum.COL_META_DATA_ATTR_NAME);
 		} catch (GenQueryBuilderException e) {
 			throw new JargonException(e);
 		}
 
-		// do data objects first, no replicas
-		// builder.addConditionAsGenQueryField(RodsGenQueryEnum.COL_DATA_REPL_NUM,
-		// QueryConditionOperators.NUMERIC_EQUAL, 0);
-
 		builder.addConditionAsGenQueryField(
 				RodsGenQueryEnum.COL_META_DATA_ATTR_UNITS,
 				QueryConditionOperators.EQUAL,
-				UserTaggingConstants.TAG_AVU_UNIT);
-
-		for (String searchTag : searchTagValues) {
-			log.debug("searchTag to add to query:{}", searchTag);
-
-			builder.addConditionAsGenQueryField(
-					RodsGenQueryEnum.COL_META_DATA_ATTR_NAME,
-					QueryConditionOperators.EQUAL, searchTag);
-		}
-
-		IRODSQueryResultSetInterface resultSet;
-		IRODSGenQueryExecutor irodsGenQueryExecutor = irodsAccessObjectFactory
-				.getIRODSGenQueryExecutor(getIrodsAccount());
-
-		try {
-			IRODSGenQueryFromBuilder irodsQuery = builder
-					.exportIRODSQueryFromBuilder(getIrodsAccessObjectFactory()
-							.getJargonProperties().getMaxFilesAndDirsQueryMax());
-			resultSet = irodsGenQueryExecutor.executeIRODSQueryAndCloseResult(
-					irodsQuery, 0);
-			List<CollectionAndDataObjectListingEntry> files = new ArrayList<CollectionAndDataObjectListingEntry>(
-					resultSet.getResults().size());
-
-			/*
-			 * the query that gives the necessary data will cause duplication
-			 * when there are replicas, so discard duplicates. This is the
-			 * nature of GenQuery.
-			 */
-
-			for (IRODSQueryResultRow row : resultSet.getResults()) {
-				resultEntries
-						.add(DataAOHelper
-								.buildCollectionListEntryFromResultSetRowForDataObjectQueryNoReplicationInfo(
-										row, resultSet.getTotalRecords()));
-			}
-
-			log.info(
-					"retrieved {} data objects based on query, converting to query result entries",
-					files.size());
-
-		} catch (JargonQueryException e) {
-			log.error("query exception for  query", e);
-			throw new JargonException(
-					"error in query loading user file permissions for data object",
-					e);
-		} catch (DataNotFoundException dnf) {
-			log.info("no data found for user ACL");
-		} catch (GenQueryBuilderException e) {
-			log.error("query exception for  query", e);
-			throw new JargonException(
-					"error in query loading user file permissions for data object",
-					e);
+				UserTaggingConstants.TAG_AVU_UNIT)
+				.addConditionAsMultiValueCondition(
+						RodsGenQueryEnum.COL_META_DATA_ATTR_NAME,
+						QueryConditionOperators.IN, searchTagList);
+
+		List<IRODSQueryResultRow> rows = rowsWithEveryTag(
+				GenQueryPagingUtils.queryAllRows(getIrodsAccessObjectFactory(),
+						getIrodsAccount(), builder, null), DATA_ID_COLUMN,
+				DATA_TAG_COLUMN, searchTagList.size());
+		List<CollectionAndDataObjectListingEntry> dataObjectEntries = new ArrayList<CollectionAndDataObjectListingEntry>(
+				rows.size());
+		for (IRODSQueryResultRow row : rows) {
+			dataObjectEntries
+					.add(DataAOHelper
+							.buildCollectionListEntryFromResultSetRowForDataObjectQueryNoReplicationInfo(
+									row, rows.size()));
 		}
+		numberEntries(dataObjectEntries);
+		log.info("retrieved {} data objects based on query",
+				dataObjectEntries.size());
 
 		// now find collections
-		// buildCollectionListEntryFromResultSetRowForCollectionQuery
 
-		builder = new IRODSGenQueryBuilder(true, true, null);
+		builder = new IRODSGenQueryBuilder(true, null);
 		try {
 			CollectionAOHelper
 					.buildSelectsNeededForCollectionsInCollectionsAndDataObjectsListingEntry(builder);
+			builder.addSelectAsGenQueryValue(
+					RodsGenQueryEnum.COL_META_COLL_ATTR_NAME);
 		} catch (GenQueryBuilderException e) {
 			throw new JargonException(e);
 		}
@@ -552,44 +580,87 @@ public final class FreeTaggingServiceImpl extends AbstractIRODSTaggingService
 		builder.addConditionAsGenQueryField(
 				RodsGenQueryEnum.COL_META_COLL_ATTR_UNITS,
 				QueryConditionOperators.EQUAL,
-				UserTaggingConstants.TAG_AVU_UNIT);
-
-		for (String searchTag : searchTagValues) {
-			log.debug("searchTag to add to query:{}", searchTag);
-			builder.addConditionAsGenQueryField(
-					RodsGenQueryEnum.COL_META_COLL_ATTR_NAME,
-					QueryConditionOperators.EQUAL, searchTag);
+				UserTaggingConstants.TAG_AVU_UNIT)
+				.addConditionAsMultiValueCondition(
+						RodsGenQueryEnum.COL_META_COLL_ATTR_NAME,
+						QueryConditionOperators.IN, searchTagList);
+
+		rows = rowsWithEveryTag(
+				GenQueryPagingUtils.queryAllRows(getIrodsAccessObjectFactory(),
+						getIrodsAccount(), builder, null), COLLECTION_ID_COLUMN,
+				COLLECTION_TAG_COLUMN, searchTagList.size());
+		List<CollectionAndDataObjectListingEntry> collectionEntries = new ArrayList<CollectionAndDataObjectListingEntry>(
+				rows.size());
+		for (IRODSQueryResultRow row : rows) {
+			collectionEntries.add(CollectionAOHelper
+					.buildCollectionListEntryFromResultSetRowForCollectionQuery(
+							row, rows.size()));
 		}
+		numberEntries(collectionEntries);
+		log.info("retrieved {} collections based on query",
+				collectionEntries.size());
 
-		try {
-			IRODSGenQueryFromBuilder irodsQuery = builder
-					.exportIRODSQueryFromBuilder(getIrodsAccessObjectFactory()
-							.getJargonProperties().getMaxFilesAndDirsQueryMax());
-			resultSet = irodsGenQueryExecutor.executeIRODSQueryAndCloseResult(
-					irodsQuery, 0);
-			for (IRODSQueryResultRow row : resultSet.getResults()) {
-				resultEntries
-						.add(CollectionAOHelper
-								.buildCollectionListEntryFromResultSetRowForCollectionQuery(
-										row, resultSet.getTotalRecords()));
-			}
+		resultEntries.addAll(dataObjectEntries);
+		resultEntries.addAll(collectionEntries);
 
-		} catch (JargonQueryException e) {
-			log.error("query exception for  query", e);
-			throw new JargonException(
-					"error in query loading user file permissions for data object",
-					e);
-		} catch (DataNotFoundException dnf) {
-			log.info("no data found for user ACL");
-		} catch (GenQueryBuilderException e) {
-			log.error("query exception for  query", e);
-			throw new JargonException(
-					"error in query loading user file permissions for data object",
-					e);
+		return TagQuerySearchResult.instance(searchTags, resultEntries);
+
+	}
+
+	/**
+	 * Keep the objects that have every searched tag. The query finds objects
+	 * with any of the tags, with a row for each tag found, so an object with
+	 * every tag has a row per tag.
+	 * 
+	 * @param rows
+	 *            <code>List</code> of {@link IRODSQueryResultRow} from the
+	 *            query
+	 * @param idColumn
+	 *            <code>int</code> with the index of the id of the object
+	 * @param tagColumn
+	 *            <code>int</code> with the index of the tag name
+	 * @param tagCount
+	 *            <code>int</code> with the number of distinct searched tags
+	 * @return <code>List</code> of {@link IRODSQueryResultRow} with the first
+	 *         row of each object that has every tag, in query order
+	 * @throws JargonException
+	 */
+	private List<IRODSQueryResultRow> rowsWithEveryTag(
+			final List<IRODSQueryResultRow> rows, final int idColumn,
+			final int tagColumn, final int tagCount) throws JargonException {
+
+		Map<String, IRODSQueryResultRow> firstRows = new LinkedHashMap<String, IRODSQueryResultRow>();
+		Map<String, Set<String>> foundTags = new HashMap<String, Set<String>>();
+		for (IRODSQueryResultRow row : rows) {
+			String id = row.getColumn(idColumn);
+			Set<String> tags = foundTags.get(id);
+			if (tags == null) {
+				tags = new HashSet<String>();
+				foundTags.put(id, tags);
+				firstRows.put(id, row);
+			}
+			tags.add(row.getColumn(tagColumn));
 		}
 
-		return TagQuerySearchResult.instance(searchTags, resultEntries);
+		List<IRODSQueryResultRow> matched = new ArrayList<IRODSQueryResultRow>();
+		for (Map.Entry<String, IRODSQueryResultRow> entry : firstRows
+				.entrySet()) {
+			if (foundTags.get(entry.getKey()).size() == tagCount) {
+				matched.add(entry.getValue());
+			}
+		}
+		return matched;
+	}
 
+	/**
+	 * Number the entries of a domain, as all of the results are read at once
+	 */
+	private void numberEntries(
+			final List<CollectionAndDataObjectListingEntry> entries) {
+		for (int i = 0; i < entries.size(); i++) {
+			entries.get(i).setCount(i + 1);
+			entries.get(i).setLastResult(i == entries.size() - 1);
+		}
 	}
 
 }
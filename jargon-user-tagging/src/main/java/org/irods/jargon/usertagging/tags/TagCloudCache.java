@@ -0,0 +1,227 @@
+package org.irods.jargon.usertagging.tags;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.usertagging.domain.IRODSTagValue;
+import org.irods.jargon.usertagging.domain.TagCloudEntry;
+import org.irods.jargon.usertagging.domain.UserTagCloudView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Time to live cache of the tag cloud of each user, so that a cloud that is
+ * shown again and again is not queried from the iCAT each time. A cache is
+ * shared by the services of a {@link TaggingServiceFactoryImpl}, and the
+ * {@link FreeTaggingService} removes the cloud of a user when it updates the
+ * tags of that user.
+ * <p/>
+ * Clouds are kept per account. Tags changed by other clients, or through the
+ * {@link IRODSTaggingService} directly, are seen once the cached cloud
+ * expires. The least recently used clouds are dropped when the cache is full.
+ * <p/>
+ * This class is thread safe.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class TagCloudCache {
+
+	public static final Logger log = LoggerFactory
+			.getLogger(TagCloudCache.class);
+
+	public static final long DEFAULT_TIME_TO_LIVE_MILLIS = 60000L;
+	public static final int DEFAULT_MAX_CLOUDS = 1000;
+
+	private final long timeToLiveMillis;
+	private final LinkedHashMap<String, CachedCloud> clouds;
+	private long hitCount = 0L;
+	private long missCount = 0L;
+
+	/**
+	 * Create a cache with the default time to live and size
+	 */
+	public TagCloudCache() {
+		this(DEFAULT_MAX_CLOUDS, DEFAULT_TIME_TO_LIVE_MILLIS);
+	}
+
+	/**
+	 * Create a cache
+	 *
+	 * @param maxClouds
+	 *            <code>int</code> with the most user clouds held
+	 * @param timeToLiveMillis
+	 *            <code>long</code> with the time in milliseconds a cached
+	 *            cloud is used for
+	 */
+	public TagCloudCache(final int maxClouds, final long timeToLiveMillis) {
+		if (maxClouds <= 0) {
+			throw new IllegalArgumentException("maxClouds must be > 0");
+		}
+
+		if (timeToLiveMillis <= 0) {
+			throw new IllegalArgumentException("timeToLiveMillis must be > 0");
+		}
+
+		this.timeToLiveMillis = timeToLiveMillis;
+		clouds = new LinkedHashMap<String, CachedCloud>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					final Map.Entry<String, CachedCloud> eldest) {
+				return size() > maxClouds;
+			}
+		};
+	}
+
+	/**
+	 * Get the cached tag cloud of a user
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} of the user
+	 * @return {@link UserTagCloudView} that is a copy of the cached cloud, or
+	 *         <code>null</code> if none is cached
+	 * @throws JargonException
+	 */
+	public synchronized UserTagCloudView getTagCloud(
+			final IRODSAccount irodsAccount) throws JargonException {
+		String accountKey = accountKey(irodsAccount);
+		CachedCloud cachedCloud = clouds.get(accountKey);
+		if (cachedCloud != null
+				&& cachedCloud.expiresAt <= currentTimeMillis()) {
+			clouds.remove(accountKey);
+			cachedCloud = null;
+		}
+		if (cachedCloud == null) {
+			missCount++;
+			return null;
+		}
+		hitCount++;
+		return copyTagCloud(cachedCloud.userTagCloudView);
+	}
+
+	/**
+	 * Cache the tag cloud of a user
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} of the user
+	 * @param userTagCloudView
+	 *            {@link UserTagCloudView} with the whole cloud as found in
+	 *            iRODS, which is copied
+	 * @throws JargonException
+	 */
+	public synchronized void putTagCloud(final IRODSAccount irodsAccount,
+			final UserTagCloudView userTagCloudView) throws JargonException {
+		if (userTagCloudView == null) {
+			throw new IllegalArgumentException("null userTagCloudView");
+		}
+		clouds.put(accountKey(irodsAccount), new CachedCloud(
+				copyTagCloud(userTagCloudView), currentTimeMillis()
+						+ timeToLiveMillis));
+	}
+
+	/**
+	 * Remove the cached tag cloud of a user
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} of the user
+	 */
+	public synchronized void invalidate(final IRODSAccount irodsAccount) {
+		if (clouds.remove(accountKey(irodsAccount)) != null) {
+			log.debug("invalidated tag cloud for:{}",
+					irodsAccount.getUserName());
+		}
+	}
+
+	/**
+	 * Remove everything cached
+	 */
+	public synchronized void clear() {
+		clouds.clear();
+	}
+
+	/**
+	 * @return <code>int</code> with the number of clouds held
+	 */
+	public synchronized int getCloudCount() {
+		return clouds.size();
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	public long getTimeToLiveMillis() {
+		return timeToLiveMillis;
+	}
+
+	/**
+	 * The current time, which tests may override
+	 *
+	 * @return <code>long</code> with the time in milliseconds
+	 */
+	protected long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "TagCloudCache [timeToLiveMillis=" + timeToLiveMillis
+				+ ", clouds=" + clouds.size() + ", hitCount=" + hitCount
+				+ ", missCount=" + missCount + "]";
+	}
+
+	private static String accountKey(final IRODSAccount irodsAccount) {
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+		StringBuilder sb = new StringBuilder();
+		sb.append(irodsAccount.getUserName());
+		sb.append('#');
+		sb.append(irodsAccount.getZone());
+		sb.append('@');
+		sb.append(irodsAccount.getHost());
+		sb.append(':');
+		sb.append(irodsAccount.getPort());
+		return sb.toString();
+	}
+
+	/**
+	 * Copy a cloud, as its entries may be changed by the caller
+	 */
+	private static UserTagCloudView copyTagCloud(
+			final UserTagCloudView userTagCloudView) throws JargonException {
+		Map<IRODSTagValue, TagCloudEntry> entries = new TreeMap<IRODSTagValue, TagCloudEntry>();
+		for (TagCloudEntry entry : userTagCloudView.getTagCloudEntries()
+				.values()) {
+			entries.put(entry.getIrodsTagValue(), new TagCloudEntry(
+					entry.getIrodsTagValue(), entry.getCountOfFiles(), entry
+							.getCountOfCollections()));
+		}
+		return UserTagCloudView.instance(userTagCloudView.getUserName(),
+				entries);
+	}
+
+	/**
+	 * The cloud of one account, until an expiry time
+	 */
+	private static class CachedCloud {
+		private final UserTagCloudView userTagCloudView;
+		private final long expiresAt;
+
+		CachedCloud(final UserTagCloudView userTagCloudView,
+				final long expiresAt) {
+			this.userTagCloudView = userTagCloudView;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
@@ -0,0 +1,149 @@
+package org.irods.jargon.usertagging.tags;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
+import org.irods.jargon.core.utils.SessionClosingThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Long lived workers that query one domain of a tag cloud while the calling
+ * thread queries the other. Each account has its own worker, as connections
+ * are kept per thread and per account. A worker keeps its connection between
+ * clouds, so a cloud does not pay to open and authenticate a connection, and
+ * closes it when it has been idle for the keep alive time and exits.
+ * <p/>
+ * A pool is shared by the tag cloud services of a
+ * {@link TaggingServiceFactoryImpl}. This class is thread safe.
+ *
+ * @author Mike Conway - DICE (www.irods.org)
+ *
+ */
+public class TagCloudWorkerPool {
+
+	public static final Logger log = LoggerFactory
+			.getLogger(TagCloudWorkerPool.class);
+
+	public static final long DEFAULT_KEEP_ALIVE_MILLIS = 60000L;
+
+	private final IRODSAccessObjectFactory irodsAccessObjectFactory;
+	private final long keepAliveMillis;
+	private final Map<String, ThreadPoolExecutor> workers = new HashMap<String, ThreadPoolExecutor>();
+	private boolean shutdown = false;
+
+	/**
+	 * Create a pool whose workers close their connection after the default
+	 * keep alive time
+	 *
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory} whose session holds the
+	 *            connections of the workers
+	 */
+	public TagCloudWorkerPool(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory) {
+		this(irodsAccessObjectFactory, DEFAULT_KEEP_ALIVE_MILLIS);
+	}
+
+	/**
+	 * Create a pool
+	 *
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory} whose session holds the
+	 *            connections of the workers
+	 * @param keepAliveMillis
+	 *            <code>long</code> with the time in milliseconds an idle
+	 *            worker keeps its connection before it exits
+	 */
+	public TagCloudWorkerPool(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final long keepAliveMillis) {
+
+		if (irodsAccessObjectFactory == null) {
+			throw new IllegalArgumentException("null irodsAccessObjectFactory");
+		}
+
+		if (keepAliveMillis <= 0) {
+			throw new IllegalArgumentException("keepAliveMillis must be > 0");
+		}
+
+		this.irodsAccessObjectFactory = irodsAccessObjectFactory;
+		this.keepAliveMillis = keepAliveMillis;
+	}
+
+	/**
+	 * Get the worker of an account, starting it if needed
+	 *
+	 * @param irodsAccount
+	 *            {@link IRODSAccount} whose connection the worker uses
+	 * @return <code>ExecutorService</code> that runs tasks on the worker
+	 */
+	synchronized ExecutorService getWorker(final IRODSAccount irodsAccount) {
+
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+
+		if (shutdown) {
+			throw new IllegalStateException("tag cloud worker pool is shut down");
+		}
+
+		String accountKey = accountKey(irodsAccount);
+		ThreadPoolExecutor worker = workers.get(accountKey);
+		if (worker == null) {
+			log.debug("creating tag cloud worker for:{}", accountKey);
+			worker = new ThreadPoolExecutor(1, 1, keepAliveMillis,
+					TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+					new SessionClosingThreadFactory(irodsAccessObjectFactory,
+							irodsAccount, "jargon-tag-cloud"));
+			worker.allowCoreThreadTimeOut(true);
+			workers.put(accountKey, worker);
+		}
+		return worker;
+	}
+
+	/**
+	 * Stop the workers, each closes its connection as it exits
+	 */
+	public synchronized void shutdown() {
+		shutdown = true;
+		for (ThreadPoolExecutor worker : workers.values()) {
+			worker.shutdown();
+		}
+		workers.clear();
+	}
+
+	/**
+	 * @return <code>int</code> with the number of workers running
+	 */
+	public synchronized int getRunningWorkerCount() {
+		int count = 0;
+		for (ThreadPoolExecutor worker : workers.values()) {
+			count += worker.getPoolSize();
+		}
+		return count;
+	}
+
+	public long getKeepAliveMillis() {
+		return keepAliveMillis;
+	}
+
+	private static String accountKey(final IRODSAccount irodsAccount) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(irodsAccount.getUserName());
+		sb.append('#');
+		sb.append(irodsAccount.getZone());
+		sb.append('@');
+		sb.append(irodsAccount.getHost());
+		sb.append(':');
+		sb.append(irodsAccount.getPort());
+		return sb.toString();
+	}
+
+}
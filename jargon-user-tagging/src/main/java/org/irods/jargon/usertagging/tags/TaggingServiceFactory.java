@@ -47,4 +47,16 @@ public interface TaggingServiceFactory {
 	public abstract UserTagCloudService instanceUserTagCloudService(
 			final IRODSAccount irodsAccount);
 
+	/**
+	 * Retrieve an instance of <code>BulkTaggingService</code> that adds or
+	 * removes user tags across many collections and data objects at once
+	 * 
+	 * @param irodsAccount
+	 *            <code>IRODSAccount</code> describing the user and desired
+	 *            iRODS host
+	 * @return {@link BulkTaggingService} implementation
+	 */
+	public abstract BulkTaggingService instanceBulkTaggingService(
+			final IRODSAccount irodsAccount);
+
 }
\ No newline at end of file
@@ -4,7 +4,11 @@ import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
 
 /**
- * Factory for different user tagging service classes.
+ * Factory for different user tagging service classes. A factory may be given
+ * a {@link TagCloudCache}, which is then shared by the tag cloud and free
+ * tagging services it creates. The tag cloud services also share a
+ * {@link TagCloudWorkerPool}, so that the two domains of a cloud are queried
+ * at once over connections that the workers keep.
  * 
  * @author Mike Conway - DICE (www.irods.org)
  * 
@@ -12,15 +16,57 @@ import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
 public class TaggingServiceFactoryImpl implements TaggingServiceFactory {
 
 	private final IRODSAccessObjectFactory irodsAccessObjectFactory;
+	private final TagCloudCache tagCloudCache;
+	private final TagCloudWorkerPool tagCloudWorkerPool;
 
 	public TaggingServiceFactoryImpl(
 			final IRODSAccessObjectFactory irodsAccessObjectFactory) {
+		this(irodsAccessObjectFactory, null);
+	}
+
+	/**
+	 * Create a factory whose services share a cache of tag clouds
+	 * 
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory}
+	 * @param tagCloudCache
+	 *            {@link TagCloudCache} shared by the services, or
+	 *            <code>null</code> to query the clouds each time
+	 */
+	public TaggingServiceFactoryImpl(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final TagCloudCache tagCloudCache) {
+		this(irodsAccessObjectFactory, tagCloudCache,
+				irodsAccessObjectFactory == null ? null
+						: new TagCloudWorkerPool(irodsAccessObjectFactory));
+	}
+
+	/**
+	 * Create a factory whose services share a cache of tag clouds and the
+	 * workers that query them
+	 * 
+	 * @param irodsAccessObjectFactory
+	 *            {@link IRODSAccessObjectFactory}
+	 * @param tagCloudCache
+	 *            {@link TagCloudCache} shared by the services, or
+	 *            <code>null</code> to query the clouds each time
+	 * @param tagCloudWorkerPool
+	 *            {@link TagCloudWorkerPool} shared by the tag cloud services,
+	 *            or <code>null</code> to query both domains of a cloud on the
+	 *            calling thread
+	 */
+	public TaggingServiceFactoryImpl(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final TagCloudCache tagCloudCache,
+			final TagCloudWorkerPool tagCloudWorkerPool) {
 		if (irodsAccessObjectFactory == null) {
 			throw new IllegalArgumentException(
 					"irodsAccessObjectFactory is null");
 		}
 
 		this.irodsAccessObjectFactory = irodsAccessObjectFactory;
+		this.tagCloudCache = tagCloudCache;
+		this.tagCloudWorkerPool = tagCloudWorkerPool;
 
 	}
 
@@ -42,7 +88,7 @@ public class TaggingServiceFactoryImpl implements TaggingServiceFactory {
 		}
 
 		return FreeTaggingServiceImpl.instance(irodsAccessObjectFactory,
-				irodsAccount);
+				irodsAccount, tagCloudCache);
 
 	}
 
@@ -86,8 +132,38 @@ public class TaggingServiceFactoryImpl implements TaggingServiceFactory {
 		}
 
 		return UserTagCloudServiceImpl.instance(irodsAccessObjectFactory,
-				irodsAccount);
+				irodsAccount, tagCloudCache, tagCloudWorkerPool);
+
+	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.irods.jargon.usertagging.TaggingServiceFactory#
+	 * instanceBulkTaggingService
+	 * (org.irods.jargon.core.connection.IRODSAccount)
+	 */
+	@Override
+	public BulkTaggingService instanceBulkTaggingService(
+			final IRODSAccount irodsAccount) {
+
+		checkDependencies();
+
+		if (irodsAccount == null) {
+			throw new IllegalArgumentException("null irodsAccount");
+		}
+
+		return BulkTaggingServiceImpl.instance(irodsAccessObjectFactory,
+				irodsAccount, tagCloudCache);
+
+	}
+
+	/**
+	 * @return the {@link TagCloudWorkerPool} shared by the tag cloud
+	 *         services, or <code>null</code>
+	 */
+	public TagCloudWorkerPool getTagCloudWorkerPool() {
+		return tagCloudWorkerPool;
 	}
 
 	private void checkDependencies() {
@@ -5,16 +5,23 @@ package org.irods.jargon.usertagging.tags;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
 
 import org.irods.jargon.core.connection.IRODSAccount;
 import org.irods.jargon.core.exception.JargonException;
 import org.irods.jargon.core.pub.IRODSAccessObjectFactory;
-import org.irods.jargon.core.pub.IRODSGenQueryExecutor;
-import org.irods.jargon.core.query.IRODSGenQuery;
+import org.irods.jargon.core.query.GenQueryBuilderException;
+import org.irods.jargon.core.query.GenQueryField;
+import org.irods.jargon.core.query.IRODSGenQueryBuilder;
 import org.irods.jargon.core.query.IRODSQueryResultRow;
-import org.irods.jargon.core.query.IRODSQueryResultSetInterface;
-import org.irods.jargon.core.query.JargonQueryException;
+import org.irods.jargon.core.query.QueryConditionOperators;
 import org.irods.jargon.core.query.RodsGenQueryEnum;
+import org.irods.jargon.core.utils.GenQueryPagingUtils;
 import org.irods.jargon.core.utils.IRODSDataConversionUtil;
 import org.irods.jargon.usertagging.AbstractIRODSTaggingService;
 import org.irods.jargon.usertagging.domain.IRODSTagValue;
@@ -25,6 +32,16 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Service for query and processing of a user tag cloud.
+ * <p/>
+ * Each domain of a cloud is found by one aggregate query that counts the
+ * objects per tag, and every page of the results is read, so a user with
+ * thousands of tags gets all of them. When a {@link TagCloudWorkerPool} is
+ * given, the collection query runs on the long lived worker of the account,
+ * over the connection it keeps, while the data object query runs on the
+ * calling thread. Otherwise both queries run on the calling thread. When a
+ * {@link TagCloudCache} is given, the whole cloud is kept in it, and the
+ * single domain clouds and tag searches are answered from the cached cloud,
+ * matching the search term as the like condition of a query would.
  * 
  * @author Mike Conway - DICE (www.irods.org)
  * 
@@ -41,6 +58,9 @@ public final class UserTagCloudServiceImpl extends AbstractIRODSTaggingService
 	public static final String AND = " AND ";
 	public static final String QUOTE = "'";
 
+	private final TagCloudCache tagCloudCache;
+	private final TagCloudWorkerPool tagCloudWorkerPool;
+
 	/**
 	 * Static initializer used to create instances of the service.
 	 * 
@@ -56,7 +76,56 @@ public final class UserTagCloudServiceImpl extends AbstractIRODSTaggingService
 			final IRODSAccessObjectFactory irodsAccessObjectFactory,
 			final IRODSAccount irodsAccount) {
 		return new UserTagCloudServiceImpl(irodsAccessObjectFactory,
-				irodsAccount);
+				irodsAccount, null, null);
+	}
+
+	/**
+	 * Static initializer used to create instances of the service that keep
+	 * the cloud in a cache.
+	 * 
+	 * @param irodsAccessObjectFactory
+	 *            <code>IRODSAccessObjectFactory</code> that can create various
+	 *            iRODS Access Objects.
+	 * @param irodsAccount
+	 *            <code>IRODSAccount</code> that describes the target server and
+	 *            credentials.
+	 * @param tagCloudCache
+	 *            {@link TagCloudCache} that holds the clouds, which may be
+	 *            <code>null</code> to query each time
+	 * @return instance of the <code>IRODSTaggingServiceImpl</code>
+	 */
+	public static UserTagCloudService instance(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount, final TagCloudCache tagCloudCache) {
+		return new UserTagCloudServiceImpl(irodsAccessObjectFactory,
+				irodsAccount, tagCloudCache, null);
+	}
+
+	/**
+	 * Static initializer used to create instances of the service that keep
+	 * the cloud in a cache, and query the two domains of a cloud at once.
+	 * 
+	 * @param irodsAccessObjectFactory
+	 *            <code>IRODSAccessObjectFactory</code> that can create various
+	 *            iRODS Access Objects.
+	 * @param irodsAccount
+	 *            <code>IRODSAccount</code> that describes the target server and
+	 *            credentials.
+	 * @param tagCloudCache
+	 *            {@link TagCloudCache} that holds the clouds, which may be
+	 *            <code>null</code> to query each time
+	 * @param tagCloudWorkerPool
+	 *            {@link TagCloudWorkerPool} whose worker queries the
+	 *            collection domain, which may be <code>null</code> to query
+	 *            both domains on the calling thread
+	 * @return instance of the <code>IRODSTaggingServiceImpl</code>
+	 */
+	public static UserTagCloudService instance(
+			final IRODSAccessObjectFactory irodsAccessObjectFactory,
+			final IRODSAccount irodsAccount, final TagCloudCache tagCloudCache,
+			final TagCloudWorkerPool tagCloudWorkerPool) {
+		return new UserTagCloudServiceImpl(irodsAccessObjectFactory,
+				irodsAccount, tagCloudCache, tagCloudWorkerPool);
 	}
 
 	/**
@@ -69,11 +138,20 @@ public final class UserTagCloudServiceImpl extends AbstractIRODSTaggingService
 	 * @param irodsAccount
 	 *            <code>IRODSAccount</code> that describes the target server and
 	 *            credentials.
+	 * @param tagCloudCache
+	 *            {@link TagCloudCache} that holds the clouds, or
+	 *            <code>null</code>
+	 * @param tagCloudWorkerPool
+	 *            {@link TagCloudWorkerPool} whose worker queries the
+	 *            collection domain, or <code>null</code>
 	 */
 	private UserTagCloudServiceImpl(
 			final IRODSAccessObjectFactory irodsAccessObjectFactory,
-			final IRODSAccount irodsAccount) {
+			final IRODSAccount irodsAccount, final TagCloudCache tagCloudCache,
+			final TagCloudWorkerPool tagCloudWorkerPool) {
 		super(irodsAccessObjectFactory, irodsAccount);
+		this.tagCloudCache = tagCloudCache;
+		this.tagCloudWorkerPool = tagCloudWorkerPool;
 	}
 
 	/*
@@ -83,10 +161,22 @@ public final class UserTagCloudServiceImpl extends AbstractIRODSTaggingService
 	 */
 	@Override
 	public UserTagCloudView getTagCloud() throws JargonException {
-		UserTagCloudView userTagCloudView = UserTagCloudView.instance(
-				irodsAccount.getUserName(),
-				buildTagCloudEntryListForDataObjects(""),
-				buildTagCloudEntryListForCollections(""));
+
+		if (tagCloudCache != null) {
+			UserTagCloudView cachedView = tagCloudCache
+					.getTagCloud(irodsAccount);
+			if (cachedView != null) {
+				log.info("tag cloud found in cache");
+				return cachedView;
+			}
+		}
+
+		UserTagCloudView userTagCloudView = buildTagCloud("");
+
+		if (tagCloudCache != null) {
+			tagCloudCache.putTagCloud(irodsAccount, userTagCloudView);
+		}
+
 		return userTagCloudView;
 	}
 
@@ -101,6 +191,11 @@ public final class UserTagCloudServiceImpl extends AbstractIRODSTaggingService
 	public UserTagCloudView getTagCloudForDataObjects() throws JargonException {
 
 		log.info("getTagCloudForDataObjects");
+
+		if (tagCloudCache != null) {
+			return selectFromTagCloud(getTagCloud(), "", true, false);
+		}
+
 		UserTagCloudView userTagCloudView = UserTagCloudView.instance(
 				irodsAccount.getUserName(),
 				buildTagCloudEntryListForDataObjects(""),
@@ -120,6 +215,11 @@ public final class UserTagCloudServiceImpl extends AbstractIRODSTaggingService
 	public UserTagCloudView getTagCloudForCollections() throws JargonException {
 
 		log.info("getTagCloudForCollections");
+
+		if (tagCloudCache != null) {
+			return selectFromTagCloud(getTagCloud(), "", false, true);
+		}
+
 		List<TagCloudEntry> collectionTagCloudEntries = buildTagCloudEntryListForCollections("");
 		UserTagCloudView userTagCloudView = UserTagCloudView.instance(
 				irodsAccount.getUserName(), new ArrayList<TagCloudEntry>(),
@@ -128,6 +228,137 @@ public final class UserTagCloudServiceImpl extends AbstractIRODSTaggingService
 
 	}
 
+	/**
+	 * Query both domains of the cloud, one aggregate query each, the
+	 * collections on the worker of the account when there is a worker pool
+	 * 
+	 * @param searchTagName
+	 *            <code>String</code> that the tag names must contain, or
+	 *            blank for every tag
+	 * @return {@link UserTagCloudView} with both domains
+	 * @throws JargonException
+	 */
+	private UserTagCloudView buildTagCloud(final String searchTagName)
+			throws JargonException {
+
+		if (tagCloudWorkerPool == null) {
+			return UserTagCloudView.instance(irodsAccount.getUserName(),
+					buildTagCloudEntryListForDataObjects(searchTagName),
+					buildTagCloudEntryListForCollections(searchTagName));
+		}
+
+		Future<List<TagCloudEntry>> collectionFuture = tagCloudWorkerPool
+				.getWorker(irodsAccount).submit(
+						new Callable<List<TagCloudEntry>>() {
+							@Override
+							public List<TagCloudEntry> call()
+									throws JargonException {
+								return buildTagCloudEntryListForCollections(searchTagName);
+							}
+						});
+
+		List<TagCloudEntry> dataObjectEntries;
+		try {
+			dataObjectEntries = buildTagCloudEntryListForDataObjects(searchTagName);
+		} catch (JargonException e) {
+			collectionFuture.cancel(false);
+			throw e;
+		}
+
+		List<TagCloudEntry> collectionEntries;
+		try {
+			collectionEntries = collectionFuture.get();
+		} catch (ExecutionException e) {
+			log.error("error building collection tag cloud", e.getCause());
+			if (e.getCause() instanceof JargonException) {
+				throw (JargonException) e.getCause();
+			}
+			throw new JargonException("error building collection tag cloud",
+					e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new JargonException("interrupted building tag cloud", e);
+		}
+
+		return UserTagCloudView.instance(irodsAccount.getUserName(),
+				dataObjectEntries, collectionEntries);
+	}
+
+	/**
+	 * Select the entries of a cloud with tag names that contain a term, where
+	 * an underscore in the term matches any one character and a percent sign
+	 * any characters, as in the like condition of a query
+	 * 
+	 * @param userTagCloudView
+	 *            {@link UserTagCloudView} with the whole cloud
+	 * @param searchTagName
+	 *            <code>String</code> that the tag names must contain, or
+	 *            blank for every tag
+	 * @param dataObjects
+	 *            <code>boolean</code> that is <code>true</code> to keep the
+	 *            data object counts
+	 * @param collections
+	 *            <code>boolean</code> that is <code>true</code> to keep the
+	 *            collection counts
+	 * @return {@link UserTagCloudView} with the entries that have a count in
+	 *         a kept domain
+	 * @throws JargonException
+	 */
+	private UserTagCloudView selectFromTagCloud(
+			final UserTagCloudView userTagCloudView,
+			final String searchTagName, final boolean dataObjects,
+			final boolean collections) throws JargonException {
+
+		Pattern searchPattern = buildLikePattern(searchTagName);
+		Map<IRODSTagValue, TagCloudEntry> selected = new TreeMap<IRODSTagValue, TagCloudEntry>();
+		for (TagCloudEntry entry : userTagCloudView.getTagCloudEntries()
+				.values()) {
+			if (!searchPattern.matcher(entry.getIrodsTagValue().getTagData())
+					.matches()) {
+				continue;
+			}
+			int countOfFiles = dataObjects ? entry.getCountOfFiles() : 0;
+			int countOfCollections = collections ? entry
+					.getCountOfCollections() : 0;
+			if (countOfFiles > 0 || countOfCollections > 0) {
+				selected.put(entry.getIrodsTagValue(), new TagCloudEntry(
+						entry.getIrodsTagValue(), countOfFiles,
+						countOfCollections));
+			}
+		}
+		return UserTagCloudView.instance(userTagCloudView.getUserName(),
+				selected);
+	}
+
+	/**
+	 * Build the pattern that matches the same tag names as the condition
+	 * <code>LIKE '%term%'</code>
+	 * 
+	 * @param searchTagName
+	 *            <code>String</code> with the term
+	 * @return <code>Pattern</code> that matches a whole tag name
+	 */
+	static Pattern buildLikePattern(final String searchTagName) {
+		StringBuilder regex = new StringBuilder(".*");
+		StringBuilder literal = new StringBuilder();
+		for (char c : searchTagName.toCharArray()) {
+			if (c == '%' || c == '_') {
+				if (literal.length() > 0) {
+					regex.append(Pattern.quote(literal.toString()));
+					literal.setLength(0);
+				}
+				regex.append(c == '%' ? ".*" : ".");
+			} else {
+				literal.append(c);
+			}
+		}
+		if (literal.length() > 0) {
+			regex.append(Pattern.quote(literal.toString()));
+		}
+		regex.append(".*");
+		return Pattern.compile(regex.toString(), Pattern.DOTALL);
+	}
+
 	/**
 	 * Shared method to build a tag cloud list for collections. This will
 	 * default to the user name in the given iRODS account
@@ -144,53 +375,39 @@ public final class UserTagCloudServiceImpl extends AbstractIRODSTaggingService
 			throw new IllegalArgumentException("null searchTagName");
 		}
 
-		// create a GenQuery to get the cloud info
-		StringBuilder sb = new StringBuilder();
-		sb.append("SELECT COUNT(");
-		sb.append(RodsGenQueryEnum.COL_COLL_NAME.getName());
-		sb.append(")");
-		sb.append(COMMA_SPACE);
-		sb.append(RodsGenQueryEnum.COL_META_COLL_ATTR_NAME.getName());
-		sb.append(" WHERE ");
-		sb.append(RodsGenQueryEnum.COL_META_COLL_ATTR_UNITS.getName());
-		sb.append(EQUAL_QUOTE);
-		sb.append(UserTaggingConstants.TAG_AVU_UNIT);
-		sb.append(QUOTE_SPACE);
-		sb.append(AND);
-		sb.append(RodsGenQueryEnum.COL_META_COLL_ATTR_VALUE.getName());
-		sb.append(EQUAL_QUOTE);
-		sb.append(irodsAccount.getUserName());
-		sb.append(QUOTE);
-
-		if (!searchTagName.isEmpty()) {
-			sb.append(' ');
-			sb.append(AND);
-			sb.append(RodsGenQueryEnum.COL_META_COLL_ATTR_NAME.getName());
-			sb.append(" LIKE '%");
-			sb.append(searchTagName);
-			sb.append("%'");
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		try {
+			builder.addSelectAsAgregateGenQueryValue(
+					RodsGenQueryEnum.COL_COLL_NAME,
+					GenQueryField.SelectFieldTypes.COUNT)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_META_COLL_ATTR_NAME);
+		} catch (GenQueryBuilderException e) {
+			throw new JargonException("error building cloud tag query", e);
 		}
 
-		String cloudQuery = sb.toString();
-		log.debug("cloud tag query:{}", cloudQuery);
-
-		IRODSGenQuery irodsQuery = IRODSGenQuery.instance(cloudQuery, 2000);
-		IRODSGenQueryExecutor irodsGenQueryExecutor = irodsAccessObjectFactory
-				.getIRODSGenQueryExecutor(irodsAccount);
-		IRODSQueryResultSetInterface resultSet;
+		builder.addConditionAsGenQueryField(
+				RodsGenQueryEnum.COL_META_COLL_ATTR_UNITS,
+				QueryConditionOperators.EQUAL,
+				UserTaggingConstants.TAG_AVU_UNIT).addConditionAsGenQueryField(
+				RodsGenQueryEnum.COL_META_COLL_ATTR_VALUE,
+				QueryConditionOperators.EQUAL, irodsAccount.getUserName());
 
-		try {
-			resultSet = irodsGenQueryExecutor.executeIRODSQuery(irodsQuery, 0);
-		} catch (JargonQueryException e) {
-			log.error("irods query error", e);
-			throw new JargonException(e);
+		if (!searchTagName.isEmpty()) {
+			builder.addConditionAsGenQueryField(
+					RodsGenQueryEnum.COL_META_COLL_ATTR_NAME,
+					QueryConditionOperators.LIKE, "%" + searchTagName + "%");
 		}
 
+		log.debug("cloud tag query:{}", builder);
+
 		List<TagCloudEntry> tagCloudEntries = new ArrayList<TagCloudEntry>();
 
 		IRODSTagValue irodsTagValue;
 
-		for (IRODSQueryResultRow resultRow : resultSet.getResults()) {
+		for (IRODSQueryResultRow resultRow : GenQueryPagingUtils.queryAllRows(
+				getIrodsAccessObjectFactory(), getIrodsAccount(), builder,
+				null)) {
 			log.debug("count coll:{}", resultRow.getColumn(0));
 			log.debug("tag name:{}", resultRow.getColumn(1));
 			irodsTagValue = new IRODSTagValue(resultRow.getColumn(1),
@@ -223,60 +440,41 @@ public final class UserTagCloudServiceImpl extends AbstractIRODSTaggingService
 		log.info("buildTagCloudEntryListForDataObjects, user={}",
 				irodsAccount.getUserName());
 
-		// create a GenQuery to get the cloud info
-		StringBuilder sb = new StringBuilder();
-		sb.append("SELECT COUNT(");
-		sb.append(RodsGenQueryEnum.COL_DATA_NAME.getName());
-		sb.append(')');
-		sb.append(COMMA_SPACE);
-		sb.append("COUNT(");
-		sb.append(RodsGenQueryEnum.COL_COLL_NAME.getName());
-		sb.append(")");
-		sb.append(COMMA_SPACE);
-		sb.append(RodsGenQueryEnum.COL_META_DATA_ATTR_NAME.getName());
-		sb.append(" WHERE ");
-		sb.append(RodsGenQueryEnum.COL_META_DATA_ATTR_UNITS.getName());
-		sb.append(EQUAL_QUOTE);
-		sb.append(UserTaggingConstants.TAG_AVU_UNIT);
-		sb.append(QUOTE_SPACE);
-		sb.append(AND);
-		sb.append(RodsGenQueryEnum.COL_META_DATA_ATTR_VALUE.getName());
-		sb.append(EQUAL_QUOTE);
-		sb.append(irodsAccount.getUserName());
-		sb.append(QUOTE);
-
-		if (!searchTagName.isEmpty()) {
-			sb.append(' ');
-			sb.append(AND);
-			sb.append(RodsGenQueryEnum.COL_META_DATA_ATTR_NAME.getName());
-			sb.append(" LIKE '%");
-			sb.append(searchTagName);
-			sb.append("%'");
+		IRODSGenQueryBuilder builder = new IRODSGenQueryBuilder(true, null);
+		try {
+			builder.addSelectAsAgregateGenQueryValue(
+					RodsGenQueryEnum.COL_DATA_NAME,
+					GenQueryField.SelectFieldTypes.COUNT)
+					.addSelectAsGenQueryValue(
+							RodsGenQueryEnum.COL_META_DATA_ATTR_NAME);
+		} catch (GenQueryBuilderException e) {
+			throw new JargonException("error building cloud tag query", e);
 		}
 
-		String cloudQuery = sb.toString();
-		log.debug("cloud tag query:{}", cloudQuery);
-
-		IRODSGenQuery irodsQuery = IRODSGenQuery.instance(cloudQuery, 2000);
-		IRODSGenQueryExecutor irodsGenQueryExecutor = irodsAccessObjectFactory
-				.getIRODSGenQueryExecutor(irodsAccount);
-		IRODSQueryResultSetInterface resultSet;
+		builder.addConditionAsGenQueryField(
+				RodsGenQueryEnum.COL_META_DATA_ATTR_UNITS,
+				QueryConditionOperators.EQUAL,
+				UserTaggingConstants.TAG_AVU_UNIT).addConditionAsGenQueryField(
+				RodsGenQueryEnum.COL_META_DATA_ATTR_VALUE,
+				QueryConditionOperators.EQUAL, irodsAccount.getUserName());
 
-		try {
-			resultSet = irodsGenQueryExecutor.executeIRODSQuery(irodsQuery, 0);
-		} catch (JargonQueryException e) {
-			log.error("irods query error", e);
-			throw new JargonException(e);
+		if (!searchTagName.isEmpty()) {
+			builder.addConditionAsGenQueryField(
+					RodsGenQueryEnum.COL_META_DATA_ATTR_NAME,
+					QueryConditionOperators.LIKE, "%" + searchTagName + "%");
 		}
 
+		log.debug("cloud tag query:{}", builder);
+
 		List<TagCloudEntry> tagCloudEntries = new ArrayList<TagCloudEntry>();
 		IRODSTagValue irodsTagValue;
 
-		for (IRODSQueryResultRow resultRow : resultSet.getResults()) {
+		for (IRODSQueryResultRow resultRow : GenQueryPagingUtils.queryAllRows(
+				getIrodsAccessObjectFactory(), getIrodsAccount(), builder,
+				null)) {
 			log.debug("count data:{}", resultRow.getColumn(0));
-			log.debug("count coll:{}", resultRow.getColumn(1));
-			log.debug("tag name:{}", resultRow.getColumn(2));
-			irodsTagValue = new IRODSTagValue(resultRow.getColumn(2),
+			log.debug("tag name:{}", resultRow.getColumn(1));
+			irodsTagValue = new IRODSTagValue(resultRow.getColumn(1),
 					irodsAccount.getUserName());
 			tagCloudEntries
 					.add(new TagCloudEntry(irodsTagValue,
@@ -304,11 +502,15 @@ public final class UserTagCloudServiceImpl extends AbstractIRODSTaggingService
 				irodsAccount.getUserName());
 		log.info("tag search term:{}", tagSearchTerm);
 
-		UserTagCloudView userTagCloudView = UserTagCloudView.instance(
-				irodsAccount.getUserName(),
-				buildTagCloudEntryListForDataObjects(tagSearchTerm),
-				buildTagCloudEntryListForCollections(tagSearchTerm));
-		return userTagCloudView;
+		if (tagSearchTerm == null) {
+			throw new IllegalArgumentException("null tagSearchTerm");
+		}
+
+		if (tagCloudCache != null) {
+			return selectFromTagCloud(getTagCloud(), tagSearchTerm, true, true);
+		}
+
+		return buildTagCloud(tagSearchTerm);
 
 	}
 
@@ -0,0 +1,232 @@
+package org.irods.jargon.usertagging;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.packinstr.GenQueryInp;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.pub.domain.AvuData;
+import org.irods.jargon.core.query.MetaDataAndDomainData.MetadataDomain;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServer;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerRule;
+import org.irods.jargon.usertagging.domain.BulkTagOperationResult;
+import org.irods.jargon.usertagging.domain.BulkTagOperationResult.ResultStatus;
+import org.irods.jargon.usertagging.tags.BulkTaggingService;
+import org.irods.jargon.usertagging.tags.TagCloudCache;
+import org.irods.jargon.usertagging.tags.TaggingServiceFactory;
+import org.irods.jargon.usertagging.tags.TaggingServiceFactoryImpl;
+import org.irods.jargon.usertagging.tags.UserTaggingConstants;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class BulkTaggingServiceImplTest {
+
+	@Rule
+	public EmbeddedIRODSServerRule serverRule = new EmbeddedIRODSServerRule();
+
+	private EmbeddedIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSAccount irodsAccount;
+	private String home;
+
+	@Before
+	public void setUp() throws Exception {
+		server = serverRule.getServer();
+		irodsFileSystem = serverRule.getIrodsFileSystem();
+		irodsAccount = serverRule.getIrodsAccount();
+		home = server.getHomeDirectory("test1");
+	}
+
+	private BulkTaggingService service(final TagCloudCache tagCloudCache)
+			throws Exception {
+		return new TaggingServiceFactoryImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory(), tagCloudCache)
+				.instanceBulkTaggingService(irodsAccount);
+	}
+
+	private AvuData tagAvu(final String tag) throws Exception {
+		return AvuData.instance(tag, "test1",
+				UserTaggingConstants.TAG_AVU_UNIT);
+	}
+
+	private boolean hasTag(final String path, final String tag)
+			throws Exception {
+		return server.getCatalog().getAVUMetadata(path).contains(tagAvu(tag));
+	}
+
+	private long queries() {
+		return server.getApiCallCount(GenQueryInp.API_NBR);
+	}
+
+	private int count(final List<BulkTagOperationResult> results,
+			final ResultStatus resultStatus) {
+		int count = 0;
+		for (BulkTagOperationResult result : results) {
+			if (result.getResultStatus() == resultStatus) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void testAddTagsToPaths() throws Exception {
+		List<String> paths = new ArrayList<String>();
+		for (int i = 0; i < 50; i++) {
+			String path = home + "/dir" + (i % 2) + "/file" + i + ".txt";
+			server.getCatalog().putDataObject(path, "data".getBytes());
+			paths.add(path);
+		}
+		String collectionPath = home + "/dir0";
+		paths.add(collectionPath);
+		String missingPath = home + "/missing.txt";
+		paths.add(missingPath);
+		server.getCatalog().addAVUMetadata(paths.get(0), tagAvu("red"));
+
+		long queries = queries();
+		List<BulkTagOperationResult> results = service(null).addTagsToPaths(
+				paths, "red, blue red");
+
+		// the stat and tag queries are per parent, not per path
+		Assert.assertTrue(queries() - queries <= 10);
+		Assert.assertEquals(104, results.size());
+		Assert.assertEquals(101, count(results, ResultStatus.OK));
+		Assert.assertEquals(1, count(results, ResultStatus.UNCHANGED));
+		Assert.assertEquals(2, count(results, ResultStatus.MISSING_TARGET));
+		Assert.assertEquals(0, count(results, ResultStatus.ERROR));
+
+		BulkTagOperationResult first = results.get(0);
+		Assert.assertEquals(paths.get(0), first.getIrodsAbsolutePath());
+		Assert.assertEquals("red", first.getTagData());
+		Assert.assertEquals(ResultStatus.UNCHANGED, first.getResultStatus());
+		Assert.assertEquals(MetadataDomain.DATA, first.getMetadataDomain());
+		Assert.assertEquals(MetadataDomain.COLLECTION, results.get(100)
+				.getMetadataDomain());
+		Assert.assertEquals(missingPath, results.get(103)
+				.getIrodsAbsolutePath());
+		Assert.assertNull(results.get(103).getMetadataDomain());
+
+		for (int i = 0; i < 50; i++) {
+			Assert.assertTrue(hasTag(paths.get(i), "red"));
+			Assert.assertTrue(hasTag(paths.get(i), "blue"));
+		}
+		Assert.assertTrue(hasTag(collectionPath, "blue"));
+
+		// a second run finds everything in place
+		results = service(null).addTagsToPaths(paths, "red blue");
+		Assert.assertEquals(102, count(results, ResultStatus.UNCHANGED));
+	}
+
+	@Test
+	public void testRemoveTagsFromPaths() throws Exception {
+		String tagged = home + "/tagged.txt";
+		String untagged = home + "/untagged.txt";
+		server.getCatalog().putDataObject(tagged, "data".getBytes());
+		server.getCatalog().putDataObject(untagged, "data".getBytes());
+		server.getCatalog().addAVUMetadata(tagged, tagAvu("red"));
+		server.getCatalog().addAVUMetadata(tagged, tagAvu("kept"));
+		server.getCatalog().addAVUMetadata(tagged,
+				AvuData.instance("red", "test1", "units"));
+
+		List<String> paths = new ArrayList<String>();
+		paths.add(tagged);
+		paths.add(untagged);
+		List<BulkTagOperationResult> results = service(null)
+				.removeTagsFromPaths(paths, "red");
+
+		Assert.assertEquals(2, results.size());
+		Assert.assertEquals(ResultStatus.OK, results.get(0).getResultStatus());
+		Assert.assertEquals(ResultStatus.UNCHANGED, results.get(1)
+				.getResultStatus());
+		Assert.assertFalse(hasTag(tagged, "red"));
+		Assert.assertTrue(hasTag(tagged, "kept"));
+		Assert.assertTrue(server.getCatalog().getAVUMetadata(tagged)
+				.contains(AvuData.instance("red", "test1", "units")));
+	}
+
+	@Test
+	public void testAddAndRemoveTagsForCollectionTree() throws Exception {
+		String root = home + "/tree";
+		int files = 0;
+		for (int i = 0; i < 5; i++) {
+			for (int j = 0; j < 40; j++) {
+				server.getCatalog().putDataObject(
+						root + "/sub" + i + "/deeper/file" + j, "d".getBytes());
+				files++;
+			}
+		}
+		server.getCatalog().putDataObject(root + "/top.txt", "d".getBytes());
+		files++;
+		String outside = home + "/treeother/file.txt";
+		server.getCatalog().putDataObject(outside, "d".getBytes());
+		server.getCatalog().addAVUMetadata(root + "/sub0", tagAvu("tree"));
+
+		TagCloudCache tagCloudCache = new TagCloudCache();
+		TaggingServiceFactory factory = new TaggingServiceFactoryImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory(), tagCloudCache);
+		factory.instanceUserTagCloudService(irodsAccount).getTagCloud();
+		Assert.assertEquals(1, tagCloudCache.getCloudCount());
+
+		long queries = queries();
+		List<BulkTagOperationResult> results = factory
+				.instanceBulkTaggingService(irodsAccount)
+				.addTagsToCollectionTree(root + "/", "tree");
+		Assert.assertTrue(queries() - queries <= 10);
+		Assert.assertEquals(0, tagCloudCache.getCloudCount());
+
+		// root, five subs and five deeper collections, and the files
+		Assert.assertEquals(11 + files, results.size());
+		Assert.assertEquals(1, count(results, ResultStatus.UNCHANGED));
+		Assert.assertEquals(10 + files, count(results, ResultStatus.OK));
+		Assert.assertEquals(root, results.get(0).getIrodsAbsolutePath());
+		Assert.assertTrue(hasTag(root, "tree"));
+		Assert.assertTrue(hasTag(root + "/sub4/deeper/file39", "tree"));
+		Assert.assertTrue(hasTag(root + "/top.txt", "tree"));
+		Assert.assertFalse(hasTag(outside, "tree"));
+
+		results = factory.instanceBulkTaggingService(irodsAccount)
+				.removeTagsFromCollectionTree(root, "tree");
+		Assert.assertEquals(11 + files, count(results, ResultStatus.OK));
+		Assert.assertFalse(hasTag(root + "/sub0", "tree"));
+		Assert.assertFalse(hasTag(root + "/sub2/deeper/file7", "tree"));
+	}
+
+	@Test
+	public void testAddTagsToCollectionTreeSkipsWildcardSiblings()
+			throws Exception {
+		String root = home + "/my_tree";
+		server.getCatalog().putDataObject(root + "/sub/file.txt",
+				"d".getBytes());
+		String sibling = home + "/myXtree";
+		server.getCatalog().putDataObject(sibling + "/sub/file.txt",
+				"d".getBytes());
+		server.getCatalog().putDataObject(sibling + "/top.txt", "d".getBytes());
+
+		List<BulkTagOperationResult> results = service(null)
+				.addTagsToCollectionTree(root, "tree");
+
+		// the root, its sub collection and its one file
+		Assert.assertEquals(3, results.size());
+		Assert.assertEquals(3, count(results, ResultStatus.OK));
+		Assert.assertTrue(hasTag(root + "/sub/file.txt", "tree"));
+		Assert.assertFalse(hasTag(sibling, "tree"));
+		Assert.assertFalse(hasTag(sibling + "/sub", "tree"));
+		Assert.assertFalse(hasTag(sibling + "/sub/file.txt", "tree"));
+		Assert.assertFalse(hasTag(sibling + "/top.txt", "tree"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAddTagsToPathsNullPaths() throws Exception {
+		service(null).addTagsToPaths(null, "red");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAddTagsToCollectionTreeBlankPath() throws Exception {
+		service(null).addTagsToCollectionTree("", "red");
+	}
+
+}
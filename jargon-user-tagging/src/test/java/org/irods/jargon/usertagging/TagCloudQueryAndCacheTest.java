@@ -0,0 +1,326 @@
+package org.irods.jargon.usertagging;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.connection.JargonProperties;
+import org.irods.jargon.core.connection.SettableJargonProperties;
+import org.irods.jargon.core.packinstr.GenQueryInp;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.pub.domain.AvuData;
+import org.irods.jargon.core.query.CollectionAndDataObjectListingEntry;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServer;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerRule;
+import org.irods.jargon.usertagging.domain.IRODSTagValue;
+import org.irods.jargon.usertagging.domain.TagCloudEntry;
+import org.irods.jargon.usertagging.domain.TagQuerySearchResult;
+import org.irods.jargon.usertagging.domain.UserTagCloudView;
+import org.irods.jargon.usertagging.tags.FreeTaggingService;
+import org.irods.jargon.usertagging.tags.TagCloudCache;
+import org.irods.jargon.usertagging.tags.TagCloudWorkerPool;
+import org.irods.jargon.usertagging.tags.TaggingServiceFactory;
+import org.irods.jargon.usertagging.tags.TaggingServiceFactoryImpl;
+import org.irods.jargon.usertagging.tags.UserTagCloudService;
+import org.irods.jargon.usertagging.tags.UserTaggingConstants;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class TagCloudQueryAndCacheTest {
+
+	/**
+	 * Cache with a clock the test moves
+	 */
+	private static class ClockedTagCloudCache extends TagCloudCache {
+		private long now = 1000L;
+
+		ClockedTagCloudCache(final long timeToLiveMillis) {
+			super(DEFAULT_MAX_CLOUDS, timeToLiveMillis);
+		}
+
+		@Override
+		protected long currentTimeMillis() {
+			return now;
+		}
+	}
+
+	@Rule
+	public EmbeddedIRODSServerRule serverRule = new EmbeddedIRODSServerRule();
+
+	private EmbeddedIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSAccount irodsAccount;
+	private JargonProperties originalProperties;
+	private String home;
+
+	@Before
+	public void setUp() throws Exception {
+		server = serverRule.getServer();
+		irodsFileSystem = serverRule.getIrodsFileSystem();
+		irodsAccount = serverRule.getIrodsAccount();
+		home = server.getHomeDirectory("test1");
+
+		// small pages, so that a cloud takes several
+		originalProperties = irodsFileSystem.getJargonProperties();
+		SettableJargonProperties settableJargonProperties = new SettableJargonProperties(
+				originalProperties);
+		settableJargonProperties.setMaxFilesAndDirsQueryMax(500);
+		irodsFileSystem.getIrodsSession().setJargonProperties(
+				settableJargonProperties);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		irodsFileSystem.getIrodsSession()
+				.setJargonProperties(originalProperties);
+	}
+
+	private void tag(final String path, final String tag, final String user)
+			throws Exception {
+		server.getCatalog().addAVUMetadata(path,
+				AvuData.instance(tag, user, UserTaggingConstants.TAG_AVU_UNIT));
+	}
+
+	private long queries() {
+		return server.getApiCallCount(GenQueryInp.API_NBR);
+	}
+
+	private TagCloudEntry entry(final UserTagCloudView view, final String tag)
+			throws Exception {
+		return view.getTagCloudEntries().get(new IRODSTagValue(tag, "test1"));
+	}
+
+	@Test
+	public void testTagCloudReadsEveryPage() throws Exception {
+		String dataPath = home + "/tagged.txt";
+		String otherDataPath = home + "/other.txt";
+		String collectionPath = home + "/taggedcoll";
+		server.getCatalog().putDataObject(dataPath, "data".getBytes());
+		server.getCatalog().putDataObject(otherDataPath, "data".getBytes());
+		server.getCatalog().createCollection(collectionPath);
+		for (int i = 0; i < 2500; i++) {
+			tag(dataPath, String.format("tag%04d", i), "test1");
+		}
+		for (int i = 2000; i < 2600; i++) {
+			tag(collectionPath, String.format("tag%04d", i), "test1");
+		}
+		tag(otherDataPath, "tag0001", "test1");
+		tag(otherDataPath, "notmine", "test2");
+		server.getCatalog().addAVUMetadata(otherDataPath,
+				AvuData.instance("plain", "test1", "units"));
+
+		UserTagCloudService service = new TaggingServiceFactoryImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory())
+				.instanceUserTagCloudService(irodsAccount);
+		UserTagCloudView view = service.getTagCloud();
+
+		Assert.assertEquals(2600, view.getTagCloudEntries().size());
+		Assert.assertEquals(2, entry(view, "tag0001").getCountOfFiles());
+		Assert.assertEquals(0, entry(view, "tag0001").getCountOfCollections());
+		Assert.assertEquals(1, entry(view, "tag2100").getCountOfFiles());
+		Assert.assertEquals(1, entry(view, "tag2100").getCountOfCollections());
+		Assert.assertEquals(0, entry(view, "tag2550").getCountOfFiles());
+		Assert.assertEquals(1, entry(view, "tag2550").getCountOfCollections());
+		Assert.assertNull(entry(view, "plain"));
+
+		Assert.assertEquals(2500, service.getTagCloudForDataObjects()
+				.getTagCloudEntries().size());
+		Assert.assertEquals(600, service.getTagCloudForCollections()
+				.getTagCloudEntries().size());
+
+		UserTagCloudView searched = service
+				.searchForTagsForDataObjectsAndCollectionsUsingSearchTermForTheLoggedInUser("tag25");
+		Assert.assertEquals(100, searched.getTagCloudEntries().size());
+		Assert.assertEquals(1, entry(searched, "tag2599")
+				.getCountOfCollections());
+	}
+
+	@Test
+	public void testCachedTagCloud() throws Exception {
+		String dataPath = home + "/cached.txt";
+		server.getCatalog().putDataObject(dataPath, "data".getBytes());
+		for (int i = 0; i < 10; i++) {
+			tag(dataPath, "cached" + i, "test1");
+		}
+
+		ClockedTagCloudCache tagCloudCache = new ClockedTagCloudCache(5000L);
+		TaggingServiceFactory factory = new TaggingServiceFactoryImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory(), tagCloudCache);
+		UserTagCloudService service = factory
+				.instanceUserTagCloudService(irodsAccount);
+
+		UserTagCloudView view = service.getTagCloud();
+		Assert.assertEquals(10, view.getTagCloudEntries().size());
+		long queries = queries();
+
+		// changing the returned view does not change the cache
+		view.getTagCloudEntries().clear();
+
+		UserTagCloudView cachedView = service.getTagCloud();
+		Assert.assertEquals(10, cachedView.getTagCloudEntries().size());
+		Assert.assertEquals(10, service.getTagCloudForDataObjects()
+				.getTagCloudEntries().size());
+		Assert.assertEquals(0, service.getTagCloudForCollections()
+				.getTagCloudEntries().size());
+		Assert.assertEquals(1, service
+				.searchForTagsForDataObjectsAndCollectionsUsingSearchTermForTheLoggedInUser(
+						"cached3").getTagCloudEntries().size());
+		Assert.assertEquals(queries, queries());
+		Assert.assertEquals(4L, tagCloudCache.getHitCount());
+
+		// a second service of the factory shares the cache
+		Assert.assertEquals(10, factory.instanceUserTagCloudService(
+				irodsAccount).getTagCloud().getTagCloudEntries().size());
+		Assert.assertEquals(queries, queries());
+
+		// a change made elsewhere is seen once the cloud expires
+		tag(dataPath, "cached10", "test1");
+		Assert.assertEquals(10, service.getTagCloud().getTagCloudEntries()
+				.size());
+		tagCloudCache.now += 5000L;
+		Assert.assertEquals(11, service.getTagCloud().getTagCloudEntries()
+				.size());
+		Assert.assertTrue(queries() > queries);
+	}
+
+	@Test
+	public void testCachedSearchMatchesQueryWildcards() throws Exception {
+		String dataPath = home + "/wild.txt";
+		server.getCatalog().putDataObject(dataPath, "data".getBytes());
+		tag(dataPath, "a1b", "test1");
+		tag(dataPath, "axb", "test1");
+		tag(dataPath, "a_b", "test1");
+		tag(dataPath, "abc", "test1");
+		tag(dataPath, "A1B", "test1");
+		tag(dataPath, "a.b", "test1");
+
+		UserTagCloudService uncached = new TaggingServiceFactoryImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory(), null, null)
+				.instanceUserTagCloudService(irodsAccount);
+		UserTagCloudService cached = new TaggingServiceFactoryImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory(),
+				new TagCloudCache(), null)
+				.instanceUserTagCloudService(irodsAccount);
+		cached.getTagCloud();
+
+		String[] terms = { "a_b", "a%b", "b", "a.b", "%", "_1" };
+		for (String term : terms) {
+			UserTagCloudView fromQuery = uncached
+					.searchForTagsForDataObjectsAndCollectionsUsingSearchTermForTheLoggedInUser(term);
+			long queries = queries();
+			UserTagCloudView fromCache = cached
+					.searchForTagsForDataObjectsAndCollectionsUsingSearchTermForTheLoggedInUser(term);
+			Assert.assertEquals(queries, queries());
+			Assert.assertEquals("search for " + term, fromQuery
+					.getTagCloudEntries().keySet(), fromCache
+					.getTagCloudEntries().keySet());
+		}
+		Assert.assertEquals(4, cached
+				.searchForTagsForDataObjectsAndCollectionsUsingSearchTermForTheLoggedInUser(
+						"a_b").getTagCloudEntries().size());
+	}
+
+	@Test
+	public void testTagCloudWorkerKeepsItsConnection() throws Exception {
+		String dataPath = home + "/worker.txt";
+		String collectionPath = home + "/workercoll";
+		server.getCatalog().putDataObject(dataPath, "data".getBytes());
+		server.getCatalog().createCollection(collectionPath);
+		tag(dataPath, "fromdata", "test1");
+		tag(collectionPath, "fromcoll", "test1");
+
+		TagCloudWorkerPool tagCloudWorkerPool = new TagCloudWorkerPool(
+				irodsFileSystem.getIRODSAccessObjectFactory());
+		try {
+			TaggingServiceFactory factory = new TaggingServiceFactoryImpl(
+					irodsFileSystem.getIRODSAccessObjectFactory(), null,
+					tagCloudWorkerPool);
+			UserTagCloudView view = factory.instanceUserTagCloudService(
+					irodsAccount).getTagCloud();
+			Assert.assertEquals(1, entry(view, "fromdata").getCountOfFiles());
+			Assert.assertEquals(1, entry(view, "fromcoll")
+					.getCountOfCollections());
+			Assert.assertEquals(1, tagCloudWorkerPool.getRunningWorkerCount());
+			long connections = server.getConnectionCount();
+
+			// a later cloud reuses the connections of both threads
+			view = factory.instanceUserTagCloudService(irodsAccount)
+					.getTagCloud();
+			Assert.assertEquals(2, view.getTagCloudEntries().size());
+			Assert.assertEquals(connections, server.getConnectionCount());
+		} finally {
+			tagCloudWorkerPool.shutdown();
+		}
+		Assert.assertEquals(0, tagCloudWorkerPool.getRunningWorkerCount());
+	}
+
+	@Test
+	public void testUpdateTagsInvalidatesCachedTagCloud() throws Exception {
+		String dataPath = home + "/update.txt";
+		server.getCatalog().putDataObject(dataPath, "data".getBytes());
+		tag(dataPath, "before", "test1");
+
+		TagCloudCache tagCloudCache = new TagCloudCache();
+		TaggingServiceFactory factory = new TaggingServiceFactoryImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory(), tagCloudCache);
+		UserTagCloudService cloudService = factory
+				.instanceUserTagCloudService(irodsAccount);
+		FreeTaggingService freeTaggingService = factory
+				.instanceFreeTaggingService(irodsAccount);
+
+		Assert.assertNotNull(entry(cloudService.getTagCloud(), "before"));
+		Assert.assertEquals(1, tagCloudCache.getCloudCount());
+
+		freeTaggingService.updateTagsForUserForADataObjectOrCollection(
+				dataPath, "test1", "after another");
+		Assert.assertEquals(0, tagCloudCache.getCloudCount());
+
+		UserTagCloudView view = cloudService.getTagCloud();
+		Assert.assertEquals(2, view.getTagCloudEntries().size());
+		Assert.assertNull(entry(view, "before"));
+		Assert.assertNotNull(entry(view, "after"));
+		Assert.assertNotNull(entry(view, "another"));
+	}
+
+	@Test
+	public void testSearchUsingFreeTagStringMatchesEveryTag() throws Exception {
+		String both = home + "/both.txt";
+		String oneOnly = home + "/one.txt";
+		String bothColl = home + "/bothcoll";
+		server.getCatalog().putDataObject(both, "data".getBytes());
+		server.getCatalog().putDataObject(oneOnly, "data".getBytes());
+		server.getCatalog().createCollection(bothColl);
+		tag(both, "red", "test1");
+		tag(both, "blue", "test1");
+		tag(both, "green", "test1");
+		tag(oneOnly, "red", "test1");
+		tag(bothColl, "red", "test1");
+		tag(bothColl, "blue", "test1");
+
+		FreeTaggingService freeTaggingService = new TaggingServiceFactoryImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory())
+				.instanceFreeTaggingService(irodsAccount);
+
+		long queries = queries();
+		TagQuerySearchResult result = freeTaggingService
+				.searchUsingFreeTagString("red, blue red");
+		Assert.assertEquals(queries + 2, queries());
+
+		Assert.assertEquals(2, result.getQueryResultEntries().size());
+		CollectionAndDataObjectListingEntry dataEntry = result
+				.getQueryResultEntries().get(0);
+		Assert.assertEquals(both, dataEntry.getFormattedAbsolutePath());
+		Assert.assertTrue(dataEntry.isLastResult());
+		CollectionAndDataObjectListingEntry collectionEntry = result
+				.getQueryResultEntries().get(1);
+		Assert.assertEquals(bothColl, collectionEntry.getFormattedAbsolutePath());
+
+		result = freeTaggingService.searchUsingFreeTagString("red");
+		Assert.assertEquals(3, result.getQueryResultEntries().size());
+
+		result = freeTaggingService.searchUsingFreeTagString("red purple");
+		Assert.assertTrue(result.getQueryResultEntries().isEmpty());
+	}
+
+}
@@ -0,0 +1,206 @@
+package org.irods.jargon.usertagging.sharing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.irods.jargon.core.connection.IRODSAccount;
+import org.irods.jargon.core.exception.JargonException;
+import org.irods.jargon.core.packinstr.GenQueryInp;
+import org.irods.jargon.core.protovalues.FilePermissionEnum;
+import org.irods.jargon.core.pub.IRODSFileSystem;
+import org.irods.jargon.core.pub.domain.AvuData;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServer;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerConfiguration;
+import org.irods.jargon.testutils.server.EmbeddedIRODSServerRule;
+import org.irods.jargon.usertagging.domain.IRODSSharedFileOrCollection;
+import org.irods.jargon.usertagging.domain.ShareUser;
+import org.irods.jargon.usertagging.tags.UserTaggingConstants;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+public class SharingListingTest {
+
+	@Rule
+	public EmbeddedIRODSServerRule serverRule = new EmbeddedIRODSServerRule(
+			buildConfiguration());
+
+	private EmbeddedIRODSServer server;
+	private IRODSFileSystem irodsFileSystem;
+	private IRODSAccount irodsAccount;
+
+	private static EmbeddedIRODSServerConfiguration buildConfiguration() {
+		EmbeddedIRODSServerConfiguration configuration = new EmbeddedIRODSServerConfiguration();
+		configuration.addUser("test2", "test");
+		configuration.addUser("test3", "test");
+		return configuration;
+	}
+
+	@Before
+	public void setUp() throws Exception {
+		server = serverRule.getServer();
+		irodsFileSystem = serverRule.getIrodsFileSystem();
+		irodsAccount = serverRule.getIrodsAccount();
+	}
+
+	private IRODSSharingService service(
+			final ShareListingCache shareListingCache) throws Exception {
+		return new IRODSSharingServiceImpl(
+				irodsFileSystem.getIRODSAccessObjectFactory(), irodsAccount,
+				shareListingCache);
+	}
+
+	private String share(final String owner, final String name,
+			final String... readers) throws Exception {
+		String path = server.getHomeDirectory(owner) + "/" + name;
+		server.getCatalog().createCollection(path, owner);
+		server.getCatalog().addAVUMetadata(
+				path,
+				AvuData.instance(name, owner,
+						UserTaggingConstants.SHARE_AVU_UNIT));
+		for (String reader : readers) {
+			server.getCatalog().setAccessPermission(path, reader,
+					FilePermissionEnum.READ);
+		}
+		return path;
+	}
+
+	private long queries() {
+		return server.getApiCallCount(GenQueryInp.API_NBR);
+	}
+
+	@Test
+	public void testListOwnedWithShareUsers() throws Exception {
+		for (int i = 0; i < 300; i++) {
+			share("test1", "share" + (1000 + i), "test2", "test3");
+		}
+		share("test2", "other", "test1");
+		String plain = server.getHomeDirectory("test1") + "/plain";
+		server.getCatalog().createCollection(plain, "test1");
+		server.getCatalog().setAccessPermission(plain, "test2",
+				FilePermissionEnum.WRITE);
+
+		long queries = queries();
+		List<IRODSSharedFileOrCollection> shares = service(null)
+				.listSharedCollectionsOwnedByAUserWithShareUsers("test1", "");
+
+		// one paged query for the shares and their users together
+		Assert.assertTrue(queries() - queries <= 3);
+		Assert.assertEquals(300, shares.size());
+		IRODSSharedFileOrCollection first = shares.get(0);
+		Assert.assertEquals(server.getHomeDirectory("test1") + "/share1000",
+				first.getDomainUniqueName());
+		Assert.assertEquals("share1000", first.getShareName());
+		Assert.assertEquals("test1", first.getShareOwner());
+		Assert.assertEquals(irodsAccount.getZone(), first.getShareOwnerZone());
+		Assert.assertEquals(1, first.getCount());
+		Assert.assertFalse(first.isLastResult());
+		Assert.assertEquals(3, first.getShareUsers().size());
+		ShareUser shareUser = first.getShareUsers().get(0);
+		Assert.assertEquals("test1", shareUser.getUserName());
+		Assert.assertEquals(FilePermissionEnum.OWN,
+				shareUser.getFilePermission());
+		shareUser = first.getShareUsers().get(1);
+		Assert.assertEquals("test2", shareUser.getUserName());
+		Assert.assertEquals(irodsAccount.getZone(), shareUser.getZone());
+		Assert.assertEquals(FilePermissionEnum.READ,
+				shareUser.getFilePermission());
+
+		IRODSSharedFileOrCollection last = shares.get(299);
+		Assert.assertEquals("share1299", last.getShareName());
+		Assert.assertEquals(300, last.getCount());
+		Assert.assertTrue(last.isLastResult());
+	}
+
+	@Test
+	public void testListSharedWithUserWithShareUsers() throws Exception {
+		for (int i = 0; i < 250; i++) {
+			share("test2", "share" + (1000 + i), "test1", "test3");
+		}
+		share("test3", "fromTest3", "test1");
+		share("test2", "notForTest1", "test3");
+		share("test1", "mine", "test2");
+
+		long queries = queries();
+		List<IRODSSharedFileOrCollection> shares = service(null)
+				.listSharedCollectionsSharedWithUserWithShareUsers("test1",
+						irodsAccount.getZone());
+
+		// one query for the share names, then one per hundred shares
+		Assert.assertTrue(queries() - queries <= 6);
+		Assert.assertEquals(251, shares.size());
+		IRODSSharedFileOrCollection first = shares.get(0);
+		Assert.assertEquals("share1000", first.getShareName());
+		Assert.assertEquals("test2", first.getShareOwner());
+		Assert.assertEquals(3, first.getShareUsers().size());
+		Assert.assertEquals("test3", first.getShareUsers().get(2)
+				.getUserName());
+		Assert.assertEquals("share1249", shares.get(249).getShareName());
+		Assert.assertEquals(server.getHomeDirectory("test3") + "/fromTest3",
+				shares.get(250).getDomainUniqueName());
+		Assert.assertEquals("test3", shares.get(250).getShareOwner());
+		Assert.assertEquals(251, shares.get(250).getCount());
+		Assert.assertTrue(shares.get(250).isLastResult());
+	}
+
+	@Test
+	public void testListStreamedAndCached() throws Exception {
+		share("test1", "a", "test2");
+		share("test1", "b", "test3");
+		ShareListingCache shareListingCache = new ShareListingCache();
+		IRODSSharingService sharingService = service(shareListingCache);
+
+		final List<IRODSSharedFileOrCollection> streamed = new ArrayList<IRODSSharedFileOrCollection>();
+		SharedFileOrCollectionListener listener = new SharedFileOrCollectionListener() {
+			@Override
+			public void nextShare(
+					final IRODSSharedFileOrCollection irodsSharedFileOrCollection)
+					throws JargonException {
+				streamed.add(irodsSharedFileOrCollection);
+			}
+		};
+
+		long queries = queries();
+		sharingService.listSharedCollectionsOwnedByAUserWithShareUsers(
+				"test1", "", listener);
+		Assert.assertEquals(2, streamed.size());
+		Assert.assertEquals(1, shareListingCache.getListingCount());
+		long queriesAfterFirst = queries();
+		Assert.assertTrue(queriesAfterFirst > queries);
+
+		// a second listing, through another service, is served from the cache
+		streamed.clear();
+		service(shareListingCache)
+				.listSharedCollectionsOwnedByAUserWithShareUsers("test1",
+						irodsAccount.getZone(), listener);
+		Assert.assertEquals(queriesAfterFirst, queries());
+		Assert.assertEquals(2, streamed.size());
+		Assert.assertEquals("b", streamed.get(1).getShareName());
+		Assert.assertTrue(streamed.get(1).isLastResult());
+		Assert.assertEquals(1, shareListingCache.getHitCount());
+
+		// changing a share clears the listings
+		sharingService.removeShare(server.getHomeDirectory("test1") + "/a");
+		Assert.assertEquals(0, shareListingCache.getListingCount());
+		List<IRODSSharedFileOrCollection> shares = sharingService
+				.listSharedCollectionsOwnedByAUserWithShareUsers("test1", "");
+		Assert.assertEquals(1, shares.size());
+		Assert.assertEquals("b", shares.get(0).getShareName());
+	}
+
+	@Test
+	public void testListNoShares() throws Exception {
+		List<IRODSSharedFileOrCollection> shares = service(null)
+				.listSharedCollectionsSharedWithUserWithShareUsers("test1", "");
+		Assert.assertTrue(shares.isEmpty());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testListNullListener() throws Exception {
+		service(null).listSharedCollectionsOwnedByAUserWithShareUsers("test1",
+				"", null);
+	}
+
+}
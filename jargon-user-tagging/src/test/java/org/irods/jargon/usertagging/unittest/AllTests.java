@@ -1,7 +1,9 @@
 package org.irods.jargon.usertagging.unittest;
 
+import org.irods.jargon.usertagging.BulkTaggingServiceImplTest;
 import org.irods.jargon.usertagging.FreeTaggingServiceImplTest;
 import org.irods.jargon.usertagging.IRODSTaggingServiceTest;
+import org.irods.jargon.usertagging.TagCloudQueryAndCacheTest;
 import org.irods.jargon.usertagging.TaggingServiceFactoryImplTest;
 import org.irods.jargon.usertagging.UserTagCloudServiceImplTest;
 import org.irods.jargon.usertagging.domain.IRODSTagGroupingTest;
@@ -10,6 +12,7 @@ import org.irods.jargon.usertagging.domain.TagCloudEntryTest;
 import org.irods.jargon.usertagging.domain.TagQuerySearchResultTest;
 import org.irods.jargon.usertagging.domain.UserTagCloudViewTest;
 import org.irods.jargon.usertagging.sharing.IRODSSharingServiceImplTest;
+import org.irods.jargon.usertagging.sharing.SharingListingTest;
 import org.irods.jargon.usertagging.starring.IRODSStarringServiceImplTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
@@ -20,7 +23,9 @@ import org.junit.runners.Suite;
 		TagCloudEntryTest.class, UserTagCloudViewTest.class,
 		UserTagCloudServiceImplTest.class, TagQuerySearchResultTest.class,
 		TaggingServiceFactoryImplTest.class,
-		IRODSStarringServiceImplTest.class, IRODSSharingServiceImplTest.class })
+		IRODSStarringServiceImplTest.class, IRODSSharingServiceImplTest.class,
+		TagCloudQueryAndCacheTest.class, BulkTaggingServiceImplTest.class,
+		SharingListingTest.class })
 public class AllTests {
 
 }